@@ -419,7 +419,16 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
         this.renderingExceptions.clear(); // Clear the rendering exceptions accumulated during the last frame.
         this.glRuntimeCaps.initialize(GLContext.getCurrent());
         this.initializeDrawContext(this.dc);
-        this.doRepaint(this.dc);
+        try
+        {
+            this.doRepaint(this.dc);
+        }
+        finally
+        {
+            // Submit the tile requests the layers made during the frame, most important first. Do this even if the
+            // frame failed, so the requests made before the failure are not left queued until the next frame.
+            WorldWind.getTileRequestScheduler().sendRequests();
+        }
 
         ++this.frame;
         long time = System.currentTimeMillis();
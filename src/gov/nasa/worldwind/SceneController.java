@@ -75,6 +75,11 @@ public interface SceneController extends WWObject, Disposable
 
     /**
      * Cause the window to regenerate the frame, including pick resolution.
+     * <p>
+     * Tiled layers add their tile load requests to {@link WorldWind#getTileRequestScheduler()} while they render, and
+     * the scheduler submits them only when {@link gov.nasa.worldwind.util.TileRequestScheduler#sendRequests()} is
+     * called. Implementations must call it once at the end of every frame, including frames that end with an
+     * exception, or the layers' tiles are never loaded. {@link AbstractSceneController} does this.
      *
      * @return if greater than zero, the window should be automatically repainted again at the indicated number of
      *         milliseconds from this method's return.
@@ -73,6 +73,8 @@ public final class WorldWind
     private RetrievalService localRetrievalService;
     private TaskService taskService;
     private ScheduledTaskService scheduledTaskService;
+    private TileRequestScheduler tileRequestScheduler;
+    private TextureDecoder textureDecoder;
     private NetworkStatus networkStatus;
     private SessionCache sessionCache;
 
@@ -94,6 +96,8 @@ public final class WorldWind
         this.networkStatus = (NetworkStatus) createConfigurationComponent(AVKey.NETWORK_STATUS_CLASS_NAME);
         this.sessionCache = (SessionCache) createConfigurationComponent(AVKey.SESSION_CACHE_CLASS_NAME);
         this.scheduledTaskService = new BasicScheduledTaskService();
+        this.tileRequestScheduler = new TileRequestScheduler();
+        this.textureDecoder = new TextureDecoder();
 
         // Seems like an unlikely place to load the tiff reader, but do it here nonetheless.
         IIORegistry.getDefaultInstance().registerServiceProvider(GeotiffImageReaderSpi.inst());
@@ -113,6 +117,10 @@ public final class WorldWind
             this.sessionCache.clear();
         if (this.scheduledTaskService != null)
             this.scheduledTaskService.shutdown(true);
+        if (this.tileRequestScheduler != null)
+            this.tileRequestScheduler.clear();
+        if (this.textureDecoder != null)
+            this.textureDecoder.getBufferPool().clear();
     }
 
     /**
@@ -180,6 +188,28 @@ public final class WorldWind
         return instance.scheduledTaskService;
     }
 
+    /**
+     * Get the tile request scheduler. Tiled layers add their tile load requests to this scheduler, which submits them
+     * to the task service in order of importance at the end of each frame.
+     *
+     * @return the tile request scheduler.
+     */
+    public static TileRequestScheduler getTileRequestScheduler()
+    {
+        return instance.tileRequestScheduler;
+    }
+
+    /**
+     * Get the texture decoder. Tiled image layers decode their texture images with this decoder, which bounds the
+     * number of images decoded at once and reuses the direct buffers holding decoded pixels.
+     *
+     * @return the texture decoder.
+     */
+    public static TextureDecoder getTextureDecoder()
+    {
+        return instance.textureDecoder;
+    }
+
     public static NetworkStatus getNetworkStatus()
     {
         return instance.networkStatus;
@@ -147,6 +147,11 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String ELEVATION_MODEL = "gov.nasa.worldwind.avkey.ElevationModel";
     final String ELEVATION_MODEL_FACTORY = "gov.nasa.worldwind.avkey.ElevationModelFactory";
     final String ELEVATION_TILE_CACHE_SIZE = "gov.nasa.worldwind.avkey.ElevationTileCacheSize";
+    /**
+     * Indicates the capacity in bytes of the off-heap tier that holds elevation tile payloads evicted from the elevation
+     * tile memory cache. A value of zero or less, the default, disables the tier.
+     */
+    final String ELEVATION_TILE_OFF_HEAP_CACHE_SIZE = "gov.nasa.worldwind.avkey.ElevationTileOffHeapCacheSize";
     final String ELEVATION_UNIT = "gov.nasa.worldwind.avkey.ElevationUnit";
 
     final String END = "gov.nasa.worldwind.avkey.End";
@@ -170,6 +175,7 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String FOV = "gov.nasa.worldwind.avkey.FieldOfView";
     final String FORCE_LEVEL_ZERO_LOADS = "gov.nasa.worldwind.avkey.ForceLevelZeroLoads";
     final String FRACTION = "gov.nasa.worldwind.avkey.Fraction";
+    final String FRAME_COHERENT_TILE_SELECTION = "gov.nasa.worldwind.avkey.FrameCoherentTileSelection";
     final String FRAME_TIMESTAMP = "gov.nasa.worldwind.avkey.FrameTimestamp";
 
     final String GDAL_AREA = "gov.nasa.worldwind.avkey.GDAL.Area";
@@ -220,6 +226,8 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String INT32 = "gov.nasa.worldwind.avkey.Int32";
     final String INT64 = "gov.nasa.worldwind.avkey.Int64";
 
+    final String KML_NETWORK_LINK_POOL_SIZE = "gov.nasa.worldwind.avkey.KMLNetworkLinkPoolSize";
+
     final String LABEL = "gov.nasa.worldwind.avkey.Label";
     final String LAST_UPDATE = "gov.nasa.worldwind.avkey.LastUpdateKey";
     final String LAYER = "gov.nasa.worldwind.avkey.LayerObject";
@@ -255,6 +263,18 @@ public interface AVKey // TODO: Eliminate unused constants, if any
 
     final String MAX_ACTIVE_ALTITUDE = "gov.nasa.worldwind.avkey.MaxActiveAltitude";
     final String MAX_MESSAGE_REPEAT = "gov.nasa.worldwind.avkey.MaxMessageRepeat";
+    /**
+     * Indicates the class name of the {@link gov.nasa.worldwind.cache.MemoryCache} created by {@link
+     * gov.nasa.worldwind.cache.BasicMemoryCacheSet#createCache(String, long, long)}. The class for an individual cache
+     * may be specified by appending a period and the cache's key to this key.
+     */
+    final String MEMORY_CACHE_CLASS_NAME = "gov.nasa.worldwind.avkey.MemoryCacheClassName";
+    /**
+     * Indicates the class name of the {@link gov.nasa.worldwind.cache.EvictionPolicy} used by memory caches added to
+     * a {@link gov.nasa.worldwind.cache.BasicMemoryCacheSet}. The policy for an individual cache may be specified by
+     * appending a period and the cache's key to this key.
+     */
+    final String MEMORY_CACHE_EVICTION_POLICY_CLASS_NAME = "gov.nasa.worldwind.avkey.MemoryCacheEvictionPolicyClassName";
     final String MEMORY_CACHE_SET_CLASS_NAME = "gov.nasa.worldwind.avkey.MemoryCacheSetClassName";
     /**
      * Indicates the location that MIL-STD-2525 tactical symbols and tactical
@@ -381,7 +401,10 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String RASTER_PIXEL = "gov.nasa.worldwind.avkey.RasterPixel";
     final String RASTER_PIXEL_IS_AREA = "gov.nasa.worldwind.avkey.RasterPixelIsArea";
     final String RASTER_PIXEL_IS_POINT = "gov.nasa.worldwind.avkey.RasterPixelIsPoint";
+    final String RECTANGULAR_TESSELLATOR_ASYNC_BUILD = "gov.nasa.worldwind.avkey.RectangularTessellatorAsyncBuild";
     final String RECTANGULAR_TESSELLATOR_MAX_LEVEL = "gov.nasa.worldwind.avkey.RectangularTessellatorMaxLevel";
+    final String RECTANGULAR_TESSELLATOR_PARALLEL_BUILD =
+        "gov.nasa.worldwind.avkey.RectangularTessellatorParallelBuild";
     final String REPAINT = "gov.nasa.worldwind.avkey.Repaint";
     final String REPEAT_NONE = "gov.nasa.worldwind.avkey.RepeatNone";
     final String REPEAT_X = "gov.nasa.worldwind.avkey.RepeatX";
@@ -405,11 +428,15 @@ public interface AVKey // TODO: Eliminate unused constants, if any
      */
     final String RESIZE_KEEP_FIXED_SIZE = "gov.nasa.worldwind.CompassLayer.ResizeKeepFixedSize";
     final String RETAIN_LEVEL_ZERO_TILES = "gov.nasa.worldwind.avkey.RetainLevelZeroTiles";
+    final String RETRIEVAL_HOST_POOL_SIZE = "gov.nasa.worldwind.avkey.RetrievalHostPoolSize";
     final String RETRIEVAL_POOL_SIZE = "gov.nasa.worldwind.avkey.RetrievalPoolSize";
     final String RETRIEVE_PROPERTIES_FROM_SERVICE = "gov.nasa.worldwind.avkey.RetrievePropertiesFromService";
     final String RETRIEVAL_QUEUE_SIZE = "gov.nasa.worldwind.avkey.RetrievalQueueSize";
+    final String RETRIEVAL_QUEUE_RESUBMIT_LIMIT = "gov.nasa.worldwind.avkey.RetrievalResubmitLimit";
     final String RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT = "gov.nasa.worldwind.avkey.RetrievalStaleRequestLimit";
     final String RETRIEVAL_SERVICE_CLASS_NAME = "gov.nasa.worldwind.avkey.RetrievalServiceClassName";
+    final String RETRIEVAL_SERVICE_VIRTUAL_THREADS = "gov.nasa.worldwind.avkey.RetrievalServiceVirtualThreads";
+    final String RETRIEVAL_VIRTUAL_THREAD_LIMIT = "gov.nasa.worldwind.avkey.RetrievalVirtualThreadLimit";
     final String RETRIEVER_FACTORY_LOCAL = "gov.nasa.worldwind.avkey.RetrieverFactoryLocal";
     final String RETRIEVER_FACTORY_REMOTE = "gov.nasa.worldwind.avkey.RetrieverFactoryRemote";
     final String RETRIEVER_STATE = "gov.nasa.worldwind.avkey.RetrieverState";
@@ -457,6 +484,7 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String SHAPE_TRIANGLE = "gov.nasa.worldwind.avkey.ShapeTriangle";
     final String SHAPEFILE_GEOMETRY_CACHE_SIZE = "gov.nasa.worldwind.avkey.ShapefileGeometryCacheSize";
     final String SHAPEFILE_LAYER_FACTORY = "gov.nasa.worldwind.avkey.ShapefileLayerFactory";
+    final String SHAPEFILE_RECORD_PAGING_THRESHOLD = "gov.nasa.worldwind.avkey.ShapefileRecordPagingThreshold";
     final String SHORT_DESCRIPTION = "gov.nasa.worldwind.avkey.Server.ShortDescription";
     final String SIZE_FIT_TEXT = "gov.nasa.worldwind.avkey.SizeFitText";
     final String SIZE_FIXED = "gov.nasa.worldwind.avkey.SizeFixed";
@@ -478,14 +506,18 @@ public interface AVKey // TODO: Eliminate unused constants, if any
 
     final String TESSELLATOR_CLASS_NAME = "gov.nasa.worldwind.avkey.TessellatorClassName";
     final String TEXTURE = "gov.nasa.worldwind.avkey.Texture";
+    final String TEXTURE_BUFFER_POOL_SIZE = "gov.nasa.worldwind.avkey.TextureBufferPoolSize";
     final String TEXTURE_CACHE_SIZE = "gov.nasa.worldwind.avkey.TextureCacheSize";
     final String TEXTURE_COORDINATES = "gov.nasa.worldwind.avkey.TextureCoordinates";
+    final String TEXTURE_DECODER_POOL_SIZE = "gov.nasa.worldwind.avkey.TextureDecoderPoolSize";
     final String TEXTURE_FORMAT = "gov.nasa.worldwind.avkey.TextureFormat";
     final String TEXTURE_IMAGE_CACHE_SIZE = "gov.nasa.worldwind.avkey.TextureTileCacheSize";
     final String TARGET = "gov.nasa.worldwind.avkey.Target";
     final String TASK_POOL_SIZE = "gov.nasa.worldwind.avkey.TaskPoolSize";
     final String TASK_QUEUE_SIZE = "gov.nasa.worldwind.avkey.TaskQueueSize";
     final String TASK_SERVICE_CLASS_NAME = "gov.nasa.worldwind.avkey.TaskServiceClassName";
+    final String TASK_SERVICE_VIRTUAL_THREADS = "gov.nasa.worldwind.avkey.TaskServiceVirtualThreads";
+    final String TASK_VIRTUAL_THREAD_LIMIT = "gov.nasa.worldwind.avkey.TaskVirtualThreadLimit";
     final String TEXT = "gov.nasa.worldwind.avkey.Text";
     final String TEXT_EFFECT_NONE = "gov.nasa.worldwind.avkey.TextEffectNone";
     final String TEXT_EFFECT_OUTLINE = "gov.nasa.worldwind.avkey.TextEffectOutline";
@@ -502,6 +534,8 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String TILED_RASTER_PRODUCER_LARGE_DATASET_THRESHOLD
             = "gov.nasa.worldwind.avkey.TiledRasterProducerLargeDatasetThreshold";
     final String TILED_RASTER_PRODUCER_LIMIT_MAX_LEVEL = "gov.nasa.worldwind.avkey.TiledRasterProducer.LimitMaxLevel";
+    final String TILED_RASTER_PRODUCER_MEMORY_BUDGET = "gov.nasa.worldwind.avkey.TiledRasterProducerMemoryBudget";
+    final String TILED_RASTER_PRODUCER_PARALLELISM = "gov.nasa.worldwind.avkey.TiledRasterProducerParallelism";
     final String TILT = "gov.nasa.worldwind.avkey.Tilt";
     final String TITLE = "gov.nasa.worldwind.avkey.Title";
     final String TOP = "gov.nasa.worldwind.avkey.Top";
@@ -551,6 +585,8 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String VISIBILITY_ACTION_RELEASE = "gov.nasa.worldwind.avkey.VisibilityActionRelease";
     final String VISIBILITY_ACTION_RETAIN = "gov.nasa.worldwind.avkey.VisibilityActionRetain";
 
+    final String VPF_PRIMITIVE_DATA_CACHE_SIZE = "gov.nasa.worldwind.avkey.VPFPrimitiveDataCacheSize";
+
     final String WAKEUP_TIMEOUT = "gov.nasa.worldwind.avkey.WakeupTimeout";
     final String WEB_VIEW_FACTORY = "gov.nasa.worldwind.avkey.WebViewFactory";
     final String WEST = "gov.nasa.worldwind.avkey.West";
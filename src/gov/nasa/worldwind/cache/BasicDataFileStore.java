@@ -350,6 +350,37 @@ public class BasicDataFileStore extends AbstractFileStore
             throw new IllegalArgumentException(message);
         }
 
+        URL cacheFileUrl = this.findLocalFileUrl(address, retrievalUrl, searchLocalCache);
+
+        if (cacheFileUrl != null)
+        {
+            DBEntry entry = new DBEntry(address);
+            entry.localUrl = cacheFileUrl;
+            entry.state = DBEntry.LOCAL;
+            entry.contentType = WWIO.makeMimeTypeForSuffix(WWIO.getSuffix(cacheFileUrl.getPath()));
+            this.db.add(address, entry);
+            this.getAbsentResourceList().unmarkResourceAbsent(address);
+
+            return cacheFileUrl;
+        }
+
+        return null;
+    }
+
+    /**
+     * Searches the local file system, the classpath and the WorldWind cache for a file, as described in {@link
+     * #getLocalFileUrl(String, java.net.URL, boolean)}. This does not modify the file store's entries, so it needs no
+     * synchronization.
+     *
+     * @param address          the name used to identify the cached file.
+     * @param retrievalUrl     the URL to obtain the file if it is not in the cache. May be null.
+     * @param searchLocalCache <code>true</code> to look for the file in the WorldWind cache, otherwise
+     *                         <code>false</code>.
+     *
+     * @return the requested file if it exists, otherwise null.
+     */
+    protected URL findLocalFileUrl(String address, URL retrievalUrl, boolean searchLocalCache)
+    {
         URL cacheFileUrl = null;
 
         if (address.trim().startsWith("jar:"))
@@ -416,19 +447,7 @@ public class BasicDataFileStore extends AbstractFileStore
             }
         }
 
-        if (cacheFileUrl != null)
-        {
-            DBEntry entry = new DBEntry(address);
-            entry.localUrl = cacheFileUrl;
-            entry.state = DBEntry.LOCAL;
-            entry.contentType = WWIO.makeMimeTypeForSuffix(WWIO.getSuffix(cacheFileUrl.getPath()));
-            this.db.add(address, entry);
-            this.getAbsentResourceList().unmarkResourceAbsent(address);
-
-            return cacheFileUrl;
-        }
-
-        return null;
+        return cacheFileUrl;
     }
 
     /**
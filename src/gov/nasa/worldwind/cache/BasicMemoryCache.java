@@ -32,6 +32,9 @@ import gov.nasa.worldwind.util.Logging;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * A {@link MemoryCache} that holds entries in a concurrent hash table and delegates the choice of which entries to
+ * evict when the cache fills to an {@link EvictionPolicy}. The default policy is {@link LRUEvictionPolicy}.
+ *
  * @author Eric Dalgliesh
  * @version $Id: BasicMemoryCache.java 1171 2013-02-11 21:45:02Z dcollins $
  */
@@ -76,6 +79,7 @@ public class BasicMemoryCache implements MemoryCache
     protected AtomicLong currentUsedCapacity = new AtomicLong();
     protected Long lowWater;
     protected String name = "";
+    protected EvictionPolicy evictionPolicy;
 
     protected final Object lock = new Object();
 
@@ -87,6 +91,29 @@ public class BasicMemoryCache implements MemoryCache
      */
     public BasicMemoryCache(long loWater, long capacity)
     {
+        this(loWater, capacity, new LRUEvictionPolicy());
+    }
+
+    /**
+     * Constructs a new cache using <code>capacity</code> for maximum size, <code>loWater</code> for the low water, and
+     * a specified policy to select the entries to evict when the cache fills.
+     *
+     * @param loWater        the low water level.
+     * @param capacity       the maximum capacity.
+     * @param evictionPolicy the eviction policy.
+     *
+     * @throws IllegalArgumentException if the eviction policy is null.
+     */
+    public BasicMemoryCache(long loWater, long capacity, EvictionPolicy evictionPolicy)
+    {
+        if (evictionPolicy == null)
+        {
+            String message = Logging.getMessage("nullValue.EvictionPolicyIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.evictionPolicy = evictionPolicy;
         this.entries = new java.util.concurrent.ConcurrentHashMap<Object, CacheEntry>();
         this.listeners = new java.util.concurrent.CopyOnWriteArrayList<MemoryCache.CacheListener>();
         this.capacity.set(capacity);
@@ -128,6 +155,48 @@ public class BasicMemoryCache implements MemoryCache
         return name;
     }
 
+    /**
+     * Returns the policy that selects the entries to evict when the cache fills.
+     *
+     * @return the cache's eviction policy.
+     */
+    public EvictionPolicy getEvictionPolicy()
+    {
+        return this.evictionPolicy;
+    }
+
+    /**
+     * Specifies the policy that selects the entries to evict when the cache fills. The new policy is cleared and then
+     * populated with the current entries in order of their last use.
+     *
+     * @param evictionPolicy the new eviction policy.
+     *
+     * @throws IllegalArgumentException if the eviction policy is null.
+     */
+    public void setEvictionPolicy(EvictionPolicy evictionPolicy)
+    {
+        if (evictionPolicy == null)
+        {
+            String message = Logging.getMessage("nullValue.EvictionPolicyIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this.lock)
+        {
+            CacheEntry[] timeOrderedEntries = this.entries.values().toArray(new CacheEntry[0]);
+            java.util.Arrays.sort(timeOrderedEntries);
+
+            evictionPolicy.clear();
+            for (CacheEntry entry : timeOrderedEntries)
+            {
+                evictionPolicy.entryAdded(entry.key, entry.clientObjectSize);
+            }
+
+            this.evictionPolicy = evictionPolicy;
+        }
+    }
+
     /**
      * Adds a  cache listener, MemoryCache listeners are used to notify classes when an item is removed from the cache.
      *
@@ -282,8 +351,7 @@ public class BasicMemoryCache implements MemoryCache
                 this.makeSpace(clientObjectSize);
             }
 
-            this.currentUsedCapacity.addAndGet(clientObjectSize);
-            this.entries.putIfAbsent(entry.key, entry);
+            this.addEntry(entry);
         }
 
         return true;
@@ -346,6 +414,7 @@ public class BasicMemoryCache implements MemoryCache
             if (entry == null)
                 return null;
 
+            this.evictionPolicy.entryAccessed(key);
             entry.lastUsed = System.nanoTime(); // nanoTime overflows once every 292 years
             // which will result in a slowing of the cache
             // until ww is restarted or the cache is cleared.
@@ -363,9 +432,24 @@ public class BasicMemoryCache implements MemoryCache
             {
                 this.removeEntry(entry);
             }
+
+            this.evictionPolicy.clear();
         }
     }
 
+    /**
+     * Adds <code>entry</code> to the cache's entry table and eviction policy, and accounts for its size. The caller must
+     * first remove any existing entry with the same key and make space for the new entry.
+     *
+     * @param entry the entry to add.
+     */
+    protected void addEntry(CacheEntry entry) // MUST BE CALLED WITHIN SYNCHRONIZED
+    {
+        this.currentUsedCapacity.addAndGet(entry.clientObjectSize);
+        this.entries.putIfAbsent(entry.key, entry);
+        this.evictionPolicy.entryAdded(entry.key, entry.clientObjectSize);
+    }
+
     /**
      * Removes <code>entry</code> from the cache. To remove an entry using its key, use <code>remove()</code>.
      *
@@ -378,6 +462,7 @@ public class BasicMemoryCache implements MemoryCache
 
         if (this.entries.remove(entry.key) != null) // returns null if entry does not exist
         {
+            this.evictionPolicy.entryRemoved(entry.key);
             this.currentUsedCapacity.addAndGet(-entry.clientObjectSize);
 
             for (MemoryCache.CacheListener listener : this.listeners)
@@ -396,25 +481,27 @@ public class BasicMemoryCache implements MemoryCache
 
     /**
      * Makes at least <code>spaceRequired</code> space in the cache. If spaceRequired is less than (capacity-lowWater),
-     * makes more space. Does nothing if capacity is less than spaceRequired.
+     * makes more space. Does nothing if capacity is less than spaceRequired. The entries to remove are chosen by the
+     * cache's eviction policy.
      *
      * @param spaceRequired the amount of space required.
      */
-    private void makeSpace(long spaceRequired) // MUST BE CALLED WITHIN SYNCHRONIZED
+    protected void makeSpace(long spaceRequired) // MUST BE CALLED WITHIN SYNCHRONIZED
     {
         if (spaceRequired > this.capacity.get() || spaceRequired < 0)
             return;
 
-        CacheEntry[] timeOrderedEntries = new CacheEntry[this.entries.size()];
-        java.util.Arrays.sort(this.entries.values().toArray(timeOrderedEntries)); // TODO
-
-        int i = 0;
         while (this.getFreeCapacity() < spaceRequired || this.getUsedCapacity() > this.lowWater)
         {
-            if (i < timeOrderedEntries.length)
-            {
-                this.removeEntry(timeOrderedEntries[i++]);
-            }
+            Object key = this.evictionPolicy.selectVictim();
+            if (key == null)
+                break;
+
+            CacheEntry entry = this.entries.get(key);
+            if (entry != null)
+                this.removeEntry(entry);
+            else
+                this.evictionPolicy.entryRemoved(key); // the policy is tracking an entry the cache no longer holds
         }
     }
 
@@ -27,12 +27,23 @@
  */
 package gov.nasa.worldwind.cache;
 
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.util.*;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * A {@link MemoryCacheSet} backed by a concurrent hash table. When a {@link BasicMemoryCache} is added to the set, its
+ * eviction policy is chosen from configuration: the value of {@link AVKey#MEMORY_CACHE_EVICTION_POLICY_CLASS_NAME}
+ * followed by a period and the cache's key applies to that cache alone, and the value of {@link
+ * AVKey#MEMORY_CACHE_EVICTION_POLICY_CLASS_NAME} itself applies to all other caches. Caches for which neither is
+ * specified keep the policy they were constructed with.
+ * <p>
+ * {@link #createCache(String, long, long)} creates the caches WorldWind adds to the set, choosing their class from
+ * configuration in the same way with {@link AVKey#MEMORY_CACHE_CLASS_NAME}.
+ *
  * @author tag
  * @version $Id: BasicMemoryCacheSet.java 1171 2013-02-11 21:45:02Z dcollins $
  */
@@ -80,11 +91,81 @@ public class BasicMemoryCacheSet implements MemoryCacheSet
             throw new IllegalArgumentException(message);
         }
 
+        if (cache instanceof BasicMemoryCache)
+            this.configureEvictionPolicy(key, (BasicMemoryCache) cache);
+
         this.caches.put(key, cache);
 
         return cache;
     }
 
+    /**
+     * Creates a memory cache of the class specified in configuration. The value of {@link
+     * AVKey#MEMORY_CACHE_CLASS_NAME} followed by a period and the cache's key applies to that cache alone, and the
+     * value of {@link AVKey#MEMORY_CACHE_CLASS_NAME} itself applies to all other caches. The class must have a public
+     * constructor taking the low water and capacity. A {@link BasicMemoryCache} is created if neither value is
+     * specified or the specified class cannot be created.
+     *
+     * @param key      the key the cache will be added to the memory cache set with.
+     * @param loWater  the cache's low water.
+     * @param capacity the cache's capacity.
+     *
+     * @return the new cache.
+     *
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public static MemoryCache createCache(String key, long loWater, long capacity)
+    {
+        if (key == null)
+        {
+            String message = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        String className = Configuration.getStringValue(AVKey.MEMORY_CACHE_CLASS_NAME + "." + key,
+            Configuration.getStringValue(AVKey.MEMORY_CACHE_CLASS_NAME));
+        if (WWUtil.isEmpty(className) || className.trim().equals(BasicMemoryCache.class.getName()))
+            return new BasicMemoryCache(loWater, capacity);
+
+        try
+        {
+            Class<?> c = Class.forName(className.trim());
+            return (MemoryCache) c.getConstructor(long.class, long.class).newInstance(loWater, capacity);
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("MemoryCacheSet.InvalidCacheClass", className, key);
+            Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+            return new BasicMemoryCache(loWater, capacity);
+        }
+    }
+
+    /**
+     * Assigns the eviction policy specified in configuration to a cache being added to this set. Does nothing if
+     * configuration does not specify a policy for the cache.
+     *
+     * @param key   the cache's key.
+     * @param cache the cache to configure.
+     */
+    protected void configureEvictionPolicy(String key, BasicMemoryCache cache)
+    {
+        String className = Configuration.getStringValue(AVKey.MEMORY_CACHE_EVICTION_POLICY_CLASS_NAME + "." + key,
+            Configuration.getStringValue(AVKey.MEMORY_CACHE_EVICTION_POLICY_CLASS_NAME));
+        if (WWUtil.isEmpty(className) || className.trim().equals(cache.getEvictionPolicy().getClass().getName()))
+            return;
+
+        try
+        {
+            cache.setEvictionPolicy((EvictionPolicy) WorldWind.createComponent(className));
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("MemoryCacheSet.InvalidEvictionPolicy", className, key);
+            Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+        }
+    }
+
     public synchronized void clear()
     {
         for (MemoryCache cache : this.caches.values())
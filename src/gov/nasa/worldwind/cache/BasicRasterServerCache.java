@@ -100,8 +100,7 @@ public class BasicRasterServerCache extends BasicMemoryCache
                 this.removeEntry(existing);
             }
 
-            this.currentUsedCapacity.addAndGet(clientObjectSize);
-            this.entries.putIfAbsent(entry.key, entry);
+            this.addEntry(entry);
             this.updateMemorySemaphore();
         }
 
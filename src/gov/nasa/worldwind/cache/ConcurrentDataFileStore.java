@@ -0,0 +1,536 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.retrieve.*;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+/**
+ * A {@link BasicDataFileStore} that serves concurrent requests without a store-wide lock. Entries are held in a {@link
+ * ConcurrentHashMap} and are never modified once added; an update replaces the entry. Lookups therefore take no lock,
+ * and only operations that change an address' entry acquire a lock, which is chosen by the address' hash from a fixed
+ * set of locks.
+ * <p>
+ * The address, expiration time and content type of each file retrieved into the write location are recorded in an
+ * index file in the write location, which is read once when the file store is created. Addresses found in the index are
+ * served without searching the file store's read locations. The index is an append-only journal of additions and
+ * removals, and is compacted when it is read if most of its records are obsolete. Files listed in the index are checked
+ * for existence the first time they are requested, so files removed by other means are detected.
+ * <p>
+ * To use this file store, specify this class for {@link gov.nasa.worldwind.avlist.AVKey#DATA_FILE_STORE_CLASS_NAME}.
+ *
+ * @version $Id$
+ */
+public class ConcurrentDataFileStore extends BasicDataFileStore
+{
+    /** The name of the index file in the write location. */
+    protected static final String INDEX_FILE_NAME = "DataFileStoreIndex.txt";
+    protected static final String ADD_RECORD = "+";
+    protected static final String REMOVE_RECORD = "-";
+    protected static final int NUM_WRITE_LOCKS = 64;
+    /** The number of obsolete index records, beyond the number of live records, that triggers compaction. */
+    protected static final int COMPACTION_THRESHOLD = 1000;
+
+    /** An entry read from the index, whose file has not yet been confirmed to exist. */
+    protected static class IndexEntry extends DBEntry
+    {
+        public IndexEntry(String name)
+        {
+            super(name);
+        }
+    }
+
+    /** The file store's entries, keyed by address. Entries are not modified after they are added. */
+    protected final ConcurrentHashMap<String, DBEntry> entries = new ConcurrentHashMap<String, DBEntry>();
+    protected final ReentrantLock[] writeLocks = new ReentrantLock[NUM_WRITE_LOCKS];
+    protected final Object indexLock = new Object();
+    protected File indexFile;
+    protected Writer indexWriter; // guarded by indexLock
+
+    /**
+     * Create an instance.
+     *
+     * @throws IllegalStateException if the configuration file name cannot be determined from {@link
+     *                               gov.nasa.worldwind.Configuration} or the configuration file cannot be found.
+     */
+    public ConcurrentDataFileStore()
+    {
+        this.initializeIndex();
+    }
+
+    /**
+     * Create an instance to manage a specified directory.
+     *
+     * @param directoryPath the directory to manage as a file store.
+     */
+    public ConcurrentDataFileStore(File directoryPath)
+    {
+        super(directoryPath);
+        this.initializeIndex();
+    }
+
+    protected void initializeIndex()
+    {
+        for (int i = 0; i < this.writeLocks.length; i++)
+        {
+            this.writeLocks[i] = new ReentrantLock();
+        }
+
+        if (this.getWriteLocation() != null)
+        {
+            this.indexFile = new File(this.getWriteLocation(), INDEX_FILE_NAME);
+            this.loadIndex();
+        }
+    }
+
+    protected ReentrantLock getWriteLock(String address)
+    {
+        int hash = address.hashCode();
+        hash ^= hash >>> 16;
+        return this.writeLocks[(hash & 0x7fffffff) % this.writeLocks.length];
+    }
+
+    public String getContentType(String address)
+    {
+        if (address == null)
+            return null;
+
+        DBEntry entry = this.entries.get(address);
+        return entry != null ? entry.contentType : null;
+    }
+
+    public long getExpirationTime(String address)
+    {
+        if (address == null)
+            return 0;
+
+        DBEntry entry = this.entries.get(address);
+        return entry != null ? entry.expiration : 0;
+    }
+
+    /** {@inheritDoc} */
+    public void removeFile(String address)
+    {
+        if (address == null)
+        {
+            String message = Logging.getMessage("nullValue.AddressIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        ReentrantLock lock = this.getWriteLock(address);
+        lock.lock();
+        try
+        {
+            DBEntry entry = this.entries.remove(address);
+            if (entry == null)
+                return; // Nothing to delete
+
+            // Delete the cache file
+            this.removeFile(entry.localUrl);
+            this.appendRemoveRecord(address);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /** {@inheritDoc} */
+    public URL requestFile(String address)
+    {
+        if (address == null)
+        {
+            String message = Logging.getMessage("nullValue.AddressIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        return this.requestFile(address, true);
+    }
+
+    /** {@inheritDoc} */
+    public URL requestFile(String address, boolean cacheRemoteFile)
+    {
+        if (address == null)
+        {
+            String message = Logging.getMessage("nullValue.AddressIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        DBEntry entry = this.entries.get(address);
+        if (entry != null)
+        {
+            long now = System.currentTimeMillis();
+            boolean expired = entry.expiration != 0 && now > entry.expiration;
+
+            // Return the resource if it is local and has not expired. This is checked before the absent-resource list
+            // because a local resource is never absent, and the list is synchronized.
+            if (entry.state == DBEntry.LOCAL && !expired)
+            {
+                DBEntry validEntry = this.validateEntry(entry);
+                if (validEntry != null)
+                    return validEntry.localUrl;
+            }
+
+            if (entry.state == DBEntry.PENDING && (now - entry.lastUpdateTime <= TIMEOUT))
+                return null;
+        }
+
+        if (this.getAbsentResourceList().isResourceAbsent(address))
+            return null;
+
+        URL url = WWIO.makeURL(address); // this may or may not make a URL, depending on address type
+        URL localUrl;
+
+        // If the address is already a URL in the "file" scheme, we can just use return this URL. Otherwise,
+        // attempt to find a local file for the address.
+        if (url != null && "file".equalsIgnoreCase(url.getProtocol()))
+            localUrl = url;
+        else
+            localUrl = this.getLocalFileUrl(address, url, cacheRemoteFile); // Don't look for temp files in the cache.
+
+        if (localUrl != null) // file exists if local URL is non-null
+            return localUrl;
+
+        // If the address' URL is not null but the file was not found locally, try to make it local. Store the retrieved
+        // file in the cache if cacheRemoteFile is true, otherwise store it in a temporary location.
+        if (url != null && !this.getAbsentResourceList().isResourceAbsent(address))
+            this.makeLocal(address, url, cacheRemoteFile);
+        else if (url == null)
+            this.getAbsentResourceList().markResourceAbsent(address); // no URL for address and not a local file
+
+        return null;
+    }
+
+    /**
+     * Confirms that a local entry's file is available. Entries read from the index are confirmed to exist the first
+     * time they are used, and are removed if their file no longer exists.
+     *
+     * @param entry the entry to check.
+     *
+     * @return the entry to use, which may replace the specified entry, or null if the entry's file is not available.
+     */
+    protected DBEntry validateEntry(DBEntry entry)
+    {
+        if (!(entry instanceof IndexEntry))
+            return entry;
+
+        File file = WWIO.convertURLToFile(entry.localUrl);
+        if (file != null && file.exists())
+        {
+            DBEntry verified = this.copyEntry(entry, new DBEntry(entry.name));
+            this.entries.replace(entry.name, entry, verified);
+            return verified;
+        }
+
+        if (this.entries.remove(entry.name, entry))
+            this.appendRemoveRecord(entry.name);
+
+        return null;
+    }
+
+    @Override
+    protected URL getLocalFileUrl(String address, URL retrievalUrl, boolean searchLocalCache)
+    {
+        if (address == null)
+        {
+            String message = Logging.getMessage("nullValue.FilePathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // Search without holding a lock. Concurrent searches for one address find the same file.
+        URL cacheFileUrl = this.findLocalFileUrl(address, retrievalUrl, searchLocalCache);
+
+        if (cacheFileUrl != null)
+        {
+            DBEntry entry = new DBEntry(address);
+            entry.localUrl = cacheFileUrl;
+            entry.state = DBEntry.LOCAL;
+            entry.contentType = WWIO.makeMimeTypeForSuffix(WWIO.getSuffix(cacheFileUrl.getPath()));
+            this.entries.put(address, entry);
+            this.getAbsentResourceList().unmarkResourceAbsent(address);
+
+            return cacheFileUrl;
+        }
+
+        return null;
+    }
+
+    @Override
+    protected void makeLocal(String address, URL url, boolean saveInLocalCache)
+    {
+        if (WorldWind.getNetworkStatus().isHostUnavailable(url) || !WorldWind.getRetrievalService().isAvailable())
+            return;
+
+        ReentrantLock lock = this.getWriteLock(address);
+        lock.lock();
+        try
+        {
+            // Another thread may have started the retrieval since this thread's lookup.
+            DBEntry entry = this.entries.get(address);
+            if (entry != null && entry.state == DBEntry.PENDING
+                && System.currentTimeMillis() - entry.lastUpdateTime <= TIMEOUT)
+                return;
+
+            DBEntry newEntry = new DBEntry(address);
+            newEntry.state = DBEntry.PENDING;
+            this.entries.put(address, newEntry);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        Retriever retriever = URLRetriever.createRetriever(url, new PostProcessor(address, url, saveInLocalCache));
+
+        if (retriever != null && !WorldWind.getRetrievalService().contains(retriever))
+            WorldWind.getRetrievalService().runRetriever(retriever);
+    }
+
+    @Override
+    protected void updateEntry(String address, URL localFileUrl, long expiration)
+    {
+        ReentrantLock lock = this.getWriteLock(address);
+        lock.lock();
+        try
+        {
+            if (!this.entries.containsKey(address))
+                return;
+
+            DBEntry entry = new DBEntry(address);
+            entry.state = DBEntry.LOCAL;
+            entry.localUrl = localFileUrl;
+            entry.contentType = WWIO.makeMimeTypeForSuffix(WWIO.getSuffix(localFileUrl.getPath()));
+            entry.expiration = expiration;
+            this.entries.put(address, entry);
+
+            this.appendAddRecord(entry);
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    protected DBEntry copyEntry(DBEntry source, DBEntry destination)
+    {
+        destination.state = source.state;
+        destination.localUrl = source.localUrl;
+        destination.contentType = source.contentType;
+        destination.expiration = source.expiration;
+        destination.lastUpdateTime = source.lastUpdateTime;
+        return destination;
+    }
+
+    //**************************************************************//
+    //********************  Index  *********************************//
+    //**************************************************************//
+
+    /**
+     * Reads the index file and adds its entries to the file store. Rewrites the index if most of its records are
+     * obsolete.
+     */
+    protected void loadIndex()
+    {
+        if (!this.indexFile.exists())
+            return;
+
+        int numRecords = 0;
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.indexFile),
+                StandardCharsets.UTF_8));
+
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                numRecords++;
+                this.readRecord(line);
+            }
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.WARNING, Logging.getMessage("FileStore.ExceptionReadingIndex",
+                this.indexFile), e);
+        }
+        finally
+        {
+            WWIO.closeStream(reader, this.indexFile.getPath());
+        }
+
+        if (numRecords - this.entries.size() > COMPACTION_THRESHOLD + this.entries.size())
+            this.compactIndex();
+    }
+
+    /**
+     * Applies one index record. Records are tab-delimited: an addition is <code>+ address expiration contentType
+     * path</code>, with the path relative to the write location, and a removal is <code>- address</code>. Malformed
+     * records, such as one partially written when the application exited, are ignored.
+     *
+     * @param record the record to apply.
+     */
+    protected void readRecord(String record)
+    {
+        String[] fields = record.split("\t", -1);
+        if (fields.length == 2 && REMOVE_RECORD.equals(fields[0]))
+        {
+            this.entries.remove(fields[1]);
+        }
+        else if (fields.length == 5 && ADD_RECORD.equals(fields[0]))
+        {
+            try
+            {
+                IndexEntry entry = new IndexEntry(fields[1]);
+                entry.state = DBEntry.LOCAL;
+                entry.expiration = Long.parseLong(fields[2]);
+                entry.contentType = fields[3].length() > 0 ? fields[3] : null;
+                entry.localUrl = new File(this.getWriteLocation(), fields[4]).toURI().toURL();
+                this.entries.put(entry.name, entry);
+            }
+            catch (NumberFormatException | MalformedURLException e)
+            {
+                Logging.logger().finest(Logging.getMessage("FileStore.InvalidIndexRecord", record));
+            }
+        }
+    }
+
+    /** Rewrites the index file with one record per entry, replacing it once the new file is complete. */
+    protected void compactIndex()
+    {
+        synchronized (this.indexLock)
+        {
+            File tempFile = new File(this.indexFile.getPath() + ".tmp");
+            Writer writer = null;
+            try
+            {
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile),
+                    StandardCharsets.UTF_8));
+                for (DBEntry entry : this.entries.values())
+                {
+                    String record = this.makeAddRecord(entry);
+                    if (record != null)
+                        writer.write(record);
+                }
+                writer.close();
+                writer = null;
+
+                if (!this.indexFile.delete() || !tempFile.renameTo(this.indexFile))
+                    throw new IOException(this.indexFile.getPath());
+            }
+            catch (IOException e)
+            {
+                Logging.logger().log(Level.WARNING, Logging.getMessage("FileStore.ExceptionWritingIndex",
+                    this.indexFile), e);
+            }
+            finally
+            {
+                WWIO.closeStream(writer, tempFile.getPath());
+            }
+        }
+    }
+
+    /**
+     * Creates the index record for an entry.
+     *
+     * @param entry the entry.
+     *
+     * @return the record, or null if the entry's file is not in the write location or its address cannot be recorded.
+     */
+    protected String makeAddRecord(DBEntry entry)
+    {
+        if (entry.state != DBEntry.LOCAL || entry.localUrl == null || entry.name.indexOf('\t') >= 0
+            || entry.name.indexOf('\n') >= 0 || entry.name.indexOf('\r') >= 0)
+            return null;
+
+        File file = WWIO.convertURLToFile(entry.localUrl);
+        if (file == null)
+            return null;
+
+        String root = this.getWriteLocation().getAbsolutePath() + File.separator;
+        String path = file.getAbsolutePath();
+        if (!path.startsWith(root))
+            return null; // temporary files and files outside the cache are not persisted
+
+        return ADD_RECORD + "\t" + entry.name + "\t" + entry.expiration + "\t"
+            + (entry.contentType != null ? entry.contentType : "") + "\t" + path.substring(root.length()) + "\n";
+    }
+
+    protected void appendAddRecord(DBEntry entry)
+    {
+        if (this.indexFile != null)
+        {
+            String record = this.makeAddRecord(entry);
+            if (record != null)
+                this.appendRecord(record);
+        }
+    }
+
+    protected void appendRemoveRecord(String address)
+    {
+        if (this.indexFile != null && address.indexOf('\n') < 0 && address.indexOf('\r') < 0)
+            this.appendRecord(REMOVE_RECORD + "\t" + address + "\n");
+    }
+
+    protected void appendRecord(String record)
+    {
+        synchronized (this.indexLock)
+        {
+            try
+            {
+                if (this.indexWriter == null)
+                {
+                    this.indexWriter = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(this.indexFile, true), StandardCharsets.UTF_8));
+                }
+
+                this.indexWriter.write(record);
+                this.indexWriter.flush();
+            }
+            catch (IOException e)
+            {
+                Logging.logger().log(Level.WARNING, Logging.getMessage("FileStore.ExceptionWritingIndex",
+                    this.indexFile), e);
+                WWIO.closeStream(this.indexWriter, this.indexFile.getPath());
+                this.indexWriter = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link MemoryCache} for caches shared by many threads, such as the texture and elevation tile caches used at once by
+ * the render thread, the retrieval service and the task service. Entries are partitioned by key hash across a number
+ * of segments, each with its own lock, entry table and {@link LRUEvictionPolicy}, so that writers in different
+ * segments do not contend. Reads do not lock: <code>getObject</code> and <code>contains</code> go directly to the
+ * segment's concurrent entry table, and <code>getObject</code> records the access in the segment's eviction policy only
+ * if the segment lock is immediately available. Under heavy contention some accesses therefore go unrecorded, which
+ * makes eviction approximately rather than strictly least recently used.
+ * <p>
+ * Capacity and low water apply to the cache as a whole. When an add causes the used capacity to exceed the capacity,
+ * one thread at a time trims every segment in proportion to its used capacity until the cache as a whole reaches its
+ * low water. Cache listeners are notified of every removed entry, from within the lock of the entry's segment.
+ *
+ * @version $Id$
+ */
+public class ConcurrentMemoryCache implements MemoryCache
+{
+    protected static class Segment
+    {
+        protected final ReentrantLock lock = new ReentrantLock();
+        protected final ConcurrentHashMap<Object, BasicMemoryCache.CacheEntry> entries
+            = new ConcurrentHashMap<Object, BasicMemoryCache.CacheEntry>();
+        protected final EvictionPolicy evictionPolicy = new LRUEvictionPolicy();
+        protected long usedCapacity; // guarded by lock
+    }
+
+    protected final Segment[] segments;
+    protected final int segmentMask;
+    protected final CopyOnWriteArrayList<MemoryCache.CacheListener> listeners
+        = new CopyOnWriteArrayList<MemoryCache.CacheListener>();
+    protected final AtomicLong capacity = new AtomicLong();
+    protected final AtomicLong currentUsedCapacity = new AtomicLong();
+    protected volatile long lowWater;
+    protected volatile String name = "";
+
+    /** Serializes eviction passes, which visit every segment. */
+    protected final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Constructs a new cache using <code>capacity</code> for maximum size, and <code>loWater</code> for the low water.
+     * The number of segments is four times the number of available processors, rounded up to a power of two.
+     *
+     * @param loWater  the low water level.
+     * @param capacity the maximum capacity.
+     */
+    public ConcurrentMemoryCache(long loWater, long capacity)
+    {
+        this(loWater, capacity, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new cache using <code>capacity</code> for maximum size, <code>loWater</code> for the low water, and
+     * a specified number of segments.
+     *
+     * @param loWater          the low water level.
+     * @param capacity         the maximum capacity.
+     * @param concurrencyLevel the expected number of concurrently writing threads. The number of segments is this
+     *                         value rounded up to a power of two.
+     *
+     * @throws IllegalArgumentException if the concurrency level is less than 1.
+     */
+    public ConcurrentMemoryCache(long loWater, long capacity, int concurrencyLevel)
+    {
+        if (concurrencyLevel < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", concurrencyLevel);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int numSegments = 1;
+        while (numSegments < concurrencyLevel && numSegments < (1 << 16))
+        {
+            numSegments <<= 1;
+        }
+
+        this.segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++)
+        {
+            this.segments[i] = new Segment();
+        }
+        this.segmentMask = numSegments - 1;
+
+        this.capacity.set(capacity);
+        this.lowWater = loWater;
+    }
+
+    /** @return the number of segments the cache's entries are partitioned across. */
+    public int getNumSegments()
+    {
+        return this.segments.length;
+    }
+
+    public int getNumObjects()
+    {
+        int count = 0;
+        for (Segment segment : this.segments)
+        {
+            count += segment.entries.size();
+        }
+
+        return count;
+    }
+
+    public long getCapacity()
+    {
+        return this.capacity.get();
+    }
+
+    public long getUsedCapacity()
+    {
+        return this.currentUsedCapacity.get();
+    }
+
+    public long getFreeCapacity()
+    {
+        return Math.max(this.capacity.get() - this.currentUsedCapacity.get(), 0);
+    }
+
+    public void setName(String name)
+    {
+        this.name = name != null ? name : "";
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    public void addCacheListener(MemoryCache.CacheListener listener)
+    {
+        if (listener == null)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.nullListenerAdded");
+            Logging.logger().warning(message);
+            throw new IllegalArgumentException(message);
+        }
+        this.listeners.add(listener);
+    }
+
+    public void removeCacheListener(MemoryCache.CacheListener listener)
+    {
+        if (listener == null)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.nullListenerRemoved");
+            Logging.logger().warning(message);
+            throw new IllegalArgumentException(message);
+        }
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Sets the new capacity for the cache. Entries are not removed until the next add that exceeds the new capacity.
+     *
+     * @param newCapacity the new capacity of the cache.
+     */
+    public void setCapacity(long newCapacity)
+    {
+        this.capacity.set(newCapacity);
+    }
+
+    /**
+     * Sets the new low water level in cache units. When the cache fills, it removes items until it reaches the low
+     * water level. Values that are negative or not less than the capacity are ignored.
+     *
+     * @param loWater the new low water level.
+     */
+    public void setLowWater(long loWater)
+    {
+        if (loWater < this.capacity.get() && loWater >= 0)
+        {
+            this.lowWater = loWater;
+        }
+    }
+
+    public long getLowWater()
+    {
+        return this.lowWater;
+    }
+
+    /**
+     * Returns true if the cache contains the item referenced by key. This method does not lock and does not mark the
+     * item as accessed.
+     *
+     * @param key the key of a specific object.
+     *
+     * @return true if the cache holds the item referenced by key.
+     *
+     * @throws IllegalArgumentException if <code>key</code> is null.
+     */
+    public boolean contains(Object key)
+    {
+        if (key == null)
+        {
+            String msg = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return this.segmentFor(key).entries.containsKey(key);
+    }
+
+    /**
+     * Adds an object to the cache. The add fails if the object or key is null, or if the size is zero, negative or
+     * greater than the maximum capacity.
+     *
+     * @param key              the unique reference key that identifies this object.
+     * @param clientObject     the actual object to be cached.
+     * @param clientObjectSize the size of the object in cache units.
+     *
+     * @return true if clientObject was added, false otherwise.
+     */
+    public boolean add(Object key, Object clientObject, long clientObjectSize)
+    {
+        long cap = this.capacity.get();
+
+        if (key == null || clientObject == null || clientObjectSize <= 0 || clientObjectSize > cap)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.CacheItemNotAdded");
+
+            if (clientObjectSize > cap)
+            {
+                message += " - " + Logging.getMessage("BasicMemoryCache.ItemTooLargeForCache");
+            }
+
+            Logging.logger().warning(message);
+
+            return false;
+        }
+
+        BasicMemoryCache.CacheEntry entry = new BasicMemoryCache.CacheEntry(key, clientObject, clientObjectSize);
+        Segment segment = this.segmentFor(key);
+
+        segment.lock.lock();
+        try
+        {
+            BasicMemoryCache.CacheEntry existing = segment.entries.get(key);
+            if (existing != null) // replacing
+                this.removeEntry(segment, existing);
+
+            segment.entries.put(key, entry);
+            segment.evictionPolicy.entryAdded(key, clientObjectSize);
+            segment.usedCapacity += clientObjectSize;
+            this.currentUsedCapacity.addAndGet(clientObjectSize);
+        }
+        finally
+        {
+            segment.lock.unlock();
+        }
+
+        if (this.currentUsedCapacity.get() > cap)
+            this.makeSpace();
+
+        return true;
+    }
+
+    public boolean add(Object key, Cacheable clientObject)
+    {
+        return this.add(key, clientObject, clientObject.getSizeInBytes());
+    }
+
+    /**
+     * Remove the object referenced by key from the cache. If no object with the corresponding key is found, this method
+     * returns immediately.
+     *
+     * @param key the key of the object to be removed.
+     */
+    public void remove(Object key)
+    {
+        if (key == null)
+        {
+            Logging.logger().finer("nullValue.KeyIsNull");
+
+            return;
+        }
+
+        Segment segment = this.segmentFor(key);
+        if (!segment.entries.containsKey(key))
+            return;
+
+        segment.lock.lock();
+        try
+        {
+            BasicMemoryCache.CacheEntry entry = segment.entries.get(key);
+            if (entry != null)
+                this.removeEntry(segment, entry);
+        }
+        finally
+        {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Obtain the object referenced by key without removing it. The lookup does not lock. The access is recorded in the
+     * eviction policy of the key's segment only if that segment is not locked by another thread.
+     *
+     * @param key the key for the object to be found.
+     *
+     * @return the object referenced by key if it is present, null otherwise.
+     */
+    public Object getObject(Object key)
+    {
+        if (key == null)
+        {
+            Logging.logger().finer("nullValue.KeyIsNull");
+
+            return null;
+        }
+
+        Segment segment = this.segmentFor(key);
+        BasicMemoryCache.CacheEntry entry = segment.entries.get(key);
+        if (entry == null)
+            return null;
+
+        entry.lastUsed = System.nanoTime();
+
+        if (segment.lock.tryLock())
+        {
+            try
+            {
+                segment.evictionPolicy.entryAccessed(key);
+            }
+            finally
+            {
+                segment.lock.unlock();
+            }
+        }
+
+        return entry.clientObject;
+    }
+
+    /** Empties the cache. */
+    public void clear()
+    {
+        for (Segment segment : this.segments)
+        {
+            segment.lock.lock();
+            try
+            {
+                for (BasicMemoryCache.CacheEntry entry : segment.entries.values())
+                {
+                    this.removeEntry(segment, entry);
+                }
+
+                segment.evictionPolicy.clear();
+            }
+            finally
+            {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    protected Segment segmentFor(Object key)
+    {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return this.segments[hash & this.segmentMask];
+    }
+
+    /**
+     * Removes an entry from its segment, accounts for its size and notifies the cache listeners.
+     *
+     * @param segment the segment containing the entry.
+     * @param entry   the entry to remove.
+     */
+    protected void removeEntry(Segment segment, BasicMemoryCache.CacheEntry entry) // MUST HOLD SEGMENT LOCK
+    {
+        if (segment.entries.remove(entry.key) == null)
+            return;
+
+        segment.evictionPolicy.entryRemoved(entry.key);
+        segment.usedCapacity -= entry.clientObjectSize;
+        this.currentUsedCapacity.addAndGet(-entry.clientObjectSize);
+
+        for (MemoryCache.CacheListener listener : this.listeners)
+        {
+            try
+            {
+                listener.entryRemoved(entry.key, entry.clientObject);
+            }
+            catch (Exception e)
+            {
+                listener.removalException(e, entry.key, entry.clientObject);
+            }
+        }
+    }
+
+    /**
+     * Removes entries until the used capacity reaches the low water. Each segment is trimmed in proportion to its share
+     * of the used capacity, removing the entries its eviction policy selects. Only one thread performs this pass at a
+     * time; threads arriving while a pass is underway wait for it and return if it freed enough space.
+     */
+    protected void makeSpace()
+    {
+        this.evictionLock.lock();
+        try
+        {
+            long used = this.currentUsedCapacity.get();
+            if (used <= this.capacity.get())
+                return;
+
+            long target = Math.min(this.lowWater, this.capacity.get());
+            double keepRatio = used > 0 ? (double) target / used : 0;
+
+            for (int pass = 0; pass < 2 && this.currentUsedCapacity.get() > target; pass++)
+            {
+                for (Segment segment : this.segments)
+                {
+                    segment.lock.lock();
+                    try
+                    {
+                        // On the first pass keep each segment's proportional share. Entries added concurrently may
+                        // leave the cache above its target, so the second pass evicts regardless of share.
+                        long segmentTarget = pass == 0 ? (long) (keepRatio * segment.usedCapacity) : 0;
+                        while (segment.usedCapacity > segmentTarget && this.currentUsedCapacity.get() > target)
+                        {
+                            Object key = segment.evictionPolicy.selectVictim();
+                            if (key == null)
+                                break;
+
+                            BasicMemoryCache.CacheEntry entry = segment.entries.get(key);
+                            if (entry != null)
+                                this.removeEntry(segment, entry);
+                            else
+                                segment.evictionPolicy.entryRemoved(key);
+                        }
+                    }
+                    finally
+                    {
+                        segment.lock.unlock();
+                    }
+                }
+            }
+        }
+        finally
+        {
+            this.evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MemoryCache " + this.name + " max size = " + this.getCapacity() + " current size = "
+            + this.currentUsedCapacity.get() + " number of items: " + this.getNumObjects();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+/**
+ * Decides which entry a {@link MemoryCache} removes when it must make space for a new entry. The cache notifies the
+ * policy of every entry added, accessed and removed, and asks the policy for a victim each time it needs to free space.
+ * All operations are expected to run in amortized constant time.
+ * <p>
+ * Eviction policies are not thread safe. The owning cache must serialize calls to a policy, typically by invoking it
+ * from within the same lock that guards the cache's entry table.
+ *
+ * @version $Id$
+ * @see BasicMemoryCache#setEvictionPolicy(EvictionPolicy)
+ */
+public interface EvictionPolicy
+{
+    /**
+     * Called after an entry has been added to the cache. If an entry with the same key is already tracked, the policy
+     * treats the call as a replacement of that entry.
+     *
+     * @param key  the entry's cache key.
+     * @param size the entry's size in cache units.
+     */
+    void entryAdded(Object key, long size);
+
+    /**
+     * Called when an existing entry is retrieved from the cache. Keys that are not tracked by the policy are ignored.
+     *
+     * @param key the entry's cache key.
+     */
+    void entryAccessed(Object key);
+
+    /**
+     * Called after an entry has been removed from the cache, either explicitly or as the result of an eviction. Keys
+     * that are not tracked by the policy are ignored.
+     *
+     * @param key the entry's cache key.
+     */
+    void entryRemoved(Object key);
+
+    /**
+     * Returns the key of the entry the cache should evict next. The returned entry is not removed from the policy;
+     * the cache must call {@link #entryRemoved(Object)} once it actually removes the entry. The policy may reorganize
+     * its internal state as a side effect of selecting a victim.
+     *
+     * @return the key of the entry to evict, or null if the policy tracks no entries.
+     */
+    Object selectVictim();
+
+    /**
+     * Returns the number of entries tracked by this policy.
+     *
+     * @return the number of tracked entries.
+     */
+    int getNumEntries();
+
+    /** Removes all entries from this policy. */
+    void clear();
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import java.util.*;
+
+/**
+ * An {@link EvictionPolicy} that evicts the least recently used entry. Entries are kept in a linked hash table ordered
+ * by access, so adding, accessing, removing and selecting a victim all run in constant time. This is the default
+ * policy of {@link BasicMemoryCache}, and replaces that cache's former strategy of sorting all entries by their last
+ * use time each time the cache filled.
+ *
+ * @version $Id$
+ */
+public class LRUEvictionPolicy implements EvictionPolicy
+{
+    /** Maps entry keys to entry sizes, iterating from the least recently used entry to the most recently used. */
+    protected final LinkedHashMap<Object, Long> entries = new LinkedHashMap<Object, Long>(16, 0.75f, true);
+
+    public LRUEvictionPolicy()
+    {
+    }
+
+    public void entryAdded(Object key, long size)
+    {
+        // Remove any existing mapping so that the replaced entry moves to the most recently used position.
+        this.entries.remove(key);
+        this.entries.put(key, size);
+    }
+
+    public void entryAccessed(Object key)
+    {
+        this.entries.get(key); // moves the entry to the most recently used position
+    }
+
+    public void entryRemoved(Object key)
+    {
+        this.entries.remove(key);
+    }
+
+    public Object selectVictim()
+    {
+        Iterator<Object> iter = this.entries.keySet().iterator();
+        return iter.hasNext() ? iter.next() : null;
+    }
+
+    public int getNumEntries()
+    {
+        return this.entries.size();
+    }
+
+    public void clear()
+    {
+        this.entries.clear();
+    }
+}
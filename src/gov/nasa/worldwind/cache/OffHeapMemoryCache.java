@@ -0,0 +1,202 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.*;
+
+import java.nio.*;
+
+/**
+ * A {@link MemoryCache} whose entries are binary payloads held outside the Java heap. Two kinds of payload are
+ * accepted: {@link BufferWrapper}s, such as decoded elevation tiles, and {@link ByteBuffer}s, such as raw texture or
+ * raster bytes. Payloads that are already backed by direct memory are adopted without copying; heap-backed payloads are
+ * copied once into a new direct buffer. The heap therefore holds only the small buffer objects, and heap occupancy
+ * stays flat regardless of how much data the cache holds. Capacity is measured in payload bytes, and entries are
+ * evicted by the cache's {@link EvictionPolicy} as in {@link BasicMemoryCache}.
+ * <p>
+ * <code>getObject</code> returns a zero-copy view of the cached payload: a <code>BufferWrapper</code> is returned as
+ * is, and a <code>ByteBuffer</code> is returned as a duplicate with its own position and limit. The direct memory
+ * backing an entry is never reused by the cache; it is released when the entry has been removed and no view of it
+ * remains reachable. Views therefore remain valid after the entry is evicted, and may be handed to a tile or wrapped in
+ * a {@link gov.nasa.worldwind.data.ByteBufferRaster} without copying.
+ *
+ * @version $Id$
+ */
+public class OffHeapMemoryCache extends BasicMemoryCache
+{
+    /**
+     * Constructs a new cache using <code>capacity</code> for maximum size, and <code>loWater</code> for the low water,
+     * both in bytes.
+     *
+     * @param loWater  the low water level.
+     * @param capacity the maximum capacity.
+     */
+    public OffHeapMemoryCache(long loWater, long capacity)
+    {
+        super(loWater, capacity);
+    }
+
+    /**
+     * Adds a payload to the cache. The payload must be a {@link BufferWrapper} or a {@link ByteBuffer}. A direct
+     * payload is stored as is; a heap payload is copied into direct memory. The size recorded for the entry is the
+     * payload's size in bytes, regardless of <code>clientObjectSize</code>.
+     *
+     * @param key              the unique reference key that identifies the payload.
+     * @param clientObject     the payload to be cached.
+     * @param clientObjectSize the size of the payload in bytes. Ignored.
+     *
+     * @return true if the payload was added, false otherwise.
+     */
+    @Override
+    public boolean add(Object key, Object clientObject, long clientObjectSize)
+    {
+        if (clientObject instanceof BufferWrapper)
+        {
+            BufferWrapper payload = toDirect((BufferWrapper) clientObject);
+            return payload != null && super.add(key, payload, payload.getSizeInBytes());
+        }
+        else if (clientObject instanceof ByteBuffer)
+        {
+            ByteBuffer payload = toDirect((ByteBuffer) clientObject);
+            return super.add(key, payload, payload.remaining());
+        }
+
+        String message = Logging.getMessage("BasicMemoryCache.CacheItemNotAdded");
+        if (clientObject != null)
+        {
+            message += " - " + Logging.getMessage("OffHeapMemoryCache.UnsupportedPayload",
+                clientObject.getClass().getName());
+        }
+        Logging.logger().warning(message);
+
+        return false;
+    }
+
+    /**
+     * Returns a zero-copy view of the payload referenced by key. <code>ByteBuffer</code> payloads are returned as
+     * duplicates, so callers may change the returned buffer's position and limit freely.
+     *
+     * @param key the key for the payload to be found.
+     *
+     * @return the payload referenced by key if it is present, null otherwise.
+     */
+    @Override
+    public Object getObject(Object key)
+    {
+        Object payload = super.getObject(key);
+        if (payload instanceof ByteBuffer)
+        {
+            ByteBuffer buffer = (ByteBuffer) payload;
+            return buffer.duplicate().order(buffer.order());
+        }
+
+        return payload;
+    }
+
+    /**
+     * Returns a buffer wrapper holding the same values as the specified one and backed by direct memory. If the
+     * specified wrapper is already backed by direct memory, it is returned unchanged.
+     *
+     * @param bufferWrapper the buffer wrapper to move off the heap.
+     *
+     * @return a direct buffer wrapper, or null if the wrapper's primitive data type is not recognized.
+     *
+     * @throws IllegalArgumentException if the buffer wrapper is null.
+     */
+    public static BufferWrapper toDirect(BufferWrapper bufferWrapper)
+    {
+        if (bufferWrapper == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Buffer backingBuffer = bufferWrapper.getBackingBuffer();
+        if (backingBuffer == null || backingBuffer.isDirect())
+            return bufferWrapper;
+
+        Object dataType = dataTypeOf(bufferWrapper);
+        if (dataType == null)
+            return null;
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) bufferWrapper.getSizeInBytes());
+        buffer.order(ByteOrder.nativeOrder());
+        BufferWrapper copy = BufferWrapper.wrap(buffer, dataType);
+        copy.putSubBuffer(0, bufferWrapper);
+
+        return copy;
+    }
+
+    /**
+     * Returns a buffer holding the remaining bytes of the specified buffer and backed by direct memory. If the specified
+     * buffer is already direct, it is returned unchanged. The position of the specified buffer is not changed.
+     *
+     * @param buffer the buffer to move off the heap.
+     *
+     * @return a direct buffer with the same remaining content and byte order.
+     *
+     * @throws IllegalArgumentException if the buffer is null.
+     */
+    public static ByteBuffer toDirect(ByteBuffer buffer)
+    {
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (buffer.isDirect())
+            return buffer;
+
+        ByteBuffer copy = ByteBuffer.allocateDirect(buffer.remaining());
+        copy.order(buffer.order());
+        copy.put(buffer.duplicate());
+        copy.flip();
+
+        return copy;
+    }
+
+    protected static Object dataTypeOf(BufferWrapper bufferWrapper)
+    {
+        if (bufferWrapper instanceof BufferWrapper.ByteBufferWrapper)
+            return AVKey.INT8;
+        else if (bufferWrapper instanceof BufferWrapper.ShortBufferWrapper)
+            return AVKey.INT16;
+        else if (bufferWrapper instanceof BufferWrapper.IntBufferWrapper)
+            return AVKey.INT32;
+        else if (bufferWrapper instanceof BufferWrapper.FloatBufferWrapper)
+            return AVKey.FLOAT32;
+        else if (bufferWrapper instanceof BufferWrapper.DoubleBufferWrapper)
+            return AVKey.FLOAT64;
+
+        return null;
+    }
+}
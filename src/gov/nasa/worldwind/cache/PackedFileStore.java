@@ -0,0 +1,342 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * A file store that keeps imagery and elevation tiles in a {@link TilePack} in its write location rather than as one
+ * file per tile. Tiles are found in the pack before the file store's read locations are searched, and are returned as
+ * URLs whose streams read the pack's memory-mapped segments. Such URLs work with code that reads from URLs, such as
+ * texture and elevation loading, and with {@link #removeFile(java.net.URL)} and {@link
+ * WWIO#isFileOutOfDate(java.net.URL, long)}.
+ * <p>
+ * Files created by {@link #newFile(String)} that have a tile suffix are written to the write location as usual, and are
+ * moved into the pack by a periodic task once they have not been modified for a short time, so writers are unaffected.
+ * Moved files are deleted on the task's next run, which lets readers that found the file before it was moved finish
+ * reading it. Existing per-file caches are moved into a pack by {@link TilePackMigrator}. Files in the pack are not
+ * reported by the file listing methods.
+ * <p>
+ * To use this file store, specify this class for {@link gov.nasa.worldwind.avlist.AVKey#DATA_FILE_STORE_CLASS_NAME}.
+ *
+ * @version $Id$
+ */
+public class PackedFileStore extends ConcurrentDataFileStore
+{
+    /** The name of the pack's directory in the write location. */
+    public static final String PACK_DIRECTORY_NAME = "TilePack";
+    /** The suffixes of files kept in the pack. */
+    public static final List<String> DEFAULT_PACKED_SUFFIXES = Arrays.asList(
+        ".bil", ".dds", ".gif", ".jpeg", ".jpg", ".png");
+    /** The interval between moves of new files into the pack, in milliseconds. */
+    protected static final long INGEST_INTERVAL = 5000;
+    /** The time a file must be unmodified before it is moved into the pack, in milliseconds. */
+    protected static final long QUIESCENT_TIME = 2000;
+
+    protected TilePack pack;
+    protected List<String> packedSuffixes = new ArrayList<String>(DEFAULT_PACKED_SUFFIXES);
+    /** The names of files written by newFile that have not yet been moved into the pack. */
+    protected final ConcurrentLinkedQueue<String> stagedFiles = new ConcurrentLinkedQueue<String>();
+    /** Files moved into the pack, to delete on the next ingest. Used only by the ingest task. */
+    protected final List<File> ingestedFiles = new ArrayList<File>();
+    protected final AtomicBoolean ingestScheduled = new AtomicBoolean();
+
+    /**
+     * Create an instance.
+     *
+     * @throws IllegalStateException if the configuration file name cannot be determined from {@link
+     *                               gov.nasa.worldwind.Configuration} or the configuration file cannot be found.
+     */
+    public PackedFileStore()
+    {
+        this.initializePack();
+    }
+
+    /**
+     * Create an instance to manage a specified directory.
+     *
+     * @param directoryPath the directory to manage as a file store.
+     */
+    public PackedFileStore(File directoryPath)
+    {
+        super(directoryPath);
+        this.initializePack();
+    }
+
+    protected void initializePack()
+    {
+        if (this.getWriteLocation() == null)
+            return;
+
+        try
+        {
+            this.pack = new TilePack(new File(this.getWriteLocation(), PACK_DIRECTORY_NAME));
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.SEVERE, Logging.getMessage("PackedFileStore.CannotOpenPack",
+                this.getWriteLocation()), e);
+        }
+    }
+
+    /**
+     * Returns the pack holding this file store's tiles.
+     *
+     * @return the tile pack, or null if the file store has no write location or the pack could not be opened.
+     */
+    public TilePack getPack()
+    {
+        return this.pack;
+    }
+
+    /**
+     * Indicates whether a file is kept in the pack, based on its suffix.
+     *
+     * @param fileName the file's name.
+     *
+     * @return true if the file belongs in the pack, otherwise false.
+     */
+    protected boolean isPackable(String fileName)
+    {
+        String lowerCaseName = fileName.toLowerCase();
+        for (String suffix : this.packedSuffixes)
+        {
+            if (lowerCaseName.endsWith(suffix))
+                return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean containsFile(String fileName)
+    {
+        if (fileName == null)
+            return false;
+
+        return (this.pack != null && this.pack.contains(normalizeFileStoreName(fileName)))
+            || super.containsFile(fileName);
+    }
+
+    @Override
+    public URL findFile(String fileName, boolean checkClassPath)
+    {
+        if (fileName == null)
+        {
+            String message = Logging.getMessage("nullValue.FilePathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.pack != null)
+        {
+            URL url = this.pack.getURL(normalizeFileStoreName(fileName));
+            if (url != null)
+                return url;
+        }
+
+        return super.findFile(fileName, checkClassPath);
+    }
+
+    @Override
+    public File newFile(String fileName)
+    {
+        File file = super.newFile(fileName);
+
+        if (file != null && this.pack != null && this.isPackable(fileName))
+        {
+            this.stagedFiles.add(normalizeFileStoreName(fileName));
+            this.scheduleIngest();
+        }
+
+        return file;
+    }
+
+    @Override
+    public void removeFile(URL url)
+    {
+        String key = this.pack != null ? this.pack.getKey(url) : null;
+        if (key == null)
+        {
+            super.removeFile(url);
+            return;
+        }
+
+        try
+        {
+            this.pack.remove(key);
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.SEVERE, Logging.getMessage("FileStore.ExceptionRemovingFile", url), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc} Overridden to return the pack's URL for retrieved files that have since moved into the pack, and to
+     * discard entries whose files have been removed from the pack.
+     */
+    @Override
+    protected DBEntry validateEntry(DBEntry entry)
+    {
+        if (this.pack == null)
+            return super.validateEntry(entry);
+
+        String key = this.pack.getKey(entry.localUrl);
+        if (key != null)
+        {
+            if (this.pack.contains(key))
+                return entry;
+
+            if (this.entries.remove(entry.name, entry))
+                this.appendRemoveRecord(entry.name);
+            return null;
+        }
+
+        key = this.packKeyFor(entry.localUrl);
+        URL packUrl = key != null ? this.pack.getURL(key) : null;
+        if (packUrl == null)
+            return super.validateEntry(entry);
+
+        DBEntry packEntry = this.copyEntry(entry, new DBEntry(entry.name));
+        packEntry.localUrl = packUrl;
+        this.entries.replace(entry.name, entry, packEntry);
+        return packEntry;
+    }
+
+    /**
+     * {@inheritDoc} Overridden to record entries for files in the pack by their original location in the write
+     * location, which {@link #validateEntry(DBEntry)} maps back to the pack.
+     */
+    @Override
+    protected String makeAddRecord(DBEntry entry)
+    {
+        String key = this.pack != null && entry.localUrl != null ? this.pack.getKey(entry.localUrl) : null;
+        if (key == null)
+            return super.makeAddRecord(entry);
+
+        try
+        {
+            DBEntry fileEntry = this.copyEntry(entry, new DBEntry(entry.name));
+            fileEntry.localUrl = new File(this.getWriteLocation(), key).toURI().toURL();
+            return super.makeAddRecord(fileEntry);
+        }
+        catch (MalformedURLException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the pack key of a file in the write location.
+     *
+     * @param url the file's URL.
+     *
+     * @return the file's key, or null if the URL does not identify a file in the write location.
+     */
+    protected String packKeyFor(URL url)
+    {
+        if (url == null || !"file".equalsIgnoreCase(url.getProtocol()))
+            return null;
+
+        File file = WWIO.convertURLToFile(url);
+        String root = this.getWriteLocation().getAbsolutePath() + File.separator;
+        if (file == null || !file.getAbsolutePath().startsWith(root))
+            return null;
+
+        return normalizeFileStoreName(file.getAbsolutePath().substring(root.length()));
+    }
+
+    protected void scheduleIngest()
+    {
+        if (this.ingestScheduled.compareAndSet(false, true))
+        {
+            WorldWind.getScheduledTaskService().addRepeatingTask(new Runnable()
+            {
+                public void run()
+                {
+                    ingestStagedFiles();
+                }
+            }, INGEST_INTERVAL, INGEST_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Moves files written since the last run into the pack. Files modified within the last {@link #QUIESCENT_TIME}
+     * milliseconds may still be being written, and are left for the next run. Files moved on the previous run are
+     * deleted.
+     */
+    protected void ingestStagedFiles()
+    {
+        for (File file : this.ingestedFiles)
+        {
+            if (!file.delete() && file.exists())
+                file.deleteOnExit();
+        }
+        this.ingestedFiles.clear();
+
+        long now = System.currentTimeMillis();
+        for (int i = this.stagedFiles.size(); i > 0; i--)
+        {
+            String key = this.stagedFiles.poll();
+            if (key == null)
+                break;
+
+            File file = new File(this.getWriteLocation(), key);
+            if (!file.exists())
+                continue;
+
+            if (now - file.lastModified() < QUIESCENT_TIME)
+            {
+                this.stagedFiles.add(key);
+                continue;
+            }
+
+            try
+            {
+                this.pack.write(key, WWIO.readFileToBuffer(file), file.lastModified());
+                this.ingestedFiles.add(file);
+            }
+            catch (IOException e)
+            {
+                Logging.logger().log(Level.WARNING, Logging.getMessage("PackedFileStore.ExceptionPackingFile",
+                    file), e);
+            }
+        }
+
+        this.pack.flush();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+
+/**
+ * An {@link EvictionPolicy} implementing a segmented LRU. New entries enter a probationary segment and are promoted to
+ * a protected segment when accessed again. When the protected segment grows beyond its share of the tracked size, its
+ * least recently used entries are demoted back to the probationary segment. Victims are taken from the probationary
+ * segment first, so entries used only once are evicted before entries that have been used repeatedly. All operations
+ * run in amortized constant time.
+ *
+ * @version $Id$
+ */
+public class SegmentedLRUEvictionPolicy implements EvictionPolicy
+{
+    /** The default fraction of the tracked size that the protected segment may occupy. */
+    protected static final double DEFAULT_PROTECTED_RATIO = 0.8;
+
+    protected final LinkedHashMap<Object, Long> probation = new LinkedHashMap<Object, Long>();
+    protected final LinkedHashMap<Object, Long> protectedSegment = new LinkedHashMap<Object, Long>(16, 0.75f, true);
+    protected double protectedRatio;
+    protected long totalSize;
+    protected long protectedSize;
+
+    /** Constructs a segmented LRU policy whose protected segment may occupy 80% of the tracked size. */
+    public SegmentedLRUEvictionPolicy()
+    {
+        this(DEFAULT_PROTECTED_RATIO);
+    }
+
+    /**
+     * Constructs a segmented LRU policy with a specified protected segment ratio.
+     *
+     * @param protectedRatio the fraction of the tracked size that the protected segment may occupy, in the range [0,
+     *                       1].
+     *
+     * @throws IllegalArgumentException if the ratio is outside the range [0, 1].
+     */
+    public SegmentedLRUEvictionPolicy(double protectedRatio)
+    {
+        if (protectedRatio < 0 || protectedRatio > 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", protectedRatio);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.protectedRatio = protectedRatio;
+    }
+
+    public double getProtectedRatio()
+    {
+        return this.protectedRatio;
+    }
+
+    /**
+     * Indicates whether this policy tracks an entry.
+     *
+     * @param key the entry's cache key.
+     *
+     * @return true if the entry is tracked, otherwise false.
+     */
+    public boolean contains(Object key)
+    {
+        return this.probation.containsKey(key) || this.protectedSegment.containsKey(key);
+    }
+
+    /**
+     * Returns the total size of the entries tracked by this policy.
+     *
+     * @return the tracked size in cache units.
+     */
+    public long getTotalSize()
+    {
+        return this.totalSize;
+    }
+
+    public void entryAdded(Object key, long size)
+    {
+        this.entryRemoved(key);
+
+        this.probation.put(key, size);
+        this.totalSize += size;
+    }
+
+    public void entryAccessed(Object key)
+    {
+        Long size = this.probation.remove(key);
+        if (size == null)
+        {
+            this.protectedSegment.get(key); // moves the entry to the most recently used position
+            return;
+        }
+
+        this.protectedSegment.put(key, size);
+        this.protectedSize += size;
+
+        // Demote the least recently used protected entries until the protected segment fits its share again. Always
+        // keep the entry just promoted.
+        long maxProtectedSize = (long) (this.protectedRatio * this.totalSize);
+        Iterator<Map.Entry<Object, Long>> iter = this.protectedSegment.entrySet().iterator();
+        while (this.protectedSize > maxProtectedSize && this.protectedSegment.size() > 1)
+        {
+            Map.Entry<Object, Long> eldest = iter.next();
+            iter.remove();
+            this.protectedSize -= eldest.getValue();
+            this.probation.put(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    public void entryRemoved(Object key)
+    {
+        Long size = this.probation.remove(key);
+        if (size == null)
+        {
+            size = this.protectedSegment.remove(key);
+            if (size == null)
+                return;
+
+            this.protectedSize -= size;
+        }
+
+        this.totalSize -= size;
+    }
+
+    public Object selectVictim()
+    {
+        if (!this.probation.isEmpty())
+            return this.probation.keySet().iterator().next();
+
+        if (!this.protectedSegment.isEmpty())
+            return this.protectedSegment.keySet().iterator().next();
+
+        return null;
+    }
+
+    public int getNumEntries()
+    {
+        return this.probation.size() + this.protectedSegment.size();
+    }
+
+    public void clear()
+    {
+        this.probation.clear();
+        this.protectedSegment.clear();
+        this.totalSize = 0;
+        this.protectedSize = 0;
+    }
+}
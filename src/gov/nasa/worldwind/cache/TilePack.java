@@ -0,0 +1,658 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * A container that packs many small files, such as imagery and elevation tiles, into a few large segment files in one
+ * directory. Each segment is memory mapped, and reads return read-only views of the mapped segment without copying.
+ * Files are identified by a key, typically the file's path in a file store, which for tiles is derived from the tile's
+ * {@link gov.nasa.worldwind.util.TileKey} components: cache name, level, row and column.
+ * <p>
+ * Segments are append-only. Each record holds a header, the key and the file contents; removing a file appends a
+ * removal record. The header's first word is written last, so a record interrupted by a crash is ignored when the
+ * segments are next opened. Opening a pack scans the segments' record headers to build an in-memory index, so no
+ * separate index file is kept. Space held by replaced or removed files is reclaimed by {@link #compact()}.
+ * <p>
+ * Reads are safe from any thread and take no lock. Writes are serialized.
+ *
+ * @version $Id$
+ */
+public class TilePack
+{
+    /** The protocol of URLs that identify files in a tile pack. */
+    public static final String URL_PROTOCOL = "wwpack";
+    /** The default segment size. Files larger than this are placed in segments of their own size. */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    protected static final String SEGMENT_PREFIX = "pack-";
+    protected static final String SEGMENT_SUFFIX = ".wwpack";
+    protected static final int RECORD_MAGIC = 0x57575054; // "WWPT"
+    /** Record header: magic, key length, modification time and data length, which is -1 for a removal record. */
+    protected static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+
+    /** A memory-mapped segment file. */
+    protected static class Segment
+    {
+        protected final int number;
+        protected final File file;
+        protected final FileChannel channel;
+        protected final MappedByteBuffer buffer;
+        protected int writePosition;
+
+        public Segment(int number, File file, int capacity) throws IOException
+        {
+            this.number = number;
+            this.file = file;
+            this.channel = new RandomAccessFile(file, "rw").getChannel();
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(capacity, this.channel.size()));
+        }
+
+        public int capacity()
+        {
+            return this.buffer.capacity();
+        }
+    }
+
+    /** The location of a file's contents in a segment. */
+    protected static class Entry
+    {
+        protected final Segment segment;
+        protected final int offset;
+        protected final int length;
+        protected final long lastModified;
+
+        public Entry(Segment segment, int offset, int length, long lastModified)
+        {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+
+    protected final File directory;
+    protected final int segmentSize;
+    protected final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    protected final List<Segment> segments = new ArrayList<Segment>(); // guarded by this
+    protected final URLStreamHandler urlHandler = new PackURLStreamHandler();
+    protected long deadBytes; // guarded by this
+    protected boolean closed; // guarded by this
+
+    /**
+     * Opens a tile pack with the default segment size, creating the directory if necessary.
+     *
+     * @param directory the directory holding the pack's segment files.
+     *
+     * @throws IOException              if the directory cannot be created or a segment cannot be read.
+     * @throws IllegalArgumentException if <code>directory</code> is null.
+     */
+    public TilePack(File directory) throws IOException
+    {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens a tile pack, creating the directory if necessary.
+     *
+     * @param directory   the directory holding the pack's segment files.
+     * @param segmentSize the size of new segments, in bytes.
+     *
+     * @throws IOException              if the directory cannot be created or a segment cannot be read.
+     * @throws IllegalArgumentException if <code>directory</code> is null or <code>segmentSize</code> is too small to
+     *                                  hold a record header.
+     */
+    public TilePack(File directory, int segmentSize) throws IOException
+    {
+        if (directory == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (segmentSize <= HEADER_SIZE)
+        {
+            String message = Logging.getMessage("generic.SizeOutOfRange", segmentSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!directory.exists() && !directory.mkdirs())
+            throw new IOException(Logging.getMessage("generic.CannotCreateFile", directory.getPath()));
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.open();
+    }
+
+    /** @return the directory holding the pack's segment files. */
+    public File getDirectory()
+    {
+        return this.directory;
+    }
+
+    /** @return the number of files in the pack. */
+    public int getNumFiles()
+    {
+        return this.entries.size();
+    }
+
+    /** @return the keys of the files in the pack. */
+    public Set<String> getKeys()
+    {
+        return Collections.unmodifiableSet(this.entries.keySet());
+    }
+
+    /** @return the number of bytes held by replaced and removed files, which {@link #compact()} reclaims. */
+    public synchronized long getDeadBytes()
+    {
+        return this.deadBytes;
+    }
+
+    /**
+     * Indicates whether the pack holds a file.
+     *
+     * @param key the file's key.
+     *
+     * @return true if the pack holds the file, otherwise false.
+     */
+    public boolean contains(String key)
+    {
+        return key != null && this.entries.containsKey(key);
+    }
+
+    /**
+     * Returns a read-only view of a file's contents. The view shares the pack's memory-mapped segment, so no data is
+     * copied.
+     *
+     * @param key the file's key.
+     *
+     * @return the file's contents, or null if the pack does not hold the file.
+     */
+    public ByteBuffer read(String key)
+    {
+        Entry entry = key != null ? this.entries.get(key) : null;
+        if (entry == null)
+            return null;
+
+        ByteBuffer buffer = entry.segment.buffer.duplicate();
+        buffer.limit(entry.offset + entry.length).position(entry.offset);
+        return buffer.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the time a file was added to the pack.
+     *
+     * @param key the file's key.
+     *
+     * @return the file's modification time in milliseconds since the epoch, or zero if the pack does not hold the
+     * file.
+     */
+    public long getLastModified(String key)
+    {
+        Entry entry = key != null ? this.entries.get(key) : null;
+        return entry != null ? entry.lastModified : 0;
+    }
+
+    /**
+     * Returns a URL that identifies a file in the pack. The URL's stream reads the file's contents from the pack, so it
+     * can be passed to code that reads from URLs. The URL cannot be recreated from its string form.
+     *
+     * @param key the file's key.
+     *
+     * @return the file's URL, or null if the pack does not hold the file.
+     */
+    public URL getURL(String key)
+    {
+        if (!this.contains(key))
+            return null;
+
+        try
+        {
+            String path = new URI(null, null, "/" + key, null).getRawPath();
+            return new URL(URL_PROTOCOL, "", -1, path, this.urlHandler);
+        }
+        catch (URISyntaxException | MalformedURLException e)
+        {
+            Logging.logger().log(Level.SEVERE, Logging.getMessage("FileStore.ExceptionCreatingURLForFile", key), e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the key of the file identified by a URL.
+     *
+     * @param url the URL.
+     *
+     * @return the file's key, or null if the URL does not identify a file in this pack.
+     */
+    public String getKey(URL url)
+    {
+        if (url == null || !URL_PROTOCOL.equals(url.getProtocol()))
+            return null;
+
+        try
+        {
+            return new URI(url.toExternalForm()).getPath().substring(1);
+        }
+        catch (URISyntaxException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Adds a file to the pack, replacing any file with the same key.
+     *
+     * @param key          the file's key.
+     * @param data         the file's contents, from the buffer's position to its limit. The buffer's position is not
+     *                     changed.
+     * @param lastModified the file's modification time in milliseconds since the epoch.
+     *
+     * @throws IOException              if a new segment cannot be created.
+     * @throws IllegalArgumentException if <code>key</code> or <code>data</code> is null.
+     */
+    public synchronized void write(String key, ByteBuffer data, long lastModified) throws IOException
+    {
+        if (key == null)
+        {
+            String message = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (data == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.checkOpen();
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = data.remaining();
+        Segment segment = this.segmentFor(HEADER_SIZE + keyBytes.length + length);
+        int offset = this.writeRecord(segment, keyBytes, lastModified, data.duplicate());
+
+        this.replaceEntry(key, new Entry(segment, offset, length, lastModified));
+    }
+
+    /**
+     * Removes a file from the pack.
+     *
+     * @param key the file's key.
+     *
+     * @return true if the pack held the file, otherwise false.
+     *
+     * @throws IOException if a new segment cannot be created.
+     */
+    public synchronized boolean remove(String key) throws IOException
+    {
+        if (!this.contains(key))
+            return false;
+
+        this.checkOpen();
+
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        Segment segment = this.segmentFor(HEADER_SIZE + keyBytes.length);
+        this.writeRecord(segment, keyBytes, System.currentTimeMillis(), null);
+        this.deadBytes += HEADER_SIZE + keyBytes.length;
+
+        this.replaceEntry(key, null);
+        return true;
+    }
+
+    /**
+     * Rewrites the pack's live files into new segments and deletes the old segments, reclaiming the space held by
+     * replaced and removed files. Views returned by {@link #read(String)} before compaction remain valid.
+     *
+     * @throws IOException if the new segments cannot be written.
+     */
+    public synchronized void compact() throws IOException
+    {
+        this.checkOpen();
+
+        List<Segment> oldSegments = new ArrayList<Segment>(this.segments);
+        Segment last = oldSegments.isEmpty() ? null : oldSegments.get(oldSegments.size() - 1);
+        int firstNumber = last != null ? last.number + 1 : 0;
+
+        // Force new segments so no live record is overwritten while it is copied.
+        if (last != null)
+            last.writePosition = last.capacity();
+
+        for (Map.Entry<String, Entry> e : this.entries.entrySet())
+        {
+            Entry entry = e.getValue();
+            if (entry.segment.number >= firstNumber)
+                continue;
+
+            ByteBuffer data = entry.segment.buffer.duplicate();
+            data.limit(entry.offset + entry.length).position(entry.offset);
+            byte[] keyBytes = e.getKey().getBytes(StandardCharsets.UTF_8);
+            Segment segment = this.segmentFor(HEADER_SIZE + keyBytes.length + entry.length);
+            int offset = this.writeRecord(segment, keyBytes, entry.lastModified, data);
+            this.entries.put(e.getKey(), new Entry(segment, offset, entry.length, entry.lastModified));
+        }
+
+        // Write the new segments to disk before the old segments are deleted.
+        for (Segment segment : this.segments)
+        {
+            if (segment.number >= firstNumber)
+                segment.buffer.force();
+        }
+
+        for (Segment segment : oldSegments)
+        {
+            this.segments.remove(segment);
+            segment.buffer.force();
+            WWIO.closeStream(segment.channel, segment.file.getPath());
+            if (!segment.file.delete())
+                segment.file.deleteOnExit(); // a mapped file cannot be deleted on some platforms
+        }
+
+        this.deadBytes = 0;
+    }
+
+    /** Writes the pack's segments to disk. */
+    public synchronized void flush()
+    {
+        for (Segment segment : this.segments)
+        {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * Flushes and closes the pack's segment files. The pack's segments stay mapped until views returned by {@link
+     * #read(String)} are no longer referenced.
+     */
+    public synchronized void close()
+    {
+        if (this.closed)
+            return;
+
+        this.flush();
+        for (Segment segment : this.segments)
+        {
+            WWIO.closeStream(segment.channel, segment.file.getPath());
+        }
+
+        this.closed = true;
+    }
+
+    protected void checkOpen() throws IOException
+    {
+        if (this.closed)
+            throw new IOException(Logging.getMessage("TilePack.PackIsClosed", this.directory));
+    }
+
+    protected void replaceEntry(String key, Entry entry)
+    {
+        Entry old = entry != null ? this.entries.put(key, entry) : this.entries.remove(key);
+        if (old != null)
+            this.deadBytes += old.length + HEADER_SIZE + key.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Returns a segment with room for a record, creating one if the last segment is full.
+     *
+     * @param recordSize the record's size in bytes.
+     *
+     * @return the segment.
+     *
+     * @throws IOException if a new segment cannot be created.
+     */
+    protected Segment segmentFor(int recordSize) throws IOException
+    {
+        Segment last = this.segments.isEmpty() ? null : this.segments.get(this.segments.size() - 1);
+        if (last != null && last.capacity() - last.writePosition >= recordSize)
+            return last;
+
+        int number = last != null ? last.number + 1 : 0;
+        Segment segment = new Segment(number, this.makeSegmentFile(number), Math.max(this.segmentSize, recordSize));
+        this.segments.add(segment);
+        return segment;
+    }
+
+    protected File makeSegmentFile(int number)
+    {
+        return new File(this.directory, String.format("%s%05d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Appends a record to a segment. The record's magic number is written after its contents, so readers scanning the
+     * segment never see a partial record.
+     *
+     * @return the offset of the record's data in the segment.
+     */
+    protected int writeRecord(Segment segment, byte[] keyBytes, long lastModified, ByteBuffer data)
+    {
+        int start = segment.writePosition;
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(start + 4);
+        buffer.putInt(keyBytes.length);
+        buffer.putLong(lastModified);
+        buffer.putInt(data != null ? data.remaining() : -1);
+        buffer.put(keyBytes);
+        int dataOffset = buffer.position();
+        if (data != null)
+            buffer.put(data);
+
+        segment.writePosition = buffer.position();
+        buffer.putInt(start, RECORD_MAGIC);
+
+        return dataOffset;
+    }
+
+    /** Maps the pack's existing segments and indexes their records. */
+    protected void open() throws IOException
+    {
+        File[] files = this.directory.listFiles(new FileFilter()
+        {
+            public boolean accept(File file)
+            {
+                return file.getName().startsWith(SEGMENT_PREFIX) && file.getName().endsWith(SEGMENT_SUFFIX);
+            }
+        });
+
+        if (files == null)
+            return;
+
+        Arrays.sort(files);
+        for (File file : files)
+        {
+            int number;
+            try
+            {
+                number = Integer.parseInt(file.getName().substring(SEGMENT_PREFIX.length(),
+                    file.getName().length() - SEGMENT_SUFFIX.length()));
+            }
+            catch (NumberFormatException e)
+            {
+                continue;
+            }
+
+            Segment segment = new Segment(number, file, 0);
+            this.segments.add(segment);
+            this.scanSegment(segment);
+        }
+    }
+
+    protected void scanSegment(Segment segment)
+    {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int position = 0;
+        while (buffer.capacity() - position >= HEADER_SIZE && buffer.getInt(position) == RECORD_MAGIC)
+        {
+            int keyLength = buffer.getInt(position + 4);
+            long lastModified = buffer.getLong(position + 8);
+            int length = buffer.getInt(position + 16);
+            int dataOffset = position + HEADER_SIZE + keyLength;
+            if (keyLength < 0 || dataOffset + Math.max(length, 0) > buffer.capacity())
+                break; // corrupt record
+
+            byte[] keyBytes = new byte[keyLength];
+            buffer.position(position + HEADER_SIZE);
+            buffer.get(keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+
+            if (length >= 0)
+            {
+                this.replaceEntry(key, new Entry(segment, dataOffset, length, lastModified));
+            }
+            else
+            {
+                this.replaceEntry(key, null);
+                this.deadBytes += HEADER_SIZE + keyLength;
+            }
+
+            position = dataOffset + Math.max(length, 0);
+        }
+
+        segment.writePosition = position;
+    }
+
+    /** Opens streams on files in the pack identified by URLs returned by {@link #getURL(String)}. */
+    protected class PackURLStreamHandler extends URLStreamHandler
+    {
+        @Override
+        protected URLConnection openConnection(URL url)
+        {
+            return new PackURLConnection(url);
+        }
+    }
+
+    /** A connection to a file in the pack. Its stream reads the memory-mapped file contents without copying them. */
+    protected class PackURLConnection extends URLConnection
+    {
+        protected final String key;
+        protected ByteBuffer data;
+
+        public PackURLConnection(URL url)
+        {
+            super(url);
+            this.key = getKey(url);
+        }
+
+        @Override
+        public void connect() throws IOException
+        {
+            if (this.connected)
+                return;
+
+            this.data = read(this.key);
+            if (this.data == null)
+                throw new FileNotFoundException(this.url.toString());
+
+            this.connected = true;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException
+        {
+            this.connect();
+            return new BufferInputStream(this.data.duplicate());
+        }
+
+        @Override
+        public long getLastModified()
+        {
+            return TilePack.this.getLastModified(this.key);
+        }
+
+        @Override
+        public long getContentLengthLong()
+        {
+            Entry entry = entries.get(this.key);
+            return entry != null ? entry.length : -1;
+        }
+
+        @Override
+        public String getContentType()
+        {
+            return WWIO.makeMimeTypeForSuffix(WWIO.getSuffix(this.key));
+        }
+    }
+
+    /** An input stream that reads a byte buffer's remaining contents. */
+    protected static class BufferInputStream extends InputStream
+    {
+        protected final ByteBuffer buffer;
+
+        public BufferInputStream(ByteBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length)
+        {
+            if (length == 0)
+                return 0;
+
+            if (!this.buffer.hasRemaining())
+                return -1;
+
+            length = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public long skip(long n)
+        {
+            int skipped = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+            this.buffer.position(this.buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available()
+        {
+            return this.buffer.remaining();
+        }
+    }
+}
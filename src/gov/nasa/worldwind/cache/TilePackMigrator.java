@@ -0,0 +1,159 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Moves the tiles of an existing file store directory into the {@link TilePack} used by {@link PackedFileStore}. Files
+ * are added to the pack under their path relative to the file store directory, which is the name the file store uses
+ * to find them. Run it while no WorldWind application is using the file store:
+ * <pre>
+ * java gov.nasa.worldwind.cache.TilePackMigrator &lt;file store directory&gt; [-keep]
+ * </pre>
+ * Migrated files are deleted unless <code>-keep</code> is specified.
+ *
+ * @version $Id$
+ */
+public class TilePackMigrator
+{
+    /**
+     * Moves the tiles in a file store directory into a tile pack.
+     *
+     * @param storeDirectory the file store directory.
+     * @param pack           the pack to add the files to.
+     * @param suffixes       the suffixes of the files to move.
+     * @param deleteFiles    true to delete files once they are in the pack, false to leave them in place.
+     *
+     * @return the number of files added to the pack.
+     *
+     * @throws IOException              if the pack cannot be written.
+     * @throws IllegalArgumentException if any argument is null.
+     */
+    public static int migrate(File storeDirectory, TilePack pack, Collection<String> suffixes, boolean deleteFiles)
+        throws IOException
+    {
+        if (storeDirectory == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (pack == null)
+        {
+            String message = Logging.getMessage("nullValue.FileStoreIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (suffixes == null)
+        {
+            String message = Logging.getMessage("nullValue.ListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int count = migrateDirectory(storeDirectory, "", pack, suffixes, deleteFiles);
+        pack.flush();
+
+        return count;
+    }
+
+    protected static int migrateDirectory(File directory, String prefix, TilePack pack, Collection<String> suffixes,
+        boolean deleteFiles) throws IOException
+    {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return 0;
+
+        int count = 0;
+        for (File file : files)
+        {
+            if (file.isDirectory())
+            {
+                if (!file.equals(pack.getDirectory()))
+                    count += migrateDirectory(file, prefix + file.getName() + "/", pack, suffixes, deleteFiles);
+            }
+            else if (hasSuffix(file, suffixes))
+            {
+                pack.write(prefix + file.getName(), WWIO.readFileToBuffer(file), file.lastModified());
+                count++;
+
+                if (deleteFiles && !file.delete())
+                    Logging.logger().warning(Logging.getMessage("generic.CannotDeleteFile", file));
+            }
+        }
+
+        return count;
+    }
+
+    protected static boolean hasSuffix(File file, Collection<String> suffixes)
+    {
+        String name = file.getName().toLowerCase();
+        for (String suffix : suffixes)
+        {
+            if (name.endsWith(suffix))
+                return true;
+        }
+
+        return false;
+    }
+
+    public static void main(String[] args)
+    {
+        if (args.length < 1 || (args.length > 1 && !"-keep".equals(args[1])))
+        {
+            System.out.println(Logging.getMessage("TilePackMigrator.Usage"));
+            return;
+        }
+
+        File storeDirectory = new File(args[0]);
+        TilePack pack = null;
+        try
+        {
+            pack = new TilePack(new File(storeDirectory, PackedFileStore.PACK_DIRECTORY_NAME));
+            int count = migrate(storeDirectory, pack, PackedFileStore.DEFAULT_PACKED_SUFFIXES, args.length == 1);
+            System.out.println(Logging.getMessage("TilePackMigrator.Migrated", count, storeDirectory,
+                pack.getDirectory()));
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.SEVERE, e.getMessage(), e);
+        }
+        finally
+        {
+            if (pack != null)
+                pack.close();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+
+/**
+ * An {@link EvictionPolicy} implementing W-TinyLFU. New entries enter a small LRU admission window. When space is
+ * needed and the window exceeds its share of the tracked size, the window's least recently used entry competes with
+ * the victim of a {@link SegmentedLRUEvictionPolicy} main region: whichever has been used less often, as estimated by
+ * a compact frequency sketch, is evicted and the other is kept. This retains frequently used tiles across bursts of
+ * one-time requests, such as those generated when the view sweeps quickly across the globe. All operations run in
+ * amortized constant time.
+ *
+ * @version $Id$
+ */
+public class TinyLFUEvictionPolicy implements EvictionPolicy
+{
+    /** The default fraction of the tracked size that the admission window may occupy. */
+    protected static final double DEFAULT_WINDOW_RATIO = 0.01;
+
+    /**
+     * A count-min sketch of 4-bit counters that estimates how often each key has been used. Counters are periodically
+     * halved so that the estimate favors recent use.
+     */
+    protected static class FrequencySketch
+    {
+        protected static final int MAX_COUNT = 15;
+        protected static final int MIN_WIDTH = 64;
+        protected static final int[] SEEDS = new int[] {0x97cb3127, 0xb7fa9cd1, 0x5f3a5e1b, 0xc2b2ae35};
+
+        protected byte[][] counters;
+        protected int mask;
+        protected int additions;
+        protected int sampleSize;
+
+        public FrequencySketch()
+        {
+            this.resize(MIN_WIDTH);
+        }
+
+        /**
+         * Grows the sketch when the number of tracked entries approaches its width. Growing discards the current
+         * counts.
+         *
+         * @param numEntries the number of entries currently tracked.
+         */
+        public void ensureCapacity(int numEntries)
+        {
+            if (numEntries > this.counters[0].length / 2 && this.counters[0].length < (1 << 30))
+                this.resize(this.counters[0].length * 2);
+        }
+
+        public int frequency(Object key)
+        {
+            int hash = spread(key.hashCode());
+            int frequency = MAX_COUNT;
+            for (int i = 0; i < this.counters.length; i++)
+            {
+                frequency = Math.min(frequency, this.counters[i][this.indexOf(hash, i)]);
+            }
+
+            return frequency;
+        }
+
+        public void increment(Object key)
+        {
+            int hash = spread(key.hashCode());
+            for (int i = 0; i < this.counters.length; i++)
+            {
+                int index = this.indexOf(hash, i);
+                if (this.counters[i][index] < MAX_COUNT)
+                    this.counters[i][index]++;
+            }
+
+            if (++this.additions >= this.sampleSize)
+                this.age();
+        }
+
+        public void clear()
+        {
+            for (byte[] row : this.counters)
+            {
+                Arrays.fill(row, (byte) 0);
+            }
+            this.additions = 0;
+        }
+
+        protected void resize(int width)
+        {
+            this.counters = new byte[SEEDS.length][width];
+            this.mask = width - 1;
+            this.additions = 0;
+            this.sampleSize = 10 * width;
+        }
+
+        protected void age()
+        {
+            for (byte[] row : this.counters)
+            {
+                for (int i = 0; i < row.length; i++)
+                {
+                    row[i] = (byte) (row[i] >>> 1);
+                }
+            }
+            this.additions /= 2;
+        }
+
+        protected int indexOf(int hash, int row)
+        {
+            int h = hash * SEEDS[row];
+            h ^= h >>> 17;
+            return h & this.mask;
+        }
+
+        protected static int spread(int hash)
+        {
+            hash ^= hash >>> 16;
+            hash *= 0x45d9f3b;
+            hash ^= hash >>> 16;
+            return hash;
+        }
+    }
+
+    protected final LinkedHashMap<Object, Long> window = new LinkedHashMap<Object, Long>(16, 0.75f, true);
+    protected final SegmentedLRUEvictionPolicy main;
+    protected final FrequencySketch sketch = new FrequencySketch();
+    protected double windowRatio;
+    protected long windowSize;
+    /** The largest tracked size observed when a victim was requested, or zero if no victim has been requested. */
+    protected long maximumSize;
+
+    /** Constructs a W-TinyLFU policy whose admission window may occupy 1% of the tracked size. */
+    public TinyLFUEvictionPolicy()
+    {
+        this(DEFAULT_WINDOW_RATIO);
+    }
+
+    /**
+     * Constructs a W-TinyLFU policy with a specified admission window ratio.
+     *
+     * @param windowRatio the fraction of the tracked size that the admission window may occupy, in the range [0, 1].
+     *
+     * @throws IllegalArgumentException if the ratio is outside the range [0, 1].
+     */
+    public TinyLFUEvictionPolicy(double windowRatio)
+    {
+        if (windowRatio < 0 || windowRatio > 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", windowRatio);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.windowRatio = windowRatio;
+        this.main = new SegmentedLRUEvictionPolicy();
+    }
+
+    public double getWindowRatio()
+    {
+        return this.windowRatio;
+    }
+
+    public void entryAdded(Object key, long size)
+    {
+        this.entryRemoved(key);
+
+        this.sketch.increment(key);
+        this.window.put(key, size);
+        this.windowSize += size;
+        this.sketch.ensureCapacity(this.getNumEntries());
+
+        // Until the cache has filled, or while the main region has room, window overflow moves directly into the main
+        // region. Once the main region is full, the overflow waits in the window to compete for admission.
+        long maxWindowSize = (long) (this.windowRatio * (this.windowSize + this.main.getTotalSize()));
+        long maxMainSize = this.maximumSize - (long) (this.windowRatio * this.maximumSize);
+        Iterator<Map.Entry<Object, Long>> iter = this.window.entrySet().iterator();
+        while (this.windowSize > maxWindowSize && this.window.size() > 1)
+        {
+            Map.Entry<Object, Long> eldest = iter.next();
+            if (this.maximumSize > 0 && this.main.getTotalSize() + eldest.getValue() > maxMainSize)
+                break;
+
+            iter.remove();
+            this.windowSize -= eldest.getValue();
+            this.main.entryAdded(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    public void entryAccessed(Object key)
+    {
+        this.sketch.increment(key);
+
+        if (this.window.get(key) == null) // moves window entries to the most recently used position
+            this.main.entryAccessed(key);
+    }
+
+    public void entryRemoved(Object key)
+    {
+        Long size = this.window.remove(key);
+        if (size != null)
+            this.windowSize -= size;
+        else
+            this.main.entryRemoved(key);
+    }
+
+    public Object selectVictim()
+    {
+        this.maximumSize = Math.max(this.maximumSize, this.windowSize + this.main.getTotalSize());
+
+        Object mainVictim = this.main.selectVictim();
+        if (this.window.isEmpty())
+            return mainVictim;
+
+        Map.Entry<Object, Long> candidate = this.window.entrySet().iterator().next();
+        if (mainVictim == null)
+            return candidate.getKey();
+
+        // While the window is within its share of the tracked size, evict from the main region as a plain SLRU would.
+        long maxWindowSize = (long) (this.windowRatio * (this.windowSize + this.main.getTotalSize()));
+        if (this.windowSize <= maxWindowSize)
+            return mainVictim;
+
+        // Otherwise the window's eldest entry competes with the main region's victim for admission.
+        if (this.sketch.frequency(candidate.getKey()) > this.sketch.frequency(mainVictim))
+        {
+            this.window.remove(candidate.getKey());
+            this.windowSize -= candidate.getValue();
+            this.main.entryAdded(candidate.getKey(), candidate.getValue());
+            return mainVictim;
+        }
+
+        return candidate.getKey();
+    }
+
+    public int getNumEntries()
+    {
+        return this.window.size() + this.main.getNumEntries();
+    }
+
+    public void clear()
+    {
+        this.window.clear();
+        this.windowSize = 0;
+        this.maximumSize = 0;
+        this.main.clear();
+        this.sketch.clear();
+    }
+}
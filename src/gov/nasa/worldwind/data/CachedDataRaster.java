@@ -31,11 +31,13 @@ package gov.nasa.worldwind.data;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.formats.tiff.GeotiffReader;
 import gov.nasa.worldwind.geom.Sector;
 import gov.nasa.worldwind.util.*;
 
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.*;
 import java.util.logging.Level;
 
 /**
@@ -63,8 +65,23 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
     protected final Object rasterUsageLock = new Object();
     protected final Object rasterRetrievalLock = new Object();
 
+    /**
+     * The reader used to draw windows of an elevation GeoTIFF, kept open between draws so the file's directories are
+     * parsed and the file is mapped once rather than once per canvas. Guarded by <code>rasterUsageLock</code>.
+     */
+    protected GeotiffReader windowReader = null;
+
     protected String[] requiredKeys = new String[] {AVKey.SECTOR, AVKey.PIXEL_FORMAT};
 
+    protected RasterProductionStatistics statistics = null;
+
+    /**
+     * The listeners disposing evicted rasters, one per cache. Sharing a listener among all cached data rasters using a
+     * cache keeps the cost of an eviction independent of the number of data sources.
+     */
+    protected static final Map<MemoryCache, CacheListener> cacheListeners =
+        new WeakHashMap<MemoryCache, CacheListener>();
+
     /**
      * Create a cached data raster.
      *
@@ -107,8 +124,24 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
         this.rasterCache = cache;
         if (this.rasterCache != null)
         {
-            this.cacheListener = new CacheListener(this.dataSource);
-            this.rasterCache.addCacheListener(this.cacheListener);
+            this.cacheListener = addCacheKey(this.rasterCache, this.dataSource);
+        }
+    }
+
+    protected static CacheListener addCacheKey(MemoryCache cache, Object key)
+    {
+        synchronized (cacheListeners)
+        {
+            CacheListener listener = cacheListeners.get(cache);
+            if (listener == null)
+            {
+                listener = new CacheListener();
+                cacheListeners.put(cache, listener);
+                cache.addCacheListener(listener);
+            }
+
+            listener.addKey(key);
+            return listener;
         }
     }
 
@@ -225,6 +258,26 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
         return this.dataReader;
     }
 
+    /**
+     * Returns the statistics this raster records its decode and resampling times to.
+     *
+     * @return the statistics, or null if no statistics are recorded.
+     */
+    public RasterProductionStatistics getStatistics()
+    {
+        return this.statistics;
+    }
+
+    /**
+     * Specifies the statistics this raster records its decode and resampling times to.
+     *
+     * @param statistics the statistics. May be null, in which case no statistics are recorded.
+     */
+    public void setStatistics(RasterProductionStatistics statistics)
+    {
+        this.statistics = statistics;
+    }
+
     public void dispose()
     {
         String message = Logging.getMessage("generic.ExceptionWhileDisposing", this.dataSource);
@@ -246,6 +299,7 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
             if (this.rasterCache == null || !this.rasterCache.contains(this.dataSource))
             {
                 long memoryDelta = 0L;
+                long startTime = System.nanoTime();
 
                 try
                 {
@@ -278,11 +332,18 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
                 }
                 finally
                 {
-                    // Add rasters to the cache, even if "rasters" is null to prevent multiple failed reads.
+                    if (this.statistics != null)
+                        this.statistics.addDecode(this.dataReader, System.nanoTime() - startTime);
+
+                    // Add rasters to the cache, even if "rasters" is null to prevent multiple failed reads. Size the
+                    // entry by what the reader's rasters report they hold. The change in used heap memory is only a
+                    // fallback for rasters that do not report their size, since it also counts allocations made by
+                    // other threads producing tiles concurrently.
                     if (this.rasterCache != null)
                     {
                         long totalBytes = getSizeInBytes(rasters);
-                        totalBytes = (memoryDelta > totalBytes) ? memoryDelta : totalBytes;
+                        if (totalBytes <= 0L)
+                            totalBytes = memoryDelta;
                         if (totalBytes > 0L)
                             this.rasterCache.add(this.dataSource, rasters, totalBytes);
                     }
@@ -306,14 +367,14 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
         {
             try
             {
+                if (this.drawWindowOnTo(canvas))
+                    return;
+
                 DataRaster[] rasters;
                 try
                 {
                     rasters = this.getDataRasters();
-                    for (DataRaster raster : rasters)
-                    {
-                        raster.drawOnTo(canvas);
-                    }
+                    this.drawRastersOnTo(rasters, canvas);
                 }
                 catch (OutOfMemoryError e)
                 {
@@ -321,10 +382,7 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
                     this.releaseMemory();
 
                     rasters = this.getDataRasters();
-                    for (DataRaster raster : rasters)
-                    {
-                        raster.drawOnTo(canvas);
-                    }
+                    this.drawRastersOnTo(rasters, canvas);
                 }
             }
             catch (Throwable t)
@@ -335,6 +393,104 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
         }
     }
 
+    /**
+     * Draws an elevation GeoTIFF onto a canvas by reading only the part of the file that covers the canvas, at the
+     * coarsest of the file's resolutions that still satisfies the canvas's resolution. This avoids decoding and
+     * caching the whole image when tiles are produced from a large or cloud optimized GeoTIFF. Does nothing if the
+     * source's rasters are already in the cache, or the source is not an elevation GeoTIFF.
+     * <p>
+     * The GeoTIFF reader is opened on the first draw and reused by later draws. It is closed once the source's rasters
+     * are in the cache, and when memory is released.
+     *
+     * @param canvas the raster to draw onto.
+     *
+     * @return true if the canvas was drawn or does not intersect the source, otherwise false.
+     *
+     * @throws IOException if the source cannot be read.
+     */
+    protected boolean drawWindowOnTo(DataRaster canvas) throws IOException
+    {
+        if (!(this.dataReader instanceof GeotiffRasterReader) || !AVKey.ELEVATION.equals(
+            this.getValue(AVKey.PIXEL_FORMAT)))
+            return false;
+
+        if (canvas.getSector() == null || canvas.getHeight() <= 0)
+            return false;
+
+        if (this.rasterCache != null && this.rasterCache.contains(this.dataSource))
+        {
+            this.closeWindowReader();
+            return false;
+        }
+
+        if (this.getSector() != null && !this.getSector().intersects(canvas.getSector()))
+            return true;
+
+        long startTime = System.nanoTime();
+        double resolution = canvas.getSector().getDeltaLatRadians() / canvas.getHeight();
+        DataRaster window = ((GeotiffRasterReader) this.dataReader).readElevations(this.getWindowReader(),
+            canvas.getSector(), resolution, this);
+
+        if (this.statistics != null)
+            this.statistics.addDecode(this.dataReader, System.nanoTime() - startTime);
+
+        if (window == null)
+            return false;
+
+        this.drawRastersOnTo(new DataRaster[] {window}, canvas);
+        window.dispose();
+
+        return true;
+    }
+
+    /**
+     * Returns the reader used to draw windows of this raster's GeoTIFF, opening it if it is not already open. Called
+     * only while holding <code>rasterUsageLock</code>.
+     *
+     * @return the open reader.
+     *
+     * @throws IOException if the source cannot be opened.
+     */
+    protected GeotiffReader getWindowReader() throws IOException
+    {
+        if (this.windowReader == null)
+        {
+            String path = WWIO.getSourcePath(this.dataSource);
+            if (path == null)
+            {
+                String message = Logging.getMessage("DataRaster.CannotRead", this.dataSource);
+                Logging.logger().severe(message);
+                throw new IOException(message);
+            }
+
+            this.windowReader = new GeotiffReader(path);
+        }
+
+        return this.windowReader;
+    }
+
+    protected void closeWindowReader()
+    {
+        if (this.windowReader != null)
+        {
+            this.windowReader.close();
+            this.windowReader = null;
+        }
+    }
+
+    protected void drawRastersOnTo(DataRaster[] rasters, DataRaster canvas)
+    {
+        long startTime = System.nanoTime();
+
+        for (DataRaster raster : rasters)
+        {
+            raster.drawOnTo(canvas);
+        }
+
+        if (this.statistics != null)
+            this.statistics.addResample(System.nanoTime() - startTime);
+    }
+
     public DataRaster getSubRaster(AVList params)
     {
         synchronized (this.rasterUsageLock)
@@ -383,6 +539,8 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
 
     protected void releaseMemory()
     {
+        this.closeWindowReader();
+
         if (this.rasterCache != null)
             this.rasterCache.clear();
 
@@ -432,18 +590,24 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
         }
     }
 
-    private static class CacheListener implements MemoryCache.CacheListener
+    protected static class CacheListener implements MemoryCache.CacheListener
     {
-        private Object key;
+        // Keys are data sources, compared by identity as each cached data raster uses its own source as its key.
+        protected final Set<Object> keys = Collections.synchronizedSet(
+            Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+
+        protected CacheListener()
+        {
+        }
 
-        private CacheListener(Object key)
+        protected void addKey(Object key)
         {
-            this.key = key;
+            this.keys.add(key);
         }
 
         public void entryRemoved(Object key, Object clientObject)
         {
-            if (key != this.key)
+            if (!this.keys.contains(key))
                 return;
 
             if (clientObject == null || !(clientObject instanceof DataRaster[]))
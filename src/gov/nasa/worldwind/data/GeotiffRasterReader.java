@@ -124,6 +124,113 @@ public class GeotiffRasterReader extends AbstractDataRasterReader
         return rasters;
     }
 
+    /**
+     * Reads the part of an elevation GeoTIFF that covers a sector. The image read is the coarsest of the file's full
+     * resolution image and its reduced resolution versions that still satisfies the specified resolution, and only
+     * the strips or tiles of that image that intersect the sector are decoded.
+     *
+     * @param source     the GeoTIFF to read.
+     * @param sector     the sector to read.
+     * @param resolution the desired pixel size, in radians of latitude.
+     * @param params     parameters to copy to the returned raster. May be null.
+     *
+     * @return a raster containing the elevations covering the sector, or null if the source is not an elevation
+     *         raster or the sector does not intersect it.
+     *
+     * @throws IllegalArgumentException if the source or sector is null.
+     * @throws java.io.IOException      if the source cannot be read.
+     */
+    public DataRaster readElevations(Object source, Sector sector, double resolution, AVList params)
+        throws java.io.IOException
+    {
+        if (source == null)
+        {
+            String message = Logging.getMessage("nullValue.SourceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        String path = WWIO.getSourcePath(source);
+        if (path == null)
+        {
+            String message = Logging.getMessage("DataRaster.CannotRead", source);
+            Logging.logger().severe(message);
+            throw new java.io.IOException(message);
+        }
+
+        GeotiffReader reader = null;
+        try
+        {
+            reader = new GeotiffReader(path);
+
+            return this.readElevations(reader, sector, resolution, params);
+        }
+        finally
+        {
+            if (reader != null)
+            {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Reads the elevations covering a sector from an open GeoTIFF reader, as {@link #readElevations(Object, Sector,
+     * double, AVList)} does. Callers reading many windows of the same file keep one reader open across calls, so the
+     * file's directories are parsed and the file is mapped only once. The reader is not closed.
+     *
+     * @param reader     an open reader of the GeoTIFF to read.
+     * @param sector     the sector to read.
+     * @param resolution the desired pixel size, in radians of latitude.
+     * @param params     parameters to copy to the returned raster. May be null.
+     *
+     * @return a raster containing the elevations covering the sector, or null if the source is not an elevation
+     *         raster or the sector does not intersect it.
+     *
+     * @throws IllegalArgumentException if the reader or sector is null.
+     * @throws java.io.IOException      if the source cannot be read.
+     */
+    public DataRaster readElevations(GeotiffReader reader, Sector sector, double resolution, AVList params)
+        throws java.io.IOException
+    {
+        if (reader == null)
+        {
+            String message = Logging.getMessage("nullValue.ReaderIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        AVList metadata = reader.copyMetadataTo(new AVListImpl());
+        if (!AVKey.ELEVATION.equals(metadata.getValue(AVKey.PIXEL_FORMAT))
+            || !(metadata.getValue(AVKey.SECTOR) instanceof Sector))
+        {
+            return null;
+        }
+
+        DataRaster raster = reader.readDataRaster(reader.getImageIndexForResolution(resolution), sector);
+        if (raster != null && params != null)
+        {
+            WWUtil.copyValues(params, raster, new String[] {AVKey.MISSING_DATA_SIGNAL,
+                AVKey.MISSING_DATA_REPLACEMENT, AVKey.ELEVATION_UNIT}, false);
+        }
+
+        return raster;
+    }
+
     protected void doReadMetadata(Object source, AVList params) throws java.io.IOException
     {
         String path = WWIO.getSourcePath(source);
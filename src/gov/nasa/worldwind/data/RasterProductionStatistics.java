@@ -0,0 +1,181 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.data;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the time a {@link TiledRasterProducer} spends finding the source rasters that intersect each tile,
+ * decoding source rasters, and resampling source rasters into tiles. Decode time is also accumulated per reader class.
+ * Instances may be updated concurrently by multiple production threads.
+ *
+ * @version $Id$
+ */
+public class RasterProductionStatistics
+{
+    protected final AtomicLong lookupCount = new AtomicLong();
+    protected final AtomicLong lookupNanos = new AtomicLong();
+    protected final AtomicLong decodeCount = new AtomicLong();
+    protected final AtomicLong decodeNanos = new AtomicLong();
+    protected final AtomicLong resampleCount = new AtomicLong();
+    protected final AtomicLong resampleNanos = new AtomicLong();
+    protected final Map<String, long[]> readerDecodes = new TreeMap<String, long[]>(); // count and nanoseconds
+
+    public RasterProductionStatistics()
+    {
+    }
+
+    /**
+     * Records one lookup of the source rasters intersecting a tile.
+     *
+     * @param nanos the lookup time, in nanoseconds.
+     */
+    public void addLookup(long nanos)
+    {
+        this.lookupCount.incrementAndGet();
+        this.lookupNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Records one decode of a source raster.
+     *
+     * @param reader the reader that decoded the raster. May be null.
+     * @param nanos  the decode time, in nanoseconds.
+     */
+    public void addDecode(DataRasterReader reader, long nanos)
+    {
+        this.decodeCount.incrementAndGet();
+        this.decodeNanos.addAndGet(nanos);
+
+        String name = reader != null ? reader.getClass().getSimpleName() : "";
+        synchronized (this.readerDecodes)
+        {
+            long[] entry = this.readerDecodes.get(name);
+            if (entry == null)
+            {
+                entry = new long[2];
+                this.readerDecodes.put(name, entry);
+            }
+            entry[0]++;
+            entry[1] += nanos;
+        }
+    }
+
+    /**
+     * Records one resampling of a source raster into a tile raster.
+     *
+     * @param nanos the resampling time, in nanoseconds.
+     */
+    public void addResample(long nanos)
+    {
+        this.resampleCount.incrementAndGet();
+        this.resampleNanos.addAndGet(nanos);
+    }
+
+    public long getLookupCount()
+    {
+        return this.lookupCount.get();
+    }
+
+    public long getLookupNanos()
+    {
+        return this.lookupNanos.get();
+    }
+
+    public long getDecodeCount()
+    {
+        return this.decodeCount.get();
+    }
+
+    public long getDecodeNanos()
+    {
+        return this.decodeNanos.get();
+    }
+
+    public long getResampleCount()
+    {
+        return this.resampleCount.get();
+    }
+
+    public long getResampleNanos()
+    {
+        return this.resampleNanos.get();
+    }
+
+    /**
+     * Returns the number of decodes and the decode time for each reader class.
+     *
+     * @return a map from reader class name to a two-element array holding the number of decodes and the total decode
+     * time in nanoseconds.
+     */
+    public Map<String, long[]> getReaderDecodes()
+    {
+        Map<String, long[]> map = new TreeMap<String, long[]>();
+        synchronized (this.readerDecodes)
+        {
+            for (Map.Entry<String, long[]> entry : this.readerDecodes.entrySet())
+            {
+                map.put(entry.getKey(), entry.getValue().clone());
+            }
+        }
+        return map;
+    }
+
+    /** Resets all counters to zero. */
+    public void clear()
+    {
+        this.lookupCount.set(0);
+        this.lookupNanos.set(0);
+        this.decodeCount.set(0);
+        this.decodeNanos.set(0);
+        this.resampleCount.set(0);
+        this.resampleNanos.set(0);
+        synchronized (this.readerDecodes)
+        {
+            this.readerDecodes.clear();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("lookup %d in %.1f ms, decode %d in %.1f ms, resample %d in %.1f ms",
+            this.getLookupCount(), this.getLookupNanos() / 1e6, this.getDecodeCount(), this.getDecodeNanos() / 1e6,
+            this.getResampleCount(), this.getResampleNanos() / 1e6));
+
+        for (Map.Entry<String, long[]> entry : this.getReaderDecodes().entrySet())
+        {
+            sb.append(String.format(", %s %d in %.1f ms", entry.getKey(), entry.getValue()[0],
+                entry.getValue()[1] / 1e6));
+        }
+
+        return sb.toString();
+    }
+}
@@ -330,7 +330,7 @@ public class TiledElevationProducer extends TiledRasterProducer
         super.installTileRasterLater(levelSet, tile, tileRaster, params);
     }
 
-    protected void updateExtremeElevations(DataRaster raster)
+    protected synchronized void updateExtremeElevations(DataRaster raster)
     {
         if (!(raster instanceof BufferWrapperRaster))
         {
@@ -51,15 +51,26 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     private static final int DEFAULT_TILE_WIDTH_AND_HEIGHT = 512;
     private static final int DEFAULT_SINGLE_LEVEL_TILE_WIDTH_AND_HEIGHT = 512;
     private static final double DEFAULT_LEVEL_ZERO_TILE_DELTA = 36d;
+    private static final int DEFAULT_DATA_RASTER_INDEX_THRESHOLD = 8;
+    private static final int MAX_DATA_RASTER_INDEX_LEVELS = 10;
 
     // List of source data rasters.
     private java.util.List<DataRaster> dataRasterList = new java.util.ArrayList<DataRaster>();
+    // Spatial index of the data rasters, holding each raster's position in dataRasterList.
+    private BasicQuadTree<Integer> dataRasterIndex;
+    private final RasterProductionStatistics productionStatistics = new RasterProductionStatistics();
     // Data raster caching.
     private MemoryCache rasterCache;
     // Concurrent processing helper objects.
     private final java.util.concurrent.ExecutorService tileWriteService;
     private final java.util.concurrent.Semaphore tileWriteSemaphore;
     private final Object fileLock = new Object();
+    // Parallel pyramid construction.
+    private int parallelism;
+    private long memoryBudget;
+    private long memoryReserved;
+    private final Object memoryLock = new Object();
+    private volatile java.util.concurrent.ForkJoinPool productionPool;
     // Progress counters.
     private int tile;
     private int tileCount;
@@ -84,6 +95,9 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         this.rasterCache = cache;
         this.tileWriteService = this.createDefaultTileWriteService(writeThreadPoolSize);
         this.tileWriteSemaphore = new java.util.concurrent.Semaphore(writeThreadPoolSize, true);
+        this.parallelism = Configuration.getIntegerValue(AVKey.TILED_RASTER_PRODUCER_PARALLELISM, 1);
+        this.memoryBudget = Configuration.getLongValue(AVKey.TILED_RASTER_PRODUCER_MEMORY_BUDGET,
+            Runtime.getRuntime().maxMemory() / 4);
 
         try
         {
@@ -106,6 +120,17 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         return this.dataRasterList;
     }
 
+    /**
+     * Returns the time this producer has spent finding the data rasters intersecting each tile, decoding data rasters,
+     * and resampling data rasters into tiles.
+     *
+     * @return this producer's production statistics.
+     */
+    public RasterProductionStatistics getProductionStatistics()
+    {
+        return this.productionStatistics;
+    }
+
     protected DataRasterReaderFactory getReaderFactory()
     {
         return this.readerFactory;
@@ -176,6 +201,78 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         }
     }
 
+    /**
+     * Indicates the number of threads with which this producer builds the tile pyramid.
+     *
+     * @return the number of threads, or 0 to use one thread per available processor.
+     *
+     * @see #setParallelism(int)
+     */
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * Specifies the number of threads with which this producer builds the tile pyramid. When more than one thread is
+     * used, sibling sub-trees of the pyramid are built concurrently as fork-join tasks, and each tile is written by the
+     * thread that built it. A value of 1 builds the pyramid depth-first on the production thread and writes tiles on
+     * the tile write service, and is the default. The initial value is taken from the configuration value for {@link
+     * AVKey#TILED_RASTER_PRODUCER_PARALLELISM}, and is 1 if that is not specified.
+     *
+     * @param parallelism the number of threads, or 0 to use one thread per available processor.
+     *
+     * @throws IllegalArgumentException if the parallelism is negative.
+     */
+    public void setParallelism(int parallelism)
+    {
+        if (parallelism < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "parallelism < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Indicates the approximate number of bytes that tile rasters under construction may occupy when the pyramid is
+     * built by more than one thread.
+     *
+     * @return the memory budget, in bytes.
+     *
+     * @see #setMemoryBudget(long)
+     */
+    public long getMemoryBudget()
+    {
+        return this.memoryBudget;
+    }
+
+    /**
+     * Specifies the approximate number of bytes that tile rasters under construction may occupy when the pyramid is
+     * built by more than one thread. Before a sub-tree is built concurrently with its siblings, the memory it may
+     * require is reserved from this budget. When the budget is exhausted, further sub-trees are built depth-first by
+     * the thread that reached them, and further top-level tiles wait until memory is released. The initial value is
+     * taken from the configuration value for {@link AVKey#TILED_RASTER_PRODUCER_MEMORY_BUDGET}, and is one quarter of
+     * the maximum heap size if that is not specified.
+     *
+     * @param budget the memory budget, in bytes.
+     *
+     * @throws IllegalArgumentException if the budget is less than 1.
+     */
+    public void setMemoryBudget(long budget)
+    {
+        if (budget < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "budget < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.memoryBudget = budget;
+    }
+
     protected abstract DataRaster createDataRaster(int width, int height, Sector sector, AVList params);
 
     protected abstract DataRasterReader[] getDataRasterReaders();
@@ -203,8 +300,10 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         this.productionParams = parameters.copy();
         this.initProductionParameters(this.productionParams);
 
-        // Assemble the source data rasters.
+        // Assemble the source data rasters, and index them by sector.
+        this.productionStatistics.clear();
         this.assembleDataRasters();
+        this.dataRasterIndex = this.buildDataRasterIndex(this.dataRasterList);
 
         // Initialize the level set parameters, and create the level set.
         this.initLevelSetParameters(this.productionParams);
@@ -217,6 +316,10 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
 
         // Clear the raster cache.
         this.getCache().clear();
+        this.dataRasterIndex = null;
+
+        Logging.logger().fine(Logging.getMessage("TiledRasterProducer.ProductionStatistics",
+            this.productionParams.getValue(AVKey.DATASET_NAME), this.productionStatistics));
 
         // Install the data descriptor for this tiled raster set.
         this.installConfigFile(this.productionParams);
@@ -500,10 +603,51 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         else
         {
             DataRasterReader reader = this.readerFactory.findReaderFor(source, params, this.getDataRasterReaders());
-            this.dataRasterList.add(new CachedDataRaster(source, params, reader, this.getCache()));
+            CachedDataRaster raster = new CachedDataRaster(source, params, reader, this.getCache());
+            raster.setStatistics(this.productionStatistics);
+            this.dataRasterList.add(raster);
         }
     }
 
+    /**
+     * Creates a quadtree indexing the specified data rasters by sector. The tree's items are the rasters' positions in
+     * the list, so that rasters found in the tree can be drawn in their original order. The tree's depth is chosen so
+     * that its smallest cells are about the size of an average raster.
+     *
+     * @param rasters the data rasters to index.
+     *
+     * @return the data raster index, or null if there are too few rasters to benefit from an index.
+     */
+    protected BasicQuadTree<Integer> buildDataRasterIndex(java.util.List<DataRaster> rasters)
+    {
+        if (rasters.size() < DEFAULT_DATA_RASTER_INDEX_THRESHOLD)
+            return null;
+
+        Sector sector = this.computeBoundingSector(rasters);
+        if (sector == null || sector.getDeltaLatDegrees() <= 0 || sector.getDeltaLonDegrees() <= 0)
+            return null;
+
+        double meanDelta = 0;
+        for (DataRaster raster : rasters)
+        {
+            meanDelta += Math.max(raster.getSector().getDeltaLatDegrees(), raster.getSector().getDeltaLonDegrees());
+        }
+        meanDelta /= rasters.size();
+
+        double maxDelta = Math.max(sector.getDeltaLatDegrees(), sector.getDeltaLonDegrees());
+        int numLevels = meanDelta > 0 ? 1 + (int) Math.ceil(WWMath.logBase2(maxDelta / meanDelta)) : 1;
+        numLevels = WWMath.clamp(numLevels, 1, MAX_DATA_RASTER_INDEX_LEVELS);
+
+        // Rasters spanning several cells are added to each of them, and are found once per query by the item set.
+        BasicQuadTree<Integer> index = new BasicQuadTree<Integer>(numLevels, sector, null);
+        for (int i = 0; i < rasters.size(); i++)
+        {
+            index.add(i, rasters.get(i).getSector().asDegreesArray());
+        }
+
+        return index;
+    }
+
     protected static MemoryCache createDefaultCache()
     {
         long cacheSize = Configuration.getLongValue(AVKey.TILED_RASTER_PRODUCER_CACHE_SIZE,
@@ -537,32 +681,321 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         int lastRow = Tile.computeRow(dLat, sector.getMaxLatitude(), latOrigin);
         int lastCol = Tile.computeColumn(dLon, sector.getMaxLongitude(), lonOrigin);
 
-        buildLoop:
+        java.util.List<Tile> tiles = new java.util.ArrayList<Tile>();
+        Angle p1 = Tile.computeRowLatitude(firstRow, dLat, latOrigin);
+        for (int row = firstRow; row <= lastRow; row++)
+        {
+            Angle p2 = p1.add(dLat);
+            Angle t1 = Tile.computeColumnLongitude(firstCol, dLon, lonOrigin);
+            for (int col = firstCol; col <= lastCol; col++)
+            {
+                Angle t2 = t1.add(dLon);
+                tiles.add(new Tile(new Sector(p1, p2, t1, t2), level, row, col));
+                t1 = t2;
+            }
+            p1 = p2;
+        }
+
+        int threads = this.parallelism > 0 ? this.parallelism : Runtime.getRuntime().availableProcessors();
+        if (threads > 1)
+        {
+            this.installTilesInParallel(levelSet, tiles, params, threads);
+            return;
+        }
+
+        for (Tile tile : tiles)
+        {
+            // Exit if the caller has instructed us to stop production.
+            Thread.yield();
+            if (this.isStopped())
+                break;
+
+            DataRaster tileRaster = this.createTileRaster(levelSet, tile, params);
+            // Write the top-level tile raster to disk.
+            if (tileRaster != null)
+                this.installTileRasterLater(levelSet, tile, tileRaster, params);
+        }
+    }
+
+    /**
+     * Builds and installs the sub-trees of a set of top-level tiles on a fork-join pool of a specified number of
+     * threads. A top-level tile is submitted only when the memory its sub-tree may require fits within the memory
+     * budget, or when no other sub-tree is under construction.
+     *
+     * @param levelSet the level set being installed.
+     * @param tiles    the top-level tiles.
+     * @param params   the installation parameters.
+     * @param threads  the number of threads to build with.
+     *
+     * @throws java.io.IOException if building or installing a tile fails.
+     */
+    protected void installTilesInParallel(LevelSet levelSet, java.util.List<Tile> tiles, AVList params, int threads)
+        throws java.io.IOException
+    {
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(threads);
+        java.util.List<java.util.concurrent.ForkJoinTask<DataRaster>> tasks =
+            new java.util.ArrayList<java.util.concurrent.ForkJoinTask<DataRaster>>(tiles.size());
+        this.productionPool = pool;
+
+        try
         {
-            Angle p1 = Tile.computeRowLatitude(firstRow, dLat, latOrigin);
-            for (int row = firstRow; row <= lastRow; row++)
+            for (Tile tile : tiles)
+            {
+                // Exit if the caller has instructed us to stop production.
+                if (this.isStopped())
+                    break;
+
+                long size = this.estimateSubTreeMemory(levelSet, tile, params);
+                if (!this.reserveMemory(size, true))
+                    break;
+
+                tasks.add(pool.submit(new TileRasterTask(this, levelSet, tile, params, true, size)));
+            }
+
+            for (java.util.concurrent.ForkJoinTask<DataRaster> task : tasks)
             {
-                Angle p2 = p1.add(dLat);
-                Angle t1 = Tile.computeColumnLongitude(firstCol, dLon, lonOrigin);
-                for (int col = firstCol; col <= lastCol; col++)
+                try
                 {
-                    // Exit if the caller has instructed us to stop production.
-                    Thread.yield();
-                    if (this.isStopped())
-                        break buildLoop;
+                    task.get();
+                }
+                catch (java.util.concurrent.ExecutionException e)
+                {
+                    for (Throwable t = e.getCause(); t != null; t = t.getCause())
+                    {
+                        if (t instanceof java.io.IOException)
+                            throw (java.io.IOException) t;
+                    }
+                    throw new WWRuntimeException(e.getCause());
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            String msg = Logging.getMessage("generic.interrupted", this.getClass().getName(),
+                "installTilesInParallel()");
+            Logging.logger().finest(msg);
+            // Don't swallow interrupts; instead, restore the interrupted status
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            this.productionPool = null;
+            pool.shutdownNow();
+        }
+    }
 
-                    Angle t2 = t1.add(dLon);
+    /**
+     * Builds the raster of a tile, and optionally installs it, on the production fork-join pool. Memory reserved for
+     * the tile's sub-tree is released when the task completes.
+     */
+    @SuppressWarnings("serial")
+    protected static class TileRasterTask extends java.util.concurrent.RecursiveTask<DataRaster>
+    {
+        protected final TiledRasterProducer producer;
+        protected final LevelSet levelSet;
+        protected final Tile tile;
+        protected final AVList params;
+        protected final boolean install;
+        protected final long reservedMemory;
+
+        public TileRasterTask(TiledRasterProducer producer, LevelSet levelSet, Tile tile, AVList params,
+            boolean install, long reservedMemory)
+        {
+            this.producer = producer;
+            this.levelSet = levelSet;
+            this.tile = tile;
+            this.params = params;
+            this.install = install;
+            this.reservedMemory = reservedMemory;
+        }
 
-                    Tile tile = new Tile(new Sector(p1, p2, t1, t2), level, row, col);
-                    DataRaster tileRaster = this.createTileRaster(levelSet, tile, params);
-                    // Write the top-level tile raster to disk.
-                    if (tileRaster != null)
-                        this.installTileRasterLater(levelSet, tile, tileRaster, params);
+        @Override
+        protected DataRaster compute()
+        {
+            try
+            {
+                DataRaster tileRaster = this.producer.createTileRaster(this.levelSet, this.tile, this.params);
+                if (!this.install || tileRaster == null)
+                    return tileRaster;
 
-                    t1 = t2;
+                this.producer.installTileRasterLater(this.levelSet, this.tile, tileRaster, this.params);
+                return null;
+            }
+            catch (java.io.IOException e)
+            {
+                throw new WWRuntimeException(e);
+            }
+            finally
+            {
+                this.producer.releaseMemory(this.reservedMemory);
+            }
+        }
+    }
+
+    /**
+     * Estimates the peak memory required to build a tile's sub-tree depth-first: the tile's own raster and the rasters
+     * of up to four sub-tiles at each level beneath it.
+     *
+     * @param levelSet the level set being installed.
+     * @param tile     the sub-tree's root tile.
+     * @param params   the installation parameters.
+     *
+     * @return the estimated peak memory, in bytes.
+     */
+    protected long estimateSubTreeMemory(LevelSet levelSet, Tile tile, AVList params)
+    {
+        long size = this.estimateTileRasterSize(tile.getLevel(), params);
+
+        for (int levelNumber = tile.getLevelNumber(); !this.isFinalLevel(levelSet, levelNumber, params);
+            levelNumber++)
+        {
+            size += 4 * this.estimateTileRasterSize(levelSet.getLevel(levelNumber + 1), params);
+        }
+
+        return size;
+    }
+
+    /**
+     * Estimates the memory occupied by a tile raster of a specified level. This returns the level's tile dimensions
+     * times four bytes per pixel, which is an upper bound for the rasters created by the image and elevation
+     * producers.
+     *
+     * @param level  the tile's level.
+     * @param params the installation parameters.
+     *
+     * @return the estimated memory, in bytes.
+     */
+    protected long estimateTileRasterSize(Level level, AVList params)
+    {
+        return 4L * level.getTileWidth() * level.getTileHeight();
+    }
+
+    /**
+     * Reserves memory from the memory budget. A reservation always succeeds when nothing else is reserved, so that
+     * production progresses when a single sub-tree exceeds the budget.
+     *
+     * @param size the number of bytes to reserve.
+     * @param wait true to wait until the memory is available or production is stopped, false to return immediately.
+     *
+     * @return true if the memory was reserved, otherwise false.
+     *
+     * @throws InterruptedException if waiting is interrupted.
+     */
+    protected boolean reserveMemory(long size, boolean wait) throws InterruptedException
+    {
+        synchronized (this.memoryLock)
+        {
+            while (this.memoryReserved > 0 && this.memoryReserved + size > this.memoryBudget)
+            {
+                if (!wait || this.isStopped())
+                    return false;
+
+                this.memoryLock.wait(1000L); // wake periodically to observe stopProduction
+            }
+
+            this.memoryReserved += size;
+            return true;
+        }
+    }
+
+    /**
+     * Returns memory to the memory budget.
+     *
+     * @param size the number of bytes to release.
+     */
+    protected void releaseMemory(long size)
+    {
+        if (size == 0)
+            return;
+
+        synchronized (this.memoryLock)
+        {
+            this.memoryReserved -= size;
+            this.memoryLock.notifyAll();
+        }
+    }
+
+    /**
+     * Creates the rasters of a tile's sub-tiles. When called on the production fork-join pool, and memory for the
+     * additional concurrent sub-trees is available in the budget, the sub-tiles are built concurrently. Otherwise they
+     * are built one after another on the current thread.
+     *
+     * @param levelSet the level set being installed.
+     * @param subTiles the sub-tiles.
+     * @param params   the installation parameters.
+     *
+     * @return the sub-tile rasters, in the order of the sub-tiles. An element is null if its sub-tile does not
+     * intersect the level set or its raster could not be created.
+     *
+     * @throws java.io.IOException if building a sub-tile raster fails.
+     */
+    protected DataRaster[] createSubTileRasters(LevelSet levelSet, Tile[] subTiles, AVList params)
+        throws java.io.IOException
+    {
+        DataRaster[] subRasters = new DataRaster[subTiles.length];
+
+        int numIntersecting = 0;
+        for (Tile subTile : subTiles)
+        {
+            // If the sub-tile does not intersect the level set, then skip that sub-tile.
+            if (subTile.getSector().intersects(levelSet.getSector()))
+                numIntersecting++;
+        }
+
+        // The current thread would build one sub-tree anyway, so reserve memory only for the others.
+        long size = 0;
+        boolean parallel = false;
+        java.util.concurrent.ForkJoinPool pool = this.productionPool;
+        if (numIntersecting > 1 && pool != null && java.util.concurrent.ForkJoinTask.getPool() == pool)
+        {
+            size = (numIntersecting - 1) * this.estimateSubTreeMemory(levelSet, subTiles[0], params);
+            try
+            {
+                parallel = this.reserveMemory(size, false);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt(); // not reached when not waiting
+            }
+        }
+
+        if (!parallel)
+        {
+            for (int index = 0; index < subTiles.length; index++)
+            {
+                if (subTiles[index].getSector().intersects(levelSet.getSector()))
+                    subRasters[index] = this.createTileRaster(levelSet, subTiles[index], params);
+            }
+
+            return subRasters;
+        }
+
+        try
+        {
+            java.util.List<TileRasterTask> tasks = new java.util.ArrayList<TileRasterTask>(numIntersecting);
+            TileRasterTask[] taskForTile = new TileRasterTask[subTiles.length];
+            for (int index = 0; index < subTiles.length; index++)
+            {
+                if (subTiles[index].getSector().intersects(levelSet.getSector()))
+                {
+                    taskForTile[index] = new TileRasterTask(this, levelSet, subTiles[index], params, false, 0);
+                    tasks.add(taskForTile[index]);
                 }
-                p1 = p2;
             }
+
+            java.util.concurrent.ForkJoinTask.invokeAll(tasks);
+
+            for (int index = 0; index < subTiles.length; index++)
+            {
+                if (taskForTile[index] != null)
+                    subRasters[index] = taskForTile[index].join();
+            }
+
+            return subRasters;
+        }
+        finally
+        {
+            this.releaseMemory(size);
         }
     }
 
@@ -596,12 +1029,14 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         DataRaster tileRaster = null;
 
         // Find the data sources that intersect this tile and intersect the LevelSet sector.
+        long startTime = System.nanoTime();
         java.util.ArrayList<DataRaster> intersectingRasters = new java.util.ArrayList<DataRaster>();
-        for (DataRaster raster : dataRasters)
+        for (DataRaster raster : this.findIntersectingRasters(tile.getSector(), dataRasters))
         {
             if (raster.getSector().intersects(tile.getSector()) && raster.getSector().intersects(levelSet.getSector()))
                 intersectingRasters.add(raster);
         }
+        this.productionStatistics.addLookup(System.nanoTime() - startTime);
 
         // If any data sources intersect this tile, and the tile's level is not empty, then we attempt to read those
         // sources and render them into this tile.
@@ -610,10 +1045,20 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
             // Create the tile raster to render into.
             tileRaster = this.createDataRaster(tile.getLevel().getTileWidth(), tile.getLevel().getTileHeight(),
                 tile.getSector(), params);
-            // Render each data source raster into the tile raster.
+            // Render each data source raster into the tile raster. Cached data rasters record their own resampling
+            // time, which excludes the time spent decoding the source.
             for (DataRaster raster : intersectingRasters)
             {
-                raster.drawOnTo(tileRaster);
+                if (raster instanceof CachedDataRaster)
+                {
+                    raster.drawOnTo(tileRaster);
+                }
+                else
+                {
+                    startTime = System.nanoTime();
+                    raster.drawOnTo(tileRaster);
+                    this.productionStatistics.addResample(System.nanoTime() - startTime);
+                }
             }
         }
 
@@ -625,28 +1070,48 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         return tileRaster;
     }
 
+    /**
+     * Returns the data rasters that may intersect a sector, in their original order. When the rasters are this
+     * producer's data rasters, candidates are found in the data raster index. Otherwise, or if there is no index, the
+     * specified rasters are returned unchanged. Callers must test the returned rasters for intersection with the
+     * sector.
+     *
+     * @param sector      the sector of interest.
+     * @param dataRasters the data rasters to search.
+     *
+     * @return the data rasters that may intersect the sector.
+     */
+    protected Iterable<DataRaster> findIntersectingRasters(Sector sector, Iterable<DataRaster> dataRasters)
+    {
+        BasicQuadTree<Integer> index = this.dataRasterIndex;
+        if (index == null || dataRasters != this.dataRasterList)
+            return dataRasters;
+
+        java.util.Set<Integer> items = index.getItemsInRegion(sector, new java.util.HashSet<Integer>());
+        Integer[] indices = items.toArray(new Integer[items.size()]);
+        java.util.Arrays.sort(indices);
+
+        java.util.ArrayList<DataRaster> rasters = new java.util.ArrayList<DataRaster>(indices.length);
+        for (Integer i : indices)
+        {
+            rasters.add(this.dataRasterList.get(i));
+        }
+
+        return rasters;
+    }
+
     protected DataRaster drawDescendants(LevelSet levelSet, Tile tile, AVList params) throws java.io.IOException
     {
         DataRaster tileRaster = null;
         boolean hasDescendants = false;
 
-        // Recursively create sub-tile rasters.
+        // Recursively create sub-tile rasters. If creating a sub-tile raster fails, then skip that sub-tile.
         Tile[] subTiles = this.createSubTiles(tile, levelSet.getLevel(tile.getLevelNumber() + 1));
-        DataRaster[] subRasters = new DataRaster[subTiles.length];
-        for (int index = 0; index < subTiles.length; index++)
+        DataRaster[] subRasters = this.createSubTileRasters(levelSet, subTiles, params);
+        for (DataRaster subRaster : subRasters)
         {
-            // If the sub-tile does not intersect the level set, then skip that sub-tile.
-            if (subTiles[index].getSector().intersects(levelSet.getSector()))
-            {
-                // Recursively create the sub-tile raster.
-                DataRaster subRaster = this.createTileRaster(levelSet, subTiles[index], params);
-                // If creating the sub-tile raster fails, then skip that sub-tile.
-                if (subRaster != null)
-                {
-                    subRasters[index] = subRaster;
-                    hasDescendants = true;
-                }
-            }
+            if (subRaster != null)
+                hasDescendants = true;
         }
 
         // Exit if the caller has instructed us to stop production.
@@ -820,6 +1285,14 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     protected void installTileRasterLater(final LevelSet levelSet, final Tile tile, final DataRaster tileRaster,
         final AVList params)
     {
+        // When the pyramid is built in parallel, the building threads write their own tiles. This keeps the writes
+        // as parallel as the builds, and frees each raster as soon as it's written.
+        if (this.productionPool != null)
+        {
+            this.installTileRasterNow(tile, tileRaster, params);
+            return;
+        }
+
         // TODO: comment
         // Try to acquire a permit from the tile write semaphore.
         this.getTileWriteSemaphore().acquireUninterruptibly();
@@ -828,22 +1301,27 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         {
             public void run()
             {
-                try
-                {
-                    installTileRaster(tile, tileRaster, params);
-                    // Dispose the data raster.
-                    if (tileRaster instanceof Disposable)
-                        ((Disposable) tileRaster).dispose();
-                }
-                catch (Throwable t)
-                {
-                    String message = Logging.getMessage("generic.ExceptionWhileWriting", tile);
-                    Logging.logger().log(java.util.logging.Level.SEVERE, message, t);
-                }
+                installTileRasterNow(tile, tileRaster, params);
             }
         });
     }
 
+    protected void installTileRasterNow(Tile tile, DataRaster tileRaster, AVList params)
+    {
+        try
+        {
+            this.installTileRaster(tile, tileRaster, params);
+            // Dispose the data raster.
+            if (tileRaster instanceof Disposable)
+                ((Disposable) tileRaster).dispose();
+        }
+        catch (Throwable t)
+        {
+            String message = Logging.getMessage("generic.ExceptionWhileWriting", tile);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, t);
+        }
+    }
+
     protected void installTileRasterComplete()
     {
         // TODO: comment
@@ -1249,13 +1727,13 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         }
     }
 
-    protected void startProgress()
+    protected synchronized void startProgress()
     {
         this.tile = 0;
         this.firePropertyChange(AVKey.PROGRESS, null, 0d);
     }
 
-    protected void updateProgress()
+    protected synchronized void updateProgress()
     {
         double oldProgress = this.tile / (double) this.tileCount;
         double newProgress = ++this.tile / (double) this.tileCount;
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.concurrent.*;
+
+/**
+ * Base class for DXT compressors that encode an image one row of 4x4 blocks at a time. Rows of blocks are independent,
+ * so large images are divided into ranges of rows that are compressed concurrently by fork-join tasks, each with its
+ * own color block, block compressor and color block extractor. Each task writes its blocks directly into the output
+ * buffer at the position of its first row, so parallel compression produces exactly the bytes of serial compression.
+ * Compressors hold no state between calls, and may compress several images concurrently.
+ *
+ * @version $Id$
+ */
+public abstract class AbstractDXTCompressor implements DXTCompressor
+{
+    /** The minimum number of 4x4 blocks compressed by each task when an image is compressed in parallel. */
+    protected static final int MIN_BLOCKS_PER_TASK = 4096;
+
+    /** Compresses a range of block rows, splitting the range among fork-join tasks. */
+    @SuppressWarnings("serial")
+    protected static class BlockRowAction extends RecursiveAction
+    {
+        protected final AbstractDXTCompressor compressor;
+        protected final java.awt.image.BufferedImage image;
+        protected final DXTCompressionAttributes attributes;
+        protected final java.nio.ByteBuffer buffer;
+        protected final int position; // buffer position of the image's first block row
+        protected final int firstRow;
+        protected final int lastRow; // exclusive
+        protected final int rowsPerTask;
+
+        public BlockRowAction(AbstractDXTCompressor compressor, java.awt.image.BufferedImage image,
+            DXTCompressionAttributes attributes, java.nio.ByteBuffer buffer, int position, int firstRow, int lastRow,
+            int rowsPerTask)
+        {
+            this.compressor = compressor;
+            this.image = image;
+            this.attributes = attributes;
+            this.buffer = buffer;
+            this.position = position;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.rowsPerTask = rowsPerTask;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.lastRow - this.firstRow > this.rowsPerTask)
+            {
+                int mid = (this.firstRow + this.lastRow) >>> 1;
+                invokeAll(
+                    new BlockRowAction(this.compressor, this.image, this.attributes, this.buffer, this.position,
+                        this.firstRow, mid, this.rowsPerTask),
+                    new BlockRowAction(this.compressor, this.image, this.attributes, this.buffer, this.position,
+                        mid, this.lastRow, this.rowsPerTask));
+                return;
+            }
+
+            // Write through a view of the buffer positioned at this range's first row. Views share the buffer's
+            // contents, but not its position or byte order.
+            java.nio.ByteBuffer view = this.buffer.duplicate();
+            view.order(this.buffer.order());
+            view.position(this.position + this.firstRow * this.compressor.getBlockRowSize(this.image));
+            this.compressor.compressBlockRows(this.image, this.attributes, view, this.firstRow, this.lastRow);
+        }
+    }
+
+    public void compressImage(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes,
+        java.nio.ByteBuffer buffer)
+    {
+        if (image == null)
+        {
+            String message = Logging.getMessage("nullValue.ImageIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (attributes == null)
+        {
+            String message = Logging.getMessage("nullValue.AttributesIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int position = buffer.position();
+        int numRows = (image.getHeight() + 3) / 4;
+        int blocksPerRow = (image.getWidth() + 3) / 4;
+        int rowsPerTask = Math.max(1, MIN_BLOCKS_PER_TASK / blocksPerRow);
+
+        if (attributes.isEnableParallelCompression() && numRows > rowsPerTask)
+        {
+            BlockRowAction action = new BlockRowAction(this, image, attributes, buffer, position, 0, numRows,
+                rowsPerTask);
+
+            // Tasks already running in a fork-join pool, such as the tasks compressing each mipmap level, compress
+            // their rows in that pool.
+            if (ForkJoinTask.inForkJoinPool())
+                action.invoke();
+            else
+                ForkJoinPool.commonPool().invoke(action);
+        }
+        else
+        {
+            this.compressBlockRows(image, attributes, buffer, 0, numRows);
+        }
+
+        buffer.position(position + numRows * this.getBlockRowSize(image));
+    }
+
+    /**
+     * Returns the number of bytes in one compressed 4x4 block.
+     *
+     * @return the compressed block size in bytes.
+     */
+    protected abstract int getBlockSize();
+
+    /**
+     * Returns the number of bytes in one compressed row of 4x4 blocks of the specified image.
+     *
+     * @param image the image to compress.
+     *
+     * @return the compressed size in bytes of one row of blocks.
+     */
+    protected int getBlockRowSize(java.awt.image.BufferedImage image)
+    {
+        return ((image.getWidth() + 3) / 4) * this.getBlockSize();
+    }
+
+    /**
+     * Compresses a range of rows of 4x4 blocks, and writes the compressed blocks to the buffer starting at its current
+     * position. This may be called concurrently for different ranges of rows of the same image.
+     *
+     * @param image      the image to compress.
+     * @param attributes the attributes that may affect the compression.
+     * @param buffer     the buffer that receives the compressed blocks.
+     * @param firstRow   the first block row to compress.
+     * @param lastRow    the block row following the last row to compress.
+     */
+    protected abstract void compressBlockRows(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes,
+        java.nio.ByteBuffer buffer, int firstRow, int lastRow);
+
+    protected ColorBlockExtractor getColorBlockExtractor(java.awt.image.BufferedImage image)
+    {
+        return new BasicColorBlockExtractor(image);
+    }
+}
@@ -31,8 +31,10 @@ import gov.nasa.worldwind.util.Logging;
 
 /**
  * Provides access to 4x4 blocks of pixel data from a <code>BufferedImage</code> via the
- * <code>ColorBlockExtractor</code> interface. This class is not thread safe. Unsynchronized access will result in
- * unpredictable behavior. Acces to methods of this class must be synchronized by the caller.
+ * <code>ColorBlockExtractor</code> interface. The extractor reads the four image rows spanned by a block with a single
+ * call to <code>image.getRGB()</code>, and reuses those rows for subsequent blocks in the same row of blocks. This
+ * class is not thread safe. Unsynchronized access will result in unpredictable behavior. Acces to methods of this class
+ * must be synchronized by the caller.
  *
  * @see java.awt.image.BufferedImage
  * 
@@ -44,7 +46,10 @@ public class BasicColorBlockExtractor implements ColorBlockExtractor
     protected int width;
     protected int height;
     protected java.awt.image.BufferedImage image;
-    private int[] buffer;
+    /** Pixels of the image rows spanned by the most recently extracted block, in INT_ARGB format. */
+    protected int[] rowBuffer;
+    /** The first image row held in the row buffer, or -1 if the row buffer is empty. */
+    protected int rowBufferY = -1;
 
     protected static int[] remainder =
     {
@@ -75,7 +80,6 @@ public class BasicColorBlockExtractor implements ColorBlockExtractor
         this.width = image.getWidth();
         this.height = image.getHeight();
         this.image = image;
-        this.buffer = new int[16];
     }
 
     /**
@@ -132,24 +136,33 @@ public class BasicColorBlockExtractor implements ColorBlockExtractor
         int blockPos = 0;
 
         // Extracts color data from the image in INT_ARGB format. So each integer in the buffer is a tightly packed
-        // 8888 ARGB int, where the color components are not considered to be premultiplied.
-        this.image.getRGB(x, y, bw, bh, this.buffer, 0, 4);
+        // 8888 ARGB int, where the color components are not considered to be premultiplied. Reading whole rows
+        // amortizes the cost of getRGB across the row of blocks.
+        if (this.rowBufferY != y)
+        {
+            if (this.rowBuffer == null)
+                this.rowBuffer = new int[4 * this.width];
+
+            this.image.getRGB(0, y, this.width, bh, this.rowBuffer, 0, this.width);
+            this.rowBufferY = y;
+        }
 
         for (int j = 0; j < 4; j++)
         {
             by = remainder[byOffset + j];
+            int rowPos = x + by * this.width;
 
             bx = remainder[bxOffset];
-            int32ToColor32(this.buffer[bx + by * 4], colorBlock.color[blockPos++]);
+            int32ToColor32(this.rowBuffer[rowPos + bx], colorBlock.color[blockPos++]);
 
             bx = remainder[bxOffset + 1];
-            int32ToColor32(this.buffer[bx + by * 4], colorBlock.color[blockPos++]);
+            int32ToColor32(this.rowBuffer[rowPos + bx], colorBlock.color[blockPos++]);
 
             bx = remainder[bxOffset + 2];
-            int32ToColor32(this.buffer[bx + by * 4], colorBlock.color[blockPos++]);
+            int32ToColor32(this.rowBuffer[rowPos + bx], colorBlock.color[blockPos++]);
 
             bx = remainder[bxOffset + 3];
-            int32ToColor32(this.buffer[bx + by * 4], colorBlock.color[blockPos++]);
+            int32ToColor32(this.rowBuffer[rowPos + bx], colorBlock.color[blockPos++]);
         }
 
         if (attributes.isPremultiplyAlpha())
@@ -30,6 +30,8 @@ package gov.nasa.worldwind.formats.dds;
 import gov.nasa.worldwind.util.*;
 
 import java.awt.image.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * DDSCompressor converts in-memory images into a DDS file encoded with one of the DXT block compression algorithms. If
@@ -38,13 +40,39 @@ import java.awt.image.*;
  * <p>
  * Each compression method accepts a reference to a {@link gov.nasa.worldwind.formats.dds.DXTCompressionAttributes}.
  * This compressor performs the appropriate actions according to the attributes, such as building mip maps and
- * converting the source image to a premultiplied alpha format.
+ * converting the source image to a premultiplied alpha format. When the attributes enable parallel compression, mip
+ * map levels are compressed concurrently, and each level's rows of blocks are divided among concurrent tasks.
  *
  * @author dcollins
  * @version $Id: DDSCompressor.java 1171 2013-02-11 21:45:02Z dcollins $
  */
 public class DDSCompressor
 {
+    /** Compresses one mip map level into its region of the DDS file. */
+    @SuppressWarnings("serial")
+    protected static class MipMapLevelAction extends RecursiveAction
+    {
+        protected final DXTCompressor compressor;
+        protected final java.awt.image.BufferedImage image;
+        protected final DXTCompressionAttributes attributes;
+        protected final java.nio.ByteBuffer buffer;
+
+        public MipMapLevelAction(DXTCompressor compressor, java.awt.image.BufferedImage image,
+            DXTCompressionAttributes attributes, java.nio.ByteBuffer buffer)
+        {
+            this.compressor = compressor;
+            this.image = image;
+            this.attributes = attributes;
+            this.buffer = buffer;
+        }
+
+        @Override
+        protected void compute()
+        {
+            this.compressor.compressImage(this.image, this.attributes, this.buffer);
+        }
+    }
+
     /** Creates a new DDSCompressor, but otherwise does nothing. */
     public DDSCompressor()
     {
@@ -561,6 +589,10 @@ public class DDSCompressor
         {
             compressor.compressImage(image, attributes, buffer);
         }
+        else if (attributes.isEnableParallelCompression())
+        {
+            this.compressMipMapLevels(compressor, mipMapLevels, attributes, buffer);
+        }
         else
         {
             for (java.awt.image.BufferedImage mipMapImage : mipMapLevels)
@@ -573,6 +605,44 @@ public class DDSCompressor
         return buffer;
     }
 
+    /**
+     * Compresses each mip map level concurrently, writing each level directly into its region of the DDS file. The
+     * levels are written in the same order and at the same positions as when they are compressed one after another,
+     * and the buffer's position is left following the last level.
+     *
+     * @param compressor   the compressor to use for each level.
+     * @param mipMapLevels the mip map levels, starting with level 0.
+     * @param attributes   attributes that control the compression.
+     * @param buffer       buffer that receives the compressed levels, positioned at the first level.
+     */
+    protected void compressMipMapLevels(DXTCompressor compressor, java.awt.image.BufferedImage[] mipMapLevels,
+        DXTCompressionAttributes attributes, java.nio.ByteBuffer buffer)
+    {
+        List<MipMapLevelAction> actions = new ArrayList<MipMapLevelAction>(mipMapLevels.length);
+        int position = buffer.position();
+
+        for (java.awt.image.BufferedImage mipMapImage : mipMapLevels)
+        {
+            java.nio.ByteBuffer levelBuffer = buffer.duplicate(); // views share contents, but not position or order
+            levelBuffer.order(buffer.order());
+            levelBuffer.position(position);
+            actions.add(new MipMapLevelAction(compressor, mipMapImage, attributes, levelBuffer));
+
+            position += compressor.getCompressedSize(mipMapImage, attributes);
+        }
+
+        ForkJoinPool.commonPool().invoke(new RecursiveAction()
+        {
+            @Override
+            protected void compute()
+            {
+                invokeAll(actions);
+            }
+        });
+
+        buffer.position(position);
+    }
+
     protected DXTCompressor getDXTCompressor(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes)
     {
         // If the caller specified a DXT format in the attributes, then we return a compressor matching that format.
@@ -33,7 +33,7 @@ import gov.nasa.worldwind.util.Logging;
  * @author dcollins
  * @version $Id: DXT1Compressor.java 1171 2013-02-11 21:45:02Z dcollins $
  */
-public class DXT1Compressor implements DXTCompressor
+public class DXT1Compressor extends AbstractDXTCompressor
 {
     public DXT1Compressor()
     {
@@ -67,28 +67,14 @@ public class DXT1Compressor implements DXTCompressor
         return (width * height) / 2;
     }
 
-    public void compressImage(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes,
-        java.nio.ByteBuffer buffer)
+    protected int getBlockSize()
     {
-        if (image == null)
-        {
-            String message = Logging.getMessage("nullValue.ImageIsNull");
-            Logging.logger().severe(message);
-            throw new IllegalArgumentException(message);
-        }
-        if (attributes == null)
-        {
-            String message = Logging.getMessage("nullValue.AttributesIsNull");
-            Logging.logger().severe(message);
-            throw new IllegalArgumentException(message);
-        }
-        if (buffer == null)
-        {
-            String message = Logging.getMessage("nullValue.BufferNull");
-            Logging.logger().severe(message);
-            throw new IllegalArgumentException(message);
-        }
+        return 8;
+    }
 
+    protected void compressBlockRows(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes,
+        java.nio.ByteBuffer buffer, int firstRow, int lastRow)
+    {
         // If it is determined that the image and block have no alpha component, then we compress with DXT1 using a
         // four color palette. Otherwise, we use the three color palette (with the fourth color as transparent black).
 
@@ -99,13 +85,12 @@ public class DXT1Compressor implements DXTCompressor
         BlockDXT1Compressor dxt1Compressor = new BlockDXT1Compressor();
 
         int width = image.getWidth();
-        int height = image.getHeight();
 
         boolean imageHasAlpha = image.getColorModel().hasAlpha();
         boolean enableAlpha = attributes.isEnableDXT1Alpha();
         int alphaThreshold = attributes.getDXT1AlphaThreshold();
 
-        for (int j = 0; j < height; j += 4)
+        for (int j = 4 * firstRow; j < 4 * lastRow; j += 4)
         {
             for (int i = 0; i < width; i += 4)
             {
@@ -142,9 +127,4 @@ public class DXT1Compressor implements DXTCompressor
 
         return false;
     }
-
-    protected ColorBlockExtractor getColorBlockExtractor(java.awt.image.BufferedImage image)
-    {
-        return new BasicColorBlockExtractor(image);
-    }
 }
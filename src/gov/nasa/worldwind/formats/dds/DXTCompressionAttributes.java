@@ -43,6 +43,7 @@ public class DXTCompressionAttributes
     private boolean enableDXT1Alpha;
     private int dxt1AlphaThreshold;
     private String colorBlockCompressionType;
+    private boolean enableParallelCompression;
 
     protected static final int DEFAULT_DXT1_TRANSPARENCY_THRESHOLD = 128;
 
@@ -54,6 +55,7 @@ public class DXTCompressionAttributes
         this.enableDXT1Alpha = false;
         this.dxt1AlphaThreshold = DEFAULT_DXT1_TRANSPARENCY_THRESHOLD;
         this.colorBlockCompressionType = COLOR_BLOCK_COMPRESSION_EUCLIDEAN_DISTANCE;
+        this.enableParallelCompression = false;
     }
 
     public boolean isBuildMipmaps()
@@ -115,4 +117,26 @@ public class DXTCompressionAttributes
     {
         this.colorBlockCompressionType = compressionType;
     }
+
+    /**
+     * Indicates whether images and their mipmap levels may be compressed concurrently on multiple threads. Parallel
+     * compression produces the same bytes as serial compression.
+     *
+     * @return true if parallel compression is enabled, otherwise false.
+     */
+    public boolean isEnableParallelCompression()
+    {
+        return this.enableParallelCompression;
+    }
+
+    /**
+     * Specifies whether images and their mipmap levels may be compressed concurrently on multiple threads, using the
+     * common fork-join pool. Parallel compression is disabled by default.
+     *
+     * @param enable true to enable parallel compression, false to compress on the calling thread.
+     */
+    public void setEnableParallelCompression(boolean enable)
+    {
+        this.enableParallelCompression = enable;
+    }
 }
@@ -309,15 +309,13 @@ public class GeoJSONCoordinateParser extends GeoJSONEventParser
             }
             return a;
         }
-        else if (list.get(0) instanceof List)
+        else if (list.get(0) instanceof GeoJSONPositionArray[])
         {
+            // Nested arrays of arrays are resolved to GeoJSONPositionArray[] by the recursive call above.
             GeoJSONPositionArray[][] a = new GeoJSONPositionArray[list.size()][];
             for (int i = 0; i < list.size(); i++)
             {
-                for (int j = 0; j < ((List) list.get(i)).size(); j++)
-                {
-                    a[i][j] = (GeoJSONPositionArray) ((List) list.get(i)).get(j);
-                }
+                a[i] = (GeoJSONPositionArray[]) list.get(i);
             }
             return a;
         }
@@ -85,7 +85,7 @@ public class GeoJSONEventParser extends BasicJSONEventParser
             return this.array.toArray(new GeoJSONFeature[this.array.size()]);
 
         else if (GeoJSONConstants.FIELD_GEOMETRIES.equals(ctx.getCurrentFieldName()))
-            return this.array.toArray(new GeoJSONFeature[this.array.size()]);
+            return this.array.toArray(new GeoJSONGeometry[this.array.size()]);
 
         return super.resolveArray(ctx, event);
     }
@@ -0,0 +1,598 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.formats.geojson;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.util.*;
+import org.codehaus.jackson.*;
+
+import java.io.*;
+import java.nio.DoubleBuffer;
+import java.util.*;
+
+/**
+ * Reads GeoJSON documents directly from the token stream, without the per-value events and parser objects used by
+ * {@link GeoJSONDoc}. The reader produces the same object model as <code>GeoJSONDoc</code>, but writes each geometry's
+ * coordinates into a single packed <code>double[]</code> shared by all of the geometry's {@link GeoJSONPositionArray}
+ * instances.
+ * <p>
+ * The features of a <code>FeatureCollection</code> are streamed: {@link #nextObject()} returns each feature as soon as it
+ * has been read, so a caller that processes and discards features holds only one feature in memory at a time. {@link
+ * #read()} reads the entire document and returns the same root object as {@link GeoJSONDoc#getRootObject()}.
+ *
+ * @version $Id$
+ */
+public class GeoJSONFeatureReader implements Closeable
+{
+    protected static final int INITIAL_COORDINATE_CAPACITY = 1024;
+
+    protected static final int STATE_START = 0;
+    protected static final int STATE_ROOT_OBJECT = 1;
+    protected static final int STATE_ROOT_ARRAY = 2;
+    protected static final int STATE_FEATURES = 3;
+    protected static final int STATE_DONE = 4;
+
+    protected JsonParser jsonParser;
+    protected String displayName;
+    protected int state = STATE_START;
+    /** Fields of the root object, excluding the features of a feature collection. */
+    protected AVList rootFields;
+    /** Indicates whether the root object has a <code>features</code> array. */
+    protected boolean hasFeatures;
+    /** Indicates whether the document's root is a JSON array. */
+    protected boolean rootIsArray;
+    /** Coordinates of the geometry currently being read. */
+    protected double[] coords = new double[INITIAL_COORDINATE_CAPACITY];
+    protected int numCoords;
+    /** Position arrays of the geometry currently being read, which refer to its packed coordinates once complete. */
+    protected List<GeoJSONPositionArray> positionArrays = new ArrayList<GeoJSONPositionArray>();
+    /** The document's root value when it is neither an object nor an array, until returned by nextValue. */
+    protected Object rootValue;
+
+    /**
+     * Creates a reader for the specified source.
+     *
+     * @param source the document source. May be a file path {@link String}, {@link java.io.File}, {@link
+     *               java.net.URL}, {@link java.net.URI} or {@link InputStream}.
+     *
+     * @throws IllegalArgumentException if the source is null or empty.
+     * @throws WWRuntimeException       if the source cannot be opened.
+     */
+    public GeoJSONFeatureReader(Object source)
+    {
+        if (WWUtil.isEmpty(source))
+        {
+            String message = Logging.getMessage("nullValue.SourceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try
+        {
+            this.displayName = WWIO.getSourcePath(source);
+            this.jsonParser = new JsonFactory().createJsonParser(WWIO.openStream(source));
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("generic.ExceptionWhileReading", this.displayName);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
+    /**
+     * Reads the next object in the document. If the document is a <code>FeatureCollection</code>, this returns each of
+     * its features in turn. If the document is a JSON array, this returns each of the array's objects in turn.
+     * Otherwise this returns the document's root object. Values that are not GeoJSON objects are logged and skipped.
+     *
+     * @return the next object, or <code>null</code> if the document has no more objects.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     * @see #nextValue()
+     */
+    public GeoJSONObject nextObject() throws IOException
+    {
+        for (Object o = this.nextValue(); o != null; o = this.nextValue())
+        {
+            if (o instanceof GeoJSONObject)
+                return (GeoJSONObject) o;
+
+            Logging.logger().warning(Logging.getMessage("generic.UnrecognizedObjectType", o));
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the next value in the document, in the same order as {@link #nextObject()}, but returns values that are
+     * not GeoJSON objects instead of skipping them. An object without a recognized GeoJSON type is returned as an
+     * {@link AVList} of its fields, as {@link GeoJSONDoc} does. JSON null values are skipped.
+     *
+     * @return the next value, or <code>null</code> if the document has no more values.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    public Object nextValue() throws IOException
+    {
+        if (this.state == STATE_START)
+            this.readDocumentStart();
+
+        if (this.rootValue != null)
+        {
+            Object o = this.rootValue;
+            this.rootValue = null;
+            return o;
+        }
+
+        while (this.state != STATE_DONE)
+        {
+            JsonToken token = this.jsonParser.nextToken();
+
+            if (this.state == STATE_ROOT_ARRAY || this.state == STATE_FEATURES)
+            {
+                if (token == null || token == JsonToken.END_ARRAY)
+                {
+                    this.state = (this.state == STATE_FEATURES) ? STATE_ROOT_OBJECT : STATE_DONE;
+                }
+                else
+                {
+                    Object o = this.readValue(null, token);
+                    if (o != null)
+                        return o;
+                }
+            }
+            else if (this.state == STATE_ROOT_OBJECT)
+            {
+                if (token == null || token == JsonToken.END_OBJECT)
+                {
+                    this.state = STATE_DONE;
+                    if (!this.hasFeatures)
+                    {
+                        Object o = this.createObject(this.rootFields);
+                        if (o != null)
+                            return o;
+                    }
+                }
+                else if (token == JsonToken.FIELD_NAME)
+                {
+                    String name = this.jsonParser.getCurrentName();
+                    JsonToken valueToken = this.jsonParser.nextToken();
+
+                    if (GeoJSONConstants.FIELD_FEATURES.equals(name) && valueToken == JsonToken.START_ARRAY)
+                    {
+                        this.hasFeatures = true;
+                        this.state = STATE_FEATURES;
+                    }
+                    else
+                    {
+                        this.rootFields.setValue(name, this.readValue(name, valueToken));
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the remainder of the document and returns its root object. For a <code>FeatureCollection</code>, the
+     * returned collection contains the features not yet returned by {@link #nextObject()}. For a document whose root is
+     * a JSON array, this returns an <code>Object[]</code> of the array's values.
+     *
+     * @return the document's root object, or <code>null</code> if the document is empty.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    public Object read() throws IOException
+    {
+        List<Object> objects = new ArrayList<Object>();
+        for (Object o = this.nextValue(); o != null; o = this.nextValue())
+        {
+            objects.add(o);
+        }
+
+        if (this.rootIsArray)
+            return objects.size() > 0 ? objects.toArray() : null;
+
+        if (this.rootFields == null || !this.hasFeatures) // the root is a single value, or the document is empty
+            return objects.size() > 0 ? objects.get(0) : null;
+
+        this.rootFields.setValue(GeoJSONConstants.FIELD_FEATURES, this.toFeatureArray(objects));
+        return this.createObject(this.rootFields);
+    }
+
+    public void close()
+    {
+        if (this.jsonParser != null)
+        {
+            WWIO.closeStream(this.jsonParser, this.displayName);
+            this.jsonParser = null;
+        }
+    }
+
+    protected void readDocumentStart() throws IOException
+    {
+        JsonToken token = this.jsonParser.nextToken();
+
+        if (token == JsonToken.START_OBJECT)
+        {
+            this.rootFields = new AVListImpl();
+            this.state = STATE_ROOT_OBJECT;
+        }
+        else if (token == JsonToken.START_ARRAY)
+        {
+            this.rootIsArray = true;
+            this.state = STATE_ROOT_ARRAY;
+        }
+        else
+        {
+            this.rootValue = this.readValue(null, token);
+            this.state = STATE_DONE;
+        }
+    }
+
+    //**************************************************************//
+    //********************  Value Parsing  *************************//
+    //**************************************************************//
+
+    protected Object readValue(String fieldName, JsonToken token) throws IOException
+    {
+        if (token == null)
+            return null;
+
+        switch (token)
+        {
+            case START_OBJECT:
+                return this.readObject();
+            case START_ARRAY:
+                if (GeoJSONConstants.FIELD_COORDINATES.equals(fieldName))
+                    return this.readCoordinates();
+                else if (GeoJSONConstants.FIELD_FEATURES.equals(fieldName))
+                    return this.toFeatureArray(this.readArray());
+                else if (GeoJSONConstants.FIELD_GEOMETRIES.equals(fieldName))
+                    return this.toGeometryArray(this.readArray());
+                else
+                    return this.readArray().toArray();
+            case VALUE_STRING:
+                return this.jsonParser.getText();
+            case VALUE_NUMBER_INT: // GeoJSONDoc reads all numbers as doubles
+            case VALUE_NUMBER_FLOAT:
+                return this.jsonParser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+                return null;
+        }
+    }
+
+    /**
+     * Reads the fields of the object whose start token is the current token, and consumes the object's end token.
+     *
+     * @return a {@link GeoJSONObject} if the object has a recognized GeoJSON type, an {@link AVList} of the object's
+     *         fields if it does not, or <code>null</code> if the object is empty.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected Object readObject() throws IOException
+    {
+        AVList fields = null;
+
+        for (JsonToken token = this.jsonParser.nextToken(); token != null && token != JsonToken.END_OBJECT;
+            token = this.jsonParser.nextToken())
+        {
+            String name = this.jsonParser.getCurrentName();
+            Object value = this.readValue(name, this.jsonParser.nextToken());
+
+            if (fields == null)
+                fields = new AVListImpl();
+            fields.setValue(name, value);
+        }
+
+        return this.createObject(fields);
+    }
+
+    protected List<Object> readArray() throws IOException
+    {
+        List<Object> list = new ArrayList<Object>();
+
+        for (JsonToken token = this.jsonParser.nextToken(); token != null && token != JsonToken.END_ARRAY;
+            token = this.jsonParser.nextToken())
+        {
+            list.add(this.readValue(null, token));
+        }
+
+        return list;
+    }
+
+    protected Object createObject(AVList fields)
+    {
+        if (fields == null)
+            return null;
+
+        Object type = fields.getValue(GeoJSONConstants.FIELD_TYPE);
+
+        if (GeoJSONConstants.TYPE_POINT.equals(type))
+            return new GeoJSONPoint(fields);
+
+        else if (GeoJSONConstants.TYPE_MULTI_POINT.equals(type))
+            return new GeoJSONMultiPoint(fields);
+
+        else if (GeoJSONConstants.TYPE_LINE_STRING.equals(type))
+            return new GeoJSONLineString(fields);
+
+        else if (GeoJSONConstants.TYPE_MULTI_LINE_STRING.equals(type))
+            return new GeoJSONMultiLineString(fields);
+
+        else if (GeoJSONConstants.TYPE_POLYGON.equals(type))
+            return new GeoJSONPolygon(fields);
+
+        else if (GeoJSONConstants.TYPE_MULTI_POLYGON.equals(type))
+            return new GeoJSONMultiPolygon(fields);
+
+        else if (GeoJSONConstants.TYPE_GEOMETRY_COLLECTION.equals(type))
+            return new GeoJSONGeometryCollection(fields);
+
+        else if (GeoJSONConstants.TYPE_FEATURE.equals(type))
+            return new GeoJSONFeature(fields);
+
+        else if (GeoJSONConstants.TYPE_FEATURE_COLLECTION.equals(type))
+            return new GeoJSONFeatureCollection(fields);
+
+        else
+            return fields;
+    }
+
+    protected GeoJSONFeature[] toFeatureArray(List<?> list)
+    {
+        List<GeoJSONFeature> features = new ArrayList<GeoJSONFeature>(list.size());
+        for (Object o : list)
+        {
+            if (o instanceof GeoJSONFeature)
+                features.add((GeoJSONFeature) o);
+        }
+
+        return features.toArray(new GeoJSONFeature[features.size()]);
+    }
+
+    protected GeoJSONGeometry[] toGeometryArray(List<?> list)
+    {
+        List<GeoJSONGeometry> geometries = new ArrayList<GeoJSONGeometry>(list.size());
+        for (Object o : list)
+        {
+            if (o instanceof GeoJSONGeometry)
+                geometries.add((GeoJSONGeometry) o);
+        }
+
+        return geometries.toArray(new GeoJSONGeometry[geometries.size()]);
+    }
+
+    //**************************************************************//
+    //********************  Coordinate Parsing  ********************//
+    //**************************************************************//
+
+    /**
+     * Reads a <code>coordinates</code> array whose start token is the current token. The result has the same structure
+     * as the coordinates read by {@link GeoJSONCoordinateParser}: a {@link GeoJSONPositionArray} for a single position
+     * or an array of positions, and arrays of <code>GeoJSONPositionArray</code> for deeper nesting. All position arrays
+     * of the coordinates share one packed buffer.
+     *
+     * @return the coordinates, or <code>null</code> if the array contains no positions.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected Object readCoordinates() throws IOException
+    {
+        this.numCoords = 0;
+        this.positionArrays.clear();
+
+        Object result;
+        JsonToken token = this.jsonParser.nextToken();
+        if (isNumber(token))
+        {
+            int positionSize = this.readPosition(token, -1);
+            result = this.createPositionArray(positionSize, 0);
+        }
+        else
+        {
+            result = this.readCoordinateArray(token);
+        }
+
+        // Copy the coordinates into an exactly sized array shared by the position arrays just created.
+        DoubleBuffer buffer = DoubleBuffer.wrap(Arrays.copyOf(this.coords, this.numCoords));
+        for (GeoJSONPositionArray array : this.positionArrays)
+        {
+            array.buffer = buffer;
+        }
+        this.positionArrays.clear();
+
+        return result;
+    }
+
+    /**
+     * Reads the remainder of an array of positions or of nested arrays, given the token following the array's start
+     * token, and consumes the array's end token.
+     *
+     * @param token the first token within the array.
+     *
+     * @return a {@link GeoJSONPositionArray} if the array's elements are positions, an array of the elements' results
+     *         if they are nested arrays, or <code>null</code> if the array is empty.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected Object readCoordinateArray(JsonToken token) throws IOException
+    {
+        int start = this.numCoords;
+        int positionSize = -1;
+        List<Object> children = null;
+
+        for (; token != null && token != JsonToken.END_ARRAY; token = this.jsonParser.nextToken())
+        {
+            if (token != JsonToken.START_ARRAY)
+            {
+                Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+                this.jsonParser.skipChildren();
+                continue;
+            }
+
+            JsonToken first = this.jsonParser.nextToken();
+            if (isNumber(first))
+            {
+                int size = this.readPosition(first, positionSize);
+                if (positionSize < 0)
+                    positionSize = size;
+            }
+            else
+            {
+                Object child = this.readCoordinateArray(first);
+                if (child == null)
+                    continue;
+
+                if (children == null)
+                    children = new ArrayList<Object>();
+                children.add(child);
+            }
+        }
+
+        if (positionSize >= 0)
+            return this.createPositionArray(positionSize, start);
+
+        if (children == null)
+            return null;
+
+        if (children.get(0) instanceof GeoJSONPositionArray)
+        {
+            GeoJSONPositionArray[] a = new GeoJSONPositionArray[children.size()];
+            for (int i = 0; i < a.length; i++)
+            {
+                a[i] = (GeoJSONPositionArray) children.get(i);
+            }
+            return a;
+        }
+        else if (children.get(0) instanceof GeoJSONPositionArray[])
+        {
+            GeoJSONPositionArray[][] a = new GeoJSONPositionArray[children.size()][];
+            for (int i = 0; i < a.length; i++)
+            {
+                a[i] = (GeoJSONPositionArray[]) children.get(i);
+            }
+            return a;
+        }
+        else
+        {
+            Logging.logger().warning(Logging.getMessage("generic.UnexpectedObjectType", children.get(0)));
+            return null;
+        }
+    }
+
+    /**
+     * Reads a position's values, starting with the specified numeric token, and consumes the position's end token. If
+     * a size is specified, extra values are ignored and missing values are zero, so that all positions of an array
+     * have the same size.
+     *
+     * @param token        the position's first numeric token.
+     * @param positionSize the number of values to store, or -1 to store all of the position's values.
+     *
+     * @return the number of values stored.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected int readPosition(JsonToken token, int positionSize) throws IOException
+    {
+        int count = 0;
+
+        for (; token != null && token != JsonToken.END_ARRAY; token = this.jsonParser.nextToken())
+        {
+            if (!isNumber(token))
+            {
+                Logging.logger().warning(Logging.getMessage("generic.UnexpectedEvent", token));
+                this.jsonParser.skipChildren();
+                continue;
+            }
+
+            if (positionSize < 0 || count < positionSize)
+            {
+                this.addCoordinate(this.readDouble());
+                count++;
+            }
+        }
+
+        for (; count < positionSize; count++)
+        {
+            this.addCoordinate(0);
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the value of the current numeric token, parsed directly from the parser's character buffer. This avoids
+     * the string the parser creates to compute a token's double value.
+     *
+     * @return the current token's value.
+     *
+     * @throws IOException if an error occurs while reading the document.
+     */
+    protected double readDouble() throws IOException
+    {
+        int offset = this.jsonParser.getTextOffset();
+        return WWUtil.parseDouble(this.jsonParser.getTextCharacters(), offset,
+            offset + this.jsonParser.getTextLength());
+    }
+
+    protected void addCoordinate(double value)
+    {
+        if (this.numCoords == this.coords.length)
+            this.coords = Arrays.copyOf(this.coords, 2 * this.coords.length);
+
+        this.coords[this.numCoords++] = value;
+    }
+
+    protected GeoJSONPositionArray createPositionArray(int positionSize, int start)
+    {
+        if (positionSize < 2 || start == this.numCoords)
+            return null;
+
+        // The buffer is replaced by the packed coordinates once the enclosing coordinates array has been read.
+        GeoJSONPositionArray array = new GeoJSONPositionArray(positionSize, DoubleBuffer.wrap(this.coords), start,
+            this.numCoords);
+        this.positionArrays.add(array);
+        return array;
+    }
+
+    protected static boolean isNumber(JsonToken token)
+    {
+        return token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT;
+    }
+}
@@ -28,7 +28,7 @@
 package gov.nasa.worldwind.formats.geojson;
 
 import gov.nasa.worldwind.geom.Position;
-import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.*;
 
 import java.nio.DoubleBuffer;
 import java.util.Iterator;
@@ -80,6 +80,25 @@ public class GeoJSONPositionArray implements Iterable<Position>
             Position.fromDegrees(this.buffer.get(pos + 1), this.buffer.get(pos));
     }
 
+    public int getPositionSize()
+    {
+        return this.positionSize;
+    }
+
+    /**
+     * Returns this array's coordinates as a {@link VecBuffer} of longitude, latitude and optional altitude tuples. The
+     * returned buffer shares this array's storage; no coordinates are copied.
+     *
+     * @return a view of this array's coordinates.
+     */
+    public VecBuffer getVecBuffer()
+    {
+        DoubleBuffer view = this.buffer.duplicate();
+        view.limit(this.endPos);
+        view.position(this.startPos);
+        return new VecBuffer(this.positionSize, new BufferWrapper.DoubleBufferWrapper(view.slice()));
+    }
+
     public Iterator<Position> iterator()
     {
         return new PositionIterator(this);
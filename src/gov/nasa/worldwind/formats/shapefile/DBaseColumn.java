@@ -0,0 +1,319 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.shapefile;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.nio.ByteBuffer;
+import java.text.*;
+import java.util.logging.Level;
+
+/**
+ * A column view of one field of a memory mapped {@link DBaseFile}. Values are decoded from the file's bytes only when
+ * requested, so reading one attribute of every record allocates neither a {@link DBaseRecord} per record nor a boxed
+ * value per field. Columns may be read concurrently by multiple threads.
+ *
+ * @version $Id$
+ * @see DBaseFile#getColumn(String)
+ */
+public class DBaseColumn
+{
+    protected final DBaseFile dbaseFile;
+    protected final DBaseField field;
+    protected final ByteBuffer buffer;
+    protected final int offset; // byte offset of the field's value from the start of each record
+
+    /**
+     * Constructs a column view of a field of a memory mapped DBase file.
+     *
+     * @param dbaseFile the DBase file.
+     * @param field     the field to view.
+     * @param buffer    the file's bytes, beginning at the start of the file.
+     * @param offset    the byte offset of the field's value from the start of each record.
+     *
+     * @throws IllegalArgumentException if any argument is null.
+     */
+    public DBaseColumn(DBaseFile dbaseFile, DBaseField field, ByteBuffer buffer, int offset)
+    {
+        if (dbaseFile == null)
+        {
+            String message = Logging.getMessage("nullValue.DBaseFileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (field == null)
+        {
+            String message = Logging.getMessage("nullValue.FieldIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.dbaseFile = dbaseFile;
+        this.field = field;
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    public DBaseField getField()
+    {
+        return this.field;
+    }
+
+    public int size()
+    {
+        return this.dbaseFile.getNumberOfRecords();
+    }
+
+    /**
+     * Indicates whether a record's value is empty. Empty values are those a {@link DBaseRecord} holds as null.
+     *
+     * @param index the record's zero-origin index.
+     *
+     * @return true if the value is empty, otherwise false.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+    public boolean isNull(int index)
+    {
+        int pos = this.valuePosition(index);
+        int length = this.valueLength(pos);
+
+        return this.isFilled(pos, length, (byte) 0x20) || this.isFilled(pos, length, (byte) 0x2A);
+    }
+
+    /**
+     * Returns a record's value as a trimmed string.
+     *
+     * @param index the record's zero-origin index.
+     *
+     * @return the value, or null if the value is empty.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+    public String getString(int index)
+    {
+        if (this.isNull(index))
+            return null;
+
+        int pos = this.valuePosition(index);
+        byte[] bytes = new byte[this.valueLength(pos)];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = this.buffer.get(pos + i);
+        }
+
+        return this.dbaseFile.decodeString(bytes, bytes.length).trim();
+    }
+
+    /**
+     * Returns a record's value as a double. Values of fields without decimals are parsed directly from the file's
+     * bytes.
+     *
+     * @param index the record's zero-origin index.
+     *
+     * @return the value, or NaN if the value is empty or is not a number.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+    public double getDouble(int index)
+    {
+        if (this.field.getDecimals() == 0)
+        {
+            long value = this.parseLong(index);
+            if (value != Long.MIN_VALUE)
+                return value;
+        }
+
+        String value = this.getString(index);
+        if (value == null)
+            return Double.NaN;
+
+        try
+        {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e)
+        {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Returns a record's value as a long, parsed directly from the file's bytes.
+     *
+     * @param index        the record's zero-origin index.
+     * @param defaultValue the value to return if the record's value is empty or is not an integer.
+     *
+     * @return the value, or the default value if the value is empty or is not an integer.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+    public long getLong(int index, long defaultValue)
+    {
+        long value = this.parseLong(index);
+        return value != Long.MIN_VALUE ? value : defaultValue;
+    }
+
+    /**
+     * Returns a record's value as the object a {@link DBaseRecord} holds for it: a String, Boolean, Date, Long or
+     * Double, depending on the field's type.
+     *
+     * @param index the record's zero-origin index.
+     *
+     * @return the value, or null if the value is empty or cannot be parsed.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+    public Object getValue(int index)
+    {
+        String value = this.getString(index);
+        if (value == null)
+            return null;
+
+        String type = this.field.getType();
+        try
+        {
+            if (type == DBaseField.TYPE_BOOLEAN)
+            {
+                return value.equalsIgnoreCase("T") || value.equalsIgnoreCase("Y");
+            }
+            else if (type == DBaseField.TYPE_CHAR)
+            {
+                return value;
+            }
+            else if (type == DBaseField.TYPE_DATE)
+            {
+                return new SimpleDateFormat("yyyyMMdd").parse(value);
+            }
+            else if (type == DBaseField.TYPE_NUMBER)
+            {
+                if (this.field.getDecimals() > 0)
+                    return Double.valueOf(value);
+                else
+                    return Long.valueOf(value);
+            }
+        }
+        catch (Exception e)
+        {
+            Logging.logger().log(Level.WARNING, Logging.getMessage("SHP.FieldParsingError", this.field, value), e);
+        }
+
+        return null;
+    }
+
+    protected int valuePosition(int index)
+    {
+        if (index < 0 || index >= this.size())
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", index);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return this.dbaseFile.getHeaderLength() + index * this.dbaseFile.getRecordLength() + this.offset;
+    }
+
+    /** Returns the length of the value at a position, which ends at the field's length or at a zero byte. */
+    protected int valueLength(int pos)
+    {
+        int length = 0;
+        while (length < this.field.getLength() && this.buffer.get(pos + length) != 0)
+        {
+            length++;
+        }
+
+        return length;
+    }
+
+    protected boolean isFilled(int pos, int length, byte fillValue)
+    {
+        if (length <= 0)
+            return true;
+
+        for (int i = 0; i < length; i++)
+        {
+            if (this.buffer.get(pos + i) != fillValue)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Parses a record's value as an optionally signed integer surrounded by spaces.
+     *
+     * @param index the record's zero-origin index.
+     *
+     * @return the value, or Long.MIN_VALUE if the value is empty or is not an integer.
+     */
+    protected long parseLong(int index)
+    {
+        int pos = this.valuePosition(index);
+        int end = pos + this.valueLength(pos);
+
+        while (pos < end && this.buffer.get(pos) == ' ')
+        {
+            pos++;
+        }
+        while (end > pos && this.buffer.get(end - 1) == ' ')
+        {
+            end--;
+        }
+
+        boolean negative = false;
+        if (pos < end && (this.buffer.get(pos) == '-' || this.buffer.get(pos) == '+'))
+        {
+            negative = this.buffer.get(pos) == '-';
+            pos++;
+        }
+
+        // Leave values too long to fit in a long to the caller's fallback.
+        if (pos == end || end - pos > 18)
+            return Long.MIN_VALUE;
+
+        long value = 0;
+        for (int i = pos; i < end; i++)
+        {
+            int digit = this.buffer.get(i) - '0';
+            if (digit < 0 || digit > 9)
+                return Long.MIN_VALUE;
+
+            value = 10 * value + digit;
+        }
+
+        return negative ? -value : value;
+    }
+}
@@ -124,7 +124,11 @@ public class DBaseRecord extends AVListImpl
                 }
                 else if (field.getType() == DBaseField.TYPE_DATE)
                 {
-                    this.setValue(field.getName(), dateformat.parse(value));
+                    // DateFormat is not thread safe, and records of a memory mapped file may be read concurrently.
+                    synchronized (dateformat)
+                    {
+                        this.setValue(field.getName(), dateformat.parse(value));
+                    }
                 }
                 else if (field.getType() == DBaseField.TYPE_NUMBER)
                 {
@@ -42,6 +42,8 @@ import java.net.*;
 import java.nio.*;
 import java.nio.channels.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
 /**
@@ -140,6 +142,8 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
     protected static final String INDEX_FILE_SUFFIX = ".shx";
     protected static final String ATTRIBUTE_FILE_SUFFIX = ".dbf";
     protected static final String PROJECTION_FILE_SUFFIX = ".prj";
+    protected static final String SPATIAL_INDEX_FILE_SUFFIX = ".qix";
+    protected static final int DEFAULT_RECORD_BATCH_SIZE = 512;
 
     protected static final String[] SHAPE_CONTENT_TYPES
             = {
@@ -223,6 +227,36 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
     protected ByteBuffer recordHeaderBuffer;
     protected ByteBuffer recordContentBuffer;
     protected MappedByteBuffer mappedShpBuffer;
+    protected MappedByteBuffer mappedShxBuffer;
+    /**
+     * The point ranges added by the current thread while {@link #readRecords()} decodes records in parallel. Ranges
+     * are added to the point buffer in record order once all records are decoded.
+     */
+    protected ThreadLocal<PointBlocks> pendingPointBlocks = new ThreadLocal<PointBlocks>();
+    /**
+     * The number of records each task decodes when {@link #readRecords()} decodes records in parallel.
+     */
+    protected int recordBatchSize = DEFAULT_RECORD_BATCH_SIZE;
+    /**
+     * The Shapefile's source file, or null if the Shapefile was not opened from a file.
+     */
+    protected File sourceFile;
+    protected ShapefileSpatialIndex spatialIndex;
+    /**
+     * The records decoded by {@link #readRecord(int)}, whose points have been converted in place in the memory mapped
+     * Shapefile. Also serves as the lock that serializes random access decoding.
+     */
+    protected final BitSet randomlyReadRecords = new BitSet();
+    /**
+     * Indicates that the record being decoded by the current thread already has its points converted in place, and
+     * that they must not be converted again.
+     */
+    protected ThreadLocal<Boolean> pointsConverted = new ThreadLocal<Boolean>();
+    /**
+     * Indicates whether {@link #readRecord(int)} or {@link #getSpatialIndex()} has been called, in which case {@link
+     * #close()} keeps the memory mapped Shapefile and attribute file so that records can still be read.
+     */
+    protected volatile boolean randomAccessUsed;
 
     /**
      * Opens an Shapefile from a general source. The source type may be one of
@@ -607,6 +641,74 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
         return record;
     }
 
+    /**
+     * Reads all of the Shapefile's remaining records and returns them in the order they appear in the Shapefile. This
+     * returns the same records as calling {@link #nextRecord()} until {@link #hasNext()} returns <code>false</code>,
+     * and leaves the Shapefile in the same state.
+     * <p>
+     * When the Shapefile is memory mapped, which is the case when the Shapefile is opened from a file, the records are
+     * decoded in parallel. Each task decodes a range of records, located by the Shapefile's index file if one is
+     * available and otherwise by scanning the record headers. When the attribute file is also memory mapped, each
+     * record's attributes are decoded when {@link ShapefileRecord#getAttributes()} is first called. Applications that
+     * read a few attributes of every record should use {@link #getAttributeColumn(String)} instead.
+     *
+     * @return the Shapefile's remaining records. The array is empty if there are no remaining records.
+     *
+     * @throws IllegalStateException if the Shapefile is closed.
+     * @throws WWRuntimeException if an exception occurs while reading the records.
+     */
+    public ShapefileRecord[] readRecords() {
+        if (!this.open) {
+            String message = Logging.getMessage("SHP.ShapefileClosed", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        // Stream sources can only be read sequentially.
+        if (this.mappedShpBuffer == null) {
+            ArrayList<ShapefileRecord> records = new ArrayList<ShapefileRecord>();
+            while (this.hasNext()) {
+                records.add(this.nextRecord());
+            }
+
+            return records.toArray(new ShapefileRecord[records.size()]);
+        }
+
+        // Decoding threads read the mapped Shapefile through their own views of it, and the decoded points are added
+        // to the point buffer only after all records are decoded. The Shapefile is therefore unchanged if any record
+        // cannot be decoded.
+        RecordBatch batch = null;
+        Throwable failure;
+        try {
+            batch = new RecordBatch(this.computeRemainingRecordOffsets(), this.recordBatchSize);
+            synchronized (this.randomlyReadRecords) {
+                batch.convertedRecords = this.randomlyReadRecords.get(this.numRecordsRead,
+                        this.numRecordsRead + batch.records.length);
+            }
+            ForkJoinPool.commonPool().invoke(new RecordBatchAction(this, batch, 0, batch.numChunks()));
+            failure = batch.failure.get();
+        } catch (Exception e) {
+            failure = e;
+        }
+
+        if (failure != null) {
+            String message = Logging.getMessage("SHP.ExceptionAttemptingToReadShapefileRecord",
+                    this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().log(Level.SEVERE, message, failure);
+            throw new WWRuntimeException(message, failure);
+        }
+
+        this.addPendingPointBlocks(batch);
+        this.assignAttributes(batch.records);
+
+        // Move the Shapefile's read position past the last record, as nextRecord would.
+        this.mappedShpBuffer.position(batch.endPosition);
+        this.numBytesRead += batch.endPosition - batch.startPosition;
+        this.numRecordsRead += batch.records.length;
+
+        return batch.records;
+    }
+
     /**
      * Closes the Shapefile, freeing any resources allocated during reading
      * except the buffer containing the Shapefile's points. This closes any
@@ -619,6 +721,10 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
      * #getShapeType()}</li> <li>{@link #getBoundingRectangle()}</li>
      * <li>{@link #getNumberOfRecords()}</li> <li>{@link
      * #getPointBuffer()}</li> </ul>
+     * <p>
+     * When {@link #readRecord(int)} or {@link #getSpatialIndex()} has been called before closing, the memory mapped
+     * Shapefile and attribute file are kept, and both methods remain available after closing. Otherwise the mappings
+     * are released and neither method is available.
      */
     public void close() {
         if (this.shpChannel != null) {
@@ -636,17 +742,173 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
             this.prjChannel = null;
         }
 
+        // A memory mapped attribute file remains readable after it's closed, and provides the attributes of records
+        // read by readRecord. Keep it only when the Shapefile has been used for random access.
         if (this.attributeFile != null) {
             this.attributeFile.close();
-            this.attributeFile = null;
+            if (!this.randomAccessUsed || !this.attributeFile.isMemoryMapped()) {
+                this.attributeFile = null;
+            }
+        }
+
+        // Keep the memory mapped Shapefile for readRecord once the Shapefile has been used for random access.
+        if (!this.randomAccessUsed) {
+            this.mappedShpBuffer = null;
         }
 
         this.recordHeaderBuffer = null;
         this.recordContentBuffer = null;
-        this.mappedShpBuffer = null;
+        this.mappedShxBuffer = null;
         this.open = false;
     }
 
+    /**
+     * Returns a column view of the named attribute, whose values are decoded only when requested. Column views are
+     * available only when the Shapefile's attribute file is memory mapped, which is the case when the Shapefile is
+     * opened from a file. Columns may be read concurrently by multiple threads, and remain available after the
+     * Shapefile is closed.
+     *
+     * @param name the attribute's name.
+     *
+     * @return a view of the attribute's values, or null if the Shapefile has no attribute with the specified name or
+     * its attribute file is not memory mapped.
+     *
+     * @throws IllegalArgumentException if the name is null.
+     */
+    public DBaseColumn getAttributeColumn(String name) {
+        if (name == null) {
+            String message = Logging.getMessage("nullValue.NameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.attributeFile == null || !this.attributeFile.isMemoryMapped()) {
+            return null;
+        }
+
+        return this.attributeFile.getColumn(name);
+    }
+
+    /**
+     * Reads the record at a specified index, independently of the sequence of records returned by {@link
+     * #nextRecord()}. Random access requires a memory mapped Shapefile with an index file, which is the case when the
+     * Shapefile is opened from a file accompanied by its ".shx" file. Records may be read concurrently by multiple
+     * threads, and may be read after the Shapefile is closed if this method or {@link #getSpatialIndex()} was called
+     * before closing. Records must not be read by this method while {@link #nextRecord()} or {@link #readRecords()}
+     * is in progress.
+     * <p>
+     * The returned record holds its points in its own point buffer rather than the Shapefile's, so reading a record
+     * does not grow the Shapefile's point buffer. When the attribute file is memory mapped, the record's attributes are
+     * decoded when {@link ShapefileRecord#getAttributes()} is first called. Otherwise the record has no attributes.
+     *
+     * @param index the record's zero-origin index.
+     *
+     * @return the record, or null if the record's shape type is not recognized.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     * @throws IllegalStateException if the Shapefile does not support random access.
+     * @throws WWRuntimeException if an exception occurs while reading the record.
+     * @see #getSpatialIndex()
+     */
+    public ShapefileRecord readRecord(int index) {
+        if (this.mappedShpBuffer == null || this.index == null) {
+            String message = Logging.getMessage("SHP.RandomAccessUnavailable", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        this.randomAccessUsed = true;
+
+        if (index < 0 || index >= this.getNumberOfRecords()) {
+            String message = Logging.getMessage("generic.indexOutOfRange", index);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        ShapefileRecord record;
+        PointBlocks blocks = new PointBlocks();
+        this.pendingPointBlocks.set(blocks);
+        try {
+            ByteBuffer buffer = this.mappedShpBuffer.duplicate();
+            buffer.clear();
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            int pos = this.index[2 * index];
+            int contentLength = buffer.getInt(pos + 4) * 2;
+            buffer.limit(pos + ShapefileRecord.RECORD_HEADER_LENGTH + contentLength);
+            buffer.position(pos);
+
+            // The Shapefile is mapped in copy-on-write mode, and decoding a record converts its points in place.
+            // Records that have already been decoded keep their converted points.
+            synchronized (this.randomlyReadRecords) {
+                this.pointsConverted.set(index < this.numRecordsRead || this.randomlyReadRecords.get(index));
+                record = this.createRecord(buffer);
+                this.randomlyReadRecords.set(index);
+            }
+        } catch (Exception e) {
+            String message = Logging.getMessage("SHP.ExceptionAttemptingToReadShapefileRecord",
+                    this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().log(Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        } finally {
+            this.pendingPointBlocks.remove();
+            this.pointsConverted.remove();
+        }
+
+        if (record == null) {
+            return null;
+        }
+
+        // The record's part numbers are relative to the ranges collected while decoding it.
+        VecBufferBlocks pointBuffer = (VecBufferBlocks) this.createMappedPointBuffer();
+        for (int i = 0; i < blocks.size; i++) {
+            pointBuffer.addBlock(blocks.ranges[2 * i], blocks.ranges[2 * i + 1]);
+        }
+        record.setPartBuffer(pointBuffer);
+
+        if (this.attributeFile != null && this.attributeFile.isMemoryMapped()
+                && index < this.attributeFile.getNumberOfRecords()) {
+            record.setAttributeSource(this.attributeFile, index);
+        }
+
+        return record;
+    }
+
+    /**
+     * Indicates whether the record at a specified index has been decoded by {@link #readRecord(int)}, and therefore has
+     * its points converted in place in the memory mapped Shapefile.
+     *
+     * @param index the record's zero-origin index.
+     *
+     * @return true if the record has been decoded by readRecord, otherwise false.
+     */
+    protected boolean isRandomlyRead(int index) {
+        synchronized (this.randomlyReadRecords) {
+            return this.randomlyReadRecords.get(index);
+        }
+    }
+
+    /**
+     * Returns a quadtree index of the Shapefile's records, which locates the records intersecting a region without
+     * reading them. The index is available only when the Shapefile supports random access, as described in {@link
+     * #readRecord(int)}. The index is read from the Shapefile's ".qix" file when that file is at least as recent as the
+     * Shapefile and indexes the same number of records. Otherwise the index is built from the records' bounding
+     * rectangles and written to the ".qix" file, so that subsequent opens of the Shapefile need not build it again.
+     * The index is built or read when this method is first called.
+     * <p>
+     * Index coordinates are in the Shapefile's own coordinate system. Null records and records without points are
+     * omitted from the index.
+     *
+     * @return the Shapefile's spatial index, or null if the Shapefile does not support random access.
+     */
+    public synchronized ShapefileSpatialIndex getSpatialIndex() {
+        if (this.spatialIndex == null && this.mappedShpBuffer != null && this.index != null) {
+            this.randomAccessUsed = true;
+            this.spatialIndex = this.openSpatialIndex();
+        }
+
+        return this.spatialIndex;
+    }
+
     /**
      * Returns whether the shapefile's point coordinates should be normalized.
      *
@@ -700,13 +962,28 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
             this.shpChannel = Channels.newChannel(new BufferedInputStream(new FileInputStream(file)));
         }
 
+        // If the Shapefile is memory mapped, attempt to map its optional index file as well. The index locates each
+        // record in the mapped Shapefile, enabling readRecords to decode ranges of records in parallel. We never change
+        // the index, so it's mapped read-only.
+        File shxFile = new File(WWIO.replaceSuffix(file.getPath(), INDEX_FILE_SUFFIX));
+        if (this.mappedShpBuffer != null && shxFile.canRead()) {
+            try {
+                this.mappedShxBuffer = WWIO.mapFile(shxFile, FileChannel.MapMode.READ_ONLY);
+            } catch (Exception e) {
+                Logging.logger().log(Level.WARNING,
+                        Logging.getMessage("SHP.ExceptionAttemptingToMemoryMap", shxFile.getPath()), e);
+            }
+        }
+
         // Attempt to open the optional index and projection files associated with the Shapefile. Ignore exceptions
         // thrown while attempting to open these optional resource streams. We wrap each source InputStream in a
         // BufferedInputStream because this increases read performance, even when the stream is wrapped in an NIO
         // Channel.
-        InputStream shxStream = this.getFileStream(WWIO.replaceSuffix(file.getPath(), INDEX_FILE_SUFFIX));
-        if (shxStream != null) {
-            this.shxChannel = Channels.newChannel(WWIO.getBufferedInputStream(shxStream));
+        if (this.mappedShxBuffer == null) {
+            InputStream shxStream = this.getFileStream(shxFile.getPath());
+            if (shxStream != null) {
+                this.shxChannel = Channels.newChannel(WWIO.getBufferedInputStream(shxStream));
+            }
         }
 
         InputStream prjStream = this.getFileStream(WWIO.replaceSuffix(file.getPath(), PROJECTION_FILE_SUFFIX));
@@ -717,6 +994,7 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
         // Initialize the Shapefile before opening its associated attributes file. This avoids opening the attributes
         // file if an exception is thrown while opening the Shapefile.
         this.setValue(AVKey.DISPLAY_NAME, file.getPath());
+        this.sourceFile = file;
         this.initialize(params);
 
         // Open the shapefile attribute source as a DBaseFile. We let the DBaseFile determine how to handle source File.
@@ -1062,12 +1340,18 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
      */
     protected int[] readIndex() throws IOException {
         // The Shapefile index resource is optional. Return null if we don't have a stream to an index resource.
-        if (this.shxChannel == null) {
+        if (this.shxChannel == null && this.mappedShxBuffer == null) {
             return null;
         }
 
-        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH);
-        WWIO.readChannelToBuffer(this.shxChannel, buffer);
+        ByteBuffer buffer;
+        if (this.mappedShxBuffer != null) {
+            buffer = this.mappedShxBuffer.duplicate();
+            buffer.limit(Math.min(buffer.capacity(), HEADER_LENGTH));
+        } else {
+            buffer = ByteBuffer.allocate(HEADER_LENGTH);
+            WWIO.readChannelToBuffer(this.shxChannel, buffer);
+        }
 
         // Return null if the index is empty or is smaller than the minimum required size.
         if (buffer.remaining() < HEADER_LENGTH) {
@@ -1081,7 +1365,11 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
 
         int[] array;
         try {
-            buffer = ByteBuffer.allocate(indexLength);
+            if (this.mappedShxBuffer != null) {
+                buffer.limit(Math.min(buffer.capacity(), HEADER_LENGTH + indexLength));
+            } else {
+                buffer = ByteBuffer.allocate(indexLength);
+            }
             array = new int[numElements];
         } catch (OutOfMemoryError e) {
             // Log a warning that we could not allocate enough memory to hold the Shapefile index. Shapefile parsing
@@ -1092,7 +1380,9 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
         }
 
         buffer.order(ByteOrder.BIG_ENDIAN);
-        WWIO.readChannelToBuffer(this.shxChannel, buffer);
+        if (this.mappedShxBuffer == null) {
+            WWIO.readChannelToBuffer(this.shxChannel, buffer);
+        }
 
         buffer.asIntBuffer().get(array);
 
@@ -1103,6 +1393,103 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
         return array;
     }
 
+    //**************************************************************//
+    //********************  Spatial Index  *************************//
+    //**************************************************************//
+    /**
+     * Reads the Shapefile's spatial index from its ".qix" file if that file is
+     * current, and otherwise builds the index and attempts to write it to the
+     * ".qix" file. The Shapefile is assumed to support random access.
+     *
+     * @return the Shapefile's spatial index.
+     */
+    protected ShapefileSpatialIndex openSpatialIndex() {
+        File qixFile = this.sourceFile != null
+                ? new File(WWIO.replaceSuffix(this.sourceFile.getPath(), SPATIAL_INDEX_FILE_SUFFIX)) : null;
+
+        if (qixFile != null && qixFile.exists() && qixFile.lastModified() >= this.sourceFile.lastModified()) {
+            try {
+                ShapefileSpatialIndex spatialIndex = ShapefileSpatialIndex.read(qixFile);
+                if (spatialIndex.getNumberOfShapes() == this.getNumberOfRecords()) {
+                    return spatialIndex;
+                }
+            } catch (IOException e) {
+                Logging.logger().log(Level.WARNING,
+                        Logging.getMessage("SHP.ExceptionAttemptingToReadSpatialIndex", qixFile.getPath()), e);
+            }
+        }
+
+        ShapefileSpatialIndex spatialIndex = ShapefileSpatialIndex.build(this.getNumberOfRecords(),
+                this.readRecordBounds());
+
+        // Persist the index next to the Shapefile when its directory is writable. The index is still available to
+        // this Shapefile if writing fails.
+        if (qixFile != null && qixFile.getAbsoluteFile().getParentFile().canWrite()) {
+            try {
+                spatialIndex.write(qixFile);
+            } catch (IOException e) {
+                Logging.logger().log(Level.FINE,
+                        Logging.getMessage("SHP.ExceptionAttemptingToWriteSpatialIndex", qixFile.getPath()), e);
+            }
+        }
+
+        return spatialIndex;
+    }
+
+    /**
+     * Reads the bounding rectangle of each record from the memory mapped
+     * Shapefile without decoding the records' points. The rectangles are in
+     * the Shapefile's own coordinate system.
+     *
+     * @return four values for each record, ordered as follows: minimum X,
+     * minimum Y, maximum X, and maximum Y. The minimum X is NaN for null
+     * records and records without points.
+     */
+    protected double[] readRecordBounds() {
+        int numRecords = this.getNumberOfRecords();
+        double[] bounds = new double[4 * numRecords];
+
+        ByteBuffer buffer = this.mappedShpBuffer.duplicate();
+        buffer.clear();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        for (int i = 0; i < numRecords; i++) {
+            int pos = this.index[2 * i] + ShapefileRecord.RECORD_HEADER_LENGTH; // skip record number and length
+            String shapeType = this.getShapeType(buffer.getInt(pos));
+
+            if (shapeType == null) {
+                bounds[4 * i] = Double.NaN; // unrecognized records are never decoded
+                continue;
+            }
+
+            if (isPointType(shapeType)) {
+                bounds[4 * i] = bounds[4 * i + 2] = buffer.getDouble(pos + 4);
+                bounds[4 * i + 1] = bounds[4 * i + 3] = buffer.getDouble(pos + 12);
+                continue;
+            }
+
+            // Multi-point records store the number of points after the bounding rectangle, while polyline and polygon
+            // records store the number of parts followed by the number of points.
+            int numPoints = 0;
+            if (isMultiPointType(shapeType)) {
+                numPoints = buffer.getInt(pos + 36);
+            } else if (isPolylineType(shapeType) || isPolygonType(shapeType)) {
+                numPoints = buffer.getInt(pos + 40);
+            }
+
+            if (numPoints <= 0) {
+                bounds[4 * i] = Double.NaN;
+                continue;
+            }
+
+            for (int j = 0; j < 4; j++) {
+                bounds[4 * i + j] = buffer.getDouble(pos + 4 + 8 * j);
+            }
+        }
+
+        return bounds;
+    }
+
     //**************************************************************//
     //********************  Coordinate System  *********************//
     //**************************************************************//
@@ -1264,6 +1651,11 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
             buffer = this.recordContentBuffer;
         }
 
+        // A record already decoded by readRecord has its points converted in place in the mapped Shapefile.
+        if (this.mappedShpBuffer != null && this.isRandomlyRead(this.numRecordsRead)) {
+            this.pointsConverted.set(Boolean.TRUE);
+        }
+
         ShapefileRecord record;
         try {
             record = this.readRecordFromBuffer(buffer);
@@ -1272,6 +1664,7 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
             if (this.mappedShpBuffer != null) {
                 this.mappedShpBuffer.limit(this.mappedShpBuffer.capacity());
             }
+            this.pointsConverted.remove();
         }
 
         return record;
@@ -1304,6 +1697,257 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
         return record;
     }
 
+    //**************************************************************//
+    //********************  Parallel Record Decoding  **************//
+    //**************************************************************//
+    /**
+     * Holds the byte ranges of points added to the Shapefile's point buffer
+     * while records are decoded in parallel.
+     */
+    protected static class PointBlocks {
+
+        protected int[] ranges = new int[64]; // begin and end position of each range
+        protected int size;
+
+        /**
+         * Adds a byte range and returns its position in this list.
+         *
+         * @param beginPos the range's first byte.
+         * @param endPos the range's last byte.
+         *
+         * @return the range's position in this list.
+         */
+        public int add(int beginPos, int endPos) {
+            if (2 * this.size == this.ranges.length) {
+                this.ranges = Arrays.copyOf(this.ranges, 2 * this.ranges.length);
+            }
+
+            this.ranges[2 * this.size] = beginPos;
+            this.ranges[2 * this.size + 1] = endPos;
+            return this.size++;
+        }
+    }
+
+    /**
+     * Holds the state of one call to {@link #readRecords()}.
+     */
+    protected static class RecordBatch {
+
+        protected final int[] offsets; // byte position of each record
+        protected final int chunkSize;
+        protected final ShapefileRecord[] records;
+        protected final PointBlocks[] pointBlocks; // one per chunk of records
+        protected final int startPosition;
+        protected final int endPosition;
+        protected final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        /**
+         * The records already decoded by {@link #readRecord(int)}, relative to the batch's first record.
+         */
+        protected BitSet convertedRecords = new BitSet();
+
+        public RecordBatch(int[] offsetsAndEnd, int chunkSize) {
+            this.offsets = Arrays.copyOf(offsetsAndEnd, offsetsAndEnd.length - 1);
+            this.chunkSize = chunkSize;
+            this.records = new ShapefileRecord[this.offsets.length];
+            this.pointBlocks = new PointBlocks[this.numChunks()];
+            this.startPosition = this.offsets.length > 0 ? this.offsets[0] : offsetsAndEnd[0];
+            this.endPosition = offsetsAndEnd[offsetsAndEnd.length - 1];
+        }
+
+        public int numChunks() {
+            return (this.offsets.length + this.chunkSize - 1) / this.chunkSize;
+        }
+    }
+
+    /**
+     * Decodes a range of chunks of a {@link RecordBatch}, splitting the range
+     * among fork-join tasks.
+     */
+    @SuppressWarnings("serial")
+    protected static class RecordBatchAction extends RecursiveAction {
+
+        protected final Shapefile shapefile;
+        protected final RecordBatch batch;
+        protected final int start;
+        protected final int end;
+
+        public RecordBatchAction(Shapefile shapefile, RecordBatch batch, int start, int end) {
+            this.shapefile = shapefile;
+            this.batch = batch;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.batch.failure.get() != null) {
+                return;
+            }
+
+            if (this.end - this.start > 1) {
+                int mid = (this.start + this.end) >>> 1;
+                invokeAll(new RecordBatchAction(this.shapefile, this.batch, this.start, mid),
+                        new RecordBatchAction(this.shapefile, this.batch, mid, this.end));
+                return;
+            }
+
+            try {
+                for (int chunk = this.start; chunk < this.end; chunk++) {
+                    this.shapefile.decodeRecords(this.batch, chunk);
+                }
+            } catch (Throwable t) {
+                this.batch.failure.compareAndSet(null, t);
+            }
+        }
+    }
+
+    /**
+     * Computes the byte position of each of the Shapefile's remaining
+     * records. This uses the Shapefile's index when the index locates the
+     * Shapefile's next record, and otherwise scans the record headers. The
+     * Shapefile is assumed to be memory mapped.
+     *
+     * @return the position of each remaining record, followed by the position
+     * just past the last record.
+     */
+    protected int[] computeRemainingRecordOffsets() {
+        int pos = this.mappedShpBuffer.position();
+        int fileLength = Math.min(this.header.fileLength, this.mappedShpBuffer.capacity());
+        int first = this.numRecordsRead;
+
+        if (this.index != null && 2 * first < this.index.length && this.index[2 * first] == pos) {
+            int count = this.index.length / 2 - first;
+            int[] offsets = new int[count + 1];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = this.index[2 * (first + i)];
+            }
+
+            // The index holds each record's content length, which excludes the record header.
+            offsets[count] = count > 0
+                    ? offsets[count - 1] + ShapefileRecord.RECORD_HEADER_LENGTH + this.index[2 * (first + count) - 1]
+                    : pos;
+            return offsets;
+        }
+
+        int[] offsets = new int[64];
+        int count = 0;
+        ByteBuffer buffer = this.mappedShpBuffer.duplicate();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        while (pos < fileLength) {
+            if (count + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+            }
+
+            offsets[count++] = pos;
+            pos += ShapefileRecord.RECORD_HEADER_LENGTH + 2 * buffer.getInt(pos + 4);
+        }
+        offsets[count] = pos;
+
+        return Arrays.copyOf(offsets, count + 1);
+    }
+
+    /**
+     * Decodes one chunk of a {@link RecordBatch}. This may be called
+     * concurrently for different chunks. The records' point ranges are
+     * collected in the chunk's pending point blocks, and each record's first
+     * part number is relative to those blocks until
+     * {@link #addPendingPointBlocks(RecordBatch)} adds them to the point
+     * buffer.
+     *
+     * @param batch the batch to decode.
+     * @param chunk the chunk to decode.
+     */
+    protected void decodeRecords(RecordBatch batch, int chunk) {
+        int begin = chunk * batch.chunkSize;
+        int end = Math.min(begin + batch.chunkSize, batch.records.length);
+
+        PointBlocks blocks = new PointBlocks();
+        ByteBuffer buffer = this.mappedShpBuffer.duplicate();
+
+        this.pendingPointBlocks.set(blocks);
+        try {
+            for (int i = begin; i < end; i++) {
+                int pos = batch.offsets[i];
+                buffer.clear();
+                buffer.order(ByteOrder.BIG_ENDIAN);
+                int contentLength = buffer.getInt(pos + 4) * 2;
+                buffer.limit(pos + ShapefileRecord.RECORD_HEADER_LENGTH + contentLength);
+                buffer.position(pos);
+
+                // Records already decoded by readRecord have their points converted in place.
+                if (batch.convertedRecords.get(i)) {
+                    this.pointsConverted.set(Boolean.TRUE);
+                } else {
+                    this.pointsConverted.remove();
+                }
+
+                batch.records[i] = this.createRecord(buffer);
+            }
+        } finally {
+            this.pendingPointBlocks.remove();
+            this.pointsConverted.remove();
+        }
+
+        batch.pointBlocks[chunk] = blocks;
+    }
+
+    /**
+     * Adds the point ranges collected while decoding a {@link RecordBatch} to
+     * the Shapefile's point buffer in record order, and converts each record's
+     * first part number to a part number in the point buffer. The point
+     * buffer's parts are therefore identical to those created by reading the
+     * records sequentially.
+     *
+     * @param batch the decoded batch.
+     */
+    protected void addPendingPointBlocks(RecordBatch batch) {
+        if (this.pointBuffer == null) {
+            this.pointBuffer = this.createMappedPointBuffer();
+        }
+
+        VecBufferBlocks blocks = (VecBufferBlocks) this.pointBuffer;
+        for (int chunk = 0; chunk < batch.pointBlocks.length; chunk++) {
+            PointBlocks pending = batch.pointBlocks[chunk];
+            int base = blocks.size();
+            for (int i = 0; i < pending.size; i++) {
+                blocks.addBlock(pending.ranges[2 * i], pending.ranges[2 * i + 1]);
+            }
+
+            int end = Math.min((chunk + 1) * batch.chunkSize, batch.records.length);
+            for (int i = chunk * batch.chunkSize; i < end; i++) {
+                ShapefileRecord record = batch.records[i];
+                if (record != null && record.numberOfParts > 0 && record.firstPartNumber >= 0) {
+                    record.firstPartNumber += base;
+                }
+            }
+        }
+    }
+
+    /**
+     * Assigns attributes to records read by {@link #readRecords()}, in the
+     * order the sequential reader assigns them. Records read from a memory
+     * mapped attribute file decode their attributes when first requested.
+     *
+     * @param records the records to assign attributes to.
+     */
+    protected void assignAttributes(ShapefileRecord[] records) {
+        if (this.attributeFile == null) {
+            return;
+        }
+
+        for (ShapefileRecord record : records) {
+            if (record == null || !this.attributeFile.hasNext()) {
+                continue;
+            }
+
+            if (this.attributeFile.isMemoryMapped()) {
+                record.setAttributeSource(this.attributeFile, this.attributeFile.numRecordsRead++);
+            } else {
+                record.setAttributes(this.attributeFile.nextRecord());
+            }
+        }
+    }
+
     /**
      * Returns a new
      * <code>{@link gov.nasa.worldwind.formats.shapefile.ShapefileRecord}</code>
@@ -1548,13 +2192,15 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
 
         // Add the point data to the Shapefile's internal point buffer.
         if (this.mappedShpBuffer != null) {
+            // While records are decoded in parallel, collect the point's byte range in the decoding thread's pending
+            // ranges, and return its position in those ranges. See readRecords.
+            PointBlocks pendingBlocks = this.pendingPointBlocks.get();
+            if (pendingBlocks != null) {
+                return pendingBlocks.add(pos, limit - 1);
+            }
+
             if (this.pointBuffer == null) {
-                // Create a VecBufferBlocks to hold this Shapefile's point data. Shapefile points are 2-tuples stored in
-                // IEEE 64-bit floating point format, in little endian byte order.
-                ByteBuffer buf = this.mappedShpBuffer.duplicate();
-                buf.order(ByteOrder.LITTLE_ENDIAN);
-                buf.clear();
-                this.pointBuffer = new VecBufferBlocks(2, AVKey.FLOAT64, buf);
+                this.pointBuffer = this.createMappedPointBuffer();
             }
 
             // Add the point's byte range to the VecBufferBlocks.
@@ -1584,6 +2230,19 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
         }
     }
 
+    /**
+     * Creates a {@link VecBufferBlocks} referencing this Shapefile's memory mapped point data. Shapefile points are
+     * 2-tuples stored in IEEE 64-bit floating point format, in little endian byte order.
+     *
+     * @return a new point buffer backed by the memory mapped Shapefile.
+     */
+    protected CompoundVecBuffer createMappedPointBuffer() {
+        ByteBuffer buf = this.mappedShpBuffer.duplicate();
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        buf.clear();
+        return new VecBufferBlocks(2, AVKey.FLOAT64, buf);
+    }
+
     /**
      * Estimate the number of points in a shapefile.
      *
@@ -1662,6 +2321,11 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable {
             return null;
         }
 
+        // Points already converted in place by an earlier decode of the same record are returned unchanged.
+        if (Boolean.TRUE.equals(this.pointsConverted.get())) {
+            return this.readUnspecifiedPoints(record, buffer);
+        }
+
         Object o = this.getValue(AVKey.COORDINATE_SYSTEM);
 
         if (!this.hasKey(AVKey.COORDINATE_SYSTEM)) {
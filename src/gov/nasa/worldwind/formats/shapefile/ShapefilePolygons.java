@@ -353,7 +353,8 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
         if (!WorldWind.getMemoryCacheSet().containsCache(ShapefileGeometry.class.getName()))
         {
             long size = Configuration.getLongValue(AVKey.SHAPEFILE_GEOMETRY_CACHE_SIZE, (long) 50e6); // default 50MB
-            MemoryCache cache = new BasicMemoryCache((long) (0.8 * size), size);
+            MemoryCache cache = BasicMemoryCacheSet.createCache(ShapefileGeometry.class.getName(),
+                (long) (0.8 * size), size);
             cache.setName("Shapefile Geometry");
             WorldWind.getMemoryCacheSet().addCache(ShapefileGeometry.class.getName(), cache);
         }
@@ -443,6 +444,15 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
         super.assembleRecords(shapefile);
     }
 
+    @Override
+    protected boolean mustPageRecords(Shapefile shapefile)
+    {
+        // Large shapefiles are paged in by tile as tiles are tessellated, which avoids reading every record before the
+        // first frame is drawn.
+        long threshold = Configuration.getLongValue(AVKey.SHAPEFILE_RECORD_PAGING_THRESHOLD, 50000L);
+        return shapefile.getNumberOfRecords() >= threshold && this.canPageRecords(shapefile);
+    }
+
     @Override
     protected boolean mustAssembleRecord(ShapefileRecord shapefileRecord)
     {
@@ -456,7 +466,9 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
     {
         ShapefilePolygons.Record record = this.createRecord(shapefileRecord);
         this.addRecord(shapefileRecord, record);
-        this.recordTree.add(record, record.sector.asDegreesArray());
+
+        if (this.recordTree != null) // paged records are located by the shapefile's spatial index
+            this.recordTree.add(record, record.sector.asDegreesArray());
     }
 
     @Override
@@ -886,9 +898,9 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
 
     protected void tessellate(ShapefileGeometry geom)
     {
-        // Get the records intersecting the geometry's sector. The implementation of getItemsInRegion may return entries
-        // outside the requested sector, so we cull them further in the loop below.
-        Set<Record> intersectingRecords = this.recordTree.getItemsInRegion(geom.sector, null);
+        // Get the records intersecting the geometry's sector. The implementation of getIntersectingRecords may return
+        // entries outside the requested sector, so we cull them further in the loop below.
+        Collection<Record> intersectingRecords = this.getIntersectingRecords(geom.sector);
         if (intersectingRecords.isEmpty())
             return;
 
@@ -936,6 +948,28 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
         geom.vertexOffset = new Vec4(xOffset, yOffset, 0);
     }
 
+    /**
+     * Returns the records that may intersect the specified sector. Paged records are read from the shapefile as
+     * necessary. The returned collection may include records outside the sector.
+     *
+     * @param sector the sector of interest.
+     *
+     * @return the records that may intersect the sector.
+     */
+    protected Collection<Record> getIntersectingRecords(Sector sector)
+    {
+        if (this.pagedShapefile == null)
+            return this.recordTree.getItemsInRegion(sector, null);
+
+        ArrayList<Record> intersectingRecords = new ArrayList<Record>();
+        for (ShapefileRenderable.Record record : this.pageRecords(sector))
+        {
+            intersectingRecords.add((Record) record);
+        }
+
+        return intersectingRecords;
+    }
+
     protected void computeRecordMetrics(Record record, PolylineGeneralizer generalizer)
     {
         synchronized (record) // synchronize access to checking and computing a record's effective area
@@ -1291,9 +1325,9 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
 
     protected void doCombineContours(CombineContext cc)
     {
-        // Get the records intersecting the context's sector. The implementation of getItemsInRegion may return entries
-        // outside the requested sector, so we cull them further in the loop below.
-        Set<Record> intersectingRecords = this.recordTree.getItemsInRegion(cc.getSector(), null);
+        // Get the records intersecting the context's sector. The implementation of getIntersectingRecords may return
+        // entries outside the requested sector, so we cull them further in the loop below.
+        Collection<Record> intersectingRecords = this.getIntersectingRecords(cc.getSector());
         if (intersectingRecords.isEmpty())
             return; // no records in the context's sector
 
@@ -49,9 +49,21 @@ public abstract class ShapefileRecord {
     protected int contentLengthInBytes;
     protected String shapeType;
     protected DBaseRecord attributes;
+    /**
+     * The memory mapped attribute file from which this record's attributes are
+     * decoded when first requested, or null if the attributes are not decoded
+     * lazily.
+     */
+    protected DBaseFile attributeFile;
+    protected int attributeIndex;
     protected int numberOfParts;
     protected int numberOfPoints;
     protected int firstPartNumber;
+    /**
+     * The buffer holding this record's parts, or null if the parts are held in
+     * the Shapefile's point buffer.
+     */
+    protected CompoundVecBuffer partBuffer;
     /**
      * Indicates if the record's point coordinates should be normalized.
      * Defaults to false.
@@ -137,6 +149,11 @@ public abstract class ShapefileRecord {
      * @return the record's attributes.
      */
     public DBaseRecord getAttributes() {
+        // Concurrent callers may each decode the attributes, but they decode identical values.
+        if (this.attributes == null && this.attributeFile != null) {
+            this.attributes = this.attributeFile.readRecord(this.attributeIndex);
+        }
+
         return this.attributes;
     }
 
@@ -147,6 +164,44 @@ public abstract class ShapefileRecord {
      */
     public void setAttributes(DBaseRecord attributes) {
         this.attributes = attributes;
+        this.attributeFile = null;
+    }
+
+    /**
+     * Specifies the memory mapped attribute file record from which this
+     * record's attributes are decoded when {@link #getAttributes()} is first
+     * called.
+     *
+     * @param attributeFile the memory mapped attribute file.
+     * @param index the zero-origin index of this record's attributes in the
+     * attribute file.
+     */
+    protected void setAttributeSource(DBaseFile attributeFile, int index) {
+        this.attributes = null;
+        this.attributeFile = attributeFile;
+        this.attributeIndex = index;
+    }
+
+    /**
+     * Returns the {@link gov.nasa.worldwind.util.CompoundVecBuffer} holding
+     * this record's parts, beginning at {@link #getFirstPartNumber()}. This is
+     * the Shapefile's point buffer unless the record was read by
+     * {@link Shapefile#readRecord(int)}.
+     *
+     * @return the buffer holding this record's parts.
+     */
+    protected CompoundVecBuffer getPartBuffer() {
+        return this.partBuffer != null ? this.partBuffer : this.getShapeFile().getPointBuffer();
+    }
+
+    /**
+     * Specifies the buffer holding this record's parts.
+     *
+     * @param partBuffer the buffer holding this record's parts, or null to
+     * indicate the Shapefile's point buffer.
+     */
+    protected void setPartBuffer(CompoundVecBuffer partBuffer) {
+        this.partBuffer = partBuffer;
     }
 
     /**
@@ -201,7 +256,7 @@ public abstract class ShapefileRecord {
         }
 
         int shapefilePartNumber = this.getFirstPartNumber() + partNumber;
-        return this.getShapeFile().getPointBuffer().subBufferSize(shapefilePartNumber);
+        return this.getPartBuffer().subBufferSize(shapefilePartNumber);
     }
 
     /**
@@ -221,7 +276,7 @@ public abstract class ShapefileRecord {
         }
 
         int shapefilePartNumber = this.getFirstPartNumber() + partNumber;
-        return this.getShapeFile().getPointBuffer().subBuffer(shapefilePartNumber);
+        return this.getPartBuffer().subBuffer(shapefilePartNumber);
     }
 
     /**
@@ -236,7 +291,7 @@ public abstract class ShapefileRecord {
      * @return a CompoundVecBuffer that holds this record's coordinate data.
      */
     public CompoundVecBuffer getCompoundPointBuffer() {
-        return this.getShapeFile().getPointBuffer().slice(this.getFirstPartNumber(), this.getLastPartNumber());
+        return this.getPartBuffer().slice(this.getFirstPartNumber(), this.getLastPartNumber());
     }
 
     /**
@@ -28,12 +28,14 @@
 package gov.nasa.worldwind.formats.shapefile;
 
 import gov.nasa.worldwind.WWObjectImpl;
-import gov.nasa.worldwind.avlist.AVListImpl;
+import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
 
+import java.lang.ref.SoftReference;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * @author dcollins
@@ -103,7 +105,7 @@ public abstract class ShapefileRenderable extends WWObjectImpl
             this.shapefileRenderable = shapefileRenderable;
             this.sector = shapefileRecord.getBoundingRectangle() != null ? Sector.fromDegrees(
                 shapefileRecord.getBoundingRectangle()) : null;
-            this.pointBuffer = shapefileRecord.getShapeFile().getPointBuffer();
+            this.pointBuffer = shapefileRecord.getPartBuffer();
             this.firstPartNumber = shapefileRecord.getFirstPartNumber();
             this.numberOfParts = shapefileRecord.getNumberOfParts();
             this.numberOfPoints = shapefileRecord.getNumberOfPoints();
@@ -223,6 +225,15 @@ public abstract class ShapefileRenderable extends WWObjectImpl
     protected ShapeAttributes initNormalAttrs;
     protected ShapeAttributes initHighlightAttrs;
     protected ShapefileRenderable.AttributeDelegate initAttributeDelegate;
+    // Properties supporting records paged in from a spatially indexed shapefile.
+    protected Shapefile pagedShapefile;
+    protected ShapefileSpatialIndex spatialIndex;
+    protected int[] pagedRecordIndices; // the shapefile record index of each record ordinal
+    /**
+     * The paged records by ordinal. Records are softly referenced, so records not referenced elsewhere may be reclaimed
+     * by the garbage collector and paged in again when next needed.
+     */
+    protected AtomicReferenceArray<SoftReference<ShapefileRenderable.Record>> pagedRecords;
 
     protected static ShapeAttributes defaultAttributes;
     protected static ShapeAttributes defaultHighlightAttributes;
@@ -243,6 +254,9 @@ public abstract class ShapefileRenderable extends WWObjectImpl
      * causes each ShapefileRenderable.Record to adopt those attributes. Specifying a non-null value for the attribute
      * delegate enables callbacks during creation of each ShapefileRenderable.Record. See {@link AttributeDelegate} for
      * more information.
+     * <p>
+     * When {@link #mustPageRecords(Shapefile)} returns true, records are not assembled here. Each record is instead
+     * read from the shapefile and assembled when first needed, and the attribute delegate is called at that time.
      *
      * @param shapefile         The shapefile to display.
      * @param normalAttrs       The normal attributes for each ShapefileRenderable.Record. May be null to use the
@@ -263,7 +277,140 @@ public abstract class ShapefileRenderable extends WWObjectImpl
         this.initNormalAttrs = normalAttrs;
         this.initHighlightAttrs = highlightAttrs;
         this.initAttributeDelegate = attributeDelegate;
-        this.assembleRecords(shapefile);
+
+        if (this.mustPageRecords(shapefile))
+            this.initPagedRecords(shapefile);
+        else
+            this.assembleRecords(shapefile);
+    }
+
+    /**
+     * Indicates whether this ShapefileRenderable reads each record from the shapefile when the record is first needed,
+     * rather than assembling every record during initialization. The default implementation returns false. Subclasses
+     * that page records must locate them with {@link #pageRecords(gov.nasa.worldwind.geom.Sector)}, and should return
+     * true only when {@link #canPageRecords(Shapefile)} returns true.
+     *
+     * @param shapefile The shapefile to display.
+     *
+     * @return true to page records in from the shapefile, and false to assemble every record during initialization.
+     */
+    protected boolean mustPageRecords(Shapefile shapefile)
+    {
+        return false;
+    }
+
+    /**
+     * Indicates whether records can be paged in from the specified shapefile. Paging requires a shapefile with a
+     * spatial index whose coordinates are geographic and need no normalization, and from which no records have been
+     * read.
+     *
+     * @param shapefile The shapefile to display.
+     *
+     * @return true if records can be paged in from the shapefile, and false otherwise.
+     */
+    protected boolean canPageRecords(Shapefile shapefile)
+    {
+        Object coordinateSystem = shapefile.getValue(AVKey.COORDINATE_SYSTEM);
+
+        return (coordinateSystem == null || AVKey.COORDINATE_SYSTEM_GEOGRAPHIC.equals(coordinateSystem))
+            && !shapefile.isNormalizePoints()
+            && shapefile.numRecordsRead == 0
+            && shapefile.getSpatialIndex() != null;
+    }
+
+    protected void initPagedRecords(Shapefile shapefile)
+    {
+        this.pagedShapefile = shapefile;
+        this.spatialIndex = shapefile.getSpatialIndex();
+        this.pagedRecordIndices = this.spatialIndex.getIndexedShapes();
+        this.pagedRecords = new AtomicReferenceArray<SoftReference<ShapefileRenderable.Record>>(
+            this.pagedRecordIndices.length);
+    }
+
+    /**
+     * Returns the record with the specified ordinal, reading it from the shapefile and assembling it if it has not
+     * been paged in. Paged records are softly referenced: a record that is not referenced elsewhere may be reclaimed
+     * when memory is low, and is paged in again when next needed. Changes made to a reclaimed record, such as its
+     * attributes or visibility, are therefore lost. Applications that change records should keep references to them.
+     * <p>
+     * This may be called concurrently by multiple threads. Records are read and assembled without holding a lock, and
+     * when two threads page in the same record, both receive the record published first.
+     *
+     * @param ordinal The record's ordinal.
+     *
+     * @return The record, or null if the shapefile record cannot be assembled.
+     */
+    protected ShapefileRenderable.Record pageRecord(int ordinal)
+    {
+        while (true)
+        {
+            SoftReference<ShapefileRenderable.Record> ref = this.pagedRecords.get(ordinal);
+            ShapefileRenderable.Record record = ref != null ? ref.get() : null;
+            if (record != null)
+                return record;
+
+            ShapefileRecord shapefileRecord = this.pagedShapefile.readRecord(this.pagedRecordIndices[ordinal]);
+            if (shapefileRecord == null || !this.mustAssembleRecord(shapefileRecord))
+                return null;
+
+            record = this.assemblePagedRecord(ordinal, shapefileRecord);
+            if (this.pagedRecords.compareAndSet(ordinal, ref, new SoftReference<ShapefileRenderable.Record>(record)))
+                return record;
+            // Another thread published the record first. Return its record, unless that has already been reclaimed.
+        }
+    }
+
+    /**
+     * Creates the record with the specified ordinal from a paged shapefile record, and configures it as {@link
+     * #addRecord(ShapefileRecord, ShapefileRenderable.Record)} configures assembled records. The attribute delegate is
+     * called by one thread at a time.
+     *
+     * @param ordinal         The record's ordinal.
+     * @param shapefileRecord The shapefile record.
+     *
+     * @return The new record.
+     */
+    protected ShapefileRenderable.Record assemblePagedRecord(int ordinal, ShapefileRecord shapefileRecord)
+    {
+        ShapefileRenderable.Record renderableRecord = this.createRecord(shapefileRecord);
+        renderableRecord.setAttributes(this.initNormalAttrs);
+        renderableRecord.setHighlightAttributes(this.initHighlightAttrs);
+        renderableRecord.ordinal = ordinal;
+
+        if (this.initAttributeDelegate != null)
+        {
+            synchronized (this.initAttributeDelegate)
+            {
+                this.initAttributeDelegate.assignAttributes(shapefileRecord, renderableRecord);
+            }
+        }
+
+        return renderableRecord;
+    }
+
+    /**
+     * Returns the paged records whose bounding rectangles may intersect the specified sector, paging in those records
+     * as necessary. The returned list may include records outside the sector, and is in ordinal order.
+     *
+     * @param sector The sector of interest.
+     *
+     * @return The records that may intersect the sector.
+     */
+    protected List<ShapefileRenderable.Record> pageRecords(Sector sector)
+    {
+        int[] shapes = this.spatialIndex.query(sector.getMinLongitude().degrees, sector.getMinLatitude().degrees,
+            sector.getMaxLongitude().degrees, sector.getMaxLatitude().degrees);
+
+        ArrayList<ShapefileRenderable.Record> list = new ArrayList<ShapefileRenderable.Record>(shapes.length);
+        for (int shape : shapes)
+        {
+            int ordinal = Arrays.binarySearch(this.pagedRecordIndices, shape);
+            ShapefileRenderable.Record record = ordinal >= 0 ? this.pageRecord(ordinal) : null;
+            if (record != null)
+                list.add(record);
+        }
+
+        return list;
     }
 
     protected void assembleRecords(Shapefile shapefile)
@@ -292,10 +439,15 @@ public abstract class ShapefileRenderable extends WWObjectImpl
 
     protected void assembleRecord(ShapefileRecord shapefileRecord)
     {
-        ShapefileRenderable.Record renderableRecord = new ShapefileRenderable.Record(this, shapefileRecord);
+        ShapefileRenderable.Record renderableRecord = this.createRecord(shapefileRecord);
         this.addRecord(shapefileRecord, renderableRecord);
     }
 
+    protected ShapefileRenderable.Record createRecord(ShapefileRecord shapefileRecord)
+    {
+        return new ShapefileRenderable.Record(this, shapefileRecord);
+    }
+
     protected void addRecord(ShapefileRecord shapefileRecord, ShapefileRenderable.Record renderableRecord)
     {
         renderableRecord.setAttributes(this.initNormalAttrs);
@@ -316,6 +468,9 @@ public abstract class ShapefileRenderable extends WWObjectImpl
 
     public int getRecordCount()
     {
+        if (this.pagedShapefile != null)
+            return this.pagedRecords.length();
+
         if (this.records == null)
             return 0;
 
@@ -324,25 +479,71 @@ public abstract class ShapefileRenderable extends WWObjectImpl
 
     public ShapefileRenderable.Record getRecord(int ordinal)
     {
-        if (this.records == null || ordinal < 0 || ordinal >= this.records.size())
+        if (ordinal < 0 || ordinal >= this.getRecordCount())
         {
             String msg = Logging.getMessage("generic.indexOutOfRange", ordinal);
             Logging.logger().severe(msg);
             throw new IllegalArgumentException(msg);
         }
 
+        if (this.pagedShapefile != null)
+            return this.pageRecord(ordinal);
+
         return this.records.get(ordinal);
     }
 
     @Override
     public Iterator<ShapefileRenderable.Record> iterator()
     {
+        if (this.pagedShapefile != null) // page in each record as the iterator reaches it
+            return this.pagedRecordIterator();
+
         if (this.records == null)
             return Collections.<ShapefileRenderable.Record>emptyList().iterator();
 
         return this.records.iterator();
     }
 
+    /**
+     * Returns an iterator over the paged records in ordinal order. Each record is paged in when the iterator reaches
+     * it, and is not retained by the iterator afterwards. Records that cannot be assembled are skipped.
+     *
+     * @return An iterator over the paged records.
+     */
+    protected Iterator<ShapefileRenderable.Record> pagedRecordIterator()
+    {
+        return new Iterator<ShapefileRenderable.Record>()
+        {
+            protected int nextOrdinal;
+            protected ShapefileRenderable.Record next;
+
+            public boolean hasNext()
+            {
+                while (this.next == null && this.nextOrdinal < pagedRecords.length())
+                {
+                    this.next = pageRecord(this.nextOrdinal++);
+                }
+
+                return this.next != null;
+            }
+
+            public ShapefileRenderable.Record next()
+            {
+                if (!this.hasNext())
+                    throw new NoSuchElementException();
+
+                ShapefileRenderable.Record record = this.next;
+                this.next = null;
+                return record;
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
     public boolean isVisible()
     {
         return this.visible;
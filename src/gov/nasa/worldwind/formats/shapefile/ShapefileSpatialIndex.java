@@ -0,0 +1,478 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.shapefile;
+
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.nio.*;
+import java.util.Arrays;
+
+/**
+ * A quadtree spatial index of a shapefile's records, stored in the ".qix" format written by MapServer's shptree and by
+ * shapelib. The index locates the records whose bounding rectangles intersect a region without reading the records
+ * themselves, and is persisted next to the shapefile so that it is built only once. Index coordinates are in the
+ * shapefile's own coordinate system, and shapes are identified by their zero-origin record index.
+ * <p>
+ * The index is held in memory exactly as stored in the file: a 16-byte header followed by the tree's nodes in depth
+ * first order. Each node holds the number of bytes occupied by its descendants, its bounding rectangle as minimum X,
+ * minimum Y, maximum X and maximum Y, its number of shapes, the shapes' indices, and its number of children. Queries
+ * skip the descendants of nodes outside the region of interest without decoding them. Indices may be queried
+ * concurrently by multiple threads.
+ *
+ * @version $Id$
+ * @see Shapefile#getSpatialIndex()
+ */
+public class ShapefileSpatialIndex
+{
+    protected static final String SIGNATURE = "SQT";
+    protected static final int VERSION = 1;
+    protected static final int HEADER_LENGTH = 16;
+    protected static final int NODE_HEADER_LENGTH = 40; // offset, rectangle and number of shapes
+    protected static final int SHAPES_PER_LEAF = 8;
+    protected static final int MAX_DEPTH = 12;
+
+    protected final ByteBuffer buffer;
+    protected final int numShapes;
+    protected final int maxDepth;
+
+    /** A node of a quadtree under construction. */
+    protected static class Node
+    {
+        protected final double minX;
+        protected final double minY;
+        protected final double maxX;
+        protected final double maxY;
+        protected int[] shapes = new int[4];
+        protected int numShapes;
+        protected Node[] children;
+
+        public Node(double minX, double minY, double maxX, double maxY)
+        {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        public void addShape(int shape)
+        {
+            if (this.numShapes == this.shapes.length)
+                this.shapes = Arrays.copyOf(this.shapes, 2 * this.shapes.length);
+
+            this.shapes[this.numShapes++] = shape;
+        }
+
+        public int getNumChildren()
+        {
+            int count = 0;
+            for (int i = 0; this.children != null && i < this.children.length; i++)
+            {
+                if (this.children[i] != null)
+                    count++;
+            }
+
+            return count;
+        }
+
+        /**
+         * Returns the child containing the specified rectangle, creating it if necessary, or null if the rectangle
+         * does not fit within one of this node's quadrants.
+         */
+        public Node getChildContaining(double[] bounds, int offset)
+        {
+            double midX = 0.5 * (this.minX + this.maxX);
+            double midY = 0.5 * (this.minY + this.maxY);
+
+            int quadrant;
+            if (bounds[offset + 2] <= midX)
+                quadrant = 0;
+            else if (bounds[offset] >= midX)
+                quadrant = 1;
+            else
+                return null;
+
+            if (bounds[offset + 1] >= midY)
+                quadrant += 2;
+            else if (bounds[offset + 3] > midY)
+                return null;
+
+            if (this.children == null)
+                this.children = new Node[4];
+
+            if (this.children[quadrant] == null)
+            {
+                this.children[quadrant] = new Node(
+                    (quadrant & 1) == 0 ? this.minX : midX, (quadrant & 2) == 0 ? this.minY : midY,
+                    (quadrant & 1) == 0 ? midX : this.maxX, (quadrant & 2) == 0 ? midY : this.maxY);
+            }
+
+            return this.children[quadrant];
+        }
+
+        /** Returns the number of bytes occupied by this node's descendants. */
+        public int getDescendantLength()
+        {
+            int length = 0;
+            for (int i = 0; this.children != null && i < this.children.length; i++)
+            {
+                if (this.children[i] != null)
+                    length += this.children[i].getLength();
+            }
+
+            return length;
+        }
+
+        /** Returns the number of bytes occupied by this node and its descendants. */
+        public int getLength()
+        {
+            return NODE_HEADER_LENGTH + 4 * this.numShapes + 4 + this.getDescendantLength();
+        }
+
+        public void write(ByteBuffer buffer)
+        {
+            buffer.putInt(this.getDescendantLength());
+            buffer.putDouble(this.minX).putDouble(this.minY).putDouble(this.maxX).putDouble(this.maxY);
+            buffer.putInt(this.numShapes);
+            for (int i = 0; i < this.numShapes; i++)
+            {
+                buffer.putInt(this.shapes[i]);
+            }
+
+            buffer.putInt(this.getNumChildren());
+            for (int i = 0; this.children != null && i < this.children.length; i++)
+            {
+                if (this.children[i] != null)
+                    this.children[i].write(buffer);
+            }
+        }
+    }
+
+    /** A growable list of shape indices collected by a query. */
+    protected static class ShapeList
+    {
+        protected int[] shapes = new int[16];
+        protected int size;
+
+        public void add(int shape)
+        {
+            if (this.size == this.shapes.length)
+                this.shapes = Arrays.copyOf(this.shapes, 2 * this.shapes.length);
+
+            this.shapes[this.size++] = shape;
+        }
+
+        public int[] toSortedArray()
+        {
+            int[] array = Arrays.copyOf(this.shapes, this.size);
+            Arrays.sort(array);
+            return array;
+        }
+    }
+
+    /**
+     * Creates an index from the bytes of a ".qix" file.
+     *
+     * @param buffer the file's bytes, beginning with its header.
+     *
+     * @throws IllegalArgumentException if the buffer is null.
+     * @throws IOException              if the buffer does not contain a valid quadtree index.
+     */
+    public ShapefileSpatialIndex(ByteBuffer buffer) throws IOException
+    {
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (buffer.limit() < HEADER_LENGTH || buffer.get(0) != SIGNATURE.charAt(0)
+            || buffer.get(1) != SIGNATURE.charAt(1) || buffer.get(2) != SIGNATURE.charAt(2) || buffer.get(4) != VERSION)
+        {
+            throw new IOException(Logging.getMessage("SHP.UnrecognizedSpatialIndex"));
+        }
+
+        // Byte orders 1 and 3 denote little endian, while 2 and 4 denote big endian.
+        int byteOrder = buffer.get(3);
+        if (byteOrder < 1 || byteOrder > 4)
+            throw new IOException(Logging.getMessage("SHP.UnrecognizedSpatialIndex"));
+
+        this.buffer = buffer.duplicate();
+        this.buffer.order(byteOrder % 2 == 1 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        this.numShapes = this.buffer.getInt(8);
+        this.maxDepth = this.buffer.getInt(12);
+
+        if (this.numShapes < 0 || (this.buffer.limit() > HEADER_LENGTH
+            && this.validateNode(HEADER_LENGTH, this.buffer.limit()) != this.buffer.limit()))
+        {
+            throw new IOException(Logging.getMessage("SHP.UnrecognizedSpatialIndex"));
+        }
+    }
+
+    /**
+     * Builds a quadtree index of the specified shapes. Each shape is placed in the deepest node whose quadrant contains
+     * the shape's bounding rectangle. The tree's depth is chosen to leave about eight shapes in each leaf node.
+     *
+     * @param numShapes the number of records in the shapefile.
+     * @param bounds    the bounding rectangle of each record as minimum X, minimum Y, maximum X and maximum Y. Records
+     *                  whose minimum X is NaN are omitted from the index.
+     *
+     * @return a new index of the shapes.
+     *
+     * @throws IllegalArgumentException if the bounds are null or hold fewer than four values per shape.
+     */
+    public static ShapefileSpatialIndex build(int numShapes, double[] bounds)
+    {
+        if (bounds == null || numShapes < 0 || bounds.length < 4 * numShapes)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", bounds != null ? bounds.length : 0);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        int numIndexed = 0;
+        for (int i = 0; i < numShapes; i++)
+        {
+            if (Double.isNaN(bounds[4 * i]))
+                continue;
+
+            minX = Math.min(minX, bounds[4 * i]);
+            minY = Math.min(minY, bounds[4 * i + 1]);
+            maxX = Math.max(maxX, bounds[4 * i + 2]);
+            maxY = Math.max(maxY, bounds[4 * i + 3]);
+            numIndexed++;
+        }
+
+        int maxDepth = 1;
+        while (maxDepth < MAX_DEPTH && SHAPES_PER_LEAF * Math.pow(4, maxDepth - 1) < numIndexed)
+        {
+            maxDepth++;
+        }
+
+        Node root = numIndexed > 0 ? new Node(minX, minY, maxX, maxY) : null;
+        for (int i = 0; i < numShapes && root != null; i++)
+        {
+            if (Double.isNaN(bounds[4 * i]))
+                continue;
+
+            Node node = root;
+            for (int depth = 1; depth < maxDepth; depth++)
+            {
+                Node child = node.getChildContaining(bounds, 4 * i);
+                if (child == null)
+                    break;
+
+                node = child;
+            }
+
+            node.addShape(i);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + (root != null ? root.getLength() : 0));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(SIGNATURE.getBytes()).put((byte) 1).put((byte) VERSION).put(new byte[3]);
+        buffer.putInt(numShapes).putInt(maxDepth);
+        if (root != null)
+            root.write(buffer);
+        buffer.flip();
+
+        try
+        {
+            return new ShapefileSpatialIndex(buffer);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e); // the index is valid by construction
+        }
+    }
+
+    /**
+     * Reads an index from a ".qix" file.
+     *
+     * @param file the file to read.
+     *
+     * @return the index stored in the file.
+     *
+     * @throws IllegalArgumentException if the file is null.
+     * @throws IOException              if the file cannot be read or does not contain a valid quadtree index.
+     */
+    public static ShapefileSpatialIndex read(File file) throws IOException
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return new ShapefileSpatialIndex(WWIO.readFileToBuffer(file));
+    }
+
+    /**
+     * Writes this index to a ".qix" file.
+     *
+     * @param file the file to write.
+     *
+     * @return true if the index was written, and false if the file is locked by another writer.
+     *
+     * @throws IllegalArgumentException if the file is null.
+     * @throws IOException              if the file cannot be written.
+     */
+    public boolean write(File file) throws IOException
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return WWIO.saveBuffer(this.buffer.duplicate(), file, false);
+    }
+
+    /**
+     * Returns the number of records in the indexed shapefile, including records omitted from the index.
+     *
+     * @return the number of records in the indexed shapefile.
+     */
+    public int getNumberOfShapes()
+    {
+        return this.numShapes;
+    }
+
+    /**
+     * Returns the maximum depth of the quadtree.
+     *
+     * @return the quadtree's maximum depth.
+     */
+    public int getMaxDepth()
+    {
+        return this.maxDepth;
+    }
+
+    /**
+     * Returns the indices of the records held in the index, in ascending order.
+     *
+     * @return the indices of all indexed records.
+     */
+    public int[] getIndexedShapes()
+    {
+        return this.query(-Double.MAX_VALUE, -Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE);
+    }
+
+    /**
+     * Returns the indices of the records that may intersect a rectangle, in ascending order. The returned records
+     * belong to quadtree nodes intersecting the rectangle, and therefore include every record whose bounding rectangle
+     * intersects it, along with some records whose bounding rectangles do not.
+     *
+     * @param minX the rectangle's minimum X coordinate, in the shapefile's coordinate system.
+     * @param minY the rectangle's minimum Y coordinate.
+     * @param maxX the rectangle's maximum X coordinate.
+     * @param maxY the rectangle's maximum Y coordinate.
+     *
+     * @return the indices of the candidate records. The array is empty if there are no candidates.
+     */
+    public int[] query(double minX, double minY, double maxX, double maxY)
+    {
+        ShapeList shapes = new ShapeList();
+        if (this.buffer.limit() > HEADER_LENGTH)
+            this.queryNode(HEADER_LENGTH, minX, minY, maxX, maxY, shapes);
+
+        return shapes.toSortedArray();
+    }
+
+    /**
+     * Adds the shapes of the node at the specified position and its descendants that intersect a rectangle to a list.
+     *
+     * @return the position following the node's descendants.
+     */
+    protected int queryNode(int pos, double minX, double minY, double maxX, double maxY, ShapeList shapes)
+    {
+        int numShapes = this.buffer.getInt(pos + 36);
+        int childPos = pos + NODE_HEADER_LENGTH + 4 * numShapes + 4;
+        int endPos = childPos + this.buffer.getInt(pos);
+
+        if (this.buffer.getDouble(pos + 4) > maxX || this.buffer.getDouble(pos + 12) > maxY
+            || this.buffer.getDouble(pos + 20) < minX || this.buffer.getDouble(pos + 28) < minY)
+        {
+            return endPos; // skip the node and its descendants
+        }
+
+        for (int i = 0; i < numShapes; i++)
+        {
+            shapes.add(this.buffer.getInt(pos + NODE_HEADER_LENGTH + 4 * i));
+        }
+
+        int numChildren = this.buffer.getInt(childPos - 4);
+        for (int i = 0; i < numChildren; i++)
+        {
+            childPos = this.queryNode(childPos, minX, minY, maxX, maxY, shapes);
+        }
+
+        return endPos;
+    }
+
+    /**
+     * Verifies that the node at the specified position and its descendants lie within the specified limit and
+     * reference valid records.
+     *
+     * @return the position following the node's descendants, or -1 if the node is invalid.
+     */
+    protected int validateNode(int pos, int limit)
+    {
+        if (pos < 0 || pos + NODE_HEADER_LENGTH > limit)
+            return -1;
+
+        int numShapes = this.buffer.getInt(pos + 36);
+        if (numShapes < 0 || numShapes > (limit - pos - NODE_HEADER_LENGTH - 4) / 4)
+            return -1;
+
+        for (int i = 0; i < numShapes; i++)
+        {
+            int shape = this.buffer.getInt(pos + NODE_HEADER_LENGTH + 4 * i);
+            if (shape < 0 || shape >= this.numShapes)
+                return -1;
+        }
+
+        int childPos = pos + NODE_HEADER_LENGTH + 4 * numShapes + 4;
+        int endPos = childPos + this.buffer.getInt(pos);
+        if (endPos < childPos || endPos > limit)
+            return -1;
+
+        int numChildren = this.buffer.getInt(childPos - 4);
+        for (int i = 0; i < numChildren && childPos >= 0; i++)
+        {
+            childPos = this.validateNode(childPos, endPos);
+        }
+
+        return numChildren >= 0 && childPos == endPos ? endPos : -1;
+    }
+}
@@ -59,6 +59,9 @@ public class GeotiffReader implements Disposable {
     private ArrayList<TiffIFDEntry[]> tiffIFDs = null;
     private ArrayList<AVList> metadata = null;
 
+    // Read-only view of the whole file, created on the first windowed read. Null when the file is too large to map.
+    private ByteBuffer mappedFile = null;
+
     public GeotiffReader(String sourceFilename) throws IOException {
         this.sourceFilename = sourceFilename;
         this.sourceFile = new RandomAccessFile(sourceFilename, "r");
@@ -113,6 +116,14 @@ public class GeotiffReader implements Disposable {
         return (values.hasKey(AVKey.HEIGHT)) ? (Integer) values.getValue(AVKey.HEIGHT) : 0;
     }
 
+    /**
+     * Reads every image in the file except reduced resolution versions of other images, such as the overviews of a
+     * cloud optimized GeoTIFF. Use {@link #readDataRaster(int)} to read an overview.
+     *
+     * @return the file's full resolution images, or null if the file contains no images.
+     *
+     * @throws IOException if an image cannot be read.
+     */
     public DataRaster[] readDataRaster() throws IOException {
         int num = this.getNumImages();
 
@@ -120,11 +131,13 @@ public class GeotiffReader implements Disposable {
             return null;
         }
 
-        DataRaster[] rasters = new DataRaster[num];
+        ArrayList<DataRaster> rasters = new ArrayList<DataRaster>(num);
         for (int i = 0; i < num; i++) {
-            rasters[i] = this.doRead(i);
+            if (!this.isReducedResolutionImage(i)) {
+                rasters.add(this.doRead(i));
+            }
         }
-        return rasters;
+        return rasters.toArray(new DataRaster[rasters.size()]);
     }
 
     public DataRaster readDataRaster(int imageIndex) throws IOException {
@@ -132,6 +145,145 @@ public class GeotiffReader implements Disposable {
         return this.doRead(imageIndex);
     }
 
+    /**
+     * Reads a rectangular window of an elevation image. Only the strips or tiles that intersect the window are read.
+     * Uncompressed data is read from a memory-mapped view of the file, and windows spanning more than one compressed
+     * strip or tile are decompressed in parallel. LZW, Deflate and PackBits compression and horizontal differencing
+     * are supported.
+     * <p>
+     * The returned raster's sector is interpolated linearly from the image's sector.
+     *
+     * @param imageIndex the image to read.
+     * @param x          the window's left column.
+     * @param y          the window's top row.
+     * @param width      the window's width in pixels.
+     * @param height     the window's height in pixels.
+     *
+     * @return a raster containing the window's elevations.
+     *
+     * @throws IllegalArgumentException if the image index is invalid or the window is not contained in the image.
+     * @throws IOException              if the image is not an elevation raster, or cannot be read.
+     */
+    public DataRaster readDataRaster(int imageIndex, int x, int y, int width, int height) throws IOException {
+        checkImageIndex(imageIndex);
+
+        int imageWidth = this.getWidth(imageIndex);
+        int imageHeight = this.getHeight(imageIndex);
+        if (x < 0 || y < 0 || width < 1 || height < 1 || x + width > imageWidth || y + height > imageHeight) {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange",
+                    x + "," + y + " " + width + "x" + height);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return this.readElevations(imageIndex, x, y, width, height);
+    }
+
+    /**
+     * Reads the part of an elevation image that covers a sector. The window read is the smallest one containing the
+     * sector's intersection with the image. See {@link #readDataRaster(int, int, int, int, int)}.
+     *
+     * @param imageIndex the image to read.
+     * @param sector     the sector to read.
+     *
+     * @return a raster containing the elevations covering the sector, or null if the sector does not intersect the
+     *         image.
+     *
+     * @throws IllegalArgumentException if the image index is invalid or the sector is null.
+     * @throws IOException              if the image has no sector, is not an elevation raster, or cannot be read.
+     */
+    public DataRaster readDataRaster(int imageIndex, Sector sector) throws IOException {
+        checkImageIndex(imageIndex);
+
+        if (sector == null) {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Sector imageSector = (Sector) this.metadata.get(imageIndex).getValue(AVKey.SECTOR);
+        if (imageSector == null) {
+            String message = Logging.getMessage("DataRaster.MissingMetadata", AVKey.SECTOR);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        Sector overlap = imageSector.intersection(sector);
+        if (overlap == null) {
+            return null;
+        }
+
+        int imageWidth = this.getWidth(imageIndex);
+        int imageHeight = this.getHeight(imageIndex);
+        double dLon = imageSector.getDeltaLonDegrees() / imageWidth;
+        double dLat = imageSector.getDeltaLatDegrees() / imageHeight;
+
+        int x0 = (int) Math.floor((overlap.getMinLongitude().degrees - imageSector.getMinLongitude().degrees) / dLon);
+        int x1 = (int) Math.ceil((overlap.getMaxLongitude().degrees - imageSector.getMinLongitude().degrees) / dLon);
+        int y0 = (int) Math.floor((imageSector.getMaxLatitude().degrees - overlap.getMaxLatitude().degrees) / dLat);
+        int y1 = (int) Math.ceil((imageSector.getMaxLatitude().degrees - overlap.getMinLatitude().degrees) / dLat);
+
+        x0 = WWMath.clamp(x0, 0, imageWidth - 1);
+        y0 = WWMath.clamp(y0, 0, imageHeight - 1);
+        x1 = WWMath.clamp(x1, x0 + 1, imageWidth);
+        y1 = WWMath.clamp(y1, y0 + 1, imageHeight);
+
+        return this.readElevations(imageIndex, x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * Indicates whether an image is a reduced resolution version of another image in the file, such as the overviews
+     * of a cloud optimized GeoTIFF.
+     *
+     * @param imageIndex the image to test.
+     *
+     * @return true if the image's NewSubfileType tag marks it as reduced resolution, otherwise false.
+     *
+     * @throws IllegalArgumentException if the image index is invalid.
+     * @throws IOException              if the file cannot be read.
+     */
+    public boolean isReducedResolutionImage(int imageIndex) throws IOException {
+        checkImageIndex(imageIndex);
+
+        TiffIFDEntry entry = getByTag(this.tiffIFDs.get(imageIndex), Tiff.Tag.NEW_SUBFILE_TYPE);
+        return entry != null && (entry.asLong() & Tiff.NewSubfileType.REDUCED_RESOLUTION) != 0;
+    }
+
+    /**
+     * Selects the coarsest of the first image and its reduced resolution versions that still satisfies a resolution.
+     * Reading that image instead of the full resolution one avoids decoding pixels that would be discarded.
+     *
+     * @param resolution the desired pixel size, in radians of latitude, as returned by
+     *                   {@link gov.nasa.worldwind.util.Level#getTexelSize()}.
+     *
+     * @return the index of the selected image, or 0 if no reduced resolution image satisfies the resolution or the
+     *         file is not georeferenced.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    public int getImageIndexForResolution(double resolution) throws IOException {
+        int bestIndex = 0;
+        double bestSize = this.getPixelSize(0);
+
+        if (bestSize <= 0) {
+            return 0;
+        }
+
+        for (int i = 1; i < this.getNumImages(); i++) {
+            if (!this.isReducedResolutionImage(i)) {
+                continue;
+            }
+
+            double size = this.getPixelSize(i);
+            if (size <= resolution && size > bestSize) {
+                bestIndex = i;
+                bestSize = size;
+            }
+        }
+
+        return bestIndex;
+    }
+
     public BufferedImage read() throws IOException {
         return this.read(0);
     }
@@ -222,6 +374,11 @@ public class GeotiffReader implements Disposable {
             throw new IOException(msg);
         }
 
+        // Elevations are read strip by strip or tile by tile, so they may be tiled and compressed.
+        if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.ELEVATION) {
+            return this.readElevations(imageIndex, 0, 0, tiff.width, tiff.height);
+        }
+
         for (TiffIFDEntry entry : ifd) {
             try {
                 switch (entry.tag) {
@@ -277,50 +434,7 @@ public class GeotiffReader implements Disposable {
 
         long offset = stripOffsets[0];
 
-        if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.ELEVATION) {
-            ByteBufferRaster raster = new ByteBufferRaster(tiff.width, tiff.height,
-                    (Sector) values.getValue(AVKey.SECTOR), values);
-
-            if (raster.getValue(AVKey.DATA_TYPE) == AVKey.INT8) {
-                byte[][] data = this.tiffReader.readPlanar8(tiff.width, tiff.height, tiff.samplesPerPixel,
-                        stripOffsets, stripCounts, tiff.rowsPerStrip);
-
-                int next = 0;
-                for (int y = 0; y < tiff.height; y++) {
-                    for (int x = 0; x < tiff.width; x++) {
-                        raster.setDoubleAtPosition(y, x, (double) data[0][next++]);
-                    }
-                }
-            } else if (raster.getValue(AVKey.DATA_TYPE) == AVKey.INT16) {
-                short[][] data = this.tiffReader.readPlanar16(tiff.width, tiff.height, tiff.samplesPerPixel,
-                        stripOffsets, stripCounts, tiff.rowsPerStrip);
-
-                int next = 0;
-                for (int y = 0; y < tiff.height; y++) {
-                    for (int x = 0; x < tiff.width; x++) {
-                        raster.setDoubleAtPosition(y, x, (double) data[0][next++]);
-                    }
-                }
-            } else if (raster.getValue(AVKey.DATA_TYPE) == AVKey.FLOAT32) {
-                float[][] data = this.tiffReader.readPlanarFloat32(tiff.width, tiff.height, tiff.samplesPerPixel,
-                        stripOffsets, stripCounts, tiff.rowsPerStrip);
-
-                int next = 0;
-                for (int y = 0; y < tiff.height; y++) {
-                    for (int x = 0; x < tiff.width; x++) {
-                        raster.setDoubleAtPosition(y, x, (double) data[0][next++]);
-                    }
-                }
-            } else {
-                String message = Logging.getMessage("Geotiff.UnsupportedDataTypeRaster", tiff.toString());
-                Logging.logger().severe(message);
-                throw new IOException(message);
-            }
-
-            ElevationsUtil.rectify(raster);
-
-            return raster;
-        } else if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.IMAGE
+        if (values.getValue(AVKey.PIXEL_FORMAT) == AVKey.IMAGE
                 && values.getValue(AVKey.IMAGE_COLOR_FORMAT) == AVKey.GRAYSCALE) {
             BufferedImage grayImage = null;
 
@@ -466,6 +580,90 @@ public class GeotiffReader implements Disposable {
         throw new IOException(message);
     }
 
+    /*
+     * Reads a window of an elevation image through a TIFFBlockReader, which decodes only the intersecting strips or
+     * tiles. The elevations are stored big-endian, matching the BYTE_ORDER this reader reports for all images.
+     *
+     */
+    private DataRaster readElevations(int imageIndex, int x, int y, int width, int height) throws IOException {
+        TiffIFDEntry[] ifd = this.tiffIFDs.get(imageIndex);
+        AVList values = this.metadata.get(imageIndex).copy();
+
+        if (values.getValue(AVKey.PIXEL_FORMAT) != AVKey.ELEVATION) {
+            String message = Logging.getMessage("GeotiffReader.NotElevationRaster", this.sourceFilename);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        BaselineTiff tiff = BaselineTiff.extract(ifd, this.tiffReader);
+        if (null == tiff) {
+            String message = Logging.getMessage("GeotiffReader.BadGeotiff");
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        if (tiff.rowsPerStrip <= Tiff.Undefined) {
+            tiff.rowsPerStrip = Integer.MAX_VALUE;
+        }
+
+        Object dataType = values.getValue(AVKey.DATA_TYPE);
+        if (dataType != AVKey.INT8 && dataType != AVKey.INT16 && dataType != AVKey.INT32
+                && dataType != AVKey.FLOAT32) {
+            String message = Logging.getMessage("Geotiff.UnsupportedDataTypeRaster", tiff.toString());
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        TIFFBlockReader blockReader = new TIFFBlockReader(this.tiffReader, this.theChannel, this.getMappedFile(),
+                ifd, tiff);
+        ByteBuffer buffer = blockReader.readWindow(x, y, width, height, ByteOrder.BIG_ENDIAN);
+
+        Sector sector = (Sector) values.getValue(AVKey.SECTOR);
+        if (sector != null && (width != tiff.width || height != tiff.height)) {
+            double dLon = sector.getDeltaLonDegrees() / tiff.width;
+            double dLat = sector.getDeltaLatDegrees() / tiff.height;
+            double maxLat = sector.getMaxLatitude().degrees;
+            double minLon = sector.getMinLongitude().degrees;
+
+            sector = Sector.fromDegrees(maxLat - (y + height) * dLat, maxLat - y * dLat,
+                    minLon + x * dLon, minLon + (x + width) * dLon);
+            values.setValue(AVKey.SECTOR, sector);
+            values.setValue(AVKey.ORIGIN, new LatLon(sector.getMaxLatitude(), sector.getMinLongitude()));
+        }
+        values.setValue(AVKey.WIDTH, width);
+        values.setValue(AVKey.HEIGHT, height);
+
+        ByteBufferRaster raster = new ByteBufferRaster(width, height, sector, buffer, values);
+        ElevationsUtil.rectify(raster);
+
+        return raster;
+    }
+
+    /*
+     * Returns the size of one of an image's pixels in radians of latitude, or 0 if the image has no sector.
+     *
+     */
+    private double getPixelSize(int imageIndex) throws IOException {
+        Sector sector = (Sector) this.metadata.get(imageIndex).getValue(AVKey.SECTOR);
+        int height = this.getHeight(imageIndex);
+        return (sector != null && height > 0) ? sector.getDeltaLatRadians() / height : 0;
+    }
+
+    /*
+     * Maps the whole file read-only on first use. Files larger than a single mapping can hold are read with
+     * positional reads instead.
+     *
+     */
+    private ByteBuffer getMappedFile() throws IOException {
+        if (this.mappedFile == null) {
+            long size = this.theChannel.size();
+            if (size <= Integer.MAX_VALUE) {
+                this.mappedFile = this.theChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+        return this.mappedFile;
+    }
+
     /**
      * Returns true if georeferencing information was found in this file.
      * <p>
@@ -615,6 +813,13 @@ public class GeotiffReader implements Disposable {
             }
 
             this.processGeoKeys(i);
+
+            // Reduced resolution images cover the same area as the first image, but seldom carry georeferencing
+            // tags of their own. The geo keys processed above describe the first image's pixel grid.
+            if (i > 0 && this.isReducedResolutionImage(i)) {
+                WWUtil.copyValues(this.metadata.get(0), values,
+                        new String[]{AVKey.SECTOR, AVKey.ORIGIN, AVKey.COORDINATE_SYSTEM}, true);
+            }
         }
     }
 
@@ -919,6 +1124,7 @@ public class GeotiffReader implements Disposable {
      */
     @Override
     public void dispose() {
+        this.mappedFile = null;
         try {
             WWIO.closeStream(this.theChannel, this.sourceFilename);
             WWIO.closeStream(this.sourceFile, this.sourceFilename);
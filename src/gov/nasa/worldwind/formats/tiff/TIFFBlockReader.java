@@ -0,0 +1,612 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * This is a package private class that reads rectangular windows of a single TIFF image by decoding only the strips or
+ * tiles that intersect the window. Uncompressed blocks are read directly from a memory-mapped view of the file when
+ * one is available. LZW, Deflate and PackBits blocks are decoded independently of each other, so a window that spans
+ * more than one compressed block is decoded in parallel on the common fork-join pool.
+ * <p>
+ * Only the first sample plane is read. Chunky images must therefore have one sample per pixel, which is the case for
+ * elevation rasters.
+ *
+ * @version $Id$
+ */
+class TIFFBlockReader
+{
+    /** Decodes one block and copies its intersection with the window into the destination buffer. */
+    @SuppressWarnings("serial")
+    protected static class BlockAction extends RecursiveAction
+    {
+        protected final TIFFBlockReader reader;
+        protected final int[] blocks;
+        protected final int start;
+        protected final int end;
+        protected final ByteBuffer dest;
+        protected final int x;
+        protected final int y;
+        protected final int width;
+        protected final int height;
+
+        public BlockAction(TIFFBlockReader reader, int[] blocks, int start, int end, ByteBuffer dest,
+            int x, int y, int width, int height)
+        {
+            this.reader = reader;
+            this.blocks = blocks;
+            this.start = start;
+            this.end = end;
+            this.dest = dest;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.end - this.start <= 1)
+            {
+                try
+                {
+                    for (int i = this.start; i < this.end; i++)
+                    {
+                        ByteBuffer block = this.reader.decodeBlock(this.blocks[i]);
+                        this.reader.copyBlock(block, this.blocks[i], this.dest, this.x, this.y, this.width,
+                            this.height);
+                    }
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+
+            int mid = (this.start + this.end) >>> 1;
+            invokeAll(new BlockAction(this.reader, this.blocks, this.start, mid, this.dest, this.x, this.y,
+                    this.width, this.height),
+                new BlockAction(this.reader, this.blocks, mid, this.end, this.dest, this.x, this.y, this.width,
+                    this.height));
+        }
+    }
+
+    protected final TIFFReader tiffReader;
+    protected final FileChannel channel;
+    protected final ByteBuffer mappedFile;
+    protected final ByteOrder byteOrder;
+
+    protected final int imageWidth;
+    protected final int imageHeight;
+    protected final int blockWidth;
+    protected final int blockHeight;
+    protected final int blocksAcross;
+    protected final int blocksDown;
+    protected final boolean tiled;
+    protected final int bytesPerSample;
+    protected final int compression;
+    protected final int predictor;
+    protected final long[] offsets;
+    protected final long[] counts;
+
+    /**
+     * Creates a block reader for the image described by an IFD.
+     *
+     * @param tiffReader the reader used to decode LZW blocks and to determine the file's byte order.
+     * @param channel    the channel to read blocks from when <code>mappedFile</code> is null.
+     * @param mappedFile a read-only view of the entire file, or null if the file is not mapped.
+     * @param ifd        the image file directory.
+     * @param tiff       the baseline tags extracted from <code>ifd</code>.
+     *
+     * @throws IOException if the image's layout, sample size or compression is not supported.
+     */
+    public TIFFBlockReader(TIFFReader tiffReader, FileChannel channel, ByteBuffer mappedFile, TiffIFDEntry[] ifd,
+        BaselineTiff tiff) throws IOException
+    {
+        this.tiffReader = tiffReader;
+        this.channel = channel;
+        this.mappedFile = mappedFile;
+        this.byteOrder = tiffReader.getByteOrder();
+        this.imageWidth = tiff.width;
+        this.imageHeight = tiff.height;
+
+        long tileWidth = 0, tileLength = 0;
+        long[] stripOffsets = null, stripCounts = null, tileOffsets = null, tileCounts = null;
+        int compression = Tiff.Compression.NONE;
+        int predictor = Tiff.Predictor.NONE;
+
+        for (TiffIFDEntry entry : ifd)
+        {
+            switch (entry.tag)
+            {
+                case Tiff.Tag.STRIP_OFFSETS:
+                    stripOffsets = entry.getAsLongs();
+                    break;
+                case Tiff.Tag.STRIP_BYTE_COUNTS:
+                    stripCounts = entry.getAsLongs();
+                    break;
+                case Tiff.Tag.TILE_WIDTH:
+                    tileWidth = entry.asLong();
+                    break;
+                case Tiff.Tag.TILE_LENGTH:
+                    tileLength = entry.asLong();
+                    break;
+                case Tiff.Tag.TILE_OFFSETS:
+                    tileOffsets = entry.getAsLongs();
+                    break;
+                case Tiff.Tag.TILE_COUNTS:
+                    tileCounts = entry.getAsLongs();
+                    break;
+                case Tiff.Tag.COMPRESSION:
+                    compression = (int) entry.asLong();
+                    break;
+                case Tiff.Tag.TIFF_PREDICTOR:
+                    predictor = (int) entry.asLong();
+                    break;
+            }
+        }
+
+        this.tiled = tileWidth > 0 || tileOffsets != null;
+        if (this.tiled)
+        {
+            this.blockWidth = (int) tileWidth;
+            this.blockHeight = (int) tileLength;
+            this.offsets = tileOffsets;
+            this.counts = tileCounts;
+        }
+        else
+        {
+            this.blockWidth = tiff.width;
+            this.blockHeight = (tiff.rowsPerStrip > 0) ? Math.min(tiff.rowsPerStrip, tiff.height) : tiff.height;
+            this.offsets = stripOffsets;
+            this.counts = stripCounts;
+        }
+
+        if (this.blockWidth <= 0 || this.blockHeight <= 0)
+        {
+            String message = Logging.getMessage("GeotiffReader.InvalidIFDEntryValue",
+                this.tiled ? tileWidth + "x" + tileLength : this.blockHeight,
+                this.tiled ? "TileWidth" : "RowsPerStrip", this.tiled ? Tiff.Tag.TILE_WIDTH : Tiff.Tag.ROWS_PER_STRIP);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        this.blocksAcross = (tiff.width + this.blockWidth - 1) / this.blockWidth;
+        this.blocksDown = (tiff.height + this.blockHeight - 1) / this.blockHeight;
+
+        String tagName = this.tiled ? "TileOffsets" : "StripOffsets";
+        if (this.offsets == null || this.offsets.length < this.blocksAcross * this.blocksDown)
+        {
+            String message = Logging.getMessage("GeotiffReader.MissingRequiredTag", tagName);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        tagName = this.tiled ? "TileByteCounts" : "StripByteCounts";
+        if (this.counts == null || this.counts.length < this.offsets.length)
+        {
+            String message = Logging.getMessage("GeotiffReader.MissingRequiredTag", tagName);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        int bitsPerSample = (tiff.bitsPerSample != null) ? tiff.bitsPerSample[0] : Tiff.Undefined;
+        if (bitsPerSample != Byte.SIZE && bitsPerSample != Short.SIZE && bitsPerSample != Integer.SIZE
+            && bitsPerSample != Long.SIZE)
+        {
+            String message = Logging.getMessage("GeotiffReader.InvalidIFDEntryValue", bitsPerSample,
+                "BitsPerSample", Tiff.Tag.BITS_PER_SAMPLE);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+        this.bytesPerSample = bitsPerSample / Byte.SIZE;
+
+        if (tiff.samplesPerPixel > 1 && tiff.planarConfig != Tiff.PlanarConfiguration.PLANAR)
+        {
+            String message = Logging.getMessage("GeotiffReader.InvalidIFDEntryValue", tiff.samplesPerPixel,
+                "SamplesPerPixel", Tiff.Tag.SAMPLES_PER_PIXEL);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        if (compression != Tiff.Compression.NONE && compression != Tiff.Compression.LZW
+            && compression != Tiff.Compression.DEFLATE && compression != Tiff.Compression.ADOBE_DEFLATE
+            && compression != Tiff.Compression.PACKBITS)
+        {
+            String message = Logging.getMessage("GeotiffReader.CompressionFormatNotSupported");
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+        this.compression = compression;
+
+        if (predictor != Tiff.Predictor.NONE && predictor != Tiff.Predictor.HORIZONTAL_DIFFERENCING)
+        {
+            String message = Logging.getMessage("GeotiffReader.PredictorNotSupported", predictor);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+        this.predictor = predictor;
+    }
+
+    public boolean isTiled()
+    {
+        return this.tiled;
+    }
+
+    public boolean isCompressed()
+    {
+        return this.compression != Tiff.Compression.NONE;
+    }
+
+    public int getBytesPerSample()
+    {
+        return this.bytesPerSample;
+    }
+
+    /**
+     * Reads a rectangular window of the image's first sample plane into a new buffer. Samples are written in row
+     * major order, starting at the window's upper left corner, in the specified byte order.
+     *
+     * @param x         the window's left column.
+     * @param y         the window's top row.
+     * @param width     the window's width in pixels.
+     * @param height    the window's height in pixels.
+     * @param destOrder the byte order of the returned buffer.
+     *
+     * @return a buffer containing <code>width * height</code> samples.
+     *
+     * @throws IOException if a block cannot be read or decoded.
+     */
+    public ByteBuffer readWindow(int x, int y, int width, int height, ByteOrder destOrder) throws IOException
+    {
+        ByteBuffer dest = ByteBuffer.allocate(width * height * this.bytesPerSample).order(destOrder);
+        int[] blocks = this.getIntersectingBlocks(x, y, width, height);
+
+        if (this.isCompressed() && blocks.length > 1)
+        {
+            try
+            {
+                ForkJoinPool.commonPool().invoke(new BlockAction(this, blocks, 0, blocks.length, dest, x, y, width,
+                    height));
+            }
+            catch (UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+        }
+        else
+        {
+            for (int block : blocks)
+            {
+                this.copyBlock(this.decodeBlock(block), block, dest, x, y, width, height);
+            }
+        }
+
+        return dest;
+    }
+
+    /**
+     * Returns the indices of the first plane's blocks that intersect a window, in row major order.
+     *
+     * @param x      the window's left column.
+     * @param y      the window's top row.
+     * @param width  the window's width in pixels.
+     * @param height the window's height in pixels.
+     *
+     * @return the intersecting block indices.
+     */
+    protected int[] getIntersectingBlocks(int x, int y, int width, int height)
+    {
+        int firstCol = x / this.blockWidth;
+        int lastCol = (x + width - 1) / this.blockWidth;
+        int firstRow = y / this.blockHeight;
+        int lastRow = (y + height - 1) / this.blockHeight;
+
+        int[] blocks = new int[(lastCol - firstCol + 1) * (lastRow - firstRow + 1)];
+        int i = 0;
+        for (int row = firstRow; row <= lastRow; row++)
+        {
+            for (int col = firstCol; col <= lastCol; col++)
+            {
+                blocks[i++] = row * this.blocksAcross + col;
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Returns the number of rows stored in a block. Tiles are always padded to the full tile height, but the last
+     * strip holds only the image's remaining rows.
+     *
+     * @param block the block index.
+     *
+     * @return the block's row count.
+     */
+    protected int getBlockRows(int block)
+    {
+        if (this.tiled)
+            return this.blockHeight;
+
+        int firstRow = (block / this.blocksAcross) * this.blockHeight;
+        return Math.min(this.blockHeight, this.imageHeight - firstRow);
+    }
+
+    /**
+     * Reads and decodes one block.
+     *
+     * @param block the block index.
+     *
+     * @return the block's samples in the file's byte order.
+     *
+     * @throws IOException if the block cannot be read or decoded.
+     */
+    protected ByteBuffer decodeBlock(int block) throws IOException
+    {
+        int rowSize = this.blockWidth * this.bytesPerSample;
+        int size = this.getBlockRows(block) * rowSize;
+        ByteBuffer decoded;
+
+        if (this.compression == Tiff.Compression.NONE)
+        {
+            decoded = this.readRawBlock(block, Math.min(size, (int) this.counts[block]));
+            if (decoded.remaining() < size)
+            {
+                // Short blocks are padded with zeros so that every row can be addressed.
+                ByteBuffer padded = ByteBuffer.allocate(size);
+                padded.put(decoded).rewind();
+                decoded = padded;
+            }
+        }
+        else
+        {
+            ByteBuffer raw = this.readRawBlock(block, (int) this.counts[block]);
+            byte[] bytes = new byte[raw.remaining()];
+            raw.get(bytes);
+
+            if (this.compression == Tiff.Compression.LZW)
+                bytes = this.tiffReader.lzwUncompress(bytes, size);
+            else if (this.compression == Tiff.Compression.PACKBITS)
+                bytes = unpackBits(bytes, size);
+            else
+                bytes = inflate(bytes, size);
+
+            decoded = ByteBuffer.wrap(bytes);
+        }
+
+        decoded.order(this.byteOrder);
+
+        if (this.predictor == Tiff.Predictor.HORIZONTAL_DIFFERENCING)
+            this.undoHorizontalDifferencing(decoded, this.getBlockRows(block), rowSize);
+
+        return decoded;
+    }
+
+    /**
+     * Returns a block's stored bytes. When the file is mapped the returned buffer is a view of the mapping; otherwise
+     * the bytes are read with a positional read, which leaves the channel's position unchanged and is safe to use
+     * from several threads at once.
+     *
+     * @param block  the block index.
+     * @param length the number of bytes to read.
+     *
+     * @return a buffer positioned at the block's first byte.
+     *
+     * @throws IOException if the block cannot be read.
+     */
+    protected ByteBuffer readRawBlock(int block, int length) throws IOException
+    {
+        long offset = this.offsets[block];
+
+        if (this.mappedFile != null)
+        {
+            ByteBuffer view = this.mappedFile.duplicate();
+            int limit = (int) Math.min(offset + length, view.capacity());
+            view.position((int) Math.min(offset, limit)).limit(limit);
+            return view.slice();
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining())
+        {
+            if (this.channel.read(buffer, offset + buffer.position()) < 0)
+                break;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Copies the part of a decoded block that intersects the window into the destination buffer, converting samples
+     * from the file's byte order to the destination's byte order.
+     *
+     * @param block      the decoded block.
+     * @param blockIndex the block index.
+     * @param dest       the window buffer. Only absolute positions of a private view of it are modified.
+     * @param x          the window's left column.
+     * @param y          the window's top row.
+     * @param width      the window's width in pixels.
+     * @param height     the window's height in pixels.
+     */
+    protected void copyBlock(ByteBuffer block, int blockIndex, ByteBuffer dest, int x, int y, int width, int height)
+    {
+        int blockX = (blockIndex % this.blocksAcross) * this.blockWidth;
+        int blockY = (blockIndex / this.blocksAcross) * this.blockHeight;
+
+        int col0 = Math.max(x, blockX);
+        int col1 = Math.min(Math.min(x + width, blockX + this.blockWidth), this.imageWidth);
+        int row0 = Math.max(y, blockY);
+        int row1 = Math.min(y + height, blockY + this.getBlockRows(blockIndex));
+        if (col0 >= col1 || row0 >= row1)
+            return;
+
+        int bps = this.bytesPerSample;
+        int count = (col1 - col0) * bps;
+        ByteBuffer src = block.duplicate();
+        ByteBuffer dst = dest.duplicate();
+
+        for (int row = row0; row < row1; row++)
+        {
+            int srcPos = ((row - blockY) * this.blockWidth + (col0 - blockX)) * bps;
+            int dstPos = ((row - y) * width + (col0 - x)) * bps;
+
+            src.limit(srcPos + count).position(srcPos);
+            dst.limit(dstPos + count).position(dstPos);
+
+            if (bps == 1 || this.byteOrder.equals(dest.order()))
+            {
+                dst.put(src);
+            }
+            else
+            {
+                ByteBuffer s = src.slice().order(this.byteOrder);
+                ByteBuffer d = dst.slice().order(dest.order());
+                if (bps == 2)
+                    d.asShortBuffer().put(s.asShortBuffer());
+                else if (bps == 4)
+                    d.asIntBuffer().put(s.asIntBuffer());
+                else
+                    d.asLongBuffer().put(s.asLongBuffer());
+            }
+        }
+    }
+
+    /**
+     * Reverses TIFF predictor 2, which stores each sample as the difference from the sample to its left.
+     *
+     * @param buffer  the decoded block, in the file's byte order.
+     * @param rows    the number of rows in the block.
+     * @param rowSize the size of one row in bytes.
+     */
+    protected void undoHorizontalDifferencing(ByteBuffer buffer, int rows, int rowSize)
+    {
+        int bps = this.bytesPerSample;
+
+        for (int row = 0; row < rows; row++)
+        {
+            int start = row * rowSize;
+            int end = start + rowSize;
+
+            for (int i = start + bps; i < end; i += bps)
+            {
+                if (bps == 1)
+                    buffer.put(i, (byte) (buffer.get(i) + buffer.get(i - 1)));
+                else if (bps == 2)
+                    buffer.putShort(i, (short) (buffer.getShort(i) + buffer.getShort(i - 2)));
+                else if (bps == 4)
+                    buffer.putInt(i, buffer.getInt(i) + buffer.getInt(i - 4));
+                else
+                    buffer.putLong(i, buffer.getLong(i) + buffer.getLong(i - 8));
+            }
+        }
+    }
+
+    /**
+     * Decodes a zlib stream, as written for the Deflate and Adobe Deflate compression schemes.
+     *
+     * @param input the compressed bytes.
+     * @param size  the expected decoded size.
+     *
+     * @return the decoded bytes, zero padded to <code>size</code>.
+     *
+     * @throws IOException if the stream is corrupt.
+     */
+    protected static byte[] inflate(byte[] input, int size) throws IOException
+    {
+        byte[] output = new byte[size];
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(input);
+            int length = 0;
+            while (length < size && !inflater.finished())
+            {
+                int n = inflater.inflate(output, length, size - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    break;
+                length += n;
+            }
+        }
+        catch (DataFormatException e)
+        {
+            throw new IOException(e);
+        }
+        finally
+        {
+            inflater.end();
+        }
+
+        return output;
+    }
+
+    /**
+     * Decodes the PackBits run-length scheme.
+     *
+     * @param input the compressed bytes.
+     * @param size  the expected decoded size.
+     *
+     * @return the decoded bytes, zero padded to <code>size</code>.
+     */
+    protected static byte[] unpackBits(byte[] input, int size)
+    {
+        byte[] output = new byte[size];
+        int in = 0;
+        int out = 0;
+
+        while (in < input.length && out < size)
+        {
+            int n = input[in++];
+            if (n >= 0)
+            {
+                int count = Math.min(n + 1, Math.min(size - out, input.length - in));
+                System.arraycopy(input, in, output, out, count);
+                in += n + 1;
+                out += count;
+            }
+            else if (n != -128 && in < input.length)
+            {
+                int count = Math.min(1 - n, size - out);
+                Arrays.fill(output, out, out + count, input[in++]);
+                out += count;
+            }
+        }
+
+        return output;
+    }
+}
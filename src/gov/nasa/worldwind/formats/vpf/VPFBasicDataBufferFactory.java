@@ -732,6 +732,7 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
         protected BufferWrapper doRead(ByteBuffer byteBuffer)
         {
             ShortBuffer shortBuffer = byteBuffer.asShortBuffer();
+            int length = shortBuffer.remaining();
 
             // Replace null (NaN) values in partially null coordinates with 0. Because these vector coordinate buffers
             // are passed directly to GL, we avoid compatability problems with some graphics drivers by removing any
@@ -741,7 +742,9 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
             if (this.replaceNaN(shortBuffer, (short) 0) <= 0)
                 return null;
 
-            return new BufferWrapper.ShortBufferWrapper(shortBuffer);
+            // Tables are mapped read-only, so the coordinates are returned in the temporary array. The data buffer
+            // copies them before this reader is used again.
+            return new BufferWrapper.ShortBufferWrapper(ShortBuffer.wrap(this.tmpBuffer, 0, length));
         }
 
         protected int replaceNaN(ShortBuffer shortBuffer, short value)
@@ -753,7 +756,6 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
                 this.tmpBuffer = new short[length];
 
             shortBuffer.get(this.tmpBuffer, 0, length);
-            shortBuffer.flip();
 
             for (int i = 0; i < length; i++)
             {
@@ -763,9 +765,6 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
                     numValues++;
             }
 
-            shortBuffer.put(this.tmpBuffer, 0, length);
-            shortBuffer.flip();
-
             return numValues;
         }
     }
@@ -782,6 +781,7 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
         protected BufferWrapper doRead(ByteBuffer byteBuffer)
         {
             IntBuffer intBuffer = byteBuffer.asIntBuffer();
+            int length = intBuffer.remaining();
 
             // Replace null (NaN) values in partially null coordinates with 0. Because these vector coordinate buffers
             // are passed directly to GL, we avoid compatability problems with some graphics drivers by removing any
@@ -791,7 +791,9 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
             if (this.replaceNaN(intBuffer, 0) <= 0)
                 return null;
 
-            return new BufferWrapper.IntBufferWrapper(intBuffer);
+            // Tables are mapped read-only, so the coordinates are returned in the temporary array. The data buffer
+            // copies them before this reader is used again.
+            return new BufferWrapper.IntBufferWrapper(IntBuffer.wrap(this.tmpBuffer, 0, length));
         }
 
         protected int replaceNaN(IntBuffer intBuffer, int value)
@@ -803,7 +805,6 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
                 this.tmpBuffer = new int[length];
 
             intBuffer.get(this.tmpBuffer, 0, length);
-            intBuffer.flip();
 
             for (int i = 0; i < length; i++)
             {
@@ -813,9 +814,6 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
                     numValues++;
             }
 
-            intBuffer.put(this.tmpBuffer, 0, length);
-            intBuffer.flip();
-
             return numValues;
         }
     }
@@ -832,6 +830,7 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
         protected BufferWrapper doRead(ByteBuffer byteBuffer)
         {
             FloatBuffer floatBuffer = byteBuffer.asFloatBuffer();
+            int length = floatBuffer.remaining();
 
             // Replace null (NaN) values in partially null coordinates with 0. Because these vector coordinate buffers
             // are passed directly to GL, we avoid compatability problems with some graphics drivers by removing any
@@ -841,7 +840,9 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
             if (this.replaceNaN(floatBuffer, 0f) <= 0)
                 return null;
 
-            return new BufferWrapper.FloatBufferWrapper(floatBuffer);
+            // Tables are mapped read-only, so the coordinates are returned in the temporary array. The data buffer
+            // copies them before this reader is used again.
+            return new BufferWrapper.FloatBufferWrapper(FloatBuffer.wrap(this.tmpBuffer, 0, length));
         }
 
         protected int replaceNaN(FloatBuffer floatBuffer, float value)
@@ -853,7 +854,6 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
                 this.tmpBuffer = new float[length];
 
             floatBuffer.get(this.tmpBuffer, 0, length);
-            floatBuffer.flip();
 
             for (int i = 0; i < length; i++)
             {
@@ -863,9 +863,6 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
                     numValues++;
             }
 
-            floatBuffer.put(this.tmpBuffer, 0, length);
-            floatBuffer.flip();
-
             return numValues;
         }
     }
@@ -882,6 +879,7 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
         protected BufferWrapper doRead(ByteBuffer byteBuffer)
         {
             DoubleBuffer doubleBuffer = byteBuffer.asDoubleBuffer();
+            int length = doubleBuffer.remaining();
 
             // Replace null (NaN) values in partially null coordinates with 0. Because these vector coordinate buffers
             // are passed directly to GL, we avoid compatability problems with some graphics drivers by removing any
@@ -891,7 +889,9 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
             if (this.replaceNaN(doubleBuffer, 0d) <= 0)
                 return null;
 
-            return new BufferWrapper.DoubleBufferWrapper(doubleBuffer);
+            // Tables are mapped read-only, so the coordinates are returned in the temporary array. The data buffer
+            // copies them before this reader is used again.
+            return new BufferWrapper.DoubleBufferWrapper(DoubleBuffer.wrap(this.tmpBuffer, 0, length));
         }
 
         protected int replaceNaN(DoubleBuffer doubleBuffer, double value)
@@ -903,7 +903,6 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
                 this.tmpBuffer = new double[length];
 
             doubleBuffer.get(this.tmpBuffer, 0, length);
-            doubleBuffer.flip();
 
             for (int i = 0; i < length; i++)
             {
@@ -913,9 +912,6 @@ public abstract class VPFBasicDataBufferFactory implements VPFDataBufferFactory
                     numValues++;
             }
 
-            doubleBuffer.put(this.tmpBuffer, 0, length);
-            doubleBuffer.flip();
-
             return numValues;
         }
     }
@@ -27,18 +27,40 @@
  */
 package gov.nasa.worldwind.formats.vpf;
 
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.util.*;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.util.*;
 
 /**
+ * Assembles the primitive data of a coverage or one coverage tile. A factory constructed for a set of feature classes
+ * reads only the primitive tables those feature classes refer to. Assembled primitive data is held in a memory cache
+ * shared by all factories, whose capacity is given by the configuration value {@link
+ * AVKey#VPF_PRIMITIVE_DATA_CACHE_SIZE}. Primitive data evicted from the cache is assembled again when it is next
+ * requested.
+ *
  * @author dcollins
  * @version $Id: VPFBasicPrimitiveDataFactory.java 1171 2013-02-11 21:45:02Z dcollins $
  */
 public class VPFBasicPrimitiveDataFactory implements VPFPrimitiveDataFactory
 {
+    static
+    {
+        if (!WorldWind.getMemoryCacheSet().containsCache(VPFPrimitiveData.class.getName()))
+        {
+            long size = Configuration.getLongValue(AVKey.VPF_PRIMITIVE_DATA_CACHE_SIZE, (long) 50e6); // default 50MB
+            MemoryCache cache = BasicMemoryCacheSet.createCache(VPFPrimitiveData.class.getName(),
+                (long) (0.8 * size), size);
+            cache.setName("VPF Primitive Data");
+            WorldWind.getMemoryCacheSet().addCache(VPFPrimitiveData.class.getName(), cache);
+        }
+    }
+
     private VPFTile tile;
+    private Set<String> primitiveTableNames;
 
     /**
      * Constructs an instance of a VPFBasicPrimitiveDataFactory which will construct primiitve data for the specified
@@ -51,11 +73,71 @@ public class VPFBasicPrimitiveDataFactory implements VPFPrimitiveDataFactory
         this.tile = tile;
     }
 
+    /**
+     * Constructs an instance of a VPFBasicPrimitiveDataFactory which will construct primitive data for the specified
+     * {@link gov.nasa.worldwind.formats.vpf.VPFTile}, reading only the primitive tables needed by the specified
+     * feature classes.
+     *
+     * @param tile           the tile which defines the geographic region to construct features for.
+     * @param featureClasses the feature classes whose features will be constructed from the primitive data.
+     *
+     * @throws IllegalArgumentException if the feature classes are null.
+     */
+    public VPFBasicPrimitiveDataFactory(VPFTile tile, VPFFeatureClass[] featureClasses)
+    {
+        if (featureClasses == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.tile = tile;
+        this.primitiveTableNames = getPrimitiveTableNames(featureClasses);
+    }
+
     public VPFTile getTile()
     {
         return this.tile;
     }
 
+    /**
+     * Returns the names of the primitive tables this factory reads, or null if it reads all primitive tables.
+     *
+     * @return the primitive table names, or null if all tables are read.
+     */
+    public Set<String> getPrimitiveTableNames()
+    {
+        return this.primitiveTableNames != null ? Collections.unmodifiableSet(this.primitiveTableNames) : null;
+    }
+
+    /**
+     * Returns the names of the primitive tables needed to construct features of the specified feature classes. Face
+     * primitives are assembled from edge primitives, so area features need both. Returns null if any feature class
+     * may refer to any primitive table, such as a complex feature class.
+     *
+     * @param featureClasses the feature classes to find primitive tables for.
+     *
+     * @return the primitive table names, or null if all tables are needed.
+     */
+    protected static Set<String> getPrimitiveTableNames(VPFFeatureClass[] featureClasses)
+    {
+        Set<String> names = new HashSet<String>();
+
+        for (VPFFeatureClass cls : featureClasses)
+        {
+            if (cls.getType() == VPFFeatureType.COMPLEX || cls.getPrimitiveTableName() == null)
+                return null;
+
+            names.add(cls.getPrimitiveTableName());
+
+            if (cls.getPrimitiveTableName().equals(VPFConstants.FACE_PRIMITIVE_TABLE))
+                names.add(VPFConstants.EDGE_PRIMITIVE_TABLE);
+        }
+
+        return names;
+    }
+
     public VPFPrimitiveData createPrimitiveData(VPFCoverage coverage)
     {
         if (coverage == null)
@@ -70,7 +152,31 @@ public class VPFBasicPrimitiveDataFactory implements VPFPrimitiveDataFactory
         if (!file.exists())
             return null;
 
-        return this.doCreatePrimitives(coverage);
+        Object cacheKey = this.getCacheKey(path);
+        MemoryCache cache = WorldWind.getMemoryCache(VPFPrimitiveData.class.getName());
+
+        VPFPrimitiveData primitiveData = (VPFPrimitiveData) cache.getObject(cacheKey);
+        if (primitiveData == null)
+        {
+            primitiveData = this.doCreatePrimitives(coverage);
+            cache.add(cacheKey, primitiveData, primitiveData.getSizeInBytes());
+        }
+
+        return primitiveData;
+    }
+
+    protected Object getCacheKey(String path)
+    {
+        if (this.primitiveTableNames == null)
+            return path;
+
+        // Primitive data assembled from a subset of the tables is cached separately from the complete primitive data.
+        return path + new TreeSet<String>(this.primitiveTableNames);
+    }
+
+    protected boolean isPrimitiveTableNeeded(String tableName)
+    {
+        return this.primitiveTableNames == null || this.primitiveTableNames.contains(tableName);
     }
 
     //**************************************************************//
@@ -90,19 +196,30 @@ public class VPFBasicPrimitiveDataFactory implements VPFPrimitiveDataFactory
 
     protected void buildNodePrimitives(VPFCoverage coverage, VPFTile tile, VPFPrimitiveData primitiveData)
     {
-        VPFBufferedRecordData nodeTable = this.createPrimitiveTable(coverage, tile, VPFConstants.NODE_PRIMITIVE_TABLE);
-        if (nodeTable != null && nodeTable.getNumRecords() > 0)
-            this.buildNodePrimitives(nodeTable, VPFConstants.NODE_PRIMITIVE_TABLE, primitiveData);
-
-        VPFBufferedRecordData entityNodeTable = this.createPrimitiveTable(coverage, tile,
-            VPFConstants.ENTITY_NODE_PRIMITIVE_TABLE);
-        if (entityNodeTable != null && entityNodeTable.getNumRecords() > 0)
-            this.buildNodePrimitives(entityNodeTable, VPFConstants.ENTITY_NODE_PRIMITIVE_TABLE, primitiveData);
-
-        VPFBufferedRecordData connectedNodeTable = this.createPrimitiveTable(coverage, tile,
-            VPFConstants.CONNECTED_NODE_PRIMITIVE_TABLE);
-        if (connectedNodeTable != null && connectedNodeTable.getNumRecords() > 0)
-            this.buildNodePrimitives(connectedNodeTable, VPFConstants.CONNECTED_NODE_PRIMITIVE_TABLE, primitiveData);
+        if (this.isPrimitiveTableNeeded(VPFConstants.NODE_PRIMITIVE_TABLE))
+        {
+            VPFBufferedRecordData nodeTable = this.createPrimitiveTable(coverage, tile,
+                VPFConstants.NODE_PRIMITIVE_TABLE);
+            if (nodeTable != null && nodeTable.getNumRecords() > 0)
+                this.buildNodePrimitives(nodeTable, VPFConstants.NODE_PRIMITIVE_TABLE, primitiveData);
+        }
+
+        if (this.isPrimitiveTableNeeded(VPFConstants.ENTITY_NODE_PRIMITIVE_TABLE))
+        {
+            VPFBufferedRecordData entityNodeTable = this.createPrimitiveTable(coverage, tile,
+                VPFConstants.ENTITY_NODE_PRIMITIVE_TABLE);
+            if (entityNodeTable != null && entityNodeTable.getNumRecords() > 0)
+                this.buildNodePrimitives(entityNodeTable, VPFConstants.ENTITY_NODE_PRIMITIVE_TABLE, primitiveData);
+        }
+
+        if (this.isPrimitiveTableNeeded(VPFConstants.CONNECTED_NODE_PRIMITIVE_TABLE))
+        {
+            VPFBufferedRecordData connectedNodeTable = this.createPrimitiveTable(coverage, tile,
+                VPFConstants.CONNECTED_NODE_PRIMITIVE_TABLE);
+            if (connectedNodeTable != null && connectedNodeTable.getNumRecords() > 0)
+                this.buildNodePrimitives(connectedNodeTable, VPFConstants.CONNECTED_NODE_PRIMITIVE_TABLE,
+                    primitiveData);
+        }
     }
 
     protected boolean buildNodePrimitives(VPFBufferedRecordData table, String name, VPFPrimitiveData primitiveData)
@@ -126,6 +243,9 @@ public class VPFBasicPrimitiveDataFactory implements VPFPrimitiveDataFactory
 
     protected void buildEdgePrimitives(VPFCoverage coverage, VPFTile tile, VPFPrimitiveData primitiveData)
     {
+        if (!this.isPrimitiveTableNeeded(VPFConstants.EDGE_PRIMITIVE_TABLE))
+            return;
+
         VPFBufferedRecordData edgeTable = this.createPrimitiveTable(coverage, tile, VPFConstants.EDGE_PRIMITIVE_TABLE);
         if (edgeTable == null || edgeTable.getNumRecords() == 0)
             return;
@@ -160,6 +280,9 @@ public class VPFBasicPrimitiveDataFactory implements VPFPrimitiveDataFactory
 
     protected void buildFacePrimitives(VPFCoverage coverage, VPFTile tile, VPFPrimitiveData primitiveData)
     {
+        if (!this.isPrimitiveTableNeeded(VPFConstants.FACE_PRIMITIVE_TABLE))
+            return;
+
         VPFBufferedRecordData faceTable = this.createPrimitiveTable(coverage, tile, VPFConstants.FACE_PRIMITIVE_TABLE);
         if (faceTable == null)
             return;
@@ -226,6 +349,9 @@ public class VPFBasicPrimitiveDataFactory implements VPFPrimitiveDataFactory
 
     protected void buildTextPrimitives(VPFCoverage coverage, VPFTile tile, VPFPrimitiveData primitiveData)
     {
+        if (!this.isPrimitiveTableNeeded(VPFConstants.TEXT_PRIMITIVE_TABLE))
+            return;
+
         VPFBufferedRecordData textTable = this.createPrimitiveTable(coverage, tile, VPFConstants.TEXT_PRIMITIVE_TABLE);
         if (textTable == null || textTable.getNumRecords() == 0)
             return;
@@ -138,6 +138,15 @@ public class VPFLayer extends AbstractLayer
             this.layer.firePropertyChange(AVKey.LAYER, null, this.layer);
         }
 
+        public void setFeatureClassEnabled(VPFCoverage coverage, String className, boolean enabled)
+        {
+            VPFCoverageRenderable cr = this.getCoverageRenderable(coverage);
+            if (cr != null)
+                cr.setFeatureClassEnabled(className, enabled);
+
+            this.layer.firePropertyChange(AVKey.LAYER, null, this.layer);
+        }
+
         public VPFCoverageRenderable getCoverageRenderable(VPFCoverage coverage)
         {
             for (VPFCoverageRenderable cr : this.coverages)
@@ -192,6 +201,11 @@ public class VPFLayer extends AbstractLayer
         protected boolean enabled = false;
         protected VPFLayer layer;
         protected VPFCoverage coverage;
+        protected VPFFeatureClass[] featureClasses;
+        protected Set<String> disabledFeatureClasses = new HashSet<String>();
+        // Incremented when the enabled feature classes change, so that symbols loaded for the previous ones are
+        // discarded.
+        protected int featureClassesVersion;
         protected Map<VPFTile, VPFSymbolCollection> tileCache;
 
         public VPFCoverageRenderable(VPFLayer layer, VPFCoverage coverage)
@@ -237,7 +251,7 @@ public class VPFLayer extends AbstractLayer
             }
             else
             {
-                this.layer.requestQ.add(new RequestTask(this, tile));
+                this.layer.requestQ.add(new RequestTask(this, tile, this.getFeatureClassesVersion()));
             }
         }
 
@@ -245,6 +259,96 @@ public class VPFLayer extends AbstractLayer
         {
             this.layer.disposalQ.add(renderInfo);
         }
+
+        /**
+         * Returns the coverage's feature classes, reading them the first time they're requested. Every tile of the
+         * coverage shares the same feature classes.
+         *
+         * @return the coverage's feature classes.
+         */
+        protected synchronized VPFFeatureClass[] getFeatureClasses()
+        {
+            if (this.featureClasses == null)
+                this.featureClasses = VPFUtils.readFeatureClasses(this.coverage, new VPFFeatureTableFilter());
+
+            return this.featureClasses;
+        }
+
+        /**
+         * Returns the coverage's enabled feature classes. Only the primitive tables these classes use are read when a
+         * tile's symbols are loaded.
+         *
+         * @return the coverage's enabled feature classes.
+         */
+        protected synchronized VPFFeatureClass[] getEnabledFeatureClasses()
+        {
+            VPFFeatureClass[] classes = this.getFeatureClasses();
+            if (this.disabledFeatureClasses.isEmpty())
+                return classes;
+
+            ArrayList<VPFFeatureClass> enabled = new ArrayList<VPFFeatureClass>(classes.length);
+            for (VPFFeatureClass cls : classes)
+            {
+                if (!this.disabledFeatureClasses.contains(cls.getClassName()))
+                    enabled.add(cls);
+            }
+
+            return enabled.toArray(new VPFFeatureClass[enabled.size()]);
+        }
+
+        protected synchronized boolean isFeatureClassEnabled(String className)
+        {
+            return !this.disabledFeatureClasses.contains(className);
+        }
+
+        protected synchronized int getFeatureClassesVersion()
+        {
+            return this.featureClassesVersion;
+        }
+
+        /**
+         * Enables or disables one of the coverage's feature classes. The coverage's loaded tiles are discarded when the
+         * enabled feature classes change, and are loaded again with the new feature classes when next drawn.
+         *
+         * @param className the feature class name.
+         * @param enabled   true to draw the feature class, false to skip it.
+         */
+        protected void setFeatureClassEnabled(String className, boolean enabled)
+        {
+            synchronized (this)
+            {
+                boolean changed = enabled ? this.disabledFeatureClasses.remove(className)
+                    : this.disabledFeatureClasses.add(className);
+                if (!changed)
+                    return;
+
+                this.featureClassesVersion++;
+            }
+
+            synchronized (this.tileCache)
+            {
+                for (VPFSymbolCollection symbols : this.tileCache.values())
+                {
+                    this.dispose(symbols);
+                }
+                this.tileCache.clear();
+            }
+        }
+
+        protected void putTileSymbols(VPFTile tile, VPFSymbolCollection symbols, int version)
+        {
+            synchronized (this)
+            {
+                // Discard symbols loaded for feature classes that have since been enabled or disabled.
+                if (version == this.featureClassesVersion)
+                {
+                    this.tileCache.put(tile, symbols);
+                    return;
+                }
+            }
+
+            this.dispose(symbols);
+        }
     }
 
     protected static class VPFSymbolCollection implements Disposable
@@ -283,7 +387,16 @@ public class VPFLayer extends AbstractLayer
 
     protected VPFSymbolCollection loadTileSymbols(VPFCoverage coverage, VPFTile tile)
     {
-        VPFPrimitiveDataFactory primitiveDataFactory = new VPFBasicPrimitiveDataFactory(tile);
+        return this.loadTileSymbols(coverage, VPFUtils.readFeatureClasses(coverage, new VPFFeatureTableFilter()), tile);
+    }
+
+    protected VPFSymbolCollection loadTileSymbols(VPFCoverage coverage, VPFFeatureClass[] featureClasses, VPFTile tile)
+    {
+        if (featureClasses.length == 0)
+            return VPFSymbolCollection.EMPTY_SYMBOL_COLLECTION;
+
+        // Read only the primitive tables used by the coverage's feature classes.
+        VPFPrimitiveDataFactory primitiveDataFactory = new VPFBasicPrimitiveDataFactory(tile, featureClasses);
         VPFPrimitiveData primitiveData = primitiveDataFactory.createPrimitiveData(coverage);
 
         // The PrimitiveDataFactory returns null when there are no primitive data tables for this coverage tile. We
@@ -300,8 +413,7 @@ public class VPFLayer extends AbstractLayer
         ArrayList<VPFSymbol> list = new ArrayList<VPFSymbol>();
 
         // Create coverage renderables for one tile - if tile is null gets all coverage
-        VPFFeatureClass[] array = VPFUtils.readFeatureClasses(coverage, new VPFFeatureTableFilter());
-        for (VPFFeatureClass cls : array)
+        for (VPFFeatureClass cls : featureClasses)
         {
             Collection<? extends VPFSymbol> symbols = cls.createFeatureSymbols(symbolFactory);
             if (symbols != null)
@@ -315,19 +427,28 @@ public class VPFLayer extends AbstractLayer
     {
         protected VPFCoverageRenderable coverageRenderable;
         protected VPFTile tile;
+        protected int featureClassesVersion;
 
         protected RequestTask(VPFCoverageRenderable coverageRenderable, VPFTile tile)
+        {
+            this(coverageRenderable, tile, coverageRenderable.getFeatureClassesVersion());
+        }
+
+        protected RequestTask(VPFCoverageRenderable coverageRenderable, VPFTile tile, int featureClassesVersion)
         {
             this.coverageRenderable = coverageRenderable;
             this.tile = tile;
+            this.featureClassesVersion = featureClassesVersion;
         }
 
         public void run()
         {
+            // Load only the enabled feature classes, so that the primitive tables of disabled ones are not read.
             VPFSymbolCollection symbols = this.coverageRenderable.layer.loadTileSymbols(
-                this.coverageRenderable.coverage, (this.tile != NULL_TILE) ? this.tile : null);
+                this.coverageRenderable.coverage, this.coverageRenderable.getEnabledFeatureClasses(),
+                (this.tile != NULL_TILE) ? this.tile : null);
 
-            this.coverageRenderable.tileCache.put(this.tile, symbols);
+            this.coverageRenderable.putTileSymbols(this.tile, symbols, this.featureClassesVersion);
             this.coverageRenderable.layer.firePropertyChange(AVKey.LAYER, null, this.coverageRenderable.layer);
         }
 
@@ -451,6 +572,75 @@ public class VPFLayer extends AbstractLayer
         }
     }
 
+    /**
+     * Enables or disables one feature class of a coverage. All feature classes are enabled initially. Disabled feature
+     * classes are not drawn, and the primitive tables used only by disabled feature classes are not read.
+     *
+     * @param coverage  the coverage containing the feature class.
+     * @param className the feature class name, as returned by {@link VPFFeatureClass#getClassName()}.
+     * @param enabled   true to draw the feature class, false to skip it.
+     *
+     * @throws IllegalArgumentException if the coverage or class name is null.
+     */
+    public void setFeatureClassEnabled(VPFCoverage coverage, String className, boolean enabled)
+    {
+        if (coverage == null)
+        {
+            String message = Logging.getMessage("nullValue.CoverageIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (className == null)
+        {
+            String message = Logging.getMessage("nullValue.NameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (VPFLibraryRenderable lr : this.libraries)
+        {
+            lr.setFeatureClassEnabled(coverage, className, enabled);
+        }
+    }
+
+    /**
+     * Indicates whether a feature class of a coverage is enabled. See {@link #setFeatureClassEnabled(VPFCoverage,
+     * String, boolean)}.
+     *
+     * @param coverage  the coverage containing the feature class.
+     * @param className the feature class name.
+     *
+     * @return true if the feature class is enabled, otherwise false.
+     *
+     * @throws IllegalArgumentException if the coverage or class name is null.
+     */
+    public boolean isFeatureClassEnabled(VPFCoverage coverage, String className)
+    {
+        if (coverage == null)
+        {
+            String message = Logging.getMessage("nullValue.CoverageIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (className == null)
+        {
+            String message = Logging.getMessage("nullValue.NameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (VPFLibraryRenderable lr : this.libraries)
+        {
+            VPFCoverageRenderable cr = lr.getCoverageRenderable(coverage);
+            if (cr != null)
+                return cr.isFeatureClassEnabled(className);
+        }
+
+        return true;
+    }
+
     public void doPreRender(DrawContext dc)
     {
         // Assemble renderables lists
@@ -221,4 +221,36 @@ public class VPFPrimitiveData
     {
         this.primitiveStrings.put(name, strings);
     }
+
+    /**
+     * Returns an approximate size of this primitive data in bytes, including the primitive coordinates, strings, and
+     * per-primitive information.
+     *
+     * @return the approximate size of this primitive data in bytes.
+     */
+    public long getSizeInBytes()
+    {
+        long size = 0;
+
+        for (PrimitiveInfo[] info : this.primitiveInfo.values())
+        {
+            // Each primitive info holds a bounding box, and edges hold several primitive ids.
+            size += 64L * info.length;
+        }
+
+        for (VecBufferSequence coords : this.primitiveCoords.values())
+        {
+            size += coords.getVecBuffer().getBufferWrapper().getSizeInBytes();
+        }
+
+        for (CompoundStringBuilder strings : this.primitiveStrings.values())
+        {
+            for (int i = 0; i < strings.size(); i++)
+            {
+                size += 2L * strings.substringLength(i);
+            }
+        }
+
+        return size;
+    }
 }
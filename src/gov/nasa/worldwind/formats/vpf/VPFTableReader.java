@@ -36,6 +36,11 @@ import java.util.ArrayList;
 
 /**
  * DIGEST Part 2, Annex C.2.2.1.2 and C.2.3.1.1
+ * <p>
+ * Tables and their variable-length record indices are memory mapped rather than read onto the heap. Scalar numeric
+ * columns that start at the same offset in every record are exposed as views of the mapped table, and are never
+ * copied. The remaining columns are decoded into column buffers. When every column of a table is a view, the table
+ * body is not traversed at all.
  *
  * @author dcollins
  * @version $Id: VPFTableReader.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -57,7 +62,7 @@ public class VPFTableReader
 
         try
         {
-            ByteBuffer buffer = this.readFileToBuffer(file);
+            ByteBuffer buffer = this.mapFileToBuffer(file);
             return this.doRead(file, buffer);
         }
         catch (Exception e)
@@ -68,9 +73,9 @@ public class VPFTableReader
         }
     }
 
-    protected ByteBuffer readFileToBuffer(File file) throws IOException
+    protected ByteBuffer mapFileToBuffer(File file) throws IOException
     {
-        ByteBuffer buffer = WWIO.readFileToBuffer(file, true); // Read VPF table to a direct ByteBuffer.
+        ByteBuffer buffer = WWIO.mapFile(file); // Map VPF table read-only, since VPF data is often on read-only media.
         buffer.order(ByteOrder.LITTLE_ENDIAN); // Default to least significant byte first order.
         return buffer;
     }
@@ -320,6 +325,23 @@ public class VPFTableReader
         }
     }
 
+    protected static class SkipDataReader extends AbstractDataReader
+    {
+        protected int length;
+
+        public SkipDataReader(VPFDataBuffer dataBuffer, int length)
+        {
+            super(dataBuffer);
+            this.length = length;
+        }
+
+        public void read(ByteBuffer byteBuffer)
+        {
+            // The column is a view of the table, so its values are not decoded.
+            byteBuffer.position(byteBuffer.position() + this.length);
+        }
+    }
+
     protected static class VariableLengthDataReader extends AbstractDataReader
     {
         public VariableLengthDataReader(VPFDataBuffer dataBuffer)
@@ -338,21 +360,36 @@ public class VPFTableReader
         int numRows = recordIndex.numEntries;
         int numColumns = columns.length;
 
-        // Create data readers for each column.
+        // Create data readers for each column. Scalar columns which start at the same offset in every record are
+        // views of the table. Columns following the first variable-length column have no fixed offset.
         RecordDataReader[] readers = new RecordDataReader[numColumns];
+        boolean mustReadRows = false;
+        int columnOffset = 0;
         for (int col = 0; col < numColumns; col++)
         {
             VPFDataType type = VPFDataType.fromTypeName(columns[col].dataType);
-            VPFDataBuffer dataBuffer = type.createDataBuffer(numRows, columns[col].numElements);
-            readers[col] = columns[col].isVariableLengthField() ?
-                new VariableLengthDataReader(dataBuffer)
-                : new FixedLengthDataReader(dataBuffer, columns[col].numElements);
+
+            if (columnOffset >= 0 && ScalarColumnView.isViewableColumn(columns[col]))
+            {
+                VPFDataBuffer dataBuffer = new ScalarColumnView(byteBuffer, recordIndex, columnOffset, type);
+                readers[col] = new SkipDataReader(dataBuffer, columns[col].getFieldLength());
+            }
+            else
+            {
+                VPFDataBuffer dataBuffer = type.createDataBuffer(numRows, columns[col].numElements);
+                readers[col] = columns[col].isVariableLengthField() ?
+                    new VariableLengthDataReader(dataBuffer)
+                    : new FixedLengthDataReader(dataBuffer, columns[col].numElements);
+                mustReadRows = true;
+            }
+
+            columnOffset = columns[col].isVariableLengthField() ? -1 : columnOffset + columns[col].getFieldLength();
         }
 
         // Read the column data associated with each row.
-        for (int row = 0; row < numRows; row++)
+        for (int row = 0; mustReadRows && row < numRows; row++)
         {
-            byteBuffer.position(recordIndex.entries[row].offset);
+            byteBuffer.position(recordIndex.getOffset(row));
 
             for (int col = 0; col < numColumns; col++)
             {
@@ -401,10 +438,195 @@ public class VPFTableReader
         public int numEntries;
         public int headerLength;
         public Entry[] entries;
+        /** Offset and length of each record as consecutive ints, used when <code>entries</code> is null. */
+        public IntBuffer entryBuffer;
+        /** Offset of the first record in a table of fixed length records. */
+        public int bodyOffset;
+        /** Length of each record in a table of fixed length records, used when no entries are specified. */
+        public int recordLength;
 
         public RecordIndex()
         {
         }
+
+        /**
+         * Returns the byte offset of a record from the start of the table.
+         *
+         * @param index the record's index, starting at 0.
+         *
+         * @return the record's offset in bytes.
+         */
+        public int getOffset(int index)
+        {
+            if (this.entries != null)
+                return this.entries[index].offset;
+            else if (this.entryBuffer != null)
+                return this.entryBuffer.get(2 * index);
+            else
+                return this.bodyOffset + index * this.recordLength;
+        }
+
+        /**
+         * Returns the length of a record in bytes.
+         *
+         * @param index the record's index, starting at 0.
+         *
+         * @return the record's length in bytes.
+         */
+        public int getLength(int index)
+        {
+            if (this.entries != null)
+                return this.entries[index].length;
+            else if (this.entryBuffer != null)
+                return this.entryBuffer.get(2 * index + 1);
+            else
+                return this.recordLength;
+        }
+    }
+
+    //**************************************************************//
+    //********************  Column Views  **************************//
+    //**************************************************************//
+
+    /**
+     * A scalar numeric column which reads its values directly from the table. Values are boxed exactly as the decoded
+     * column buffers box them, so callers cannot distinguish the two. The typed accessors avoid boxing. Views use only
+     * absolute reads, and may be accessed concurrently.
+     */
+    public static class ScalarColumnView implements VPFDataBuffer
+    {
+        protected final ByteBuffer buffer;
+        protected final RecordIndex recordIndex;
+        protected final int columnOffset;
+        protected final VPFDataType type;
+
+        public ScalarColumnView(ByteBuffer buffer, RecordIndex recordIndex, int columnOffset, VPFDataType type)
+        {
+            // Views of the buffer share its contents, but not its position or byte order.
+            this.buffer = buffer.duplicate().order(buffer.order());
+            this.recordIndex = recordIndex;
+            this.columnOffset = columnOffset;
+            this.type = type;
+        }
+
+        /**
+         * Indicates whether a column can be viewed in place, which is true for single element short and long integer
+         * and floating point columns.
+         *
+         * @param column the column to test.
+         *
+         * @return true if the column can be viewed in place, otherwise false.
+         */
+        public static boolean isViewableColumn(Column column)
+        {
+            if (column.numElements != 1)
+                return false;
+
+            VPFDataType type = VPFDataType.fromTypeName(column.dataType);
+            return type == VPFDataType.SHORT_INT || type == VPFDataType.LONG_INT
+                || type == VPFDataType.SHORT_FLOAT || type == VPFDataType.LONG_FLOAT;
+        }
+
+        public VPFDataType getDataType()
+        {
+            return this.type;
+        }
+
+        /**
+         * Returns the value of the specified row as an int.
+         *
+         * @param id the row id, starting at 1.
+         *
+         * @return the row's value.
+         */
+        public int getInt(int id)
+        {
+            int offset = this.recordIndex.getOffset(id - 1) + this.columnOffset;
+
+            switch (this.type)
+            {
+                case SHORT_INT:
+                    return this.buffer.getShort(offset);
+                case LONG_INT:
+                    return this.buffer.getInt(offset);
+                case SHORT_FLOAT:
+                    return (int) this.buffer.getFloat(offset);
+                default:
+                    return (int) this.buffer.getDouble(offset);
+            }
+        }
+
+        /**
+         * Returns the value of the specified row as a double.
+         *
+         * @param id the row id, starting at 1.
+         *
+         * @return the row's value.
+         */
+        public double getDouble(int id)
+        {
+            int offset = this.recordIndex.getOffset(id - 1) + this.columnOffset;
+
+            switch (this.type)
+            {
+                case SHORT_INT:
+                    return this.buffer.getShort(offset);
+                case LONG_INT:
+                    return this.buffer.getInt(offset);
+                case SHORT_FLOAT:
+                    return this.buffer.getFloat(offset);
+                default:
+                    return this.buffer.getDouble(offset);
+            }
+        }
+
+        public Object get(int index)
+        {
+            if (index < 1 || index > this.recordIndex.numEntries)
+                return null;
+
+            // Integer columns are boxed as Integer, and floating point columns as Double.
+            if (this.type == VPFDataType.SHORT_INT || this.type == VPFDataType.LONG_INT)
+                return this.getInt(index);
+            else
+                return this.getDouble(index);
+        }
+
+        /**
+         * Returns a view of the mapped table which contains this column.
+         *
+         * @return the table's buffer.
+         */
+        public Object getBackingData()
+        {
+            return this.buffer;
+        }
+
+        public boolean hasValue(int index)
+        {
+            if (index < 1 || index > this.recordIndex.numEntries)
+                return false;
+
+            switch (this.type)
+            {
+                case SHORT_INT: // Short columns are read as ints, and so are never equal to the int "no value".
+                    return true;
+                case LONG_INT:
+                    return !VPFBasicDataBufferFactory.isNoValueInt(this.getInt(index));
+                default:
+                    return !VPFBasicDataBufferFactory.isNoValueDouble(this.getDouble(index));
+            }
+        }
+
+        public void read(ByteBuffer byteBuffer)
+        {
+            // Views are not populated by reading.
+        }
+
+        public void read(ByteBuffer byteBuffer, int length)
+        {
+            // Views are not populated by reading.
+        }
     }
 
     /**
@@ -433,20 +655,19 @@ public class VPFTableReader
     {
         try
         {
-            ByteBuffer buffer = this.readFileToBuffer(file);
+            ByteBuffer buffer = this.mapFileToBuffer(file);
             buffer.order(ByteOrder.LITTLE_ENDIAN); // Default to least significant byte first order.
 
             RecordIndex index = new RecordIndex();
             index.numEntries = buffer.getInt();
             index.headerLength = buffer.getInt();
-            index.entries = new RecordIndex.Entry[index.numEntries];
 
-            for (int i = 0; i < index.numEntries; i++)
-            {
-                int recordOffset = buffer.getInt();
-                int recordLength = buffer.getInt();
-                index.entries[i] = new RecordIndex.Entry(recordOffset, recordLength);
-            }
+            // Each entry is a record offset followed by a record length. The entries are read from the mapped index
+            // as they are needed.
+            ByteBuffer entries = buffer.slice();
+            entries.order(ByteOrder.LITTLE_ENDIAN);
+            entries.limit(8 * index.numEntries);
+            index.entryBuffer = entries.asIntBuffer();
 
             return index;
         }
@@ -481,17 +702,12 @@ public class VPFTableReader
         int bodyLength = buffer.limit() - bodyOffset;
         int numRecords = bodyLength / recordLength;
 
+        // Record offsets are computed as they are needed, so the index holds no per-record entries.
         RecordIndex index = new RecordIndex();
         index.headerLength = header.length;
         index.numEntries = numRecords;
-        index.entries = new RecordIndex.Entry[numRecords];
-
-        int offset = bodyOffset;
-        for (int i = 0; i < numRecords; i++)
-        {
-            index.entries[i] = new RecordIndex.Entry(offset, recordLength);
-            offset += index.entries[i].length;
-        }
+        index.bodyOffset = bodyOffset;
+        index.recordLength = recordLength;
 
         return index;
     }
@@ -326,6 +326,50 @@ public interface ElevationModel extends WWObject, Restorable, Disposable
     double getUnmappedElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
         double[] buffer);
 
+    /**
+     * Returns the elevations of locations specified as arrays of latitudes and longitudes. This is equivalent to {@link
+     * #getElevations(gov.nasa.worldwind.geom.Sector, java.util.List, double, double[])}, but avoids creating a location
+     * object per location, so is suited to queries of many locations.
+     *
+     * @param sector           the sector in question.
+     * @param latitudes        the latitudes of the locations, in degrees. If a latitude or longitude is NaN, the output
+     *                         buffer for that location is not modified.
+     * @param longitudes       the longitudes of the locations, in degrees. Must be the same length as the latitudes.
+     * @param targetResolution the desired horizontal resolution, in radians, of the raster or other elevation sample
+     *                         from which elevations are drawn.
+     * @param buffer           an array in which to place the returned elevations. The array must be pre-allocated and
+     *                         contain at least as many elements as there are locations.
+     *
+     * @return the resolution achieved, in radians, or {@link Double#MAX_VALUE} if individual elevations cannot be
+     *         determined for all of the locations.
+     *
+     * @throws IllegalArgumentException if the sector or any array is null, or if the arrays' lengths are inconsistent.
+     */
+    double getElevations(Sector sector, double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer);
+
+    /**
+     * Returns the elevations of locations specified as arrays of latitudes and longitudes. This is equivalent to {@link
+     * #getUnmappedElevations(gov.nasa.worldwind.geom.Sector, java.util.List, double, double[])}, but avoids creating a
+     * location object per location, so is suited to queries of many locations.
+     *
+     * @param sector           the sector in question.
+     * @param latitudes        the latitudes of the locations, in degrees. If a latitude or longitude is NaN, the output
+     *                         buffer for that location is not modified.
+     * @param longitudes       the longitudes of the locations, in degrees. Must be the same length as the latitudes.
+     * @param targetResolution the desired horizontal resolution, in radians, of the raster or other elevation sample
+     *                         from which elevations are drawn.
+     * @param buffer           an array in which to place the returned elevations. The array must be pre-allocated and
+     *                         contain at least as many elements as there are locations.
+     *
+     * @return the resolution achieved, in radians, or {@link Double#MAX_VALUE} if individual elevations cannot be
+     *         determined for all of the locations.
+     *
+     * @throws IllegalArgumentException if the sector or any array is null, or if the arrays' lengths are inconsistent.
+     */
+    double getUnmappedElevations(Sector sector, double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer);
+
     /**
      * Returns the elevations of a collection of locations. <em>Does not</em> replace any elevation values corresponding
      * to the missing data signal with the elevation model's missing data replacement value. If a location within the
@@ -508,6 +508,28 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
         return resolution;
     }
 
+    public double getElevations(Sector sector, double[] latitudes, double[] longitudes, double targetResolution,
+        double[] elevations)
+    {
+        if (this.elevationModel == null)
+            return 0;
+
+        double resolution = this.elevationModel.getElevations(sector, latitudes, longitudes, targetResolution,
+            elevations);
+
+        if (this.egm96 != null)
+        {
+            for (int i = 0; i < latitudes.length; i++)
+            {
+                if (!Double.isNaN(latitudes[i]) && !Double.isNaN(longitudes[i]))
+                    elevations[i] += this.egm96.getOffset(Angle.fromDegrees(latitudes[i]),
+                        Angle.fromDegrees(longitudes[i]));
+            }
+        }
+
+        return resolution;
+    }
+
     public double getElevation(Angle latitude, Angle longitude)
     {
         if (latitude == null || longitude == null)
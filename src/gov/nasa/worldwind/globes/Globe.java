@@ -176,6 +176,29 @@ public interface Globe extends WWObject, Extent
     double[] getElevations(Sector sector, List<? extends LatLon> latlons, double[] targetResolution,
         double[] elevations);
 
+    /**
+     * Indicates the elevations of locations specified as arrays of latitudes and longitudes. This is equivalent to
+     * {@link #getElevations(gov.nasa.worldwind.geom.Sector, java.util.List, double, double[])}, but avoids creating a
+     * location object per location, so is suited to queries of many locations.
+     *
+     * @param sector           the sector in question.
+     * @param latitudes        the latitudes of the locations, in degrees. If a latitude or longitude is NaN, the output
+     *                         buffer for that location is not modified.
+     * @param longitudes       the longitudes of the locations, in degrees. Must be the same length as the latitudes.
+     * @param targetResolution the desired horizontal resolution, in radians, of the raster or other elevation sample
+     *                         from which elevations are drawn.
+     * @param elevations       an array in which to place the returned elevations. The array must be pre-allocated and
+     *                         contain at least as many elements as there are locations.
+     *
+     * @return the resolution achieved, in radians, or {@link Double#MAX_VALUE} if individual elevations cannot be
+     *         determined for all of the locations. Returns zero if an elevation model is not available.
+     *
+     * @throws IllegalArgumentException if the sector or any array is null, or if the arrays' lengths are inconsistent.
+     * @see #getElevationModel()
+     */
+    double getElevations(Sector sector, double[] latitudes, double[] longitudes, double targetResolution,
+        double[] elevations);
+
     /**
      * Indicates the maximum elevation on this globe, in meters.
      *
@@ -251,7 +251,8 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         return new RequestTask(tile, this);
     }
 
-    protected static class RequestTask implements Runnable, Comparable<RequestTask>
+    protected static class RequestTask
+        implements Runnable, Comparable<RequestTask>, TileRequestScheduler.PrioritizedTask
     {
         protected final BasicTiledImageLayer layer;
         protected final TextureTile tile;
@@ -288,6 +289,11 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
             this.layer.retrieveTexture(this.tile, this.layer.createDownloadPostProcessor(this.tile));
         }
 
+        public double getRequestPriority()
+        {
+            return TileRequestScheduler.computePriority(this.tile.getPriority(), this.tile.getSector());
+        }
+
         /**
          * @param that the task to compare
          *
@@ -347,14 +353,26 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
     {
         TextureData textureData;
 
-        synchronized (this.fileLock)
+        if (this.isDecodeTexture(textureURL, this.getTextureFormat()))
         {
-            textureData = readTexture(textureURL, this.getTextureFormat(), this.isUseMipMaps());
+            textureData = this.decodeTexture(textureURL, this.isUseMipMaps());
+        }
+        else
+        {
+            synchronized (this.fileLock)
+            {
+                textureData = readTexture(textureURL, this.getTextureFormat(), this.isUseMipMaps());
+            }
         }
 
         if (textureData == null)
             return false;
 
+        // Remove the tile from the memory cache before replacing its texture data. Otherwise the cache's removal
+        // listener, called when the tile is added again, would release the new data's pooled buffer.
+        if (TextureTile.getMemoryCache().getObject(tile.getTileKey()) == tile)
+            TextureTile.getMemoryCache().remove(tile.getTileKey());
+
         tile.setTextureData(textureData);
         if (tile.getLevelNumber() != 0 || !this.isRetainLevelZeroTiles())
             this.addTileToCache(tile);
@@ -411,6 +429,63 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         }
     }
 
+    /**
+     * Indicates whether the texture at a URL is decoded by WorldWind's {@link TextureDecoder}. Textures that are
+     * already in DDS format, or that are to be converted to DDS format, are read by {@link #readTexture(java.net.URL,
+     * String, boolean)}.
+     *
+     * @param url           the URL referencing the texture data.
+     * @param textureFormat the texture data format to return.
+     *
+     * @return true if the texture is decoded by the texture decoder, otherwise false.
+     */
+    protected boolean isDecodeTexture(java.net.URL url, String textureFormat)
+    {
+        return !"image/dds".equalsIgnoreCase(textureFormat) && !url.toString().toLowerCase().endsWith("dds");
+    }
+
+    /**
+     * Reads the encoded texture image at the specified URL and decodes it with WorldWind's {@link TextureDecoder}.
+     * Only reading the file is synchronized with this layer's file writes; decoding runs concurrently with other
+     * loads, up to the decoder's parallelism. The returned texture data holds its pixels in a pooled direct buffer,
+     * which is returned to the pool when the data is converted to a texture or its tile is evicted from the memory
+     * cache.
+     *
+     * @param url        the URL referencing the texture data to read.
+     * @param useMipMaps true to generate mip-maps for the texture data.
+     *
+     * @return the texture data, or null if the texture can't be read.
+     */
+    protected TextureData decodeTexture(java.net.URL url, boolean useMipMaps)
+    {
+        try
+        {
+            ByteBuffer encoded;
+            synchronized (this.fileLock)
+            {
+                encoded = WWIO.readURLContentToBuffer(url);
+            }
+
+            TextureData textureData = WorldWind.getTextureDecoder().decode(Configuration.getMaxCompatibleGLProfile(),
+                encoded, useMipMaps);
+
+            // Let JOGL read image formats that ImageIO doesn't recognize.
+            if (textureData == null)
+            {
+                textureData = OGLUtil.newTextureData(Configuration.getMaxCompatibleGLProfile(),
+                    WWIO.getInputStreamFromByteBuffer(encoded), useMipMaps);
+            }
+
+            return textureData;
+        }
+        catch (Exception e)
+        {
+            String msg = Logging.getMessage("layers.TextureLayer.ExceptionAttemptingToReadTextureFile", url);
+            Logging.logger().log(java.util.logging.Level.SEVERE, msg, e);
+            return null;
+        }
+    }
+
     protected void addTileToCache(TextureTile tile)
     {
         TextureTile.getMemoryCache().add(tile.getTileKey(), tile);
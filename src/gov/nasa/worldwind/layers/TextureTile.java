@@ -37,6 +37,7 @@ import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
 
 import com.jogamp.opengl.*;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -66,8 +67,24 @@ public class TextureTile extends Tile implements SurfaceTile
         if (!WorldWind.getMemoryCacheSet().containsCache(TextureTile.class.getName()))
         {
             long size = Configuration.getLongValue(AVKey.TEXTURE_IMAGE_CACHE_SIZE, 3000000L);
-            MemoryCache cache = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache cache = BasicMemoryCacheSet.createCache(TextureTile.class.getName(),
+                (long) (0.85 * size), size);
             cache.setName("Texture Tiles");
+            cache.addCacheListener(new MemoryCache.CacheListener()
+            {
+                public void entryRemoved(Object key, Object clientObject)
+                {
+                    // Return the pixel buffers of evicted tiles whose texture data was never converted to a texture.
+                    if (clientObject instanceof TextureTile)
+                        ((TextureTile) clientObject).releaseTextureData();
+                }
+
+                public void removalException(Throwable e, Object key, Object clientObject)
+                {
+                    String msg = Logging.getMessage("BasicMemoryCache.ExceptionFromRemovalListener", e.getMessage());
+                    Logging.logger().log(java.util.logging.Level.INFO, msg);
+                }
+            });
             WorldWind.getMemoryCacheSet().addCache(TextureTile.class.getName(), cache);
         }
 
@@ -151,6 +168,10 @@ public class TextureTile extends Tile implements SurfaceTile
      */
     public void setTextureData(TextureData textureData)
     {
+        TextureData previous = this.textureData;
+        if (previous != textureData && previous instanceof TextureDecoder.PooledTextureData)
+            ((TextureDecoder.PooledTextureData) previous).release();
+
         this.textureData = textureData;
         if (textureData.getMipmapData() != null)
             this.hasMipmapData = true;
@@ -177,7 +198,31 @@ public class TextureTile extends Tile implements SurfaceTile
             throw new IllegalStateException(message);
         }
 
-        return this.getTexture(tc) != null || this.getTextureData() != null;
+        return this.getTexture(tc) != null || this.isTextureDataAvailable();
+    }
+
+    /**
+     * Indicates whether this tile has texture data that has not yet been converted to a texture and whose pixels are
+     * still available.
+     *
+     * @return true if the tile has usable texture data, otherwise false.
+     */
+    protected boolean isTextureDataAvailable()
+    {
+        TextureData data = this.getTextureData();
+        return data != null && !(data instanceof TextureDecoder.PooledTextureData
+            && ((TextureDecoder.PooledTextureData) data).isReleased());
+    }
+
+    /**
+     * Returns the buffer of this tile's texture data to its pool if the data was decoded into a pooled buffer and has
+     * not been converted to a texture. Called when the tile is removed from the memory cache.
+     */
+    protected void releaseTextureData()
+    {
+        TextureData data = this.getTextureData();
+        if (data instanceof TextureDecoder.PooledTextureData)
+            ((TextureDecoder.PooledTextureData) data).release();
     }
 
     public long getUpdateTime()
@@ -367,9 +412,20 @@ public class TextureTile extends Tile implements SurfaceTile
             throw new IllegalStateException(msg);
         }
 
+        // Take ownership of pooled pixels for the upload. If the tile was evicted from the memory cache the pixels
+        // have already been returned to the pool and can't be used.
+        TextureData data = this.getTextureData();
+        ByteBuffer pooledBuffer = null;
+        if (data instanceof TextureDecoder.PooledTextureData)
+        {
+            pooledBuffer = ((TextureDecoder.PooledTextureData) data).take();
+            if (pooledBuffer == null)
+                return t;
+        }
+
         try
         {
-            t = TextureIO.newTexture(this.getTextureData());
+            t = TextureIO.newTexture(data);
         }
         catch (Exception e)
         {
@@ -377,6 +433,12 @@ public class TextureTile extends Tile implements SurfaceTile
             Logging.logger().log(java.util.logging.Level.SEVERE, msg, e);
             return null;
         }
+        finally
+        {
+            // The texture's pixels have been copied to the GPU, so the buffer can be reused.
+            if (pooledBuffer != null)
+                ((TextureDecoder.PooledTextureData) data).getPool().release(pooledBuffer);
+        }
 
         this.setTexture(dc.getTextureCache(), t);
         t.bind(dc.getGL());
@@ -27,7 +27,7 @@
  */
 package gov.nasa.worldwind.layers;
 
-import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.geom.Box;
@@ -78,6 +78,178 @@ public abstract class TiledImageLayer extends AbstractLayer
     protected boolean atMaxResolution = false;
     protected PriorityBlockingQueue<Runnable> requestQ = new PriorityBlockingQueue<Runnable>(200);
 
+    // Frame coherent tile selection
+    protected static final int MAX_SHARED_SELECTIONS = 64;
+    /** Most recent tile selection for each distinct tiling, shared by all layers with that tiling. */
+    protected static final Map<SelectionGeometryKey, TileSelection> sharedSelections =
+        new LinkedHashMap<SelectionGeometryKey, TileSelection>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SelectionGeometryKey, TileSelection> eldest)
+            {
+                return this.size() > MAX_SHARED_SELECTIONS;
+            }
+        };
+    protected boolean frameCoherentSelection = Configuration.getBooleanValue(AVKey.FRAME_COHERENT_TILE_SELECTION,
+        false);
+    protected SelectionGeometryKey selectionGeometryKey;
+    protected TileSelection selection;
+    protected TextureTile[] selectionTiles;
+
+    /**
+     * The tiles visited when selecting the tiles to draw, in depth first order, independent of which layer visited
+     * them. A tile is identified by its depth below the top level and its index: the index of a top level tile within
+     * the top level list, or the index of a sub tile within its parent's sub tiles. Because selection depends only on
+     * geometry, a selection made by one layer can be replayed by any layer with the same tiling.
+     */
+    protected static class TileSelection
+    {
+        protected final SelectionFrameKey frameKey;
+        protected int size;
+        protected int[] depths = new int[64];
+        protected int[] indices = new int[64];
+        protected boolean[] selected = new boolean[64];
+        protected int maxDepth;
+
+        public TileSelection(SelectionFrameKey frameKey)
+        {
+            this.frameKey = frameKey;
+        }
+
+        public void add(int depth, int index, boolean isSelected)
+        {
+            if (this.size == this.depths.length)
+            {
+                this.depths = Arrays.copyOf(this.depths, 2 * this.size);
+                this.indices = Arrays.copyOf(this.indices, 2 * this.size);
+                this.selected = Arrays.copyOf(this.selected, 2 * this.size);
+            }
+
+            this.depths[this.size] = depth;
+            this.indices[this.size] = index;
+            this.selected[this.size] = isSelected;
+            this.size++;
+            this.maxDepth = Math.max(this.maxDepth, depth);
+        }
+    }
+
+    /** Identifies the tiling and level of detail criteria of a layer. Layers with equal keys select the same tiles. */
+    protected static class SelectionGeometryKey
+    {
+        protected final Class<?> layerClass;
+        protected final Sector sector;
+        protected final LatLon tileOrigin;
+        protected final LatLon[] tileDeltas;
+        protected final double[] texelSizes;
+        protected final double detailFactor;
+        protected final int hashCode;
+
+        public SelectionGeometryKey(TiledImageLayer layer)
+        {
+            LevelSet levels = layer.getLevels();
+
+            // The class is part of the key because subclasses may override the selection criteria.
+            this.layerClass = layer.getClass();
+            this.sector = levels.getSector();
+            this.tileOrigin = levels.getTileOrigin();
+            this.tileDeltas = new LatLon[levels.getNumLevels()];
+            this.texelSizes = new double[levels.getNumLevels()];
+            for (int i = 0; i < levels.getNumLevels(); i++)
+            {
+                this.tileDeltas[i] = levels.getLevel(i).getTileDelta();
+                this.texelSizes[i] = levels.getLevel(i).getTexelSize();
+            }
+            this.detailFactor = layer.getDetailFactor();
+
+            int result = this.layerClass.hashCode();
+            result = 31 * result + this.sector.hashCode();
+            result = 31 * result + this.tileOrigin.hashCode();
+            result = 31 * result + Arrays.hashCode(this.tileDeltas);
+            result = 31 * result + Arrays.hashCode(this.texelSizes);
+            long temp = Double.doubleToLongBits(this.detailFactor);
+            this.hashCode = 31 * result + (int) (temp ^ (temp >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+
+            SelectionGeometryKey that = (SelectionGeometryKey) o;
+            return this.hashCode == that.hashCode
+                && this.layerClass == that.layerClass
+                && this.detailFactor == that.detailFactor
+                && this.sector.equals(that.sector)
+                && this.tileOrigin.equals(that.tileOrigin)
+                && Arrays.equals(this.tileDeltas, that.tileDeltas)
+                && Arrays.equals(this.texelSizes, that.texelSizes);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hashCode;
+        }
+    }
+
+    /**
+     * Captures the per-frame state that tile selection depends on: the view's modelview and projection matrices, the
+     * globe and its elevation range, the vertical exaggeration and the visible sector.
+     */
+    protected static class SelectionFrameKey
+    {
+        protected final Matrix modelview;
+        protected final Matrix projection;
+        protected final Object globeStateKey;
+        protected final double minElevation;
+        protected final double maxElevation;
+        protected final double verticalExaggeration;
+        protected final Sector visibleSector;
+
+        public SelectionFrameKey(DrawContext dc)
+        {
+            this.modelview = dc.getView().getModelviewMatrix();
+            this.projection = dc.getView().getProjectionMatrix();
+            this.globeStateKey = dc.getGlobe().getGlobeStateKey(dc);
+            this.minElevation = dc.getGlobe().getMinElevation();
+            this.maxElevation = dc.getGlobe().getMaxElevation();
+            this.verticalExaggeration = dc.getVerticalExaggeration();
+            this.visibleSector = dc.getVisibleSector();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+
+            SelectionFrameKey that = (SelectionFrameKey) o;
+            return this.minElevation == that.minElevation
+                && this.maxElevation == that.maxElevation
+                && this.verticalExaggeration == that.verticalExaggeration
+                && (this.modelview != null ? this.modelview.equals(that.modelview) : that.modelview == null)
+                && (this.projection != null ? this.projection.equals(that.projection) : that.projection == null)
+                && (this.globeStateKey != null ? this.globeStateKey.equals(that.globeStateKey)
+                : that.globeStateKey == null)
+                && (this.visibleSector != null ? this.visibleSector.equals(that.visibleSector)
+                : that.visibleSector == null);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = this.modelview != null ? this.modelview.hashCode() : 0;
+            result = 31 * result + (this.projection != null ? this.projection.hashCode() : 0);
+            result = 31 * result + (this.globeStateKey != null ? this.globeStateKey.hashCode() : 0);
+            return 31 * result + (this.visibleSector != null ? this.visibleSector.hashCode() : 0);
+        }
+    }
+
     abstract protected void requestTexture(DrawContext dc, TextureTile tile);
 
     abstract protected void forceTextureLoad(TextureTile tile);
@@ -208,6 +380,35 @@ public abstract class TiledImageLayer extends AbstractLayer
         this.detailHint = detailHint;
     }
 
+    /**
+     * Indicates whether this layer reuses its tile selection from frame to frame. See {@link
+     * #setFrameCoherentSelection(boolean)}.
+     *
+     * @return true if tile selections are reused, otherwise false.
+     */
+    public boolean isFrameCoherentSelection()
+    {
+        return this.frameCoherentSelection;
+    }
+
+    /**
+     * Specifies whether this layer reuses its tile selection from frame to frame. When enabled, the quadtree descent
+     * that determines which tiles meet the layer's visibility and level of detail criteria is performed only when the
+     * view, the globe or the vertical exaggeration changes, and the result is shared with every other layer that has
+     * the same tiling and detail hint. Each frame still checks which of the selected tiles have textures in memory and
+     * requests those that don't. The initial value is given by the configuration property {@link
+     * AVKey#FRAME_COHERENT_TILE_SELECTION}, and is false if that property is not set. Set that property to true to
+     * enable frame coherent selection for every layer.
+     *
+     * @param frameCoherentSelection true to reuse tile selections, otherwise false.
+     */
+    public void setFrameCoherentSelection(boolean frameCoherentSelection)
+    {
+        this.frameCoherentSelection = frameCoherentSelection;
+        this.selection = null;
+        this.selectionTiles = null;
+    }
+
     public LevelSet getLevels()
     {
         return levels;
@@ -362,6 +563,12 @@ public abstract class TiledImageLayer extends AbstractLayer
     {
         this.currentTiles.clear();
 
+        if (this.isFrameCoherentSelection())
+        {
+            this.assembleSelectedTiles(dc);
+            return;
+        }
+
         for (TextureTile tile : this.getTopLevels())
         {
             if (this.isTileVisible(dc, tile))
@@ -440,6 +647,135 @@ public abstract class TiledImageLayer extends AbstractLayer
         }
     }
 
+    /**
+     * Assembles the tiles to draw from a tile selection that is reused while the frame state it was made for is
+     * unchanged. The selection may have been made by another layer with the same tiling. The tiles are added exactly
+     * as {@link #addTileOrDescendants(gov.nasa.worldwind.render.DrawContext, TextureTile)} adds them.
+     *
+     * @param dc the current draw context.
+     */
+    protected void assembleSelectedTiles(DrawContext dc)
+    {
+        if (this.selectionGeometryKey == null || this.selectionGeometryKey.detailFactor != this.getDetailFactor())
+            this.selectionGeometryKey = new SelectionGeometryKey(this);
+
+        SelectionFrameKey frameKey = new SelectionFrameKey(dc);
+        TileSelection selection;
+        synchronized (sharedSelections)
+        {
+            selection = sharedSelections.get(this.selectionGeometryKey);
+        }
+
+        if (selection == null || !selection.frameKey.equals(frameKey))
+        {
+            selection = this.selectTiles(dc, frameKey);
+            synchronized (sharedSelections)
+            {
+                sharedSelections.put(this.selectionGeometryKey, selection);
+            }
+        }
+        else if (selection != this.selection)
+        {
+            this.selectionTiles = this.createSelectionTiles(selection);
+        }
+        this.selection = selection;
+
+        // Replay the selection. The resource tile at each depth is the nearest ancestor whose texture is in memory,
+        // or the top level tile, exactly as the recursive descent determines it.
+        TextureTile[] resourceTiles = new TextureTile[selection.maxDepth + 2];
+        for (int i = 0; i < selection.size; i++)
+        {
+            int depth = selection.depths[i];
+            TextureTile tile = this.selectionTiles[i];
+            this.currentResourceTile = resourceTiles[depth];
+
+            if (selection.selected[i])
+            {
+                this.addTile(dc, tile);
+            }
+            else
+            {
+                resourceTiles[depth + 1] =
+                    (tile.isTextureInMemory(dc.getTextureCache()) || tile.getLevelNumber() == 0) ? tile
+                        : resourceTiles[depth];
+            }
+        }
+        this.currentResourceTile = null;
+    }
+
+    /**
+     * Performs the quadtree descent of {@link #addTileOrDescendants(gov.nasa.worldwind.render.DrawContext,
+     * TextureTile)}, recording the tiles visited rather than adding them. This layer's tiles for the selection are
+     * kept in {@link #selectionTiles}.
+     *
+     * @param dc       the current draw context.
+     * @param frameKey the frame state the selection is made for.
+     *
+     * @return the new selection.
+     */
+    protected TileSelection selectTiles(DrawContext dc, SelectionFrameKey frameKey)
+    {
+        TileSelection selection = new TileSelection(frameKey);
+        ArrayList<TextureTile> tiles = new ArrayList<TextureTile>();
+
+        List<TextureTile> topLevels = this.getTopLevels();
+        for (int i = 0; i < topLevels.size(); i++)
+        {
+            TextureTile tile = topLevels.get(i);
+            if (this.isTileVisible(dc, tile))
+                this.selectTileOrDescendants(dc, tile, 0, i, selection, tiles);
+        }
+
+        this.selectionTiles = tiles.toArray(new TextureTile[tiles.size()]);
+        return selection;
+    }
+
+    protected void selectTileOrDescendants(DrawContext dc, TextureTile tile, int depth, int index,
+        TileSelection selection, List<TextureTile> tiles)
+    {
+        boolean meetsCriteria = this.meetsRenderCriteria(dc, tile);
+        selection.add(depth, index, meetsCriteria);
+        tiles.add(tile);
+
+        if (meetsCriteria)
+            return;
+
+        TextureTile[] subTiles = tile.createSubTiles(this.levels.getLevel(tile.getLevelNumber() + 1));
+        for (int i = 0; i < subTiles.length; i++)
+        {
+            TextureTile child = subTiles[i];
+            if (this.getLevels().getSector().intersects(child.getSector()) && this.isTileVisible(dc, child))
+                this.selectTileOrDescendants(dc, child, depth + 1, i, selection, tiles);
+        }
+    }
+
+    /**
+     * Returns this layer's tiles for a selection made by another layer with the same tiling.
+     *
+     * @param selection the selection.
+     *
+     * @return this layer's tile for each tile of the selection.
+     */
+    protected TextureTile[] createSelectionTiles(TileSelection selection)
+    {
+        TextureTile[] tiles = new TextureTile[selection.size];
+        TextureTile[][] subTiles = new TextureTile[selection.maxDepth + 1][];
+        List<TextureTile> topLevels = this.getTopLevels();
+
+        for (int i = 0; i < selection.size; i++)
+        {
+            int depth = selection.depths[i];
+            TextureTile tile = (depth == 0) ? topLevels.get(selection.indices[i])
+                : subTiles[depth - 1][selection.indices[i]];
+            tiles[i] = tile;
+
+            if (!selection.selected[i])
+                subTiles[depth] = tile.createSubTiles(this.levels.getLevel(tile.getLevelNumber() + 1));
+        }
+
+        return tiles;
+    }
+
     protected void addTile(DrawContext dc, TextureTile tile)
     {
         tile.setFallbackTile(null);
@@ -706,14 +1042,12 @@ public abstract class TiledImageLayer extends AbstractLayer
 
     protected void sendRequests()
     {
-        Runnable task = this.requestQ.poll();
-        while (task != null)
+        // The requests are submitted to the task service by the shared scheduler at the end of the frame, ordered
+        // by importance among all layers.
+        Runnable task;
+        while ((task = this.requestQ.poll()) != null)
         {
-            if (!WorldWind.getTaskService().isFull())
-            {
-                WorldWind.getTaskService().addTask(task);
-            }
-            task = this.requestQ.poll();
+            WorldWind.getTileRequestScheduler().addRequest(this, task);
         }
     }
 
@@ -1138,11 +1472,11 @@ public abstract class TiledImageLayer extends AbstractLayer
         {
             try
             {
-                File imageFile = new File(url.toURI());
-                BufferedImage image = ImageIO.read(imageFile);
+                // Read through the URL rather than a File, since packed file stores return non-file URLs.
+                BufferedImage image = ImageIO.read(url);
                 if (image == null)
                 {
-                    String message = Logging.getMessage("generic.ImageReadFailed", imageFile);
+                    String message = Logging.getMessage("generic.ImageReadFailed", url);
                     throw new RuntimeException(message);
                 }
 
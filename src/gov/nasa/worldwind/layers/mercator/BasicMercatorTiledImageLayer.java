@@ -61,7 +61,8 @@ public class BasicMercatorTiledImageLayer extends MercatorTiledImageLayer
         {
             long size = Configuration.getLongValue(
                 AVKey.TEXTURE_IMAGE_CACHE_SIZE, 3000000L);
-            MemoryCache cache = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache cache = BasicMemoryCacheSet.createCache(MercatorTextureTile.class.getName(),
+                (long) (0.85 * size), size);
             cache.setName("Texture Tiles");
             WorldWind.getMemoryCacheSet().addCache(MercatorTextureTile.class.getName(), cache);
         }
@@ -97,7 +98,7 @@ public class BasicMercatorTiledImageLayer extends MercatorTiledImageLayer
     }
 
     private static class RequestTask implements Runnable,
-        Comparable<RequestTask>
+        Comparable<RequestTask>, TileRequestScheduler.PrioritizedTask
     {
         private final BasicMercatorTiledImageLayer layer;
         private final MercatorTextureTile tile;
@@ -139,6 +140,11 @@ public class BasicMercatorTiledImageLayer extends MercatorTiledImageLayer
             this.layer.downloadTexture(this.tile);
         }
 
+        public double getRequestPriority()
+        {
+            return TileRequestScheduler.computePriority(this.tile.getPriority(), this.tile.getSector());
+        }
+
         /**
          * @param that the task to compare
          *
@@ -612,14 +612,12 @@ public abstract class MercatorTiledImageLayer extends AbstractLayer
 
     private void sendRequests()
     {
-        Runnable task = this.requestQ.poll();
-        while (task != null)
+        // The requests are submitted to the task service by the shared scheduler at the end of the frame, ordered
+        // by importance among all layers.
+        Runnable task;
+        while ((task = this.requestQ.poll()) != null)
         {
-            if (!WorldWind.getTaskService().isFull())
-            {
-                WorldWind.getTaskService().addTask(task);
-            }
-            task = this.requestQ.poll();
+            WorldWind.getTileRequestScheduler().addRequest(this, task);
         }
     }
 
@@ -793,12 +791,12 @@ public abstract class MercatorTiledImageLayer extends AbstractLayer
         {
             try
             {
-                File imageFile = new File(url.toURI());
-                BufferedImage image = ImageIO.read(imageFile);
+                // Read through the URL rather than a File, since packed file stores return non-file URLs.
+                BufferedImage image = ImageIO.read(url);
                 if (image == null)
                 {
                     String message = Logging.getMessage(
-                        "generic.ImageReadFailed", imageFile);
+                        "generic.ImageReadFailed", url);
                     throw new RuntimeException(message);
                 }
 
@@ -116,7 +116,7 @@ public class PlaceNameLayer extends AbstractLayer implements BulkRetrievable
         if (!WorldWind.getMemoryCacheSet().containsCache(Tile.class.getName()))
         {
             long size = Configuration.getLongValue(AVKey.PLACENAME_LAYER_CACHE_SIZE, 2000000L);
-            MemoryCache cache = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache cache = BasicMemoryCacheSet.createCache(Tile.class.getName(), (long) (0.85 * size), size);
             cache.setName("Placename Tiles");
             WorldWind.getMemoryCacheSet().addCache(Tile.class.getName(), cache);
         }
@@ -785,18 +785,17 @@ public class PlaceNameLayer extends AbstractLayer implements BulkRetrievable
 
     protected void sendRequests()
     {
-        Runnable task = this.requestQ.poll();
-        while (task != null)
+        // The requests are submitted to the task service by the shared scheduler at the end of the frame, ordered
+        // by importance among all layers.
+        Runnable task;
+        while ((task = this.requestQ.poll()) != null)
         {
-            if (!WorldWind.getTaskService().isFull())
-            {
-                WorldWind.getTaskService().addTask(task);
-            }
-            task = this.requestQ.poll();
+            WorldWind.getTileRequestScheduler().addRequest(this, task);
         }
     }
 
-    protected static class RequestTask implements Runnable, Comparable<RequestTask>
+    protected static class RequestTask
+        implements Runnable, Comparable<RequestTask>, TileRequestScheduler.PrioritizedTask
     {
         protected final PlaceNameLayer layer;
         protected final Tile tile;
@@ -831,6 +830,11 @@ public class PlaceNameLayer extends AbstractLayer implements BulkRetrievable
             this.layer.downloadTile(this.tile);
         }
 
+        public double getRequestPriority()
+        {
+            return TileRequestScheduler.computePriority(this.tile.getPriority(), this.tile.getSector());
+        }
+
         /**
          * @param that the task to compare
          *
@@ -871,7 +871,7 @@ public class RPFTiledImageLayer extends TiledImageLayer
         }
     }
 
-    private static class TileTask implements Runnable, Comparable<TileTask>
+    private static class TileTask implements Runnable, Comparable<TileTask>, TileRequestScheduler.PrioritizedTask
     {
         private final TextureTile tile;
 
@@ -889,6 +889,11 @@ public class RPFTiledImageLayer extends TiledImageLayer
         {
         }
 
+        public double getRequestPriority()
+        {
+            return TileRequestScheduler.computePriority(this.tile.getPriority(), this.tile.getSector());
+        }
+
         /**
          * @param that the task to compare
          *
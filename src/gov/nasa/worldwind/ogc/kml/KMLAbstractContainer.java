@@ -63,11 +63,28 @@ public class KMLAbstractContainer extends KMLAbstractFeature
         throws XMLStreamException
     {
         if (o instanceof KMLAbstractFeature)
-            this.addFeature((KMLAbstractFeature) o);
+            this.addParsedFeature((KMLAbstractFeature) o, ctx);
         else
             super.doAddEventContent(o, ctx, event, args);
     }
 
+    /**
+     * Adds a parsed feature to this container, unless the parser context's feature listener discards it.
+     *
+     * @param feature the parsed feature.
+     * @param ctx     the parser context.
+     */
+    protected void addParsedFeature(KMLAbstractFeature feature, XMLEventParserContext ctx)
+    {
+        KMLFeatureListener listener = (ctx instanceof KMLParserContext)
+            ? ((KMLParserContext) ctx).getFeatureListener() : null;
+
+        if (listener == null || listener.featureParsed(this, feature))
+            this.addFeature(feature);
+        else
+            ((KMLParserContext) ctx).discardFeature(feature);
+    }
+
     public List<KMLAbstractFeature> getFeatures()
     {
         return this.features;
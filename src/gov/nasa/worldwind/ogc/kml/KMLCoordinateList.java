@@ -0,0 +1,138 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.ogc.kml;
+
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+
+/**
+ * A read-only list of positions parsed from a KML <i>coordinates</i> element. Coordinates are stored as consecutive
+ * latitude, longitude and altitude values in a single array of doubles, and a {@link Position} is created only when an
+ * element of the list is requested. This uses a small fraction of the memory needed by a list of Position objects.
+ *
+ * @version $Id$
+ */
+public class KMLCoordinateList extends AbstractList<Position> implements RandomAccess
+{
+    protected double[] coords;
+    protected int size;
+
+    /** Creates an empty coordinate list. */
+    public KMLCoordinateList()
+    {
+        this(16);
+    }
+
+    /**
+     * Creates an empty coordinate list with room for the specified number of positions.
+     *
+     * @param capacity the initial capacity, in positions.
+     *
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public KMLCoordinateList(int capacity)
+    {
+        if (capacity < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "capacity < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.coords = new double[3 * capacity];
+    }
+
+    /**
+     * Appends a position to the end of this list.
+     *
+     * @param latitude  the position's latitude, in degrees.
+     * @param longitude the position's longitude, in degrees.
+     * @param altitude  the position's altitude, in meters.
+     */
+    public void addCoordinate(double latitude, double longitude, double altitude)
+    {
+        if (3 * this.size == this.coords.length)
+            this.coords = Arrays.copyOf(this.coords, Math.max(6 * this.size, 3));
+
+        int index = 3 * this.size++;
+        this.coords[index] = latitude;
+        this.coords[index + 1] = longitude;
+        this.coords[index + 2] = altitude;
+        this.modCount++;
+    }
+
+    /** Reduces the capacity of this list to its size. */
+    public void trimToSize()
+    {
+        if (this.coords.length > 3 * this.size)
+            this.coords = Arrays.copyOf(this.coords, 3 * this.size);
+    }
+
+    public double getLatitude(int index)
+    {
+        this.checkIndex(index);
+        return this.coords[3 * index];
+    }
+
+    public double getLongitude(int index)
+    {
+        this.checkIndex(index);
+        return this.coords[3 * index + 1];
+    }
+
+    public double getAltitude(int index)
+    {
+        this.checkIndex(index);
+        return this.coords[3 * index + 2];
+    }
+
+    @Override
+    public Position get(int index)
+    {
+        this.checkIndex(index);
+        return Position.fromDegrees(this.coords[3 * index], this.coords[3 * index + 1], this.coords[3 * index + 2]);
+    }
+
+    @Override
+    public int size()
+    {
+        return this.size;
+    }
+
+    protected void checkIndex(int index)
+    {
+        if (index < 0 || index >= this.size)
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", index);
+            Logging.logger().severe(message);
+            throw new IndexOutOfBoundsException(message);
+        }
+    }
+}
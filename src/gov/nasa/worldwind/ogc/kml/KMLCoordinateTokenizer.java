@@ -29,8 +29,7 @@
 package gov.nasa.worldwind.ogc.kml;
 
 import gov.nasa.worldwind.geom.Position;
-
-import java.util.*;
+import gov.nasa.worldwind.util.WWUtil;
 
 /**
  * Tokenizer to read coordinate values from KML coordinate string. The components of each coordinate tuple are separated
@@ -55,6 +54,9 @@ import java.util.*;
  * -18.3,23.56,9,34.9,56.0,2
  * </pre>
  * Will be tokenized to two coordinates: (23.56, -18.3, 9), (56.0, 34.9, 2)
+ * <p>
+ * Coordinate values are parsed directly from the characters of the coordinate string, without creating an intermediate
+ * string for each value. {@link #nextCoordinate(double[])} reads coordinates without creating a Position.
  *
  * @author pabercrombie
  * @version $Id: KMLCoordinateTokenizer.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -64,9 +66,14 @@ public class KMLCoordinateTokenizer
     protected int i;
     protected char[] buffer;
 
-    protected List<String> words = new ArrayList<String>(3);
+    /** Values of the words read for the current coordinate. */
+    protected double[] words = new double[3];
+    protected int numWords;
+    /** Index of the first character of the current word. */
+    protected int wordStart;
 
-    protected StringBuilder nextWord = new StringBuilder();
+    /** The first exception thrown while parsing a word of the current coordinate. */
+    protected NumberFormatException wordException;
 
     protected boolean inWord;
     protected boolean afterComma = false;
@@ -100,7 +107,35 @@ public class KMLCoordinateTokenizer
      */
     public Position nextPosition() throws NumberFormatException
     {
-        this.words.clear();
+        this.readCoordinate();
+
+        return this.makePosition();
+    }
+
+    /**
+     * Reads the next coordinate from the coordinate string into an array, in the order longitude, latitude and
+     * altitude. Altitude is only read if the coordinate has one.
+     *
+     * @param coords array of at least three elements which receives the coordinate values.
+     *
+     * @return the number of values read: 3 if the coordinate has an altitude, 2 if it has none, and fewer than 2 if
+     *         the coordinate is incomplete.
+     *
+     * @throws NumberFormatException if the coordinates cannot be parsed to a number.
+     */
+    public int nextCoordinate(double[] coords) throws NumberFormatException
+    {
+        this.readCoordinate();
+
+        int count = Math.min(this.numWords, this.words.length);
+        System.arraycopy(this.words, 0, coords, 0, count);
+        return count;
+    }
+
+    protected void readCoordinate() throws NumberFormatException
+    {
+        this.numWords = 0;
+        this.wordException = null;
 
         while (this.i < this.buffer.length)
         {
@@ -109,51 +144,68 @@ public class KMLCoordinateTokenizer
             if (Character.isWhitespace(ch))
             {
                 if (this.inWord)
-                    wordBoundary();
+                    wordBoundary(this.i - 1);
 
                 // If the last separator was a comma, don't break. Wait for another word.
-                if (!this.afterComma && this.words.size() >= 2)
+                if (!this.afterComma && this.numWords >= 2)
                     break;
             }
             else if (ch == ',')
             {
                 if (this.inWord)
-                    wordBoundary();
+                    wordBoundary(this.i - 1);
 
                 this.afterComma = true;
 
                 // Three words make a complete coordinate. Break out of the loop and return the coordinate.
-                if (this.words.size() >= 3)
+                if (this.numWords >= 3)
                     break;
             }
             else
             {
+                if (!this.inWord)
+                    this.wordStart = this.i - 1;
+
                 this.inWord = true;
                 this.afterComma = false;
-                this.nextWord.append(ch);
             }
         }
 
         if (this.inWord)
-            this.wordBoundary();
+            this.wordBoundary(this.i);
 
-        return this.makePosition();
+        // Report an invalid word only after the whole coordinate is consumed, so the next coordinate starts at the
+        // right place.
+        if (this.wordException != null)
+            throw this.wordException;
     }
 
     protected Position makePosition()
     {
-        if (this.words.size() > 2)
-            return Position.fromDegrees(Double.valueOf(this.words.get(1)), Double.valueOf(this.words.get(0)),
-                Double.valueOf(this.words.get(2)));
-        else if (this.words.size() == 2)
-            return Position.fromDegrees(Double.valueOf(this.words.get(1)), Double.valueOf(this.words.get(0)));
+        if (this.numWords > 2)
+            return Position.fromDegrees(this.words[1], this.words[0], this.words[2]);
+        else if (this.numWords == 2)
+            return Position.fromDegrees(this.words[1], this.words[0]);
         return null;
     }
 
-    protected void wordBoundary()
+    protected void wordBoundary(int wordEnd)
     {
         this.inWord = false;
-        this.words.add(this.nextWord.toString());
-        this.nextWord = new StringBuilder();
+
+        try
+        {
+            // Words beyond the third are consumed but ignored.
+            double value = WWUtil.parseDouble(this.buffer, this.wordStart, wordEnd);
+            if (this.numWords < this.words.length)
+                this.words[this.numWords] = value;
+        }
+        catch (NumberFormatException e)
+        {
+            if (this.wordException == null)
+                this.wordException = e;
+        }
+
+        this.numWords++;
     }
 }
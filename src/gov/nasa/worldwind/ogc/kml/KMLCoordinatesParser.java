@@ -33,7 +33,6 @@ import gov.nasa.worldwind.util.xml.*;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.events.XMLEvent;
-import java.util.ArrayList;
 
 /**
  * Parses KML <i>coordinates</i> elements.
@@ -60,7 +59,9 @@ public class KMLCoordinatesParser extends AbstractXMLEventParser
         if (s == null || s.length() < 3) // "a,b" is the smallest possible coordinate string
             return null;
 
-        ArrayList<Position> positions = new ArrayList<Position>();
+        // Parse coordinates directly into a compact list of doubles, rather than a list of Position objects.
+        KMLCoordinateList positions = new KMLCoordinateList();
+        double[] coords = new double[3];
 
         KMLCoordinateTokenizer tokenizer = new KMLCoordinateTokenizer(s);
 
@@ -68,22 +69,21 @@ public class KMLCoordinatesParser extends AbstractXMLEventParser
         {
             try
             {
-                positions.add(tokenizer.nextPosition());
+                int count = tokenizer.nextCoordinate(coords);
+                if (count >= 2)
+                    positions.addCoordinate(coords[1], coords[0], count > 2 ? coords[2] : 0);
             }
             catch (NumberFormatException e)
             {
                 continue; // TODO: issue warning?
             }
-            catch (NullPointerException e)
-            {
-                continue; // TODO: issue warning?
-            }
             catch (Exception e)
             {
                 continue; // TODO: issue warning
             }
         }
 
+        positions.trimToSize();
         return new Position.PositionList(positions);
     }
 }
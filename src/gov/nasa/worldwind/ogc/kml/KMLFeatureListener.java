@@ -0,0 +1,52 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.ogc.kml;
+
+/**
+ * Receives KML features as they are parsed, which allows very large KML documents to be processed incrementally. See
+ * {@link KMLRoot#parseIncrementally(KMLFeatureListener, Object...)}. A feature is delivered once its element and all of
+ * its sub-elements have been parsed, so a container is delivered after each of its features. The listener decides
+ * whether the feature is retained by its container. Discarding features once they have been consumed keeps the memory
+ * used by the document proportional to the features retained, rather than to the size of the document.
+ *
+ * @version $Id$
+ */
+public interface KMLFeatureListener
+{
+    /**
+     * Called when a feature has been parsed, before it's added to its container. Features which are not added to their
+     * container are no longer referenced by the document, and cannot be found by {@link KMLRoot#getItemByID(String)}.
+     * This is called on the thread parsing the document.
+     *
+     * @param container the container the feature belongs to.
+     * @param feature   the parsed feature.
+     *
+     * @return true to add the feature to its container, or false to discard it.
+     */
+    boolean featureParsed(KMLAbstractContainer container, KMLAbstractFeature feature);
+}
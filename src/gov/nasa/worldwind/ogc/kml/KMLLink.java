@@ -226,11 +226,12 @@ public class KMLLink extends KMLAbstractObject
             return null;
 
         KMLNetworkLinkControl linkControl = this.getRoot().getNetworkLinkControl();
-        if (linkControl != null)
+        if (linkControl != null && linkControl.getMinRefreshPeriod() != null)
         {
-            Long minRefresh = (long) (linkControl.getMinRefreshPeriod() * 1000d);
-            if (minRefresh != null && minRefresh > refreshTime)
-                refreshTime = minRefresh;
+            // The minimum refresh period is relative to the last update, not an absolute time.
+            long minRefreshTime = this.updateTime.get() + (long) (linkControl.getMinRefreshPeriod() * 1000d);
+            if (minRefreshTime > refreshTime)
+                refreshTime = minRefreshTime;
         }
 
         return refreshTime;
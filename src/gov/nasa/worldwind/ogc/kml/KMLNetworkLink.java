@@ -28,7 +28,6 @@
 
 package gov.nasa.worldwind.ogc.kml;
 
-import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.event.Message;
 import gov.nasa.worldwind.ogc.kml.impl.KMLTraversalContext;
@@ -42,11 +41,12 @@ import java.util.concurrent.atomic.*;
 /**
  * Represents the KML <i>NetworkLink</i> element and provides access to its contents.
  * <p>
- * During rendering, <code>KMLNetworkLink</code> retrieves and loads its network resource whenever necessary. Upon a
- * successful retrieval, <code>KMLNetworkLink</code> sends an <code>AVKey.RETRIEVAL_STATE_SUCCESSFUL</code> property
- * change event to this link's property change listeners. Once retrieved and loaded, <code>KMLNetworkLink</code> stores
- * its network resource by calling <code>setNetworkResource</code>, draws its network resource during preRendering and
- * rendering, and forwards property change events from the network resource to its property change listeners.
+ * During rendering, <code>KMLNetworkLink</code> retrieves and loads its network resource whenever necessary. Retrieval
+ * and parsing are performed off the rendering thread by a {@link KMLNetworkLinkManager}. Upon a successful retrieval,
+ * <code>KMLNetworkLink</code> sends an <code>AVKey.RETRIEVAL_STATE_SUCCESSFUL</code> property change event to this
+ * link's property change listeners. Once retrieved and loaded, <code>KMLNetworkLink</code> stores its network resource
+ * by calling <code>setNetworkResource</code>, draws its network resource during preRendering and rendering, and
+ * forwards property change events from the network resource to its property change listeners.
  * <p>
  * During retrieval, <code>KMLNetworkLink</code> attempts to use either the <code>Link</code> or the <code>Url</code>.
  * The <code>Link</code> is the preferred method for encoding a KML NetworkLink's address since KML version 2.1,
@@ -66,6 +66,10 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
     protected AtomicLong networkResourceRetrievalTime = new AtomicLong(-1);
 
     protected AtomicLong firstRetrievalTime;
+    /**
+     * Number of times this link has been reset. Retrievals started before a reset are discarded when they complete.
+     */
+    protected AtomicLong resetCount = new AtomicLong();
 
     /** Flag to indicate that the Link has been fetched from the hash map. */
     protected boolean linkFetched = false;
@@ -249,17 +253,18 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
      */
     public void setNetworkResource(final KMLRoot kmlRoot)
     {
-        // Remove any property change listeners previously set on the KMLRoot. This eliminates dangling references from
-        // the KMLNetworkLink to its previous KMLRoot.
-        KMLRoot resource = this.getNetworkResource();
-        if (resource != null)
-            resource.removePropertyChangeListener(this);
-
-        this.networkResource.set(kmlRoot);
+        // Record the retrieval time before publishing the resource so that the rendering thread never sees the new
+        // resource paired with the previous retrieval time.
         this.networkResourceRetrievalTime.set(System.currentTimeMillis());
         if (this.firstRetrievalTime == null)
             this.firstRetrievalTime = new AtomicLong(this.networkResourceRetrievalTime.get());
 
+        // Swap in the new resource, then remove any property change listeners previously set on the old KMLRoot. This
+        // eliminates dangling references from the KMLNetworkLink to its previous KMLRoot.
+        KMLRoot resource = this.networkResource.getAndSet(kmlRoot);
+        if (resource != null)
+            resource.removePropertyChangeListener(this);
+
         // Set up to listen for property change events on the KMLRoot. KMLNetworkLink must forward REPAINT and REFRESH
         // property change events from its internal KMLRoot to its parent KMLRoot to support BrowserBalloon repaint
         // events and recursive KMLNetworkLink elements.
@@ -285,8 +290,9 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
      * Pre-renders the network resource referenced by this <code>KMLNetworkLink</code>. If this link must retrieve its
      * network resource, this initiates a retrieval and does nothing until the resource is retrieved and loaded. Once
      * the network resource is retrieved and loaded, this calls <code>{@link #setNetworkResource(KMLRoot)}</code> to
-     * specify this link's new network resource, and sends an <code>{@link gov.nasa.worldwind.avlist.AVKey#RETRIEVAL_STATE_SUCCESSFUL}</code>
-     * property change event to this link's property change listeners.
+     * specify this link's new network resource, and sends an
+     * <code>{@link gov.nasa.worldwind.avlist.AVKey#RETRIEVAL_STATE_SUCCESSFUL}</code> property change event to this
+     * link's property change listeners.
      *
      * @param tc the current KML traversal context.
      * @param dc the current draw context.
@@ -348,11 +354,13 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
                 return false;
         }
 
-        // Make sure a refresh doesn't occur after the max session length is reached, if one is specified.
-        if (linkControl != null && linkControl.getMaxSessionLength() != null && this.firstRetrievalTime != null)
+        // Make sure a refresh doesn't occur after the max session length is reached, if one is specified. A negative
+        // session length indicates that the session never ends.
+        if (linkControl != null && linkControl.getMaxSessionLength() != null
+            && linkControl.getMaxSessionLength() >= 0 && this.firstRetrievalTime != null)
         {
             long now = System.currentTimeMillis();
-            if (this.firstRetrievalTime.get() + linkControl.getMaxSessionLength() * 1000 > now)
+            if (this.firstRetrievalTime.get() + linkControl.getMaxSessionLength() * 1000 < now)
                 return false;
         }
 
@@ -362,16 +370,14 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
     }
 
     /**
-     * Thread's off a task to determine whether the resource is local or remote and then retrieves it either from disk
-     * cache or a remote server.
+     * Asks this link's {@link KMLNetworkLinkManager} to determine whether the resource is local or remote and then
+     * retrieve it either from disk cache or a remote server. Requests made while an earlier request is pending are
+     * coalesced by the manager.
      *
      * @param dc the current draw context.
      */
     protected void requestResource(DrawContext dc)
     {
-        if (WorldWind.getTaskService().isFull())
-            return;
-
         KMLLink link = this.getLinkOrUrl();
         if (link == null)
             return; // If both the Link and the Url are null, then there's nothing to retrieve.
@@ -386,20 +392,55 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
         if (this.hasNetworkLinkControl() && this.getRoot().getNetworkLinkControl().getCookie() != null)
             address = address + this.getRoot().getNetworkLinkControl().getCookie();
 
-        WorldWind.getTaskService().addTask(new RequestTask(this, address));
+        this.getNetworkLinkManager().requestResource(this, address);
+    }
+
+    /**
+     * Indicates the manager that retrieves and parses this link's network resource. The default implementation returns
+     * the shared manager.
+     *
+     * @return this link's network link manager.
+     */
+    protected KMLNetworkLinkManager getNetworkLinkManager()
+    {
+        return KMLNetworkLinkManager.getInstance();
+    }
+
+    /**
+     * Indicates the number of times this link has been reset since it was created.
+     *
+     * @return this link's reset count.
+     */
+    protected long getResetCount()
+    {
+        return this.resetCount.get();
     }
 
     /**
      * Initiates a retrieval of the network resource referenced by this <code>KMLNetworkLink</code>. Once the network
      * resource is retrieved and loaded, this calls <code>{@link #setNetworkResource(KMLRoot)}</code> to specify this
-     * link's new network resource, and sends an <code>{@link gov.nasa.worldwind.avlist.AVKey#RETRIEVAL_STATE_SUCCESSFUL}</code>
-     * property change event to this link's property change listeners.
+     * link's new network resource, and sends an
+     * <code>{@link gov.nasa.worldwind.avlist.AVKey#RETRIEVAL_STATE_SUCCESSFUL}</code> property change event to this
+     * link's property change listeners.
      * <p>
      * This does nothing if this <code>KMLNetworkLink</code> has no <code>KMLLink</code>.
      *
      * @param address the address of the resource to retrieve
      */
     protected void retrieveNetworkResource(String address)
+    {
+        this.retrieveNetworkResource(address, this.getResetCount());
+    }
+
+    /**
+     * Initiates a retrieval of the network resource referenced by this <code>KMLNetworkLink</code>, as {@link
+     * #retrieveNetworkResource(String)} does, but discards the retrieved resource if this link has been reset since the
+     * specified reset count was read.
+     *
+     * @param address    the address of the resource to retrieve
+     * @param resetCount the value of {@link #getResetCount()} when the retrieval was requested.
+     */
+    protected void retrieveNetworkResource(String address, long resetCount)
     {
         // Treat the address as either a path to a local document, or as an absolute URL to a remote document. If the
         // address references a remote document, this attempts to retrieve it and loads the document once retrieval
@@ -422,7 +463,12 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
         if (o instanceof KMLRoot)
         {
             KMLRoot newRoot = (KMLRoot) o;
-            this.setNetworkResource(newRoot);
+            synchronized (this.resetCount)
+            {
+                if (this.resetCount.get() != resetCount)
+                    return; // the link changed while the resource was retrieved
+                this.setNetworkResource(newRoot);
+            }
 
             // Check for an expiration time set through HTTP header or NetworkLinkControl
             long expiration = this.computeExpiryRefreshTime(newRoot, address);
@@ -513,17 +559,28 @@ public class KMLNetworkLink extends KMLAbstractContainer implements PropertyChan
 
     protected void reset()
     {
-        this.networkResource.set(null);
-        this.networkResourceRetrievalTime.set(-1);
-        this.firstRetrievalTime = null;
-        this.linkFetched = false;
-        this.link = null;
-        this.invalidTarget = false;
+        synchronized (this.resetCount)
+        {
+            this.resetCount.incrementAndGet();
+            this.networkResource.set(null);
+            this.networkResourceRetrievalTime.set(-1);
+            this.firstRetrievalTime = null;
+            this.linkFetched = false;
+            this.link = null;
+            this.invalidTarget = false;
+        }
 
         this.getRoot().requestRedraw(); // cause doPreRender to be called to initiate new link retrieval
     }
 
-    /** Attempts to find this network link resource file locally, and if that fails attempts to find it remotely. */
+    /**
+     * Attempts to find this network link resource file locally, and if that fails attempts to find it remotely.
+     *
+     * @deprecated Network link resources are requested by a {@link KMLNetworkLinkManager}, which serializes and
+     *             coalesces the requests of each link. Use {@link KMLNetworkLinkManager#requestResource(KMLNetworkLink,
+     *             String)} instead.
+     */
+    @Deprecated
     protected static class RequestTask implements Runnable
     {
         /** The link associated with this request. */
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.ogc.kml;
+
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Resolves, retrieves and parses the documents referenced by {@link KMLNetworkLink} elements on a bounded pool of
+ * background threads. The pool size is specified by {@link AVKey#KML_NETWORK_LINK_POOL_SIZE}.
+ * <p>
+ * Requests are coalesced per network link: a link has at most one pending request, and a request made while one is
+ * pending replaces the pending request's address. A link's requests are processed one at a time, so a refresh never
+ * races an earlier retrieval of the same link. Before a request is processed the manager checks {@link
+ * KMLNetworkLink#mustRetrieveNetworkResource()} again, which drops refreshes made redundant by a retrieval that
+ * completed while they waited, and refreshes disallowed by the link's refresh mode or its document's
+ * <code>NetworkLinkControl</code>.
+ * <p>
+ * Parsed documents are installed with {@link KMLNetworkLink#setNetworkResource(KMLRoot)} only if the link has not been
+ * reset since the request was made.
+ *
+ * @version $Id$
+ */
+public class KMLNetworkLinkManager
+{
+    protected static final int DEFAULT_POOL_SIZE = 2;
+    protected static final long THREAD_TIMEOUT = 2; // keep idle threads alive this many seconds
+
+    protected static KMLNetworkLinkManager instance;
+
+    /** Runs the per-link request loops. */
+    protected ThreadPoolExecutor executor;
+    /** The most recent request for each link that has not yet been processed. */
+    protected final Map<KMLNetworkLink, Request> pendingRequests = new HashMap<KMLNetworkLink, Request>();
+    /** Links that have a request loop queued or running. */
+    protected final Set<KMLNetworkLink> scheduledLinks = new HashSet<KMLNetworkLink>();
+
+    /**
+     * Returns the manager shared by all network links. The shared manager is created the first time it is requested.
+     *
+     * @return the shared network link manager.
+     */
+    public static synchronized KMLNetworkLinkManager getInstance()
+    {
+        if (instance == null)
+            instance = new KMLNetworkLinkManager();
+
+        return instance;
+    }
+
+    /** Creates a manager whose pool size is specified by {@link AVKey#KML_NETWORK_LINK_POOL_SIZE}. */
+    public KMLNetworkLinkManager()
+    {
+        this(Configuration.getIntegerValue(AVKey.KML_NETWORK_LINK_POOL_SIZE, DEFAULT_POOL_SIZE));
+    }
+
+    /**
+     * Creates a manager that processes requests on the specified number of threads.
+     *
+     * @param poolSize the maximum number of network links retrieved concurrently.
+     *
+     * @throws IllegalArgumentException if the pool size is less than 1.
+     */
+    public KMLNetworkLinkManager(int poolSize)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "poolSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        final String threadName = Logging.getMessage("KML.NetworkLinkManagerThreadName");
+        final AtomicInteger threadCount = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, THREAD_TIMEOUT, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), // holds at most one loop per link
+            new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, threadName + " " + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Requests that a network link's resource be retrieved from the specified address. If the link already has a
+     * pending request, the pending request is replaced by this one. This method is safe to call from any thread and
+     * never blocks on retrieval or parsing.
+     *
+     * @param link    the network link to retrieve.
+     * @param address the address of the link's resource.
+     *
+     * @throws IllegalArgumentException if either argument is null.
+     */
+    public void requestResource(KMLNetworkLink link, String address)
+    {
+        if (link == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (address == null)
+        {
+            String message = Logging.getMessage("nullValue.PathIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Request request = new Request(address, link.getResetCount());
+
+        synchronized (this.pendingRequests)
+        {
+            this.pendingRequests.put(link, request);
+            if (!this.scheduledLinks.add(link))
+                return; // the link's request loop picks up the new request
+        }
+
+        try
+        {
+            this.executor.execute(new RequestLoop(link));
+        }
+        catch (RejectedExecutionException e)
+        {
+            synchronized (this.pendingRequests)
+            {
+                this.pendingRequests.remove(link);
+                this.scheduledLinks.remove(link);
+            }
+        }
+    }
+
+    /**
+     * Indicates whether a network link has a request that is waiting or being processed.
+     *
+     * @param link the network link in question.
+     *
+     * @return <code>true</code> if the link has a request in progress, otherwise <code>false</code>.
+     */
+    public boolean isRequestPending(KMLNetworkLink link)
+    {
+        synchronized (this.pendingRequests)
+        {
+            return this.scheduledLinks.contains(link);
+        }
+    }
+
+    /**
+     * Stops processing requests.
+     *
+     * @param immediately <code>true</code> to interrupt requests in progress, <code>false</code> to let queued
+     *                    requests complete.
+     */
+    public void shutdown(boolean immediately)
+    {
+        if (immediately)
+            this.executor.shutdownNow();
+        else
+            this.executor.shutdown();
+    }
+
+    /**
+     * Retrieves and installs a network link's resource. Called on a pool thread, never concurrently for the same
+     * link.
+     *
+     * @param link    the network link to retrieve.
+     * @param request the request to process.
+     */
+    protected void processRequest(KMLNetworkLink link, Request request)
+    {
+        if (link.getResetCount() != request.resetCount)
+            return; // the link changed after this request was made
+
+        if (!link.mustRetrieveNetworkResource())
+            return;
+
+        link.retrieveNetworkResource(request.address, request.resetCount);
+    }
+
+    /** Processes a link's pending requests until none remain. */
+    protected class RequestLoop implements Runnable
+    {
+        protected final KMLNetworkLink link;
+
+        public RequestLoop(KMLNetworkLink link)
+        {
+            this.link = link;
+        }
+
+        public void run()
+        {
+            while (!Thread.currentThread().isInterrupted())
+            {
+                Request request;
+                synchronized (pendingRequests)
+                {
+                    request = pendingRequests.remove(this.link);
+                    if (request == null)
+                    {
+                        scheduledLinks.remove(this.link);
+                        return;
+                    }
+                }
+
+                try
+                {
+                    processRequest(this.link, request);
+                }
+                catch (Exception e)
+                {
+                    String message = Logging.getMessage("KML.ExceptionRetrievingNetworkLink", request.address);
+                    Logging.logger().log(Level.WARNING, message, e);
+                }
+            }
+
+            synchronized (pendingRequests)
+            {
+                pendingRequests.remove(this.link);
+                scheduledLinks.remove(this.link);
+            }
+        }
+    }
+
+    /** A request for a link's resource. */
+    protected static class Request
+    {
+        /** The resource's address. */
+        protected final String address;
+        /** The link's reset count when the request was made. */
+        protected final long resetCount;
+
+        public Request(String address, long resetCount)
+        {
+            this.address = address;
+            this.resetCount = resetCount;
+        }
+    }
+}
@@ -35,7 +35,7 @@ import gov.nasa.worldwind.util.xml.xal.XALParserContext;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
-import java.util.Map;
+import java.util.*;
 
 /**
  * The parser context for KML and KMZ docuements. Specifies the classes used to parse each type of KML element.
@@ -46,6 +46,13 @@ import java.util.Map;
 public class KMLParserContext extends BasicXMLEventParserContext
 {
     protected KMLCoordinatesParser coordinatesParser;
+    /** Receives features as they are parsed, or null if parsed features are always added to their container. */
+    protected KMLFeatureListener featureListener;
+    /**
+     * The ids registered while a feature listener is installed, in the order they were registered. The ids of a feature
+     * and its descendants are always at the end of this list when the feature is passed to the listener.
+     */
+    protected ArrayList<String> listenedIds = new ArrayList<String>();
 
     /** The key used to identify the coordinates parser in the parser context's parser map. */
     protected static QName COORDINATES = new QName("Coordinates");
@@ -319,4 +326,82 @@ public class KMLParserContext extends BasicXMLEventParserContext
 
         return this.coordinatesParser;
     }
+
+    /**
+     * Returns the listener that receives features as they are parsed.
+     *
+     * @return the feature listener, or null if parsed features are always added to their container.
+     */
+    public KMLFeatureListener getFeatureListener()
+    {
+        return this.featureListener;
+    }
+
+    /**
+     * Specifies a listener that receives features as they are parsed, and decides whether each feature is added to its
+     * container.
+     *
+     * @param listener the feature listener. May be null, in which case parsed features are always added to their
+     *                 container.
+     */
+    public void setFeatureListener(KMLFeatureListener listener)
+    {
+        this.featureListener = listener;
+        this.listenedIds.clear();
+    }
+
+    @Override
+    public void addId(String id, Object o)
+    {
+        super.addId(id, o);
+
+        if (id != null && this.featureListener != null)
+            this.listenedIds.add(id);
+    }
+
+    /**
+     * Called when a parsed feature is discarded rather than added to its container. Removes the feature and every
+     * identified object within it, such as geometry, styles and nested features, from the table of identified objects
+     * so that they can be garbage collected.
+     *
+     * @param feature the discarded feature.
+     */
+    public void discardFeature(KMLAbstractFeature feature)
+    {
+        // The feature was parsed after every id registered before it, so its ids and those of its descendants are the
+        // last ones in the list. Remove them from the end until an object outside the feature is reached.
+        for (int i = this.listenedIds.size() - 1; i >= 0; i--)
+        {
+            String id = this.listenedIds.get(i);
+            Object o = this.getIdTable().get(id);
+            if (o != null && !isWithin(o, feature))
+                break;
+
+            if (o != null)
+                this.getIdTable().remove(id, o);
+            this.listenedIds.remove(i);
+        }
+    }
+
+    /**
+     * Indicates whether an object is a specified parser or one of its descendants.
+     *
+     * @param o      the object to test.
+     * @param parser the parser.
+     *
+     * @return true if the object is the parser or has the parser as an ancestor, otherwise false.
+     */
+    protected static boolean isWithin(Object o, XMLEventParser parser)
+    {
+        if (!(o instanceof XMLEventParser))
+            return false;
+
+        for (XMLEventParser p = (XMLEventParser) o; p != null; p = p.getParent())
+        {
+            if (p == parser)
+                return true;
+        }
+
+        return false;
+    }
 }
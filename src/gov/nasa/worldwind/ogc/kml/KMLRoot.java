@@ -1130,6 +1130,41 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
         return null;
     }
 
+    /**
+     * Starts incremental document parsing. This parses the KML document like {@link #parse(Object...)}, but delivers
+     * each feature to the specified listener as soon as it's parsed. Features the listener discards are not retained by
+     * the document. This enables documents much larger than available memory to be processed, provided the listener
+     * retains only the features it needs.
+     *
+     * @param listener the listener that receives each parsed feature.
+     * @param args     optional arguments to pass to parsers of sub-elements.
+     *
+     * @return <code>this</code> if parsing is successful, otherwise  null.
+     *
+     * @throws IllegalArgumentException if the listener is null.
+     * @throws javax.xml.stream.XMLStreamException
+     *                                  if an exception occurs while attempting to read the event stream.
+     */
+    public KMLRoot parseIncrementally(KMLFeatureListener listener, Object... args) throws XMLStreamException
+    {
+        if (listener == null)
+        {
+            String message = Logging.getMessage("nullValue.ListenerIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.parserContext.setFeatureListener(listener);
+        try
+        {
+            return this.parse(args);
+        }
+        finally
+        {
+            this.parserContext.setFeatureListener(null);
+        }
+    }
+
     /** Closes the event stream associated with this context's XML event reader. */
     protected void closeEventStream()
     {
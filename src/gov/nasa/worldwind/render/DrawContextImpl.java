@@ -124,44 +124,502 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
         protected long time;
         protected int globeOffset;
         protected SectorGeometryList surfaceGeometry;
+        /** The pooled queue the entry is waiting in, or null if it's not in one. */
+        protected OrderedRenderableQueue queue;
+
+        public OrderedRenderableEntry()
+        {
+        }
 
         public OrderedRenderableEntry(OrderedRenderable orderedRenderable, long insertionTime, DrawContext dc)
         {
-            this.or = orderedRenderable;
-            this.distanceFromEye = orderedRenderable.getDistanceFromEye();
-            this.time = insertionTime;
-            if (dc.isContinuous2DGlobe())
-            {
-                this.globeOffset = ((Globe2D) dc.getGlobe()).getOffset();
-                this.surfaceGeometry = dc.getSurfaceGeometry();
-            }
+            this.set(orderedRenderable, orderedRenderable.getDistanceFromEye(), insertionTime, dc);
         }
 
         public OrderedRenderableEntry(OrderedRenderable orderedRenderable, double distanceFromEye, long insertionTime,
             DrawContext dc)
+        {
+            this.set(orderedRenderable, distanceFromEye, insertionTime, dc);
+        }
+
+        public void set(OrderedRenderable orderedRenderable, double distanceFromEye, long insertionTime,
+            DrawContext dc)
         {
             this.or = orderedRenderable;
             this.distanceFromEye = distanceFromEye;
             this.time = insertionTime;
-            if (dc.isContinuous2DGlobe())
+            if (dc != null && dc.isContinuous2DGlobe())
             {
                 this.globeOffset = ((Globe2D) dc.getGlobe()).getOffset();
                 this.surfaceGeometry = dc.getSurfaceGeometry();
             }
+            else
+            {
+                this.globeOffset = 0;
+                this.surfaceGeometry = null;
+            }
         }
     }
 
-    protected PriorityQueue<OrderedRenderableEntry> orderedRenderables =
-        new PriorityQueue<OrderedRenderableEntry>(100, new Comparator<OrderedRenderableEntry>()
+    /**
+     * Orders ordered renderables back to front, breaking ties by insertion order. Entries are pooled and reused from
+     * frame to frame, so adding an ordered renderable does not allocate once the pool has grown to the size of the
+     * scene.
+     * <p>
+     * Rather than maintaining a heap as renderables are added, the queue collects them in insertion order and sorts
+     * them once, with a stable radix sort on their eye distance, when the first one is peeked or polled. Renderables
+     * added after that, for example by an ordered renderable that draws others while it's drawn, are kept in a small
+     * binary heap that is merged with the sorted run as it drains.
+     * <p>
+     * The queue implements the <code>Queue</code> interface so that subclasses may use the {@link
+     * #orderedRenderables} field as they used the priority queue it replaced. Entries offered directly are ordered by
+     * the time they are offered, as those added by {@link #add(OrderedRenderable, double, DrawContext)} are.
+     */
+    protected static class OrderedRenderableQueue extends AbstractQueue<OrderedRenderableEntry>
+    {
+        protected static final int RADIX_BITS = 8;
+        protected static final int RADIX_SIZE = 1 << RADIX_BITS;
+        protected static final int KEY_BYTES = Long.SIZE / RADIX_BITS;
+
+        // Entries added before the first peek or poll, sorted in place by that call. Slots past count hold pooled
+        // entries from earlier frames.
+        protected OrderedRenderableEntry[] sorted = new OrderedRenderableEntry[100];
+        protected int head;
+        protected int count;
+        protected boolean isSorted;
+        // Entries added while the sorted run drains, as a binary heap. Slots past lateCount hold pooled entries.
+        protected OrderedRenderableEntry[] late = new OrderedRenderableEntry[16];
+        protected int lateCount;
+        protected int size;
+        protected long sequence;
+
+        // Scratch space for the radix sort, kept between frames.
+        protected long[] keys = new long[0];
+        protected long[] keysTmp = new long[0];
+        protected OrderedRenderableEntry[] entriesTmp = new OrderedRenderableEntry[0];
+        protected final int[] histogram = new int[KEY_BYTES * RADIX_SIZE];
+
+        public int size()
         {
-            public int compare(OrderedRenderableEntry orA, OrderedRenderableEntry orB)
+            return this.size;
+        }
+
+        public boolean isEmpty()
+        {
+            return this.size == 0;
+        }
+
+        /**
+         * Adds an ordered renderable. Renderables are polled in order of decreasing eye distance, and renderables at
+         * the same distance are polled in the order they were added.
+         *
+         * @param orderedRenderable the ordered renderable to add.
+         * @param distanceFromEye   the distance used to order the renderable.
+         * @param dc                the draw context whose 2D globe offset and surface geometry to capture, or null.
+         */
+        public void add(OrderedRenderable orderedRenderable, double distanceFromEye, DrawContext dc)
+        {
+            OrderedRenderableEntry entry;
+
+            if (!this.isSorted)
             {
-                double eA = orA.distanceFromEye;
-                double eB = orB.distanceFromEye;
+                if (this.count == this.sorted.length)
+                    this.sorted = Arrays.copyOf(this.sorted, 2 * this.sorted.length);
+
+                entry = this.sorted[this.count];
+                if (entry == null)
+                    entry = this.sorted[this.count] = new OrderedRenderableEntry();
+                this.count++;
+                entry.set(orderedRenderable, distanceFromEye, this.sequence++, dc);
+            }
+            else
+            {
+                if (this.lateCount == this.late.length)
+                    this.late = Arrays.copyOf(this.late, 2 * this.late.length);
+
+                entry = this.late[this.lateCount];
+                if (entry == null)
+                    entry = new OrderedRenderableEntry();
+                entry.set(orderedRenderable, distanceFromEye, this.sequence++, dc);
+                this.siftUp(this.lateCount++, entry);
+            }
 
-                return eA > eB ? -1 : eA == eB ? (orA.time < orB.time ? -1 : orA.time == orB.time ? 0 : 1) : 1;
+            entry.queue = this;
+            this.size++;
+        }
+
+        /**
+         * Adds an entry created by the caller. The entry's insertion time is replaced by the queue's next sequence
+         * number. The entry takes the place of a pooled one.
+         *
+         * @param entry the entry to add.
+         *
+         * @return true.
+         *
+         * @throws NullPointerException     if the entry is null.
+         * @throws IllegalArgumentException if the entry is already in a queue.
+         */
+        public boolean offer(OrderedRenderableEntry entry)
+        {
+            if (entry == null)
+                throw new NullPointerException();
+
+            if (entry.queue != null)
+            {
+                String msg = Logging.getMessage("generic.DuplicateEntry", entry);
+                Logging.logger().severe(msg);
+                throw new IllegalArgumentException(msg);
             }
-        });
+
+            entry.time = this.sequence++;
+
+            if (!this.isSorted)
+            {
+                if (this.count == this.sorted.length)
+                    this.sorted = Arrays.copyOf(this.sorted, 2 * this.sorted.length);
+
+                this.sorted[this.count++] = entry;
+            }
+            else
+            {
+                if (this.lateCount == this.late.length)
+                    this.late = Arrays.copyOf(this.late, 2 * this.late.length);
+
+                this.siftUp(this.lateCount++, entry);
+            }
+
+            entry.queue = this;
+            this.size++;
+
+            return true;
+        }
+
+        /**
+         * Returns the entry that will be polled next, without removing it.
+         *
+         * @return the next entry, or null if the queue is empty.
+         */
+        public OrderedRenderableEntry peek()
+        {
+            this.sortIfNeeded();
+
+            // Skip entries removed by remove().
+            while (this.head < this.count && this.sorted[this.head].or == null)
+            {
+                this.head++;
+            }
+            while (this.lateCount > 0 && this.late[0].or == null)
+            {
+                this.removeLateTop();
+            }
+
+            OrderedRenderableEntry a = (this.head < this.count) ? this.sorted[this.head] : null;
+            OrderedRenderableEntry b = (this.lateCount > 0) ? this.late[0] : null;
+
+            if (a == null && b == null)
+            {
+                this.resetIfDrained();
+                return null;
+            }
+            if (a == null)
+                return b;
+            if (b == null)
+                return a;
+            return compare(a, b) <= 0 ? a : b;
+        }
+
+        /**
+         * Removes and returns the next entry. The returned entry belongs to the queue's pool, and is only valid until
+         * the next entry is added.
+         *
+         * @return the next entry, or null if the queue is empty.
+         */
+        public OrderedRenderableEntry poll()
+        {
+            OrderedRenderableEntry entry = this.peek();
+            if (entry == null)
+                return null;
+
+            if (this.head < this.count && entry == this.sorted[this.head])
+                this.head++;
+            else
+                this.removeLateTop();
+
+            entry.queue = null;
+            this.size--;
+
+            return entry;
+        }
+
+        /**
+         * Removes an entry from the queue. The entry is marked as removed and skipped when the queue reaches it, so
+         * removal takes constant time.
+         *
+         * @param o the entry to remove.
+         *
+         * @return true if the entry was in the queue, otherwise false.
+         */
+        public boolean remove(Object o)
+        {
+            if (!(o instanceof OrderedRenderableEntry) || ((OrderedRenderableEntry) o).queue != this)
+                return false;
+
+            OrderedRenderableEntry entry = (OrderedRenderableEntry) o;
+            entry.queue = null;
+            entry.or = null;
+            entry.surfaceGeometry = null;
+            this.size--;
+
+            return true;
+        }
+
+        public boolean contains(Object o)
+        {
+            return o instanceof OrderedRenderableEntry && ((OrderedRenderableEntry) o).queue == this;
+        }
+
+        /** Removes all entries. Their references are released, but the entries stay pooled for the next frame. */
+        public void clear()
+        {
+            for (int i = 0; i < this.count; i++)
+            {
+                this.sorted[i].or = null;
+                this.sorted[i].surfaceGeometry = null;
+                this.sorted[i].queue = null;
+            }
+
+            for (int i = 0; i < this.late.length && this.late[i] != null; i++)
+            {
+                this.late[i].or = null;
+                this.late[i].surfaceGeometry = null;
+                this.late[i].queue = null;
+            }
+
+            this.head = 0;
+            this.count = 0;
+            this.lateCount = 0;
+            this.size = 0;
+            this.sequence = 0;
+            this.isSorted = false;
+        }
+
+        /**
+         * Returns an iterator over the queue's entries, in no particular order.
+         *
+         * @return an iterator over the queue's entries.
+         */
+        public Iterator<OrderedRenderableEntry> iterator()
+        {
+            return new Iterator<OrderedRenderableEntry>()
+            {
+                protected int next = this.skipRemoved(head);
+                protected OrderedRenderableEntry last;
+
+                public boolean hasNext()
+                {
+                    return this.next < count + lateCount;
+                }
+
+                public OrderedRenderableEntry next()
+                {
+                    if (!this.hasNext())
+                        throw new NoSuchElementException();
+
+                    OrderedRenderableEntry entry = this.get(this.next);
+                    this.next = this.skipRemoved(this.next + 1);
+                    this.last = entry;
+                    return entry;
+                }
+
+                protected OrderedRenderableEntry get(int i)
+                {
+                    return (i < count) ? sorted[i] : late[i - count];
+                }
+
+                protected int skipRemoved(int i)
+                {
+                    while (i < count + lateCount && this.get(i).or == null)
+                    {
+                        i++;
+                    }
+                    return i;
+                }
+
+                public void remove()
+                {
+                    if (this.last == null)
+                        throw new IllegalStateException();
+
+                    OrderedRenderableQueue.this.remove(this.last);
+                    this.last = null;
+                }
+            };
+        }
+
+        protected static int compare(OrderedRenderableEntry a, OrderedRenderableEntry b)
+        {
+            int c = Double.compare(b.distanceFromEye, a.distanceFromEye);
+            return c != 0 ? c : (a.time < b.time ? -1 : a.time == b.time ? 0 : 1);
+        }
+
+        protected void resetIfDrained()
+        {
+            if (this.head == this.count && this.lateCount == 0)
+            {
+                // Everything added so far has been drawn. Start a new run so that later additions are sorted in bulk.
+                for (int i = 0; i < this.count; i++)
+                {
+                    this.sorted[i].or = null;
+                    this.sorted[i].surfaceGeometry = null;
+                }
+
+                this.head = 0;
+                this.count = 0;
+                this.isSorted = false;
+            }
+        }
+
+        protected void sortIfNeeded()
+        {
+            if (this.isSorted)
+                return;
+
+            this.isSorted = true;
+            this.radixSort(this.head, this.count);
+        }
+
+        /**
+         * Sorts a range of the sorted run by decreasing eye distance. The sort is stable, so entries at equal distance
+         * keep their insertion order. Byte positions shared by every key are skipped, so typical scenes whose
+         * distances have a similar magnitude need far fewer than eight passes.
+         *
+         * @param start the first entry to sort.
+         * @param end   one past the last entry to sort.
+         */
+        protected void radixSort(int start, int end)
+        {
+            int n = end - start;
+            if (n < 2)
+                return;
+
+            if (this.keys.length < n)
+            {
+                int capacity = Math.max(n, 2 * this.keys.length);
+                this.keys = new long[capacity];
+                this.keysTmp = new long[capacity];
+                this.entriesTmp = new OrderedRenderableEntry[capacity];
+            }
+
+            // Map each distance to a key whose unsigned order is the reverse of the distance order of Double.compare.
+            long[] srcKeys = this.keys;
+            OrderedRenderableEntry[] srcEntries = this.entriesTmp;
+            int[] histogram = this.histogram;
+            Arrays.fill(histogram, 0);
+
+            for (int i = 0; i < n; i++)
+            {
+                OrderedRenderableEntry entry = this.sorted[start + i];
+                long bits = Double.doubleToLongBits(entry.distanceFromEye);
+                long key = ~(bits ^ ((bits >> 63) | Long.MIN_VALUE));
+                srcKeys[i] = key;
+                srcEntries[i] = entry;
+
+                for (int b = 0; b < KEY_BYTES; b++)
+                {
+                    histogram[b * RADIX_SIZE + (int) ((key >>> (b * RADIX_BITS)) & (RADIX_SIZE - 1))]++;
+                }
+            }
+
+            long[] dstKeys = this.keysTmp;
+            OrderedRenderableEntry[] dstEntries = this.sorted;
+            int dstOffset = start;
+            int srcOffset = 0;
+
+            for (int b = 0; b < KEY_BYTES; b++)
+            {
+                int base = b * RADIX_SIZE;
+                int shift = b * RADIX_BITS;
+
+                // Skip the pass when every key has the same value in this byte.
+                int first = (int) ((srcKeys[0] >>> shift) & (RADIX_SIZE - 1));
+                if (histogram[base + first] == n)
+                    continue;
+
+                int offset = 0;
+                for (int d = 0; d < RADIX_SIZE; d++)
+                {
+                    int c = histogram[base + d];
+                    histogram[base + d] = offset;
+                    offset += c;
+                }
+
+                for (int i = 0; i < n; i++)
+                {
+                    long key = srcKeys[i];
+                    int pos = histogram[base + (int) ((key >>> shift) & (RADIX_SIZE - 1))]++;
+                    dstKeys[pos] = key;
+                    dstEntries[dstOffset + pos] = srcEntries[srcOffset + i];
+                }
+
+                long[] tk = srcKeys;
+                srcKeys = dstKeys;
+                dstKeys = tk;
+                OrderedRenderableEntry[] te = srcEntries;
+                srcEntries = dstEntries;
+                dstEntries = te;
+                int to = srcOffset;
+                srcOffset = dstOffset;
+                dstOffset = to;
+            }
+
+            if (srcEntries != this.sorted)
+                System.arraycopy(srcEntries, srcOffset, this.sorted, start, n);
+
+            Arrays.fill(this.entriesTmp, 0, n, null);
+        }
+
+        protected void removeLateTop()
+        {
+            OrderedRenderableEntry top = this.late[0];
+            OrderedRenderableEntry last = this.late[--this.lateCount];
+            this.late[this.lateCount] = top;
+            if (this.lateCount > 0)
+                this.siftDown(0, last);
+        }
+
+        protected void siftUp(int index, OrderedRenderableEntry entry)
+        {
+            while (index > 0)
+            {
+                int parent = (index - 1) >>> 1;
+                OrderedRenderableEntry p = this.late[parent];
+                if (compare(entry, p) >= 0)
+                    break;
+                this.late[index] = p;
+                index = parent;
+            }
+            this.late[index] = entry;
+        }
+
+        protected void siftDown(int index, OrderedRenderableEntry entry)
+        {
+            int half = this.lateCount >>> 1;
+            while (index < half)
+            {
+                int child = 2 * index + 1;
+                int right = child + 1;
+                if (right < this.lateCount && compare(this.late[right], this.late[child]) < 0)
+                    child = right;
+                if (compare(entry, this.late[child]) <= 0)
+                    break;
+                this.late[index] = this.late[child];
+                index = child;
+            }
+            this.late[index] = entry;
+        }
+    }
+
+    protected Queue<OrderedRenderableEntry> orderedRenderables = new OrderedRenderableQueue();
     // Use a standard Queue to store the ordered surface object renderables. Ordered surface renderables are processed
     // in the order they were submitted.
     protected Queue<OrderedRenderable> orderedSurfaceRenderables = new ArrayDeque<OrderedRenderable>();
@@ -712,7 +1170,7 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
             return; // benign event
         }
 
-        this.orderedRenderables.add(new OrderedRenderableEntry(orderedRenderable, System.nanoTime(), this));
+        this.addOrderedRenderableEntry(orderedRenderable, orderedRenderable.getDistanceFromEye());
     }
 
     /** {@inheritDoc} */
@@ -730,8 +1188,17 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
         // If multiple ordered renderables are added in this way, they are drawn according to the order in which they
         // are added.
         double eyeDistance = isBehind ? Double.MAX_VALUE : orderedRenderable.getDistanceFromEye();
-        this.orderedRenderables.add(
-            new OrderedRenderableEntry(orderedRenderable, eyeDistance, System.nanoTime(), this));
+        this.addOrderedRenderableEntry(orderedRenderable, eyeDistance);
+    }
+
+    protected void addOrderedRenderableEntry(OrderedRenderable orderedRenderable, double eyeDistance)
+    {
+        // Subclasses may have replaced the pooled queue with a plain priority queue.
+        if (this.orderedRenderables instanceof OrderedRenderableQueue)
+            ((OrderedRenderableQueue) this.orderedRenderables).add(orderedRenderable, eyeDistance, this);
+        else
+            this.orderedRenderables.add(new OrderedRenderableEntry(orderedRenderable, eyeDistance, System.nanoTime(),
+                this));
     }
 
     public OrderedRenderable peekOrderedRenderables()
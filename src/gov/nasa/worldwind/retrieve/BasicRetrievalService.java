@@ -29,7 +29,7 @@ package gov.nasa.worldwind.retrieve;
 
 import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.AVKey;
-import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.*;
 
 import javax.net.ssl.SSLHandshakeException;
 import java.net.SocketTimeoutException;
@@ -38,6 +38,13 @@ import java.util.logging.Level;
 
 /**
  * Performs threaded retrieval of data.
+ * <p>
+ * By default retrievers run on a fixed-size thread pool whose size is specified by {@link AVKey#RETRIEVAL_POOL_SIZE}.
+ * When {@link AVKey#RETRIEVAL_SERVICE_VIRTUAL_THREADS} is true, each retriever instead runs on its own virtual thread,
+ * and the number of concurrent retrievals is bounded by {@link AVKey#RETRIEVAL_VIRTUAL_THREAD_LIMIT}. Retrievers block
+ * on network and file I/O, so this mode lets many more retrievals be in flight without the cost of a platform thread
+ * for each. Platform threads are used if the Java runtime does not support virtual threads. In either mode, queued
+ * retrievals start in priority order.
  *
  * @author Tom Gaskins
  * @version $Id: BasicRetrievalService.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -49,6 +56,7 @@ public final class BasicRetrievalService extends WWObjectImpl
     private static final int DEFAULT_QUEUE_SIZE = 100;
     private static final int DEFAULT_POOL_SIZE = 5;
     private static final long DEFAULT_STALE_REQUEST_LIMIT = 30000; // milliseconds
+    private static final int DEFAULT_VIRTUAL_THREAD_LIMIT = 256;
     private static final int DEFAULT_TIME_PRIORITY_GRANULARITY = 500; // milliseconds
 
     private static final String RUNNING_THREAD_NAME_PREFIX = Logging.getMessage(
@@ -56,9 +64,11 @@ public final class BasicRetrievalService extends WWObjectImpl
     private static final String IDLE_THREAD_NAME_PREFIX = Logging.getMessage(
         "BasicRetrievalService.IdleThreadNamePrefix");
 
-    private RetrievalExecutor executor; // thread pool for running retrievers
+    private ExecutorService executor; // runs the retrievers, each in their own thread
+    private BlockingQueue<Runnable> queue; // retrievals waiting for a thread
     private ConcurrentLinkedQueue<RetrievalTask> activeTasks; // tasks currently allocated a thread
     private int queueSize; // maximum queue size
+    private long staleRequestLimit; // reject requests older than this
 
     /** Encapsulates a single threaded retrieval as a {@link java.util.concurrent.FutureTask}. */
     private static class RetrievalTask extends FutureTask<Retriever>
@@ -162,10 +172,124 @@ public final class BasicRetrievalService extends WWObjectImpl
             thread.getName()));
     }
 
+    /**
+     * @param thread   the thread the task is running on
+     * @param runnable the <code>Retriever</code> running on the thread
+     *
+     * @throws IllegalArgumentException if either <code>thread</code> or <code>runnable</code> is null
+     */
+    private void beforeRetrieval(Thread thread, Runnable runnable)
+    {
+        if (thread == null)
+        {
+            String msg = Logging.getMessage("nullValue.ThreadIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        if (runnable == null)
+        {
+            String msg = Logging.getMessage("nullValue.RunnableIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        RetrievalTask task = (RetrievalTask) runnable;
+
+        task.retriever.setBeginTime(System.currentTimeMillis());
+        long limit = task.retriever.getStaleRequestLimit() >= 0
+            ? task.retriever.getStaleRequestLimit() : this.staleRequestLimit;
+        if (task.retriever.getBeginTime() - task.retriever.getSubmitTime() > limit)
+        {
+            // Task has been sitting on the queue too long
+            Logging.logger().finer(Logging.getMessage("BasicRetrievalService.CancellingTooOldRetrieval",
+                task.getRetriever().getName()));
+            task.cancel(true);
+        }
+
+        if (this.activeTasks.contains(task))
+        {
+            // Task is a duplicate
+            Logging.logger().finer(Logging.getMessage("BasicRetrievalService.CancellingDuplicateRetrieval",
+                task.getRetriever().getName()));
+            task.cancel(true);
+        }
+
+        this.activeTasks.add(task);
+
+        thread.setName(RUNNING_THREAD_NAME_PREFIX + task.getRetriever().getName());
+        thread.setPriority(Thread.MIN_PRIORITY); // Subordinate thread priority to rendering
+        thread.setUncaughtExceptionHandler(this);
+    }
+
+    /**
+     * @param runnable  the <code>Retriever</code> running on the thread
+     * @param throwable an exception thrown during retrieval, will be null if no exception occurred
+     *
+     * @throws IllegalArgumentException if <code>runnable</code> is null
+     */
+    private void afterRetrieval(Runnable runnable, Throwable throwable)
+    {
+        if (runnable == null)
+        {
+            String msg = Logging.getMessage("nullValue.RunnableIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        RetrievalTask task = (RetrievalTask) runnable;
+        this.activeTasks.remove(task);
+        task.retriever.setEndTime(System.currentTimeMillis());
+
+        try
+        {
+            if (throwable != null)
+            {
+                Logging.logger().log(Level.FINE,
+                    Logging.getMessage("BasicRetrievalService.ExceptionDuringRetrieval",
+                        task.getRetriever().getName()), throwable);
+            }
+
+            task.get(); // Wait for task to finish, cancel or break
+        }
+        catch (java.util.concurrent.ExecutionException e)
+        {
+            String message = Logging.getMessage("BasicRetrievalService.ExecutionExceptionDuringRetrieval",
+                task.getRetriever().getName());
+            if (e.getCause() instanceof SocketTimeoutException)
+            {
+                Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
+            }
+            else if (e.getCause() instanceof SSLHandshakeException)
+            {
+                if (sslExceptionListener != null)
+                    sslExceptionListener.onException(e.getCause(), task.getRetriever().getName());
+                else
+                    Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
+            }
+            else
+            {
+                Logging.logger().log(Level.FINE, message, e);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Logging.logger().log(Level.FINE, Logging.getMessage("BasicRetrievalService.RetrievalInterrupted",
+                task.getRetriever().getName()), e);
+        }
+        catch (java.util.concurrent.CancellationException e)
+        {
+            Logging.logger().fine(Logging.getMessage("BasicRetrievalService.RetrievalCancelled",
+                task.getRetriever().getName()));
+        }
+        finally
+        {
+            Thread.currentThread().setName(IDLE_THREAD_NAME_PREFIX);
+        }
+    }
+
     private class RetrievalExecutor extends ThreadPoolExecutor
     {
         private static final long THREAD_TIMEOUT = 2; // keep idle threads alive this many seconds
-        private long staleRequestLimit; // reject requests older than this
 
         private RetrievalExecutor(int poolSize, int queueSize)
         {
@@ -193,128 +317,38 @@ public final class BasicRetrievalService extends WWObjectImpl
                     super.rejectedExecution(runnable, threadPoolExecutor);
                 }
             });
-
-            this.staleRequestLimit = Configuration.getLongValue(AVKey.RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT,
-                DEFAULT_STALE_REQUEST_LIMIT);
         }
 
-        /**
-         * @param thread   the thread the task is running on
-         * @param runnable the <code>Retriever</code> running on the thread
-         *
-         * @throws IllegalArgumentException if either <code>thread</code> or <code>runnable</code> is null
-         */
         protected void beforeExecute(Thread thread, Runnable runnable)
         {
-            if (thread == null)
-            {
-                String msg = Logging.getMessage("nullValue.ThreadIsNull");
-                Logging.logger().fine(msg);
-                throw new IllegalArgumentException(msg);
-            }
-            if (runnable == null)
-            {
-                String msg = Logging.getMessage("nullValue.RunnableIsNull");
-                Logging.logger().fine(msg);
-                throw new IllegalArgumentException(msg);
-            }
-
-            RetrievalTask task = (RetrievalTask) runnable;
-
-            task.retriever.setBeginTime(System.currentTimeMillis());
-            long limit = task.retriever.getStaleRequestLimit() >= 0
-                ? task.retriever.getStaleRequestLimit() : this.staleRequestLimit;
-            if (task.retriever.getBeginTime() - task.retriever.getSubmitTime() > limit)
-            {
-                // Task has been sitting on the queue too long
-                Logging.logger().finer(Logging.getMessage("BasicRetrievalService.CancellingTooOldRetrieval",
-                    task.getRetriever().getName()));
-                task.cancel(true);
-            }
-
-            if (BasicRetrievalService.this.activeTasks.contains(task))
-            {
-                // Task is a duplicate
-                Logging.logger().finer(Logging.getMessage("BasicRetrievalService.CancellingDuplicateRetrieval",
-                    task.getRetriever().getName()));
-                task.cancel(true);
-            }
-
-            BasicRetrievalService.this.activeTasks.add(task);
-
-            thread.setName(RUNNING_THREAD_NAME_PREFIX + task.getRetriever().getName());
-            thread.setPriority(Thread.MIN_PRIORITY); // Subordinate thread priority to rendering
-            thread.setUncaughtExceptionHandler(BasicRetrievalService.this);
-
+            BasicRetrievalService.this.beforeRetrieval(thread, runnable);
             super.beforeExecute(thread, runnable);
         }
 
-        /**
-         * @param runnable  the <code>Retriever</code> running on the thread
-         * @param throwable an exception thrown during retrieval, will be null if no exception occurred
-         *
-         * @throws IllegalArgumentException if <code>runnable</code> is null
-         */
         protected void afterExecute(Runnable runnable, Throwable throwable)
         {
-            if (runnable == null)
-            {
-                String msg = Logging.getMessage("nullValue.RunnableIsNull");
-                Logging.logger().fine(msg);
-                throw new IllegalArgumentException(msg);
-            }
-
             super.afterExecute(runnable, throwable);
+            BasicRetrievalService.this.afterRetrieval(runnable, throwable);
+        }
+    }
 
-            RetrievalTask task = (RetrievalTask) runnable;
-            BasicRetrievalService.this.activeTasks.remove(task);
-            task.retriever.setEndTime(System.currentTimeMillis());
+    /** Runs each retriever on its own virtual thread, limiting the number of concurrent retrievals. */
+    private class VirtualRetrievalExecutor extends ThreadPerTaskExecutor
+    {
+        private VirtualRetrievalExecutor(int maxConcurrency, int queueSize)
+        {
+            super(maxConcurrency, new PriorityBlockingQueue<Runnable>(queueSize),
+                ThreadPerTaskExecutor.newThreadFactory(IDLE_THREAD_NAME_PREFIX, BasicRetrievalService.this), null);
+        }
 
-            try
-            {
-                if (throwable != null)
-                {
-                    Logging.logger().log(Level.FINE,
-                        Logging.getMessage("BasicRetrievalService.ExceptionDuringRetrieval",
-                            task.getRetriever().getName()), throwable);
-                }
+        protected void beforeExecute(Thread thread, Runnable runnable)
+        {
+            BasicRetrievalService.this.beforeRetrieval(thread, runnable);
+        }
 
-                task.get(); // Wait for task to finish, cancel or break
-            }
-            catch (java.util.concurrent.ExecutionException e)
-            {
-                String message = Logging.getMessage("BasicRetrievalService.ExecutionExceptionDuringRetrieval",
-                    task.getRetriever().getName());
-                if (e.getCause() instanceof SocketTimeoutException)
-                {
-                    Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
-                }
-                else if (e.getCause() instanceof SSLHandshakeException)
-                {
-                    if (sslExceptionListener != null)
-                        sslExceptionListener.onException(e.getCause(), task.getRetriever().getName());
-                    else
-                        Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
-                }
-                else
-                {
-                    Logging.logger().log(Level.FINE, message, e);
-                }
-            }
-            catch (InterruptedException e)
-            {
-                Logging.logger().log(Level.FINE, Logging.getMessage("BasicRetrievalService.RetrievalInterrupted",
-                    task.getRetriever().getName()), e);
-            }
-            catch (java.util.concurrent.CancellationException e)
-            {
-                Logging.logger().fine(Logging.getMessage("BasicRetrievalService.RetrievalCancelled",
-                    task.getRetriever().getName()));
-            }
-            finally
-            {
-                Thread.currentThread().setName(IDLE_THREAD_NAME_PREFIX);
-            }
+        protected void afterExecute(Runnable runnable, Throwable throwable)
+        {
+            BasicRetrievalService.this.afterRetrieval(runnable, throwable);
         }
     }
 
@@ -322,9 +356,24 @@ public final class BasicRetrievalService extends WWObjectImpl
     {
         Integer poolSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_POOL_SIZE, DEFAULT_POOL_SIZE);
         this.queueSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        this.staleRequestLimit = Configuration.getLongValue(AVKey.RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT,
+            DEFAULT_STALE_REQUEST_LIMIT);
 
         // this.executor runs the retrievers, each in their own thread
-        this.executor = new RetrievalExecutor(poolSize, this.queueSize);
+        if (Configuration.getBooleanValue(AVKey.RETRIEVAL_SERVICE_VIRTUAL_THREADS, false))
+        {
+            Integer limit = Configuration.getIntegerValue(AVKey.RETRIEVAL_VIRTUAL_THREAD_LIMIT,
+                DEFAULT_VIRTUAL_THREAD_LIMIT);
+            VirtualRetrievalExecutor virtualExecutor = new VirtualRetrievalExecutor(limit, this.queueSize);
+            this.executor = virtualExecutor;
+            this.queue = virtualExecutor.getQueue();
+        }
+        else
+        {
+            RetrievalExecutor poolExecutor = new RetrievalExecutor(poolSize, this.queueSize);
+            this.executor = poolExecutor;
+            this.queue = poolExecutor.getQueue();
+        }
 
         // this.activeTasks holds the list of currently executing tasks (*not* those pending on the queue)
         this.activeTasks = new ConcurrentLinkedQueue<RetrievalTask>();
@@ -399,7 +448,7 @@ public final class BasicRetrievalService extends WWObjectImpl
         retriever.setSubmitTime(System.currentTimeMillis());
 
         // Do not queue duplicates.
-        if (this.activeTasks.contains(task) || this.executor.getQueue().contains(task))
+        if (this.activeTasks.contains(task) || this.queue.contains(task))
             return null;
 
         this.executor.execute(task);
@@ -408,6 +457,9 @@ public final class BasicRetrievalService extends WWObjectImpl
     }
 
     /**
+     * Specifies the maximum number of concurrent retrievals. This is the thread pool size, or the virtual thread limit
+     * when retrievers run on virtual threads.
+     *
      * @param poolSize the number of threads in the thread pool
      *
      * @throws IllegalArgumentException if <code>poolSize</code> is non-positive
@@ -421,17 +473,31 @@ public final class BasicRetrievalService extends WWObjectImpl
             throw new IllegalArgumentException(message);
         }
 
-        this.executor.setCorePoolSize(poolSize);
-        this.executor.setMaximumPoolSize(poolSize);
+        if (this.executor instanceof ThreadPerTaskExecutor)
+        {
+            ((ThreadPerTaskExecutor) this.executor).setMaxConcurrency(poolSize);
+        }
+        else
+        {
+            ((ThreadPoolExecutor) this.executor).setCorePoolSize(poolSize);
+            ((ThreadPoolExecutor) this.executor).setMaximumPoolSize(poolSize);
+        }
     }
 
     public int getRetrieverPoolSize()
     {
-        return this.executor.getCorePoolSize();
+        if (this.executor instanceof ThreadPerTaskExecutor)
+            return ((ThreadPerTaskExecutor) this.executor).getMaxConcurrency();
+
+        return ((ThreadPoolExecutor) this.executor).getCorePoolSize();
     }
 
     private boolean hasRetrievers()
     {
+        // Virtual threads are not visible to Thread.enumerate.
+        if (this.executor instanceof ThreadPerTaskExecutor)
+            return ((ThreadPerTaskExecutor) this.executor).getActiveCount() > 0;
+
         Thread[] threads = new Thread[Thread.activeCount()];
         int numThreads = Thread.enumerate(threads);
         for (int i = 0; i < numThreads; i++)
@@ -449,14 +515,14 @@ public final class BasicRetrievalService extends WWObjectImpl
 
     public boolean isAvailable()
     {
-        return this.executor.getQueue().size() < this.queueSize;
+        return this.queue.size() < this.queueSize;
 //            && !WorldWind.getNetworkStatus().isNetworkUnavailable();
     }
 
     public int getNumRetrieversPending()
     {
         // Could use same method to determine active tasks as hasRetrievers() above, but this method only advisory.
-        return this.activeTasks.size() + this.executor.getQueue().size();
+        return this.activeTasks.size() + this.queue.size();
     }
 
     /**
@@ -475,7 +541,7 @@ public final class BasicRetrievalService extends WWObjectImpl
             throw new IllegalArgumentException(msg);
         }
         RetrievalTask task = new RetrievalTask(retriever, 0d);
-        return (this.activeTasks.contains(task) || this.executor.getQueue().contains(task));
+        return (this.activeTasks.contains(task) || this.queue.contains(task));
     }
 
     public double getProgress()
@@ -506,7 +572,7 @@ public final class BasicRetrievalService extends WWObjectImpl
             }
         }
 
-        for (Runnable runnable : this.executor.getQueue())
+        for (Runnable runnable : this.queue)
         {
             RetrievalTask task =
                 (RetrievalTask) runnable;
@@ -0,0 +1,858 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.Logging;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.logging.Level;
+
+/**
+ * A {@link RetrievalService} that schedules retrievals by priority across fair per-host queues. It differs from {@link
+ * BasicRetrievalService} as follows: <ul> <li>Duplicate requests are detected in constant time through an index of
+ * pending and active retrievals keyed by retriever name.</li> <li>A duplicate request for a pending retrieval updates
+ * that retrieval's priority, so retrievals requested each frame, such as tile requests, follow the view as it
+ * moves.</li> <li>Pending retrievals whose callers resubmitted them at least once and then stopped resubmitting them
+ * for longer than the resubmit limit are assumed to be no longer visible and are cancelled. Retrievals that wait longer
+ * than the stale request limit are cancelled as well.</li> <li>Each host is limited to a maximum number of concurrent
+ * retrievals, and hosts with pending retrievals are served in turn, so one slow server does not occupy every retrieval
+ * thread.</li> <li>When the queue is full, a new request displaces the lowest priority pending request if it ranks
+ * ahead of it, and is otherwise rejected and counted, rather than silently discarded.</li> <li>Queue depth and wait
+ * time are recorded and available from the service's metrics accessors.</li> </ul>
+ * <p>
+ * Within a host, retrievals are ordered by ascending priority value, then by the most recent request. This service is
+ * selected by setting {@link AVKey#RETRIEVAL_SERVICE_CLASS_NAME} to this class in configuration.
+ *
+ * @version $Id$
+ */
+public class PriorityRetrievalService extends WWObjectImpl
+    implements RetrievalService, Thread.UncaughtExceptionHandler
+{
+    // These constants are last-ditch values in case Configuration lacks defaults
+    protected static final int DEFAULT_QUEUE_SIZE = 100;
+    protected static final int DEFAULT_POOL_SIZE = 5;
+    protected static final int DEFAULT_HOST_POOL_SIZE = 4;
+    protected static final long DEFAULT_STALE_REQUEST_LIMIT = 30000; // milliseconds
+    protected static final long DEFAULT_RESUBMIT_LIMIT = 2000; // milliseconds
+    /** The interval at which pending retrievals are checked for staleness, in milliseconds. */
+    protected static final long PURGE_INTERVAL = 500;
+    /** The host key of retrievers that do not identify a remote host. Such retrievers are not limited per host. */
+    protected static final String NO_HOST = "";
+
+    protected static final String RUNNING_THREAD_NAME_PREFIX = Logging.getMessage(
+        "BasicRetrievalService.RunningThreadNamePrefix");
+    protected static final String IDLE_THREAD_NAME_PREFIX = Logging.getMessage(
+        "BasicRetrievalService.IdleThreadNamePrefix");
+
+    /** Encapsulates a single retrieval as a {@link FutureTask}. Mutable fields are guarded by the service's lock. */
+    protected class RetrievalTask extends FutureTask<Retriever> implements RetrievalFuture, Comparable<RetrievalTask>
+    {
+        protected final Retriever retriever;
+        protected final String host;
+        protected final long sequence;
+        protected final long queueTime; // nanoseconds
+        protected double priority;
+        protected long requestTime; // milliseconds
+        protected boolean resubmitted;
+        protected boolean queued;
+
+        protected RetrievalTask(Retriever retriever, String host, double priority, long sequence)
+        {
+            super(retriever);
+            this.retriever = retriever;
+            this.host = host;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.queueTime = System.nanoTime();
+            this.requestTime = System.currentTimeMillis();
+        }
+
+        public Retriever getRetriever()
+        {
+            return this.retriever;
+        }
+
+        public double getPriority()
+        {
+            return this.priority;
+        }
+
+        @Override
+        public void run()
+        {
+            if (this.isDone() || this.isCancelled())
+                return;
+
+            super.run();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning)
+        {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled)
+                taskCancelled(this);
+
+            return cancelled;
+        }
+
+        public int compareTo(RetrievalTask that)
+        {
+            if (this.priority != that.priority)
+                return this.priority < that.priority ? -1 : 1;
+
+            if (this.requestTime != that.requestTime) // most recently requested first
+                return this.requestTime > that.requestTime ? -1 : 1;
+
+            return this.sequence < that.sequence ? -1 : this.sequence == that.sequence ? 0 : 1;
+        }
+    }
+
+    /** The pending retrievals and active retrieval count of one host. Guarded by the service's lock. */
+    protected static class HostQueue
+    {
+        protected final TreeSet<RetrievalTask> pending = new TreeSet<RetrievalTask>();
+        protected int numActive;
+    }
+
+    protected final ReentrantLock lock = new ReentrantLock();
+    protected final Condition taskAvailable = this.lock.newCondition();
+    /** Pending and active retrievals keyed by retriever name. */
+    protected final ConcurrentHashMap<String, RetrievalTask> tasks = new ConcurrentHashMap<String, RetrievalTask>();
+    /** Per-host queues, iterated from the host served least recently. Guarded by lock. */
+    protected final LinkedHashMap<String, HostQueue> hostQueues = new LinkedHashMap<String, HostQueue>();
+    protected final AtomicInteger numPending = new AtomicInteger();
+    protected final AtomicInteger numActive = new AtomicInteger();
+    protected final AtomicLong sequence = new AtomicLong();
+    protected int numWorkers; // guarded by lock
+    protected long lastPurgeTime; // guarded by lock
+    protected volatile boolean shutdown;
+
+    protected volatile int poolSize;
+    protected volatile int hostPoolSize;
+    protected final int queueSize;
+    protected final long staleRequestLimit;
+    protected final long resubmitLimit;
+
+    // Metrics
+    protected final AtomicLong numStarted = new AtomicLong();
+    protected final AtomicLong totalWaitTime = new AtomicLong(); // nanoseconds
+    protected final AtomicLong maxWaitTime = new AtomicLong(); // nanoseconds
+    protected final AtomicLong numCoalesced = new AtomicLong();
+    protected final AtomicLong numExpired = new AtomicLong();
+    protected final AtomicLong numDisplaced = new AtomicLong();
+    protected final AtomicLong numRejected = new AtomicLong();
+
+    protected SSLExceptionListener sslExceptionListener;
+
+    /** Creates a service configured from {@link Configuration}. */
+    public PriorityRetrievalService()
+    {
+        this(Configuration.getIntegerValue(AVKey.RETRIEVAL_QUEUE_SIZE, DEFAULT_QUEUE_SIZE),
+            Configuration.getLongValue(AVKey.RETRIEVAL_QUEUE_RESUBMIT_LIMIT, DEFAULT_RESUBMIT_LIMIT));
+    }
+
+    /**
+     * Creates a service with a specified queue size and resubmit limit. The remaining parameters are read from {@link
+     * Configuration}.
+     *
+     * @param queueSize     the maximum number of pending retrievals.
+     * @param resubmitLimit the time, in milliseconds, after which a pending retrieval that its caller has resubmitted
+     *                      and then stopped resubmitting is cancelled.
+     *
+     * @throws IllegalArgumentException if <code>queueSize</code> is less than one or <code>resubmitLimit</code> is
+     *                                  negative.
+     */
+    public PriorityRetrievalService(int queueSize, long resubmitLimit)
+    {
+        if (queueSize < 1)
+        {
+            String message = Logging.getMessage("generic.SizeOutOfRange", queueSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (resubmitLimit < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", resubmitLimit);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.queueSize = queueSize;
+        this.resubmitLimit = resubmitLimit;
+        this.poolSize = Math.max(1, Configuration.getIntegerValue(AVKey.RETRIEVAL_POOL_SIZE, DEFAULT_POOL_SIZE));
+        this.hostPoolSize = Math.max(1, Configuration.getIntegerValue(AVKey.RETRIEVAL_HOST_POOL_SIZE,
+            DEFAULT_HOST_POOL_SIZE));
+        this.staleRequestLimit = Configuration.getLongValue(AVKey.RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT,
+            DEFAULT_STALE_REQUEST_LIMIT);
+    }
+
+    public SSLExceptionListener getSSLExceptionListener()
+    {
+        return this.sslExceptionListener;
+    }
+
+    public void setSSLExceptionListener(SSLExceptionListener sslExceptionListener)
+    {
+        this.sslExceptionListener = sslExceptionListener;
+    }
+
+    public void uncaughtException(Thread thread, Throwable throwable)
+    {
+        Logging.logger().fine(Logging.getMessage("BasicRetrievalService.UncaughtExceptionDuringRetrieval",
+            thread.getName()));
+    }
+
+    public void shutdown(boolean immediately)
+    {
+        this.lock.lock();
+        try
+        {
+            this.shutdown = true;
+            this.taskAvailable.signalAll();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+
+        for (RetrievalTask task : this.tasks.values())
+        {
+            if (immediately || task.queued)
+                task.cancel(immediately);
+        }
+    }
+
+    public RetrievalFuture runRetriever(Retriever retriever)
+    {
+        if (retriever == null)
+        {
+            String msg = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+        if (retriever.getName() == null)
+        {
+            String message = Logging.getMessage("nullValue.RetrieverNameIsNull");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // Add with a priority that runs the most recently added requests first.
+        return this.runRetriever(retriever, (double) (Long.MAX_VALUE - System.currentTimeMillis()));
+    }
+
+    /**
+     * Queues a retriever for execution. If a retriever with the same name is already pending, the pending retrieval's
+     * priority is updated instead and this method returns null. If a retriever with the same name is running, this
+     * method returns null.
+     *
+     * @param retriever the retriever to run
+     * @param priority  the priority of the retriever. Lower values run first.
+     *
+     * @return a future object that can be used to query the request status or cancel the request, or null if the
+     * request is a duplicate or was rejected.
+     *
+     * @throws IllegalArgumentException if <code>retriever</code> is null or has no name
+     */
+    public RetrievalFuture runRetriever(Retriever retriever, double priority)
+    {
+        if (retriever == null)
+        {
+            String message = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (retriever.getName() == null)
+        {
+            String message = Logging.getMessage("nullValue.RetrieverNameIsNull");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.shutdown)
+            return null;
+
+        this.lock.lock();
+        try
+        {
+            RetrievalTask existing = this.tasks.get(retriever.getName());
+            if (existing != null)
+            {
+                this.numCoalesced.incrementAndGet();
+                if (existing.queued)
+                {
+                    HostQueue hostQueue = this.hostQueues.get(existing.host);
+                    hostQueue.pending.remove(existing);
+                    existing.priority = priority;
+                    existing.requestTime = System.currentTimeMillis();
+                    existing.resubmitted = true;
+                    hostQueue.pending.add(existing);
+                }
+                return null;
+            }
+
+            RetrievalTask task = new RetrievalTask(retriever, this.hostOf(retriever), priority,
+                this.sequence.getAndIncrement());
+
+            if (this.numPending.get() >= this.queueSize)
+                this.purgeExpiredTasks();
+
+            if (this.numPending.get() >= this.queueSize && !this.displaceLowestPriorityTask(task))
+            {
+                this.numRejected.incrementAndGet();
+                Logging.logger().finer(Logging.getMessage("BasicRetrievalService.ResourceRejectedQueueIsFull",
+                    retriever.getName()));
+                return null;
+            }
+
+            retriever.setSubmitTime(System.currentTimeMillis());
+            this.enqueue(task);
+            this.ensureWorkers();
+
+            return task;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Specifies the maximum number of retrievals that run at once.
+     *
+     * @param poolSize the number of threads in the thread pool
+     *
+     * @throws IllegalArgumentException if <code>poolSize</code> is non-positive
+     */
+    public void setRetrieverPoolSize(int poolSize)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("BasicRetrievalService.RetrieverPoolSizeIsLessThanOne");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.lock.lock();
+        try
+        {
+            this.poolSize = poolSize;
+            this.ensureWorkers();
+            this.taskAvailable.signalAll(); // lets surplus workers exit
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    public int getRetrieverPoolSize()
+    {
+        return this.poolSize;
+    }
+
+    /**
+     * Specifies the maximum number of retrievals from a single host that run at once.
+     *
+     * @param hostPoolSize the per-host limit.
+     *
+     * @throws IllegalArgumentException if <code>hostPoolSize</code> is non-positive
+     */
+    public void setHostPoolSize(int hostPoolSize)
+    {
+        if (hostPoolSize < 1)
+        {
+            String message = Logging.getMessage("BasicRetrievalService.RetrieverPoolSizeIsLessThanOne");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.lock.lock();
+        try
+        {
+            this.hostPoolSize = hostPoolSize;
+            this.taskAvailable.signalAll();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    public int getHostPoolSize()
+    {
+        return this.hostPoolSize;
+    }
+
+    public boolean hasActiveTasks()
+    {
+        return this.numActive.get() > 0;
+    }
+
+    public boolean isAvailable()
+    {
+        return this.numPending.get() < this.queueSize;
+    }
+
+    public boolean contains(Retriever retriever)
+    {
+        if (retriever == null)
+        {
+            String msg = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return retriever.getName() != null && this.tasks.containsKey(retriever.getName());
+    }
+
+    public int getNumRetrieversPending()
+    {
+        return this.numPending.get() + this.numActive.get();
+    }
+
+    //**************************************************************//
+    //********************  Metrics  *******************************//
+    //**************************************************************//
+
+    /** @return the number of retrievals waiting to run. */
+    public int getQueueDepth()
+    {
+        return this.numPending.get();
+    }
+
+    /**
+     * Returns the number of retrievals from a host waiting to run.
+     *
+     * @param host the host name, or the empty string for retrievals that do not identify a host.
+     *
+     * @return the host's queue depth.
+     */
+    public int getQueueDepth(String host)
+    {
+        this.lock.lock();
+        try
+        {
+            HostQueue hostQueue = this.hostQueues.get(host);
+            return hostQueue != null ? hostQueue.pending.size() : 0;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /** @return the number of retrievals currently running. */
+    public int getNumActive()
+    {
+        return this.numActive.get();
+    }
+
+    /** @return the number of retrievals started since the service was created. */
+    public long getNumStarted()
+    {
+        return this.numStarted.get();
+    }
+
+    /** @return the mean time retrievals waited on the queue before starting, in milliseconds. */
+    public double getAverageWaitTime()
+    {
+        long count = this.numStarted.get();
+        return count > 0 ? this.totalWaitTime.get() / 1e6 / count : 0;
+    }
+
+    /** @return the longest time a retrieval waited on the queue before starting, in milliseconds. */
+    public double getMaxWaitTime()
+    {
+        return this.maxWaitTime.get() / 1e6;
+    }
+
+    /** @return the number of duplicate requests merged into a pending or active retrieval. */
+    public long getNumCoalesced()
+    {
+        return this.numCoalesced.get();
+    }
+
+    /** @return the number of pending retrievals cancelled because they were stale or no longer requested. */
+    public long getNumExpired()
+    {
+        return this.numExpired.get();
+    }
+
+    /** @return the number of pending retrievals displaced by higher priority requests when the queue was full. */
+    public long getNumDisplaced()
+    {
+        return this.numDisplaced.get();
+    }
+
+    /** @return the number of requests rejected because the queue was full of higher priority retrievals. */
+    public long getNumRejected()
+    {
+        return this.numRejected.get();
+    }
+
+    //**************************************************************//
+    //********************  Scheduling  ****************************//
+    //**************************************************************//
+
+    /**
+     * Identifies the host a retriever retrieves from, which determines the queue the retriever is placed on.
+     *
+     * @param retriever the retriever.
+     *
+     * @return the retriever's host name, or the empty string if the retriever does not identify a remote host.
+     */
+    protected String hostOf(Retriever retriever)
+    {
+        if (retriever instanceof URLRetriever)
+        {
+            URL url = ((URLRetriever) retriever).getUrl();
+            if (url != null && url.getHost() != null)
+                return url.getHost();
+        }
+
+        return NO_HOST;
+    }
+
+    protected int hostLimit(String host)
+    {
+        return NO_HOST.equals(host) ? this.poolSize : this.hostPoolSize;
+    }
+
+    protected void enqueue(RetrievalTask task) // MUST HOLD LOCK
+    {
+        HostQueue hostQueue = this.hostQueues.get(task.host);
+        if (hostQueue == null)
+        {
+            hostQueue = new HostQueue();
+            this.hostQueues.put(task.host, hostQueue);
+        }
+
+        task.queued = true;
+        hostQueue.pending.add(task);
+        this.tasks.put(task.retriever.getName(), task);
+        this.numPending.incrementAndGet();
+        this.taskAvailable.signal();
+    }
+
+    protected void removePending(RetrievalTask task) // MUST HOLD LOCK
+    {
+        if (!task.queued)
+            return;
+
+        HostQueue hostQueue = this.hostQueues.get(task.host);
+        hostQueue.pending.remove(task);
+        task.queued = false;
+        this.tasks.remove(task.retriever.getName(), task);
+        this.numPending.decrementAndGet();
+
+        if (hostQueue.pending.isEmpty() && hostQueue.numActive == 0)
+            this.hostQueues.remove(task.host);
+    }
+
+    /**
+     * Makes room for a new task on a full queue by cancelling the lowest priority pending task, if the new task ranks
+     * ahead of it.
+     *
+     * @param task the new task.
+     *
+     * @return true if a pending task was displaced, otherwise false.
+     */
+    protected boolean displaceLowestPriorityTask(RetrievalTask task) // MUST HOLD LOCK
+    {
+        RetrievalTask lowest = null;
+        for (HostQueue hostQueue : this.hostQueues.values())
+        {
+            if (!hostQueue.pending.isEmpty())
+            {
+                RetrievalTask last = hostQueue.pending.last();
+                if (lowest == null || last.compareTo(lowest) > 0)
+                    lowest = last;
+            }
+        }
+
+        if (lowest == null || task.compareTo(lowest) >= 0)
+            return false;
+
+        this.removePending(lowest);
+        lowest.cancel(false);
+        this.numDisplaced.incrementAndGet();
+        return true;
+    }
+
+    protected void taskCancelled(RetrievalTask task)
+    {
+        this.lock.lock();
+        try
+        {
+            this.removePending(task);
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    protected void ensureWorkers() // MUST HOLD LOCK
+    {
+        while (!this.shutdown && this.numWorkers < this.poolSize)
+        {
+            Thread thread = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    runWorker();
+                }
+            });
+            thread.setName(IDLE_THREAD_NAME_PREFIX);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.setUncaughtExceptionHandler(this);
+            this.numWorkers++;
+            thread.start();
+        }
+    }
+
+    protected void runWorker()
+    {
+        RetrievalTask task;
+        while ((task = this.takeNext()) != null)
+        {
+            this.execute(task);
+        }
+    }
+
+    /**
+     * Waits for and removes the next task to run. Hosts with pending tasks and free slots are served in turn, and each
+     * host's highest priority task is taken.
+     *
+     * @return the next task, or null if the calling worker should exit.
+     */
+    protected RetrievalTask takeNext()
+    {
+        this.lock.lock();
+        try
+        {
+            while (true)
+            {
+                if (this.shutdown || this.numWorkers > this.poolSize)
+                {
+                    this.numWorkers--;
+                    return null;
+                }
+
+                this.purgeExpiredTasks();
+
+                Iterator<Map.Entry<String, HostQueue>> iter = this.hostQueues.entrySet().iterator();
+                while (iter.hasNext())
+                {
+                    Map.Entry<String, HostQueue> entry = iter.next();
+                    HostQueue hostQueue = entry.getValue();
+                    if (hostQueue.pending.isEmpty() || hostQueue.numActive >= this.hostLimit(entry.getKey()))
+                        continue;
+
+                    RetrievalTask task = hostQueue.pending.pollFirst();
+                    task.queued = false;
+                    hostQueue.numActive++;
+                    this.numPending.decrementAndGet();
+                    this.numActive.incrementAndGet();
+
+                    // Move the host to the end of the iteration order so the other hosts are served first next time.
+                    iter.remove();
+                    this.hostQueues.put(entry.getKey(), hostQueue);
+
+                    return task;
+                }
+
+                this.taskAvailable.await(PURGE_INTERVAL, TimeUnit.MILLISECONDS);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            this.numWorkers--;
+            return null;
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels pending tasks that have waited longer than their stale request limit, and tasks that their callers
+     * resubmitted at least once but have not resubmitted within the resubmit limit. Runs at most once per purge
+     * interval.
+     */
+    protected void purgeExpiredTasks() // MUST HOLD LOCK
+    {
+        long now = System.currentTimeMillis();
+        if (now - this.lastPurgeTime < PURGE_INTERVAL)
+            return;
+        this.lastPurgeTime = now;
+
+        ArrayList<RetrievalTask> expired = null;
+        for (HostQueue hostQueue : this.hostQueues.values())
+        {
+            for (RetrievalTask task : hostQueue.pending)
+            {
+                if (this.isExpired(task, now))
+                {
+                    if (expired == null)
+                        expired = new ArrayList<RetrievalTask>();
+                    expired.add(task);
+                }
+            }
+        }
+
+        if (expired == null)
+            return;
+
+        for (RetrievalTask task : expired)
+        {
+            this.removePending(task);
+            task.cancel(false);
+            this.numExpired.incrementAndGet();
+            Logging.logger().finer(Logging.getMessage("BasicRetrievalService.CancellingTooOldRetrieval",
+                task.getRetriever().getName()));
+        }
+    }
+
+    protected boolean isExpired(RetrievalTask task, long now)
+    {
+        long limit = task.retriever.getStaleRequestLimit() >= 0
+            ? task.retriever.getStaleRequestLimit() : this.staleRequestLimit;
+        if (now - task.retriever.getSubmitTime() > limit)
+            return true;
+
+        return task.resubmitted && now - task.requestTime > this.resubmitLimit;
+    }
+
+    protected void execute(RetrievalTask task)
+    {
+        Thread thread = Thread.currentThread();
+        Retriever retriever = task.getRetriever();
+
+        long waitTime = System.nanoTime() - task.queueTime;
+        this.numStarted.incrementAndGet();
+        this.totalWaitTime.addAndGet(waitTime);
+        long max = this.maxWaitTime.get();
+        while (waitTime > max && !this.maxWaitTime.compareAndSet(max, waitTime))
+        {
+            max = this.maxWaitTime.get();
+        }
+
+        try
+        {
+            thread.setName(RUNNING_THREAD_NAME_PREFIX + retriever.getName());
+            retriever.setBeginTime(System.currentTimeMillis());
+            task.run();
+        }
+        finally
+        {
+            retriever.setEndTime(System.currentTimeMillis());
+            this.taskCompleted(task);
+            thread.setName(IDLE_THREAD_NAME_PREFIX);
+            Thread.interrupted(); // clear an interrupt from cancellation before taking the next task
+        }
+
+        this.logResult(task);
+    }
+
+    protected void taskCompleted(RetrievalTask task)
+    {
+        this.lock.lock();
+        try
+        {
+            this.tasks.remove(task.retriever.getName(), task);
+            this.numActive.decrementAndGet();
+
+            HostQueue hostQueue = this.hostQueues.get(task.host);
+            if (hostQueue != null)
+            {
+                hostQueue.numActive--;
+                if (hostQueue.pending.isEmpty() && hostQueue.numActive == 0)
+                    this.hostQueues.remove(task.host);
+            }
+
+            // A host slot was freed, which may make a task runnable for any waiting worker.
+            this.taskAvailable.signalAll();
+        }
+        finally
+        {
+            this.lock.unlock();
+        }
+    }
+
+    protected void logResult(RetrievalTask task)
+    {
+        try
+        {
+            task.get();
+        }
+        catch (ExecutionException e)
+        {
+            String message = Logging.getMessage("BasicRetrievalService.ExecutionExceptionDuringRetrieval",
+                task.getRetriever().getName());
+            if (e.getCause() instanceof SocketTimeoutException)
+            {
+                Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
+            }
+            else if (e.getCause() instanceof SSLHandshakeException)
+            {
+                if (this.sslExceptionListener != null)
+                    this.sslExceptionListener.onException(e.getCause(), task.getRetriever().getName());
+                else
+                    Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
+            }
+            else
+            {
+                Logging.logger().log(Level.FINE, message, e);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Logging.logger().log(Level.FINE, Logging.getMessage("BasicRetrievalService.RetrievalInterrupted",
+                task.getRetriever().getName()), e);
+        }
+        catch (CancellationException e)
+        {
+            Logging.logger().fine(Logging.getMessage("BasicRetrievalService.RetrievalCancelled",
+                task.getRetriever().getName()));
+        }
+    }
+}
@@ -37,7 +37,7 @@ import gov.nasa.worldwind.util.*;
 import org.w3c.dom.Element;
 
 import javax.xml.xpath.XPath;
-import java.util.List;
+import java.util.*;
 
 /**
  * @author tag
@@ -173,6 +173,98 @@ abstract public class AbstractElevationModel extends WWObjectImpl implements Ele
         return new double[] {this.getElevations(sector, latLons, targetResolutions[0], elevations)};
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation creates a location for each array entry and calls {@link #getElevations(Sector, List,
+     * double, double[])}. Subclasses may override it to avoid creating the locations.
+     */
+    public double getElevations(Sector sector, double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer)
+    {
+        validateLocationArrays(latitudes, longitudes, buffer);
+
+        return this.getElevations(sector, makeLocations(latitudes, longitudes), targetResolution, buffer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This implementation creates a location for each array entry and calls {@link #getUnmappedElevations(Sector,
+     * List, double, double[])}. Subclasses may override it to avoid creating the locations.
+     */
+    public double getUnmappedElevations(Sector sector, double[] latitudes, double[] longitudes,
+        double targetResolution, double[] buffer)
+    {
+        validateLocationArrays(latitudes, longitudes, buffer);
+
+        return this.getUnmappedElevations(sector, makeLocations(latitudes, longitudes), targetResolution, buffer);
+    }
+
+    /**
+     * Validates the arguments of a batch elevation query.
+     *
+     * @param latitudes  the locations' latitudes.
+     * @param longitudes the locations' longitudes.
+     * @param buffer     the output buffer.
+     *
+     * @throws IllegalArgumentException if any array is null, if the arrays of latitudes and longitudes are of
+     *                                  different lengths, or if the buffer is shorter than they are.
+     */
+    protected static void validateLocationArrays(double[] latitudes, double[] longitudes, double[] buffer)
+    {
+        if (latitudes == null || longitudes == null)
+        {
+            String msg = Logging.getMessage("nullValue.LatitudeOrLongitudeIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (latitudes.length != longitudes.length)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", longitudes.length);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (buffer == null)
+        {
+            String msg = Logging.getMessage("nullValue.ElevationsBufferIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (buffer.length < latitudes.length)
+        {
+            String msg = Logging.getMessage("ElevationModel.ElevationsBufferTooSmall", latitudes.length);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    /**
+     * Creates a list of locations from arrays of latitudes and longitudes in degrees. Entries whose latitude or
+     * longitude is NaN are null in the list.
+     *
+     * @param latitudes  the latitudes.
+     * @param longitudes the longitudes.
+     *
+     * @return the list of locations.
+     */
+    protected static List<LatLon> makeLocations(double[] latitudes, double[] longitudes)
+    {
+        ArrayList<LatLon> locations = new ArrayList<LatLon>(latitudes.length);
+        for (int i = 0; i < latitudes.length; i++)
+        {
+            if (Double.isNaN(latitudes[i]) || Double.isNaN(longitudes[i]))
+                locations.add(null);
+            else
+                locations.add(LatLon.fromDegrees(latitudes[i], longitudes[i]));
+        }
+
+        return locations;
+    }
+
     public double[] getBestResolutions(Sector sector)
     {
         return new double[] {this.getBestResolution(sector)};
@@ -84,10 +84,15 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
     protected java.util.concurrent.ConcurrentHashMap<TileKey, ElevationTile> levelZeroTiles =
         new java.util.concurrent.ConcurrentHashMap<TileKey, ElevationTile>();
     protected MemoryCache memoryCache;
+    /** Holds the elevations of tiles evicted from the memory cache off the heap, or null if disabled. */
+    protected MemoryCache payloadCache;
     protected int extremesLevel = -1;
     protected boolean extremesCachingEnabled = true;
     protected BufferWrapper extremes = null;
     protected MemoryCache extremesLookupCache;
+    /** The number of locations in a batch query at which the query is split among threads, or 0 to never split. */
+    protected int batchParallelThreshold = DEFAULT_BATCH_PARALLEL_THRESHOLD;
+    protected static final int DEFAULT_BATCH_PARALLEL_THRESHOLD = 1 << 16;
     // Model resource properties.
     protected static final int RESOURCE_ID_OGC_CAPABILITIES = 1;
 
@@ -154,6 +159,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             this.setValue(AVKey.SECTOR, this.levels.getSector());
 
         this.memoryCache = this.createMemoryCache(ElevationTile.class.getName());
+        this.payloadCache = this.createPayloadCache(ElevationTile.class.getName() + ".Payloads");
 
         this.setValue(AVKey.CONSTRUCTION_PARAMETERS, params.copy());
 
@@ -245,13 +251,75 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         else
         {
             long size = Configuration.getLongValue(AVKey.ELEVATION_TILE_CACHE_SIZE, 20000000L);
-            MemoryCache mc = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache mc = BasicMemoryCacheSet.createCache(cacheName, (long) (0.85 * size), size);
             mc.setName("Elevation Tiles");
             WorldWind.getMemoryCacheSet().addCache(cacheName, mc);
             return mc;
         }
     }
 
+    /**
+     * Returns the off-heap tier that holds the elevations of tiles evicted from the memory cache. The tier is shared by
+     * all elevation models and is enabled by setting {@link AVKey#ELEVATION_TILE_OFF_HEAP_CACHE_SIZE} in configuration.
+     * When the tier is enabled, tile elevations are kept in direct memory while the tile is in the memory cache as
+     * well, and move between the memory cache and the tier without being copied.
+     *
+     * @return the off-heap elevation tier, or null if it is disabled.
+     */
+    protected MemoryCache getPayloadCache()
+    {
+        return this.payloadCache;
+    }
+
+    protected MemoryCache createPayloadCache(String cacheName)
+    {
+        synchronized (BasicElevationModel.class)
+        {
+            if (WorldWind.getMemoryCacheSet().containsCache(cacheName))
+                return WorldWind.getMemoryCache(cacheName);
+
+            long size = Configuration.getLongValue(AVKey.ELEVATION_TILE_OFF_HEAP_CACHE_SIZE, 0L);
+            if (size <= 0)
+                return null;
+
+            MemoryCache mc = new OffHeapMemoryCache((long) (0.85 * size), size);
+            mc.setName("Elevation Tile Payloads");
+            WorldWind.getMemoryCacheSet().addCache(cacheName, mc);
+
+            // The memory cache is shared by all elevation models, so the tiles it evicts are demoted by a single
+            // listener registered when the tier is created.
+            this.getMemoryCache().addCacheListener(new PayloadDemotionListener(mc));
+            return mc;
+        }
+    }
+
+    /** Moves the elevations of tiles evicted from the memory cache into the off-heap elevation tier. */
+    protected static class PayloadDemotionListener implements MemoryCache.CacheListener
+    {
+        protected final MemoryCache payloadCache;
+
+        public PayloadDemotionListener(MemoryCache payloadCache)
+        {
+            this.payloadCache = payloadCache;
+        }
+
+        public void entryRemoved(Object key, Object clientObject)
+        {
+            if (!(clientObject instanceof ElevationTile))
+                return;
+
+            ElevationTile tile = (ElevationTile) clientObject;
+            if (tile.getElevations() != null && !tile.isElevationsExpired())
+                this.payloadCache.add(key, tile.getElevations(), tile.getElevations().getSizeInBytes());
+        }
+
+        public void removalException(Throwable e, Object key, Object clientObject)
+        {
+            String msg = Logging.getMessage("BasicMemoryCache.ExceptionFromRemovalListener", e.getMessage());
+            Logging.logger().log(java.util.logging.Level.INFO, msg);
+        }
+    }
+
     public LevelSet getLevels()
     {
         return this.levels;
@@ -322,6 +390,39 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         this.detailHint = hint;
     }
 
+    /**
+     * Returns the number of locations in a batch elevation query at which the query is split among the threads of the
+     * common fork-join pool.
+     *
+     * @return the batch size at which queries are split, or 0 if queries are never split.
+     *
+     * @see #getElevations(Sector, double[], double[], double, double[])
+     */
+    public int getBatchParallelThreshold()
+    {
+        return this.batchParallelThreshold;
+    }
+
+    /**
+     * Specifies the number of locations in a batch elevation query at which the query is split among the threads of
+     * the common fork-join pool. The default is 65536.
+     *
+     * @param threshold the batch size at which queries are split, or 0 to never split queries.
+     *
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    public void setBatchParallelThreshold(int threshold)
+    {
+        if (threshold < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "threshold < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.batchParallelThreshold = threshold;
+    }
+
     public String getElevationDataType()
     {
         return this.elevationDataType;
@@ -449,6 +550,12 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
                     return;
 
                 ElevationTile tile = this.elevationModel.createTile(this.tileKey);
+                if (this.elevationModel.loadElevationsFromPayloadCache(tile))
+                {
+                    this.elevationModel.firePropertyChange(AVKey.ELEVATION_MODEL, null, this);
+                    return;
+                }
+
                 final URL url = this.elevationModel.getDataFileStore().findFile(tile.getPath(), false);
                 if (url != null && !this.elevationModel.isFileExpired(tile, url,
                     this.elevationModel.getDataFileStore()))
@@ -526,6 +633,34 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         if (elevations == null || elevations.length() == 0)
             return false;
 
+        // Keep the elevations off the heap for their entire lifetime when the off-heap tier is enabled.
+        if (this.getPayloadCache() != null)
+        {
+            elevations = OffHeapMemoryCache.toDirect(elevations);
+            if (elevations == null)
+                return false;
+        }
+
+        tile.setElevations(elevations, this);
+        this.addTileToCache(tile, elevations);
+
+        return true;
+    }
+
+    // Moves a tile's elevations from the off-heap tier to the tile, and adds the tile to the memory cache. The tile takes
+    // over the direct buffer that held the elevations in the tier, so no data is copied.
+
+    protected boolean loadElevationsFromPayloadCache(ElevationTile tile)
+    {
+        MemoryCache cache = this.getPayloadCache();
+        if (cache == null)
+            return false;
+
+        BufferWrapper elevations = (BufferWrapper) cache.getObject(tile.getTileKey());
+        if (elevations == null || elevations.length() == 0)
+            return false;
+
+        cache.remove(tile.getTileKey());
         tile.setElevations(elevations, this);
         this.addTileToCache(tile, elevations);
 
@@ -584,7 +719,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         ByteBuffer byteBuffer;
         synchronized (this.fileLock)
         {
-            byteBuffer = WWIO.readURLContentToBuffer(url);
+            byteBuffer = WWIO.readURLContentToBuffer(url, this.getPayloadCache() != null);
         }
 
         // Setup parameters to instruct BufferWrapper on how to interpret the ByteBuffer.
@@ -1369,6 +1504,363 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         return elevations.achievedResolution;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Locations are grouped by the elevation tile that covers them, and each group is interpolated from its tile's
+     * elevations without allocating objects. Queries of at least {@link #getBatchParallelThreshold()} locations are
+     * split among the threads of the common fork-join pool.
+     */
+    @Override
+    public double getElevations(Sector sector, double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer)
+    {
+        return this.getElevations(sector, latitudes, longitudes, targetResolution, buffer, true);
+    }
+
+    /** {@inheritDoc} See {@link #getElevations(Sector, double[], double[], double, double[])}. */
+    @Override
+    public double getUnmappedElevations(Sector sector, double[] latitudes, double[] longitudes,
+        double targetResolution, double[] buffer)
+    {
+        return this.getElevations(sector, latitudes, longitudes, targetResolution, buffer, false);
+    }
+
+    protected double getElevations(Sector sector, double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer, boolean mapMissingData)
+    {
+        if (sector == null)
+        {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        validateLocationArrays(latitudes, longitudes, buffer);
+
+        Level targetLevel = this.getTargetLevel(sector, targetResolution);
+        if (targetLevel == null)
+            return Double.MAX_VALUE;
+
+        Elevations elevations = this.getElevations(sector, this.levels, targetLevel.getLevelNumber());
+        if (elevations == null)
+            return Double.MAX_VALUE;
+
+        if (this.intersects(sector) == -1)
+            return Double.MAX_VALUE;
+
+        // Mark the model as used this frame.
+        this.setValue(AVKey.FRAME_TIMESTAMP, System.currentTimeMillis());
+
+        ElevationBatch batch = new ElevationBatch(this, sector, elevations, targetLevel, latitudes, longitudes,
+            buffer, mapMissingData);
+        if (this.batchParallelThreshold > 0 && latitudes.length >= this.batchParallelThreshold)
+            java.util.concurrent.ForkJoinPool.commonPool().invoke(new ElevationBatchAction(batch, 0,
+                latitudes.length));
+        else
+            batch.lookup(0, latitudes.length);
+
+        return elevations.achievedResolution;
+    }
+
+    /**
+     * Computes the elevations of a batch of locations from a set of elevation tiles. The tiles are indexed by the cells
+     * of the target level's tile grid that they cover, so each location's tile is found by computing its cell. Lookups
+     * of different ranges of locations may run concurrently.
+     */
+    protected static class ElevationBatch
+    {
+        protected final BasicElevationModel elevationModel;
+        protected final Sector sector;
+        protected final double[] latitudes;
+        protected final double[] longitudes;
+        protected final double[] buffer;
+        protected final boolean mapMissingData;
+        protected final double missingDataSignal;
+        protected final double missingDataReplacement;
+        protected final Sector coverage;
+        // Per-tile sectors in degrees and elevation rasters, in order of decreasing resolution.
+        protected final double[] tileMinLat;
+        protected final double[] tileMaxLat;
+        protected final double[] tileMinLon;
+        protected final double[] tileMaxLon;
+        protected final int[] tileWidth;
+        protected final int[] tileHeight;
+        protected final BufferWrapper[] tileElevations;
+        // The target level's tile grid over the requested sector, and the index of the tile covering each cell.
+        protected final double originLat;
+        protected final double originLon;
+        protected final double cellDeltaLat;
+        protected final double cellDeltaLon;
+        protected final int firstRow;
+        protected final int firstCol;
+        protected final int numRows;
+        protected final int numCols;
+        protected final int[] cellTiles;
+
+        public ElevationBatch(BasicElevationModel elevationModel, Sector sector, Elevations elevations,
+            Level targetLevel, double[] latitudes, double[] longitudes, double[] buffer, boolean mapMissingData)
+        {
+            this.elevationModel = elevationModel;
+            this.sector = sector;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.buffer = buffer;
+            this.mapMissingData = mapMissingData;
+            this.missingDataSignal = elevationModel.getMissingDataSignal();
+            this.missingDataReplacement = elevationModel.getMissingDataReplacement();
+            this.coverage = elevationModel.levels.getSector();
+
+            int numTiles = elevations.tiles != null ? elevations.tiles.size() : 0;
+            this.tileMinLat = new double[numTiles];
+            this.tileMaxLat = new double[numTiles];
+            this.tileMinLon = new double[numTiles];
+            this.tileMaxLon = new double[numTiles];
+            this.tileWidth = new int[numTiles];
+            this.tileHeight = new int[numTiles];
+            this.tileElevations = new BufferWrapper[numTiles];
+
+            if (numTiles > 0)
+            {
+                int t = 0;
+                for (ElevationTile tile : elevations.tiles)
+                {
+                    Sector tileSector = tile.getSector();
+                    this.tileMinLat[t] = tileSector.getMinLatitude().degrees;
+                    this.tileMaxLat[t] = tileSector.getMaxLatitude().degrees;
+                    this.tileMinLon[t] = tileSector.getMinLongitude().degrees;
+                    this.tileMaxLon[t] = tileSector.getMaxLongitude().degrees;
+                    this.tileWidth[t] = tile.getWidth();
+                    this.tileHeight[t] = tile.getHeight();
+                    this.tileElevations[t] = tile.getElevations();
+                    t++;
+                }
+            }
+
+            LatLon delta = targetLevel.getTileDelta();
+            LatLon origin = elevationModel.levels.getTileOrigin();
+            this.originLat = origin.getLatitude().degrees;
+            this.originLon = origin.getLongitude().degrees;
+            this.cellDeltaLat = delta.getLatitude().degrees;
+            this.cellDeltaLon = delta.getLongitude().degrees;
+
+            // Index the tiles by the cells of the target level's grid within the requested sector, as
+            // BasicElevationModel.getElevations(Sector, LevelSet, int) selects them. Tiles are in order of decreasing
+            // resolution, so each cell is assigned the highest resolution tile covering it.
+            Sector grid = sector.intersection(this.coverage);
+            if (grid != null && numTiles > 0)
+            {
+                int seRow = Tile.computeRow(delta.getLatitude(), grid.getMinLatitude(), origin.getLatitude());
+                int nwRow = Tile.computeRow(delta.getLatitude(), grid.getMaxLatitude(), origin.getLatitude());
+                int nwCol = Tile.computeColumn(delta.getLongitude(), grid.getMinLongitude(), origin.getLongitude());
+                int seCol = Tile.computeColumn(delta.getLongitude(), grid.getMaxLongitude(), origin.getLongitude());
+                this.firstRow = seRow;
+                this.firstCol = nwCol;
+                this.numRows = nwRow - seRow + 1;
+                this.numCols = seCol - nwCol + 1;
+            }
+            else
+            {
+                this.firstRow = 0;
+                this.firstCol = 0;
+                this.numRows = 0;
+                this.numCols = 0;
+            }
+
+            this.cellTiles = new int[this.numRows * this.numCols];
+            Arrays.fill(this.cellTiles, -1);
+            for (int t = 0; t < numTiles; t++)
+            {
+                // The cells whose centers are within the tile.
+                int r0 = Math.max(0, (int) Math.ceil((this.tileMinLat[t] - this.originLat) / this.cellDeltaLat - 0.5)
+                    - this.firstRow);
+                int r1 = Math.min(this.numRows - 1,
+                    (int) Math.floor((this.tileMaxLat[t] - this.originLat) / this.cellDeltaLat - 0.5) - this.firstRow);
+                int c0 = Math.max(0, (int) Math.ceil((this.tileMinLon[t] - this.originLon) / this.cellDeltaLon - 0.5)
+                    - this.firstCol);
+                int c1 = Math.min(this.numCols - 1,
+                    (int) Math.floor((this.tileMaxLon[t] - this.originLon) / this.cellDeltaLon - 0.5) - this.firstCol);
+
+                for (int r = r0; r <= r1; r++)
+                {
+                    for (int c = c0; c <= c1; c++)
+                    {
+                        if (this.cellTiles[r * this.numCols + c] < 0)
+                            this.cellTiles[r * this.numCols + c] = t;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Computes the elevations of a range of locations and writes them to the output buffer, following the rules of
+         * {@link BasicElevationModel#getElevations(Sector, List, double, double[])}.
+         *
+         * @param start the index of the first location.
+         * @param end   one more than the index of the last location.
+         */
+        protected void lookup(int start, int end)
+        {
+            double minExtreme = Double.NaN; // determined when first needed
+            boolean transparentMissingData = this.missingDataReplacement == this.missingDataSignal;
+
+            for (int i = start; i < end; i++)
+            {
+                double lat = this.latitudes[i];
+                double lon = this.longitudes[i];
+                if (Double.isNaN(lat) || Double.isNaN(lon))
+                    continue;
+
+                int t = this.findTile(lat, lon);
+                double value = t >= 0 ? this.interpolate(t, lat, lon) : this.missingDataSignal;
+
+                if (value == this.missingDataSignal && transparentMissingData)
+                    continue;
+
+                // If an elevation at the given location is available, write that elevation to the destination buffer.
+                // If an elevation is not available but the location is within the elevation model's coverage, write
+                // the elevation models extreme elevation at the location. Do nothing if the location is not within the
+                // elevation model's coverage.
+                if (t >= 0 && value != this.missingDataSignal)
+                {
+                    this.buffer[i] = value;
+                }
+                else if (this.coverage.containsDegrees(lat, lon))
+                {
+                    if (t < 0)
+                    {
+                        if (Double.isNaN(minExtreme))
+                            minExtreme = this.elevationModel.getExtremeElevations(this.sector)[0];
+                        this.buffer[i] = minExtreme;
+                    }
+                    else if (this.mapMissingData)
+                    {
+                        this.buffer[i] = this.missingDataReplacement;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the index of the tile providing elevations for a location.
+         *
+         * @param lat the location's latitude in degrees.
+         * @param lon the location's longitude in degrees.
+         *
+         * @return the tile's index, or -1 if no tile contains the location.
+         */
+        protected int findTile(double lat, double lon)
+        {
+            int row = (int) ((lat - this.originLat) / this.cellDeltaLat) - this.firstRow;
+            int col = (int) ((lon - this.originLon) / this.cellDeltaLon) - this.firstCol;
+            if (row >= 0 && row < this.numRows && col >= 0 && col < this.numCols)
+            {
+                int t = this.cellTiles[row * this.numCols + col];
+                if (t >= 0 && this.tileContains(t, lat, lon))
+                    return t;
+            }
+
+            // The location is on a cell boundary or outside the requested sector. Search the tiles in order.
+            for (int t = 0; t < this.tileElevations.length; t++)
+            {
+                if (this.tileContains(t, lat, lon))
+                    return t;
+            }
+
+            return -1;
+        }
+
+        protected boolean tileContains(int t, double lat, double lon)
+        {
+            return lat >= this.tileMinLat[t] && lat <= this.tileMaxLat[t]
+                && lon >= this.tileMinLon[t] && lon <= this.tileMaxLon[t];
+        }
+
+        /**
+         * Interpolates a tile's elevations at a location, in the same way as {@link
+         * BasicElevationModel#lookupElevation(Angle, Angle, ElevationTile)}.
+         *
+         * @param t   the tile's index.
+         * @param lat the location's latitude in degrees.
+         * @param lon the location's longitude in degrees.
+         *
+         * @return the elevation, or the missing data signal.
+         */
+        protected double interpolate(int t, double lat, double lon)
+        {
+            BufferWrapper elevations = this.tileElevations[t];
+            final int tileHeight = this.tileHeight[t];
+            final int tileWidth = this.tileWidth[t];
+            final double sectorDeltaLat = this.tileMaxLat[t] - this.tileMinLat[t];
+            final double sectorDeltaLon = this.tileMaxLon[t] - this.tileMinLon[t];
+            final double dLat = this.tileMaxLat[t] - lat;
+            final double dLon = lon - this.tileMinLon[t];
+            final double sLat = dLat / sectorDeltaLat;
+            final double sLon = dLon / sectorDeltaLon;
+
+            int j = (int) ((tileHeight - 1) * sLat);
+            int i = (int) ((tileWidth - 1) * sLon);
+            int k = j * tileWidth + i;
+
+            double eLeft = elevations.getDouble(k);
+            double eRight = i < (tileWidth - 1) ? elevations.getDouble(k + 1) : eLeft;
+
+            if (this.missingDataSignal == eLeft || this.missingDataSignal == eRight)
+                return this.missingDataSignal;
+
+            double dw = sectorDeltaLon / (tileWidth - 1);
+            double dh = sectorDeltaLat / (tileHeight - 1);
+            double ssLon = (dLon - i * dw) / dw;
+            double ssLat = (dLat - j * dh) / dh;
+
+            double eTop = eLeft + ssLon * (eRight - eLeft);
+
+            if (j < tileHeight - 1 && i < tileWidth - 1)
+            {
+                eLeft = elevations.getDouble(k + tileWidth);
+                eRight = elevations.getDouble(k + tileWidth + 1);
+
+                if (this.missingDataSignal == eLeft || this.missingDataSignal == eRight)
+                    return this.missingDataSignal;
+            }
+
+            double eBot = eLeft + ssLon * (eRight - eLeft);
+            return eTop + ssLat * (eBot - eTop);
+        }
+    }
+
+    /** Splits a batch elevation query among the threads of a fork-join pool. */
+    @SuppressWarnings("serial")
+    protected static class ElevationBatchAction extends java.util.concurrent.RecursiveAction
+    {
+        protected static final int MIN_LOCATIONS = 4096;
+
+        protected final ElevationBatch batch;
+        protected final int start;
+        protected final int end;
+
+        public ElevationBatchAction(ElevationBatch batch, int start, int end)
+        {
+            this.batch = batch;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.end - this.start <= MIN_LOCATIONS)
+            {
+                this.batch.lookup(this.start, this.end);
+                return;
+            }
+
+            int mid = (this.start + this.end) >>> 1;
+            invokeAll(new ElevationBatchAction(this.batch, this.start, mid),
+                new ElevationBatchAction(this.batch, mid, this.end));
+        }
+    }
+
     protected Level getTargetLevel(Sector sector, double targetSize)
     {
         Level lastLevel = this.levels.getLastLevel(sector); // finest resolution available
@@ -153,6 +153,43 @@ public class BathymetryFilterElevationModel extends AbstractElevationModel
         return resolution;
     }
 
+    @Override
+    public double getElevations(Sector sector, double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer)
+    {
+        double resolution = this.sourceModel.getElevations(sector, latitudes, longitudes, targetResolution, buffer);
+
+        for (int i = 0; i < latitudes.length; i++)
+        {
+            if (buffer[i] < this.threshold && this.sourceContains(latitudes[i], longitudes[i]))
+                buffer[i] = this.threshold;
+        }
+
+        return resolution;
+    }
+
+    @Override
+    public double getUnmappedElevations(Sector sector, double[] latitudes, double[] longitudes,
+        double targetResolution, double[] buffer)
+    {
+        double resolution = this.sourceModel.getElevations(sector, latitudes, longitudes, targetResolution, buffer);
+
+        for (int i = 0; i < latitudes.length; i++)
+        {
+            if (buffer[i] != this.sourceModel.getMissingDataSignal() && buffer[i] < this.threshold
+                && this.sourceContains(latitudes[i], longitudes[i]))
+                buffer[i] = this.threshold;
+        }
+
+        return resolution;
+    }
+
+    protected boolean sourceContains(double latitude, double longitude)
+    {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude)
+            && this.sourceModel.contains(Angle.fromDegrees(latitude), Angle.fromDegrees(longitude));
+    }
+
     public int intersects(Sector sector)
     {
         return this.sourceModel.intersects(sector);
@@ -560,6 +560,67 @@ public class CompoundElevationModel extends AbstractElevationModel
         return this.doGetElevations(sector, latLons, targetResolutions, elevations, false);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * NOTE: This method returns only unmapped elevations if the compound model contains more than one elevation model.
+     * This enables the compound model's lower resolution elevation models to specify missing data values for the higher
+     * resolution elevation models.
+     */
+    @Override
+    public double getElevations(Sector sector, double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer)
+    {
+        return this.doGetElevations(sector, latitudes, longitudes, targetResolution, buffer, false);
+    }
+
+    /** {@inheritDoc} See {@link #getElevations(Sector, double[], double[], double, double[])}. */
+    @Override
+    public double getUnmappedElevations(Sector sector, double[] latitudes, double[] longitudes,
+        double targetResolution, double[] buffer)
+    {
+        return this.doGetElevations(sector, latitudes, longitudes, targetResolution, buffer, false);
+    }
+
+    protected double doGetElevations(Sector sector, double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer, boolean mapMissingData)
+    {
+        if (sector == null)
+        {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        validateLocationArrays(latitudes, longitudes, buffer);
+
+        // Fill the buffer with ElevationModel contents from lowest resolution to highest, potentially overwriting
+        // values at each step. ElevationModels are expected to leave the buffer untouched for locations outside their
+        // coverage area. As with the list form, the resolution achieved by the first elevation model is returned.
+        double resolutionAchieved = 0;
+        for (int i = 0; i < this.elevationModels.size(); i++)
+        {
+            ElevationModel em = this.elevationModels.get(i);
+            if (!em.isEnabled())
+                continue;
+
+            int c = em.intersects(sector);
+            if (c < 0) // no intersection
+                continue;
+
+            double r;
+            if (mapMissingData || this.elevationModels.size() == 1)
+                r = em.getElevations(sector, latitudes, longitudes, targetResolution, buffer);
+            else
+                r = em.getUnmappedElevations(sector, latitudes, longitudes, targetResolution, buffer);
+
+            if (i == 0)
+                resolutionAchieved = r;
+        }
+
+        return resolutionAchieved;
+    }
+
     protected double[] doGetElevations(Sector sector, List<? extends LatLon> latlons, double[] targetResolution,
         double[] buffer, boolean mapMissingData)
     {
@@ -506,6 +506,328 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         service.awaitTermination(100, TimeUnit.DAYS); // wait indefinitely for all threads to complete
     }
 
+    /**
+     * Intersects a batch of geographic two-position lines with the terrain. Each line is first resolved to the terrain
+     * tiles it crosses. The lines are then grouped by tile, so that each tile's geometry is computed or retrieved from
+     * the cache once and intersected with every line that crosses it. Each stage runs on the common fork-join pool.
+     * <p>
+     * The current timeout, if any, applies to the batch as a whole rather than to each line.
+     *
+     * @param positionsA    the lines' first positions. A line whose first or second position is null has no
+     *                      intersections.
+     * @param positionsB    the lines' second positions, in the same order as the first positions.
+     * @param intersections an array in which to return, for each line, its intersections sorted by distance from the
+     *                      line's first position, or null if the line does not intersect the terrain. Must have at
+     *                      least as many elements as there are lines.
+     *
+     * @return the number of lines that intersect the terrain.
+     *
+     * @throws IllegalArgumentException                        if any of the arrays are null, if the position arrays
+     *                                                         differ in length, or if the intersections array is too
+     *                                                         small.
+     * @throws InterruptedException                            if the operation is interrupted.
+     * @throws gov.nasa.worldwind.exception.WWTimeoutException if the current timeout is exceeded while retrieving
+     *                                                         terrain data.
+     */
+    public int intersect(Position[] positionsA, Position[] positionsB, Intersection[][] intersections)
+        throws InterruptedException
+    {
+        if (positionsA == null || positionsB == null || intersections == null)
+        {
+            String msg = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (positionsB.length != positionsA.length || intersections.length < positionsA.length)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", positionsA.length);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        IntersectionBatch batch = new IntersectionBatch(positionsA, positionsB, intersections);
+
+        this.runIntersectionStage(batch, IntersectionBatch.STAGE_LINES, positionsA.length);
+        batch.groupLinesByTile(this.numCols);
+        this.runIntersectionStage(batch, IntersectionBatch.STAGE_TILES, batch.groups.size());
+        this.runIntersectionStage(batch, IntersectionBatch.STAGE_RESULTS, positionsA.length);
+
+        int count = 0;
+        for (int i = 0; i < positionsA.length; i++)
+        {
+            if (intersections[i] != null)
+                count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Runs one stage of a batch intersection on the common fork-join pool and rethrows the first exception raised by
+     * the stage, if any.
+     *
+     * @param batch the batch.
+     * @param stage the stage to run.
+     * @param count the number of items the stage processes.
+     *
+     * @throws InterruptedException if the operation is interrupted.
+     */
+    protected void runIntersectionStage(IntersectionBatch batch, int stage, int count) throws InterruptedException
+    {
+        if (count == 0)
+            return;
+
+        ForkJoinPool.commonPool().invoke(new IntersectionBatchAction(this, batch, stage, 0, count));
+
+        Exception e = batch.failure.get();
+        if (e instanceof InterruptedException)
+            throw (InterruptedException) e;
+        else if (e instanceof RuntimeException)
+            throw (RuntimeException) e;
+        else if (e != null)
+            throw new WWRuntimeException(e);
+    }
+
+    /**
+     * Performs one step of a batch intersection stage.
+     *
+     * @param batch the batch.
+     * @param stage the stage.
+     * @param index the index of the line or tile group to process.
+     *
+     * @throws InterruptedException if the operation is interrupted.
+     */
+    protected void doIntersectionStage(IntersectionBatch batch, int stage, int index) throws InterruptedException
+    {
+        if (stage == IntersectionBatch.STAGE_LINES)
+        {
+            Position pA = batch.positionsA[index];
+            Position pB = batch.positionsB[index];
+            if (pA == null || pB == null)
+                return;
+
+            Line line = this.makeLineFromPositions(pA, pB);
+            if (line == null)
+                return;
+
+            TileIndices tiles = this.getIntersectingTileIndices(pA, pB, line);
+            if (tiles == null)
+                return;
+
+            batch.lines[index] = line;
+            batch.lineTiles[index] = tiles;
+        }
+        else if (stage == IntersectionBatch.STAGE_TILES)
+        {
+            this.intersect(batch, batch.groups.get(index));
+        }
+        else if (stage == IntersectionBatch.STAGE_RESULTS)
+        {
+            List<Intersection> hits = batch.hits.get(index);
+            if (hits == null || hits.size() == 0)
+            {
+                batch.intersections[index] = null;
+                return;
+            }
+
+            Intersection[] array = hits.toArray(new Intersection[hits.size()]);
+            if (array.length > 1)
+                sortIntersections(array, batch.lines[index].getOrigin());
+            batch.intersections[index] = array;
+        }
+    }
+
+    /**
+     * Intersects a tile with every line of a batch that crosses it. The tile is created and its vertices computed once
+     * and shared among the lines.
+     *
+     * @param batch the batch.
+     * @param group the tile and the indices of the lines that cross it.
+     *
+     * @throws InterruptedException if the operation is interrupted.
+     */
+    protected void intersect(IntersectionBatch batch, TileGroup group) throws InterruptedException
+    {
+        RectTile tile = this.createTile(group.row, group.column);
+        this.makeVerts(tile);
+
+        if (tile.ri == null)
+            return;
+
+        Vec4[] points = this.computeVertexPoints(tile);
+        List<Intersection> tileHits = new ArrayList<Intersection>();
+
+        for (int i = 0; i < group.numLines; i++)
+        {
+            int lineIndex = group.lines[i];
+
+            this.intersect(points, tile.density + 1, batch.lines[lineIndex], tileHits);
+            if (tileHits.size() == 0)
+                continue;
+
+            List<Intersection> hits = batch.hits.get(lineIndex);
+            synchronized (hits)
+            {
+                hits.addAll(tileHits);
+            }
+            tileHits.clear();
+        }
+    }
+
+    /**
+     * Holds the state of a batch intersection. The intersection proceeds in three stages: resolving each line and the
+     * tiles it crosses, intersecting each tile with the lines that cross it, and sorting each line's intersections
+     * into the caller's array.
+     */
+    protected static class IntersectionBatch
+    {
+        protected static final int STAGE_LINES = 0;
+        protected static final int STAGE_TILES = 1;
+        protected static final int STAGE_RESULTS = 2;
+
+        protected final Position[] positionsA;
+        protected final Position[] positionsB;
+        protected final Intersection[][] intersections;
+        protected final long startTime = System.currentTimeMillis();
+        protected final Line[] lines;
+        protected final TileIndices[] lineTiles;
+        protected final List<List<Intersection>> hits;
+        protected List<TileGroup> groups;
+        protected final java.util.concurrent.atomic.AtomicReference<Exception> failure
+            = new java.util.concurrent.atomic.AtomicReference<Exception>();
+
+        protected IntersectionBatch(Position[] positionsA, Position[] positionsB, Intersection[][] intersections)
+        {
+            this.positionsA = positionsA;
+            this.positionsB = positionsB;
+            this.intersections = intersections;
+            this.lines = new Line[positionsA.length];
+            this.lineTiles = new TileIndices[positionsA.length];
+            this.hits = new ArrayList<List<Intersection>>(Collections.<List<Intersection>>nCopies(positionsA.length,
+                null));
+        }
+
+        /**
+         * Groups the resolved lines by the tiles they cross, in order of first appearance.
+         *
+         * @param numColumns the number of columns in the terrain's tile array.
+         */
+        protected void groupLinesByTile(int numColumns)
+        {
+            Map<Long, TileGroup> map = new LinkedHashMap<Long, TileGroup>();
+
+            for (int i = 0; i < this.lineTiles.length; i++)
+            {
+                TileIndices tiles = this.lineTiles[i];
+                if (tiles == null)
+                    continue;
+
+                this.hits.set(i, new ArrayList<Intersection>(2));
+
+                for (int t = 0; t < tiles.size; t++)
+                {
+                    Long key = (long) tiles.rows[t] * numColumns + tiles.columns[t];
+                    TileGroup group = map.get(key);
+                    if (group == null)
+                    {
+                        group = new TileGroup(tiles.rows[t], tiles.columns[t]);
+                        map.put(key, group);
+                    }
+                    group.addLine(i);
+                }
+
+                this.lineTiles[i] = null; // no longer needed
+            }
+
+            this.groups = new ArrayList<TileGroup>(map.values());
+        }
+    }
+
+    /** The row and column of a terrain tile and the indices of the batch lines that cross it. */
+    protected static class TileGroup
+    {
+        protected final int row;
+        protected final int column;
+        protected int[] lines = new int[4];
+        protected int numLines;
+
+        protected TileGroup(int row, int column)
+        {
+            this.row = row;
+            this.column = column;
+        }
+
+        protected void addLine(int index)
+        {
+            if (this.numLines == this.lines.length)
+                this.lines = Arrays.copyOf(this.lines, 2 * this.lines.length);
+
+            this.lines[this.numLines++] = index;
+        }
+    }
+
+    /**
+     * Runs a range of one batch intersection stage, splitting the range among the threads of the pool. The batch's
+     * start time is installed as the timeout reference of each thread for the duration of its work, so the timeout is
+     * measured from the start of the batch. The first exception raised is recorded in the batch and stops the
+     * remaining work.
+     */
+    @SuppressWarnings("serial")
+    protected static class IntersectionBatchAction extends RecursiveAction
+    {
+        protected final HighResolutionTerrain terrain;
+        protected final IntersectionBatch batch;
+        protected final int stage;
+        protected final int start;
+        protected final int end;
+
+        protected IntersectionBatchAction(HighResolutionTerrain terrain, IntersectionBatch batch, int stage,
+            int start, int end)
+        {
+            this.terrain = terrain;
+            this.batch = batch;
+            this.stage = stage;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.batch.failure.get() != null)
+                return;
+
+            // Lines and tiles are expensive to process, so split them finely. Sorting results is cheap.
+            int grain = this.stage == IntersectionBatch.STAGE_RESULTS ? 256 : 1;
+            if (this.end - this.start > grain)
+            {
+                int mid = (this.start + this.end) >>> 1;
+                invokeAll(new IntersectionBatchAction(this.terrain, this.batch, this.stage, this.start, mid),
+                    new IntersectionBatchAction(this.terrain, this.batch, this.stage, mid, this.end));
+                return;
+            }
+
+            Long previousStartTime = this.terrain.startTime.get();
+            this.terrain.startTime.set(this.batch.startTime);
+            try
+            {
+                for (int i = this.start; i < this.end; i++)
+                {
+                    this.terrain.doIntersectionStage(this.batch, this.stage, i);
+                }
+            }
+            catch (Exception e)
+            {
+                this.batch.failure.compareAndSet(null, e);
+            }
+            finally
+            {
+                this.terrain.startTime.set(previousStartTime);
+            }
+        }
+    }
+
     /**
      * Cause the tiles used by subsequent intersection calculations to be cached so that they are available immediately
      * to those subsequent calculations.
@@ -785,25 +1107,7 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         if (list.size() == 1)
             return hits;
 
-        final Vec4 origin = line.getOrigin();
-        Arrays.sort(hits, new Comparator<Intersection>()
-        {
-            public int compare(Intersection i1, Intersection i2)
-            {
-                if (i1 == null && i2 == null)
-                    return 0;
-                if (i2 == null)
-                    return -1;
-                if (i1 == null)
-                    return 1;
-
-                Vec4 v1 = i1.getIntersectionPoint();
-                Vec4 v2 = i2.getIntersectionPoint();
-                double d1 = origin.distanceTo3(v1);
-                double d2 = origin.distanceTo3(v2);
-                return Double.compare(d1, d2);
-            }
-        });
+        sortIntersections(hits, line.getOrigin());
 
         return hits;
     }
@@ -840,6 +1144,32 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
      * only be near it.
      */
     protected List<RectTile> getIntersectingTiles(Position pA, Position pB, Line line)
+    {
+        TileIndices indices = this.getIntersectingTileIndices(pA, pB, line);
+        if (indices == null)
+            return null;
+
+        List<RectTile> tiles = new ArrayList<RectTile>(indices.size);
+        for (int i = 0; i < indices.size; i++)
+        {
+            tiles.add(this.createTile(indices.rows[i], indices.columns[i]));
+        }
+
+        return tiles;
+    }
+
+    /**
+     * Determines the row and column indices of the terrain tiles intersected by a specified line, without creating the
+     * tiles.
+     *
+     * @param pA   the line's first position.
+     * @param pB   the line's second position.
+     * @param line the line to intersect
+     *
+     * @return the indices of the tiles that likely intersect the line, or null if there are none. Some indicated tiles
+     * may not intersect the line but will only be near it.
+     */
+    protected TileIndices getIntersectingTileIndices(Position pA, Position pB, Line line)
     {
         // Turn off elevation min/max caching in the elevation model because searching for the intersecting tiles
         // generates a lot of elevation min/max request that often overflows the elevation model's cache.
@@ -867,11 +1197,11 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
                 colB = temp;
             }
 
-            List<RectTile> tiles = new ArrayList<RectTile>();
+            TileIndices indices = new TileIndices();
 
-            this.doGetIntersectingTiles(rowA, colA, rowB, colB, line, tiles);
+            this.doGetIntersectingTiles(rowA, colA, rowB, colB, line, indices);
 
-            return tiles.size() > 0 ? tiles : null;
+            return indices.size > 0 ? indices : null;
         }
         finally
         {
@@ -880,6 +1210,17 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
     }
 
     protected void doGetIntersectingTiles(int r0, int c0, int r1, int c1, Line line, List<RectTile> tiles)
+    {
+        TileIndices indices = new TileIndices();
+        this.doGetIntersectingTiles(r0, c0, r1, c1, line, indices);
+
+        for (int i = 0; i < indices.size; i++)
+        {
+            tiles.add(this.createTile(indices.rows[i], indices.columns[i]));
+        }
+    }
+
+    protected void doGetIntersectingTiles(int r0, int c0, int r1, int c1, Line line, TileIndices tiles)
     {
         double minLat = this.sector.getMinLatitude().degrees + r0 * this.latTileSize;
         double maxLat = this.sector.getMinLatitude().degrees + (r1 + 1) * this.latTileSize;
@@ -897,7 +1238,8 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
 
         if (m == 1 && n == 1)
         {
-            tiles.add(this.createTile(r0, c0));
+            if (r0 >= 0 && c0 >= 0 && r0 < this.numRows && c0 < this.numCols)
+                tiles.add(r0, c0);
             return;
         }
 
@@ -915,6 +1257,26 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
             this.doGetIntersectingTiles(r0 + n / 2, c0 + m / 2, r1, c1, line, tiles); // NE
     }
 
+    /** A growable list of tile row and column indices. */
+    protected static class TileIndices
+    {
+        protected int[] rows = new int[16];
+        protected int[] columns = new int[16];
+        protected int size;
+
+        protected void add(int row, int column)
+        {
+            if (this.size == this.rows.length)
+            {
+                this.rows = Arrays.copyOf(this.rows, 2 * this.size);
+                this.columns = Arrays.copyOf(this.columns, 2 * this.size);
+            }
+
+            this.rows[this.size] = row;
+            this.columns[this.size++] = column;
+        }
+    }
+
     /**
      * Computes a terrain tile's vertices of draws them from the cache.
      *
@@ -1341,53 +1703,85 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         if (tile.ri == null)
             return null;
 
-        Intersection[] hits;
         ArrayList<Intersection> list = new ArrayList<Intersection>();
+        this.intersect(this.computeVertexPoints(tile), tile.density + 1, line, list);
+
+        int numHits = list.size();
+        if (numHits == 0)
+            return null;
+
+        // Sort the intersections by distance from line origin, nearer are first in the sorted list.
+        Intersection[] hits = new Intersection[numHits];
+        list.toArray(hits);
+        sortIntersections(hits, line.getOrigin());
 
+        return hits;
+    }
+
+    /**
+     * Computes the model-coordinate points of a tile's vertices. The tile's vertices must have been computed.
+     *
+     * @param tile the tile.
+     *
+     * @return the tile's vertex points, in row-major order.
+     */
+    protected Vec4[] computeVertexPoints(RectTile tile)
+    {
         double cx = tile.ri.referenceCenter.x;
         double cy = tile.ri.referenceCenter.y;
         double cz = tile.ri.referenceCenter.z;
 
-        // Loop through all the tile's triangles
-        int n = tile.density + 1;
         float[] coords = tile.ri.vertices;
+        Vec4[] points = new Vec4[coords.length / 3];
+        for (int i = 0, k = 0; i < points.length; i++, k += 3)
+        {
+            points[i] = new Vec4(coords[k] + cx, coords[k + 1] + cy, coords[k + 2] + cz);
+        }
+
+        return points;
+    }
 
+    /**
+     * Intersects a line with the triangles of a tile.
+     *
+     * @param points the tile's vertex points, in row-major order.
+     * @param n      the number of vertices along each edge of the tile.
+     * @param line   the line.
+     * @param hits   the list to which to add the intersections found.
+     */
+    protected void intersect(Vec4[] points, int n, Line line, List<Intersection> hits)
+    {
+        // Loop through all the tile's triangles
         for (int j = 0; j < n - 1; j++)
         {
             for (int i = 0; i < n - 1; i++)
             {
-                int k = (j * n + i) * 3;
-                Vec4 va = new Vec4(coords[k] + cx, coords[k + 1] + cy, coords[k + 2] + cz);
-
-                k += 3;
-                Vec4 vb = new Vec4(coords[k] + cx, coords[k + 1] + cy, coords[k + 2] + cz);
-
-                k += n * 3;
-                Vec4 vc = new Vec4(coords[k] + cx, coords[k + 1] + cy, coords[k + 2] + cz);
-
-                k -= 3;
-                Vec4 vd = new Vec4(coords[k] + cx, coords[k + 1] + cy, coords[k + 2] + cz);
+                int k = j * n + i;
+                Vec4 va = points[k];
+                Vec4 vb = points[k + 1];
+                Vec4 vc = points[k + 1 + n];
+                Vec4 vd = points[k + n];
 
                 // Intersect triangles with line
                 Intersection intersection;
 
                 if ((intersection = Triangle.intersect(line, va, vb, vc)) != null)
-                    list.add(intersection);
+                    hits.add(intersection);
 
                 if ((intersection = Triangle.intersect(line, va, vc, vd)) != null)
-                    list.add(intersection);
+                    hits.add(intersection);
             }
         }
+    }
 
-        int numHits = list.size();
-        if (numHits == 0)
-            return null;
-
-        // Sort the intersections by distance from line origin, nearer are first in the sorted list.
-        hits = new Intersection[numHits];
-        list.toArray(hits);
-
-        final Vec4 origin = line.getOrigin();
+    /**
+     * Sorts intersections by their distance from a point, nearest first.
+     *
+     * @param hits   the intersections to sort.
+     * @param origin the point from which to measure distance.
+     */
+    protected static void sortIntersections(Intersection[] hits, final Vec4 origin)
+    {
         Arrays.sort(hits, new Comparator<Intersection>()
         {
             public int compare(Intersection i1, Intersection i2)
@@ -1406,8 +1800,6 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
                 return Double.compare(d1, d2);
             }
         });
-
-        return hits;
     }
 
     /**
@@ -43,6 +43,8 @@ import java.awt.*;
 import java.nio.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.logging.Level;
 
 /**
  * @author tag
@@ -398,6 +400,61 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         }
     }
 
+    /** The inputs and results of computing a tile's vertices, which may be done off the rendering thread. */
+    protected static class VertexBuild
+    {
+        protected final RectTile tile;
+        protected final CacheKey cacheKey;
+        protected final Globe globe;
+        protected final double verticalExaggeration;
+        protected final boolean makeSkirts;
+        protected FloatBuffer vertices; // buffer to fill, or null to allocate one
+        protected Vec4 referenceCenter;
+
+        public VertexBuild(RectTile tile, CacheKey cacheKey, Globe globe, double verticalExaggeration,
+            boolean makeSkirts, FloatBuffer vertices)
+        {
+            this.tile = tile;
+            this.cacheKey = cacheKey;
+            this.globe = globe;
+            this.verticalExaggeration = verticalExaggeration;
+            this.makeSkirts = makeSkirts;
+            this.vertices = vertices;
+        }
+    }
+
+    /** Computes the vertices of a list of tiles by recursively splitting the list among fork-join workers. */
+    @SuppressWarnings("serial")
+    protected static class VertexBuildAction extends RecursiveAction
+    {
+        protected final RectangularTessellator tessellator;
+        protected final List<VertexBuild> builds;
+        protected final int start;
+        protected final int end;
+
+        public VertexBuildAction(RectangularTessellator tessellator, List<VertexBuild> builds, int start, int end)
+        {
+            this.tessellator = tessellator;
+            this.builds = builds;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.end - this.start == 1)
+            {
+                this.tessellator.computeVertices(this.builds.get(this.start));
+                return;
+            }
+
+            int mid = (this.start + this.end) >>> 1;
+            invokeAll(new VertexBuildAction(this.tessellator, this.builds, this.start, mid),
+                new VertexBuildAction(this.tessellator, this.builds, mid, this.end));
+        }
+    }
+
     // TODO: Make all this configurable
     protected static final int DEFAULT_MAX_LEVEL = 30;
     protected static final double DEFAULT_LOG10_RESOLUTION_TARGET = 1.3;
@@ -429,6 +486,14 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
     protected Globe globe;
     protected int density = DEFAULT_DENSITY;
     protected long updateFrequency = 2000; // milliseconds
+    protected boolean parallelBuild = Configuration.getBooleanValue(AVKey.RECTANGULAR_TESSELLATOR_PARALLEL_BUILD,
+        false);
+    protected boolean asyncBuild = Configuration.getBooleanValue(AVKey.RECTANGULAR_TESSELLATOR_ASYNC_BUILD, false);
+    /** Asynchronous builds that have been requested but not yet published, keyed by tile. */
+    protected final ConcurrentHashMap<CacheKey, VertexBuild> pendingBuilds =
+        new ConcurrentHashMap<CacheKey, VertexBuild>();
+    /** Asynchronous builds whose vertices are ready to publish on the rendering thread. */
+    protected final ConcurrentLinkedQueue<VertexBuild> completedBuilds = new ConcurrentLinkedQueue<VertexBuild>();
 
     public SectorGeometryList tessellate(DrawContext dc)
     {
@@ -449,7 +514,7 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         if (!WorldWind.getMemoryCacheSet().containsCache(CACHE_ID))
         {
             long size = Configuration.getLongValue(AVKey.SECTOR_GEOMETRY_CACHE_SIZE, 10000000L);
-            MemoryCache cache = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache cache = BasicMemoryCacheSet.createCache(CACHE_ID, (long) (0.85 * size), size);
             cache.setName(CACHE_NAME);
             WorldWind.getMemoryCacheSet().addCache(CACHE_ID, cache);
         }
@@ -463,6 +528,9 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
             this.topLevelTilesCache.put(dc.getGlobe().getStateKey(dc), topLevels);
         }
 
+        if (this.asyncBuild)
+            this.publishCompletedBuilds(dc);
+
         this.currentTiles.clear();
         this.currentLevel = 0;
         this.currentCoverage = null;
@@ -475,9 +543,16 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
 
         this.currentTiles.setSector(this.currentCoverage);
 
-        for (SectorGeometry tile : this.currentTiles)
+        if (this.parallelBuild)
         {
-            this.makeVerts(dc, (RectTile) tile);
+            this.makeVerts(dc, this.currentTiles);
+        }
+        else
+        {
+            for (SectorGeometry tile : this.currentTiles)
+            {
+                this.makeVerts(dc, (RectTile) tile);
+            }
         }
 
         // Make a copy of the SGL because the tessellator may be called multiple times per frame with a different globe.
@@ -573,6 +648,56 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         this.updateFrequency = updateFrequency;
     }
 
+    /**
+     * Indicates whether the vertices of the tiles selected for a frame are computed in parallel.
+     *
+     * @return true if tile vertices are computed in parallel, otherwise false.
+     *
+     * @see #setParallelBuild(boolean)
+     */
+    public boolean isParallelBuild()
+    {
+        return this.parallelBuild;
+    }
+
+    /**
+     * Specifies whether the vertices of the tiles selected for a frame are computed in parallel by the common
+     * fork-join pool. The elevation model must support concurrent elevation queries. The initial value is specified by
+     * {@link AVKey#RECTANGULAR_TESSELLATOR_PARALLEL_BUILD}, and is <code>false</code> if not specified.
+     *
+     * @param parallelBuild true to compute tile vertices in parallel, otherwise false.
+     */
+    public void setParallelBuild(boolean parallelBuild)
+    {
+        this.parallelBuild = parallelBuild;
+    }
+
+    /**
+     * Indicates whether tile vertices are computed off the rendering thread.
+     *
+     * @return true if tile vertices are computed asynchronously, otherwise false.
+     *
+     * @see #setAsyncBuild(boolean)
+     */
+    public boolean isAsyncBuild()
+    {
+        return this.asyncBuild;
+    }
+
+    /**
+     * Specifies whether tile vertices are computed off the rendering thread. When true, a tile that needs finer tiles
+     * whose vertices are not yet computed is drawn in their place until they are ready, and a tile whose vertices are
+     * out of date is drawn with them until the new vertices are ready. Tiles that have no vertices and no coarser tile
+     * to draw in their place are computed immediately. The initial value is specified by {@link
+     * AVKey#RECTANGULAR_TESSELLATOR_ASYNC_BUILD}, and is <code>false</code> if not specified.
+     *
+     * @param asyncBuild true to compute tile vertices asynchronously, otherwise false.
+     */
+    public void setAsyncBuild(boolean asyncBuild)
+    {
+        this.asyncBuild = asyncBuild;
+    }
+
     protected void selectVisibleTiles(DrawContext dc, RectTile tile)
     {
         if (dc.is2DGlobe() && this.skipTile(dc, tile.getSector()))
@@ -584,8 +709,16 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
 
         if (this.currentLevel < this.maxLevel - 1 && !this.atBestResolution(dc, tile) && this.needToSplit(dc, tile))
         {
-            ++this.currentLevel;
             RectTile[] subtiles = this.split(dc, tile);
+            if (this.asyncBuild && !this.areSubTilesReady(dc, tile, subtiles))
+            {
+                // Draw this tile until its sub-tiles' vertices are available.
+                this.currentCoverage = tile.getSector().union(this.currentCoverage);
+                this.currentTiles.add(tile);
+                return;
+            }
+
+            ++this.currentLevel;
             for (RectTile child : subtiles)
             {
                 this.selectVisibleTiles(dc, child);
@@ -597,6 +730,43 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         this.currentTiles.add(tile);
     }
 
+    /**
+     * Determines whether the visible sub-tiles of a tile can be drawn in its place, and requests asynchronous builds of
+     * the vertices of those that cannot. Sub-tiles are always drawn when the tile itself has no vertices.
+     *
+     * @param dc       the current draw context.
+     * @param tile     the tile to split.
+     * @param subtiles the tile's sub-tiles.
+     *
+     * @return true if the sub-tiles should be drawn, false if the tile should be drawn in their place.
+     */
+    protected boolean areSubTilesReady(DrawContext dc, RectTile tile, RectTile[] subtiles)
+    {
+        MemoryCache cache = WorldWind.getMemoryCache(CACHE_ID);
+        if (!cache.contains(this.createCacheKey(dc, tile)))
+            return true;
+
+        boolean ready = true;
+        for (RectTile child : subtiles)
+        {
+            if (dc.is2DGlobe() && this.skipTile(dc, child.getSector()))
+                continue;
+
+            Extent extent = child.getExtent();
+            if (extent != null && !extent.intersects(this.currentFrustum))
+                continue;
+
+            CacheKey cacheKey = this.createCacheKey(dc, child);
+            if (!cache.contains(cacheKey))
+            {
+                this.requestBuild(dc, child, cacheKey);
+                ready = false;
+            }
+        }
+
+        return ready;
+    }
+
     protected boolean atBestResolution(DrawContext dc, RectTile tile)
     {
         double bestResolution = dc.getGlobe().getElevationModel().getBestResolution(tile.getSector());
@@ -676,33 +846,191 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         if (tile.ri != null && tile.ri.time >= System.currentTimeMillis() - this.getUpdateFrequency())
             return;
 
+        if (tile.ri != null && this.asyncBuild)
+        {
+            this.requestBuild(dc, tile, cacheKey); // draw the out of date vertices until the new ones are ready
+            return;
+        }
+
         if (this.buildVerts(dc, tile, this.makeTileSkirts))
             cache.add(cacheKey, tile.ri, tile.ri.getSizeInBytes());
     }
 
-    public boolean buildVerts(DrawContext dc, RectTile tile, boolean makeSkirts)
+    /**
+     * Makes the vertices of several tiles, computing those that are not cached or are out of date in parallel.
+     *
+     * @param dc    the current draw context.
+     * @param tiles the tiles.
+     */
+    protected void makeVerts(DrawContext dc, Iterable<SectorGeometry> tiles)
     {
-        int density = tile.density;
-        int numVertices = (density + 3) * (density + 3);
+        MemoryCache cache = WorldWind.getMemoryCache(CACHE_ID);
+        ArrayList<VertexBuild> builds = new ArrayList<VertexBuild>();
+        for (SectorGeometry sg : tiles)
+        {
+            RectTile tile = (RectTile) sg;
+            CacheKey cacheKey = this.createCacheKey(dc, tile);
+            tile.ri = (RenderInfo) cache.getObject(cacheKey);
+            if (tile.ri != null && tile.ri.time >= System.currentTimeMillis() - this.getUpdateFrequency())
+                continue;
 
-        FloatBuffer verts;
+            if (tile.ri != null && this.asyncBuild)
+            {
+                this.requestBuild(dc, tile, cacheKey);
+                continue;
+            }
 
-        //Re-use the RenderInfo vertices buffer. If it has not been set or the density has changed, create a new buffer
-        if (tile.ri == null || tile.ri.vertices == null || density != tile.ri.density)
+            // Re-use the RenderInfo vertices buffer, as buildVerts does.
+            FloatBuffer verts = tile.ri != null && tile.ri.density == tile.density ? tile.ri.vertices : null;
+            builds.add(new VertexBuild(tile, cacheKey, dc.getGlobe(), dc.getVerticalExaggeration(),
+                this.makeTileSkirts, verts));
+        }
+
+        if (builds.size() > 1)
+            ForkJoinPool.commonPool().invoke(new VertexBuildAction(this, builds, 0, builds.size()));
+        else if (builds.size() == 1)
+            this.computeVertices(builds.get(0));
+
+        // Create the render info on this thread, which has the OpenGL context.
+        for (VertexBuild build : builds)
         {
-            verts = Buffers.newDirectFloatBuffer(numVertices * 3);
+            if (this.publishVerts(dc, build.tile, build.vertices, build.referenceCenter))
+                cache.add(build.cacheKey, build.tile.ri, build.tile.ri.getSizeInBytes());
         }
-        else
+    }
+
+    /**
+     * Starts computing a tile's vertices on the common fork-join pool. The vertices are published by {@link
+     * #publishCompletedBuilds(DrawContext)} at the start of a later frame.
+     *
+     * @param dc       the current draw context.
+     * @param tile     the tile.
+     * @param cacheKey the tile's cache key.
+     */
+    protected void requestBuild(DrawContext dc, RectTile tile, CacheKey cacheKey)
+    {
+        final VertexBuild build = new VertexBuild(tile, cacheKey, dc.getGlobe(), dc.getVerticalExaggeration(),
+            this.makeTileSkirts, null);
+        if (this.pendingBuilds.putIfAbsent(cacheKey, build) != null)
+            return;
+
+        ForkJoinPool.commonPool().execute(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    computeVertices(build);
+                    completedBuilds.add(build);
+                    build.globe.firePropertyChange(AVKey.REPAINT, null, RectangularTessellator.this);
+                }
+                catch (Throwable t)
+                {
+                    pendingBuilds.remove(build.cacheKey, build);
+                    Logging.logger().log(Level.SEVERE,
+                        Logging.getMessage("RectangularTessellator.ExceptionBuildingTile", build.tile.getSector()), t);
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates render info for the tiles whose vertices were computed asynchronously and adds it to the tile cache,
+     * replacing any out of date render info. Must be called on the rendering thread.
+     *
+     * @param dc the current draw context.
+     */
+    protected void publishCompletedBuilds(DrawContext dc)
+    {
+        MemoryCache cache = WorldWind.getMemoryCache(CACHE_ID);
+        VertexBuild build;
+        while ((build = this.completedBuilds.poll()) != null)
         {
+            this.pendingBuilds.remove(build.cacheKey, build);
+            RenderInfo ri = new RenderInfo(dc, build.tile.density, build.vertices, build.referenceCenter);
+            cache.add(build.cacheKey, ri, ri.getSizeInBytes());
+        }
+    }
+
+    public boolean buildVerts(DrawContext dc, RectTile tile, boolean makeSkirts)
+    {
+        //Re-use the RenderInfo vertices buffer. If it has not been set or the density has changed, create a new buffer
+        FloatBuffer verts = null;
+        if (tile.ri != null && tile.ri.vertices != null && tile.density == tile.ri.density)
             verts = tile.ri.vertices;
-            verts.rewind();
+
+        VertexBuild build = new VertexBuild(tile, null, dc.getGlobe(), dc.getVerticalExaggeration(),
+            makeSkirts, verts);
+        this.computeVertices(build);
+
+        return this.publishVerts(dc, tile, build.vertices, build.referenceCenter);
+    }
+
+    /**
+     * Updates a tile's render info with newly computed vertices, or creates its render info if it has none. Must be
+     * called on the rendering thread.
+     *
+     * @param dc        the current draw context.
+     * @param tile      the tile.
+     * @param verts     the tile's vertices.
+     * @param refCenter the point the vertices are relative to.
+     *
+     * @return true if new render info was created, false if the tile's existing render info was updated.
+     */
+    protected boolean publishVerts(DrawContext dc, RectTile tile, FloatBuffer verts, Vec4 refCenter)
+    {
+        if (tile.ri != null)
+        {
+            tile.ri.update(dc);
+            return false;
+        }
+
+        tile.ri = new RenderInfo(dc, tile.density, verts, refCenter);
+        return true;
+    }
+
+    /**
+     * Computes a tile's vertices into the build's vertex buffer, allocating the buffer if the build has none. Uses
+     * only the build's globe and the tile's immutable state, so it may be called on any thread.
+     * <p>
+     * The interior vertices form a regular grid of <code>density + 1</code> rows and columns, which is passed to the
+     * elevation model and the globe in one batch. The skirt vertices surrounding the grid duplicate the grid's edge
+     * locations.
+     *
+     * @param build the build describing the tile.
+     */
+    protected void computeVertices(VertexBuild build)
+    {
+        RectTile tile = build.tile;
+        Globe globe = build.globe;
+        int density = tile.density;
+        int gridSize = density + 1;
+        int sideSize = density + 3;
+
+        double[] lats = computeGridCoordinates(tile.sector.getMinLatitude().radians,
+            tile.sector.getMaxLatitude().radians, gridSize);
+        double[] lons = computeGridCoordinates(tile.sector.getMinLongitude().radians,
+            tile.sector.getMaxLongitude().radians, gridSize);
+
+        ArrayList<LatLon> latlons = new ArrayList<LatLon>(gridSize * gridSize);
+        for (int j = 0; j < gridSize; j++)
+        {
+            for (int i = 0; i < gridSize; i++)
+            {
+                latlons.add(LatLon.fromRadians(lats[j], lons[i]));
+            }
         }
 
-        ArrayList<LatLon> latlons = this.computeLocations(tile);
-        double[] elevations = new double[latlons.size()];
-        dc.getGlobe().getElevations(tile.sector, latlons, tile.getResolution(), elevations);
+        double[] elevations = new double[gridSize * gridSize];
+        globe.getElevations(tile.sector, latlons, tile.getResolution(), elevations);
 
-        double verticalExaggeration = dc.getVerticalExaggeration();
+        for (int k = 0; k < elevations.length; k++)
+        {
+            elevations[k] *= build.verticalExaggeration;
+        }
+
+        Vec4[] points = new Vec4[gridSize * gridSize];
+        globe.computePointsFromPositions(tile.sector, gridSize, gridSize, elevations, points);
 
         // When making skirts, apply vertical exaggeration to the skirt depth only if the exaggeration is 0 or less. If
         // applied to positive exaggerations, the skirt base might rise above the terrain at positive elevations if the
@@ -712,45 +1040,67 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         // minimum, then exaggeration will push the skirt bases above 0. That the globe reports a minimum elevation that
         // is not its true minimum is a bug, and this constraint on applying exaggeration to the minimum here is a
         // workaround for that bug. See WWJINT-435.
-        Double exaggeratedMinElevation = makeSkirts ? globe.getMinElevation() : null;
-        if (exaggeratedMinElevation != null && (exaggeratedMinElevation < 0 || verticalExaggeration <= 0))
-            exaggeratedMinElevation *= verticalExaggeration;
+        Double exaggeratedMinElevation = build.makeSkirts ? globe.getMinElevation() : null;
+        if (exaggeratedMinElevation != null && (exaggeratedMinElevation < 0 || build.verticalExaggeration <= 0))
+            exaggeratedMinElevation *= build.verticalExaggeration;
 
         LatLon centroid = tile.sector.getCentroid();
         Vec4 refCenter = globe.computePointFromPosition(centroid.getLatitude(), centroid.getLongitude(), 0d);
 
-        int ie = 0;
+        float[] coords = new float[sideSize * sideSize * 3];
         int iv = 0;
-        Iterator<LatLon> latLonIter = latlons.iterator();
-        for (int j = 0; j <= density + 2; j++)
+        for (int j = 0; j < sideSize; j++)
         {
-            for (int i = 0; i <= density + 2; i++)
+            int row = Math.min(Math.max(j - 1, 0), density);
+            for (int i = 0; i < sideSize; i++)
             {
-                LatLon latlon = latLonIter.next();
-                double elevation = verticalExaggeration * elevations[ie++];
+                int col = Math.min(Math.max(i - 1, 0), density);
 
                 // Tile edges use min elevation to draw the skirts
-                if (exaggeratedMinElevation != null &&
-                    (j == 0 || j >= tile.density + 2 || i == 0 || i >= tile.density + 2))
-                    elevation = exaggeratedMinElevation;
-
-                Vec4 p = globe.computePointFromPosition(latlon.getLatitude(), latlon.getLongitude(), elevation);
-                verts.put(iv++, (float) (p.x - refCenter.x));
-                verts.put(iv++, (float) (p.y - refCenter.y));
-                verts.put(iv++, (float) (p.z - refCenter.z));
+                Vec4 p;
+                if (exaggeratedMinElevation != null && (j == 0 || j == sideSize - 1 || i == 0 || i == sideSize - 1))
+                    p = globe.computePointFromPosition(Angle.fromRadians(lats[row]), Angle.fromRadians(lons[col]),
+                        exaggeratedMinElevation);
+                else
+                    p = points[row * gridSize + col];
+
+                coords[iv++] = (float) (p.x - refCenter.x);
+                coords[iv++] = (float) (p.y - refCenter.y);
+                coords[iv++] = (float) (p.z - refCenter.z);
             }
         }
 
-        verts.rewind();
+        if (build.vertices == null)
+            build.vertices = Buffers.newDirectFloatBuffer(coords.length);
 
-        if (tile.ri != null)
+        build.vertices.rewind();
+        build.vertices.put(coords);
+        build.vertices.rewind();
+        build.referenceCenter = refCenter;
+    }
+
+    /**
+     * Computes evenly spaced coordinates between two values, in the same way as {@link
+     * Globe#computePointsFromPositions(Sector, int, int, double[], Vec4[])} so that the coordinates match the points
+     * it computes.
+     *
+     * @param min   the first coordinate.
+     * @param max   the last coordinate.
+     * @param count the number of coordinates.
+     *
+     * @return the coordinates.
+     */
+    protected static double[] computeGridCoordinates(double min, double max, int count)
+    {
+        double[] coords = new double[count];
+        double delta = (max - min) / (count > 1 ? count - 1 : 1);
+        double value = min;
+        for (int i = 0; i < count; i++, value += delta)
         {
-            tile.ri.update(dc);
-            return false;
+            coords[i] = (i == count - 1) ? max : value; // explicitly set the last value to ensure alignment
         }
 
-        tile.ri = new RenderInfo(dc, density, verts, refCenter);
-        return true;
+        return coords;
     }
 
     protected ArrayList<LatLon> computeLocations(RectTile tile)
@@ -31,7 +31,7 @@ package gov.nasa.worldwind.terrain;
 import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.geom.*;
 
-import java.util.List;
+import java.util.*;
 
 /**
  * An elevation model that always returns zero elevations.
@@ -80,6 +80,31 @@ public class ZeroElevationModel extends AbstractElevationModel
         return this.getElevations(sector, latlons, targetResolution, buffer);
     }
 
+    @Override
+    public double getElevations(Sector sector, double[] latitudes, double[] longitudes, double targetResolution,
+        double[] buffer)
+    {
+        validateLocationArrays(latitudes, longitudes, buffer);
+
+        for (int i = 0; i < latitudes.length; i++)
+        {
+            if (!Double.isNaN(latitudes[i]) && !Double.isNaN(longitudes[i]))
+                buffer[i] = 0;
+        }
+
+        // Mark the model as used this frame.
+        this.setValue(AVKey.FRAME_TIMESTAMP, System.currentTimeMillis());
+
+        return 0;
+    }
+
+    @Override
+    public double getUnmappedElevations(Sector sector, double[] latitudes, double[] longitudes,
+        double targetResolution, double[] buffer)
+    {
+        return this.getElevations(sector, latitudes, longitudes, targetResolution, buffer);
+    }
+
     public int intersects(Sector sector)
     {
         return 0;
@@ -0,0 +1,838 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.terrain.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A quadtree that may be queried by any number of threads while other threads add, move and remove items. It indexes
+ * the same cells as {@link BasicQuadTree} and offers the same queries, but queries take no locks: each query keeps its
+ * traversal state on its own stack, and reads cells whose item arrays are replaced rather than modified when the tree
+ * changes. Changes are serialized with one another.
+ * <p>
+ * Each item is held in the tree once. Adding an item that is already in the tree moves it to the new location, which
+ * costs nothing when the item stays within the same cells. {@link #addAll(java.util.Map)} and {@link
+ * #moveAll(java.util.Map)} add or move many items at once, replacing each affected cell's item array only once.
+ * <p>
+ * Queries are weakly consistent: a query that runs while items are being moved may miss a moving item or see it at
+ * both its old and new locations, but never sees an item that was not in the tree at some point during the query.
+ * <p>
+ * The tree allocates a counter for every cell and an item array reference for every leaf cell, so its memory grows by
+ * a factor of four with each level. Eight levels, about 75 km cells on the Earth, need less than 1 MB.
+ *
+ * @param <T> the type of item held in the tree.
+ *
+ * @version $Id$
+ */
+public class ConcurrentQuadTree<T> implements Iterable<T>
+{
+    protected static final Object[] EMPTY = new Object[0];
+
+    protected final int numLevels;
+    protected final int maxLevel;
+    protected final int[] levelSizes;
+    protected final double[][] levelZeroCells;
+    protected final boolean allowDuplicates;
+    /** The number of leaf-cell item memberships beneath each cell, indexed by the cell's bit position. */
+    protected final AtomicIntegerArray occupancy;
+    /** The items in each leaf cell, indexed by the cell's position within the leaf level. */
+    protected final AtomicReferenceArray<Object[]> leafItems;
+    /** The leaf cells each item is in. */
+    protected final ConcurrentHashMap<T, int[]> itemCells = new ConcurrentHashMap<T, int[]>();
+    protected final ConcurrentHashMap<String, T> nameMap = new ConcurrentHashMap<String, T>();
+    protected final ConcurrentHashMap<T, String> itemNames = new ConcurrentHashMap<T, String>();
+    protected final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Constructs a quadtree of a specified level and spanning a specified region. See {@link
+     * BasicQuadTree#BasicQuadTree(int, gov.nasa.worldwind.geom.Sector, java.util.Map)} for a description of the number
+     * of levels.
+     *
+     * @param numLevels the number of levels in the quadtree.
+     * @param sector    the region the tree spans.
+     *
+     * @throws IllegalArgumentException if <code>numLevels</code> is less than 1 or the sector is null.
+     */
+    public ConcurrentQuadTree(int numLevels, Sector sector)
+    {
+        this(numLevels, sector, true);
+    }
+
+    /**
+     * Constructs a quadtree of a specified level and spanning a specified region.
+     *
+     * @param numLevels       the number of levels in the quadtree.
+     * @param sector          the region the tree spans.
+     * @param allowDuplicates true to associate items whose coordinates fall on a cell boundary with every cell they
+     *                        touch, false to associate them with only the first. See {@link
+     *                        BasicQuadTree#BasicQuadTree(int, gov.nasa.worldwind.geom.Sector, java.util.Map,
+     *                        boolean)}. Queries never return an item more than once.
+     *
+     * @throws IllegalArgumentException if <code>numLevels</code> is less than 1 or the sector is null.
+     */
+    public ConcurrentQuadTree(int numLevels, Sector sector, boolean allowDuplicates)
+    {
+        if (numLevels < 1)
+        {
+            String message = Logging.getMessage("generic.DepthOutOfRange", numLevels);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.numLevels = numLevels;
+        this.maxLevel = numLevels - 1;
+        this.levelSizes = BitSetQuadTreeFilter.computeLevelSizes(numLevels);
+        this.allowDuplicates = allowDuplicates;
+        this.occupancy = new AtomicIntegerArray(this.levelSizes[numLevels]);
+        this.leafItems = new AtomicReferenceArray<Object[]>(this.levelSizes[numLevels] - this.levelSizes[maxLevel]);
+
+        // Order the level-zero cells as BasicQuadTree does so that cell positions are the same in both trees.
+        Sector[] subSectors = sector.subdivide();
+        this.levelZeroCells = new double[][] {subSectors[0].asDegreesArray(), subSectors[1].asDegreesArray(),
+            subSectors[3].asDegreesArray(), subSectors[2].asDegreesArray()};
+    }
+
+    /**
+     * Returns the number of levels in the tree.
+     *
+     * @return the number of levels in the tree.
+     */
+    public int getNumLevels()
+    {
+        return this.numLevels;
+    }
+
+    /**
+     * Indicates whether the tree contains any items.
+     *
+     * @return true if the tree contains items, otherwise false.
+     */
+    public boolean hasItems()
+    {
+        return !this.itemCells.isEmpty();
+    }
+
+    /**
+     * Returns the number of items in the tree.
+     *
+     * @return the number of items in the tree.
+     */
+    public int size()
+    {
+        return this.itemCells.size();
+    }
+
+    /**
+     * Indicates whether an item is contained in the tree.
+     *
+     * @param item the item to check. If null, false is returned.
+     *
+     * @return true if the item is in the tree, otherwise false.
+     */
+    public boolean contains(T item)
+    {
+        return item != null && this.itemCells.containsKey(item);
+    }
+
+    /**
+     * Returns a named item.
+     *
+     * @param name the item name. If null, null is returned.
+     *
+     * @return the named item, or null if the item is not in the tree or the specified name is null.
+     */
+    public T getByName(String name)
+    {
+        return name != null ? this.nameMap.get(name) : null;
+    }
+
+    /**
+     * Adds an item to the tree, or moves it if it's already in the tree.
+     *
+     * @param item       the item to add.
+     * @param itemCoords an array specifying the region or location of the item. If the array's length is 2 it
+     *                   represents a location in [latitude, longitude]. If its length is 4 it represents a region as
+     *                   [minimum latitude, maximum latitude, minimum longitude, maximum longitude].
+     *
+     * @throws IllegalArgumentException if either <code>item</code> or <code>itemCoords</code> is null.
+     */
+    public void add(T item, double[] itemCoords)
+    {
+        this.add(item, itemCoords, null);
+    }
+
+    /**
+     * Adds a named item to the tree, or moves it if it's already in the tree. Any name duplicates replace the current
+     * name association; the name then refers to the item added.
+     *
+     * @param item       the item to add.
+     * @param itemCoords an array specifying the region or location of the item. See {@link #add(Object, double[])}.
+     * @param itemName   the item name. If null, the item's name, if any, is not changed.
+     *
+     * @throws IllegalArgumentException if either <code>item</code> or <code>itemCoords</code> is null.
+     */
+    public void add(T item, double[] itemCoords, String itemName)
+    {
+        this.checkItem(item, itemCoords);
+
+        int[] cells = this.computeLeafCells(itemCoords);
+
+        this.writeLock.lock();
+        try
+        {
+            int[] previous = this.itemCells.put(item, cells);
+            if (previous == null)
+            {
+                this.addToCells(item, cells);
+            }
+            else if (!Arrays.equals(previous, cells))
+            {
+                this.addToCells(item, cells);
+                this.removeFromCells(item, previous);
+            }
+
+            if (itemName != null)
+            {
+                T replaced = this.nameMap.put(itemName, item);
+                if (replaced != null && !replaced.equals(item))
+                    this.itemNames.remove(replaced, itemName);
+
+                String oldName = this.itemNames.put(item, itemName);
+                if (oldName != null && !oldName.equals(itemName))
+                    this.nameMap.remove(oldName, item);
+            }
+        }
+        finally
+        {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds many items to the tree, or moves them if they're already in the tree. Each affected cell is updated once.
+     *
+     * @param itemCoords a map of items to arrays specifying their regions or locations. See {@link #add(Object,
+     *                   double[])}.
+     *
+     * @throws IllegalArgumentException if the map is null, or contains a null item or null coordinates.
+     */
+    public void addAll(Map<? extends T, double[]> itemCoords)
+    {
+        this.updateAll(itemCoords, true);
+    }
+
+    /**
+     * Moves many items already in the tree to new locations. Items in the map that are not in the tree are ignored.
+     * Each affected cell is updated once.
+     *
+     * @param itemCoords a map of items to arrays specifying their new regions or locations. See {@link #add(Object,
+     *                   double[])}.
+     *
+     * @return the number of items moved to different cells.
+     *
+     * @throws IllegalArgumentException if the map is null, or contains a null item or null coordinates.
+     */
+    public int moveAll(Map<? extends T, double[]> itemCoords)
+    {
+        return this.updateAll(itemCoords, false);
+    }
+
+    protected int updateAll(Map<? extends T, double[]> itemCoords, boolean insert)
+    {
+        if (itemCoords == null)
+        {
+            String message = Logging.getMessage("nullValue.MapIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // Compute the new cells before taking the lock, so that only the cell updates are serialized.
+        Map<T, int[]> newCells = new HashMap<T, int[]>(2 * itemCoords.size());
+        for (Map.Entry<? extends T, double[]> entry : itemCoords.entrySet())
+        {
+            this.checkItem(entry.getKey(), entry.getValue());
+            newCells.put(entry.getKey(), this.computeLeafCells(entry.getValue()));
+        }
+
+        this.writeLock.lock();
+        try
+        {
+            Map<Integer, List<Object>> additions = new HashMap<Integer, List<Object>>();
+            Map<Integer, List<Object>> removals = new HashMap<Integer, List<Object>>();
+            int count = 0;
+
+            for (Map.Entry<T, int[]> entry : newCells.entrySet())
+            {
+                T item = entry.getKey();
+                int[] cells = entry.getValue();
+                int[] previous = insert ? this.itemCells.put(item, cells) : this.itemCells.replace(item, cells);
+
+                if (previous != null && Arrays.equals(previous, cells))
+                    continue;
+
+                if (previous == null && !insert)
+                    continue;
+
+                addToGroups(additions, item, cells);
+                if (previous != null)
+                    addToGroups(removals, item, previous);
+                count++;
+            }
+
+            // Decrement the counts of vacated cells first and increment those of occupied cells last, so that a
+            // concurrent query never finds a cell counted but empty of the item it counts.
+            for (Map.Entry<Integer, List<Object>> entry : removals.entrySet())
+            {
+                this.updateOccupancy(entry.getKey(), -entry.getValue().size());
+            }
+
+            Set<Integer> cells = new HashSet<Integer>(additions.keySet());
+            cells.addAll(removals.keySet());
+            for (Integer cell : cells)
+            {
+                this.replaceItems(cell, additions.get(cell), removals.get(cell));
+            }
+
+            for (Map.Entry<Integer, List<Object>> entry : additions.entrySet())
+            {
+                this.updateOccupancy(entry.getKey(), entry.getValue().size());
+            }
+
+            return count;
+        }
+        finally
+        {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes an item from the tree.
+     *
+     * @param item the item to remove. If null, no item is removed.
+     */
+    public void remove(T item)
+    {
+        if (item == null)
+            return;
+
+        this.writeLock.lock();
+        try
+        {
+            int[] cells = this.itemCells.remove(item);
+            if (cells != null)
+                this.removeFromCells(item, cells);
+
+            String name = this.itemNames.remove(item);
+            if (name != null)
+                this.nameMap.remove(name, item);
+        }
+        finally
+        {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes an item from the tree by name.
+     *
+     * @param name the name of the item to remove. If null, no item is removed.
+     */
+    public void removeByName(String name)
+    {
+        T item = this.getByName(name);
+        if (item != null)
+            this.remove(item);
+    }
+
+    /** Removes all items from the tree. */
+    public void clear()
+    {
+        this.writeLock.lock();
+        try
+        {
+            for (int i = 0; i < this.occupancy.length(); i++)
+            {
+                this.occupancy.set(i, 0);
+            }
+
+            for (int i = 0; i < this.leafItems.length(); i++)
+            {
+                this.leafItems.set(i, null);
+            }
+
+            this.itemCells.clear();
+            this.nameMap.clear();
+            this.itemNames.clear();
+        }
+        finally
+        {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over the items in the tree. The iterator is weakly consistent: it reflects some or all of
+     * the changes made to the tree while it's in use, and never returns an item more than once.
+     * <p>
+     * <em>Note</em> The {@link java.util.Iterator#remove()} operation is not supported.
+     *
+     * @return an iterator over the items in the tree.
+     */
+    public Iterator<T> iterator()
+    {
+        return Collections.unmodifiableSet(this.itemCells.keySet()).iterator();
+    }
+
+    /**
+     * Finds and returns the items within a tree cell containing a specified location.
+     *
+     * @param location the location of interest.
+     * @param outItems a {@link Set} in which to place the items. If null, a new set is created.
+     *
+     * @return the set of intersecting items. The same set passed as the <code>outItems</code> argument is returned, or
+     *         a new set if that argument is null.
+     *
+     * @throws IllegalArgumentException if <code>location</code> is null.
+     */
+    public Set<T> getItemsAtLocation(LatLon location, Set<T> outItems)
+    {
+        if (location == null)
+        {
+            String message = Logging.getMessage("nullValue.LatLonIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return this.findItems(location.asDegreesArray(), outItems != null ? outItems : new HashSet<T>());
+    }
+
+    /**
+     * Finds and returns the items within tree cells containing specified locations.
+     *
+     * @param locations the locations of interest.
+     * @param outItems  a {@link Set} in which to place the items. If null, a new set is created.
+     *
+     * @return the set of intersecting items. The same set passed as the <code>outItems</code> argument is returned, or
+     *         a new set if that argument is null.
+     *
+     * @throws IllegalArgumentException if <code>locations</code> is null.
+     */
+    public Set<T> getItemsAtLocation(Iterable<LatLon> locations, Set<T> outItems)
+    {
+        if (locations == null)
+        {
+            String message = Logging.getMessage("nullValue.LatLonListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (outItems == null)
+            outItems = new HashSet<T>();
+
+        for (LatLon location : locations)
+        {
+            if (location != null)
+                this.findItems(location.asDegreesArray(), outItems);
+        }
+
+        return outItems;
+    }
+
+    /**
+     * Finds and returns the items intersecting a specified sector.
+     *
+     * @param testSector the sector of interest.
+     * @param outItems   a {@link Set} in which to place the items. If null, a new set is created.
+     *
+     * @return the set of intersecting items. The same set passed as the <code>outItems</code> argument is returned, or
+     *         a new set if that argument is null.
+     *
+     * @throws IllegalArgumentException if <code>testSector</code> is null.
+     */
+    public Set<T> getItemsInRegion(Sector testSector, Set<T> outItems)
+    {
+        if (testSector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return this.findItems(testSector.asDegreesArray(), outItems != null ? outItems : new HashSet<T>());
+    }
+
+    /**
+     * Finds and returns the items intersecting a specified collection of sectors.
+     *
+     * @param testSectors the sectors of interest.
+     * @param outItems    a {@link Set} in which to place the items. If null, a new set is created.
+     *
+     * @return the set of intersecting items. The same set passed as the <code>outItems</code> argument is returned, or
+     *         a new set if that argument is null.
+     *
+     * @throws IllegalArgumentException if <code>testSectors</code> is null.
+     */
+    public Set<T> getItemsInRegions(Iterable<Sector> testSectors, Set<T> outItems)
+    {
+        if (testSectors == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (outItems == null)
+            outItems = new HashSet<T>();
+
+        for (Sector testSector : testSectors)
+        {
+            if (testSector != null)
+                this.findItems(testSector.asDegreesArray(), outItems);
+        }
+
+        return outItems;
+    }
+
+    /**
+     * Finds and returns the items intersecting a specified collection of {@link SectorGeometry}.
+     *
+     * @param geometryList the list of sector geometry.
+     * @param outItems     a {@link Set} in which to place the items. If null, a new set is created.
+     *
+     * @return the set of intersecting items. The same set passed as the <code>outItems</code> argument is returned, or
+     *         a new set if that argument is null.
+     *
+     * @throws IllegalArgumentException if <code>geometryList</code> is null.
+     */
+    public Set<T> getItemsInRegions(SectorGeometryList geometryList, Set<T> outItems)
+    {
+        if (geometryList == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorGeometryListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (outItems == null)
+            outItems = new HashSet<T>();
+
+        for (SectorGeometry testSector : geometryList)
+        {
+            if (testSector != null)
+                this.findItems(testSector.getSector().asDegreesArray(), outItems);
+        }
+
+        return outItems;
+    }
+
+    protected void checkItem(T item, double[] itemCoords)
+    {
+        if (item == null)
+        {
+            String message = Logging.getMessage("nullValue.ItemIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (itemCoords == null)
+        {
+            String message = Logging.getMessage("nullValue.CoordinatesAreNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Computes the leaf cells an item belongs to.
+     *
+     * @param itemCoords the item's region or location.
+     *
+     * @return the positions within the leaf level of the cells the item intersects, in ascending order.
+     */
+    protected int[] computeLeafCells(double[] itemCoords)
+    {
+        IntList cells = new IntList();
+
+        for (int i = 0; i < this.levelZeroCells.length; i++)
+        {
+            if (this.collectLeafCells(0, i, this.levelZeroCells[i], itemCoords, cells) && !this.allowDuplicates)
+                break;
+        }
+
+        int[] result = cells.toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Collects the leaf cells intersecting an item, beneath and including a specified cell.
+     *
+     * @param level      the cell's level.
+     * @param index      the cell's position within its level.
+     * @param cellRegion the cell's region.
+     * @param itemCoords the item's region or location.
+     * @param cells      the list to add leaf cell positions to.
+     *
+     * @return true if traversal should stop because duplicates are not allowed and a leaf cell was found.
+     */
+    protected boolean collectLeafCells(int level, int index, double[] cellRegion, double[] itemCoords, IntList cells)
+    {
+        if (!intersects(cellRegion, itemCoords))
+            return false;
+
+        if (level == this.maxLevel)
+        {
+            cells.add(index);
+            return !this.allowDuplicates;
+        }
+
+        for (int position = 0; position < 4; position++)
+        {
+            if (this.collectLeafCells(level + 1, 4 * index + position, subRegion(cellRegion, position), itemCoords,
+                cells))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds the items in the occupied leaf cells intersecting a region or location to a set. Traversal state is kept on
+     * the calling thread's stack, so any number of threads may query the tree at once.
+     *
+     * @param testCoords the region or location of interest.
+     * @param outItems   the set to add items to.
+     *
+     * @return the set passed as <code>outItems</code>.
+     */
+    protected Set<T> findItems(double[] testCoords, Set<T> outItems)
+    {
+        for (int i = 0; i < this.levelZeroCells.length; i++)
+        {
+            this.findItems(0, i, this.levelZeroCells[i], testCoords, outItems);
+        }
+
+        return outItems;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected void findItems(int level, int index, double[] cellRegion, double[] testCoords, Set<T> outItems)
+    {
+        if (this.occupancy.get(index + this.levelSizes[level]) == 0 || !intersects(cellRegion, testCoords))
+            return;
+
+        if (level == this.maxLevel)
+        {
+            Object[] items = this.leafItems.get(index);
+            if (items != null)
+            {
+                for (Object item : items)
+                {
+                    outItems.add((T) item);
+                }
+            }
+            return;
+        }
+
+        for (int position = 0; position < 4; position++)
+        {
+            this.findItems(level + 1, 4 * index + position, subRegion(cellRegion, position), testCoords, outItems);
+        }
+    }
+
+    protected void addToCells(T item, int[] cells)
+    {
+        for (int cell : cells)
+        {
+            this.replaceItems(cell, Collections.<Object>singletonList(item), null);
+            this.updateOccupancy(cell, 1);
+        }
+    }
+
+    protected void removeFromCells(T item, int[] cells)
+    {
+        for (int cell : cells)
+        {
+            this.updateOccupancy(cell, -1);
+            this.replaceItems(cell, null, Collections.<Object>singletonList(item));
+        }
+    }
+
+    /**
+     * Replaces a leaf cell's item array with a copy that has items added and removed. Must be called with the write
+     * lock held.
+     *
+     * @param cell     the leaf cell's position within the leaf level.
+     * @param added    the items to add. May be null.
+     * @param removed  the items to remove. May be null.
+     */
+    protected void replaceItems(int cell, List<Object> added, List<Object> removed)
+    {
+        Object[] items = this.leafItems.get(cell);
+        if (items == null)
+            items = EMPTY;
+
+        int numRemoved = removed != null ? removed.size() : 0;
+        int numAdded = added != null ? added.size() : 0;
+        Object[] newItems = new Object[items.length + numAdded];
+        int n = 0;
+
+        if (numRemoved == 0)
+        {
+            System.arraycopy(items, 0, newItems, 0, items.length);
+            n = items.length;
+        }
+        else
+        {
+            Collection<Object> removeSet = numRemoved > 8 ? new HashSet<Object>(removed) : removed;
+            for (Object item : items)
+            {
+                if (!removeSet.contains(item))
+                    newItems[n++] = item;
+            }
+        }
+
+        for (int i = 0; i < numAdded; i++)
+        {
+            newItems[n++] = added.get(i);
+        }
+
+        if (n == 0)
+            newItems = null;
+        else if (n < newItems.length)
+            newItems = Arrays.copyOf(newItems, n);
+
+        this.leafItems.set(cell, newItems);
+    }
+
+    /**
+     * Adjusts the occupancy counts of a leaf cell and all of its ancestors.
+     *
+     * @param cell  the leaf cell's position within the leaf level.
+     * @param delta the change in the number of items in the cell.
+     */
+    protected void updateOccupancy(int cell, int delta)
+    {
+        // A cell's parent is at a quarter of its position in the level above.
+        int index = cell;
+        for (int level = this.maxLevel; level >= 0; level--)
+        {
+            this.occupancy.addAndGet(index + this.levelSizes[level], delta);
+            index /= 4;
+        }
+    }
+
+    protected static void addToGroups(Map<Integer, List<Object>> groups, Object item, int[] cells)
+    {
+        for (int cell : cells)
+        {
+            List<Object> list = groups.get(cell);
+            if (list == null)
+            {
+                list = new ArrayList<Object>();
+                groups.put(cell, list);
+            }
+
+            list.add(item);
+        }
+    }
+
+    /**
+     * Computes the region of one of a cell's four children. Positions are numbered as in {@link BasicQuadTree}: 0 is
+     * the southwest child, 1 southeast, 2 northeast and 3 northwest.
+     *
+     * @param cellRegion the parent cell's region.
+     * @param position   the child's position.
+     *
+     * @return the child's region.
+     */
+    protected static double[] subRegion(double[] cellRegion, int position)
+    {
+        double latMid = (cellRegion[1] + cellRegion[0]) / 2;
+        double lonMid = (cellRegion[3] + cellRegion[2]) / 2;
+
+        boolean north = position >= 2;
+        boolean east = position == 1 || position == 2;
+
+        return new double[] {
+            north ? latMid : cellRegion[0], north ? cellRegion[1] : latMid,
+            east ? lonMid : cellRegion[2], east ? cellRegion[3] : lonMid};
+    }
+
+    /**
+     * Determines whether an item intersects a cell, as {@link BitSetQuadTreeFilter} does.
+     *
+     * @param cellRegion the cell's region.
+     * @param itemCoords the item's region or location.
+     *
+     * @return true if the item intersects the cell, otherwise false.
+     */
+    protected static boolean intersects(double[] cellRegion, double[] itemCoords)
+    {
+        if (itemCoords.length == 4) // treat test region as a sector
+            return !(itemCoords[1] < cellRegion[0] || itemCoords[0] > cellRegion[1]
+                || itemCoords[3] < cellRegion[2] || itemCoords[2] > cellRegion[3]);
+        else // assume test region is a 2-tuple location
+            return itemCoords[0] >= cellRegion[0] && itemCoords[0] <= cellRegion[1]
+                && itemCoords[1] >= cellRegion[2] && itemCoords[1] <= cellRegion[3];
+    }
+
+    /** A growable list of ints, used to collect cell positions without boxing. */
+    protected static class IntList
+    {
+        protected int[] values = new int[4];
+        protected int size;
+
+        public void add(int value)
+        {
+            if (this.size == this.values.length)
+                this.values = Arrays.copyOf(this.values, 2 * this.size);
+
+            this.values[this.size++] = value;
+        }
+
+        public int[] toArray()
+        {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import java.nio.*;
+import java.util.*;
+
+/**
+ * A pool of direct byte buffers grouped in power-of-two size classes. {@link #acquire(int)} returns a buffer from the
+ * smallest class that fits the requested size, allocating one only when the class is empty. Buffers returned with
+ * {@link #release(java.nio.ByteBuffer)} are kept for reuse until the pool holds its capacity in bytes, after which
+ * further released buffers are left to the garbage collector. Pooling avoids the cost of allocating and collecting
+ * direct memory for short-lived buffers of similar sizes, such as decoded texture images.
+ * <p>
+ * Buffers are returned in native byte order, with their position zero and their limit the requested size.
+ *
+ * @version $Id$
+ */
+public class DirectBufferPool
+{
+    /** The smallest size class, in bytes. Smaller requests are rounded up to this size. */
+    protected static final int MIN_CLASS_SIZE = 4096;
+    /** The largest size class, in bytes. Larger buffers are allocated exactly and are not pooled. */
+    protected static final int MAX_CLASS_SIZE = 1 << 30;
+
+    protected final long capacity;
+    protected final List<ArrayDeque<ByteBuffer>> classes;
+    protected long pooledBytes;
+    protected long hits;
+    protected long misses;
+    protected long discarded;
+
+    /**
+     * Creates a pool that keeps at most a specified number of bytes of released buffers.
+     *
+     * @param capacity the maximum number of bytes held by the pool.
+     *
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public DirectBufferPool(long capacity)
+    {
+        if (capacity < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "capacity=" + capacity);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.capacity = capacity;
+        int numClasses = Integer.numberOfTrailingZeros(MAX_CLASS_SIZE) + 1;
+        this.classes = new ArrayList<ArrayDeque<ByteBuffer>>(numClasses);
+        for (int i = 0; i < numClasses; i++)
+        {
+            this.classes.add(new ArrayDeque<ByteBuffer>());
+        }
+    }
+
+    /**
+     * Returns a direct buffer with at least the specified number of bytes remaining.
+     *
+     * @param size the number of bytes needed.
+     *
+     * @return a direct buffer whose limit is <code>size</code>.
+     *
+     * @throws IllegalArgumentException if the size is negative.
+     */
+    public ByteBuffer acquire(int size)
+    {
+        if (size < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "size=" + size);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int classSize = classSize(size);
+        ByteBuffer buffer = null;
+
+        if (classSize > 0)
+        {
+            synchronized (this)
+            {
+                buffer = this.classes.get(Integer.numberOfTrailingZeros(classSize)).poll();
+
+                if (buffer != null)
+                {
+                    this.pooledBytes -= classSize;
+                    this.hits++;
+                }
+                else
+                {
+                    this.misses++;
+                }
+            }
+        }
+
+        if (buffer == null)
+            buffer = ByteBuffer.allocateDirect(classSize > 0 ? classSize : size).order(ByteOrder.nativeOrder());
+
+        buffer.clear().limit(size);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers that were not allocated by a pool, and buffers that would exceed the pool's
+     * capacity, are ignored. The caller must not use the buffer after releasing it.
+     *
+     * @param buffer the buffer to release. May be null.
+     */
+    public void release(ByteBuffer buffer)
+    {
+        if (buffer == null || !buffer.isDirect())
+            return;
+
+        int classSize = buffer.capacity();
+        if (classSize < MIN_CLASS_SIZE || classSize > MAX_CLASS_SIZE || Integer.bitCount(classSize) != 1)
+            return;
+
+        synchronized (this)
+        {
+            if (this.pooledBytes + classSize > this.capacity)
+            {
+                this.discarded++;
+                return;
+            }
+
+            this.classes.get(Integer.numberOfTrailingZeros(classSize)).push(buffer);
+            this.pooledBytes += classSize;
+        }
+    }
+
+    /** Releases all pooled buffers to the garbage collector. */
+    public synchronized void clear()
+    {
+        for (ArrayDeque<ByteBuffer> deque : this.classes)
+        {
+            deque.clear();
+        }
+
+        this.pooledBytes = 0;
+    }
+
+    /**
+     * Indicates the maximum number of bytes held by this pool.
+     *
+     * @return this pool's capacity, in bytes.
+     */
+    public long getCapacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * Indicates the number of bytes currently held by this pool.
+     *
+     * @return the size of the pooled buffers, in bytes.
+     */
+    public synchronized long getPooledBytes()
+    {
+        return this.pooledBytes;
+    }
+
+    /**
+     * Indicates the number of requests satisfied by a pooled buffer.
+     *
+     * @return the number of pool hits.
+     */
+    public synchronized long getHitCount()
+    {
+        return this.hits;
+    }
+
+    /**
+     * Indicates the number of requests that allocated a new buffer.
+     *
+     * @return the number of pool misses.
+     */
+    public synchronized long getMissCount()
+    {
+        return this.misses;
+    }
+
+    /**
+     * Indicates the number of released buffers not kept because the pool was at capacity.
+     *
+     * @return the number of discarded buffers.
+     */
+    public synchronized long getDiscardCount()
+    {
+        return this.discarded;
+    }
+
+    /**
+     * Computes the size class for a request.
+     *
+     * @param size the requested size, in bytes.
+     *
+     * @return the class size, or 0 if the request is too large to be pooled.
+     */
+    protected static int classSize(int size)
+    {
+        if (size <= MIN_CLASS_SIZE)
+            return MIN_CLASS_SIZE;
+
+        if (size > MAX_CLASS_SIZE)
+            return 0;
+
+        return Integer.highestOneBit(size - 1) << 1;
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import com.jogamp.opengl.*;
+import com.jogamp.opengl.util.texture.TextureData;
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
+
+import javax.imageio.ImageIO;
+import java.awt.image.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Decodes images into texture data whose pixels are held in direct buffers drawn from a {@link DirectBufferPool}. The
+ * number of images decoded at once is limited independently of the threads that request decoding, so decoding can be
+ * bounded separately from retrieval and task execution. Decoded texture data is returned as {@link PooledTextureData},
+ * whose buffer is returned to the pool by calling {@link PooledTextureData#release()} once the data has been converted
+ * to a texture or is no longer needed.
+ * <p>
+ * The pixels of decoded images are stored as 8-bit RGBA with premultiplied alpha, matching the texture data produced
+ * by JOGL for images with an alpha channel. Images that ImageIO can't decode, such as DDS files, are not handled here
+ * and should be read with {@link OGLUtil#newTextureData(com.jogamp.opengl.GLProfile, java.io.InputStream, boolean)}.
+ * <p>
+ * The decoder used by WorldWind's layers is available from {@link gov.nasa.worldwind.WorldWind#getTextureDecoder()}.
+ * Its parallelism and pool capacity are given by the configuration properties {@link AVKey#TEXTURE_DECODER_POOL_SIZE}
+ * and {@link AVKey#TEXTURE_BUFFER_POOL_SIZE}.
+ *
+ * @version $Id$
+ */
+public class TextureDecoder
+{
+    /** Texture data whose buffer is borrowed from a {@link DirectBufferPool}. */
+    public static class PooledTextureData extends TextureData
+    {
+        protected final DirectBufferPool pool;
+        protected final AtomicReference<ByteBuffer> pooledBuffer;
+
+        public PooledTextureData(GLProfile glp, int internalFormat, int width, int height, boolean mipmap,
+            ByteBuffer buffer, DirectBufferPool pool)
+        {
+            super(glp, internalFormat, width, height, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, mipmap, false, true,
+                buffer.slice(), null);
+            this.pool = pool;
+            this.pooledBuffer = new AtomicReference<ByteBuffer>(buffer);
+        }
+
+        /**
+         * Takes ownership of the pooled buffer. Exactly one caller obtains the buffer, and is responsible for
+         * returning it to the pool with {@link DirectBufferPool#release(java.nio.ByteBuffer)}. Callers that convert
+         * the data to a texture take the buffer first, and skip the conversion if the buffer has already been
+         * released.
+         *
+         * @return the pooled buffer, or null if it has already been taken or released.
+         */
+        public ByteBuffer take()
+        {
+            return this.pooledBuffer.getAndSet(null);
+        }
+
+        /**
+         * Indicates whether this data's buffer has been taken or released.
+         *
+         * @return true if the buffer is no longer available, otherwise false.
+         */
+        public boolean isReleased()
+        {
+            return this.pooledBuffer.get() == null;
+        }
+
+        /**
+         * Returns this data's buffer to the pool, unless it has already been taken or released.
+         *
+         * @return true if the buffer was returned by this call, otherwise false.
+         */
+        public boolean release()
+        {
+            ByteBuffer buffer = this.take();
+            if (buffer == null)
+                return false;
+
+            this.pool.release(buffer);
+            return true;
+        }
+
+        /**
+         * Returns the pool this data's buffer was drawn from.
+         *
+         * @return the buffer pool.
+         */
+        public DirectBufferPool getPool()
+        {
+            return this.pool;
+        }
+    }
+
+    /** Decode counts and times, accumulated since the decoder was created. */
+    public static class Statistics
+    {
+        protected long decodeCount;
+        protected long decodeNanos;
+        protected long maxDecodeNanos;
+        protected long waitNanos;
+        protected long decodedBytes;
+
+        /**
+         * Indicates the number of images decoded.
+         *
+         * @return the number of images decoded.
+         */
+        public long getDecodeCount()
+        {
+            return this.decodeCount;
+        }
+
+        /**
+         * Indicates the total time spent decoding images, not including time waiting to decode.
+         *
+         * @return the total decode time, in nanoseconds.
+         */
+        public long getDecodeNanos()
+        {
+            return this.decodeNanos;
+        }
+
+        /**
+         * Indicates the longest time spent decoding a single image.
+         *
+         * @return the maximum decode time, in nanoseconds.
+         */
+        public long getMaxDecodeNanos()
+        {
+            return this.maxDecodeNanos;
+        }
+
+        /**
+         * Indicates the total time callers waited for a decoder to become available.
+         *
+         * @return the total wait time, in nanoseconds.
+         */
+        public long getWaitNanos()
+        {
+            return this.waitNanos;
+        }
+
+        /**
+         * Indicates the total size of the decoded texture data.
+         *
+         * @return the number of bytes of texture data produced.
+         */
+        public long getDecodedBytes()
+        {
+            return this.decodedBytes;
+        }
+    }
+
+    /**
+     * The default maximum number of images decoded at once. Decoding runs on the retrieval and task service threads,
+     * so this is kept below the size of those pools to leave threads free for other work.
+     */
+    protected static final int DEFAULT_PARALLELISM = 2;
+    /** The default maximum number of bytes held by the buffer pool. */
+    protected static final long DEFAULT_BUFFER_POOL_SIZE = 32L << 20;
+
+    protected final int parallelism;
+    protected final Semaphore permits;
+    protected final DirectBufferPool bufferPool;
+    protected final AtomicLong decodeCount = new AtomicLong();
+    protected final AtomicLong decodeNanos = new AtomicLong();
+    protected final AtomicLong maxDecodeNanos = new AtomicLong();
+    protected final AtomicLong waitNanos = new AtomicLong();
+    protected final AtomicLong decodedBytes = new AtomicLong();
+
+    /**
+     * Creates a decoder configured from the WorldWind configuration properties {@link
+     * AVKey#TEXTURE_DECODER_POOL_SIZE} and {@link AVKey#TEXTURE_BUFFER_POOL_SIZE}. If not specified, the parallelism is
+     * 2 and the buffer pool holds 32 MB, as in the default configuration.
+     */
+    public TextureDecoder()
+    {
+        this(Configuration.getIntegerValue(AVKey.TEXTURE_DECODER_POOL_SIZE, DEFAULT_PARALLELISM),
+            new DirectBufferPool(Configuration.getLongValue(AVKey.TEXTURE_BUFFER_POOL_SIZE,
+                DEFAULT_BUFFER_POOL_SIZE)));
+    }
+
+    /**
+     * Creates a decoder with a specified parallelism and buffer pool.
+     *
+     * @param parallelism the maximum number of images decoded at once.
+     * @param bufferPool  the pool to draw texture data buffers from.
+     *
+     * @throws IllegalArgumentException if the parallelism is less than 1 or the buffer pool is null.
+     */
+    public TextureDecoder(int parallelism, DirectBufferPool bufferPool)
+    {
+        if (parallelism < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "parallelism=" + parallelism);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (bufferPool == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.parallelism = parallelism;
+        this.permits = new Semaphore(parallelism);
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Indicates the maximum number of images this decoder decodes at once.
+     *
+     * @return this decoder's parallelism.
+     */
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * Returns the pool this decoder draws texture data buffers from.
+     *
+     * @return the buffer pool.
+     */
+    public DirectBufferPool getBufferPool()
+    {
+        return this.bufferPool;
+    }
+
+    /**
+     * Returns a snapshot of this decoder's counts and times.
+     *
+     * @return the decoder's statistics.
+     */
+    public Statistics getStatistics()
+    {
+        Statistics stats = new Statistics();
+        stats.decodeCount = this.decodeCount.get();
+        stats.decodeNanos = this.decodeNanos.get();
+        stats.maxDecodeNanos = this.maxDecodeNanos.get();
+        stats.waitNanos = this.waitNanos.get();
+        stats.decodedBytes = this.decodedBytes.get();
+        return stats;
+    }
+
+    /**
+     * Decodes an encoded image, such as a PNG or JPEG file, into texture data. Blocks until one of this decoder's
+     * permits is available.
+     *
+     * @param glp        the OpenGL profile the texture data is created for.
+     * @param encoded    the encoded image. Its bytes between its position and limit are read; its position is not
+     *                   changed.
+     * @param useMipMaps true to have mip-maps generated when the texture data is converted to a texture.
+     *
+     * @return the texture data, or null if ImageIO can't decode the image.
+     *
+     * @throws IllegalArgumentException if the encoded image is null.
+     * @throws IOException              if an error occurs while decoding the image.
+     */
+    public PooledTextureData decode(GLProfile glp, ByteBuffer encoded, boolean useMipMaps) throws IOException
+    {
+        if (encoded == null)
+        {
+            String message = Logging.getMessage("nullValue.ByteBufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        long waitStart = System.nanoTime();
+        try
+        {
+            this.permits.acquire();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+
+        long start = System.nanoTime();
+        this.waitNanos.addAndGet(start - waitStart);
+
+        try
+        {
+            BufferedImage image = ImageIO.read(WWIO.getInputStreamFromByteBuffer(encoded.duplicate()));
+            if (image == null)
+                return null;
+
+            PooledTextureData data = this.createTextureData(glp, image, useMipMaps);
+
+            long elapsed = System.nanoTime() - start;
+            this.decodeCount.incrementAndGet();
+            this.decodeNanos.addAndGet(elapsed);
+            this.decodedBytes.addAndGet(data.getBuffer().capacity());
+            long max;
+            while (elapsed > (max = this.maxDecodeNanos.get()) && !this.maxDecodeNanos.compareAndSet(max, elapsed))
+            {
+                // Another thread updated the maximum. Try again.
+            }
+
+            return data;
+        }
+        finally
+        {
+            this.permits.release();
+        }
+    }
+
+    /**
+     * Copies an image into texture data backed by a pooled buffer, as rows of premultiplied 8-bit RGBA pixels from the
+     * image's top row to its bottom row.
+     *
+     * @param glp        the OpenGL profile the texture data is created for.
+     * @param image      the image to copy.
+     * @param useMipMaps true to have mip-maps generated when the texture data is converted to a texture.
+     *
+     * @return the texture data.
+     */
+    protected PooledTextureData createTextureData(GLProfile glp, BufferedImage image, boolean useMipMaps)
+    {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+
+        ByteBuffer buffer = this.bufferPool.acquire(4 * width * height);
+        int[] row = new int[width];
+        byte[] bytes = new byte[4 * width];
+
+        for (int y = 0; y < height; y++)
+        {
+            // getRGB converts any image type to non-premultiplied ARGB.
+            image.getRGB(0, y, width, 1, row, 0, width);
+
+            for (int x = 0, i = 0; x < width; x++, i += 4)
+            {
+                int argb = row[x];
+                int a = argb >>> 24;
+                int r = (argb >> 16) & 0xFF;
+                int g = (argb >> 8) & 0xFF;
+                int b = argb & 0xFF;
+
+                if (a != 255)
+                {
+                    r = (r * a + 127) / 255;
+                    g = (g * a + 127) / 255;
+                    b = (b * a + 127) / 255;
+                }
+
+                bytes[i] = (byte) r;
+                bytes[i + 1] = (byte) g;
+                bytes[i + 2] = (byte) b;
+                bytes[i + 3] = (byte) a;
+            }
+
+            buffer.put(bytes);
+        }
+
+        buffer.flip();
+
+        return new PooledTextureData(glp, hasAlpha ? GL.GL_RGBA : GL.GL_RGB, width, height, useMipMaps, buffer,
+            this.bufferPool);
+    }
+}
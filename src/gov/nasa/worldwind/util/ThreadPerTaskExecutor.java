@@ -0,0 +1,471 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * An executor that runs each task on its own newly created thread, and bounds the number of concurrently running tasks
+ * with a semaphore rather than with a thread pool size. Submitted tasks wait on a caller-supplied queue, and are
+ * dispatched in queue order as permits become available, so a {@link PriorityBlockingQueue} preserves priority
+ * ordering exactly as it does for a {@link ThreadPoolExecutor}. Like <code>ThreadPoolExecutor</code>, subclasses may
+ * override {@link #beforeExecute(Thread, Runnable)} and {@link #afterExecute(Runnable, Throwable)}.
+ * <p>
+ * This executor is intended for tasks that spend most of their time blocked on I/O, and is typically used with the
+ * virtual thread factory returned by {@link #newVirtualThreadFactory(String)}, which lets thousands of such tasks be
+ * in flight at once. Virtual threads are found reflectively, so this class also runs on Java versions without them;
+ * {@link #isVirtualThreadSupported()} indicates whether they are available.
+ *
+ * @version $Id$
+ */
+public class ThreadPerTaskExecutor extends AbstractExecutorService
+{
+    /** A semaphore whose permits can be reduced, which lets the concurrency limit change at run time. */
+    @SuppressWarnings("serial")
+    protected static class ResizableSemaphore extends Semaphore
+    {
+        public ResizableSemaphore(int permits)
+        {
+            super(permits);
+        }
+
+        @Override
+        public void reducePermits(int reduction)
+        {
+            super.reducePermits(reduction);
+        }
+    }
+
+    protected final BlockingQueue<Runnable> queue;
+    protected final ThreadFactory threadFactory;
+    protected final RejectedExecutionHandler rejectedExecutionHandler;
+    protected final ResizableSemaphore permits;
+    protected final Set<Thread> runningThreads = ConcurrentHashMap.newKeySet();
+    protected final AtomicInteger activeCount = new AtomicInteger();
+    protected final Object stateLock = new Object();
+    protected volatile int maxConcurrency;
+    protected volatile boolean shutdown;
+    protected Thread dispatcher; // guarded by stateLock
+    protected boolean dispatcherDone; // guarded by stateLock
+
+    /**
+     * Creates an executor.
+     *
+     * @param maxConcurrency           the maximum number of tasks that run at once.
+     * @param queue                    the queue that holds tasks waiting for a permit.
+     * @param threadFactory            the factory that creates each task's thread.
+     * @param rejectedExecutionHandler the handler invoked when the queue is full or the executor is shut down. May be
+     *                                 null, in which case such tasks are discarded. The handler's executor argument is
+     *                                 null.
+     *
+     * @throws IllegalArgumentException if <code>maxConcurrency</code> is less than one, or <code>queue</code> or
+     *                                  <code>threadFactory</code> is null.
+     */
+    public ThreadPerTaskExecutor(int maxConcurrency, BlockingQueue<Runnable> queue, ThreadFactory threadFactory,
+        RejectedExecutionHandler rejectedExecutionHandler)
+    {
+        if (maxConcurrency < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", maxConcurrency);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (queue == null)
+        {
+            String message = Logging.getMessage("nullValue.QueueIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (threadFactory == null)
+        {
+            String message = Logging.getMessage("nullValue.ThreadFactoryIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new ResizableSemaphore(maxConcurrency);
+        this.queue = queue;
+        this.threadFactory = threadFactory;
+        this.rejectedExecutionHandler = rejectedExecutionHandler;
+    }
+
+    /**
+     * Indicates whether the running Java runtime supports virtual threads.
+     *
+     * @return true if virtual threads are available, otherwise false.
+     */
+    public static boolean isVirtualThreadSupported()
+    {
+        return newVirtualThreadFactory("") != null;
+    }
+
+    /**
+     * Returns a factory that creates virtual threads, if the running Java runtime supports them.
+     *
+     * @param namePrefix the prefix of the created threads' names, to which a counter is appended.
+     *
+     * @return a virtual thread factory, or null if virtual threads are not available.
+     */
+    public static ThreadFactory newVirtualThreadFactory(String namePrefix)
+    {
+        try
+        {
+            // Equivalent to Thread.ofVirtual().name(namePrefix, 0).factory(), which is not available in Java 11.
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = ofVirtual.invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        }
+        catch (Exception e) // NoSuchMethodException before Java 19, UnsupportedOperationException when a preview
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a factory that creates virtual threads if they are available, and otherwise creates daemon platform
+     * threads of minimum priority.
+     *
+     * @param namePrefix the prefix of the created threads' names.
+     * @param handler    the uncaught exception handler of the created threads. May be null.
+     *
+     * @return a thread factory.
+     */
+    public static ThreadFactory newThreadFactory(final String namePrefix, final Thread.UncaughtExceptionHandler handler)
+    {
+        final ThreadFactory virtualFactory = newVirtualThreadFactory(namePrefix);
+        if (virtualFactory == null)
+        {
+            Logging.logger().fine(Logging.getMessage("ThreadPerTaskExecutor.VirtualThreadsUnavailable"));
+        }
+
+        return new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread;
+                if (virtualFactory != null)
+                {
+                    thread = virtualFactory.newThread(runnable);
+                }
+                else
+                {
+                    thread = new Thread(runnable, namePrefix);
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                }
+
+                if (handler != null)
+                    thread.setUncaughtExceptionHandler(handler);
+
+                return thread;
+            }
+        };
+    }
+
+    /** @return the queue holding tasks that wait for a permit to run. */
+    public BlockingQueue<Runnable> getQueue()
+    {
+        return this.queue;
+    }
+
+    /** @return the number of tasks currently running. */
+    public int getActiveCount()
+    {
+        return this.activeCount.get();
+    }
+
+    /** @return the maximum number of tasks that run at once. */
+    public int getMaxConcurrency()
+    {
+        return this.maxConcurrency;
+    }
+
+    /**
+     * Specifies the maximum number of tasks that run at once. Reducing the limit does not interrupt running tasks; new
+     * tasks start once enough running tasks finish.
+     *
+     * @param maxConcurrency the concurrency limit.
+     *
+     * @throws IllegalArgumentException if <code>maxConcurrency</code> is less than one.
+     */
+    public void setMaxConcurrency(int maxConcurrency)
+    {
+        if (maxConcurrency < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", maxConcurrency);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this.stateLock)
+        {
+            int delta = maxConcurrency - this.maxConcurrency;
+            this.maxConcurrency = maxConcurrency;
+            if (delta > 0)
+                this.permits.release(delta);
+            else if (delta < 0)
+                this.permits.reducePermits(-delta);
+        }
+    }
+
+    public void execute(Runnable runnable)
+    {
+        if (runnable == null)
+        {
+            String message = Logging.getMessage("nullValue.RunnableIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.shutdown || !this.queue.offer(runnable))
+        {
+            this.reject(runnable);
+            return;
+        }
+
+        this.ensureDispatcher();
+    }
+
+    protected void reject(Runnable runnable)
+    {
+        if (this.rejectedExecutionHandler != null)
+            this.rejectedExecutionHandler.rejectedExecution(runnable, null);
+    }
+
+    protected void ensureDispatcher()
+    {
+        synchronized (this.stateLock)
+        {
+            if (this.dispatcher != null || this.shutdown)
+                return;
+
+            this.dispatcher = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    dispatch();
+                }
+            }, Logging.getMessage("ThreadPerTaskExecutor.DispatcherThreadName"));
+            this.dispatcher.setDaemon(true);
+            this.dispatcher.start();
+        }
+    }
+
+    /**
+     * Moves tasks from the queue onto new threads as permits become available. A permit is acquired before a task is
+     * taken, so the task taken is the one at the head of the queue when a thread is free to run it.
+     */
+    protected void dispatch()
+    {
+        try
+        {
+            while (!this.shutdown || !this.queue.isEmpty())
+            {
+                this.permits.acquire();
+
+                Runnable runnable = this.queue.poll(100, TimeUnit.MILLISECONDS);
+                if (runnable == null)
+                {
+                    this.permits.release();
+                    continue;
+                }
+
+                this.startTask(runnable);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            // shutdownNow interrupts the dispatcher; remaining tasks were drained by that method.
+        }
+        finally
+        {
+            synchronized (this.stateLock)
+            {
+                this.dispatcherDone = true;
+                this.stateLock.notifyAll();
+            }
+        }
+    }
+
+    protected void startTask(final Runnable runnable)
+    {
+        this.activeCount.incrementAndGet();
+        try
+        {
+            this.threadFactory.newThread(new Runnable()
+            {
+                public void run()
+                {
+                    runTask(runnable);
+                }
+            }).start();
+        }
+        catch (RuntimeException | Error e)
+        {
+            this.taskFinished();
+            Logging.logger().log(Level.SEVERE, Logging.getMessage("ThreadPerTaskExecutor.ExceptionStartingThread",
+                runnable), e);
+        }
+    }
+
+    protected void runTask(Runnable runnable)
+    {
+        Thread thread = Thread.currentThread();
+        this.runningThreads.add(thread);
+        try
+        {
+            this.beforeExecute(thread, runnable);
+
+            Throwable thrown = null;
+            try
+            {
+                runnable.run();
+            }
+            catch (RuntimeException | Error e)
+            {
+                thrown = e;
+                throw e;
+            }
+            finally
+            {
+                this.afterExecute(runnable, thrown);
+            }
+        }
+        finally
+        {
+            this.runningThreads.remove(thread);
+            this.taskFinished();
+        }
+    }
+
+    protected void taskFinished()
+    {
+        this.activeCount.decrementAndGet();
+        this.permits.release();
+
+        if (this.shutdown)
+        {
+            synchronized (this.stateLock)
+            {
+                this.stateLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Invoked on a task's thread before the task runs. The default implementation does nothing.
+     *
+     * @param thread   the thread that runs the task.
+     * @param runnable the task.
+     */
+    protected void beforeExecute(Thread thread, Runnable runnable)
+    {
+    }
+
+    /**
+     * Invoked on a task's thread after the task completes. The default implementation does nothing.
+     *
+     * @param runnable  the task.
+     * @param throwable the exception that terminated the task, or null if it completed normally.
+     */
+    protected void afterExecute(Runnable runnable, Throwable throwable)
+    {
+    }
+
+    public void shutdown()
+    {
+        synchronized (this.stateLock)
+        {
+            this.shutdown = true;
+            if (this.dispatcher == null)
+                this.dispatcherDone = true;
+            this.stateLock.notifyAll();
+        }
+    }
+
+    public List<Runnable> shutdownNow()
+    {
+        this.shutdown();
+
+        ArrayList<Runnable> pending = new ArrayList<Runnable>();
+        this.queue.drainTo(pending);
+
+        synchronized (this.stateLock)
+        {
+            if (this.dispatcher != null)
+                this.dispatcher.interrupt();
+        }
+
+        for (Thread thread : this.runningThreads)
+        {
+            thread.interrupt();
+        }
+
+        return pending;
+    }
+
+    public boolean isShutdown()
+    {
+        return this.shutdown;
+    }
+
+    public boolean isTerminated()
+    {
+        synchronized (this.stateLock)
+        {
+            return this.shutdown && this.dispatcherDone && this.activeCount.get() == 0;
+        }
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this.stateLock)
+        {
+            while (!this.isTerminated())
+            {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0)
+                    return false;
+
+                TimeUnit.NANOSECONDS.timedWait(this.stateLock, remaining);
+            }
+
+            return true;
+        }
+    }
+}
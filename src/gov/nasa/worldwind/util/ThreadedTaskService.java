@@ -33,6 +33,11 @@ import gov.nasa.worldwind.avlist.AVKey;
 import java.util.concurrent.*;
 
 /**
+ * Runs tasks on a fixed-size thread pool whose size is specified by {@link AVKey#TASK_POOL_SIZE}. When {@link
+ * AVKey#TASK_SERVICE_VIRTUAL_THREADS} is true, each task instead runs on its own virtual thread, and the number of
+ * concurrent tasks is bounded by {@link AVKey#TASK_VIRTUAL_THREAD_LIMIT}. Platform threads are used if the Java runtime
+ * does not support virtual threads.
+ *
  * @author Tom Gaskins
  * @version $Id: ThreadedTaskService.java 1171 2013-02-11 21:45:02Z dcollins $
  */
@@ -40,12 +45,14 @@ public class ThreadedTaskService extends WWObjectImpl implements TaskService, Th
 {
     static final private int DEFAULT_CORE_POOL_SIZE = 1;
     static final private int DEFAULT_QUEUE_SIZE = 10;
+    static final private int DEFAULT_VIRTUAL_THREAD_LIMIT = 64;
     private static final String RUNNING_THREAD_NAME_PREFIX = Logging.getMessage(
         "ThreadedTaskService.RunningThreadNamePrefix");
     private static final String IDLE_THREAD_NAME_PREFIX = Logging.getMessage(
         "ThreadedTaskService.IdleThreadNamePrefix");
     private ConcurrentLinkedQueue<Runnable> activeTasks; // tasks currently allocated a thread
-    private TaskExecutor executor; // thread pool for running retrievers
+    private ExecutorService executor; // runs the tasks, each in their own thread
+    private BlockingQueue<Runnable> queue; // tasks waiting for a thread
 
     public ThreadedTaskService()
     {
@@ -53,7 +60,20 @@ public class ThreadedTaskService extends WWObjectImpl implements TaskService, Th
         Integer queueSize = Configuration.getIntegerValue(AVKey.TASK_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
 
         // this.executor runs the tasks, each in their own thread
-        this.executor = new TaskExecutor(poolSize, queueSize);
+        if (Configuration.getBooleanValue(AVKey.TASK_SERVICE_VIRTUAL_THREADS, false))
+        {
+            Integer limit = Configuration.getIntegerValue(AVKey.TASK_VIRTUAL_THREAD_LIMIT,
+                DEFAULT_VIRTUAL_THREAD_LIMIT);
+            VirtualTaskExecutor virtualExecutor = new VirtualTaskExecutor(limit, queueSize);
+            this.executor = virtualExecutor;
+            this.queue = virtualExecutor.getQueue();
+        }
+        else
+        {
+            TaskExecutor poolExecutor = new TaskExecutor(poolSize, queueSize);
+            this.executor = poolExecutor;
+            this.queue = poolExecutor.getQueue();
+        }
 
         // this.activeTasks holds the list of currently executing tasks
         this.activeTasks = new ConcurrentLinkedQueue<Runnable>();
@@ -76,6 +96,55 @@ public class ThreadedTaskService extends WWObjectImpl implements TaskService, Th
         Thread.currentThread().getThreadGroup().uncaughtException(thread, throwable);
     }
 
+    private void beforeTask(Thread thread, Runnable runnable)
+    {
+        if (thread == null)
+        {
+            String msg = Logging.getMessage("nullValue.ThreadIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (runnable == null)
+        {
+            String msg = Logging.getMessage("nullValue.RunnableIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (this.activeTasks.contains(runnable))
+        {
+            // Duplicate requests are simply interrupted here. The task itself must check the thread's isInterrupted
+            // flag and actually terminate the task.
+            String message = Logging.getMessage("ThreadedTaskService.CancellingDuplicateTask", runnable);
+            Logging.logger().finer(message);
+            thread.interrupt();
+            return;
+        }
+
+        this.activeTasks.add(runnable);
+
+        if (RUNNING_THREAD_NAME_PREFIX != null)
+            thread.setName(RUNNING_THREAD_NAME_PREFIX + runnable);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.setUncaughtExceptionHandler(this);
+    }
+
+    private void afterTask(Runnable runnable, Throwable throwable)
+    {
+        if (runnable == null)
+        {
+            String msg = Logging.getMessage("nullValue.RunnableIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.activeTasks.remove(runnable);
+
+        if (throwable == null && IDLE_THREAD_NAME_PREFIX != null)
+            Thread.currentThread().setName(IDLE_THREAD_NAME_PREFIX);
+    }
+
     private class TaskExecutor extends ThreadPoolExecutor
     {
         private static final long THREAD_TIMEOUT = 2; // keep idle threads alive this many seconds
@@ -110,55 +179,42 @@ public class ThreadedTaskService extends WWObjectImpl implements TaskService, Th
 
         protected void beforeExecute(Thread thread, Runnable runnable)
         {
-            if (thread == null)
-            {
-                String msg = Logging.getMessage("nullValue.ThreadIsNull");
-                Logging.logger().fine(msg);
-                throw new IllegalArgumentException(msg);
-            }
-
-            if (runnable == null)
-            {
-                String msg = Logging.getMessage("nullValue.RunnableIsNull");
-                Logging.logger().fine(msg);
-                throw new IllegalArgumentException(msg);
-            }
-
-            if (ThreadedTaskService.this.activeTasks.contains(runnable))
-            {
-                // Duplicate requests are simply interrupted here. The task itself must check the thread's isInterrupted
-                // flag and actually terminate the task.
-                String message = Logging.getMessage("ThreadedTaskService.CancellingDuplicateTask", runnable);
-                Logging.logger().finer(message);
-                thread.interrupt();
-                return;
-            }
-
-            ThreadedTaskService.this.activeTasks.add(runnable);
-
-            if (RUNNING_THREAD_NAME_PREFIX != null)
-                thread.setName(RUNNING_THREAD_NAME_PREFIX + runnable);
-            thread.setPriority(Thread.MIN_PRIORITY);
-            thread.setUncaughtExceptionHandler(ThreadedTaskService.this);
-
+            ThreadedTaskService.this.beforeTask(thread, runnable);
             super.beforeExecute(thread, runnable);
         }
 
         protected void afterExecute(Runnable runnable, Throwable throwable)
         {
-            if (runnable == null)
-            {
-                String msg = Logging.getMessage("nullValue.RunnableIsNull");
-                Logging.logger().fine(msg);
-                throw new IllegalArgumentException(msg);
-            }
-
             super.afterExecute(runnable, throwable);
+            ThreadedTaskService.this.afterTask(runnable, throwable);
+        }
+    }
+
+    /** Runs each task on its own virtual thread, limiting the number of concurrent tasks. */
+    private class VirtualTaskExecutor extends ThreadPerTaskExecutor
+    {
+        private VirtualTaskExecutor(int maxConcurrency, int queueSize)
+        {
+            super(maxConcurrency, new ArrayBlockingQueue<Runnable>(queueSize),
+                ThreadPerTaskExecutor.newThreadFactory(IDLE_THREAD_NAME_PREFIX, ThreadedTaskService.this),
+                new RejectedExecutionHandler()
+                {
+                    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor threadPoolExecutor)
+                    {
+                        String message = Logging.getMessage("ThreadedTaskService.ResourceRejected", runnable);
+                        Logging.logger().fine(message);
+                    }
+                });
+        }
 
-            ThreadedTaskService.this.activeTasks.remove(runnable);
+        protected void beforeExecute(Thread thread, Runnable runnable)
+        {
+            ThreadedTaskService.this.beforeTask(thread, runnable);
+        }
 
-            if (throwable == null && IDLE_THREAD_NAME_PREFIX != null)
-                Thread.currentThread().setName(IDLE_THREAD_NAME_PREFIX);
+        protected void afterExecute(Runnable runnable, Throwable throwable)
+        {
+            ThreadedTaskService.this.afterTask(runnable, throwable);
         }
     }
 
@@ -168,7 +224,7 @@ public class ThreadedTaskService extends WWObjectImpl implements TaskService, Th
         if (runnable == null)
             return false;
 
-        return (this.activeTasks.contains(runnable) || this.executor.getQueue().contains(runnable));
+        return (this.activeTasks.contains(runnable) || this.queue.contains(runnable));
     }
 
     /**
@@ -188,7 +244,7 @@ public class ThreadedTaskService extends WWObjectImpl implements TaskService, Th
         }
 
         // Do not queue duplicates.
-        if (this.activeTasks.contains(runnable) || this.executor.getQueue().contains(runnable))
+        if (this.activeTasks.contains(runnable) || this.queue.contains(runnable))
             return;
 
         this.executor.execute(runnable);
@@ -196,11 +252,15 @@ public class ThreadedTaskService extends WWObjectImpl implements TaskService, Th
 
     public boolean isFull()
     {
-        return this.executor.getQueue().remainingCapacity() == 0;
+        return this.queue.remainingCapacity() == 0;
     }
 
     public boolean hasActiveTasks()
     {
+        // Virtual threads are not visible to Thread.enumerate.
+        if (this.executor instanceof ThreadPerTaskExecutor)
+            return ((ThreadPerTaskExecutor) this.executor).getActiveCount() > 0;
+
         Thread[] threads = new Thread[Thread.activeCount()];
         int numThreads = Thread.enumerate(threads);
         for (int i = 0; i < numThreads; i++)
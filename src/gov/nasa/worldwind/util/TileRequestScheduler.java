@@ -0,0 +1,409 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.geom.Sector;
+
+import java.util.*;
+
+/**
+ * Collects the tile load requests of all tiled layers during a frame and submits them to the {@link TaskService} in a
+ * single, globally ordered pass at the end of the frame. Requests are ordered by their screen-space importance, so a
+ * layer drawn late in the layer list can't starve an earlier layer's visible tiles. Requests that are not submitted by
+ * the end of the frame are stale and are dropped; layers request their missing tiles again in the next frame.
+ * <p>
+ * Each requester, typically a layer, may be limited to a number of submissions per frame with {@link
+ * #setQuota(Object, int)}. Per-requester counts of submitted, dropped and over-quota requests are available from {@link
+ * #getStatistics(Object)}.
+ * <p>
+ * The scheduler used by WorldWind's layers is available from {@link WorldWind#getTileRequestScheduler()}, and is
+ * flushed by the scene controller after each frame. Scene controllers that do not extend {@link
+ * gov.nasa.worldwind.AbstractSceneController} must call {@link #sendRequests()} at the end of each frame themselves,
+ * even when the frame fails; see {@link gov.nasa.worldwind.SceneController#repaint()}.
+ *
+ * @version $Id$
+ */
+public class TileRequestScheduler
+{
+    /** Implemented by request tasks that specify their own priority. */
+    public interface PrioritizedTask
+    {
+        /**
+         * Indicates the priority of this task. Lower values are more important. See {@link
+         * TileRequestScheduler#computePriority(double, gov.nasa.worldwind.geom.Sector)}.
+         *
+         * @return the task's priority.
+         */
+        double getRequestPriority();
+    }
+
+    /** Per-requester request counts, accumulated since the requester's statistics were last reset. */
+    public static class Statistics
+    {
+        protected long requested;
+        protected long submitted;
+        protected long dropped;
+        protected long overQuota;
+
+        public Statistics()
+        {
+        }
+
+        public Statistics(Statistics that)
+        {
+            this.requested = that.requested;
+            this.submitted = that.submitted;
+            this.dropped = that.dropped;
+            this.overQuota = that.overQuota;
+        }
+
+        /**
+         * Indicates the number of requests added to the scheduler.
+         *
+         * @return the number of requests added.
+         */
+        public long getRequested()
+        {
+            return this.requested;
+        }
+
+        /**
+         * Indicates the number of requests submitted to the task service.
+         *
+         * @return the number of requests submitted.
+         */
+        public long getSubmitted()
+        {
+            return this.submitted;
+        }
+
+        /**
+         * Indicates the number of requests dropped because the task service was full or the scheduler's capacity was
+         * exceeded.
+         *
+         * @return the number of requests dropped.
+         */
+        public long getDropped()
+        {
+            return this.dropped;
+        }
+
+        /**
+         * Indicates the number of requests dropped because the requester had reached its quota for the frame.
+         *
+         * @return the number of requests over quota.
+         */
+        public long getOverQuota()
+        {
+            return this.overQuota;
+        }
+    }
+
+    protected static class Request implements Comparable<Request>
+    {
+        protected final Object requester;
+        protected final Runnable task;
+        protected final double priority;
+        protected final long sequence;
+
+        public Request(Object requester, Runnable task, double priority, long sequence)
+        {
+            this.requester = requester;
+            this.task = task;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        public int compareTo(Request that)
+        {
+            int c = Double.compare(this.priority, that.priority);
+            return c != 0 ? c : Long.compare(this.sequence, that.sequence);
+        }
+    }
+
+    /** The default maximum number of requests held between flushes. */
+    protected static final int DEFAULT_CAPACITY = 4096;
+
+    protected final TaskService taskService;
+    protected final int capacity;
+    protected PriorityQueue<Request> requests = new PriorityQueue<Request>();
+    protected long sequence;
+    protected Map<Object, Integer> quotas = new WeakHashMap<Object, Integer>();
+    protected Map<Object, Statistics> statistics = new WeakHashMap<Object, Statistics>();
+
+    /** Creates a scheduler that submits requests to WorldWind's task service. */
+    public TileRequestScheduler()
+    {
+        this.taskService = null;
+        this.capacity = DEFAULT_CAPACITY;
+    }
+
+    /**
+     * Creates a scheduler that submits requests to a specified task service.
+     *
+     * @param taskService the task service to submit requests to.
+     * @param capacity    the maximum number of requests held between flushes.
+     *
+     * @throws IllegalArgumentException if the task service is null or the capacity is less than 1.
+     */
+    public TileRequestScheduler(TaskService taskService, int capacity)
+    {
+        if (taskService == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (capacity < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "capacity=" + capacity);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.taskService = taskService;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Computes a request priority from a tile's screen-space size. The priority is the eye distance to the tile divided
+     * by the tile's angular size, which is proportional to the inverse of the tile's projected size. Large, near tiles
+     * therefore have the lowest values and are the most important. Priorities computed this way are comparable among
+     * layers with different tilings.
+     *
+     * @param eyeDistance the distance from the eye to the tile, in meters.
+     * @param sector      the tile's sector.
+     *
+     * @return the tile's request priority, or {@link Double#MAX_VALUE} if either argument is unspecified.
+     */
+    public static double computePriority(double eyeDistance, Sector sector)
+    {
+        if (sector == null || eyeDistance == Double.MAX_VALUE)
+            return Double.MAX_VALUE;
+
+        double size = Math.max(sector.getDeltaLatRadians(), sector.getDeltaLonRadians());
+        return size > 0 ? eyeDistance / size : Double.MAX_VALUE;
+    }
+
+    /**
+     * Adds a request. Tasks that implement {@link PrioritizedTask} are ordered by their own priority. Others are
+     * ordered after all prioritized tasks, in the order they're added.
+     *
+     * @param requester the object making the request, typically a layer.
+     * @param task      the task to run.
+     *
+     * @throws IllegalArgumentException if the requester or task is null.
+     */
+    public void addRequest(Object requester, Runnable task)
+    {
+        if (task == null)
+        {
+            String message = Logging.getMessage("nullValue.RunnableIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        double priority = task instanceof PrioritizedTask ? ((PrioritizedTask) task).getRequestPriority()
+            : Double.MAX_VALUE;
+        this.addRequest(requester, task, priority);
+    }
+
+    /**
+     * Adds a request with a specified priority.
+     *
+     * @param requester the object making the request, typically a layer.
+     * @param task      the task to run.
+     * @param priority  the request's priority. Lower values are more important.
+     *
+     * @throws IllegalArgumentException if the requester or task is null.
+     */
+    public synchronized void addRequest(Object requester, Runnable task, double priority)
+    {
+        if (requester == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (task == null)
+        {
+            String message = Logging.getMessage("nullValue.RunnableIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Statistics stats = this.getOrCreateStatistics(requester);
+        stats.requested++;
+
+        if (this.requests.size() >= this.capacity)
+        {
+            stats.dropped++;
+            return;
+        }
+
+        this.requests.add(new Request(requester, task, Double.isNaN(priority) ? Double.MAX_VALUE : priority,
+            this.sequence++));
+    }
+
+    /**
+     * Submits the pending requests to the task service in priority order, skipping requests from requesters that have
+     * reached their quota, until the task service is full. All remaining requests are dropped.
+     */
+    public synchronized void sendRequests()
+    {
+        if (this.requests.isEmpty())
+            return;
+
+        TaskService service = this.taskService != null ? this.taskService : WorldWind.getTaskService();
+        Map<Object, Integer> counts = new IdentityHashMap<Object, Integer>();
+
+        Request request;
+        while ((request = this.requests.poll()) != null)
+        {
+            Statistics stats = this.getOrCreateStatistics(request.requester);
+
+            Integer count = counts.get(request.requester);
+            int n = count != null ? count : 0;
+            if (n >= this.getQuota(request.requester))
+            {
+                stats.overQuota++;
+                continue;
+            }
+
+            if (service.isFull())
+            {
+                stats.dropped++;
+                continue;
+            }
+
+            service.addTask(request.task);
+            counts.put(request.requester, n + 1);
+            stats.submitted++;
+        }
+
+        this.sequence = 0;
+    }
+
+    /** Drops all pending requests without submitting them. */
+    public synchronized void clear()
+    {
+        this.requests.clear();
+        this.sequence = 0;
+    }
+
+    /**
+     * Indicates the number of requests waiting to be submitted.
+     *
+     * @return the number of pending requests.
+     */
+    public synchronized int getPendingCount()
+    {
+        return this.requests.size();
+    }
+
+    /**
+     * Indicates the maximum number of requests submitted for a requester per frame.
+     *
+     * @param requester the requester.
+     *
+     * @return the requester's quota, or {@link Integer#MAX_VALUE} if the requester has no quota.
+     */
+    public synchronized int getQuota(Object requester)
+    {
+        Integer quota = this.quotas.get(requester);
+        return quota != null ? quota : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Specifies the maximum number of requests submitted for a requester per frame.
+     *
+     * @param requester the requester.
+     * @param quota     the requester's quota. {@link Integer#MAX_VALUE} removes the quota.
+     *
+     * @throws IllegalArgumentException if the requester is null or the quota is negative.
+     */
+    public synchronized void setQuota(Object requester, int quota)
+    {
+        if (requester == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (quota < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "quota=" + quota);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (quota == Integer.MAX_VALUE)
+            this.quotas.remove(requester);
+        else
+            this.quotas.put(requester, quota);
+    }
+
+    /**
+     * Returns a snapshot of the request counts for a requester.
+     *
+     * @param requester the requester.
+     *
+     * @return the requester's statistics. All counts are zero if the requester has made no requests.
+     */
+    public synchronized Statistics getStatistics(Object requester)
+    {
+        Statistics stats = this.statistics.get(requester);
+        return stats != null ? new Statistics(stats) : new Statistics();
+    }
+
+    /**
+     * Resets the request counts for a requester.
+     *
+     * @param requester the requester.
+     */
+    public synchronized void resetStatistics(Object requester)
+    {
+        this.statistics.remove(requester);
+    }
+
+    protected Statistics getOrCreateStatistics(Object requester)
+    {
+        Statistics stats = this.statistics.get(requester);
+        if (stats == null)
+        {
+            stats = new Statistics();
+            this.statistics.put(requester, stats);
+        }
+
+        return stats;
+    }
+}
@@ -1239,6 +1239,13 @@ public class WWIO
             if (uri.isOpaque())
                 return false; // TODO: Determine how to check the date of non-Files
 
+            if (!"file".equalsIgnoreCase(uri.getScheme()))
+            {
+                // Ask the URL's protocol handler, e.g., for files in a tile pack.
+                long lastModified = url.openConnection().getLastModified();
+                return lastModified != 0 && lastModified < expiryTime;
+            }
+
             File file = new File(uri);
 
             return file.exists() && file.lastModified() < expiryTime;
@@ -1248,6 +1255,11 @@ public class WWIO
             Logging.logger().log(Level.SEVERE, "WWIO.ExceptionValidatingFileExpiration", url);
             return false;
         }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.SEVERE, "WWIO.ExceptionValidatingFileExpiration", url);
+            return false;
+        }
     }
 
     public static Proxy configureProxy()
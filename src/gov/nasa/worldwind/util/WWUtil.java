@@ -44,6 +44,11 @@ import java.util.regex.Pattern;
  */
 public class WWUtil
 {
+    /** Exactly representable powers of ten, used by the fast path of {@link #parseDouble(char[], int, int)}. */
+    protected static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19,
+        1e20, 1e21, 1e22};
+
     /**
      * Converts a specified string to an integer value. Returns null if the string cannot be converted.
      *
@@ -114,6 +119,93 @@ public class WWUtil
         }
     }
 
+    /**
+     * Parses a decimal number from a range of characters, giving the same result as {@link Double#parseDouble(String)}.
+     * Numbers with at most 15 significant digits and a small decimal exponent are computed with a single exactly
+     * rounded multiplication or division, without creating a string. Other numbers are passed to
+     * <code>Double.parseDouble</code>.
+     *
+     * @param chars the characters to parse.
+     * @param start the index of the first character of the number.
+     * @param end   the index following the last character of the number.
+     *
+     * @return the parsed number.
+     *
+     * @throws NumberFormatException if the characters are not a number.
+     */
+    public static double parseDouble(char[] chars, int start, int end) throws NumberFormatException
+    {
+        int pos = start;
+        boolean negative = false;
+        if (pos < end && (chars[pos] == '-' || chars[pos] == '+'))
+            negative = chars[pos++] == '-';
+
+        long mantissa = 0;
+        int numDigits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        boolean afterPoint = false;
+
+        for (; pos < end; pos++)
+        {
+            char ch = chars[pos];
+            if (ch >= '0' && ch <= '9')
+            {
+                anyDigits = true;
+                if (numDigits == 0 && ch == '0')
+                {
+                    // Leading zeros are not significant.
+                    if (afterPoint)
+                        exponent--;
+                    continue;
+                }
+
+                if (++numDigits > 15)
+                    return Double.parseDouble(new String(chars, start, end - start));
+
+                mantissa = 10 * mantissa + (ch - '0');
+                if (afterPoint)
+                    exponent--;
+            }
+            else if (ch == '.' && !afterPoint)
+            {
+                afterPoint = true;
+            }
+            else
+            {
+                break;
+            }
+        }
+
+        if (pos < end && anyDigits && (chars[pos] == 'e' || chars[pos] == 'E'))
+        {
+            int expPos = pos + 1;
+            boolean negativeExp = false;
+            if (expPos < end && (chars[expPos] == '-' || chars[expPos] == '+'))
+                negativeExp = chars[expPos++] == '-';
+
+            int exp = 0;
+            int expStart = expPos;
+            for (; expPos < end && chars[expPos] >= '0' && chars[expPos] <= '9' && exp < 10000; expPos++)
+            {
+                exp = 10 * exp + (chars[expPos] - '0');
+            }
+
+            if (expPos == expStart)
+                return Double.parseDouble(new String(chars, start, end - start));
+
+            exponent += negativeExp ? -exp : exp;
+            pos = expPos;
+        }
+
+        // Anything else, such as "NaN", a type suffix or an invalid number, is handled by parseDouble.
+        if (pos != end || !anyDigits || exponent < -22 || exponent > 22)
+            return Double.parseDouble(new String(chars, start, end - start));
+
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
     /**
      * Converts a specified string to a long integer value. Returns null if the string cannot be converted.
      *
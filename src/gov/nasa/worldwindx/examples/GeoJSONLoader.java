@@ -38,10 +38,16 @@ import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
 
 import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.Level;
 
 /**
  * Utility class to load data from a GeoJSON source into a layer.
+ * <p>
+ * Sources are read with a {@link GeoJSONFeatureReader}, which streams the features of a feature collection. When
+ * parallel building is enabled, the loader creates the renderables for batches of features on the common fork-join
+ * pool while the next batch is read. Renderables are added to the layer in document order in either case.
  *
  * @author dcollins
  * @version $Id: GeoJSONLoader.java 2326 2014-09-17 22:35:45Z dcollins $
@@ -49,12 +55,41 @@ import java.util.logging.Level;
 public class GeoJSONLoader
 {
     protected static final RandomShapeAttributes randomAttrs = new RandomShapeAttributes();
+    /** Number of objects read before their renderables are built in parallel. */
+    protected static final int PARALLEL_BATCH_SIZE = 1024;
+    /** Number of objects below which a batch is no longer split across threads. */
+    protected static final int PARALLEL_BUILD_THRESHOLD = 64;
+
+    protected boolean parallelBuild;
 
     /** Create a new loader. */
     public GeoJSONLoader()
     {
     }
 
+    /**
+     * Indicates whether renderables are built on multiple threads when loading a source.
+     *
+     * @return true if renderables are built in parallel, otherwise false.
+     *
+     * @see #setParallelBuild(boolean)
+     */
+    public boolean isParallelBuild()
+    {
+        return this.parallelBuild;
+    }
+
+    /**
+     * Specifies whether renderables are built on multiple threads by {@link #addSourceGeometryToLayer(Object,
+     * RenderableLayer)}. Attributes are still created on the calling thread, in document order. The default is false.
+     *
+     * @param parallelBuild true to build renderables in parallel, otherwise false.
+     */
+    public void setParallelBuild(boolean parallelBuild)
+    {
+        this.parallelBuild = parallelBuild;
+    }
+
     /**
      * Parse a GeoJSON document and add it to a layer.
      *
@@ -78,34 +113,25 @@ public class GeoJSONLoader
             throw new IllegalArgumentException(message);
         }
 
-        GeoJSONDoc doc = null;
+        GeoJSONFeatureReader reader = null;
         try
         {
-            doc = new GeoJSONDoc(docSource);
-            doc.parse();
+            reader = new GeoJSONFeatureReader(docSource);
 
-            if (doc.getRootObject() instanceof GeoJSONObject)
+            if (this.isParallelBuild())
             {
-                this.addGeoJSONGeometryToLayer((GeoJSONObject) doc.getRootObject(), layer);
+                this.addObjectsInParallel(reader, layer);
             }
-            else if (doc.getRootObject() instanceof Object[])
+            else
             {
-                for (Object o : (Object[]) doc.getRootObject())
+                for (Object o = reader.nextValue(); o != null; o = reader.nextValue())
                 {
                     if (o instanceof GeoJSONObject)
-                    {
                         this.addGeoJSONGeometryToLayer((GeoJSONObject) o, layer);
-                    }
                     else
-                    {
                         this.handleUnrecognizedObject(o);
-                    }
                 }
             }
-            else
-            {
-                this.handleUnrecognizedObject(doc.getRootObject());
-            }
         }
         catch (IOException e)
         {
@@ -115,7 +141,91 @@ public class GeoJSONLoader
         }
         finally
         {
-            WWIO.closeStream(doc, docSource.toString());
+            WWIO.closeStream(reader, docSource.toString());
+        }
+    }
+
+    /**
+     * Reads the objects of a GeoJSON source in batches and builds each batch's renderables on the common fork-join
+     * pool while the next batch is read.
+     *
+     * @param reader the reader of the GeoJSON source.
+     * @param layer  layer to receive the new renderables.
+     *
+     * @throws IOException if an error occurs while reading the source.
+     */
+    protected void addObjectsInParallel(GeoJSONFeatureReader reader, RenderableLayer layer) throws IOException
+    {
+        BuildAction pending = null;
+        List<GeoJSONObject> batch = new ArrayList<GeoJSONObject>(PARALLEL_BATCH_SIZE);
+
+        Object o;
+        do
+        {
+            o = reader.nextValue();
+            if (o instanceof GeoJSONObject)
+            {
+                // Create shared attributes here, in document order, so that they match a serial build.
+                this.prepareAttributes((GeoJSONObject) o, layer);
+                batch.add((GeoJSONObject) o);
+            }
+            else if (o != null)
+            {
+                this.handleUnrecognizedObject(o);
+            }
+
+            if (batch.size() == PARALLEL_BATCH_SIZE || (o == null && batch.size() > 0))
+            {
+                BuildAction action = new BuildAction(this, layer, batch, 0, batch.size());
+                ForkJoinPool.commonPool().execute(action);
+                batch = new ArrayList<GeoJSONObject>(PARALLEL_BATCH_SIZE);
+
+                if (pending != null)
+                    pending.addRenderablesTo(layer);
+                pending = action;
+            }
+        }
+        while (o != null);
+
+        if (pending != null)
+            pending.addRenderablesTo(layer);
+    }
+
+    /**
+     * Creates the attributes a GeoJSON object's renderables share, so that building the renderables on other threads
+     * only reads them.
+     *
+     * @param object the object whose attributes to create.
+     * @param layer  the layer that holds the shared attributes.
+     */
+    protected void prepareAttributes(GeoJSONObject object, Layer layer)
+    {
+        if (object.isFeature())
+        {
+            if (object.asFeature().getGeometry() != null)
+                this.prepareAttributes(object.asFeature().getGeometry(), layer);
+        }
+        else if (object.isGeometryCollection())
+        {
+            if (object.asGeometryCollection().getGeometries() != null)
+            {
+                for (GeoJSONGeometry geom : object.asGeometryCollection().getGeometries())
+                {
+                    this.prepareAttributes(geom, layer);
+                }
+            }
+        }
+        else if (object.isPoint() || object.isMultiPoint())
+        {
+            this.createPointAttributes(object.asGeometry(), layer);
+        }
+        else if (object.isLineString() || object.isMultiLineString())
+        {
+            this.createPolylineAttributes(object.asGeometry(), layer);
+        }
+        else if (object.isPolygon() || object.isMultiPolygon())
+        {
+            this.createPolygonAttributes(object.asGeometry(), layer);
         }
     }
     /**
@@ -480,4 +590,101 @@ public class GeoJSONLoader
 
         return attrs;
     }
+
+    //**************************************************************//
+    //********************  Parallel Construction  *****************//
+    //**************************************************************//
+
+    /**
+     * Collects the renderables built on a worker thread. Attribute lookups and updates go to the destination layer, so
+     * that renderables share the attributes created by {@link #prepareAttributes(GeoJSONObject, Layer)}.
+     */
+    protected static class BatchLayer extends RenderableLayer
+    {
+        protected final Layer target;
+
+        public BatchLayer(Layer target)
+        {
+            this.target = target;
+        }
+
+        @Override
+        public Object getValue(String key)
+        {
+            return this.target != null ? this.target.getValue(key) : super.getValue(key);
+        }
+
+        @Override
+        public Object setValue(String key, Object value)
+        {
+            return this.target != null ? this.target.setValue(key, value) : super.setValue(key, value);
+        }
+    }
+
+    /** Builds the renderables for a range of GeoJSON objects, splitting large ranges across the fork-join pool. */
+    @SuppressWarnings("serial")
+    protected static class BuildAction extends RecursiveAction
+    {
+        protected final GeoJSONLoader loader;
+        protected final Layer target;
+        protected final List<GeoJSONObject> objects;
+        protected final int from;
+        protected final int to;
+        protected BuildAction left;
+        protected BuildAction right;
+        protected BatchLayer results;
+
+        public BuildAction(GeoJSONLoader loader, Layer target, List<GeoJSONObject> objects, int from, int to)
+        {
+            this.loader = loader;
+            this.target = target;
+            this.objects = objects;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.to - this.from <= PARALLEL_BUILD_THRESHOLD)
+            {
+                this.results = new BatchLayer(this.target);
+                for (int i = this.from; i < this.to; i++)
+                {
+                    this.loader.addGeoJSONGeometryToLayer(this.objects.get(i), this.results);
+                }
+            }
+            else
+            {
+                int mid = (this.from + this.to) >>> 1;
+                this.left = new BuildAction(this.loader, this.target, this.objects, this.from, mid);
+                this.right = new BuildAction(this.loader, this.target, this.objects, mid, this.to);
+                invokeAll(this.left, this.right);
+            }
+        }
+
+        /**
+         * Waits for this action to complete, then adds its renderables to a layer in the order of its objects.
+         *
+         * @param layer the layer to receive the renderables.
+         */
+        public void addRenderablesTo(RenderableLayer layer)
+        {
+            this.join();
+            this.collect(layer);
+        }
+
+        protected void collect(RenderableLayer layer)
+        {
+            if (this.results != null)
+            {
+                layer.addRenderables(this.results.getRenderables());
+            }
+            else
+            {
+                this.left.collect(layer);
+                this.right.collect(layer);
+            }
+        }
+    }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BasicMemoryCacheTest
+{
+    /** Tests that the default policy evicts the least recently used entries first. */
+    @Test
+    public void testLeastRecentlyUsedEviction()
+    {
+        BasicMemoryCache cache = new BasicMemoryCache(6, 10);
+        for (int i = 0; i < 10; i++)
+        {
+            cache.add(i, "value" + i, 1);
+        }
+
+        // Touch the oldest entries so that they become the most recently used.
+        cache.getObject(0);
+        cache.getObject(1);
+
+        cache.add(10, "value10", 1);
+
+        assertTrue("Recently used entry evicted ", cache.contains(0));
+        assertTrue("Recently used entry evicted ", cache.contains(1));
+        // The cache evicts down to its low water before adding the new entry.
+        for (int i = 2; i < 6; i++)
+        {
+            assertFalse("Least recently used entry not evicted " + i, cache.contains(i));
+        }
+        assertTrue("Entry evicted below low water ", cache.contains(6));
+        assertTrue("New entry not added ", cache.contains(10));
+        assertEquals("Used capacity incorrect ", 7, cache.getUsedCapacity());
+        assertEquals("Entry count incorrect ", 7, cache.getNumObjects());
+        assertEquals("Policy entry count incorrect ", 7, cache.getEvictionPolicy().getNumEntries());
+    }
+
+    /** Tests that listeners are notified of every evicted entry. */
+    @Test
+    public void testListenerNotification()
+    {
+        final List<Object> removed = new ArrayList<Object>();
+        BasicMemoryCache cache = new BasicMemoryCache(5, 10);
+        cache.addCacheListener(new MemoryCache.CacheListener()
+        {
+            public void entryRemoved(Object key, Object clientObject)
+            {
+                removed.add(key);
+            }
+
+            public void removalException(Throwable exception, Object key, Object clientObject)
+            {
+            }
+        });
+
+        for (int i = 0; i < 11; i++)
+        {
+            cache.add(i, "value" + i, 1);
+        }
+
+        assertEquals("Removed entries incorrect ", Arrays.<Object>asList(0, 1, 2, 3, 4), removed);
+        assertEquals("Used capacity incorrect ", 6, cache.getUsedCapacity());
+    }
+
+    /** Tests that replacing an entry accounts for its size only once. */
+    @Test
+    public void testReplacement()
+    {
+        BasicMemoryCache cache = new BasicMemoryCache(5, 10);
+        cache.add("a", "value1", 4);
+        cache.add("a", "value2", 3);
+
+        assertEquals("Replaced entry value incorrect ", "value2", cache.getObject("a"));
+        assertEquals("Used capacity incorrect ", 3, cache.getUsedCapacity());
+        assertEquals("Policy entry count incorrect ", 1, cache.getEvictionPolicy().getNumEntries());
+    }
+
+    /** Tests that the segmented LRU policy retains entries used more than once over entries used once. */
+    @Test
+    public void testSegmentedLRUEviction()
+    {
+        BasicMemoryCache cache = new BasicMemoryCache(9, 10, new SegmentedLRUEvictionPolicy());
+        for (int i = 0; i < 10; i++)
+        {
+            cache.add(i, "value" + i, 1);
+        }
+        cache.getObject(0);
+
+        // A scan of new entries must not evict the entry that has been used twice.
+        for (int i = 10; i < 30; i++)
+        {
+            cache.add(i, "value" + i, 1);
+        }
+
+        assertTrue("Frequently used entry evicted ", cache.contains(0));
+        assertTrue("Capacity exceeded ", cache.getUsedCapacity() <= cache.getCapacity());
+        assertEquals("Entry count incorrect ", cache.getNumObjects(), cache.getEvictionPolicy().getNumEntries());
+    }
+
+    /** Tests that the W-TinyLFU policy retains frequently used entries during a scan of one-time entries. */
+    @Test
+    public void testTinyLFUEviction()
+    {
+        BasicMemoryCache cache = new BasicMemoryCache(90, 100, new TinyLFUEvictionPolicy());
+        for (int i = 0; i < 100; i++)
+        {
+            cache.add(i, "value" + i, 1);
+        }
+        for (int pass = 0; pass < 5; pass++)
+        {
+            for (int i = 0; i < 10; i++)
+            {
+                cache.getObject(i);
+            }
+        }
+
+        for (int i = 100; i < 1000; i++)
+        {
+            cache.add(i, "value" + i, 1);
+        }
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertTrue("Frequently used entry evicted " + i, cache.contains(i));
+        }
+        assertEquals("Entry count incorrect ", cache.getNumObjects(), cache.getEvictionPolicy().getNumEntries());
+        assertTrue("Capacity exceeded ", cache.getUsedCapacity() <= cache.getCapacity());
+    }
+
+    /** Tests that changing the policy of a populated cache preserves its entries. */
+    @Test
+    public void testSetEvictionPolicy()
+    {
+        BasicMemoryCache cache = new BasicMemoryCache(5, 10);
+        for (int i = 0; i < 8; i++)
+        {
+            cache.add(i, "value" + i, 1);
+        }
+
+        cache.setEvictionPolicy(new TinyLFUEvictionPolicy());
+        assertEquals("Policy entry count incorrect ", 8, cache.getEvictionPolicy().getNumEntries());
+
+        cache.clear();
+        assertEquals("Used capacity incorrect ", 0, cache.getUsedCapacity());
+        assertEquals("Policy entry count incorrect ", 0, cache.getEvictionPolicy().getNumEntries());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ConcurrentDataFileStoreTest
+{
+    protected static final String ADDRESS = "http://example.com/tiles/1/2/3.png";
+    protected static final long EXPIRATION = 4102444800000L; // 2100-01-01
+
+    protected File storeDir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.storeDir = Files.createTempDirectory("wwfs").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        WWIO.deleteDirectory(this.storeDir);
+        this.storeDir.delete();
+    }
+
+    /** Tests that a retrieved file is found through the index by a new file store, without a search. */
+    @Test
+    public void testIndexPersisted() throws IOException
+    {
+        ConcurrentDataFileStore store = new ConcurrentDataFileStore(this.storeDir);
+        URL fileUrl = this.retrieve(store, ADDRESS, "example.com/tiles/3.png", EXPIRATION);
+
+        assertEquals("File not local ", fileUrl, store.requestFile(ADDRESS));
+        assertEquals("Content type incorrect ", "image/png", store.getContentType(ADDRESS));
+
+        ConcurrentDataFileStore reopened = new ConcurrentDataFileStore(this.storeDir);
+        assertEquals("Expiration not restored ", EXPIRATION, reopened.getExpirationTime(ADDRESS));
+        assertEquals("Content type not restored ", "image/png", reopened.getContentType(ADDRESS));
+        assertEquals("Location not restored ", fileUrl, reopened.requestFile(ADDRESS));
+    }
+
+    /** Tests that a removed file is not restored from the index, and that the index is compacted. */
+    @Test
+    public void testRemovalPersisted() throws IOException
+    {
+        ConcurrentDataFileStore store = new ConcurrentDataFileStore(this.storeDir);
+        this.retrieve(store, ADDRESS, "example.com/tiles/3.png", 0);
+        for (int i = 0; i < ConcurrentDataFileStore.COMPACTION_THRESHOLD + 1; i++)
+        {
+            this.retrieve(store, "http://example.com/" + i, "example.com/" + i + ".png", 0);
+            store.removeFile("http://example.com/" + i);
+        }
+        store.removeFile(ADDRESS);
+        assertNull(store.getContentType(ADDRESS));
+
+        long indexLength = store.indexFile.length();
+        ConcurrentDataFileStore reopened = new ConcurrentDataFileStore(this.storeDir);
+        assertTrue("Entries restored ", reopened.entries.isEmpty());
+        assertTrue("Index not compacted ", reopened.indexFile.length() < indexLength);
+    }
+
+    /** Tests that an indexed file deleted from disk is discarded when requested. */
+    @Test
+    public void testMissingFileDiscarded() throws IOException
+    {
+        ConcurrentDataFileStore store = new ConcurrentDataFileStore(this.storeDir);
+        URL fileUrl = this.retrieve(store, "file-address", "example.com/file.png", 0);
+        assertTrue(WWIO.convertURLToFile(fileUrl).delete());
+
+        ConcurrentDataFileStore reopened = new ConcurrentDataFileStore(this.storeDir);
+        assertTrue(reopened.entries.containsKey("file-address"));
+        assertNull("Missing file not detected ", reopened.validateEntry(reopened.entries.get("file-address")));
+        assertNull("Missing file not discarded ", reopened.getContentType("file-address"));
+    }
+
+    /** Simulates a completed retrieval by writing a file and updating its pending entry. */
+    protected URL retrieve(ConcurrentDataFileStore store, String address, String path, long expiration)
+        throws IOException
+    {
+        File file = store.newFile(path);
+        WWIO.writeTextFile("data", file);
+        URL fileUrl = file.toURI().toURL();
+
+        BasicDataFileStore.DBEntry pending = new BasicDataFileStore.DBEntry(address);
+        pending.state = BasicDataFileStore.DBEntry.PENDING;
+        store.entries.put(address, pending);
+        store.updateEntry(address, fileUrl, expiration);
+
+        return fileUrl;
+    }
+}
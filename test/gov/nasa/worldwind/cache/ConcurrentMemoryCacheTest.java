@@ -0,0 +1,199 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ConcurrentMemoryCacheTest
+{
+    /** Tests that eviction brings the cache down to its low water and notifies listeners. */
+    @Test
+    public void testEviction()
+    {
+        AtomicLong removedSize = new AtomicLong();
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(50, 100, 4);
+        cache.addCacheListener(new SizeListener(removedSize));
+
+        for (int i = 0; i < 101; i++)
+        {
+            cache.add(i, 1L, 1);
+        }
+
+        assertTrue("Capacity exceeded ", cache.getUsedCapacity() <= cache.getCapacity());
+        assertTrue("Low water not reached ", cache.getUsedCapacity() <= cache.getLowWater());
+        assertEquals("Listener not notified of removals ", 101 - cache.getUsedCapacity(), removedSize.get());
+        assertEquals("Entry count incorrect ", cache.getUsedCapacity(), cache.getNumObjects());
+    }
+
+    /** Tests that replacing an entry accounts for its size only once and notifies listeners of the old entry. */
+    @Test
+    public void testReplacement()
+    {
+        AtomicLong removedSize = new AtomicLong();
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(5, 10);
+        cache.addCacheListener(new SizeListener(removedSize));
+
+        cache.add("a", 4L, 4);
+        cache.add("a", 3L, 3);
+
+        assertEquals("Replaced entry value incorrect ", 3L, cache.getObject("a"));
+        assertEquals("Used capacity incorrect ", 3, cache.getUsedCapacity());
+        assertEquals("Listener not notified of replacement ", 4, removedSize.get());
+
+        cache.remove("a");
+        assertFalse("Entry not removed ", cache.contains("a"));
+        assertEquals("Used capacity incorrect ", 0, cache.getUsedCapacity());
+        assertEquals("Listener not notified of removal ", 7, removedSize.get());
+    }
+
+    /** Tests that capacity accounting and listener notification remain consistent under concurrent use. */
+    @Test
+    public void testConcurrentAccounting() throws Exception
+    {
+        final int numThreads = 8;
+        final int numOperations = 20000;
+        final AtomicLong addedSize = new AtomicLong();
+        AtomicLong removedSize = new AtomicLong();
+        final ConcurrentMemoryCache cache = new ConcurrentMemoryCache(800, 1000);
+        cache.addCacheListener(new SizeListener(removedSize));
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int t = 0; t < numThreads; t++)
+        {
+            final int thread = t;
+            futures.add(executor.submit(new Callable<Object>()
+            {
+                public Object call() throws Exception
+                {
+                    start.await();
+                    for (int i = 0; i < numOperations; i++)
+                    {
+                        int key = (thread * 31 + i) % 5000;
+                        if (i % 3 == 0)
+                        {
+                            long size = 1 + key % 3;
+                            if (cache.add(key, size, size))
+                                addedSize.addAndGet(size);
+                        }
+                        else if (i % 7 == 0)
+                        {
+                            cache.remove(key);
+                        }
+                        else
+                        {
+                            cache.getObject(key);
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures)
+        {
+            future.get();
+        }
+        executor.shutdown();
+
+        long sum = 0;
+        for (ConcurrentMemoryCache.Segment segment : cache.segments)
+        {
+            for (BasicMemoryCache.CacheEntry entry : segment.entries.values())
+            {
+                sum += entry.clientObjectSize;
+            }
+            assertEquals("Policy out of sync with segment ", segment.entries.size(),
+                segment.evictionPolicy.getNumEntries());
+        }
+
+        assertEquals("Used capacity out of sync with entries ", sum, cache.getUsedCapacity());
+        assertEquals("Listener notifications out of sync ", addedSize.get() - removedSize.get(),
+            cache.getUsedCapacity());
+        assertTrue("Capacity exceeded ", cache.getUsedCapacity() <= cache.getCapacity());
+    }
+
+    /** Tests that the memory cache class configured globally or for a single cache key is the one created. */
+    @Test
+    public void testCreatedFromConfiguration()
+    {
+        String key = "ConcurrentMemoryCacheTest";
+        String cacheKey = AVKey.MEMORY_CACHE_CLASS_NAME + "." + key;
+        try
+        {
+            Configuration.setValue(cacheKey, ConcurrentMemoryCache.class.getName());
+            MemoryCache cache = BasicMemoryCacheSet.createCache(key, 90, 100);
+            assertTrue("Configured class not created ", cache instanceof ConcurrentMemoryCache);
+            assertEquals("Low water incorrect ", 90, cache.getLowWater());
+            assertEquals("Capacity incorrect ", 100, cache.getCapacity());
+            assertTrue("Other caches affected ",
+                BasicMemoryCacheSet.createCache(key + "Other", 90, 100) instanceof BasicMemoryCache);
+
+            Configuration.setValue(cacheKey, "gov.nasa.worldwind.cache.NoSuchCache");
+            assertTrue("Invalid class not replaced ",
+                BasicMemoryCacheSet.createCache(key, 90, 100) instanceof BasicMemoryCache);
+        }
+        finally
+        {
+            Configuration.removeKey(cacheKey);
+        }
+    }
+
+    /** Sums the sizes of removed entries. Each test value is the size of its entry. */
+    protected static class SizeListener implements MemoryCache.CacheListener
+    {
+        protected final AtomicLong removedSize;
+
+        public SizeListener(AtomicLong removedSize)
+        {
+            this.removedSize = removedSize;
+        }
+
+        public void entryRemoved(Object key, Object clientObject)
+        {
+            this.removedSize.addAndGet((Long) clientObject);
+        }
+
+        public void removalException(Throwable exception, Object key, Object clientObject)
+        {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.BufferWrapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class OffHeapMemoryCacheTest
+{
+    /** Tests that heap elevation payloads are moved to direct memory with their values intact. */
+    @Test
+    public void testBufferWrapperPayload()
+    {
+        ByteBuffer bytes = ByteBuffer.allocate(200).order(ByteOrder.LITTLE_ENDIAN);
+        BufferWrapper elevations = BufferWrapper.wrap(bytes, AVKey.INT16);
+        for (int i = 0; i < elevations.length(); i++)
+        {
+            elevations.putShort(i, (short) (i * 37 - 1000));
+        }
+
+        OffHeapMemoryCache cache = new OffHeapMemoryCache(500, 1000);
+        assertTrue("Payload not added ", cache.add("tile", elevations, 1));
+        assertEquals("Used capacity is not the payload size ", 200, cache.getUsedCapacity());
+
+        BufferWrapper cached = (BufferWrapper) cache.getObject("tile");
+        assertTrue("Payload not off heap ", cached.getBackingBuffer().isDirect());
+        assertEquals("Payload length incorrect ", elevations.length(), cached.length());
+        for (int i = 0; i < elevations.length(); i++)
+        {
+            assertEquals("Payload value incorrect ", elevations.getShort(i), cached.getShort(i));
+        }
+
+        // Direct payloads are adopted without copying.
+        assertSame("Direct payload copied ", cached, OffHeapMemoryCache.toDirect(cached));
+    }
+
+    /** Tests that byte buffer payloads are returned as independent zero-copy views. */
+    @Test
+    public void testByteBufferPayload()
+    {
+        ByteBuffer bytes = ByteBuffer.allocateDirect(64);
+        for (int i = 0; i < 64; i++)
+        {
+            bytes.put((byte) i);
+        }
+        bytes.flip();
+
+        OffHeapMemoryCache cache = new OffHeapMemoryCache(500, 1000);
+        assertTrue("Payload not added ", cache.add("texture", bytes, 64));
+
+        ByteBuffer view1 = (ByteBuffer) cache.getObject("texture");
+        view1.position(32);
+        ByteBuffer view2 = (ByteBuffer) cache.getObject("texture");
+        assertEquals("Views share position ", 0, view2.position());
+        assertEquals("View content incorrect ", 40, view2.get(40));
+
+        view1.put((byte) 99);
+        assertEquals("View is not zero-copy ", 99, bytes.get(32));
+    }
+
+    /** Tests that unsupported payloads are rejected. */
+    @Test
+    public void testUnsupportedPayload()
+    {
+        OffHeapMemoryCache cache = new OffHeapMemoryCache(500, 1000);
+        assertFalse("Unsupported payload added ", cache.add("key", "value", 5));
+        assertEquals("Used capacity incorrect ", 0, cache.getUsedCapacity());
+    }
+}
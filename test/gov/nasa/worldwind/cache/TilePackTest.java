@@ -0,0 +1,213 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TilePackTest
+{
+    protected static final int SEGMENT_SIZE = 4096;
+
+    protected File directory;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.directory = Files.createTempDirectory("wwpack").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        WWIO.deleteDirectory(this.directory);
+        this.directory.delete();
+    }
+
+    /** Tests that files are read back from the pack and from a reopened pack. */
+    @Test
+    public void testWriteAndReopen() throws IOException
+    {
+        TilePack pack = new TilePack(this.directory, SEGMENT_SIZE);
+        for (int i = 0; i < 100; i++)
+        {
+            pack.write("Earth/BMNG/" + i + ".dds", bytes("tile " + i), 1000 + i);
+        }
+        pack.write("Earth/BMNG/0.dds", bytes("replaced"), 2000);
+        assertTrue("Pack did not add segments ", this.directory.listFiles().length > 1);
+        assertEquals("Contents incorrect ", "replaced", string(pack.read("Earth/BMNG/0.dds")));
+        pack.close();
+
+        TilePack reopened = new TilePack(this.directory, SEGMENT_SIZE);
+        assertEquals("File count incorrect ", 100, reopened.getNumFiles());
+        assertEquals("Contents not restored ", "replaced", string(reopened.read("Earth/BMNG/0.dds")));
+        assertEquals("Contents not restored ", "tile 99", string(reopened.read("Earth/BMNG/99.dds")));
+        assertEquals("Modification time not restored ", 1050, reopened.getLastModified("Earth/BMNG/50.dds"));
+        assertTrue("Replaced file not counted ", reopened.getDeadBytes() > 0);
+        reopened.close();
+    }
+
+    /** Tests that removals persist and that compaction keeps live files and reclaims space. */
+    @Test
+    public void testRemoveAndCompact() throws IOException
+    {
+        TilePack pack = new TilePack(this.directory, SEGMENT_SIZE);
+        for (int i = 0; i < 100; i++)
+        {
+            pack.write("tiles/" + i + ".png", bytes("tile " + i), 0);
+        }
+        for (int i = 0; i < 100; i += 2)
+        {
+            assertTrue(pack.remove("tiles/" + i + ".png"));
+        }
+        assertFalse("Removed file reported ", pack.remove("tiles/0.png"));
+
+        long sizeBefore = this.packSize();
+        pack.compact();
+        assertEquals("Dead bytes not reclaimed ", 0, pack.getDeadBytes());
+        assertTrue("Pack not smaller ", this.packSize() < sizeBefore);
+        assertEquals("Contents lost by compaction ", "tile 51", string(pack.read("tiles/51.png")));
+        pack.close();
+
+        TilePack reopened = new TilePack(this.directory, SEGMENT_SIZE);
+        assertEquals("File count incorrect ", 50, reopened.getNumFiles());
+        assertFalse("Removed file restored ", reopened.contains("tiles/50.png"));
+        assertEquals("Contents not restored ", "tile 99", string(reopened.read("tiles/99.png")));
+        reopened.close();
+    }
+
+    /** Tests that a record whose write did not complete is ignored and overwritten. */
+    @Test
+    public void testIncompleteRecordIgnored() throws IOException
+    {
+        TilePack pack = new TilePack(this.directory, SEGMENT_SIZE);
+        pack.write("a.png", bytes("a"), 0);
+        TilePack.Segment segment = pack.segments.get(0);
+        int start = segment.writePosition;
+        pack.writeRecord(segment, "b.png".getBytes(StandardCharsets.UTF_8), 0, bytes("b"));
+        segment.buffer.putInt(start, 0); // Clear the second record's magic number
+        pack.close();
+
+        TilePack reopened = new TilePack(this.directory, SEGMENT_SIZE);
+        assertTrue(reopened.contains("a.png"));
+        assertFalse("Incomplete record read ", reopened.contains("b.png"));
+        reopened.write("c.png", bytes("c"), 0);
+        reopened.close();
+
+        reopened = new TilePack(this.directory, SEGMENT_SIZE);
+        assertEquals("Contents incorrect ", "c", string(reopened.read("c.png")));
+        reopened.close();
+    }
+
+    /** Tests reading a file through its URL, and checking its expiration. */
+    @Test
+    public void testURL() throws IOException
+    {
+        TilePack pack = new TilePack(this.directory, SEGMENT_SIZE);
+        pack.write("Earth/My Layer/3/1_2.png", bytes("contents"), 5000);
+
+        URL url = pack.getURL("Earth/My Layer/3/1_2.png");
+        assertEquals("Key incorrect ", "Earth/My Layer/3/1_2.png", pack.getKey(url));
+        assertNull("URL for missing file ", pack.getURL("missing.png"));
+        assertEquals("Stream contents incorrect ", "contents", WWIO.readStreamToString(url.openStream(), null));
+        assertEquals("Content type incorrect ", "image/png", url.openConnection().getContentType());
+        assertTrue("File not out of date ", WWIO.isFileOutOfDate(url, 6000));
+        assertFalse("File out of date ", WWIO.isFileOutOfDate(url, 4000));
+
+        pack.remove("Earth/My Layer/3/1_2.png");
+        try
+        {
+            url.openStream();
+            fail("Removed file opened");
+        }
+        catch (FileNotFoundException e)
+        {
+            // expected
+        }
+        pack.close();
+    }
+
+    /** Tests that a packed file store finds migrated files in its pack, and removes them. */
+    @Test
+    public void testPackedFileStore() throws IOException
+    {
+        File tile = new File(this.directory, "Earth/Layer/0/0_0.png");
+        tile.getParentFile().mkdirs();
+        WWIO.writeTextFile("tile", tile);
+        WWIO.writeTextFile("<Layer/>", new File(this.directory, "Earth/Layer/Layer.xml"));
+
+        PackedFileStore store = new PackedFileStore(this.directory);
+        int count = TilePackMigrator.migrate(this.directory, store.getPack(), Arrays.asList(".png"), true);
+        assertEquals("Migrated file count incorrect ", 1, count);
+        assertFalse("Migrated file not deleted ", tile.exists());
+
+        URL url = store.findFile("Earth/Layer/0/0_0.png", false);
+        assertEquals("Packed file not found ", TilePack.URL_PROTOCOL, url.getProtocol());
+        assertEquals("Contents incorrect ", "tile", WWIO.readStreamToString(url.openStream(), null));
+        assertEquals("Unpacked file not found ", "file", store.findFile("Earth/Layer/Layer.xml", false).getProtocol());
+        assertTrue(store.containsFile("Earth/Layer/0/0_0.png"));
+
+        store.removeFile(url);
+        assertFalse("Removed file found ", store.containsFile("Earth/Layer/0/0_0.png"));
+        store.getPack().close();
+    }
+
+    protected long packSize()
+    {
+        long size = 0;
+        for (File file : this.directory.listFiles())
+        {
+            size += file.length();
+        }
+        return size;
+    }
+
+    protected static ByteBuffer bytes(String s)
+    {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected static String string(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
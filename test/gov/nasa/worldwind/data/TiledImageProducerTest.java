@@ -0,0 +1,200 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.beans.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TiledImageProducerTest
+{
+    protected static final Sector SECTOR = Sector.fromDegrees(0, 9, 0, 18);
+
+    protected File storeDir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.storeDir = Files.createTempDirectory("TiledImageProducerTest").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        WWIO.deleteDirectory(this.storeDir);
+    }
+
+    /** Tests that a pyramid built in parallel is identical to one built serially, and that progress completes. */
+    @Test
+    public void testParallelPyramidMatchesSerialPyramid() throws Exception
+    {
+        Map<String, byte[]> serial = this.produce("serial", 1, Long.MAX_VALUE);
+        Map<String, byte[]> parallel = this.produce("parallel", 4, Long.MAX_VALUE);
+        // A budget smaller than one sub-tree builds one top-level tile at a time, without concurrent sub-trees.
+        Map<String, byte[]> budgeted = this.produce("budgeted", 4, 1);
+
+        assertTrue("Too few tiles", serial.size() > 20);
+        assertTilesEqual(serial, parallel);
+        assertTilesEqual(serial, budgeted);
+    }
+
+    /** Tests that finding source rasters through the data raster index draws the same tiles as a linear scan. */
+    @Test
+    public void testIndexedPyramidMatchesScannedPyramid() throws Exception
+    {
+        // Split the image into a grid of source rasters, enough for the producer to index them.
+        BufferedImage image = createImage();
+        List<DataRaster> rasters = new ArrayList<DataRaster>();
+        for (int row = 0; row < 4; row++)
+        {
+            for (int col = 0; col < 8; col++)
+            {
+                BufferedImage subImage = image.getSubimage(col * 128, (3 - row) * 128, 128, 128);
+                rasters.add(new BufferedImageRaster(Sector.fromDegrees(row * 2.25, (row + 1) * 2.25, col * 2.25,
+                    (col + 1) * 2.25), subImage));
+            }
+        }
+
+        TiledImageProducer indexed = new TiledImageProducer();
+        TiledImageProducer scanned = new TiledImageProducer()
+        {
+            @Override
+            protected BasicQuadTree<Integer> buildDataRasterIndex(List<DataRaster> rasters)
+            {
+                return null;
+            }
+        };
+
+        Map<String, byte[]> indexedTiles = this.produce(indexed, "indexed", rasters, 1, Long.MAX_VALUE);
+        Map<String, byte[]> scannedTiles = this.produce(scanned, "scanned", rasters, 1, Long.MAX_VALUE);
+
+        assertTrue("Too few tiles", indexedTiles.size() > 20);
+        assertTilesEqual(scannedTiles, indexedTiles);
+
+        RasterProductionStatistics statistics = indexed.getProductionStatistics();
+        assertTrue("Lookups not recorded", statistics.getLookupCount() > 0);
+        assertTrue("Resamples not recorded", statistics.getResampleCount() >= statistics.getLookupCount());
+    }
+
+    protected static BufferedImage createImage()
+    {
+        BufferedImage image = new BufferedImage(1024, 512, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++)
+        {
+            for (int x = 0; x < image.getWidth(); x++)
+            {
+                image.setRGB(x, y, 0xFF000000 | (x & 0xFF) << 16 | (y & 0xFF) << 8 | ((x ^ y) & 0xFF));
+            }
+        }
+        return image;
+    }
+
+    protected Map<String, byte[]> produce(String datasetName, int parallelism, long memoryBudget) throws Exception
+    {
+        List<DataRaster> rasters = new ArrayList<DataRaster>();
+        rasters.add(new BufferedImageRaster(SECTOR, createImage()));
+
+        return this.produce(new TiledImageProducer(), datasetName, rasters, parallelism, memoryBudget);
+    }
+
+    protected Map<String, byte[]> produce(TiledImageProducer producer, String datasetName, List<DataRaster> rasters,
+        int parallelism, long memoryBudget) throws Exception
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.FILE_STORE_LOCATION, this.storeDir.getAbsolutePath());
+        params.setValue(AVKey.DATA_CACHE_NAME, datasetName);
+        params.setValue(AVKey.DATASET_NAME, datasetName);
+        params.setValue(AVKey.TILE_WIDTH, 64);
+        params.setValue(AVKey.TILE_HEIGHT, 64);
+
+        producer.setParallelism(parallelism);
+        producer.setMemoryBudget(memoryBudget);
+        producer.setStoreParameters(params);
+        for (DataRaster raster : rasters)
+        {
+            producer.offerDataSource(raster, null);
+        }
+
+        final double[] progress = new double[1];
+        producer.addPropertyChangeListener(AVKey.PROGRESS, new PropertyChangeListener()
+        {
+            public void propertyChange(PropertyChangeEvent event)
+            {
+                synchronized (progress)
+                {
+                    progress[0] = Math.max(progress[0], (Double) event.getNewValue());
+                }
+            }
+        });
+
+        producer.startProduction();
+
+        assertEquals("Final progress", 1d, progress[0], 1e-9);
+
+        Map<String, byte[]> tiles = new TreeMap<String, byte[]>();
+        File root = new File(this.storeDir, datasetName);
+        collectTiles(root, root, tiles);
+        return tiles;
+    }
+
+    protected static void collectTiles(File root, File dir, Map<String, byte[]> tiles) throws IOException
+    {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+
+        for (File file : files)
+        {
+            if (file.isDirectory())
+                collectTiles(root, file, tiles);
+            else if (file.getName().endsWith(".png"))
+                tiles.put(root.toURI().relativize(file.toURI()).getPath(), Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    protected static void assertTilesEqual(Map<String, byte[]> expected, Map<String, byte[]> actual)
+    {
+        assertEquals("Tile names", expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet())
+        {
+            assertTrue("Tile " + entry.getKey(), Arrays.equals(entry.getValue(), actual.get(entry.getKey())));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.*;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class DDSCompressorTest
+{
+    @Test
+    public void testParallelDXT1MatchesSerial()
+    {
+        this.assertParallelMatchesSerial(createTestImage(1024, 512, false), DDSConstants.D3DFMT_DXT1);
+    }
+
+    @Test
+    public void testParallelDXT3MatchesSerial()
+    {
+        this.assertParallelMatchesSerial(createTestImage(512, 1024, true), DDSConstants.D3DFMT_DXT3);
+    }
+
+    @Test
+    public void testParallelMatchesSerialForNarrowImage()
+    {
+        // Narrow images have many short rows of blocks, and mip map levels narrower than one block.
+        this.assertParallelMatchesSerial(createTestImage(16, 4096, true), DDSConstants.D3DFMT_DXT3);
+    }
+
+    @Test
+    public void testParallelMatchesSerialWithoutMipMaps()
+    {
+        DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+        attributes.setBuildMipmaps(false);
+        attributes.setDXTFormat(DDSConstants.D3DFMT_DXT1);
+
+        assertCompressionMatches(createTestImage(1024, 1024, false), attributes);
+    }
+
+    protected void assertParallelMatchesSerial(BufferedImage image, int format)
+    {
+        DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+        attributes.setBuildMipmaps(true);
+        attributes.setDXTFormat(format);
+
+        assertCompressionMatches(image, attributes);
+    }
+
+    protected static void assertCompressionMatches(BufferedImage image, DXTCompressionAttributes attributes)
+    {
+        attributes.setEnableParallelCompression(false);
+        ByteBuffer serial = new DDSCompressor().compressImage(image, attributes);
+
+        attributes.setEnableParallelCompression(true);
+        ByteBuffer parallel = new DDSCompressor().compressImage(image, attributes);
+
+        assertEquals("Buffer position", 0, parallel.position());
+        assertEquals("Buffer limit", serial.limit(), parallel.limit());
+        assertEquals("Compressed contents", serial, parallel);
+    }
+
+    protected static BufferedImage createTestImage(int width, int height, boolean hasAlpha)
+    {
+        BufferedImage image = new BufferedImage(width, height,
+            hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int a = (x * y) & 0xFF;
+                int r = (x * 7 + y) & 0xFF;
+                int g = (x ^ y) & 0xFF;
+                int b = (y * 3 - x) & 0xFF;
+                image.setRGB(x, y, (a << 24) | (r << 16) | (g << 8) | b);
+            }
+        }
+
+        return image;
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.formats.geojson;
+
+import gov.nasa.worldwind.avlist.AVList;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.util.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeoJSONFeatureReaderTest
+{
+    protected static final String FEATURE_COLLECTION = "{\"type\": \"FeatureCollection\", \"features\": ["
+        + "{\"type\": \"Feature\", \"properties\": {\"name\": \"point\", \"rank\": 1, \"area\": 2.5, \"open\": true},"
+        + " \"geometry\": {\"type\": \"Point\", \"coordinates\": [102.0, 0.5]}},"
+        + "{\"type\": \"Feature\", \"geometry\": {\"coordinates\": [[102.0, 0.0, 10], [103.0, 1.0, 20]],"
+        + " \"type\": \"LineString\"}, \"properties\": null},"
+        + "{\"type\": \"Feature\", \"geometry\": {\"type\": \"Polygon\", \"coordinates\": ["
+        + "[[100.0, 0.0], [101.0, 0.0], [101.0, 1.0], [100.0, 1.0], [100.0, 0.0]],"
+        + "[[100.2, 0.2], [100.8, 0.2], [100.8, 0.8], [100.2, 0.8], [100.2, 0.2]]]}},"
+        + "{\"type\": \"Feature\", \"geometry\": {\"type\": \"MultiPolygon\", \"coordinates\": ["
+        + "[[[102.0, 2.0], [103.0, 2.0], [103.0, 3.0], [102.0, 3.0], [102.0, 2.0]]],"
+        + "[[[100.0, 0.0], [101.0, 0.0], [101.0, 1.0], [100.0, 1.0], [100.0, 0.0]],"
+        + "[[100.2, 0.2], [100.8, 0.2], [100.8, 0.8], [100.2, 0.8], [100.2, 0.2]]]]}},"
+        + "{\"type\": \"Feature\", \"geometry\": {\"type\": \"MultiLineString\", \"coordinates\": ["
+        + "[[100.0, 0.0], [101.0, 1.0]], [[102.0, 2.0], [103.0, 3.0]]]}}"
+        + "], \"bbox\": [100.0, 0.0, 103.0, 3.0]}";
+
+    @Test
+    public void testMatchesGeoJSONDoc() throws IOException
+    {
+        GeoJSONFeatureCollection expected = (GeoJSONFeatureCollection) parseDoc(FEATURE_COLLECTION);
+        GeoJSONFeatureCollection actual = (GeoJSONFeatureCollection) read(FEATURE_COLLECTION);
+
+        assertNotNull(actual);
+        assertEquals(Arrays.asList(expected.getBoundingBox()), Arrays.asList(actual.getBoundingBox()));
+        assertEquals(expected.getFeatures().length, actual.getFeatures().length);
+
+        for (int i = 0; i < expected.getFeatures().length; i++)
+        {
+            GeoJSONFeature e = expected.getFeatures()[i];
+            GeoJSONFeature a = actual.getFeatures()[i];
+
+            assertEquals(e.getGeometry().getType(), a.getGeometry().getType());
+            assertCoordinatesEqual(e.getGeometry().getValue(GeoJSONConstants.FIELD_COORDINATES),
+                a.getGeometry().getValue(GeoJSONConstants.FIELD_COORDINATES));
+            assertPropertiesEqual(e.getProperties(), a.getProperties());
+        }
+    }
+
+    @Test
+    public void testStreamFeatures() throws IOException
+    {
+        GeoJSONFeatureReader reader = new GeoJSONFeatureReader(WWIO.getInputStreamFromString(FEATURE_COLLECTION));
+        try
+        {
+            List<String> types = new ArrayList<String>();
+            for (GeoJSONObject o = reader.nextObject(); o != null; o = reader.nextObject())
+            {
+                assertTrue(o.isFeature());
+                types.add(o.asFeature().getGeometry().getType());
+            }
+
+            assertEquals(Arrays.asList("Point", "LineString", "Polygon", "MultiPolygon", "MultiLineString"), types);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testPolygonCoordinates() throws IOException
+    {
+        GeoJSONFeatureCollection collection = (GeoJSONFeatureCollection) read(FEATURE_COLLECTION);
+        GeoJSONPolygon polygon = collection.getFeatures()[2].getGeometry().asPolygon();
+
+        assertEquals(1, polygon.getInteriorRingCount());
+        assertEquals(5, polygon.getExteriorRing().length());
+        assertEquals(Position.fromDegrees(0.2, 100.8), polygon.getInteriorRing(0).getPosition(1));
+
+        VecBuffer vecBuffer = polygon.getInteriorRing(0).getVecBuffer();
+        assertEquals(5, vecBuffer.getSize());
+        assertEquals(2, vecBuffer.getCoordsPerVec());
+        double[] coords = vecBuffer.get(1, new double[2]);
+        assertEquals(100.8, coords[0], 0);
+        assertEquals(0.2, coords[1], 0);
+
+        GeoJSONMultiPolygon multiPolygon = collection.getFeatures()[3].getGeometry().asMultiPolygon();
+        assertEquals(2, multiPolygon.getPolygonCount());
+        assertEquals(1, multiPolygon.getInteriorRingCount(1));
+        assertEquals(Position.fromDegrees(3, 103), multiPolygon.getExteriorRing(0).getPosition(2));
+    }
+
+    @Test
+    public void testSingleGeometryAndMixedPositionSizes() throws IOException
+    {
+        GeoJSONObject o = (GeoJSONObject) read(
+            "{\"coordinates\": [[1, 2, 3], [4, 5], [6, 7, 8, 9]], \"type\": \"LineString\"}");
+
+        assertTrue(o.isLineString());
+        GeoJSONPositionArray positions = o.asLineString().getCoordinates();
+        assertEquals(3, positions.length());
+        assertEquals(Position.fromDegrees(2, 1, 3), positions.getPosition(0));
+        assertEquals(Position.fromDegrees(5, 4, 0), positions.getPosition(1));
+        assertEquals(Position.fromDegrees(7, 6, 8), positions.getPosition(2));
+    }
+
+    @Test
+    public void testRootArray() throws IOException
+    {
+        Object o = read("[{\"type\": \"Point\", \"coordinates\": [1, 2]}, {\"type\": \"Point\", \"coordinates\": [3, 4]}]");
+
+        assertTrue(o instanceof Object[]);
+        assertEquals(2, ((Object[]) o).length);
+        assertEquals(Position.fromDegrees(4, 3), ((GeoJSONPoint) ((Object[]) o)[1]).getPosition());
+    }
+
+    @Test
+    public void testGeometryCollection() throws IOException
+    {
+        GeoJSONObject o = (GeoJSONObject) read("{\"type\": \"GeometryCollection\", \"geometries\": ["
+            + "{\"type\": \"Point\", \"coordinates\": [1, 2]}, {\"type\": \"LineString\", \"coordinates\": [[1, 2], [3, 4]]}]}");
+
+        assertTrue(o.isGeometryCollection());
+        assertEquals(2, o.asGeometryCollection().getGeometries().length);
+        assertTrue(o.asGeometryCollection().getGeometries()[1].isLineString());
+    }
+
+    @Test
+    public void testUnrecognizedValues() throws IOException
+    {
+        String json = "[{\"type\": \"Point\", \"coordinates\": [1, 2]}, {\"type\": \"Unknown\"}, 5]";
+
+        GeoJSONFeatureReader reader = new GeoJSONFeatureReader(WWIO.getInputStreamFromString(json));
+        try
+        {
+            assertTrue(reader.nextValue() instanceof GeoJSONPoint);
+            Object unknown = reader.nextValue();
+            assertTrue(unknown instanceof AVList);
+            assertEquals("Unknown", ((AVList) unknown).getValue(GeoJSONConstants.FIELD_TYPE));
+            assertEquals(5d, reader.nextValue());
+            assertNull(reader.nextValue());
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        reader = new GeoJSONFeatureReader(WWIO.getInputStreamFromString(json));
+        try
+        {
+            assertTrue(reader.nextObject() instanceof GeoJSONPoint);
+            assertNull(reader.nextObject());
+        }
+        finally
+        {
+            reader.close();
+        }
+
+        Object root = read("{\"type\": \"Unknown\", \"name\": \"a\"}");
+        assertTrue(root instanceof AVList);
+        assertEquals("a", ((AVList) root).getValue("name"));
+        assertEquals("text", read("\"text\""));
+    }
+
+    protected static Object parseDoc(String json) throws IOException
+    {
+        GeoJSONDoc doc = new GeoJSONDoc(WWIO.getInputStreamFromString(json));
+        try
+        {
+            doc.parse();
+            return doc.getRootObject();
+        }
+        finally
+        {
+            doc.close();
+        }
+    }
+
+    protected static Object read(String json) throws IOException
+    {
+        GeoJSONFeatureReader reader = new GeoJSONFeatureReader(WWIO.getInputStreamFromString(json));
+        try
+        {
+            return reader.read();
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    protected static void assertCoordinatesEqual(Object expected, Object actual)
+    {
+        if (expected instanceof GeoJSONPositionArray)
+        {
+            GeoJSONPositionArray e = (GeoJSONPositionArray) expected;
+            GeoJSONPositionArray a = (GeoJSONPositionArray) actual;
+            assertEquals(e.length(), a.length());
+            for (int i = 0; i < e.length(); i++)
+            {
+                assertEquals(e.getPosition(i), a.getPosition(i));
+            }
+        }
+        else
+        {
+            Object[] e = (Object[]) expected;
+            Object[] a = (Object[]) actual;
+            assertEquals(e.length, a.length);
+            for (int i = 0; i < e.length; i++)
+            {
+                assertCoordinatesEqual(e[i], a[i]);
+            }
+        }
+    }
+
+    protected static void assertPropertiesEqual(AVList expected, AVList actual)
+    {
+        if (expected == null)
+        {
+            assertNull(actual);
+            return;
+        }
+
+        assertEquals(expected.getEntries().size(), actual.getEntries().size());
+        for (Map.Entry<String, Object> entry : expected.getEntries())
+        {
+            assertEquals(entry.getValue(), actual.getValue(entry.getKey()));
+        }
+    }
+}
@@ -27,6 +27,7 @@
  */
 package gov.nasa.worldwind.formats.shapefile;
 
+import gov.nasa.worldwind.Configuration;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
@@ -35,9 +36,10 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
-import java.io.File;
+import java.io.*;
 import java.net.*;
-import java.util.Arrays;
+import java.nio.file.*;
+import java.util.*;
 
 import static org.junit.Assert.*;
 
@@ -47,6 +49,7 @@ public class ShapefileTest
     private static final String STATE_BOUNDS_PATH = "testData/shapefiles/state_bounds.shp";
     private static final String WORLD_BORDERS_PATH = "testData/shapefiles/TM_WORLD_BORDERS-0.3.shp";
     private static final String SPRINGFIELD_URBAN_GROWTH_PATH = "testData/shapefiles/SPR_UGB.shp";
+    private static final String BAY_AREA_PATH = "testData/shapefiles/BayArea.shp";
 
     //////////////////////////////////////////////////////////
     // Test Basic Reading
@@ -249,6 +252,346 @@ public class ShapefileTest
         }
     }
 
+    //////////////////////////////////////////////////////////
+    // Test Parallel Reading
+    //////////////////////////////////////////////////////////
+
+    @Test
+    public void testReadRecordsMatchesNextRecord()
+    {
+        for (String path : Arrays.asList(STATE_BOUNDS_PATH, SPRINGFIELD_URBAN_GROWTH_PATH, BAY_AREA_PATH))
+        {
+            Shapefile expected = new Shapefile(path);
+            Shapefile actual = new Shapefile(path);
+            actual.recordBatchSize = 5; // Decode these small files in several chunks.
+
+            // Read the first record sequentially, then read the remaining records in parallel.
+            assertRecordsEqual(expected.nextRecord(), actual.nextRecord());
+
+            ShapefileRecord[] records = actual.readRecords();
+            assertFalse("Records remain after reading all records", actual.hasNext());
+            assertEquals("Record count is not as expected", expected.getNumberOfRecords() - 1, records.length);
+
+            for (ShapefileRecord record : records)
+            {
+                assertRecordAppearsNormal(actual, record);
+                assertRecordsEqual(expected.nextRecord(), record);
+            }
+
+            assertFalse("Records remain after reading all records", expected.hasNext());
+            assertEquals("Point buffer size is not as expected", expected.getPointBuffer().size(),
+                actual.getPointBuffer().size());
+
+            expected.close();
+            actual.close();
+        }
+    }
+
+    @Test
+    public void testAttributeColumnMatchesRecordAttributes()
+    {
+        Shapefile shapefile = new Shapefile(STATE_BOUNDS_PATH);
+        ShapefileRecord[] records = shapefile.readRecords();
+
+        for (String name : shapefile.getAttributeNames())
+        {
+            DBaseColumn column = shapefile.getAttributeColumn(name);
+            assertNotNull("Column is null", column);
+            assertEquals("Column size is not as expected", records.length, column.size());
+
+            for (int i = 0; i < records.length; i++)
+            {
+                Object value = records[i].getAttributes().getValue(name);
+                assertEquals("Column value is not as expected", value, column.getValue(i));
+                assertEquals("Column null value is not as expected", value == null, column.isNull(i));
+
+                if (value instanceof Number)
+                    assertEquals("Column number is not as expected", ((Number) value).doubleValue(),
+                        column.getDouble(i), 0d);
+            }
+        }
+
+        assertNull("Column is not null", shapefile.getAttributeColumn("NotAnAttribute"));
+        shapefile.close();
+    }
+
+    @Test
+    public void testReadRecordMatchesNextRecord()
+    {
+        for (String path : Arrays.asList(STATE_BOUNDS_PATH, SPRINGFIELD_URBAN_GROWTH_PATH, BAY_AREA_PATH))
+        {
+            Shapefile expected = new Shapefile(path);
+            ArrayList<ShapefileRecord> expectedRecords = new ArrayList<ShapefileRecord>();
+            while (expected.hasNext())
+            {
+                expectedRecords.add(expected.nextRecord());
+            }
+
+            // Read the records in reverse order, then read them again to verify that points converted in place are not
+            // converted a second time.
+            Shapefile actual = new Shapefile(path);
+            for (int pass = 0; pass < 2; pass++)
+            {
+                for (int i = expectedRecords.size() - 1; i >= 0; i--)
+                {
+                    assertRecordContentsEqual(expectedRecords.get(i), actual.readRecord(i));
+                }
+            }
+
+            // Records already read sequentially are not converted again either.
+            assertRecordContentsEqual(expectedRecords.get(0), expected.readRecord(0));
+            assertNull("Point buffer is not null", actual.getPointBuffer());
+
+            expected.close();
+            actual.close();
+        }
+    }
+
+    @Test
+    public void testNextRecordAfterReadRecord()
+    {
+        for (String path : Arrays.asList(STATE_BOUNDS_PATH, SPRINGFIELD_URBAN_GROWTH_PATH, BAY_AREA_PATH))
+        {
+            Shapefile expected = new Shapefile(path);
+            ArrayList<ShapefileRecord> expectedRecords = new ArrayList<ShapefileRecord>();
+            while (expected.hasNext())
+            {
+                expectedRecords.add(expected.nextRecord());
+            }
+
+            // Read records at random, then stream past them both sequentially and in parallel. Points converted in
+            // place by readRecord must not be converted a second time.
+            int last = expectedRecords.size() - 1; // some files hold a single record
+            Shapefile actual = new Shapefile(path);
+            actual.recordBatchSize = 5;
+            actual.readRecord(0);
+            actual.readRecord(last);
+            assertRecordContentsEqual(expectedRecords.get(0), actual.nextRecord());
+
+            ShapefileRecord[] records = actual.readRecords();
+            for (int i = 0; i < records.length; i++)
+            {
+                assertRecordContentsEqual(expectedRecords.get(i + 1), records[i]);
+            }
+
+            expected.close();
+            actual.close();
+        }
+    }
+
+    @Test
+    public void testCloseReleasesUnusedMappings()
+    {
+        Shapefile shapefile = new Shapefile(STATE_BOUNDS_PATH);
+        shapefile.close();
+        assertNull("Mapped Shapefile is retained", shapefile.mappedShpBuffer);
+        assertNull("Attribute file is retained", shapefile.attributeFile);
+
+        shapefile = new Shapefile(STATE_BOUNDS_PATH);
+        ShapefileRecord expected = shapefile.readRecord(0);
+        shapefile.close();
+        assertNotNull("Mapped Shapefile is released", shapefile.mappedShpBuffer);
+        assertRecordContentsEqual(expected, shapefile.readRecord(0));
+    }
+
+    @Test
+    public void testSpatialIndexContainsIntersectingRecords() throws IOException
+    {
+        File shpFile = copyShapefile(BAY_AREA_PATH);
+        Shapefile shapefile = new Shapefile(shpFile);
+        ShapefileSpatialIndex spatialIndex = shapefile.getSpatialIndex();
+        assertNotNull("Spatial index is null", spatialIndex);
+        assertTrue("Spatial index file does not exist", new File(WWIO.replaceSuffix(shpFile.getPath(), ".qix")).exists());
+        assertEquals("Spatial index size is not as expected", shapefile.getNumberOfRecords(),
+            spatialIndex.getNumberOfShapes());
+
+        ArrayList<double[]> bounds = new ArrayList<double[]>();
+        while (shapefile.hasNext())
+        {
+            bounds.add(shapefile.nextRecord().getBoundingRectangle()); // minY, maxY, minX, maxX
+        }
+
+        int[] indexedShapes = spatialIndex.getIndexedShapes();
+        assertEquals("Indexed record count is not as expected", bounds.size(), indexedShapes.length);
+        for (int i = 0; i < indexedShapes.length; i++)
+        {
+            assertEquals("Indexed record is not as expected", i, indexedShapes[i]);
+        }
+
+        // Query each quadrant of the shapefile, along with each record's bounding rectangle.
+        double[] rect = shapefile.getBoundingRectangle();
+        double midY = 0.5 * (rect[0] + rect[1]);
+        double midX = 0.5 * (rect[2] + rect[3]);
+        ArrayList<double[]> queries = new ArrayList<double[]>(bounds);
+        queries.add(new double[] {rect[0], midY, rect[2], midX});
+        queries.add(new double[] {rect[0], midY, midX, rect[3]});
+        queries.add(new double[] {midY, rect[1], rect[2], midX});
+        queries.add(new double[] {midY, rect[1], midX, rect[3]});
+
+        for (double[] query : queries)
+        {
+            int[] shapes = spatialIndex.query(query[2], query[0], query[3], query[1]);
+            for (int i = 0; i < bounds.size(); i++)
+            {
+                double[] b = bounds.get(i);
+                boolean intersects = b[0] <= query[1] && b[1] >= query[0] && b[2] <= query[3] && b[3] >= query[2];
+                if (intersects)
+                    assertTrue("Intersecting record is missing", Arrays.binarySearch(shapes, i) >= 0);
+            }
+        }
+
+        shapefile.close();
+    }
+
+    @Test
+    public void testSpatialIndexIsReadFromFile() throws IOException
+    {
+        File shpFile = copyShapefile(BAY_AREA_PATH);
+        File qixFile = new File(WWIO.replaceSuffix(shpFile.getPath(), ".qix"));
+
+        Shapefile shapefile = new Shapefile(shpFile);
+        ShapefileSpatialIndex expected = shapefile.getSpatialIndex();
+        shapefile.close();
+
+        // An index file more recent than the shapefile is read rather than rebuilt.
+        long lastModified = shpFile.lastModified() + 10000;
+        assertTrue("Cannot set modification time", qixFile.setLastModified(lastModified));
+        shapefile = new Shapefile(shpFile);
+        ShapefileSpatialIndex actual = shapefile.getSpatialIndex();
+        assertEquals("Spatial index file was rewritten", lastModified, qixFile.lastModified());
+        assertEquals("Spatial index depth is not as expected", expected.getMaxDepth(), actual.getMaxDepth());
+        assertTrue("Spatial index is not as expected",
+            Arrays.equals(expected.getIndexedShapes(), actual.getIndexedShapes()));
+        double[] rect = shapefile.getBoundingRectangle();
+        assertTrue("Spatial index query is not as expected", Arrays.equals(
+            expected.query(rect[2], rect[0], 0.5 * (rect[2] + rect[3]), 0.5 * (rect[0] + rect[1])),
+            actual.query(rect[2], rect[0], 0.5 * (rect[2] + rect[3]), 0.5 * (rect[0] + rect[1]))));
+        shapefile.close();
+
+        // An unrecognized index file is replaced.
+        Files.write(qixFile.toPath(), new byte[] {1, 2, 3});
+        assertTrue("Cannot set modification time", qixFile.setLastModified(lastModified));
+        shapefile = new Shapefile(shpFile);
+        actual = shapefile.getSpatialIndex();
+        assertTrue("Spatial index is not as expected",
+            Arrays.equals(expected.getIndexedShapes(), actual.getIndexedShapes()));
+        assertEquals("Spatial index file is not as expected", ShapefileSpatialIndex.read(qixFile).getMaxDepth(),
+            expected.getMaxDepth());
+        shapefile.close();
+    }
+
+    @Test
+    public void testPagedPolygonsMatchAssembledPolygons() throws IOException
+    {
+        File shpFile = copyShapefile(BAY_AREA_PATH);
+        ShapefilePolygons expected = new ShapefilePolygons(new Shapefile(shpFile));
+
+        ShapefilePolygons actual;
+        Configuration.setValue(AVKey.SHAPEFILE_RECORD_PAGING_THRESHOLD, 1);
+        try
+        {
+            actual = new ShapefilePolygons(new Shapefile(shpFile));
+        }
+        finally
+        {
+            Configuration.removeKey(AVKey.SHAPEFILE_RECORD_PAGING_THRESHOLD);
+        }
+
+        assertNotNull("Records are not paged", actual.pagedShapefile);
+        assertEquals("Record count is not as expected", expected.getRecordCount(), actual.getRecordCount());
+
+        // Only the records in the region of interest are paged in.
+        Sector sector = expected.getSector().subdivide()[0];
+        Collection<ShapefilePolygons.Record> records = actual.getIntersectingRecords(sector);
+        int numPagedRecords = 0;
+        for (int i = 0; i < actual.pagedRecords.length(); i++)
+        {
+            if (actual.pagedRecords.get(i) != null)
+                numPagedRecords++;
+        }
+        assertEquals("Paged record count is not as expected", records.size(), numPagedRecords);
+
+        for (ShapefileRenderable.Record record : expected)
+        {
+            if (record.getSector().intersects(sector))
+                assertTrue("Intersecting record is missing", records.contains(actual.getRecord(record.getOrdinal())));
+        }
+
+        Iterator<ShapefileRenderable.Record> iterator = actual.iterator();
+        for (ShapefileRenderable.Record record : expected)
+        {
+            ShapefileRenderable.Record pagedRecord = iterator.next();
+            assertEquals("Record ordinal is not as expected", record.getOrdinal(), pagedRecord.getOrdinal());
+            assertEquals("Record sector is not as expected", record.getSector(), pagedRecord.getSector());
+            assertEquals("Record boundaries are not as expected", record.getBoundaryCount(),
+                pagedRecord.getBoundaryCount());
+
+            for (int i = 0; i < record.getBoundaryCount(); i++)
+            {
+                VecBuffer expectedPoints = record.getBoundaryPoints(i);
+                VecBuffer actualPoints = pagedRecord.getBoundaryPoints(i);
+                assertEquals("Boundary size is not as expected", expectedPoints.getSize(), actualPoints.getSize());
+                for (int j = 0; j < expectedPoints.getSize(); j++)
+                {
+                    assertTrue("Boundary point is not as expected",
+                        Arrays.equals(expectedPoints.get(j, new double[2]), actualPoints.get(j, new double[2])));
+                }
+            }
+        }
+        assertFalse("Record count is not as expected", iterator.hasNext());
+    }
+
+    /**
+     * Copies a shapefile and its accompanying files to a new temporary directory, so that tests may write files next
+     * to the copied shapefile.
+     */
+    protected static File copyShapefile(String path) throws IOException
+    {
+        File dir = Files.createTempDirectory("ShapefileTest").toFile();
+        dir.deleteOnExit();
+
+        for (String suffix : Arrays.asList(".shp", ".shx", ".dbf", ".prj"))
+        {
+            File source = new File(WWIO.replaceSuffix(path, suffix));
+            File target = new File(dir, source.getName());
+            Files.copy(source.toPath(), target.toPath());
+            target.deleteOnExit();
+        }
+
+        File qixFile = new File(dir, new File(WWIO.replaceSuffix(path, ".qix")).getName());
+        qixFile.deleteOnExit();
+
+        return new File(dir, new File(path).getName());
+    }
+
+    public static void assertRecordsEqual(ShapefileRecord expected, ShapefileRecord actual)
+    {
+        assertEquals("Record first part is not as expected", expected.getFirstPartNumber(),
+            actual.getFirstPartNumber());
+        assertRecordContentsEqual(expected, actual);
+    }
+
+    public static void assertRecordContentsEqual(ShapefileRecord expected, ShapefileRecord actual)
+    {
+        assertEquals("Record number is not as expected", expected.getRecordNumber(), actual.getRecordNumber());
+        assertEquals("Record type is not as expected", expected.getShapeType(), actual.getShapeType());
+        assertEquals("Record parts are not as expected", expected.getNumberOfParts(), actual.getNumberOfParts());
+        assertTrue("Record bounds are not as expected",
+            Arrays.equals(expected.getBoundingRectangle(), actual.getBoundingRectangle()));
+        assertEquals("Record attributes are not as expected", expected.getAttributes().getEntries(),
+            actual.getAttributes().getEntries());
+
+        for (int i = 0; i < expected.getNumberOfParts(); i++)
+        {
+            Iterator<double[]> expectedCoords = expected.getPointBuffer(i).getCoords().iterator();
+            for (double[] coord : actual.getPointBuffer(i).getCoords())
+            {
+                assertTrue("Record point is not as expected", Arrays.equals(expectedCoords.next(), coord));
+            }
+            assertFalse("Record point count is not as expected", expectedCoords.hasNext());
+        }
+    }
+
     public static void assertRecordAppearsNormal(Shapefile shapefile, ShapefileRecord record)
     {
         assertNotNull("Record is null", record);
@@ -0,0 +1,533 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.formats.tiff;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class GeotiffReaderTest
+{
+    protected static final int WIDTH = 300;
+    protected static final int HEIGHT = 200;
+    protected static final double PIXEL_SIZE = 0.01;
+    protected static final Sector SECTOR = Sector.fromDegrees(48, 50, 10, 13);
+
+    /** Describes how one image of a synthetic elevation GeoTIFF is laid out and compressed. */
+    protected static class ImageLayout
+    {
+        protected int width = WIDTH;
+        protected int height = HEIGHT;
+        protected int tileSize; // zero for strips
+        protected int rowsPerStrip = HEIGHT;
+        protected int compression = Tiff.Compression.NONE;
+        protected int predictor = Tiff.Predictor.NONE;
+        protected boolean overview;
+
+        public ImageLayout tiled(int tileSize)
+        {
+            this.tileSize = tileSize;
+            return this;
+        }
+
+        public ImageLayout stripped(int rowsPerStrip)
+        {
+            this.rowsPerStrip = rowsPerStrip;
+            return this;
+        }
+
+        public ImageLayout compressed(int compression, int predictor)
+        {
+            this.compression = compression;
+            this.predictor = predictor;
+            return this;
+        }
+
+        public ImageLayout overview(int width, int height)
+        {
+            this.width = width;
+            this.height = height;
+            this.overview = true;
+            return this;
+        }
+
+        public short sample(int x, int y)
+        {
+            // Overviews hold every other sample of the full resolution image.
+            int scale = WIDTH / this.width;
+            return expected(x * scale, y * scale);
+        }
+    }
+
+    protected static short expected(int x, int y)
+    {
+        // Rows in the upper half are constant, giving PackBits long runs to encode.
+        return (short) (y < HEIGHT / 4 ? 100 + y : (x * 7 + y * 13) % 2000 - 500);
+    }
+
+    @Test
+    public void testStripsUncompressed() throws IOException
+    {
+        assertImageReads(ByteOrder.LITTLE_ENDIAN, new ImageLayout().stripped(17));
+    }
+
+    @Test
+    public void testStripsUncompressedBigEndian() throws IOException
+    {
+        assertImageReads(ByteOrder.BIG_ENDIAN, new ImageLayout().stripped(17));
+    }
+
+    @Test
+    public void testTilesDeflateWithPredictor() throws IOException
+    {
+        assertImageReads(ByteOrder.LITTLE_ENDIAN, new ImageLayout().tiled(64).compressed(
+            Tiff.Compression.ADOBE_DEFLATE, Tiff.Predictor.HORIZONTAL_DIFFERENCING));
+    }
+
+    @Test
+    public void testTilesPackBits() throws IOException
+    {
+        assertImageReads(ByteOrder.BIG_ENDIAN, new ImageLayout().tiled(32).compressed(
+            Tiff.Compression.PACKBITS, Tiff.Predictor.NONE));
+    }
+
+    @Test
+    public void testStripsDeflate() throws IOException
+    {
+        assertImageReads(ByteOrder.LITTLE_ENDIAN, new ImageLayout().stripped(30).compressed(
+            Tiff.Compression.DEFLATE, Tiff.Predictor.NONE));
+    }
+
+    @Test
+    public void testOverviewSelection() throws IOException
+    {
+        File file = writeTiff(ByteOrder.LITTLE_ENDIAN, new ImageLayout().tiled(64),
+            new ImageLayout().overview(WIDTH / 2, HEIGHT / 2).tiled(64).compressed(Tiff.Compression.DEFLATE,
+                Tiff.Predictor.NONE));
+
+        GeotiffReader reader = new GeotiffReader(file);
+        try
+        {
+            assertEquals(2, reader.getNumImages());
+            assertFalse(reader.isReducedResolutionImage(0));
+            assertTrue(reader.isReducedResolutionImage(1));
+
+            assertImageSector(reader, 1);
+
+            double fine = Math.toRadians(PIXEL_SIZE);
+            assertEquals(0, reader.getImageIndexForResolution(fine));
+            assertEquals(0, reader.getImageIndexForResolution(fine * 1.5));
+            assertEquals(1, reader.getImageIndexForResolution(fine * 2));
+            assertEquals(1, reader.getImageIndexForResolution(fine * 10));
+
+            DataRaster overview = reader.readDataRaster(1, 10, 20, 50, 40);
+            ImageLayout layout = new ImageLayout().overview(WIDTH / 2, HEIGHT / 2);
+            assertWindow(layout, overview, 10, 20, 50, 40);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testFullReadSkipsOverviews() throws IOException
+    {
+        File file = writeTiff(ByteOrder.LITTLE_ENDIAN, new ImageLayout().tiled(64),
+            new ImageLayout().overview(WIDTH / 2, HEIGHT / 2).tiled(64));
+
+        GeotiffReader reader = new GeotiffReader(file);
+        try
+        {
+            DataRaster[] rasters = reader.readDataRaster();
+            assertEquals(1, rasters.length);
+            assertWindow(new ImageLayout(), rasters[0], 0, 0, WIDTH, HEIGHT);
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testRasterReaderReadsSectorFromOverview() throws IOException
+    {
+        File file = writeTiff(ByteOrder.LITTLE_ENDIAN, new ImageLayout().tiled(64),
+            new ImageLayout().overview(WIDTH / 2, HEIGHT / 2).tiled(64));
+
+        // The sector covers overview columns 50 to 100 and rows 25 to 50.
+        Sector sector = Sector.fromDegrees(49.0, 49.5, 11.0, 12.0);
+        DataRaster raster = new GeotiffRasterReader().readElevations(file, sector, Math.toRadians(PIXEL_SIZE * 2),
+            null);
+
+        assertWindow(new ImageLayout().overview(WIDTH / 2, HEIGHT / 2), raster, 50, 25, 50, 25);
+        assertSectorEquals(sector, raster.getSector());
+
+        assertNull(new GeotiffRasterReader().readElevations(file, Sector.fromDegrees(0, 1, 0, 1), 0, null));
+    }
+
+    @Test
+    public void testCachedRasterReusesWindowReader() throws IOException
+    {
+        File file = writeTiff(ByteOrder.LITTLE_ENDIAN, new ImageLayout().tiled(64),
+            new ImageLayout().overview(WIDTH / 2, HEIGHT / 2).tiled(64));
+
+        final List<GeotiffReader> opened = new ArrayList<GeotiffReader>();
+        CachedDataRaster raster = new CachedDataRaster(file, null, new GeotiffRasterReader(), null)
+        {
+            @Override
+            protected GeotiffReader getWindowReader() throws IOException
+            {
+                GeotiffReader reader = super.getWindowReader();
+                if (!opened.contains(reader))
+                    opened.add(reader);
+                return reader;
+            }
+        };
+
+        AVListImpl params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, AVKey.INT16);
+        raster.drawOnTo(new ByteBufferRaster(50, 25, Sector.fromDegrees(49.0, 49.5, 11.0, 12.0), params));
+        raster.drawOnTo(new ByteBufferRaster(50, 25, Sector.fromDegrees(48.5, 49.0, 11.0, 12.0), params));
+        raster.drawOnTo(new ByteBufferRaster(30, 20, Sector.fromDegrees(48.2, 48.4, 10.2, 10.5), params));
+
+        assertEquals(1, opened.size());
+    }
+
+    protected static void assertImageSector(GeotiffReader reader, int imageIndex) throws IOException
+    {
+        assertSectorEquals(SECTOR, (Sector) reader.copyMetadataTo(imageIndex, null).getValue(AVKey.SECTOR));
+    }
+
+    protected static void assertImageReads(ByteOrder order, ImageLayout layout) throws IOException
+    {
+        File file = writeTiff(order, layout);
+        GeotiffReader reader = new GeotiffReader(file);
+        try
+        {
+            assertImageSector(reader, 0);
+
+            DataRaster full = reader.readDataRaster(0);
+            assertWindow(layout, full, 0, 0, WIDTH, HEIGHT);
+            assertSectorEquals(SECTOR, full.getSector());
+
+            DataRaster window = reader.readDataRaster(0, 50, 30, 100, 90);
+            assertWindow(layout, window, 50, 30, 100, 90);
+            assertSectorEquals(Sector.fromDegrees(50 - 120 * PIXEL_SIZE, 50 - 30 * PIXEL_SIZE,
+                10 + 50 * PIXEL_SIZE, 10 + 150 * PIXEL_SIZE), window.getSector());
+
+            DataRaster corner = reader.readDataRaster(0, WIDTH - 3, HEIGHT - 2, 3, 2);
+            assertWindow(layout, corner, WIDTH - 3, HEIGHT - 2, 3, 2);
+
+            DataRaster bySector = reader.readDataRaster(0, Sector.fromDegrees(49.0, 49.5, 11.0, 12.0));
+            assertWindow(layout, bySector, 100, 50, 100, 50);
+
+            assertNull(reader.readDataRaster(0, Sector.fromDegrees(0, 1, 0, 1)));
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    protected static void assertWindow(ImageLayout layout, DataRaster raster, int x, int y, int width, int height)
+    {
+        assertTrue(raster instanceof ByteBufferRaster);
+        assertEquals(width, raster.getWidth());
+        assertEquals(height, raster.getHeight());
+
+        ByteBufferRaster bbr = (ByteBufferRaster) raster;
+        for (int row = 0; row < height; row++)
+        {
+            for (int col = 0; col < width; col++)
+            {
+                assertEquals("sample " + (x + col) + "," + (y + row), layout.sample(x + col, y + row),
+                    bbr.getDoubleAtPosition(row, col), 0);
+            }
+        }
+    }
+
+    protected static void assertSectorEquals(Sector expected, Sector actual)
+    {
+        assertNotNull(actual);
+        assertEquals(expected.getMinLatitude().degrees, actual.getMinLatitude().degrees, 1e-9);
+        assertEquals(expected.getMaxLatitude().degrees, actual.getMaxLatitude().degrees, 1e-9);
+        assertEquals(expected.getMinLongitude().degrees, actual.getMinLongitude().degrees, 1e-9);
+        assertEquals(expected.getMaxLongitude().degrees, actual.getMaxLongitude().degrees, 1e-9);
+    }
+
+    //**************************************************************//
+    //********************  Synthetic GeoTIFF Files  ***************//
+    //**************************************************************//
+
+    protected static File writeTiff(ByteOrder order, ImageLayout... layouts) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(4 << 20).order(order);
+        buffer.put((byte) (order == ByteOrder.BIG_ENDIAN ? 'M' : 'I'));
+        buffer.put((byte) (order == ByteOrder.BIG_ENDIAN ? 'M' : 'I'));
+        buffer.putShort((short) 42);
+        int nextIFDPointer = buffer.position();
+        buffer.putInt(0);
+
+        for (ImageLayout layout : layouts)
+        {
+            nextIFDPointer = writeImage(buffer, layout, nextIFDPointer);
+        }
+
+        File dir = Files.createTempDirectory("GeotiffReaderTest").toFile();
+        dir.deleteOnExit();
+        File file = new File(dir, "elevations.tif");
+        file.deleteOnExit();
+
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            out.write(buffer.array(), 0, buffer.position());
+        }
+        finally
+        {
+            out.close();
+        }
+        return file;
+    }
+
+    protected static int writeImage(ByteBuffer buffer, ImageLayout layout, int ifdPointer)
+    {
+        boolean tiled = layout.tileSize > 0;
+        int blockWidth = tiled ? layout.tileSize : layout.width;
+        int blockHeight = tiled ? layout.tileSize : layout.rowsPerStrip;
+        int across = (layout.width + blockWidth - 1) / blockWidth;
+        int down = (layout.height + blockHeight - 1) / blockHeight;
+
+        long[] offsets = new long[across * down];
+        long[] counts = new long[across * down];
+        for (int i = 0; i < offsets.length; i++)
+        {
+            int bx = (i % across) * blockWidth;
+            int by = (i / across) * blockHeight;
+            int rows = tiled ? blockHeight : Math.min(blockHeight, layout.height - by);
+            byte[] data = encodeBlock(layout, buffer.order(), bx, by, blockWidth, rows);
+            offsets[i] = buffer.position();
+            counts[i] = data.length;
+            buffer.put(data);
+        }
+
+        TreeMap<Integer, Object[]> entries = new TreeMap<Integer, Object[]>();
+        if (layout.overview)
+            entries.put(Tiff.Tag.NEW_SUBFILE_TYPE, entry(Tiff.Type.LONG, Tiff.NewSubfileType.REDUCED_RESOLUTION));
+        entries.put(Tiff.Tag.IMAGE_WIDTH, entry(Tiff.Type.LONG, layout.width));
+        entries.put(Tiff.Tag.IMAGE_LENGTH, entry(Tiff.Type.LONG, layout.height));
+        entries.put(Tiff.Tag.BITS_PER_SAMPLE, entry(Tiff.Type.SHORT, 16));
+        entries.put(Tiff.Tag.COMPRESSION, entry(Tiff.Type.SHORT, layout.compression));
+        entries.put(Tiff.Tag.PHOTO_INTERPRETATION, entry(Tiff.Type.SHORT, Tiff.Photometric.Grayscale_BlackIsZero));
+        entries.put(Tiff.Tag.SAMPLES_PER_PIXEL, entry(Tiff.Type.SHORT, 1));
+        entries.put(Tiff.Tag.PLANAR_CONFIGURATION, entry(Tiff.Type.SHORT, Tiff.PlanarConfiguration.CHUNKY));
+        entries.put(Tiff.Tag.SAMPLE_FORMAT, entry(Tiff.Type.SHORT, Tiff.SampleFormat.SIGNED));
+        if (layout.predictor != Tiff.Predictor.NONE)
+            entries.put(Tiff.Tag.TIFF_PREDICTOR, entry(Tiff.Type.SHORT, layout.predictor));
+        if (tiled)
+        {
+            entries.put(Tiff.Tag.TILE_WIDTH, entry(Tiff.Type.LONG, layout.tileSize));
+            entries.put(Tiff.Tag.TILE_LENGTH, entry(Tiff.Type.LONG, layout.tileSize));
+            entries.put(Tiff.Tag.TILE_OFFSETS, entry(Tiff.Type.LONG, offsets));
+            entries.put(Tiff.Tag.TILE_COUNTS, entry(Tiff.Type.LONG, counts));
+        }
+        else
+        {
+            entries.put(Tiff.Tag.ROWS_PER_STRIP, entry(Tiff.Type.LONG, layout.rowsPerStrip));
+            entries.put(Tiff.Tag.STRIP_OFFSETS, entry(Tiff.Type.LONG, offsets));
+            entries.put(Tiff.Tag.STRIP_BYTE_COUNTS, entry(Tiff.Type.LONG, counts));
+        }
+        if (!layout.overview)
+        {
+            entries.put(GeoTiff.Tag.MODEL_PIXELSCALE, new Object[] {Tiff.Type.DOUBLE,
+                new double[] {PIXEL_SIZE, PIXEL_SIZE, 0}});
+            entries.put(GeoTiff.Tag.MODEL_TIEPOINT, new Object[] {Tiff.Type.DOUBLE,
+                new double[] {0, 0, 0, SECTOR.getMinLongitude().degrees, SECTOR.getMaxLatitude().degrees, 0}});
+            entries.put(GeoTiff.Tag.GEO_KEY_DIRECTORY, entry(Tiff.Type.SHORT, new long[] {
+                1, 1, 0, 4,
+                GeoTiff.GeoKey.ModelType, 0, 1, GeoTiff.ModelType.Geographic,
+                GeoTiff.GeoKey.RasterType, 0, 1, GeoTiff.RasterType.RasterPixelIsArea,
+                GeoTiff.GeoKey.GeographicType, 0, 1, 4326,
+                GeoTiff.GeoKey.VerticalCSType, 0, 1, 5030}));
+        }
+
+        // Word align the IFD and link it from the previous IFD.
+        if (buffer.position() % 2 != 0)
+            buffer.put((byte) 0);
+        buffer.putInt(ifdPointer, buffer.position());
+
+        int ifdStart = buffer.position();
+        int dataStart = ifdStart + 2 + entries.size() * 12 + 4;
+        ByteBuffer data = buffer.duplicate().order(buffer.order());
+        data.position(dataStart);
+
+        buffer.putShort((short) entries.size());
+        for (Map.Entry<Integer, Object[]> e : entries.entrySet())
+        {
+            int type = (Integer) e.getValue()[0];
+            Object values = e.getValue()[1];
+            int count = (values instanceof double[]) ? ((double[]) values).length : ((long[]) values).length;
+            int size = count * (type == Tiff.Type.DOUBLE ? 8 : type == Tiff.Type.LONG ? 4 : 2);
+
+            buffer.putShort(e.getKey().shortValue());
+            buffer.putShort((short) type);
+            buffer.putInt(count);
+
+            ByteBuffer target = buffer;
+            int valueField = buffer.position();
+            if (size > 4)
+            {
+                buffer.putInt(data.position());
+                target = data;
+            }
+
+            if (values instanceof double[])
+            {
+                for (double d : (double[]) values)
+                {
+                    target.putDouble(d);
+                }
+            }
+            else
+            {
+                for (long l : (long[]) values)
+                {
+                    if (type == Tiff.Type.LONG)
+                        target.putInt((int) l);
+                    else
+                        target.putShort((short) l);
+                }
+            }
+
+            if (size <= 4)
+                buffer.position(valueField + 4);
+        }
+
+        int nextIFDPointer = buffer.position();
+        buffer.putInt(0);
+        buffer.position(data.position());
+
+        return nextIFDPointer;
+    }
+
+    protected static Object[] entry(int type, long... values)
+    {
+        return new Object[] {type, values};
+    }
+
+    protected static byte[] encodeBlock(ImageLayout layout, ByteOrder order, int bx, int by, int blockWidth, int rows)
+    {
+        ByteBuffer block = ByteBuffer.allocate(blockWidth * rows * 2).order(order);
+        for (int row = 0; row < rows; row++)
+        {
+            short previous = 0;
+            for (int col = 0; col < blockWidth; col++)
+            {
+                int x = bx + col;
+                int y = by + row;
+                short value = (x < layout.width && y < layout.height) ? layout.sample(x, y) : 0;
+                if (layout.predictor == Tiff.Predictor.HORIZONTAL_DIFFERENCING)
+                    block.putShort((short) (value - previous));
+                else
+                    block.putShort(value);
+                previous = value;
+            }
+        }
+
+        byte[] bytes = block.array();
+        if (layout.compression == Tiff.Compression.PACKBITS)
+            return packBits(bytes);
+        if (layout.compression == Tiff.Compression.DEFLATE || layout.compression == Tiff.Compression.ADOBE_DEFLATE)
+            return deflate(bytes);
+        return bytes;
+    }
+
+    protected static byte[] deflate(byte[] bytes)
+    {
+        Deflater deflater = new Deflater();
+        deflater.setInput(bytes);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished())
+        {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    protected static byte[] packBits(byte[] bytes)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int i = 0;
+        while (i < bytes.length)
+        {
+            int run = 1;
+            while (i + run < bytes.length && run < 128 && bytes[i + run] == bytes[i])
+            {
+                run++;
+            }
+
+            if (run >= 3)
+            {
+                out.write(1 - run);
+                out.write(bytes[i]);
+                i += run;
+                continue;
+            }
+
+            int start = i;
+            while (i < bytes.length && i - start < 128
+                && !(i + 2 < bytes.length && bytes[i] == bytes[i + 1] && bytes[i] == bytes[i + 2]))
+            {
+                i++;
+            }
+            if (i == start)
+                i++;
+            out.write(i - start - 1);
+            out.write(bytes, start, i - start);
+        }
+        return out.toByteArray();
+    }
+}
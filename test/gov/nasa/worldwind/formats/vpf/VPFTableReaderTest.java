@@ -0,0 +1,181 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.vpf;
+
+import gov.nasa.worldwind.util.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class VPFTableReaderTest
+{
+    protected File dir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.dir = Files.createTempDirectory("VPFTableReaderTest").toFile();
+        this.dir.deleteOnExit();
+    }
+
+    @Test
+    public void testFixedLengthTable() throws IOException
+    {
+        String header = "L;Fixed length table;-;"
+            + "id=I,1,P,Row id,-,-,-,:"
+            + "value=F,1,N,Short float,-,-,-,:"
+            + "code=S,1,N,Short int,-,-,-,:"
+            + "total=R,1,N,Long float,-,-,-,:"
+            + "name=T,8,N,Fixed text,-,-,-,:;";
+
+        ByteBuffer body = ByteBuffer.allocate(3 * 26).order(ByteOrder.LITTLE_ENDIAN);
+        for (int id = 1; id <= 3; id++)
+        {
+            body.putInt(id);
+            body.putFloat(id + 0.5f);
+            body.putShort((short) (-id));
+            body.putDouble(id * 1000.25);
+            body.put(String.format("%-8s", "row" + id).getBytes("US-ASCII"));
+        }
+        body.flip();
+
+        File file = this.writeTable("fixed.tab", header, body);
+        VPFBufferedRecordData table = VPFUtils.readTable(file);
+
+        assertNotNull("Table is null", table);
+        assertEquals("Number of records", 3, table.getNumRecords());
+        assertTrue("Id is a view", table.getRecordData("id") instanceof VPFTableReader.ScalarColumnView);
+        assertTrue("Total is a view", table.getRecordData("total") instanceof VPFTableReader.ScalarColumnView);
+
+        for (VPFRecord record : table)
+        {
+            int id = record.getId();
+            assertEquals("Id", id, record.getValue("id"));
+            assertEquals("Value", (double) (id + 0.5f), record.getValue("value"));
+            assertEquals("Code", -id, record.getValue("code"));
+            assertEquals("Total", id * 1000.25, record.getValue("total"));
+            assertEquals("Name", "row" + id, record.getValue("name"));
+            assertTrue("Has value", record.hasValue("total"));
+        }
+
+        assertEquals("Record by value", 2, table.getRecord("code", -2).getId());
+    }
+
+    @Test
+    public void testVariableLengthTable() throws IOException
+    {
+        String header = "L;Variable length table;-;"
+            + "id=I,1,P,Row id,-,-,-,:"
+            + "count=S,1,N,Coordinate count,-,-,-,:"
+            + "coordinates=C,*,N,Coordinates,-,-,-,:"
+            + "weight=F,1,N,Weight,-,-,-,:;";
+
+        ByteBuffer body = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer index = ByteBuffer.allocate(8 + 3 * 8).order(ByteOrder.LITTLE_ENDIAN);
+        int bodyOffset = 4 + header.length();
+        index.putInt(3).putInt(header.length());
+        for (int id = 1; id <= 3; id++)
+        {
+            int start = body.position();
+            body.putInt(id);
+            body.putShort((short) id);
+            body.putInt(id);
+            for (int i = 0; i < id; i++)
+            {
+                body.putFloat(10 * id + i);
+                body.putFloat(i == 0 && id == 3 ? Float.NaN : -i); // Partially null coordinate.
+            }
+            body.putFloat(id / 4f);
+            index.putInt(bodyOffset + start).putInt(body.position() - start);
+        }
+        body.flip();
+        index.flip();
+
+        File file = this.writeTable("edg", header, body);
+        File indexFile = new File(file.getParentFile(), "edx");
+        Files.write(indexFile.toPath(), toArray(index));
+        indexFile.deleteOnExit();
+        byte[] contents = Files.readAllBytes(file.toPath());
+
+        VPFBufferedRecordData table = VPFUtils.readTable(file);
+
+        assertNotNull("Table is null", table);
+        assertEquals("Number of records", 3, table.getNumRecords());
+        assertTrue("Count is a view", table.getRecordData("count") instanceof VPFTableReader.ScalarColumnView);
+        assertFalse("Weight follows a variable length column",
+            table.getRecordData("weight") instanceof VPFTableReader.ScalarColumnView);
+
+        VecBufferSequence coords = (VecBufferSequence) table.getRecordData("coordinates").getBackingData();
+        for (VPFRecord record : table)
+        {
+            int id = record.getId();
+            assertEquals("Id", id, record.getValue("id"));
+            assertEquals("Count", id, record.getValue("count"));
+            assertEquals("Weight", (double) (id / 4f), record.getValue("weight"));
+
+            VecBuffer vec = coords.subBuffer(id);
+            assertEquals("Coordinate count", id, vec.getSize());
+            for (int i = 0; i < id; i++)
+            {
+                double[] xy = vec.get(i, new double[2]);
+                assertEquals("X", 10 * id + i, xy[0], 0);
+                assertEquals("Y", (i == 0 && id == 3) ? 0 : -i, xy[1], 0); // Null coordinates are replaced with 0.
+            }
+        }
+
+        assertArrayEquals("Table file is unchanged", contents, Files.readAllBytes(file.toPath()));
+    }
+
+    protected File writeTable(String name, String header, ByteBuffer body) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + header.length() + body.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(header.length());
+        buffer.put(header.getBytes("US-ASCII"));
+        buffer.put(body);
+        buffer.flip();
+
+        File file = new File(this.dir, name);
+        Files.write(file.toPath(), toArray(buffer));
+        file.deleteOnExit();
+        return file;
+    }
+
+    protected static byte[] toArray(ByteBuffer buffer)
+    {
+        byte[] array = new byte[buffer.remaining()];
+        buffer.get(array);
+        return array;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.layers;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.BasicGpuResourceCache;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Earth;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.LevelSet;
+import gov.nasa.worldwind.view.orbit.BasicOrbitView;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TiledImageLayerTest
+{
+    private DrawContext dc;
+
+    @Before
+    public void setUp()
+    {
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(new Earth(), new LayerList()));
+        this.dc.setView(new BasicOrbitView());
+        this.dc.setGpuResourceCache(new BasicGpuResourceCache(1000000, 2000000));
+        this.dc.setVerticalExaggeration(1);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.dc = null;
+    }
+
+    @Test
+    public void testSelectionReuseDisabledByDefault()
+    {
+        assertFalse("Frame coherent selection enabled by default",
+            new TiledImageLayer(new LevelSet(SelectionTestLayer.createParams("C")))
+            {
+                @Override
+                protected void requestTexture(DrawContext dc, TextureTile tile)
+                {
+                }
+
+                @Override
+                protected void forceTextureLoad(TextureTile tile)
+                {
+                }
+            }.isFrameCoherentSelection());
+    }
+
+    @Test
+    public void testSelectionMatchesDescent()
+    {
+        SelectionTestLayer coherent = new SelectionTestLayer("A");
+        SelectionTestLayer direct = new SelectionTestLayer("B");
+        direct.setFrameCoherentSelection(false);
+
+        for (LatLon focus : Arrays.asList(LatLon.fromDegrees(10, 20), LatLon.fromDegrees(-45, 170)))
+        {
+            coherent.focus = focus;
+            direct.focus = focus;
+            this.dc.setVerticalExaggeration(this.dc.getVerticalExaggeration() + 1);
+
+            coherent.assembleTiles(this.dc);
+            direct.assembleTiles(this.dc);
+            assertFalse("Tiles not selected", direct.added.isEmpty());
+            assertEquals("Selected tiles differ from descent", direct.added, coherent.added);
+            assertEquals("Selection not made", 1, coherent.selectCount);
+            coherent.selectCount = 0;
+        }
+    }
+
+    @Test
+    public void testSelectionReusedWhileFrameUnchanged()
+    {
+        SelectionTestLayer layer = new SelectionTestLayer("A");
+
+        layer.assembleTiles(this.dc);
+        List<String> expected = layer.added;
+        layer.assembleTiles(this.dc);
+        assertEquals("Selection not reused", 1, layer.selectCount);
+        assertEquals("Reused selection differs", expected, layer.added);
+
+        this.dc.setVerticalExaggeration(2);
+        layer.assembleTiles(this.dc);
+        assertEquals("Selection not remade after frame change", 2, layer.selectCount);
+    }
+
+    @Test
+    public void testSelectionSharedAcrossLayers()
+    {
+        SelectionTestLayer first = new SelectionTestLayer("A");
+        SelectionTestLayer second = new SelectionTestLayer("B");
+
+        first.assembleTiles(this.dc);
+        second.assembleTiles(this.dc);
+        assertEquals("Selection not shared", 0, second.selectCount);
+        assertEquals("Shared selection differs", first.added, second.added);
+
+        // Layers with a different detail hint have a different tiling key and select their own tiles.
+        SelectionTestLayer third = new SelectionTestLayer("C");
+        third.setDetailHint(0.5);
+        third.assembleTiles(this.dc);
+        assertEquals("Selection shared across detail hints", 1, third.selectCount);
+    }
+
+    private static class SelectionTestLayer extends TiledImageLayer
+    {
+        private LatLon focus = LatLon.fromDegrees(10, 20);
+        private int selectCount;
+        private List<String> added = new ArrayList<String>();
+
+        public SelectionTestLayer(String name)
+        {
+            super(new LevelSet(createParams(name)));
+            this.setFrameCoherentSelection(true);
+        }
+
+        private static AVList createParams(String name)
+        {
+            AVList params = new AVListImpl();
+            params.setValue(AVKey.SECTOR, Sector.FULL_SPHERE);
+            params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(36, 36));
+            params.setValue(AVKey.TILE_WIDTH, 512);
+            params.setValue(AVKey.TILE_HEIGHT, 512);
+            params.setValue(AVKey.NUM_LEVELS, 6);
+            params.setValue(AVKey.DATA_CACHE_NAME, "TiledImageLayerTest/" + name);
+            params.setValue(AVKey.DATASET_NAME, name);
+            params.setValue(AVKey.FORMAT_SUFFIX, ".png");
+            return params;
+        }
+
+        @Override
+        protected void assembleTiles(DrawContext dc)
+        {
+            this.added = new ArrayList<String>();
+            super.assembleTiles(dc);
+        }
+
+        @Override
+        protected TileSelection selectTiles(DrawContext dc, SelectionFrameKey frameKey)
+        {
+            this.selectCount++;
+            return super.selectTiles(dc, frameKey);
+        }
+
+        @Override
+        protected boolean isTileVisible(DrawContext dc, TextureTile tile)
+        {
+            return tile.getSector().getMinLongitude().degrees < 60;
+        }
+
+        @Override
+        protected boolean meetsRenderCriteria(DrawContext dc, TextureTile tile)
+        {
+            return this.levels.isFinalLevel(tile.getLevelNumber())
+                || !tile.getSector().contains(this.focus) && tile.getLevelNumber() > 0;
+        }
+
+        @Override
+        protected void addTile(DrawContext dc, TextureTile tile)
+        {
+            super.addTile(dc, tile);
+            this.added.add(describe(tile) + " <- " + describe(this.currentResourceTile));
+        }
+
+        private static String describe(TextureTile tile)
+        {
+            return tile != null ? tile.getLevelNumber() + "/" + tile.getRow() + "/" + tile.getColumn() : null;
+        }
+
+        @Override
+        protected void requestTexture(DrawContext dc, TextureTile tile)
+        {
+        }
+
+        @Override
+        protected void forceTextureLoad(TextureTile tile)
+        {
+        }
+    }
+}
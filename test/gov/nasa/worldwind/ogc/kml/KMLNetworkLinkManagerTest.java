@@ -0,0 +1,198 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.ogc.kml;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class KMLNetworkLinkManagerTest
+{
+    @Test
+    public void testRetrieveLocalDocument() throws Exception
+    {
+        KMLNetworkLink link = createNetworkLink("child.kml");
+        KMLNetworkLinkManager manager = new KMLNetworkLinkManager(2);
+        try
+        {
+            manager.requestResource(link, "child.kml");
+            awaitIdle(manager, link);
+
+            KMLRoot resource = link.getNetworkResource();
+            assertNotNull("Network resource not retrieved", resource);
+            assertEquals("child", resource.getFeature().getName());
+        }
+        finally
+        {
+            manager.shutdown(true);
+        }
+    }
+
+    @Test
+    public void testRequestsAreCoalesced() throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> processed = Collections.synchronizedList(new ArrayList<String>());
+
+        KMLNetworkLinkManager manager = new KMLNetworkLinkManager(4)
+        {
+            @Override
+            protected void processRequest(KMLNetworkLink link, Request request)
+            {
+                processed.add(request.address);
+                started.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        try
+        {
+            KMLNetworkLink link = new KMLNetworkLink(KMLConstants.KML_NAMESPACE);
+            manager.requestResource(link, "first");
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            // Requests made while the first is in progress collapse into one request for the latest address.
+            for (int i = 0; i < 100; i++)
+            {
+                manager.requestResource(link, "refresh" + i);
+            }
+            release.countDown();
+            awaitIdle(manager, link);
+
+            assertEquals(Arrays.asList("first", "refresh99"), processed);
+        }
+        finally
+        {
+            manager.shutdown(true);
+        }
+    }
+
+    @Test
+    public void testResetDiscardsRequest() throws Exception
+    {
+        final KMLNetworkLink link = createNetworkLink("child.kml");
+        final CountDownLatch release = new CountDownLatch(1);
+
+        KMLNetworkLinkManager manager = new KMLNetworkLinkManager(1)
+        {
+            @Override
+            protected void processRequest(KMLNetworkLink link, Request request)
+            {
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                super.processRequest(link, request);
+            }
+        };
+
+        try
+        {
+            manager.requestResource(link, "child.kml");
+            link.reset();
+            release.countDown();
+            awaitIdle(manager, link);
+
+            assertNull("Stale network resource installed", link.getNetworkResource());
+        }
+        finally
+        {
+            manager.shutdown(true);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullLink()
+    {
+        KMLNetworkLinkManager.getInstance().requestResource(null, "child.kml");
+    }
+
+    protected static KMLNetworkLink createNetworkLink(String href) throws Exception
+    {
+        File dir = Files.createTempDirectory("KMLNetworkLinkManagerTest").toFile();
+        dir.deleteOnExit();
+
+        File child = new File(dir, "child.kml");
+        child.deleteOnExit();
+        writeFile(child, "<kml xmlns=\"" + KMLConstants.KML_NAMESPACE + "\">"
+            + "<Document><name>child</name><Placemark><Point><coordinates>1,2</coordinates></Point></Placemark>"
+            + "</Document></kml>");
+
+        File parent = new File(dir, "parent.kml");
+        parent.deleteOnExit();
+        writeFile(parent, "<kml xmlns=\"" + KMLConstants.KML_NAMESPACE + "\">"
+            + "<NetworkLink><Link><href>" + href + "</href></Link></NetworkLink></kml>");
+
+        KMLRoot root = KMLRoot.createAndParse(parent);
+        return (KMLNetworkLink) root.getFeature();
+    }
+
+    protected static void writeFile(File file, String contents) throws IOException
+    {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try
+        {
+            writer.write(contents);
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    protected static void awaitIdle(KMLNetworkLinkManager manager, KMLNetworkLink link) throws InterruptedException
+    {
+        long timeout = System.currentTimeMillis() + 10000;
+        while (manager.isRequestPending(link))
+        {
+            assertTrue("Request did not complete", System.currentTimeMillis() < timeout);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.ogc.kml;
+
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.util.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class KMLStreamingTest
+{
+    @Test
+    public void testParseDoubleMatchesJava()
+    {
+        String[] values = {"0", "-0", "1", "-1", "0.5", ".5", "-.25", "5.", "123.456", "-122.0822035425683",
+            "37.42228990140251", "1e3", "1E-3", "-2.5e+10", "9007199254740993", "0.1234567890123456789",
+            "1e22", "1e23", "4.9e-324", "1.7976931348623157e308", "000012.500"};
+
+        for (String s : values)
+        {
+            assertParsed(s);
+        }
+
+        Random random = new Random(17);
+        for (int i = 0; i < 10000; i++)
+        {
+            double d = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 4);
+            assertParsed(Double.toString(d));
+            assertParsed(String.format(Locale.US, "%.6f", d));
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseDoubleInvalid()
+    {
+        char[] chars = "12a".toCharArray();
+        WWUtil.parseDouble(chars, 0, chars.length);
+    }
+
+    @Test
+    public void testNextCoordinate()
+    {
+        KMLCoordinateTokenizer tokenizer = new KMLCoordinateTokenizer("-122.1,37.4,10 -122.2, 37.5\n-122.3,37.6,");
+        double[] coords = new double[3];
+
+        assertEquals(3, tokenizer.nextCoordinate(coords));
+        assertEquals(-122.1, coords[0], 0);
+        assertEquals(37.4, coords[1], 0);
+        assertEquals(10, coords[2], 0);
+
+        assertEquals(2, tokenizer.nextCoordinate(coords));
+        assertEquals(-122.2, coords[0], 0);
+        assertEquals(37.5, coords[1], 0);
+
+        assertEquals(2, tokenizer.nextCoordinate(coords));
+        assertEquals(-122.3, coords[0], 0);
+        assertEquals(37.6, coords[1], 0);
+
+        assertFalse(tokenizer.hasMoreTokens());
+    }
+
+    @Test
+    public void testCoordinateList()
+    {
+        KMLCoordinateList list = new KMLCoordinateList();
+        for (int i = 0; i < 100; i++)
+        {
+            list.addCoordinate(i * 0.5, -i * 0.25, i);
+        }
+        list.trimToSize();
+
+        assertEquals(100, list.size());
+        assertEquals(Position.fromDegrees(10, -5, 20), list.get(20));
+        assertEquals(49.5, list.getLatitude(99), 0);
+        assertEquals(-24.75, list.getLongitude(99), 0);
+        assertEquals(99, list.getAltitude(99), 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCoordinateListIndexOutOfBounds()
+    {
+        new KMLCoordinateList().get(0);
+    }
+
+    @Test
+    public void testParseIncrementally() throws Exception
+    {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        sb.append("<kml xmlns=\"").append(KMLConstants.KML_NAMESPACE).append("\">");
+        sb.append("<Document id=\"doc\">");
+        sb.append("<Folder id=\"folder\">");
+        for (int i = 0; i < 10; i++)
+        {
+            sb.append("<Placemark id=\"p").append(i).append("\">");
+            sb.append("<Point id=\"g").append(i).append("\"><coordinates>");
+            sb.append(i).append(",").append(-i).append(",0");
+            sb.append("</coordinates></Point>");
+            sb.append("</Placemark>");
+        }
+        sb.append("</Folder>");
+        sb.append("</Document>");
+        sb.append("</kml>");
+
+        final List<String> parsed = new ArrayList<String>();
+        KMLRoot root = new KMLRoot(WWIO.getInputStreamFromString(sb.toString()), KMLConstants.KML_MIME_TYPE);
+        root.parseIncrementally(new KMLFeatureListener()
+        {
+            public boolean featureParsed(KMLAbstractContainer container, KMLAbstractFeature feature)
+            {
+                parsed.add(feature.getId());
+                // Keep the folder and the even placemarks.
+                return !(feature instanceof KMLPlacemark) || Integer.parseInt(feature.getId().substring(1)) % 2 == 0;
+            }
+        });
+
+        assertEquals(11, parsed.size());
+        assertEquals("folder", parsed.get(10));
+
+        KMLDocument document = (KMLDocument) root.getFeature();
+        KMLFolder folder = (KMLFolder) document.getFeatures().get(0);
+        assertEquals(5, folder.getFeatures().size());
+
+        for (int i = 0; i < 10; i++)
+        {
+            boolean kept = i % 2 == 0;
+            assertEquals(kept, root.getItemByID("p" + i) != null);
+            assertEquals(kept, root.getItemByID("g" + i) != null);
+        }
+
+        KMLPlacemark placemark = (KMLPlacemark) folder.getFeatures().get(1);
+        Position position = ((KMLPoint) placemark.getGeometry()).getCoordinates();
+        assertEquals(Position.fromDegrees(-2, 2, 0), position);
+
+        // The listener applies only to the call that installed it.
+        KMLRoot plain = new KMLRoot(WWIO.getInputStreamFromString(sb.toString()), KMLConstants.KML_MIME_TYPE);
+        plain.parse();
+        assertEquals(10, ((KMLFolder) ((KMLDocument) plain.getFeature()).getFeatures().get(0)).getFeatures().size());
+    }
+
+    @Test
+    public void testDiscardedFeatureIdsRemoved() throws Exception
+    {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        sb.append("<kml xmlns=\"").append(KMLConstants.KML_NAMESPACE).append("\">");
+        sb.append("<Document id=\"doc\">");
+        sb.append("<Style id=\"shared\"><LineStyle id=\"sharedLine\"/></Style>");
+        sb.append("<Folder id=\"discarded\">");
+        sb.append("<Style id=\"folderStyle\"><IconStyle id=\"folderIcon\"/></Style>");
+        sb.append("<StyleMap id=\"folderMap\"><Pair id=\"folderPair\"><key>normal</key>");
+        sb.append("<styleUrl>#folderStyle</styleUrl></Pair></StyleMap>");
+        sb.append("<Placemark id=\"inner\"><MultiGeometry id=\"multi\">");
+        sb.append("<Point id=\"point\"><coordinates>1,2,0</coordinates></Point>");
+        sb.append("<LineString id=\"line\"><coordinates>1,2,0 3,4,0</coordinates></LineString>");
+        sb.append("</MultiGeometry></Placemark>");
+        sb.append("</Folder>");
+        sb.append("<Placemark id=\"kept\"><Point id=\"keptPoint\"><coordinates>5,6,0</coordinates></Point>");
+        sb.append("</Placemark>");
+        sb.append("</Document>");
+        sb.append("</kml>");
+
+        KMLRoot root = new KMLRoot(WWIO.getInputStreamFromString(sb.toString()), KMLConstants.KML_MIME_TYPE);
+        root.parseIncrementally(new KMLFeatureListener()
+        {
+            public boolean featureParsed(KMLAbstractContainer container, KMLAbstractFeature feature)
+            {
+                return !"discarded".equals(feature.getId());
+            }
+        });
+
+        for (String id : new String[] {"discarded", "folderStyle", "folderIcon", "folderMap", "folderPair", "inner",
+            "multi", "point", "line"})
+        {
+            assertNull(id, root.getItemByID(id));
+        }
+
+        for (String id : new String[] {"shared", "sharedLine", "kept", "keptPoint"})
+        {
+            assertNotNull(id, root.getItemByID(id));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseIncrementallyNullListener() throws Exception
+    {
+        new KMLRoot(WWIO.getInputStreamFromString("<kml/>"), KMLConstants.KML_MIME_TYPE).parseIncrementally(null);
+    }
+
+    protected static void assertParsed(String s)
+    {
+        char[] chars = (" " + s + " ").toCharArray();
+        double expected = Double.parseDouble(s);
+        double actual = WWUtil.parseDouble(chars, 1, chars.length - 1);
+        assertEquals(s, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.util.ClutterFilter;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class OrderedRenderableQueueTest
+{
+    protected static class TestRenderable implements Declutterable
+    {
+        protected final int id;
+        protected final double distance;
+        protected final boolean declutterable;
+
+        public TestRenderable(int id, double distance)
+        {
+            this(id, distance, false);
+        }
+
+        public TestRenderable(int id, double distance, boolean declutterable)
+        {
+            this.id = id;
+            this.distance = distance;
+            this.declutterable = declutterable;
+        }
+
+        public double getDistanceFromEye()
+        {
+            return this.distance;
+        }
+
+        public boolean isEnableDecluttering()
+        {
+            return this.declutterable;
+        }
+
+        public Rectangle2D getBounds(DrawContext dc)
+        {
+            return null;
+        }
+
+        public void pick(DrawContext dc, Point pickPoint)
+        {
+        }
+
+        public void render(DrawContext dc)
+        {
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.id + "@" + this.distance;
+        }
+    }
+
+    @Test
+    public void testFarthestFirst()
+    {
+        DrawContextImpl dc = new DrawContextImpl();
+        dc.addOrderedRenderable(new TestRenderable(0, 10));
+        dc.addOrderedRenderable(new TestRenderable(1, 1000));
+        dc.addOrderedRenderable(new TestRenderable(2, 0.5));
+        dc.addOrderedRenderable(new TestRenderable(3, 100));
+
+        assertPollOrder(dc, 1, 3, 0, 2);
+        assertNull(dc.peekOrderedRenderables());
+        assertNull(dc.pollOrderedRenderables());
+    }
+
+    @Test
+    public void testTiesKeepInsertionOrder()
+    {
+        DrawContextImpl dc = new DrawContextImpl();
+        dc.addOrderedRenderable(new TestRenderable(0, 5));
+        dc.addOrderedRenderable(new TestRenderable(1, 7));
+        dc.addOrderedRenderable(new TestRenderable(2, 5));
+        dc.addOrderedRenderable(new TestRenderable(3, 7));
+        dc.addOrderedRenderable(new TestRenderable(4, 5));
+
+        assertPollOrder(dc, 1, 3, 0, 2, 4);
+    }
+
+    @Test
+    public void testBehindDrawnFirstInInsertionOrder()
+    {
+        DrawContextImpl dc = new DrawContextImpl();
+        dc.addOrderedRenderable(new TestRenderable(0, 1e9));
+        dc.addOrderedRenderable(new TestRenderable(1, 1), true);
+        dc.addOrderedRenderable(new TestRenderable(2, 2), false);
+        dc.addOrderedRenderable(new TestRenderable(3, 3), true);
+
+        assertPollOrder(dc, 1, 3, 0, 2);
+    }
+
+    @Test
+    public void testAddWhileDraining()
+    {
+        DrawContextImpl dc = new DrawContextImpl();
+        dc.addOrderedRenderable(new TestRenderable(0, 100));
+        dc.addOrderedRenderable(new TestRenderable(1, 50));
+        dc.addOrderedRenderable(new TestRenderable(2, 10));
+
+        assertEquals(0, ((TestRenderable) dc.pollOrderedRenderables()).id);
+
+        // Renderables added after the sort are merged into the remaining order.
+        dc.addOrderedRenderable(new TestRenderable(3, 50));
+        dc.addOrderedRenderable(new TestRenderable(4, 75));
+        dc.addOrderedRenderable(new TestRenderable(5, 1));
+
+        assertPollOrder(dc, 4, 1, 3, 2, 5);
+
+        // Once drained, the queue starts a new run.
+        dc.addOrderedRenderable(new TestRenderable(6, 1));
+        dc.addOrderedRenderable(new TestRenderable(7, 2));
+        assertPollOrder(dc, 7, 6);
+    }
+
+    @Test
+    public void testMatchesPriorityQueue()
+    {
+        Random random = new Random(42);
+        DrawContextImpl dc = new DrawContextImpl();
+
+        for (int frame = 0; frame < 5; frame++)
+        {
+            dc.orderedRenderables.clear();
+
+            PriorityQueue<TestRenderable> expected = new PriorityQueue<TestRenderable>(11,
+                new Comparator<TestRenderable>()
+                {
+                    public int compare(TestRenderable a, TestRenderable b)
+                    {
+                        int c = Double.compare(b.distance, a.distance);
+                        return c != 0 ? c : a.id - b.id;
+                    }
+                });
+
+            int id = 0;
+            int n = 1000 + random.nextInt(5000);
+            for (int i = 0; i < n; i++)
+            {
+                // Few distinct distances, so that ties are common, and the full range of magnitudes and signs.
+                double distance = (random.nextInt(4) == 0) ? random.nextInt(20)
+                    : (random.nextDouble() - 0.1) * Math.pow(10, random.nextInt(12) - 3);
+                TestRenderable r = new TestRenderable(id++, distance);
+                dc.addOrderedRenderable(r);
+                expected.add(r);
+            }
+
+            while (!expected.isEmpty())
+            {
+                if (random.nextInt(50) == 0)
+                {
+                    TestRenderable r = new TestRenderable(id++, random.nextDouble() * 1000);
+                    dc.addOrderedRenderable(r);
+                    expected.add(r);
+                }
+
+                assertSame(expected.peek(), dc.peekOrderedRenderables());
+                assertSame(expected.poll(), dc.pollOrderedRenderables());
+            }
+
+            assertNull(dc.pollOrderedRenderables());
+        }
+    }
+
+    @Test
+    public void testClutterFilterRemovesDeclutterables()
+    {
+        DrawContextImpl dc = new DrawContextImpl();
+        dc.addOrderedRenderable(new TestRenderable(0, 30, true));
+        dc.addOrderedRenderable(new TestRenderable(1, 20, false));
+        dc.addOrderedRenderable(new TestRenderable(2, 10, true));
+        dc.addOrderedRenderable(new TestRenderable(3, 40, true));
+
+        final List<Integer> filtered = new ArrayList<Integer>();
+        dc.setClutterFilter(new ClutterFilter()
+        {
+            public void apply(DrawContext dc, List<Declutterable> shapes)
+            {
+                for (Declutterable shape : shapes)
+                {
+                    filtered.add(((TestRenderable) shape).id);
+                }
+
+                // Keep only the nearest declutterable.
+                dc.addOrderedRenderable(shapes.get(0));
+            }
+        });
+        dc.applyClutterFilter();
+
+        assertEquals(Arrays.asList(2, 0, 3), filtered);
+        assertEquals(2, dc.orderedRenderables.size());
+        assertPollOrder(dc, 1, 2);
+    }
+
+    @Test
+    public void testClearReleasesAndReusesEntries()
+    {
+        DrawContextImpl dc = new DrawContextImpl();
+        for (int i = 0; i < 200; i++)
+        {
+            dc.addOrderedRenderable(new TestRenderable(i, i));
+        }
+        DrawContextImpl.OrderedRenderableEntry first =
+            ((DrawContextImpl.OrderedRenderableQueue) dc.orderedRenderables).sorted[0];
+
+        dc.orderedRenderables.clear();
+        assertTrue(dc.orderedRenderables.isEmpty());
+        assertNull(first.or);
+
+        dc.addOrderedRenderable(new TestRenderable(0, 1));
+        assertSame(first, ((DrawContextImpl.OrderedRenderableQueue) dc.orderedRenderables).sorted[0]);
+        assertPollOrder(dc, 0);
+    }
+
+    /** Tests that the queue behaves as the priority queue it replaced for subclasses that use it directly. */
+    @Test
+    public void testPriorityQueueCompatibility()
+    {
+        DrawContextImpl dc = new DrawContextImpl();
+        dc.addOrderedRenderable(new TestRenderable(0, 10));
+
+        Queue<DrawContextImpl.OrderedRenderableEntry> queue = dc.orderedRenderables;
+        DrawContextImpl.OrderedRenderableEntry offered = new DrawContextImpl.OrderedRenderableEntry(
+            new TestRenderable(1, 20), System.nanoTime(), dc);
+        queue.add(offered);
+        dc.addOrderedRenderable(new TestRenderable(2, 10));
+        DrawContextImpl.OrderedRenderableEntry removed = new DrawContextImpl.OrderedRenderableEntry(
+            new TestRenderable(3, 30), System.nanoTime(), dc);
+        queue.offer(removed);
+
+        assertEquals(4, queue.size());
+        assertTrue(queue.contains(offered));
+        assertEquals(4, queue.toArray().length);
+        assertTrue(queue.remove(removed));
+        assertFalse(queue.remove(removed));
+        assertFalse(queue.contains(removed));
+        assertEquals(3, queue.size());
+
+        Iterator<DrawContextImpl.OrderedRenderableEntry> iterator = queue.iterator();
+        while (iterator.hasNext())
+        {
+            if (((TestRenderable) iterator.next().or).id == 0)
+                iterator.remove();
+        }
+        assertEquals(2, queue.size());
+
+        assertPollOrder(dc, 1, 2);
+        assertTrue(queue.isEmpty());
+    }
+
+    /** Tests that a subclass may replace the pooled queue with a plain priority queue. */
+    @Test
+    public void testReplacedQueue()
+    {
+        DrawContextImpl dc = new DrawContextImpl();
+        dc.orderedRenderables = new PriorityQueue<DrawContextImpl.OrderedRenderableEntry>(11,
+            new Comparator<DrawContextImpl.OrderedRenderableEntry>()
+            {
+                public int compare(DrawContextImpl.OrderedRenderableEntry a, DrawContextImpl.OrderedRenderableEntry b)
+                {
+                    return Double.compare(b.distanceFromEye, a.distanceFromEye);
+                }
+            });
+
+        dc.addOrderedRenderable(new TestRenderable(0, 10));
+        dc.addOrderedRenderable(new TestRenderable(1, 20));
+
+        assertPollOrder(dc, 1, 0);
+    }
+
+    protected static void assertPollOrder(DrawContext dc, int... ids)
+    {
+        for (int id : ids)
+        {
+            OrderedRenderable peeked = dc.peekOrderedRenderables();
+            OrderedRenderable polled = dc.pollOrderedRenderables();
+            assertSame(peeked, polled);
+            assertNotNull(polled);
+            assertEquals(id, ((TestRenderable) polled).id);
+        }
+    }
+}
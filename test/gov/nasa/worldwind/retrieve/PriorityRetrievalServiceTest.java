@@ -0,0 +1,344 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.WWObjectImpl;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PriorityRetrievalServiceTest
+{
+    protected PriorityRetrievalService service;
+    protected List<String> completed;
+
+    @Before
+    public void setUp()
+    {
+        this.service = new TestService();
+        this.completed = Collections.synchronizedList(new ArrayList<String>());
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.service.shutdown(true);
+    }
+
+    /** Tests that a duplicate request is coalesced into the pending request rather than queued again. */
+    @Test
+    public void testDuplicateRequestsCoalesced() throws Exception
+    {
+        CountDownLatch gate = new CountDownLatch(1);
+        this.service.setRetrieverPoolSize(1);
+        this.service.runRetriever(new TestRetriever("a/blocker", gate), 0);
+        this.awaitActive(1);
+
+        assertNotNull(this.service.runRetriever(new TestRetriever("a/1", null), 1));
+        assertNull("Duplicate was queued ", this.service.runRetriever(new TestRetriever("a/1", null), 1));
+        assertNull("Duplicate of running retrieval was queued ",
+            this.service.runRetriever(new TestRetriever("a/blocker", null), 1));
+        assertEquals("Queue depth incorrect ", 1, this.service.getQueueDepth());
+        assertEquals("Coalesced count incorrect ", 2, this.service.getNumCoalesced());
+        assertTrue(this.service.contains(new TestRetriever("a/1", null)));
+
+        gate.countDown();
+        this.awaitIdle();
+        assertEquals(Arrays.asList("a/blocker", "a/1"), this.completed);
+    }
+
+    /** Tests that resubmitting a pending request with a new priority reorders it. */
+    @Test
+    public void testPriorityUpdatedOnResubmit() throws Exception
+    {
+        CountDownLatch gate = new CountDownLatch(1);
+        this.service.setRetrieverPoolSize(1);
+        this.service.runRetriever(new TestRetriever("a/blocker", gate), 0);
+        this.awaitActive(1);
+
+        this.service.runRetriever(new TestRetriever("a/1", null), 1);
+        this.service.runRetriever(new TestRetriever("a/2", null), 2);
+        this.service.runRetriever(new TestRetriever("a/3", null), 3);
+        this.service.runRetriever(new TestRetriever("a/3", null), 0.5);
+
+        gate.countDown();
+        this.awaitIdle();
+        assertEquals(Arrays.asList("a/blocker", "a/3", "a/1", "a/2"), this.completed);
+    }
+
+    /** Tests that no host exceeds its concurrent retrieval limit and that other hosts still get served. */
+    @Test
+    public void testHostPoolSizeLimit() throws Exception
+    {
+        CountDownLatch gate = new CountDownLatch(1);
+        this.service.setRetrieverPoolSize(4);
+        this.service.setHostPoolSize(2);
+
+        for (int i = 0; i < 4; i++)
+        {
+            this.service.runRetriever(new TestRetriever("a/" + i, gate), i);
+        }
+        this.service.runRetriever(new TestRetriever("b/0", gate), 10);
+        this.awaitActive(3);
+
+        assertEquals("Host limit not enforced ", 2, this.service.getQueueDepth("a"));
+        assertEquals("Other host not served ", 0, this.service.getQueueDepth("b"));
+
+        gate.countDown();
+        this.awaitIdle();
+        assertEquals(5, this.completed.size());
+    }
+
+    /** Tests that a full queue displaces its lowest priority request for a higher priority one. */
+    @Test
+    public void testFullQueueDisplacesLowestPriority() throws Exception
+    {
+        CountDownLatch gate = new CountDownLatch(1);
+        this.service = new TestService(2);
+        this.service.setRetrieverPoolSize(1);
+        this.service.runRetriever(new TestRetriever("a/blocker", gate), 0);
+        this.awaitActive(1);
+
+        RetrievalFuture low = this.service.runRetriever(new TestRetriever("a/low", null), 5);
+        this.service.runRetriever(new TestRetriever("a/mid", null), 3);
+        assertFalse(this.service.isAvailable());
+
+        assertNull("Lower priority request accepted ", this.service.runRetriever(new TestRetriever("a/x", null), 9));
+        assertEquals(1, this.service.getNumRejected());
+        assertNotNull(this.service.runRetriever(new TestRetriever("a/high", null), 1));
+        assertEquals(1, this.service.getNumDisplaced());
+        assertTrue("Displaced request not cancelled ", ((Future) low).isCancelled());
+
+        gate.countDown();
+        this.awaitIdle();
+        assertEquals(Arrays.asList("a/blocker", "a/high", "a/mid"), this.completed);
+    }
+
+    /** Tests that a request resubmitted and then abandoned by its caller is dropped from the queue. */
+    @Test
+    public void testAbandonedRequestExpires() throws Exception
+    {
+        CountDownLatch gate = new CountDownLatch(1);
+        this.service.setRetrieverPoolSize(1);
+        this.service.runRetriever(new TestRetriever("a/blocker", gate), 0);
+        this.awaitActive(1);
+
+        this.service.runRetriever(new TestRetriever("a/abandoned", null), 1);
+        this.service.runRetriever(new TestRetriever("a/abandoned", null), 1);
+        this.service.runRetriever(new TestRetriever("a/once", null), 2);
+
+        Thread.sleep(TestService.RESUBMIT_LIMIT + 2 * PriorityRetrievalService.PURGE_INTERVAL);
+        gate.countDown();
+        this.awaitIdle();
+
+        assertEquals(Arrays.asList("a/blocker", "a/once"), this.completed);
+        assertEquals(1, this.service.getNumExpired());
+    }
+
+    /** Tests that cancelling a pending request removes it from the queue. */
+    @Test
+    public void testCancelRemovesPendingRequest() throws Exception
+    {
+        CountDownLatch gate = new CountDownLatch(1);
+        this.service.setRetrieverPoolSize(1);
+        this.service.runRetriever(new TestRetriever("a/blocker", gate), 0);
+        this.awaitActive(1);
+
+        RetrievalFuture future = this.service.runRetriever(new TestRetriever("a/1", null), 1);
+        ((Future) future).cancel(false);
+        assertEquals(0, this.service.getQueueDepth());
+        assertFalse(this.service.contains(new TestRetriever("a/1", null)));
+
+        gate.countDown();
+        this.awaitIdle();
+        assertEquals(Collections.singletonList("a/blocker"), this.completed);
+    }
+
+    protected void awaitActive(int numActive) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + 5000;
+        while (this.service.getNumActive() < numActive && System.currentTimeMillis() < end)
+        {
+            Thread.sleep(5);
+        }
+        assertEquals("Retrievals did not start ", numActive, this.service.getNumActive());
+    }
+
+    protected void awaitIdle() throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + 5000;
+        while (this.service.getNumRetrieversPending() > 0 && System.currentTimeMillis() < end)
+        {
+            Thread.sleep(5);
+        }
+        assertEquals("Retrievals did not finish ", 0, this.service.getNumRetrieversPending());
+    }
+
+    /** Takes the host from the first path segment of the retriever name. */
+    protected static class TestService extends PriorityRetrievalService
+    {
+        protected static final long RESUBMIT_LIMIT = 200;
+
+        public TestService()
+        {
+            this(100);
+        }
+
+        public TestService(int queueSize)
+        {
+            super(queueSize, RESUBMIT_LIMIT);
+        }
+
+        @Override
+        protected String hostOf(Retriever retriever)
+        {
+            return retriever.getName().substring(0, retriever.getName().indexOf('/'));
+        }
+    }
+
+    protected class TestRetriever extends WWObjectImpl implements Retriever
+    {
+        protected final String name;
+        protected final CountDownLatch gate;
+        protected long submitTime;
+        protected long beginTime;
+        protected long endTime;
+
+        public TestRetriever(String name, CountDownLatch gate)
+        {
+            this.name = name;
+            this.gate = gate;
+        }
+
+        public Retriever call() throws Exception
+        {
+            if (this.gate != null)
+                this.gate.await();
+            completed.add(this.name);
+            return this;
+        }
+
+        public java.nio.ByteBuffer getBuffer()
+        {
+            return null;
+        }
+
+        public int getContentLength()
+        {
+            return 0;
+        }
+
+        public int getContentLengthRead()
+        {
+            return 0;
+        }
+
+        public String getName()
+        {
+            return this.name;
+        }
+
+        public String getState()
+        {
+            return null;
+        }
+
+        public String getContentType()
+        {
+            return null;
+        }
+
+        public long getExpirationTime()
+        {
+            return 0;
+        }
+
+        public long getSubmitTime()
+        {
+            return this.submitTime;
+        }
+
+        public void setSubmitTime(long submitTime)
+        {
+            this.submitTime = submitTime;
+        }
+
+        public long getBeginTime()
+        {
+            return this.beginTime;
+        }
+
+        public void setBeginTime(long beginTime)
+        {
+            this.beginTime = beginTime;
+        }
+
+        public long getEndTime()
+        {
+            return this.endTime;
+        }
+
+        public void setEndTime(long endTime)
+        {
+            this.endTime = endTime;
+        }
+
+        public int getConnectTimeout()
+        {
+            return 0;
+        }
+
+        public int getReadTimeout()
+        {
+            return 0;
+        }
+
+        public void setReadTimeout(int readTimeout)
+        {
+        }
+
+        public void setConnectTimeout(int connectTimeout)
+        {
+        }
+
+        public int getStaleRequestLimit()
+        {
+            return -1;
+        }
+
+        public void setStaleRequestLimit(int staleRequestLimit)
+        {
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.FloatBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BasicElevationModelBatchTest
+{
+    private static final int TILE_SIZE = 5;
+    private static final double MISSING_DATA_SIGNAL = -9999;
+    private static final double MISSING_DATA_REPLACEMENT = -1;
+
+    private BasicElevationModel elevationModel;
+
+    @Before
+    public void setUp()
+    {
+        this.elevationModel = createElevationModel();
+    }
+
+    @Test
+    public void testArrayElevationsMatchListElevations()
+    {
+        Sector sector = Sector.fromDegrees(-50, 50, -100, 100);
+        double[] lats = new double[1000];
+        double[] lons = new double[1000];
+        fillLocations(sector, lats, lons, 1);
+
+        this.assertMatchesListQuery(sector, lats, lons, true);
+        this.assertMatchesListQuery(sector, lats, lons, false);
+    }
+
+    @Test
+    public void testParallelElevationsMatchListElevations()
+    {
+        Sector sector = Sector.fromDegrees(-80, 80, -170, 170);
+        double[] lats = new double[20000];
+        double[] lons = new double[20000];
+        fillLocations(sector, lats, lons, 2);
+
+        this.elevationModel.setBatchParallelThreshold(1);
+        this.assertMatchesListQuery(sector, lats, lons, true);
+    }
+
+    @Test
+    public void testNaNLocationsAreSkipped()
+    {
+        Sector sector = Sector.fromDegrees(0, 30, 0, 30);
+        double[] lats = {10, Double.NaN, 20};
+        double[] lons = {10, 15, Double.NaN};
+        double[] buffer = {7, 7, 7};
+
+        this.elevationModel.getElevations(sector, lats, lons, 1, buffer);
+
+        assertTrue("Elevation not computed", buffer[0] != 7);
+        assertEquals("Elevation computed for NaN latitude", 7, buffer[1], 0);
+        assertEquals("Elevation computed for NaN longitude", 7, buffer[2], 0);
+    }
+
+    @Test
+    public void testZeroElevationModelSkipsNaNLocations()
+    {
+        double[] lats = {10, Double.NaN, 20};
+        double[] lons = {10, 15, Double.NaN};
+        double[] buffer = {7, 7, 7};
+
+        new ZeroElevationModel().getElevations(Sector.FULL_SPHERE, lats, lons, 1, buffer);
+
+        assertEquals("Elevation not computed", 0, buffer[0], 0);
+        assertEquals("Elevation computed for NaN latitude", 7, buffer[1], 0);
+        assertEquals("Elevation computed for NaN longitude", 7, buffer[2], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedArraysAreRejected()
+    {
+        this.elevationModel.getElevations(Sector.FULL_SPHERE, new double[2], new double[3], 1, new double[3]);
+    }
+
+    private void assertMatchesListQuery(Sector sector, double[] lats, double[] lons, boolean mapMissingData)
+    {
+        List<LatLon> locations = new ArrayList<LatLon>(lats.length);
+        for (int i = 0; i < lats.length; i++)
+        {
+            locations.add(LatLon.fromDegrees(lats[i], lons[i]));
+        }
+
+        double[] expected = new double[lats.length];
+        double[] actual = new double[lats.length];
+        double expectedResolution = mapMissingData
+            ? this.elevationModel.getElevations(sector, locations, 1, expected)
+            : this.elevationModel.getUnmappedElevations(sector, locations, 1, expected);
+        double actualResolution = mapMissingData
+            ? this.elevationModel.getElevations(sector, lats, lons, 1, actual)
+            : this.elevationModel.getUnmappedElevations(sector, lats, lons, 1, actual);
+
+        assertEquals("Resolution", expectedResolution, actualResolution, 0);
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertEquals("Elevation " + i, expected[i], actual[i], 1e-9);
+        }
+    }
+
+    private static void fillLocations(Sector sector, double[] lats, double[] lons, long seed)
+    {
+        Random random = new Random(seed);
+        for (int i = 0; i < lats.length; i++)
+        {
+            lats[i] = sector.getMinLatitude().degrees + random.nextDouble() * sector.getDeltaLatDegrees();
+            lons[i] = sector.getMinLongitude().degrees + random.nextDouble() * sector.getDeltaLonDegrees();
+        }
+
+        // Include locations on tile boundaries and sector corners.
+        lats[0] = sector.getMinLatitude().degrees;
+        lons[0] = sector.getMinLongitude().degrees;
+        lats[1] = sector.getMaxLatitude().degrees;
+        lons[1] = sector.getMaxLongitude().degrees;
+        lats[2] = 0;
+        lons[2] = 36;
+    }
+
+    private static BasicElevationModel createElevationModel()
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SECTOR, Sector.FULL_SPHERE);
+        params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(36, 36));
+        params.setValue(AVKey.NUM_LEVELS, 1);
+        params.setValue(AVKey.TILE_WIDTH, TILE_SIZE);
+        params.setValue(AVKey.TILE_HEIGHT, TILE_SIZE);
+        params.setValue(AVKey.DATA_CACHE_NAME, "Test/BasicElevationModelBatchTest");
+        params.setValue(AVKey.DATASET_NAME, "test");
+        params.setValue(AVKey.FORMAT_SUFFIX, ".bil");
+
+        BasicElevationModel em = new BasicElevationModel(params);
+        em.setMissingDataSignal(MISSING_DATA_SIGNAL);
+        em.setMissingDataReplacement(MISSING_DATA_REPLACEMENT);
+
+        // Populate every level zero tile so that queries never request tiles.
+        Level level = em.getLevels().getFirstLevel();
+        for (int row = 0; row < 5; row++)
+        {
+            for (int col = 0; col < 10; col++)
+            {
+                Sector tileSector = Sector.fromDegrees(-90 + row * 36, -90 + (row + 1) * 36,
+                    -180 + col * 36, -180 + (col + 1) * 36);
+                BasicElevationModel.ElevationTile tile = new BasicElevationModel.ElevationTile(tileSector, level,
+                    row, col);
+
+                // Sample a function of location, so that adjacent tiles agree along their shared edges. Mark the
+                // center sample of every third tile as missing data.
+                FloatBuffer buffer = FloatBuffer.allocate(TILE_SIZE * TILE_SIZE);
+                for (int j = 0; j < TILE_SIZE; j++)
+                {
+                    double lat = tileSector.getMaxLatitude().degrees - j * 36d / (TILE_SIZE - 1);
+                    for (int i = 0; i < TILE_SIZE; i++)
+                    {
+                        double lon = tileSector.getMinLongitude().degrees + i * 36d / (TILE_SIZE - 1);
+                        boolean missing = j == TILE_SIZE / 2 && i == TILE_SIZE / 2 && (row * 10 + col) % 3 == 0;
+                        buffer.put(missing ? (float) MISSING_DATA_SIGNAL : (float) (10 * lat + lon));
+                    }
+                }
+                buffer.rewind();
+
+                tile.setElevations(new BufferWrapper.FloatBufferWrapper(buffer), em);
+                em.levelZeroTiles.put(tile.getTileKey(), tile);
+            }
+        }
+
+        return em;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class HighResolutionTerrainBatchTest
+{
+    protected static final Sector SECTOR = Sector.fromDegrees(10, 10.2, 20, 20.2);
+
+    protected HighResolutionTerrain terrain;
+
+    @Before
+    public void setUp()
+    {
+        Globe globe = new Earth();
+        globe.setElevationModel(new ZeroElevationModel()
+        {
+            @Override
+            public double getMaxElevation()
+            {
+                return 1000;
+            }
+
+            @Override
+            public double[] getExtremeElevations(Sector sector)
+            {
+                return new double[] {0, 1000};
+            }
+
+            @Override
+            public double getBestResolution(Sector sector)
+            {
+                return 2e-5;
+            }
+
+            @Override
+            public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
+                double[] buffer)
+            {
+                for (int i = 0; i < latlons.size(); i++)
+                {
+                    LatLon ll = latlons.get(i);
+                    buffer[i] = 500 + 500 * Math.sin(ll.getLatitude().radians * 2000)
+                        * Math.cos(ll.getLongitude().radians * 2000);
+                }
+                return 0;
+            }
+        });
+
+        this.terrain = new HighResolutionTerrain(globe, SECTOR, null, null);
+    }
+
+    /** Tests that batch intersection produces the same intersections as intersecting each line individually. */
+    @Test
+    public void testBatchMatchesIndividualIntersections()
+    {
+        int numLines = 200;
+        Position[] positionsA = new Position[numLines];
+        Position[] positionsB = new Position[numLines];
+        Random random = new Random(7);
+        for (int i = 0; i < numLines; i++)
+        {
+            positionsA[i] = randomPosition(random);
+            positionsB[i] = randomPosition(random);
+        }
+        positionsB[5] = null;
+
+        Intersection[][] intersections = new Intersection[numLines][];
+        int count;
+        try
+        {
+            count = this.terrain.intersect(positionsA, positionsB, intersections);
+        }
+        catch (InterruptedException e)
+        {
+            throw new AssertionError(e);
+        }
+
+        int expectedCount = 0;
+        for (int i = 0; i < numLines; i++)
+        {
+            Intersection[] expected = positionsB[i] != null
+                ? this.terrain.intersect(positionsA[i], positionsB[i]) : null;
+            if (expected == null)
+            {
+                assertNull("Intersections for line " + i, intersections[i]);
+                continue;
+            }
+
+            expectedCount++;
+            assertNotNull("Intersections for line " + i, intersections[i]);
+            assertEquals("Number of intersections for line " + i, expected.length, intersections[i].length);
+            for (int j = 0; j < expected.length; j++)
+            {
+                Vec4 e = expected[j].getIntersectionPoint();
+                Vec4 a = intersections[i][j].getIntersectionPoint();
+                assertEquals("Intersection " + j + " of line " + i, 0, e.distanceTo3(a), 1e-6);
+            }
+        }
+
+        assertTrue("No lines intersect the terrain", expectedCount > 0);
+        assertEquals("Number of intersecting lines", expectedCount, count);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedArraysAreRejected() throws InterruptedException
+    {
+        this.terrain.intersect(new Position[2], new Position[1], new Intersection[2][]);
+    }
+
+    protected static Position randomPosition(Random random)
+    {
+        return Position.fromDegrees(
+            SECTOR.getMinLatitude().degrees + random.nextDouble() * SECTOR.getDeltaLatDegrees(),
+            SECTOR.getMinLongitude().degrees + random.nextDouble() * SECTOR.getDeltaLonDegrees(),
+            random.nextDouble() * 300);
+    }
+}
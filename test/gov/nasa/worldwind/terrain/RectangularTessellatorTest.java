@@ -0,0 +1,150 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.FloatBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RectangularTessellatorTest
+{
+    protected static final double VERTICAL_EXAGGERATION = 2;
+    protected static final double MIN_ELEVATION = -100;
+
+    protected Globe globe;
+    protected RectangularTessellator tessellator;
+
+    @Before
+    public void setUp()
+    {
+        this.globe = new Earth();
+        this.globe.setElevationModel(new ZeroElevationModel()
+        {
+            @Override
+            public double getMinElevation()
+            {
+                return MIN_ELEVATION;
+            }
+
+            @Override
+            public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
+                double[] buffer)
+            {
+                for (int i = 0; i < latlons.size(); i++)
+                {
+                    buffer[i] = 1000 * Math.sin(latlons.get(i).getLatitude().radians * 100)
+                        + latlons.get(i).getLongitude().degrees;
+                }
+                return 0;
+            }
+        });
+        this.tessellator = new RectangularTessellator();
+    }
+
+    /** Tests that batched vertex computation matches computing each vertex individually. */
+    @Test
+    public void testComputeVerticesWithSkirts()
+    {
+        this.assertVerticesMatch(Sector.fromDegrees(30, 33.75, -120, -112.5), 20, true);
+    }
+
+    /** Tests that batched vertex computation matches computing each vertex individually, without skirts. */
+    @Test
+    public void testComputeVerticesWithoutSkirts()
+    {
+        this.assertVerticesMatch(Sector.fromDegrees(-90, -60, 120, 180), 7, false);
+    }
+
+    /** Tests that vertices computed in parallel match those computed serially. */
+    @Test
+    public void testParallelBuild()
+    {
+        List<RectangularTessellator.VertexBuild> builds = new ArrayList<RectangularTessellator.VertexBuild>();
+        for (Sector sector : Sector.fromDegrees(0, 10, 0, 10).subdivide(3))
+        {
+            builds.add(this.createBuild(sector, 20, true));
+        }
+
+        new RectangularTessellator.VertexBuildAction(this.tessellator, builds, 0, builds.size()).invoke();
+
+        for (RectangularTessellator.VertexBuild build : builds)
+        {
+            RectangularTessellator.VertexBuild serial = this.createBuild(build.tile.getSector(), 20, true);
+            this.tessellator.computeVertices(serial);
+            assertEquals("Reference center differs ", serial.referenceCenter, build.referenceCenter);
+            assertEquals("Vertices differ ", serial.vertices, build.vertices);
+        }
+    }
+
+    protected RectangularTessellator.VertexBuild createBuild(Sector sector, int density, boolean makeSkirts)
+    {
+        RectangularTessellator.RectTile tile = new RectangularTessellator.RectTile(this.tessellator, null, 0, density,
+            sector);
+        return new RectangularTessellator.VertexBuild(tile, null, this.globe, VERTICAL_EXAGGERATION, makeSkirts, null);
+    }
+
+    /** Compares computed vertices with the per-vertex computation the tessellator used before batching. */
+    protected void assertVerticesMatch(Sector sector, int density, boolean makeSkirts)
+    {
+        RectangularTessellator.VertexBuild build = this.createBuild(sector, density, makeSkirts);
+        this.tessellator.computeVertices(build);
+
+        ArrayList<LatLon> latlons = this.tessellator.computeLocations(build.tile);
+        double[] elevations = new double[latlons.size()];
+        this.globe.getElevations(sector, latlons, build.tile.getResolution(), elevations);
+        double minElevation = MIN_ELEVATION * VERTICAL_EXAGGERATION;
+
+        FloatBuffer vertices = build.vertices;
+        assertEquals("Vertex count incorrect ", latlons.size() * 3, vertices.remaining());
+
+        int k = 0;
+        for (int j = 0; j <= density + 2; j++)
+        {
+            for (int i = 0; i <= density + 2; i++, k++)
+            {
+                double elevation = VERTICAL_EXAGGERATION * elevations[k];
+                if (makeSkirts && (j == 0 || j == density + 2 || i == 0 || i == density + 2))
+                    elevation = minElevation;
+
+                Vec4 expected = this.globe.computePointFromPosition(latlons.get(k), elevation)
+                    .subtract3(build.referenceCenter);
+                assertEquals("X differs at " + j + "," + i, expected.x, vertices.get(3 * k), 0.5);
+                assertEquals("Y differs at " + j + "," + i, expected.y, vertices.get(3 * k + 1), 0.5);
+                assertEquals("Z differs at " + j + "," + i, expected.z, vertices.get(3 * k + 2), 0.5);
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ConcurrentQuadTreeTest
+{
+    /** Tests that region and location queries return the same items as BasicQuadTree. */
+    @Test
+    public void testQueriesMatchBasicQuadTree()
+    {
+        for (boolean allowDuplicates : new boolean[] {true, false})
+        {
+            BasicQuadTree<Integer> basic = new BasicQuadTree<Integer>(5, Sector.FULL_SPHERE, null, allowDuplicates);
+            ConcurrentQuadTree<Integer> concurrent = new ConcurrentQuadTree<Integer>(5, Sector.FULL_SPHERE,
+                allowDuplicates);
+
+            Random random = new Random(1);
+            for (int i = 0; i < 2000; i++)
+            {
+                double[] coords = i % 4 == 0 ? randomRegion(random) : randomLocation(random);
+                basic.add(i, coords);
+                concurrent.add(i, coords);
+            }
+            // Items on cell boundaries.
+            basic.add(-1, new double[] {0, 0});
+            concurrent.add(-1, new double[] {0, 0});
+            basic.add(-2, new double[] {45, 90});
+            concurrent.add(-2, new double[] {45, 90});
+
+            for (int i = 0; i < 200; i++)
+            {
+                Sector sector = Sector.fromDegrees(randomRegion(random));
+                assertEquals("Region query differs", basic.getItemsInRegion(sector, null),
+                    concurrent.getItemsInRegion(sector, null));
+
+                LatLon location = LatLon.fromDegrees(randomLocation(random)[0], randomLocation(random)[1]);
+                assertEquals("Location query differs", basic.getItemsAtLocation(location, null),
+                    concurrent.getItemsAtLocation(location, null));
+            }
+
+            assertEquals("Boundary query differs", basic.getItemsAtLocation(LatLon.ZERO, null),
+                concurrent.getItemsAtLocation(LatLon.ZERO, null));
+            assertEquals("Full sphere query differs", basic.getItemsInRegion(Sector.FULL_SPHERE, null),
+                concurrent.getItemsInRegion(Sector.FULL_SPHERE, null));
+            assertEquals("Item count incorrect", 2002, concurrent.size());
+        }
+    }
+
+    /** Tests that adding an item already in the tree moves it rather than adding it again. */
+    @Test
+    public void testAddMovesItem()
+    {
+        ConcurrentQuadTree<String> tree = new ConcurrentQuadTree<String>(5, Sector.FULL_SPHERE);
+        tree.add("a", new double[] {10, 10});
+        tree.add("a", new double[] {-60, -120});
+
+        assertEquals("Item count incorrect", 1, tree.size());
+        assertTrue("Item not at new location",
+            tree.getItemsInRegion(Sector.fromDegrees(-61, -59, -121, -119), null).contains("a"));
+        assertTrue("Item still at old location",
+            tree.getItemsInRegion(Sector.fromDegrees(9, 11, 9, 11), null).isEmpty());
+    }
+
+    /** Tests adding and moving items in bulk. */
+    @Test
+    public void testAddAllAndMoveAll()
+    {
+        ConcurrentQuadTree<Integer> tree = new ConcurrentQuadTree<Integer>(6, Sector.FULL_SPHERE);
+
+        Map<Integer, double[]> coords = new HashMap<Integer, double[]>();
+        for (int i = 0; i < 100; i++)
+        {
+            coords.put(i, new double[] {10, 10});
+        }
+        tree.addAll(coords);
+        assertEquals("Item count incorrect", 100, tree.size());
+        assertEquals("Items not found", 100, tree.getItemsInRegion(Sector.fromDegrees(9, 11, 9, 11), null).size());
+
+        Map<Integer, double[]> moves = new HashMap<Integer, double[]>();
+        for (int i = 0; i < 50; i++)
+        {
+            moves.put(i, new double[] {-10, -10});
+        }
+        moves.put(50, new double[] {10, 10}); // not moved
+        moves.put(1000, new double[] {-10, -10}); // not in the tree
+
+        assertEquals("Moved count incorrect", 50, tree.moveAll(moves));
+        assertEquals("Item count incorrect", 100, tree.size());
+        assertFalse("Item added by move", tree.contains(1000));
+        assertEquals("Moved items not found", 50,
+            tree.getItemsInRegion(Sector.fromDegrees(-11, -9, -11, -9), null).size());
+        assertEquals("Unmoved items not found", 50,
+            tree.getItemsInRegion(Sector.fromDegrees(9, 11, 9, 11), null).size());
+    }
+
+    /** Tests incremental removal of all items from the tree. */
+    @Test
+    public void testFullRemoval()
+    {
+        int numItems = 1000;
+        ConcurrentQuadTree<Integer> tree = new ConcurrentQuadTree<Integer>(5, Sector.FULL_SPHERE);
+
+        for (int i = 1; i <= numItems; i++)
+        {
+            tree.add(i, new double[] {i % 90, i % 180}, Integer.toString(i));
+        }
+
+        for (int i = numItems; i > 0; i--)
+        {
+            if (i % 2 == 0)
+                tree.remove(i);
+            else
+                tree.removeByName(Integer.toString(i));
+            assertEquals("Item count incorrect", i - 1, tree.size());
+        }
+
+        assertFalse("Tree has items", tree.hasItems());
+        assertTrue("Items found", tree.getItemsInRegion(Sector.FULL_SPHERE, null).isEmpty());
+        for (int i = 0; i < tree.occupancy.length(); i++)
+        {
+            assertEquals("Cell occupied", 0, tree.occupancy.get(i));
+        }
+    }
+
+    /** Tests name association, replacement and removal. */
+    @Test
+    public void testNames()
+    {
+        ConcurrentQuadTree<String> tree = new ConcurrentQuadTree<String>(3, Sector.FULL_SPHERE);
+        tree.add("a", new double[] {0, 0}, "name");
+        assertEquals("Named item incorrect", "a", tree.getByName("name"));
+
+        tree.add("b", new double[] {0, 0}, "name");
+        assertEquals("Name not reassigned", "b", tree.getByName("name"));
+
+        tree.remove("a");
+        assertEquals("Name removed with other item", "b", tree.getByName("name"));
+
+        tree.add("b", new double[] {0, 0}, "other");
+        assertNull("Old name not removed", tree.getByName("name"));
+        assertEquals("New name not assigned", "b", tree.getByName("other"));
+
+        tree.clear();
+        assertNull("Name not cleared", tree.getByName("other"));
+        assertFalse("Tree not cleared", tree.hasItems());
+    }
+
+    /**
+     * Tests that queries running alongside a thread that moves items always find the items that are not moving, and
+     * never find items that were never added.
+     */
+    @Test
+    public void testConcurrentReadsAndMoves() throws Exception
+    {
+        final ConcurrentQuadTree<Integer> tree = new ConcurrentQuadTree<Integer>(6, Sector.FULL_SPHERE);
+        final Sector fixedRegion = Sector.fromDegrees(10, 20, 10, 20);
+        for (int i = 0; i < 100; i++)
+        {
+            tree.add(i, new double[] {15, 15}); // never moved
+        }
+        for (int i = 100; i < 1100; i++)
+        {
+            tree.add(i, new double[] {-45, -90});
+        }
+
+        final AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<String>> readers = new ArrayList<Future<String>>();
+        for (int t = 0; t < 2; t++)
+        {
+            readers.add(executor.submit(new Callable<String>()
+            {
+                public String call()
+                {
+                    while (!done.get())
+                    {
+                        Set<Integer> items = tree.getItemsInRegion(fixedRegion, null);
+                        for (int i = 0; i < 100; i++)
+                        {
+                            if (!items.contains(i))
+                                return "Fixed item " + i + " missing";
+                        }
+                        for (Integer item : tree.getItemsInRegion(Sector.FULL_SPHERE, null))
+                        {
+                            if (item < 0 || item >= 1100)
+                                return "Unknown item " + item;
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        Future<?> writer = executor.submit(new Callable<Object>()
+        {
+            public Object call()
+            {
+                try
+                {
+                    Random random = new Random(2);
+                    for (int n = 0; n < 200; n++)
+                    {
+                        Map<Integer, double[]> moves = new HashMap<Integer, double[]>();
+                        for (int i = 100; i < 1100; i++)
+                        {
+                            moves.put(i, randomLocation(random));
+                        }
+                        tree.moveAll(moves);
+                        tree.add(100 + random.nextInt(1000), randomLocation(random));
+                    }
+                    return null;
+                }
+                finally
+                {
+                    done.set(true);
+                }
+            }
+        });
+
+        writer.get(60, TimeUnit.SECONDS);
+        for (Future<String> reader : readers)
+        {
+            assertNull(reader.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals("Item count incorrect", 1100, tree.size());
+        assertEquals("Items lost", 1100, tree.getItemsInRegion(Sector.FULL_SPHERE, null).size());
+    }
+
+    private static double[] randomLocation(Random random)
+    {
+        return new double[] {180 * random.nextDouble() - 90, 360 * random.nextDouble() - 180};
+    }
+
+    private static double[] randomRegion(Random random)
+    {
+        double lat = 160 * random.nextDouble() - 90;
+        double lon = 340 * random.nextDouble() - 180;
+        return new double[] {lat, lat + 20 * random.nextDouble(), lon, lon + 20 * random.nextDouble()};
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class DirectBufferPoolTest
+{
+    @Test
+    public void testAcquire()
+    {
+        DirectBufferPool pool = new DirectBufferPool(1 << 20);
+
+        ByteBuffer buffer = pool.acquire(5000);
+        assertTrue("Buffer not direct", buffer.isDirect());
+        assertEquals("Incorrect byte order", ByteOrder.nativeOrder(), buffer.order());
+        assertEquals("Incorrect position", 0, buffer.position());
+        assertEquals("Incorrect limit", 5000, buffer.limit());
+        assertEquals("Incorrect size class", 8192, buffer.capacity());
+
+        assertEquals("Small requests not rounded to minimum class", 4096, pool.acquire(10).capacity());
+        assertEquals("Exact class size rounded up", 8192, pool.acquire(8192).capacity());
+    }
+
+    @Test
+    public void testReleasedBufferReused()
+    {
+        DirectBufferPool pool = new DirectBufferPool(1 << 20);
+
+        ByteBuffer buffer = pool.acquire(5000);
+        buffer.put((byte) 1);
+        pool.release(buffer);
+        assertEquals(8192, pool.getPooledBytes());
+
+        ByteBuffer reused = pool.acquire(7000);
+        assertSame("Buffer not reused", buffer, reused);
+        assertEquals("Reused buffer not reset", 0, reused.position());
+        assertEquals("Reused buffer limit not set", 7000, reused.limit());
+        assertEquals(0, pool.getPooledBytes());
+        assertEquals(1, pool.getHitCount());
+        assertEquals(1, pool.getMissCount());
+
+        // A request in a different size class does not reuse the buffer.
+        pool.release(reused);
+        assertNotSame(buffer, pool.acquire(20000));
+    }
+
+    @Test
+    public void testCapacity()
+    {
+        DirectBufferPool pool = new DirectBufferPool(10000);
+
+        pool.release(pool.acquire(8192));
+        pool.release(pool.acquire(4096));
+        pool.release(ByteBuffer.allocateDirect(4096));
+
+        assertEquals("Pool exceeds capacity", 8192, pool.getPooledBytes());
+        assertEquals(2, pool.getDiscardCount());
+
+        pool.clear();
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testForeignBuffersIgnored()
+    {
+        DirectBufferPool pool = new DirectBufferPool(1 << 20);
+
+        pool.release(ByteBuffer.allocate(4096));
+        pool.release(ByteBuffer.allocateDirect(5000));
+        pool.release(null);
+
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSize()
+    {
+        new DirectBufferPool(1 << 20).acquire(-1);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import com.jogamp.opengl.GL;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TextureDecoderTest
+{
+    private DirectBufferPool pool;
+    private TextureDecoder decoder;
+
+    @Before
+    public void setUp()
+    {
+        this.pool = new DirectBufferPool(1 << 20);
+        this.decoder = new TextureDecoder(2, this.pool);
+    }
+
+    @Test
+    public void testDecodePremultipliedRGBA() throws IOException
+    {
+        BufferedImage image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, 0xFF102030);
+        image.setRGB(1, 0, 0x80FF4020);
+        image.setRGB(2, 1, 0x00FFFFFF);
+
+        TextureDecoder.PooledTextureData data = this.decoder.decode(null, encode(image, "png"), true);
+        assertNotNull("Image not decoded", data);
+        assertEquals(3, data.getWidth());
+        assertEquals(2, data.getHeight());
+        assertEquals(GL.GL_RGBA, data.getInternalFormat());
+        assertEquals(GL.GL_RGBA, data.getPixelFormat());
+        assertEquals(GL.GL_UNSIGNED_BYTE, data.getPixelType());
+        assertTrue("Mip-maps not requested", data.getMipmap());
+        assertTrue("Rows not flipped", data.getMustFlipVertically());
+
+        ByteBuffer pixels = (ByteBuffer) data.getBuffer();
+        assertEquals("Incorrect data size", 4 * 3 * 2, pixels.remaining());
+        assertPixel(pixels, 0, 0x10, 0x20, 0x30, 0xFF);
+        assertPixel(pixels, 1, 0x80, 0x20, 0x10, 0x80);
+        assertPixel(pixels, 5, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void testDecodeOpaque() throws IOException
+    {
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_3BYTE_BGR);
+        image.setRGB(0, 0, 0xFF405060);
+
+        TextureDecoder.PooledTextureData data = this.decoder.decode(null, encode(image, "png"), false);
+        assertEquals(GL.GL_RGB, data.getInternalFormat());
+        assertPixel((ByteBuffer) data.getBuffer(), 0, 0x40, 0x50, 0x60, 0xFF);
+    }
+
+    @Test
+    public void testBufferReturnedToPool() throws IOException
+    {
+        ByteBuffer encoded = encode(new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB), "png");
+
+        TextureDecoder.PooledTextureData data = this.decoder.decode(null, encoded, false);
+        assertEquals(0, this.pool.getPooledBytes());
+        assertFalse(data.isReleased());
+
+        assertTrue("Buffer not released", data.release());
+        assertTrue(data.isReleased());
+        assertFalse("Buffer released twice", data.release());
+        assertEquals(4 * 64 * 64, this.pool.getPooledBytes());
+
+        this.decoder.decode(null, encoded, false);
+        assertEquals("Pooled buffer not reused", 1, this.pool.getHitCount());
+    }
+
+    @Test
+    public void testTake() throws IOException
+    {
+        TextureDecoder.PooledTextureData data = this.decoder.decode(null,
+            encode(new BufferedImage(8, 8, BufferedImage.TYPE_INT_ARGB), "png"), false);
+
+        ByteBuffer buffer = data.take();
+        assertNotNull(buffer);
+        assertNull("Buffer taken twice", data.take());
+        assertFalse("Taken buffer released", data.release());
+        assertEquals(0, this.pool.getPooledBytes());
+    }
+
+    @Test
+    public void testStatistics() throws IOException
+    {
+        ByteBuffer encoded = encode(new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB), "png");
+        this.decoder.decode(null, encoded, false);
+        this.decoder.decode(null, encoded, false);
+
+        TextureDecoder.Statistics stats = this.decoder.getStatistics();
+        assertEquals(2, stats.getDecodeCount());
+        assertEquals(2 * 4 * 16 * 16, stats.getDecodedBytes());
+        assertTrue(stats.getDecodeNanos() > 0);
+        assertTrue(stats.getMaxDecodeNanos() <= stats.getDecodeNanos());
+        assertEquals("Encoded buffer position changed", 0, encoded.position());
+    }
+
+    @Test
+    public void testUnrecognizedImage() throws IOException
+    {
+        assertNull(this.decoder.decode(null, ByteBuffer.wrap(new byte[] {1, 2, 3, 4}), false));
+        assertEquals(0, this.decoder.getStatistics().getDecodeCount());
+    }
+
+    private static ByteBuffer encode(BufferedImage image, String format) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    private static void assertPixel(ByteBuffer pixels, int index, int r, int g, int b, int a)
+    {
+        int i = 4 * index;
+        assertEquals("Incorrect red", r, pixels.get(i) & 0xFF, 1);
+        assertEquals("Incorrect green", g, pixels.get(i + 1) & 0xFF, 1);
+        assertEquals("Incorrect blue", b, pixels.get(i + 2) & 0xFF, 1);
+        assertEquals("Incorrect alpha", a, pixels.get(i + 3) & 0xFF);
+    }
+}
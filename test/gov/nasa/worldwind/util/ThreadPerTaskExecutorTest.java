@@ -0,0 +1,208 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ThreadPerTaskExecutorTest
+{
+    /** Tests that no more tasks run at once than the concurrency limit allows. */
+    @Test
+    public void testConcurrencyLimit() throws Exception
+    {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        ThreadPerTaskExecutor executor = this.createExecutor(3, new LinkedBlockingQueue<Runnable>());
+
+        for (int i = 0; i < 30; i++)
+        {
+            executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    int n = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(n, Math::max);
+                    sleep(5);
+                    running.decrementAndGet();
+                }
+            });
+        }
+
+        executor.shutdown();
+        assertTrue("Tasks did not finish ", executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue("Concurrency limit exceeded ", maxRunning.get() <= 3);
+        assertEquals(0, executor.getActiveCount());
+    }
+
+    /** Tests that waiting tasks start in queue order, so a priority queue gives priority order. */
+    @Test
+    public void testPriorityOrder() throws Exception
+    {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        ThreadPerTaskExecutor executor = this.createExecutor(1, new PriorityBlockingQueue<Runnable>());
+
+        executor.execute(new PrioritizedTask(-1, order, gate));
+        while (executor.getActiveCount() == 0)
+        {
+            sleep(1);
+        }
+
+        executor.execute(new PrioritizedTask(3, order, null));
+        executor.execute(new PrioritizedTask(1, order, null));
+        executor.execute(new PrioritizedTask(2, order, null));
+        gate.countDown();
+
+        executor.shutdown();
+        assertTrue("Tasks did not finish ", executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(-1, 1, 2, 3), order);
+    }
+
+    /** Tests that hooks run on the task's thread and that a full queue invokes the rejection handler. */
+    @Test
+    public void testHooksAndRejection() throws Exception
+    {
+        final AtomicInteger before = new AtomicInteger();
+        final AtomicInteger after = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final CountDownLatch gate = new CountDownLatch(1);
+
+        ThreadPerTaskExecutor executor = new ThreadPerTaskExecutor(1, new ArrayBlockingQueue<Runnable>(1),
+            ThreadPerTaskExecutor.newThreadFactory("test", null), new RejectedExecutionHandler()
+        {
+            public void rejectedExecution(Runnable runnable, ThreadPoolExecutor threadPoolExecutor)
+            {
+                rejected.incrementAndGet();
+            }
+        })
+        {
+            protected void beforeExecute(Thread thread, Runnable runnable)
+            {
+                assertSame(Thread.currentThread(), thread);
+                before.incrementAndGet();
+            }
+
+            protected void afterExecute(Runnable runnable, Throwable throwable)
+            {
+                after.incrementAndGet();
+            }
+        };
+
+        Runnable blocker = new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    gate.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        executor.execute(blocker);
+        while (executor.getActiveCount() == 0)
+        {
+            sleep(1);
+        }
+        executor.execute(blocker); // queued
+        executor.execute(blocker); // rejected, queue is full
+        assertEquals(1, rejected.get());
+
+        gate.countDown();
+        executor.shutdown();
+        assertTrue("Tasks did not finish ", executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(2, before.get());
+        assertEquals(2, after.get());
+    }
+
+    protected ThreadPerTaskExecutor createExecutor(int maxConcurrency, BlockingQueue<Runnable> queue)
+    {
+        return new ThreadPerTaskExecutor(maxConcurrency, queue, ThreadPerTaskExecutor.newThreadFactory("test", null),
+            null);
+    }
+
+    protected static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    protected static class PrioritizedTask implements Runnable, Comparable<PrioritizedTask>
+    {
+        protected final int priority;
+        protected final List<Integer> order;
+        protected final CountDownLatch gate;
+
+        public PrioritizedTask(int priority, List<Integer> order, CountDownLatch gate)
+        {
+            this.priority = priority;
+            this.order = order;
+            this.gate = gate;
+        }
+
+        public void run()
+        {
+            this.order.add(this.priority);
+            if (this.gate != null)
+            {
+                try
+                {
+                    this.gate.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        public int compareTo(PrioritizedTask that)
+        {
+            return Integer.compare(this.priority, that.priority);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TileRequestSchedulerTest
+{
+    private RecordingTaskService service;
+    private TileRequestScheduler scheduler;
+
+    @Before
+    public void setUp()
+    {
+        this.service = new RecordingTaskService(Integer.MAX_VALUE);
+        this.scheduler = new TileRequestScheduler(this.service, 100);
+    }
+
+    @Test
+    public void testRequestsOrderedAcrossRequesters()
+    {
+        Object background = new Object();
+        Object base = new Object();
+
+        this.scheduler.addRequest(background, new NamedTask("background-far"), 30);
+        this.scheduler.addRequest(background, new NamedTask("background-near"), 10);
+        this.scheduler.addRequest(base, new NamedTask("base-near"), 5);
+        this.scheduler.addRequest(base, new NamedTask("base-far"), 20);
+        this.scheduler.addRequest(base, new NamedTask("unprioritized"));
+        this.scheduler.sendRequests();
+
+        assertEquals(Arrays.asList("base-near", "background-near", "base-far", "background-far", "unprioritized"),
+            this.service.names());
+        assertEquals("Requests not flushed", 0, this.scheduler.getPendingCount());
+    }
+
+    @Test
+    public void testPrioritizedTask()
+    {
+        Object layer = new Object();
+        Sector sector = Sector.fromDegrees(0, 10, 0, 10);
+
+        this.scheduler.addRequest(layer, new PrioritizedNamedTask("small", 1000, Sector.fromDegrees(0, 1, 0, 1)));
+        this.scheduler.addRequest(layer, new PrioritizedNamedTask("far", 5000, sector));
+        this.scheduler.addRequest(layer, new PrioritizedNamedTask("near", 1000, sector));
+        this.scheduler.sendRequests();
+
+        assertEquals(Arrays.asList("near", "far", "small"), this.service.names());
+    }
+
+    @Test
+    public void testQuota()
+    {
+        Object limited = new Object();
+        Object unlimited = new Object();
+        this.scheduler.setQuota(limited, 2);
+
+        for (int i = 0; i < 5; i++)
+        {
+            this.scheduler.addRequest(limited, new NamedTask("limited" + i), i);
+            this.scheduler.addRequest(unlimited, new NamedTask("unlimited" + i), i);
+        }
+        this.scheduler.sendRequests();
+
+        assertEquals(7, this.service.tasks.size());
+        TileRequestScheduler.Statistics stats = this.scheduler.getStatistics(limited);
+        assertEquals(5, stats.getRequested());
+        assertEquals(2, stats.getSubmitted());
+        assertEquals(3, stats.getOverQuota());
+        assertEquals(5, this.scheduler.getStatistics(unlimited).getSubmitted());
+
+        // Quotas apply per frame.
+        this.scheduler.addRequest(limited, new NamedTask("next"), 0);
+        this.scheduler.sendRequests();
+        assertEquals(3, this.scheduler.getStatistics(limited).getSubmitted());
+    }
+
+    @Test
+    public void testStaleRequestsDropped()
+    {
+        this.service.capacity = 2;
+        Object layer = new Object();
+
+        for (int i = 0; i < 5; i++)
+        {
+            this.scheduler.addRequest(layer, new NamedTask("task" + i), i);
+        }
+        this.scheduler.sendRequests();
+
+        assertEquals(Arrays.asList("task0", "task1"), this.service.names());
+        assertEquals(3, this.scheduler.getStatistics(layer).getDropped());
+        assertEquals("Stale requests retained", 0, this.scheduler.getPendingCount());
+    }
+
+    @Test
+    public void testCapacity()
+    {
+        TileRequestScheduler small = new TileRequestScheduler(this.service, 3);
+        Object layer = new Object();
+
+        for (int i = 0; i < 5; i++)
+        {
+            small.addRequest(layer, new NamedTask("task" + i), i);
+        }
+
+        assertEquals(3, small.getPendingCount());
+        assertEquals(2, small.getStatistics(layer).getDropped());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullRequester()
+    {
+        this.scheduler.addRequest(null, new NamedTask("task"), 0);
+    }
+
+    private static class NamedTask implements Runnable
+    {
+        private final String name;
+
+        public NamedTask(String name)
+        {
+            this.name = name;
+        }
+
+        public void run()
+        {
+        }
+    }
+
+    private static class PrioritizedNamedTask extends NamedTask implements TileRequestScheduler.PrioritizedTask
+    {
+        private final double distance;
+        private final Sector sector;
+
+        public PrioritizedNamedTask(String name, double distance, Sector sector)
+        {
+            super(name);
+            this.distance = distance;
+            this.sector = sector;
+        }
+
+        public double getRequestPriority()
+        {
+            return TileRequestScheduler.computePriority(this.distance, this.sector);
+        }
+    }
+
+    private static class RecordingTaskService implements TaskService
+    {
+        private int capacity;
+        private List<Runnable> tasks = new ArrayList<Runnable>();
+
+        public RecordingTaskService(int capacity)
+        {
+            this.capacity = capacity;
+        }
+
+        public List<String> names()
+        {
+            List<String> names = new ArrayList<String>();
+            for (Runnable task : this.tasks)
+            {
+                names.add(((NamedTask) task).name);
+            }
+            return names;
+        }
+
+        public void shutdown(boolean immediately)
+        {
+        }
+
+        public boolean contains(Runnable runnable)
+        {
+            return this.tasks.contains(runnable);
+        }
+
+        public void addTask(Runnable runnable)
+        {
+            this.tasks.add(runnable);
+        }
+
+        public boolean isFull()
+        {
+            return this.tasks.size() >= this.capacity;
+        }
+
+        public boolean hasActiveTasks()
+        {
+            return !this.tasks.isEmpty();
+        }
+    }
+}
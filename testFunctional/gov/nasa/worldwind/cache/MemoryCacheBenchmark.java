@@ -0,0 +1,163 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.BenchmarkHarness;
+
+import java.util.*;
+
+/**
+ * Measures the add and get throughput of {@link BasicMemoryCache} with each of the available eviction policies, at
+ * 10 thousand, 100 thousand and 1 million entries. Each run fills the cache to capacity and then performs a mixed
+ * workload of skewed gets and adds of new keys, so that every add past capacity triggers eviction.
+ *
+ * @version $Id$
+ */
+public class MemoryCacheBenchmark
+{
+    protected static final int[] ENTRY_COUNTS = new int[] {10000, 100000, 1000000};
+    protected static final int OPERATIONS_PER_ENTRY = 4;
+    protected static final int WARMUP_RUNS = 2;
+
+    /** Times adds and gets separately, and reports the counts of the last run. */
+    protected abstract static class CacheWorkload extends BenchmarkHarness.Workload
+    {
+        protected final int numEntries;
+        protected long numAdds;
+        protected long numGets;
+        protected long numHits;
+        protected long addNanos;
+        protected long getNanos;
+
+        public CacheWorkload(int numEntries)
+        {
+            this.numEntries = numEntries;
+        }
+
+        protected abstract EvictionPolicy createPolicy();
+
+        public long run()
+        {
+            BasicMemoryCache cache = new BasicMemoryCache((long) (0.85 * this.numEntries), this.numEntries,
+                this.createPolicy());
+            Random random = new Random(42);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < this.numEntries; i++)
+            {
+                cache.add(i, Integer.valueOf(i), 1);
+            }
+
+            int numOperations = OPERATIONS_PER_ENTRY * this.numEntries;
+            int nextKey = this.numEntries;
+            this.numAdds = this.numEntries;
+            this.numGets = 0;
+            this.numHits = 0;
+            this.addNanos = System.nanoTime() - start;
+            this.getNanos = 0;
+
+            for (int i = 0; i < numOperations; i++)
+            {
+                if ((i & 3) == 0)
+                {
+                    long t = System.nanoTime();
+                    cache.add(nextKey, Integer.valueOf(nextKey), 1);
+                    this.addNanos += System.nanoTime() - t;
+                    nextKey++;
+                    this.numAdds++;
+                }
+                else
+                {
+                    // Skew the requested keys toward recent entries, as a view moving across tiles does.
+                    int key = nextKey - 1 - (int) Math.abs(random.nextGaussian() * this.numEntries * 0.5);
+                    long t = System.nanoTime();
+                    Object value = cache.getObject(key);
+                    this.getNanos += System.nanoTime() - t;
+                    this.numGets++;
+                    if (value != null)
+                        this.numHits++;
+                }
+            }
+
+            return this.numHits;
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkHarness.Table table = new BenchmarkHarness.Table()
+            .addColumn("Policy", 28, "s")
+            .addColumn("Entries", 10, "d")
+            .addColumn("Adds/sec", 14, ".0f")
+            .addColumn("Gets/sec", 14, ".0f")
+            .addColumn("Hit rate", 9, ".1f%%");
+        table.printHeader();
+
+        for (int numEntries : ENTRY_COUNTS)
+        {
+            Map<String, CacheWorkload> workloads = new LinkedHashMap<String, CacheWorkload>();
+            workloads.put("LRUEvictionPolicy", new CacheWorkload(numEntries)
+            {
+                protected EvictionPolicy createPolicy()
+                {
+                    return new LRUEvictionPolicy();
+                }
+            });
+            workloads.put("SegmentedLRUEvictionPolicy", new CacheWorkload(numEntries)
+            {
+                protected EvictionPolicy createPolicy()
+                {
+                    return new SegmentedLRUEvictionPolicy();
+                }
+            });
+            workloads.put("TinyLFUEvictionPolicy", new CacheWorkload(numEntries)
+            {
+                protected EvictionPolicy createPolicy()
+                {
+                    return new TinyLFUEvictionPolicy();
+                }
+            });
+
+            // The harness's timing covers cache construction; the rates below are computed from the add and get
+            // times measured by the workloads themselves.
+            BenchmarkHarness harness = new BenchmarkHarness(WARMUP_RUNS, 1);
+            for (Map.Entry<String, CacheWorkload> entry : workloads.entrySet())
+            {
+                harness.addWorkload(entry.getKey(), entry.getValue());
+            }
+            harness.run();
+
+            for (Map.Entry<String, CacheWorkload> entry : workloads.entrySet())
+            {
+                CacheWorkload w = entry.getValue();
+                table.printRow(entry.getKey(), numEntries, w.numAdds / (w.addNanos / 1e9),
+                    w.numGets / (w.getNanos / 1e9), 100.0 * w.numHits / w.numGets);
+            }
+        }
+    }
+}
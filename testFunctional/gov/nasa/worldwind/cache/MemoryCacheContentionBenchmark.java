@@ -0,0 +1,120 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.BenchmarkHarness;
+
+import java.util.*;
+
+/**
+ * Measures the throughput of {@link BasicMemoryCache} and {@link ConcurrentMemoryCache} when many threads use a cache
+ * at once, as the render thread, retrieval service and task service do with the texture and elevation tile caches.
+ * Each thread performs a mix of 90% gets and 10% adds over a key space larger than the cache, for 1 to 2x the number
+ * of available processors.
+ *
+ * @version $Id$
+ */
+public class MemoryCacheContentionBenchmark
+{
+    protected static final int CAPACITY = 100000;
+    protected static final int KEY_SPACE = 150000;
+    protected static final long RUN_MILLIS = 2000;
+
+    protected interface CacheFactory
+    {
+        MemoryCache createCache();
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        Map<String, CacheFactory> factories = new LinkedHashMap<String, CacheFactory>();
+        factories.put("BasicMemoryCache", new CacheFactory()
+        {
+            public MemoryCache createCache()
+            {
+                return new BasicMemoryCache((long) (0.85 * CAPACITY), CAPACITY);
+            }
+        });
+        factories.put("ConcurrentMemoryCache", new CacheFactory()
+        {
+            public MemoryCache createCache()
+            {
+                return new ConcurrentMemoryCache((long) (0.85 * CAPACITY), CAPACITY);
+            }
+        });
+
+        BenchmarkHarness.Table table = new BenchmarkHarness.Table()
+            .addColumn("Cache", 24, "s")
+            .addColumn("Threads", 8, "d")
+            .addColumn("Operations/sec", 16, ".0f");
+        table.printHeader();
+
+        int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+        for (int numThreads = 1; numThreads <= maxThreads; numThreads *= 2)
+        {
+            for (Map.Entry<String, CacheFactory> entry : factories.entrySet())
+            {
+                run(entry.getValue().createCache(), numThreads); // warm up
+                double opsPerSecond = run(entry.getValue().createCache(), numThreads);
+                table.printRow(entry.getKey(), numThreads, opsPerSecond);
+            }
+        }
+    }
+
+    protected static double run(final MemoryCache cache, int numThreads) throws Exception
+    {
+        for (int i = 0; i < CAPACITY; i++)
+        {
+            cache.add(i, Integer.valueOf(i), 1);
+        }
+
+        BenchmarkHarness.TimedTask task = new BenchmarkHarness.TimedTask()
+        {
+            public long run(int index, long endTime)
+            {
+                Random random = new Random(index);
+                long count = 0;
+                while (System.currentTimeMillis() < endTime)
+                {
+                    for (int i = 0; i < 1000; i++)
+                    {
+                        int key = random.nextInt(KEY_SPACE);
+                        if (i % 10 == 0)
+                            cache.add(key, Integer.valueOf(key), 1);
+                        else
+                            cache.getObject(key);
+                    }
+                    count += 1000;
+                }
+                return count;
+            }
+        };
+
+        return BenchmarkHarness.measureThroughput(RUN_MILLIS, Collections.nCopies(numThreads, task));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+import gov.nasa.worldwind.util.BenchmarkHarness;
+
+import java.awt.image.*;
+import java.util.Random;
+
+/**
+ * Measures the throughput of {@link DDSCompressor} for DXT1 and DXT3 compression of a large image with mip maps, with
+ * parallel compression disabled and enabled. Parallel compression compresses mip map levels and rows of blocks
+ * concurrently, so its speedup depends on the number of available processors.
+ *
+ * @version $Id$
+ */
+public class DDSCompressorBenchmark
+{
+    protected static final int IMAGE_SIZE = 2048;
+    protected static final int WARMUP_RUNS = 2;
+    protected static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception
+    {
+        BufferedImage image = createImage(IMAGE_SIZE, IMAGE_SIZE);
+
+        BenchmarkHarness harness = new BenchmarkHarness(WARMUP_RUNS, RUNS);
+        harness.addWorkload("DXT1 serial", createWorkload(image, DDSConstants.D3DFMT_DXT1, false));
+        harness.addWorkload("DXT1 parallel", createWorkload(image, DDSConstants.D3DFMT_DXT1, true));
+        harness.addWorkload("DXT3 serial", createWorkload(image, DDSConstants.D3DFMT_DXT3, false));
+        harness.addWorkload("DXT3 parallel", createWorkload(image, DDSConstants.D3DFMT_DXT3, true));
+
+        System.out.printf("%dx%d image with mip maps, %d processors%n", IMAGE_SIZE, IMAGE_SIZE,
+            Runtime.getRuntime().availableProcessors());
+        BenchmarkHarness.Table table = new BenchmarkHarness.Table()
+            .addColumn("Mode", 16, "s")
+            .addColumn("Millis", 12, ".1f")
+            .addColumn("MPixels/sec", 14, ".1f")
+            .addColumn("Bytes", 12, "d");
+        table.printHeader();
+        for (BenchmarkHarness.Result result : harness.run())
+        {
+            table.printRow(result.getName(), result.getMillis(),
+                IMAGE_SIZE * IMAGE_SIZE / 1e6 / (result.getMillis() / 1e3), result.getValue());
+        }
+    }
+
+    protected static BenchmarkHarness.Workload createWorkload(final BufferedImage image, int format, boolean parallel)
+    {
+        final DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+        attributes.setBuildMipmaps(true);
+        attributes.setDXTFormat(format);
+        attributes.setEnableParallelCompression(parallel);
+
+        return new BenchmarkHarness.Workload()
+        {
+            public long run()
+            {
+                return new DDSCompressor().compressImage(image, attributes).remaining();
+            }
+        };
+    }
+
+    /** Smooth gradients with translucent noise, so that blocks have a realistic spread of colors. */
+    protected static BufferedImage createImage(int width, int height)
+    {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(1);
+
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int a = 192 + random.nextInt(64);
+                int r = (255 * x / width + random.nextInt(16)) & 0xFF;
+                int g = (255 * y / height + random.nextInt(16)) & 0xFF;
+                int b = (int) (127.5 + 127.5 * Math.sin((x + y) * 0.01));
+                image.setRGB(x, y, (a << 24) | (r << 16) | (g << 8) | b);
+            }
+        }
+
+        return image;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.formats.geojson;
+
+import gov.nasa.worldwind.layers.RenderableLayer;
+import gov.nasa.worldwind.util.BenchmarkHarness;
+import gov.nasa.worldwindx.examples.GeoJSONLoader;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Measures the throughput of reading a large GeoJSON feature collection of polygons with {@link GeoJSONDoc} and with
+ * {@link GeoJSONFeatureReader}, and of loading it into a layer with {@link GeoJSONLoader} with serial and parallel
+ * shape construction. The parallel speedup depends on the number of available processors.
+ *
+ * @version $Id$
+ */
+public class GeoJSONReaderBenchmark
+{
+    protected static final int NUM_FEATURES = 20000;
+    protected static final int RING_SIZE = 64;
+    protected static final int WARMUP_RUNS = 2;
+    protected static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception
+    {
+        final File file = createDocument(NUM_FEATURES, RING_SIZE);
+
+        BenchmarkHarness harness = new BenchmarkHarness(WARMUP_RUNS, RUNS);
+        harness.addWorkload("GeoJSONDoc", new BenchmarkHarness.Workload()
+        {
+            public long run() throws IOException
+            {
+                GeoJSONDoc doc = new GeoJSONDoc(file);
+                try
+                {
+                    doc.parse();
+                    return ((GeoJSONFeatureCollection) doc.getRootObject()).getFeatures().length;
+                }
+                finally
+                {
+                    doc.close();
+                }
+            }
+        });
+        harness.addWorkload("Reader read", new BenchmarkHarness.Workload()
+        {
+            public long run() throws IOException
+            {
+                GeoJSONFeatureReader reader = new GeoJSONFeatureReader(file);
+                try
+                {
+                    return ((GeoJSONFeatureCollection) reader.read()).getFeatures().length;
+                }
+                finally
+                {
+                    reader.close();
+                }
+            }
+        });
+        harness.addWorkload("Reader stream", new BenchmarkHarness.Workload()
+        {
+            public long run() throws IOException
+            {
+                GeoJSONFeatureReader reader = new GeoJSONFeatureReader(file);
+                try
+                {
+                    int count = 0;
+                    for (GeoJSONObject o = reader.nextObject(); o != null; o = reader.nextObject())
+                    {
+                        count++;
+                    }
+                    return count;
+                }
+                finally
+                {
+                    reader.close();
+                }
+            }
+        });
+        harness.addWorkload("Loader serial", createLoaderWorkload(file, false));
+        harness.addWorkload("Loader parallel", createLoaderWorkload(file, true));
+
+        System.out.printf("%d polygons of %d positions, %.1f MB, %d processors%n", NUM_FEATURES, RING_SIZE,
+            file.length() / 1e6, Runtime.getRuntime().availableProcessors());
+        BenchmarkHarness.Table table = new BenchmarkHarness.Table()
+            .addColumn("Mode", 16, "s")
+            .addColumn("Millis", 12, ".1f")
+            .addColumn("Features/sec", 16, ".0f")
+            .addColumn("Count", 10, "d");
+        table.printHeader();
+        for (BenchmarkHarness.Result result : harness.run())
+        {
+            table.printRow(result.getName(), result.getMillis(), NUM_FEATURES / (result.getMillis() / 1e3),
+                result.getValue());
+        }
+
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+
+    protected static BenchmarkHarness.Workload createLoaderWorkload(final File file, final boolean parallel)
+    {
+        return new BenchmarkHarness.Workload()
+        {
+            public long run()
+            {
+                GeoJSONLoader loader = new GeoJSONLoader();
+                loader.setParallelBuild(parallel);
+
+                RenderableLayer layer = new RenderableLayer();
+                loader.addSourceGeometryToLayer(file, layer);
+                return layer.getNumRenderables();
+            }
+        };
+    }
+
+    /** Writes a feature collection of small polygons with a few properties each. */
+    protected static File createDocument(int numFeatures, int ringSize) throws IOException
+    {
+        File file = File.createTempFile("GeoJSONReaderBenchmark", ".geojson");
+        file.deleteOnExit();
+
+        Random random = new Random(1);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try
+        {
+            writer.write("{\"type\": \"FeatureCollection\", \"features\": [\n");
+            for (int i = 0; i < numFeatures; i++)
+            {
+                double lat = -60 + 120 * random.nextDouble();
+                double lon = -180 + 360 * random.nextDouble();
+
+                writer.write(i > 0 ? ",\n" : "");
+                writer.write("{\"type\": \"Feature\", \"properties\": {\"id\": " + i + ", \"name\": \"feature" + i
+                    + "\"}, \"geometry\": {\"type\": \"Polygon\", \"coordinates\": [[");
+                for (int j = 0; j <= ringSize; j++)
+                {
+                    double a = 2 * Math.PI * (j % ringSize) / ringSize;
+                    writer.write(j > 0 ? ", [" : "[");
+                    writer.write(String.format(Locale.US, "%.6f, %.6f", lon + 0.1 * Math.cos(a),
+                        lat + 0.1 * Math.sin(a)));
+                    writer.write("]");
+                }
+                writer.write("]]}}");
+            }
+            writer.write("\n]}\n");
+        }
+        finally
+        {
+            writer.close();
+        }
+
+        return file;
+    }
+}
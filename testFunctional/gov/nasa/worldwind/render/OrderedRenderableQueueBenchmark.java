@@ -0,0 +1,159 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.util.BenchmarkHarness;
+
+import java.awt.*;
+import java.util.*;
+
+/**
+ * Measures the per-frame cost of queuing and draining ordered renderables through {@link DrawContextImpl}, and
+ * compares it with the priority queue of freshly allocated entries that the draw context used previously. No GL
+ * context is required; the renderables do nothing when drawn.
+ *
+ * @version $Id$
+ */
+public class OrderedRenderableQueueBenchmark
+{
+    protected static final int NUM_RENDERABLES = 100000;
+    protected static final int FRAMES = 10;
+    protected static final int WARMUP_RUNS = 3;
+    protected static final int RUNS = 5;
+
+    protected static class BenchmarkRenderable implements OrderedRenderable
+    {
+        protected final double distance;
+
+        public BenchmarkRenderable(double distance)
+        {
+            this.distance = distance;
+        }
+
+        public double getDistanceFromEye()
+        {
+            return this.distance;
+        }
+
+        public void pick(DrawContext dc, Point pickPoint)
+        {
+        }
+
+        public void render(DrawContext dc)
+        {
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        // Eye distances of a scene spread from a few hundred meters to a few thousand kilometers, with a fraction of
+        // renderables at identical distances.
+        Random random = new Random(1);
+        final OrderedRenderable[] renderables = new OrderedRenderable[NUM_RENDERABLES];
+        for (int i = 0; i < renderables.length; i++)
+        {
+            double distance = (i % 10 == 0) ? 1e5 : 500 + random.nextDouble() * random.nextDouble() * 5e6;
+            renderables[i] = new BenchmarkRenderable(distance);
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(WARMUP_RUNS, RUNS);
+        harness.addWorkload("PriorityQueue", new BenchmarkHarness.Workload()
+        {
+            public long run()
+            {
+                final DrawContextImpl dc = new DrawContextImpl();
+                long checksum = 0;
+                for (int frame = 0; frame < FRAMES; frame++)
+                {
+                    PriorityQueue<DrawContextImpl.OrderedRenderableEntry> queue =
+                        new PriorityQueue<DrawContextImpl.OrderedRenderableEntry>(100,
+                            new Comparator<DrawContextImpl.OrderedRenderableEntry>()
+                            {
+                                public int compare(DrawContextImpl.OrderedRenderableEntry orA,
+                                    DrawContextImpl.OrderedRenderableEntry orB)
+                                {
+                                    double eA = orA.distanceFromEye;
+                                    double eB = orB.distanceFromEye;
+
+                                    return eA > eB ? -1 : eA == eB ? (orA.time < orB.time ? -1
+                                        : orA.time == orB.time ? 0 : 1) : 1;
+                                }
+                            });
+
+                    for (OrderedRenderable or : renderables)
+                    {
+                        queue.add(new DrawContextImpl.OrderedRenderableEntry(or, System.nanoTime(), dc));
+                    }
+
+                    while (queue.peek() != null)
+                    {
+                        checksum += (long) queue.poll().distanceFromEye;
+                    }
+                }
+                return checksum;
+            }
+        });
+        harness.addWorkload("DrawContextImpl", new BenchmarkHarness.Workload()
+        {
+            public long run()
+            {
+                DrawContextImpl dc = new DrawContextImpl();
+                long checksum = 0;
+                for (int frame = 0; frame < FRAMES; frame++)
+                {
+                    dc.orderedRenderables.clear();
+
+                    for (OrderedRenderable or : renderables)
+                    {
+                        dc.addOrderedRenderable(or);
+                    }
+
+                    while (dc.peekOrderedRenderables() != null)
+                    {
+                        checksum += (long) dc.pollOrderedRenderables().getDistanceFromEye();
+                    }
+                }
+                return checksum;
+            }
+        });
+
+        System.out.printf("%d ordered renderables, %d frames per run%n", NUM_RENDERABLES, FRAMES);
+        BenchmarkHarness.Table table = new BenchmarkHarness.Table()
+            .addColumn("Queue", 16, "s")
+            .addColumn("Millis/frame", 12, ".2f")
+            .addColumn("Renderables/ms", 14, ".0f")
+            .addColumn("Checksum", 20, "d");
+        table.printHeader();
+        for (BenchmarkHarness.Result result : harness.run())
+        {
+            double millis = result.getMillis() / FRAMES;
+            table.printRow(result.getName(), millis, NUM_RENDERABLES / millis, result.getValue());
+        }
+    }
+}
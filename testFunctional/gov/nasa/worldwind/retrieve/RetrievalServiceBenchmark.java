@@ -0,0 +1,170 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.retrieve;
+
+import com.sun.net.httpserver.*;
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Measures how quickly {@link BasicRetrievalService} completes a burst of tile requests against a local stub HTTP
+ * server that delays each response, as a remote tile server does. The service is measured with its default thread pool
+ * and with its virtual thread mode, with {@link HTTPRetriever} fetching each tile.
+ *
+ * @version $Id$
+ */
+public class RetrievalServiceBenchmark
+{
+    protected static final int NUM_REQUESTS = 2000;
+    protected static final long SERVER_LATENCY = 100; // milliseconds
+    protected static final int TILE_SIZE = 16384; // bytes
+
+    public static void main(String[] args) throws Exception
+    {
+        HttpServer server = startServer();
+        String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/tiles/";
+
+        System.out.printf("Virtual threads supported: %b%n", ThreadPerTaskExecutor.isVirtualThreadSupported());
+        try
+        {
+            Configuration.setValue(AVKey.RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT, Long.MAX_VALUE);
+
+            BenchmarkHarness harness = new BenchmarkHarness(1, 1);
+            harness.addWorkload("Thread pool of " + Configuration.getIntegerValue(AVKey.RETRIEVAL_POOL_SIZE),
+                createWorkload(baseUrl + "pool/", false));
+            harness.addWorkload("Virtual threads, limit " + Configuration.getIntegerValue(
+                AVKey.RETRIEVAL_VIRTUAL_THREAD_LIMIT), createWorkload(baseUrl + "virtual/", true));
+            List<BenchmarkHarness.Result> results = harness.run();
+
+            BenchmarkHarness.Table table = new BenchmarkHarness.Table()
+                .addColumn("Mode", 32, "s")
+                .addColumn("Seconds", 12, ".2f")
+                .addColumn("Requests/sec", 14, ".0f");
+            table.printHeader();
+            for (BenchmarkHarness.Result result : results)
+            {
+                double seconds = result.getMillis() / 1e3;
+                table.printRow(result.getName(), seconds, NUM_REQUESTS / seconds);
+            }
+        }
+        finally
+        {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Creates a workload that retrieves a burst of tiles with the retrieval service's thread pool or virtual thread
+     * mode. Each run requests URLs it has not requested before, so that no run is served by an earlier one.
+     */
+    protected static BenchmarkHarness.Workload createWorkload(final String baseUrl, final boolean virtualThreads)
+    {
+        return new BenchmarkHarness.Workload()
+        {
+            protected int pass;
+
+            @Override
+            public void setUp()
+            {
+                Configuration.setValue(AVKey.RETRIEVAL_SERVICE_VIRTUAL_THREADS, virtualThreads);
+            }
+
+            public long run() throws Exception
+            {
+                retrieve(baseUrl + this.pass++ + "/");
+                return NUM_REQUESTS;
+            }
+        };
+    }
+
+    protected static HttpServer startServer() throws IOException
+    {
+        final byte[] tile = new byte[TILE_SIZE];
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.createContext("/tiles/", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                try
+                {
+                    Thread.sleep(SERVER_LATENCY);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                exchange.sendResponseHeaders(200, tile.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(tile);
+                os.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        return server;
+    }
+
+    protected static void retrieve(String baseUrl) throws Exception
+    {
+        final CountDownLatch done = new CountDownLatch(NUM_REQUESTS);
+        RetrievalPostProcessor postProcessor = new RetrievalPostProcessor()
+        {
+            public ByteBuffer run(Retriever retriever)
+            {
+                done.countDown();
+                return retriever.getBuffer();
+            }
+        };
+
+        BasicRetrievalService service = new BasicRetrievalService();
+        try
+        {
+            for (int i = 0; i < NUM_REQUESTS; i++)
+            {
+                service.runRetriever(new HTTPRetriever(new URL(baseUrl + i), postProcessor), i);
+            }
+
+            if (!done.await(10, TimeUnit.MINUTES))
+                throw new IllegalStateException("Retrievals did not complete");
+        }
+        finally
+        {
+            service.shutdown(true);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.util.*;
+
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Measures the line-of-sight throughput of {@link HighResolutionTerrain} for a viewshed-style workload: lines from a
+ * set of observers to a grid of targets over synthetic terrain. Each run uses a new terrain instance, so tile geometry
+ * is computed from scratch. The workload is run by intersecting each line individually, through the callback-based
+ * list API and through the batch API.
+ *
+ * @version $Id$
+ */
+public class HighResolutionTerrainBenchmark
+{
+    protected static final Sector SECTOR = Sector.fromDegrees(30, 30.1, -110, -109.9);
+    protected static final int NUM_OBSERVERS = 2;
+    protected static final int TARGET_GRID_SIZE = 40;
+    protected static final int WARMUP_RUNS = 1;
+    protected static final int RUNS = 3;
+
+    /** Intersects every line with a new terrain instance created before each run. */
+    protected abstract static class TerrainWorkload extends BenchmarkHarness.Workload
+    {
+        protected final Globe globe;
+        protected final Position[] positionsA;
+        protected final Position[] positionsB;
+        protected HighResolutionTerrain terrain;
+
+        public TerrainWorkload(Globe globe, Position[] positionsA, Position[] positionsB)
+        {
+            this.globe = globe;
+            this.positionsA = positionsA;
+            this.positionsB = positionsB;
+        }
+
+        @Override
+        public void setUp()
+        {
+            this.terrain = new HighResolutionTerrain(this.globe, SECTOR, null, null);
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        Globe globe = new Earth();
+        globe.setElevationModel(new SyntheticElevationModel());
+
+        List<Position> observers = new ArrayList<Position>();
+        Random random = new Random(1);
+        for (int i = 0; i < NUM_OBSERVERS; i++)
+        {
+            observers.add(randomPosition(random, 10));
+        }
+
+        int numLines = NUM_OBSERVERS * TARGET_GRID_SIZE * TARGET_GRID_SIZE;
+        Position[] positionsA = new Position[numLines];
+        Position[] positionsB = new Position[numLines];
+        int n = 0;
+        for (Position observer : observers)
+        {
+            for (int j = 0; j < TARGET_GRID_SIZE; j++)
+            {
+                for (int i = 0; i < TARGET_GRID_SIZE; i++)
+                {
+                    positionsA[n] = observer;
+                    positionsB[n++] = Position.fromDegrees(
+                        SECTOR.getMinLatitude().degrees + (j + 0.5) * SECTOR.getDeltaLatDegrees() / TARGET_GRID_SIZE,
+                        SECTOR.getMinLongitude().degrees + (i + 0.5) * SECTOR.getDeltaLonDegrees() / TARGET_GRID_SIZE,
+                        2);
+                }
+            }
+        }
+
+        BenchmarkHarness harness = new BenchmarkHarness(WARMUP_RUNS, RUNS);
+        harness.addWorkload("Individual", new TerrainWorkload(globe, positionsA, positionsB)
+        {
+            public long run()
+            {
+                int count = 0;
+                for (int i = 0; i < this.positionsA.length; i++)
+                {
+                    if (this.terrain.intersect(this.positionsA[i], this.positionsB[i]) != null)
+                        count++;
+                }
+                return count;
+            }
+        });
+        harness.addWorkload("Callback list", new TerrainWorkload(globe, positionsA, positionsB)
+        {
+            public long run() throws Exception
+            {
+                List<Position> positions = new ArrayList<Position>(2 * this.positionsA.length);
+                for (int i = 0; i < this.positionsA.length; i++)
+                {
+                    positions.add(this.positionsA[i]);
+                    positions.add(this.positionsB[i]);
+                }
+
+                final int[] count = new int[1];
+                final Exception[] failure = new Exception[1];
+                this.terrain.intersect(positions, new HighResolutionTerrain.IntersectionCallback()
+                {
+                    public void intersection(Position pA, Position pB, Intersection[] intersections)
+                    {
+                        synchronized (count)
+                        {
+                            count[0]++;
+                        }
+                    }
+
+                    public void exception(Exception exception)
+                    {
+                        Logging.logger().log(Level.SEVERE, "Line intersection failed", exception);
+                        synchronized (failure)
+                        {
+                            if (failure[0] == null)
+                                failure[0] = exception;
+                        }
+                    }
+                });
+
+                // Abort the run rather than report timings for lines that were not intersected.
+                synchronized (failure)
+                {
+                    if (failure[0] != null)
+                        throw failure[0];
+                }
+                return count[0];
+            }
+        });
+        harness.addWorkload("Batch", new TerrainWorkload(globe, positionsA, positionsB)
+        {
+            public long run() throws InterruptedException
+            {
+                return this.terrain.intersect(this.positionsA, this.positionsB,
+                    new Intersection[this.positionsA.length][]);
+            }
+        });
+
+        System.out.printf("%d lines, %d processors%n", numLines, Runtime.getRuntime().availableProcessors());
+        BenchmarkHarness.Table table = new BenchmarkHarness.Table()
+            .addColumn("Mode", 16, "s")
+            .addColumn("Millis", 12, ".1f")
+            .addColumn("Lines/sec", 14, ".0f")
+            .addColumn("Hits", 12, "d");
+        table.printHeader();
+        for (BenchmarkHarness.Result result : harness.run())
+        {
+            table.printRow(result.getName(), result.getMillis(), numLines / (result.getMillis() / 1e3),
+                result.getValue());
+        }
+    }
+
+    protected static Position randomPosition(Random random, double altitude)
+    {
+        return Position.fromDegrees(
+            SECTOR.getMinLatitude().degrees + random.nextDouble() * SECTOR.getDeltaLatDegrees(),
+            SECTOR.getMinLongitude().degrees + random.nextDouble() * SECTOR.getDeltaLonDegrees(),
+            altitude);
+    }
+
+    /** Rolling hills with a resolution of about 60 meters, computed on demand so that no data is retrieved. */
+    protected static class SyntheticElevationModel extends ZeroElevationModel
+    {
+        @Override
+        public double getMaxElevation()
+        {
+            return 1000;
+        }
+
+        @Override
+        public double[] getExtremeElevations(Sector sector)
+        {
+            return new double[] {0, 1000};
+        }
+
+        @Override
+        public double getBestResolution(Sector sector)
+        {
+            return 1e-5;
+        }
+
+        @Override
+        public double getUnmappedElevation(Angle latitude, Angle longitude)
+        {
+            return 500 + 500 * Math.sin(latitude.radians * 3000) * Math.cos(longitude.radians * 3000);
+        }
+
+        @Override
+        public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
+            double[] buffer)
+        {
+            for (int i = 0; i < latlons.size(); i++)
+            {
+                buffer[i] = this.getUnmappedElevation(latlons.get(i).getLatitude(), latlons.get(i).getLongitude());
+            }
+            return 0;
+        }
+    }
+}
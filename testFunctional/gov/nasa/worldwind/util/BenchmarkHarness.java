@@ -0,0 +1,283 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * The harness shared by the benchmarks in this source tree. It times a list of named workloads, each run a number of
+ * times after warm up runs, and measures the throughput of tasks run concurrently for a fixed time. Results are printed
+ * as a table of fixed width columns.
+ *
+ * @version $Id$
+ */
+public class BenchmarkHarness
+{
+    /** A named unit of work timed by the harness. */
+    public abstract static class Workload
+    {
+        /**
+         * Called before each run of the workload, and not timed. Creates the state a run consumes, such as a new
+         * instance of the structure measured.
+         *
+         * @throws Exception if the state cannot be created.
+         */
+        public void setUp() throws Exception
+        {
+        }
+
+        /**
+         * Performs one timed run of the workload.
+         *
+         * @return a count or checksum of the work done, reported so that results can be compared between workloads.
+         *
+         * @throws Exception if the run fails. The exception aborts the benchmark.
+         */
+        public abstract long run() throws Exception;
+    }
+
+    /** The outcome of timing one workload. */
+    public static class Result
+    {
+        protected final String name;
+        protected final double millis;
+        protected final long value;
+
+        public Result(String name, double millis, long value)
+        {
+            this.name = name;
+            this.millis = millis;
+            this.value = value;
+        }
+
+        public String getName()
+        {
+            return this.name;
+        }
+
+        /**
+         * Indicates the average time of a timed run.
+         *
+         * @return the average run time, in milliseconds.
+         */
+        public double getMillis()
+        {
+            return this.millis;
+        }
+
+        /**
+         * Indicates the value returned by the last timed run.
+         *
+         * @return the run's count or checksum.
+         */
+        public long getValue()
+        {
+            return this.value;
+        }
+    }
+
+    /** A task run on its own thread until an end time by {@link #measureThroughput(long, List)}. */
+    public interface TimedTask
+    {
+        /**
+         * Performs operations until the end time.
+         *
+         * @param index   the index of the task in the list of tasks run together.
+         * @param endTime the time at which to stop, in milliseconds as returned by {@link System#currentTimeMillis()}.
+         *
+         * @return the number of operations performed, or zero if the task only provides background load.
+         *
+         * @throws Exception if an operation fails. The exception aborts the benchmark.
+         */
+        long run(int index, long endTime) throws Exception;
+    }
+
+    /** Prints rows of fixed width columns. The first column is left aligned and the others right aligned. */
+    public static class Table
+    {
+        protected final List<String> headers = new ArrayList<String>();
+        protected final List<String> formats = new ArrayList<String>();
+        protected final StringBuilder headerFormat = new StringBuilder();
+
+        /**
+         * Adds a column.
+         *
+         * @param header     the column's header.
+         * @param width      the column's width in characters.
+         * @param conversion the format conversion of the column's values, such as "d", ".1f" or "s", optionally
+         *                   followed by "%%" to print a percent sign after each value.
+         *
+         * @return this table.
+         */
+        public Table addColumn(String header, int width, String conversion)
+        {
+            String flags = this.headers.isEmpty() ? "%-" : " %";
+            this.headers.add(header);
+            this.formats.add(flags + width + conversion);
+            // A literal percent sign after the value widens the column by one character.
+            int headerWidth = conversion.endsWith("%%") ? width + 1 : width;
+            this.headerFormat.append(flags).append(headerWidth).append("s");
+            return this;
+        }
+
+        public void printHeader()
+        {
+            System.out.printf(this.headerFormat + "%n", this.headers.toArray());
+        }
+
+        public void printRow(Object... values)
+        {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < values.length; i++)
+            {
+                sb.append(String.format(Locale.US, this.formats.get(i), values[i]));
+            }
+            System.out.println(sb);
+        }
+    }
+
+    protected final Map<String, Workload> workloads = new LinkedHashMap<String, Workload>();
+    protected final int warmupRuns;
+    protected final int runs;
+
+    /**
+     * Creates a harness that runs each workload a number of times untimed, then a number of times timed.
+     *
+     * @param warmupRuns the number of untimed runs of each workload.
+     * @param runs       the number of timed runs of each workload.
+     */
+    public BenchmarkHarness(int warmupRuns, int runs)
+    {
+        this.warmupRuns = warmupRuns;
+        this.runs = runs;
+    }
+
+    public void addWorkload(String name, Workload workload)
+    {
+        this.workloads.put(name, workload);
+    }
+
+    /**
+     * Runs each workload in the order it was added.
+     *
+     * @return the results of the workloads, in the order they were added.
+     *
+     * @throws Exception if a workload fails.
+     */
+    public List<Result> run() throws Exception
+    {
+        List<Result> results = new ArrayList<Result>();
+        for (Map.Entry<String, Workload> entry : this.workloads.entrySet())
+        {
+            results.add(this.run(entry.getKey(), entry.getValue()));
+        }
+
+        return results;
+    }
+
+    protected Result run(String name, Workload workload) throws Exception
+    {
+        for (int i = 0; i < this.warmupRuns; i++)
+        {
+            workload.setUp();
+            workload.run();
+        }
+
+        long elapsed = 0;
+        long value = 0;
+        for (int i = 0; i < this.runs; i++)
+        {
+            workload.setUp();
+            long start = System.nanoTime();
+            value = workload.run();
+            elapsed += System.nanoTime() - start;
+        }
+
+        return new Result(name, elapsed / 1e6 / this.runs, value);
+    }
+
+    /**
+     * Runs tasks concurrently, each on its own thread, for a fixed time and measures their combined throughput. The
+     * tasks start together once all their threads are running.
+     *
+     * @param millis the time to run the tasks, in milliseconds.
+     * @param tasks  the tasks to run.
+     *
+     * @return the number of operations the tasks performed per second.
+     *
+     * @throws Exception if a task fails.
+     */
+    public static double measureThroughput(long millis, List<? extends TimedTask> tasks) throws Exception
+    {
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final long[] endTime = new long[1];
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try
+        {
+            List<Future<Long>> futures = new ArrayList<Future<Long>>();
+            for (int i = 0; i < tasks.size(); i++)
+            {
+                final int index = i;
+                final TimedTask task = tasks.get(i);
+                futures.add(executor.submit(new Callable<Long>()
+                {
+                    public Long call() throws Exception
+                    {
+                        startSignal.await();
+                        return task.run(index, endTime[0]);
+                    }
+                }));
+            }
+
+            long start = System.currentTimeMillis();
+            endTime[0] = start + millis;
+            startSignal.countDown();
+
+            long operations = 0;
+            for (Future<Long> future : futures)
+            {
+                try
+                {
+                    operations += future.get();
+                }
+                catch (ExecutionException e)
+                {
+                    throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                }
+            }
+            long elapsed = System.currentTimeMillis() - start;
+
+            return operations / (elapsed / 1000.0);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2006-2009, 2017, 2020 United States Government, as represented by the
+ * Administrator of the National Aeronautics and Space Administration.
+ * All rights reserved.
+ * 
+ * The NASA World Wind Java (WWJ) platform is licensed under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed
+ * under the License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ * CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ * 
+ * NASA World Wind Java (WWJ) also contains the following 3rd party Open Source
+ * software:
+ * 
+ *     Jackson Parser – Licensed under Apache 2.0
+ *     GDAL – Licensed under MIT
+ *     JOGL – Licensed under  Berkeley Software Distribution (BSD)
+ *     Gluegen – Licensed under Berkeley Software Distribution (BSD)
+ * 
+ * A complete listing of 3rd Party software notices and licenses included in
+ * NASA World Wind Java (WWJ)  can be found in the WorldWindJava-v2.2 3rd-party
+ * notices and licenses PDF found in code directory.
+ */
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.Sector;
+
+import java.util.*;
+
+/**
+ * Compares {@link BasicQuadTree} and {@link ConcurrentQuadTree} for a large population of point items: the time to
+ * build the tree, the rate of region queries, the rate of item moves, and the rate of region queries made by several
+ * threads while another thread moves items, as a picking or rendering thread does while a simulation updates item
+ * positions.
+ *
+ * @version $Id$
+ */
+public class QuadTreeBenchmark
+{
+    protected static final int NUM_LEVELS = 8;
+    protected static final int NUM_ITEMS = 200000;
+    protected static final int NUM_QUERIES = 2000;
+    protected static final long RUN_MILLIS = 2000;
+
+    protected interface QuadTreeAdapter
+    {
+        void add(Integer item, double[] coords);
+
+        void move(Integer item, double[] coords);
+
+        Set<Integer> query(Sector sector);
+    }
+
+    protected interface TreeFactory
+    {
+        QuadTreeAdapter createTree();
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        Map<String, TreeFactory> factories = new LinkedHashMap<String, TreeFactory>();
+        factories.put("BasicQuadTree", new TreeFactory()
+        {
+            public QuadTreeAdapter createTree()
+            {
+                final BasicQuadTree<Integer> tree = new BasicQuadTree<Integer>(NUM_LEVELS, Sector.FULL_SPHERE, null,
+                    false);
+                return new QuadTreeAdapter()
+                {
+                    public void add(Integer item, double[] coords)
+                    {
+                        tree.add(item, coords);
+                    }
+
+                    public void move(Integer item, double[] coords)
+                    {
+                        synchronized (tree) // make the remove and add atomic to other threads
+                        {
+                            tree.remove(item);
+                            tree.add(item, coords);
+                        }
+                    }
+
+                    public Set<Integer> query(Sector sector)
+                    {
+                        return tree.getItemsInRegion(sector, null);
+                    }
+                };
+            }
+        });
+        factories.put("ConcurrentQuadTree", new TreeFactory()
+        {
+            public QuadTreeAdapter createTree()
+            {
+                final ConcurrentQuadTree<Integer> tree = new ConcurrentQuadTree<Integer>(NUM_LEVELS,
+                    Sector.FULL_SPHERE, false);
+                return new QuadTreeAdapter()
+                {
+                    public void add(Integer item, double[] coords)
+                    {
+                        tree.add(item, coords);
+                    }
+
+                    public void move(Integer item, double[] coords)
+                    {
+                        tree.add(item, coords);
+                    }
+
+                    public Set<Integer> query(Sector sector)
+                    {
+                        return tree.getItemsInRegion(sector, null);
+                    }
+                };
+            }
+        });
+
+        int numReaders = Math.max(2, Runtime.getRuntime().availableProcessors());
+        BenchmarkHarness.Table table = new BenchmarkHarness.Table()
+            .addColumn("Tree", 20, "s")
+            .addColumn("Build (ms)", 12, ".0f")
+            .addColumn("Queries/sec", 14, ".0f")
+            .addColumn("Moves/sec", 14, ".0f")
+            .addColumn("Queries/sec (" + numReaders + "+1)", 20, ".0f");
+        table.printHeader();
+        for (Map.Entry<String, TreeFactory> entry : factories.entrySet())
+        {
+            run(entry.getValue(), numReaders); // warm up
+            double[] results = run(entry.getValue(), numReaders);
+            table.printRow(entry.getKey(), results[0], results[1], results[2], results[3]);
+        }
+    }
+
+    protected static double[] run(TreeFactory factory, int numReaders) throws Exception
+    {
+        Random random = new Random(1);
+        final QuadTreeAdapter tree = factory.createTree();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < NUM_ITEMS; i++)
+        {
+            tree.add(i, randomLocation(random));
+        }
+        double buildMillis = (System.nanoTime() - start) / 1e6;
+
+        final Sector[] queries = new Sector[NUM_QUERIES];
+        for (int i = 0; i < NUM_QUERIES; i++)
+        {
+            double lat = 170 * random.nextDouble() - 90;
+            double lon = 350 * random.nextDouble() - 180;
+            queries[i] = Sector.fromDegrees(lat, lat + 10 * random.nextDouble(), lon, lon + 10 * random.nextDouble());
+        }
+
+        start = System.nanoTime();
+        for (Sector sector : queries)
+        {
+            tree.query(sector);
+        }
+        double queriesPerSecond = NUM_QUERIES / ((System.nanoTime() - start) / 1e9);
+
+        // BasicQuadTree searches every cell list to remove an item, so time a bounded run rather than a fixed count.
+        long moves = 0;
+        long end = System.currentTimeMillis() + RUN_MILLIS;
+        start = System.nanoTime();
+        while (System.currentTimeMillis() < end)
+        {
+            for (int i = 0; i < 10; i++)
+            {
+                tree.move(random.nextInt(NUM_ITEMS), randomLocation(random));
+            }
+            moves += 10;
+        }
+        double movesPerSecond = moves / ((System.nanoTime() - start) / 1e9);
+
+        // Readers query while one writer moves items. The writer's moves are not counted.
+        List<BenchmarkHarness.TimedTask> tasks = new ArrayList<BenchmarkHarness.TimedTask>(
+            Collections.nCopies(numReaders, new BenchmarkHarness.TimedTask()
+            {
+                public long run(int index, long endTime)
+                {
+                    long count = 0;
+                    while (System.currentTimeMillis() < endTime)
+                    {
+                        tree.query(queries[(int) ((index + count) % NUM_QUERIES)]);
+                        count++;
+                    }
+                    return count;
+                }
+            }));
+        tasks.add(new BenchmarkHarness.TimedTask()
+        {
+            public long run(int index, long endTime)
+            {
+                Random moveRandom = new Random(2);
+                while (System.currentTimeMillis() < endTime)
+                {
+                    tree.move(moveRandom.nextInt(NUM_ITEMS), randomLocation(moveRandom));
+                }
+                return 0;
+            }
+        });
+        double concurrentQueriesPerSecond = BenchmarkHarness.measureThroughput(RUN_MILLIS, tasks);
+
+        return new double[] {buildMillis, queriesPerSecond, movesPerSecond, concurrentQueriesPerSecond};
+    }
+
+    protected static double[] randomLocation(Random random)
+    {
+        return new double[] {180 * random.nextDouble() - 90, 360 * random.nextDouble() - 180};
+    }
+}